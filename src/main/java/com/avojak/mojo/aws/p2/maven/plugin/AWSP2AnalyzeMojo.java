@@ -0,0 +1,297 @@
+package com.avojak.mojo.aws.p2.maven.plugin;
+
+import com.amazonaws.services.s3.model.S3ObjectSummary;
+import com.avojak.mojo.aws.p2.maven.plugin.analyze.UsageAnalyzer;
+import com.avojak.mojo.aws.p2.maven.plugin.analyze.UsageReport;
+import com.avojak.mojo.aws.p2.maven.plugin.analyze.UsageReportWriter;
+import com.avojak.mojo.aws.p2.maven.plugin.s3.exception.BucketDoesNotExistException;
+import com.avojak.mojo.aws.p2.maven.plugin.s3.listing.ShardedLister;
+import com.avojak.mojo.aws.p2.maven.plugin.s3.listing.ShardedListing;
+import com.avojak.mojo.aws.p2.maven.plugin.s3.repository.S3BucketRepository;
+import com.avojak.mojo.aws.p2.maven.plugin.s3.repository.S3BucketRepositoryFactory;
+import com.avojak.mojo.aws.p2.maven.plugin.util.resource.ResourceUtil;
+import com.google.common.base.Supplier;
+import com.google.common.base.Suppliers;
+import org.apache.maven.execution.MavenSession;
+import org.apache.maven.plugin.AbstractMojo;
+import org.apache.maven.plugin.MojoFailureException;
+import org.apache.maven.plugins.annotations.Mojo;
+import org.apache.maven.plugins.annotations.Parameter;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Iterator;
+
+/**
+ * Analyzes the storage used by an AWS S3 bucket, or a prefix within it, and reports the projects, repositories and
+ * versions which use the most.
+ *
+ * @author Andrew Vojak
+ */
+@Mojo(name = "analyze", requiresProject = false, requiresOnline = true)
+public class AWSP2AnalyzeMojo extends AbstractMojo {
+
+	static final String TEXT_REPORT = "usage.txt";
+	static final String JSON_REPORT = "usage.json";
+
+	private static final Logger LOGGER = LoggerFactory.getLogger(AWSP2AnalyzeMojo.class);
+
+	private final Supplier<S3BucketRepositoryFactory> repositoryFactory;
+	private final UsageReportWriter reportWriter;
+
+	/**
+	 * The name of the S3 bucket to analyze.
+	 * <p>
+	 * <em>This value is required.</em>
+	 */
+	@Parameter(name = "bucket", property = "aws-p2.bucket", required = true)
+	private String bucket;
+
+	/**
+	 * The key prefix of the objects to analyze, for example:
+	 * <pre>
+	 *     ${project.name}/
+	 * </pre>
+	 * The whole bucket is analyzed by default.
+	 */
+	@Parameter(name = "prefix", property = "aws-p2.prefix")
+	private String prefix;
+
+	/**
+	 * The local directory into which the reports are written. The default value is:
+	 * <pre>
+	 *     ${project.build.directory}/analysis
+	 * </pre>
+	 */
+	@Parameter(name = "reportDirectory", property = "aws-p2.reportDirectory",
+			defaultValue = "${project.build.directory}/analysis")
+	private File reportDirectory;
+
+	/**
+	 * The number of heaviest prefixes to report at each level. The default value is {@code 20}.
+	 */
+	@Parameter(name = "topPrefixes", property = "aws-p2.topPrefixes", defaultValue = "20")
+	private int topPrefixes;
+
+	/**
+	 * The maximum number of concurrent listing requests. The default value is {@code 8}.
+	 */
+	@Parameter(name = "concurrency", property = "aws-p2.concurrency", defaultValue = "8")
+	private int concurrency;
+
+	/**
+	 * The number of directory levels behind the prefix by which the listing is split into shards, which are listed
+	 * concurrently. The default value is {@code 0}, which lists the objects one page after another. The whole bucket is
+	 * always listed one page after another.
+	 */
+	@Parameter(name = "listingShardDepth", property = "aws-p2.listingShardDepth", defaultValue = "0")
+	private int listingShardDepth;
+
+	/**
+	 * The Maven session. The default value is:
+	 * <pre>
+	 *     ${session}
+	 * </pre>
+	 * <em>This value is not configurable by consumers.</em>
+	 */
+	@Parameter(defaultValue = "${session}", readonly = true)
+	private MavenSession session;
+
+	/**
+	 * Whether or not to skip execution. The default value is {@code false}.
+	 */
+	@Parameter(name = "skip", property = "aws-p2.skip", defaultValue = "false")
+	private boolean skip;
+
+	/**
+	 * Default constructor invoked at runtime.
+	 */
+	public AWSP2AnalyzeMojo() {
+		this(S3BucketRepositoryFactory.deferred(), new UsageReportWriter());
+	}
+
+	/**
+	 * Constructor.
+	 * <p>
+	 * <em>Package-private scoped for testing purposes.</em>
+	 *
+	 * @param repositoryFactory
+	 * 		The {@link S3BucketRepositoryFactory}.
+	 * @param reportWriter
+	 * 		The {@link UsageReportWriter}.
+	 */
+	AWSP2AnalyzeMojo(final S3BucketRepositoryFactory repositoryFactory, final UsageReportWriter reportWriter) {
+		this(Suppliers.ofInstance(repositoryFactory), reportWriter);
+	}
+
+	private AWSP2AnalyzeMojo(final Supplier<S3BucketRepositoryFactory> repositoryFactory,
+	                         final UsageReportWriter reportWriter) {
+		this.repositoryFactory = repositoryFactory;
+		this.reportWriter = reportWriter;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public void execute() throws MojoFailureException {
+		if (skip) {
+			LOGGER.info(ResourceUtil.getString(getClass(), "info.skippingExecution"));
+			return;
+		}
+		if (topPrefixes < 1) {
+			throw new MojoFailureException("Top prefixes must be at least 1");
+		}
+		if (concurrency < 1) {
+			throw new MojoFailureException("Concurrency must be at least 1");
+		}
+		if (listingShardDepth < 0) {
+			throw new MojoFailureException("Listing shard depth cannot be negative");
+		}
+
+		SessionResources.releaseClients(session);
+		final S3BucketRepository repository;
+		try {
+			repository = repositoryFactory.get().create(bucket);
+		} catch (final BucketDoesNotExistException e) {
+			throw new MojoFailureException("The specified bucket does not exist", e);
+		}
+
+		final boolean wholeBucket = prefix == null || prefix.trim().isEmpty();
+		// The sorted listing keeps the objects behind each prefix together, which the analysis relies upon
+		final ShardedListing listing = !wholeBucket && listingShardDepth > 0
+				? new ShardedLister(repository, concurrency, listingShardDepth).list(prefix, true) : null;
+		final UsageReport report;
+		try {
+			final Iterator<S3ObjectSummary> summaries = listing != null ? listing
+					: (wholeBucket ? repository.iterateAll() : repository.iterate(prefix)).iterator();
+			report = new UsageAnalyzer(topPrefixes).analyze(summaries);
+		} finally {
+			if (listing != null) {
+				listing.close();
+			}
+		}
+		final String source = wholeBucket ? bucket : bucket + "/" + prefix;
+		LOGGER.info(ResourceUtil.getString(getClass(), "info.analysisComplete"), report.getTotalObjects(),
+				report.getTotalBytes(), source, report.getElapsedMillis());
+
+		if (!reportDirectory.isDirectory() && !reportDirectory.mkdirs()) {
+			throw new MojoFailureException("Unable to create the report directory: " + reportDirectory);
+		}
+		final File textReport = new File(reportDirectory, TEXT_REPORT);
+		try {
+			reportWriter.writeText(report, source, textReport);
+			reportWriter.writeJson(report, source, new File(reportDirectory, JSON_REPORT));
+		} catch (final IOException e) {
+			throw new MojoFailureException("Unable to write the usage report", e);
+		}
+		LOGGER.info(ResourceUtil.getString(getClass(), "info.reportWritten"), textReport);
+	}
+
+	/**
+	 * Sets the bucket name.
+	 * <p>
+	 * <em>Package-private scoped for testing purposes.</em>
+	 * </p>
+	 *
+	 * @param bucket
+	 * 		The bucket name.
+	 */
+	protected void setBucket(final String bucket) {
+		this.bucket = bucket;
+	}
+
+	/**
+	 * Sets the prefix.
+	 * <p>
+	 * <em>Package-private scoped for testing purposes.</em>
+	 * </p>
+	 *
+	 * @param prefix
+	 * 		The prefix.
+	 */
+	protected void setPrefix(final String prefix) {
+		this.prefix = prefix;
+	}
+
+	/**
+	 * Sets the report directory.
+	 * <p>
+	 * <em>Package-private scoped for testing purposes.</em>
+	 * </p>
+	 *
+	 * @param reportDirectory
+	 * 		The report directory {@link File}.
+	 */
+	protected void setReportDirectory(final File reportDirectory) {
+		this.reportDirectory = reportDirectory;
+	}
+
+	/**
+	 * Sets the number of top prefixes.
+	 * <p>
+	 * <em>Package-private scoped for testing purposes.</em>
+	 * </p>
+	 *
+	 * @param topPrefixes
+	 * 		The number of top prefixes.
+	 */
+	protected void setTopPrefixes(final int topPrefixes) {
+		this.topPrefixes = topPrefixes;
+	}
+
+	/**
+	 * Sets the concurrency.
+	 * <p>
+	 * <em>Package-private scoped for testing purposes.</em>
+	 * </p>
+	 *
+	 * @param concurrency
+	 * 		The concurrency.
+	 */
+	protected void setConcurrency(final int concurrency) {
+		this.concurrency = concurrency;
+	}
+
+	/**
+	 * Sets the listing shard depth.
+	 * <p>
+	 * <em>Package-private scoped for testing purposes.</em>
+	 * </p>
+	 *
+	 * @param listingShardDepth
+	 * 		The listing shard depth.
+	 */
+	protected void setListingShardDepth(final int listingShardDepth) {
+		this.listingShardDepth = listingShardDepth;
+	}
+
+	/**
+	 * Sets the Maven session.
+	 * <p>
+	 * <em>Package-private scoped for testing purposes.</em>
+	 * </p>
+	 *
+	 * @param session
+	 * 		The {@link MavenSession}.
+	 */
+	protected void setSession(final MavenSession session) {
+		this.session = session;
+	}
+
+	/**
+	 * Sets the skip execution flag.
+	 * <p>
+	 * <em>Package-private scoped for testing purposes.</em>
+	 * </p>
+	 *
+	 * @param skip
+	 * 		The skip execution flag.
+	 */
+	protected void setSkip(final boolean skip) {
+		this.skip = skip;
+	}
+
+}
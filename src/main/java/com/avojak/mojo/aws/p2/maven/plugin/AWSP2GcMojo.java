@@ -0,0 +1,266 @@
+package com.avojak.mojo.aws.p2.maven.plugin;
+
+import com.avojak.mojo.aws.p2.maven.plugin.gc.ArtifactMetadataParser;
+import com.avojak.mojo.aws.p2.maven.plugin.gc.CollectionResult;
+import com.avojak.mojo.aws.p2.maven.plugin.gc.OrphanCollector;
+import com.avojak.mojo.aws.p2.maven.plugin.s3.exception.BucketDoesNotExistException;
+import com.avojak.mojo.aws.p2.maven.plugin.s3.repository.S3BucketRepository;
+import com.avojak.mojo.aws.p2.maven.plugin.s3.repository.S3BucketRepositoryFactory;
+import com.avojak.mojo.aws.p2.maven.plugin.util.resource.ResourceUtil;
+import com.google.common.base.Supplier;
+import com.google.common.base.Suppliers;
+import com.google.common.util.concurrent.UncheckedExecutionException;
+import org.apache.maven.execution.MavenSession;
+import org.apache.maven.plugin.AbstractMojo;
+import org.apache.maven.plugin.MojoFailureException;
+import org.apache.maven.plugins.annotations.Mojo;
+import org.apache.maven.plugins.annotations.Parameter;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Deletes the artifact files within a prefix of an AWS S3 bucket which are no longer referenced by the metadata of the
+ * p2 repository which contains them.
+ *
+ * @author Andrew Vojak
+ */
+@Mojo(name = "gc", requiresProject = false, requiresOnline = true)
+public class AWSP2GcMojo extends AbstractMojo {
+
+	private static final Logger LOGGER = LoggerFactory.getLogger(AWSP2GcMojo.class);
+
+	private final Supplier<S3BucketRepositoryFactory> repositoryFactory;
+
+	/**
+	 * The name of the S3 bucket to collect.
+	 * <p>
+	 * <em>This value is required.</em>
+	 */
+	@Parameter(name = "bucket", property = "aws-p2.bucket", required = true)
+	private String bucket;
+
+	/**
+	 * The key prefix of the repositories to collect, for example:
+	 * <pre>
+	 *     ${project.name}/
+	 * </pre>
+	 * <em>This value is required.</em>
+	 */
+	@Parameter(name = "prefix", property = "aws-p2.prefix", required = true)
+	private String prefix;
+
+	/**
+	 * The maximum number of metadata files read, or listing requests made, concurrently. The default value is {@code
+	 * 8}.
+	 */
+	@Parameter(name = "concurrency", property = "aws-p2.concurrency", defaultValue = "8")
+	private int concurrency;
+
+	/**
+	 * The number of directory levels behind the prefix by which each listing is split into shards, which are listed
+	 * concurrently. The default value is {@code 0}, which lists the objects one page after another.
+	 */
+	@Parameter(name = "listingShardDepth", property = "aws-p2.listingShardDepth", defaultValue = "0")
+	private int listingShardDepth;
+
+	/**
+	 * The number of hours after its last modification before which an object is never collected, so that deployments
+	 * which are still in progress are not disturbed. The default value is {@code 24}.
+	 */
+	@Parameter(name = "minAgeHours", property = "aws-p2.minAgeHours", defaultValue = "24")
+	private int minAgeHours;
+
+	/**
+	 * Whether or not to only report the orphaned objects, without deleting them. The default value is {@code false}.
+	 */
+	@Parameter(name = "dryRun", property = "aws-p2.dryRun", defaultValue = "false")
+	private boolean dryRun;
+
+	/**
+	 * The Maven session. The default value is:
+	 * <pre>
+	 *     ${session}
+	 * </pre>
+	 * <em>This value is not configurable by consumers.</em>
+	 */
+	@Parameter(defaultValue = "${session}", readonly = true)
+	private MavenSession session;
+
+	/**
+	 * Whether or not to skip execution. The default value is {@code false}.
+	 */
+	@Parameter(name = "skip", property = "aws-p2.skip", defaultValue = "false")
+	private boolean skip;
+
+	/**
+	 * Default constructor invoked at runtime.
+	 */
+	public AWSP2GcMojo() {
+		this(S3BucketRepositoryFactory.deferred());
+	}
+
+	/**
+	 * Constructor.
+	 * <p>
+	 * <em>Package-private scoped for testing purposes.</em>
+	 *
+	 * @param repositoryFactory
+	 * 		The {@link S3BucketRepositoryFactory}.
+	 */
+	AWSP2GcMojo(final S3BucketRepositoryFactory repositoryFactory) {
+		this(Suppliers.ofInstance(repositoryFactory));
+	}
+
+	private AWSP2GcMojo(final Supplier<S3BucketRepositoryFactory> repositoryFactory) {
+		this.repositoryFactory = repositoryFactory;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public void execute() throws MojoFailureException {
+		if (skip) {
+			LOGGER.info(ResourceUtil.getString(getClass(), "info.skippingExecution"));
+			return;
+		}
+		if (prefix == null || prefix.trim().isEmpty()) {
+			throw new MojoFailureException("A prefix is required");
+		}
+		if (concurrency < 1) {
+			throw new MojoFailureException("Concurrency must be at least 1");
+		}
+		if (listingShardDepth < 0) {
+			throw new MojoFailureException("Listing shard depth cannot be negative");
+		}
+		if (minAgeHours < 0) {
+			throw new MojoFailureException("Minimum age cannot be negative");
+		}
+
+		SessionResources.releaseClients(session);
+		final S3BucketRepository repository;
+		try {
+			repository = repositoryFactory.get().create(bucket);
+		} catch (final BucketDoesNotExistException e) {
+			throw new MojoFailureException("The specified bucket does not exist", e);
+		}
+
+		final OrphanCollector collector = new OrphanCollector(new ArtifactMetadataParser(), concurrency,
+				listingShardDepth, minAgeHours, dryRun);
+		final CollectionResult result;
+		try {
+			result = collector.collect(repository, prefix, System.currentTimeMillis());
+		} catch (final UncheckedExecutionException | IllegalStateException e) {
+			throw new MojoFailureException("Unable to read the artifact repository metadata", e);
+		}
+		LOGGER.info(ResourceUtil.getString(getClass(), "info.metadataRead"), result.getMetadataFiles(),
+				result.getReferencedArtifacts());
+		LOGGER.info(ResourceUtil.getString(getClass(), dryRun ? "info.orphansFound" : "info.orphansDeleted"),
+				result.getOrphanedObjects(), result.getOrphanedBytes());
+	}
+
+	/**
+	 * Sets the bucket name.
+	 * <p>
+	 * <em>Package-private scoped for testing purposes.</em>
+	 * </p>
+	 *
+	 * @param bucket
+	 * 		The bucket name.
+	 */
+	protected void setBucket(final String bucket) {
+		this.bucket = bucket;
+	}
+
+	/**
+	 * Sets the prefix.
+	 * <p>
+	 * <em>Package-private scoped for testing purposes.</em>
+	 * </p>
+	 *
+	 * @param prefix
+	 * 		The prefix.
+	 */
+	protected void setPrefix(final String prefix) {
+		this.prefix = prefix;
+	}
+
+	/**
+	 * Sets the concurrency.
+	 * <p>
+	 * <em>Package-private scoped for testing purposes.</em>
+	 * </p>
+	 *
+	 * @param concurrency
+	 * 		The concurrency.
+	 */
+	protected void setConcurrency(final int concurrency) {
+		this.concurrency = concurrency;
+	}
+
+	/**
+	 * Sets the listing shard depth.
+	 * <p>
+	 * <em>Package-private scoped for testing purposes.</em>
+	 * </p>
+	 *
+	 * @param listingShardDepth
+	 * 		The listing shard depth.
+	 */
+	protected void setListingShardDepth(final int listingShardDepth) {
+		this.listingShardDepth = listingShardDepth;
+	}
+
+	/**
+	 * Sets the minimum age in hours.
+	 * <p>
+	 * <em>Package-private scoped for testing purposes.</em>
+	 * </p>
+	 *
+	 * @param minAgeHours
+	 * 		The minimum age in hours.
+	 */
+	protected void setMinAgeHours(final int minAgeHours) {
+		this.minAgeHours = minAgeHours;
+	}
+
+	/**
+	 * Sets the dry run flag.
+	 * <p>
+	 * <em>Package-private scoped for testing purposes.</em>
+	 * </p>
+	 *
+	 * @param dryRun
+	 * 		The dry run flag.
+	 */
+	protected void setDryRun(final boolean dryRun) {
+		this.dryRun = dryRun;
+	}
+
+	/**
+	 * Sets the Maven session.
+	 * <p>
+	 * <em>Package-private scoped for testing purposes.</em>
+	 * </p>
+	 *
+	 * @param session
+	 * 		The {@link MavenSession}.
+	 */
+	protected void setSession(final MavenSession session) {
+		this.session = session;
+	}
+
+	/**
+	 * Sets the skip execution flag.
+	 * <p>
+	 * <em>Package-private scoped for testing purposes.</em>
+	 * </p>
+	 *
+	 * @param skip
+	 * 		The skip execution flag.
+	 */
+	protected void setSkip(final boolean skip) {
+		this.skip = skip;
+	}
+
+}
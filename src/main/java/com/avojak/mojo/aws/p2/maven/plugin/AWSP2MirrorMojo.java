@@ -0,0 +1,280 @@
+package com.avojak.mojo.aws.p2.maven.plugin;
+
+import com.avojak.mojo.aws.p2.maven.plugin.mirror.BucketMirror;
+import com.avojak.mojo.aws.p2.maven.plugin.mirror.BucketMirrorFactory;
+import com.avojak.mojo.aws.p2.maven.plugin.mirror.MirrorStatistics;
+import com.avojak.mojo.aws.p2.maven.plugin.s3.exception.BucketDoesNotExistException;
+import com.avojak.mojo.aws.p2.maven.plugin.s3.repository.S3BucketRepository;
+import com.avojak.mojo.aws.p2.maven.plugin.s3.repository.S3BucketRepositoryFactory;
+import com.avojak.mojo.aws.p2.maven.plugin.util.resource.ResourceUtil;
+import com.google.common.base.Supplier;
+import com.google.common.base.Suppliers;
+import org.apache.maven.execution.MavenSession;
+import org.apache.maven.plugin.AbstractMojo;
+import org.apache.maven.plugin.MojoFailureException;
+import org.apache.maven.plugins.annotations.Mojo;
+import org.apache.maven.plugins.annotations.Parameter;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.File;
+
+/**
+ * Mirrors the content of an AWS S3 bucket, or a prefix within it, into a local directory.
+ *
+ * @author Andrew Vojak
+ */
+@Mojo(name = "mirror", requiresProject = false, requiresOnline = true)
+public class AWSP2MirrorMojo extends AbstractMojo {
+
+	private static final Logger LOGGER = LoggerFactory.getLogger(AWSP2MirrorMojo.class);
+
+	private final Supplier<S3BucketRepositoryFactory> repositoryFactory;
+	private final BucketMirrorFactory bucketMirrorFactory;
+
+	/**
+	 * The name of the S3 bucket to mirror.
+	 * <p>
+	 * <em>This value is required.</em>
+	 */
+	@Parameter(name = "bucket", property = "aws-p2.bucket", required = true)
+	private String bucket;
+
+	/**
+	 * The key prefix of the objects to mirror, for example:
+	 * <pre>
+	 *     ${project.name}/releases
+	 * </pre>
+	 * <em>This value is required.</em>
+	 */
+	@Parameter(name = "prefix", property = "aws-p2.prefix", required = true)
+	private String prefix;
+
+	/**
+	 * The local directory into which objects are mirrored. Objects are placed according to their full key. The default
+	 * value is:
+	 * <pre>
+	 *     ${project.build.directory}/mirror
+	 * </pre>
+	 */
+	@Parameter(name = "mirrorDirectory", property = "aws-p2.mirrorDirectory",
+			defaultValue = "${project.build.directory}/mirror")
+	private File mirrorDirectory;
+
+	/**
+	 * The maximum number of concurrent download requests. The default value is {@code 8}.
+	 */
+	@Parameter(name = "concurrency", property = "aws-p2.concurrency", defaultValue = "8")
+	private int concurrency;
+
+	/**
+	 * The number of directory levels behind the prefix by which the listing is split into shards, which are listed
+	 * concurrently. The default value is {@code 0}, which lists the objects one page after another.
+	 */
+	@Parameter(name = "listingShardDepth", property = "aws-p2.listingShardDepth", defaultValue = "0")
+	private int listingShardDepth;
+
+	/**
+	 * The size in bytes above which an object is downloaded with parallel ranged requests of this size. The default
+	 * value is {@code 8388608} (8 MiB).
+	 */
+	@Parameter(name = "partSize", property = "aws-p2.partSize", defaultValue = "8388608")
+	private long partSize;
+
+	/**
+	 * The Maven session. The default value is:
+	 * <pre>
+	 *     ${session}
+	 * </pre>
+	 * <em>This value is not configurable by consumers.</em>
+	 */
+	@Parameter(defaultValue = "${session}", readonly = true)
+	private MavenSession session;
+
+	/**
+	 * Whether or not to skip execution. The default value is {@code false}.
+	 */
+	@Parameter(name = "skip", property = "aws-p2.skip", defaultValue = "false")
+	private boolean skip;
+
+	/**
+	 * Default constructor invoked at runtime.
+	 */
+	public AWSP2MirrorMojo() {
+		this(S3BucketRepositoryFactory.deferred(), new BucketMirrorFactory());
+	}
+
+	/**
+	 * Constructor.
+	 * <p>
+	 * <em>Package-private scoped for testing purposes.</em>
+	 *
+	 * @param repositoryFactory
+	 * 		The {@link S3BucketRepositoryFactory}.
+	 * @param bucketMirrorFactory
+	 * 		The {@link BucketMirrorFactory}.
+	 */
+	AWSP2MirrorMojo(final S3BucketRepositoryFactory repositoryFactory, final BucketMirrorFactory bucketMirrorFactory) {
+		this(Suppliers.ofInstance(repositoryFactory), bucketMirrorFactory);
+	}
+
+	private AWSP2MirrorMojo(final Supplier<S3BucketRepositoryFactory> repositoryFactory,
+	                        final BucketMirrorFactory bucketMirrorFactory) {
+		this.repositoryFactory = repositoryFactory;
+		this.bucketMirrorFactory = bucketMirrorFactory;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public void execute() throws MojoFailureException {
+		if (skip) {
+			LOGGER.info(ResourceUtil.getString(getClass(), "info.skippingExecution"));
+			return;
+		}
+		if (prefix == null || prefix.trim().isEmpty()) {
+			throw new MojoFailureException("Prefix has not been specified");
+		}
+		if (concurrency < 1) {
+			throw new MojoFailureException("Concurrency must be at least 1");
+		}
+		if (partSize < 1) {
+			throw new MojoFailureException("Part size must be at least 1");
+		}
+		if (listingShardDepth < 0) {
+			throw new MojoFailureException("Listing shard depth cannot be negative");
+		}
+
+		SessionResources.releaseClients(session);
+		final S3BucketRepository repository;
+		try {
+			repository = repositoryFactory.get().create(bucket);
+		} catch (final BucketDoesNotExistException e) {
+			throw new MojoFailureException("The specified bucket does not exist", e);
+		}
+
+		final BucketMirror mirror = bucketMirrorFactory.create(repository, concurrency, partSize,
+				listingShardDepth);
+		final MirrorStatistics statistics;
+		try {
+			statistics = mirror.mirror(prefix, mirrorDirectory);
+		} catch (final InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new MojoFailureException("Interrupted while mirroring", e);
+		}
+
+		LOGGER.info(ResourceUtil.getString(getClass(), "info.mirrorComplete"), statistics.getObjectsDownloaded(),
+				statistics.getBytesDownloaded(), statistics.getElapsedMillis(), statistics.getBytesPerSecond());
+		LOGGER.info(ResourceUtil.getString(getClass(), "info.mirrorSkipped"), statistics.getObjectsSkipped(),
+				statistics.getRangedRequests());
+		if (statistics.getObjectsFailed() > 0) {
+			throw new MojoFailureException(statistics.getObjectsFailed() + " object(s) could not be mirrored");
+		}
+	}
+
+	/**
+	 * Sets the bucket name.
+	 * <p>
+	 * <em>Package-private scoped for testing purposes.</em>
+	 * </p>
+	 *
+	 * @param bucket
+	 * 		The bucket name.
+	 */
+	protected void setBucket(final String bucket) {
+		this.bucket = bucket;
+	}
+
+	/**
+	 * Sets the prefix.
+	 * <p>
+	 * <em>Package-private scoped for testing purposes.</em>
+	 * </p>
+	 *
+	 * @param prefix
+	 * 		The prefix.
+	 */
+	protected void setPrefix(final String prefix) {
+		this.prefix = prefix;
+	}
+
+	/**
+	 * Sets the mirror directory.
+	 * <p>
+	 * <em>Package-private scoped for testing purposes.</em>
+	 * </p>
+	 *
+	 * @param mirrorDirectory
+	 * 		The mirror directory {@link File}.
+	 */
+	protected void setMirrorDirectory(final File mirrorDirectory) {
+		this.mirrorDirectory = mirrorDirectory;
+	}
+
+	/**
+	 * Sets the concurrency.
+	 * <p>
+	 * <em>Package-private scoped for testing purposes.</em>
+	 * </p>
+	 *
+	 * @param concurrency
+	 * 		The concurrency.
+	 */
+	protected void setConcurrency(final int concurrency) {
+		this.concurrency = concurrency;
+	}
+
+	/**
+	 * Sets the listing shard depth.
+	 * <p>
+	 * <em>Package-private scoped for testing purposes.</em>
+	 * </p>
+	 *
+	 * @param listingShardDepth
+	 * 		The listing shard depth.
+	 */
+	protected void setListingShardDepth(final int listingShardDepth) {
+		this.listingShardDepth = listingShardDepth;
+	}
+
+	/**
+	 * Sets the part size.
+	 * <p>
+	 * <em>Package-private scoped for testing purposes.</em>
+	 * </p>
+	 *
+	 * @param partSize
+	 * 		The part size.
+	 */
+	protected void setPartSize(final long partSize) {
+		this.partSize = partSize;
+	}
+
+	/**
+	 * Sets the Maven session.
+	 * <p>
+	 * <em>Package-private scoped for testing purposes.</em>
+	 * </p>
+	 *
+	 * @param session
+	 * 		The {@link MavenSession}.
+	 */
+	protected void setSession(final MavenSession session) {
+		this.session = session;
+	}
+
+	/**
+	 * Sets the skip execution flag.
+	 * <p>
+	 * <em>Package-private scoped for testing purposes.</em>
+	 * </p>
+	 *
+	 * @param skip
+	 * 		The skip execution flag.
+	 */
+	protected void setSkip(final boolean skip) {
+		this.skip = skip;
+	}
+
+}
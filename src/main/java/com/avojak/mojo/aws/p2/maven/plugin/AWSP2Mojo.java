@@ -1,53 +1,314 @@
 package com.avojak.mojo.aws.p2.maven.plugin;
 
+import com.avojak.mojo.aws.p2.maven.plugin.cdn.InvalidationClient;
+import com.avojak.mojo.aws.p2.maven.plugin.cdn.InvalidationPlanner;
+import com.avojak.mojo.aws.p2.maven.plugin.cdn.InvalidationSettings;
+import com.avojak.mojo.aws.p2.maven.plugin.deploy.DeployTarget;
+import com.avojak.mojo.aws.p2.maven.plugin.deploy.DeploymentOptions;
+import com.avojak.mojo.aws.p2.maven.plugin.deploy.DeploymentResult;
+import com.avojak.mojo.aws.p2.maven.plugin.deploy.FanOutDeployer;
+import com.avojak.mojo.aws.p2.maven.plugin.deploy.FanOutDeployerFactory;
+import com.avojak.mojo.aws.p2.maven.plugin.deploy.PurgeResult;
+import com.avojak.mojo.aws.p2.maven.plugin.deploy.ReactorSiteRegistry;
+import com.avojak.mojo.aws.p2.maven.plugin.deploy.RetentionResult;
+import com.avojak.mojo.aws.p2.maven.plugin.deploy.SiteRegistration;
+import com.avojak.mojo.aws.p2.maven.plugin.deploy.SiteVerifier;
+import com.avojak.mojo.aws.p2.maven.plugin.deploy.SnapshotRetentionPolicy;
+import com.avojak.mojo.aws.p2.maven.plugin.deploy.StagedPublisher;
+import com.avojak.mojo.aws.p2.maven.plugin.deploy.StaleObjectPruner;
+import com.avojak.mojo.aws.p2.maven.plugin.deploy.VerificationResult;
+import com.avojak.mojo.aws.p2.maven.plugin.deploy.VersionPurger;
 import com.avojak.mojo.aws.p2.maven.plugin.index.generator.LandingPageGenerator;
 import com.avojak.mojo.aws.p2.maven.plugin.index.generator.LandingPageGeneratorFactory;
-import com.avojak.mojo.aws.p2.maven.plugin.s3.AmazonS3ClientFactory;
+import com.avojak.mojo.aws.p2.maven.plugin.s3.ClientSettings;
+import com.avojak.mojo.aws.p2.maven.plugin.s3.credentials.CredentialsSettings;
+import com.avojak.mojo.aws.p2.maven.plugin.s3.credentials.CredentialsSource;
 import com.avojak.mojo.aws.p2.maven.plugin.s3.exception.BucketDoesNotExistException;
+import com.avojak.mojo.aws.p2.maven.plugin.s3.limit.BandwidthLimiter;
+import com.avojak.mojo.aws.p2.maven.plugin.s3.limit.InFlightRequestLimiter;
+import com.avojak.mojo.aws.p2.maven.plugin.s3.metadata.MetadataPolicy;
+import com.avojak.mojo.aws.p2.maven.plugin.s3.metadata.MetadataSettings;
 import com.avojak.mojo.aws.p2.maven.plugin.s3.model.BucketPath;
 import com.avojak.mojo.aws.p2.maven.plugin.s3.model.trie.Trie;
+import com.avojak.mojo.aws.p2.maven.plugin.s3.region.BucketRegionCache;
+import com.avojak.mojo.aws.p2.maven.plugin.s3.repository.RepositoryOptions;
 import com.avojak.mojo.aws.p2.maven.plugin.s3.repository.S3BucketRepository;
 import com.avojak.mojo.aws.p2.maven.plugin.s3.repository.S3BucketRepositoryFactory;
+import com.avojak.mojo.aws.p2.maven.plugin.s3.repository.TransferBackend;
+import com.avojak.mojo.aws.p2.maven.plugin.s3.state.DeployManifestStore;
+import com.avojak.mojo.aws.p2.maven.plugin.s3.state.RemoteStateCache;
+import com.avojak.mojo.aws.p2.maven.plugin.util.checksum.ETagCalculator;
 import com.avojak.mojo.aws.p2.maven.plugin.util.resource.ResourceUtil;
+import com.google.common.base.Optional;
+import com.google.common.base.Supplier;
+import com.google.common.base.Suppliers;
+import com.google.common.base.Throwables;
+import com.google.common.util.concurrent.Futures;
+import com.google.common.util.concurrent.UncheckedExecutionException;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import org.apache.maven.execution.MavenSession;
+import org.apache.maven.model.Plugin;
+import org.apache.maven.model.PluginExecution;
 import org.apache.maven.plugin.AbstractMojo;
 import org.apache.maven.plugin.MojoFailureException;
+import org.apache.maven.plugin.descriptor.PluginDescriptor;
 import org.apache.maven.plugins.annotations.LifecyclePhase;
 import org.apache.maven.plugins.annotations.Mojo;
 import org.apache.maven.plugins.annotations.Parameter;
 import org.apache.maven.project.MavenProject;
+import org.codehaus.plexus.util.xml.Xpp3Dom;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.io.File;
 import java.io.IOException;
+import java.net.MalformedURLException;
+import java.net.URL;
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.Date;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
 
 /**
  * Deploys a p2 update site to an AWS S3 bucket.
  *
  * @author Andrew Vojak
  */
-@Mojo(name = "deploy", defaultPhase = LifecyclePhase.DEPLOY, requiresOnline = true)
+@Mojo(name = "deploy", defaultPhase = LifecyclePhase.DEPLOY, requiresOnline = true, threadSafe = true)
 public class AWSP2Mojo extends AbstractMojo {
 
 	private static final String REPOSITORY_DIR = "repository";
 	private static final String SNAPSHOT_QUALIFIER = "-SNAPSHOT";
 	private static final String SNAPSHOT_DIR = "snapshots";
 	private static final String RELEASE_DIR = "releases";
+	private static final String LANDING_PAGE = "index.html";
+	private static final String GOAL = "deploy";
+	private static final String PHASE_NONE = "none";
+	private static final String AGGREGATE_PARAMETER = "aggregate";
+	private static final String AGGREGATE_PROPERTY = "aws-p2.aggregate";
 
 	private static final Logger LOGGER = LoggerFactory.getLogger(AWSP2Mojo.class);
 
-	private final S3BucketRepositoryFactory repositoryFactory;
+	private final Supplier<S3BucketRepositoryFactory> repositoryFactory;
 	private final LandingPageGeneratorFactory landingPageGeneratorFactory;
+	private final FanOutDeployerFactory fanOutDeployerFactory;
+	private final InFlightRequestLimiter requestLimiter;
+	private final BucketRegionCache regionCache;
+	private final BandwidthLimiter bandwidthLimiter;
+	private final RemoteStateCache stateCache;
 
 	/**
 	 * The name of the S3 bucket to host the p2 site.
 	 * <p>
-	 * <em>This value is required.</em>
+	 * <em>This value is required unless {@code targets} are specified.</em>
 	 */
-	@Parameter(name = "bucket", property = "aws-p2.bucket", required = true)
+	@Parameter(name = "bucket", property = "aws-p2.bucket")
 	private String bucket;
 
+	/**
+	 * Additional buckets to host the p2 site, each with an optional region and hosting URL. When specified, the site is
+	 * uploaded to the {@code bucket} (if any) and every target concurrently, reading each file from disk only once.
+	 */
+	@Parameter(name = "targets")
+	private List<DeployTarget> targets;
+
+	/**
+	 * The maximum number of concurrent uploads to each bucket when deploying to {@code targets}. The default value is
+	 * {@code 8}.
+	 */
+	@Parameter(name = "uploadConcurrency", property = "aws-p2.uploadConcurrency", defaultValue = "8")
+	private int uploadConcurrency;
+
+	/**
+	 * The maximum number of S3 requests in flight at once across every module of the build, including modules built
+	 * in parallel with {@code mvn -T}. A module only applies the limit when it differs from the default, so when
+	 * modules configure different values, the one applied most recently wins. The limit is restored to the default once
+	 * the build ends. The default value is {@code 50}, which matches the default size of the connection pool.
+	 */
+	@Parameter(name = "maxInFlightRequests", property = "aws-p2.maxInFlightRequests", defaultValue = "50")
+	private int maxInFlightRequests;
+
+	/**
+	 * The maximum number of bytes uploaded per second across every module of the build, including modules built in
+	 * parallel with {@code mvn -T}. A value of {@code 0} leaves the bandwidth unlimited. The limit may be adjusted while
+	 * the build is running through the {@code com.avojak.mojo.aws.p2:type=BandwidthLimiter} MBean. As with {@code
+	 * maxInFlightRequests}, the most recently applied limit other than the default wins, and the bandwidth is unlimited
+	 * again once the build ends. The default value is {@code 0}.
+	 */
+	@Parameter(name = "maxBytesPerSecond", property = "aws-p2.maxBytesPerSecond", defaultValue = "0")
+	private long maxBytesPerSecond;
+
+	/**
+	 * The backend which carries out the transfers, either {@code BLOCKING} or {@code ASYNC}. The asynchronous backend
+	 * issues the uploads of a single bucket concurrently, up to {@code maxInFlightRequests} at once, and deletes
+	 * existing objects in batches of up to 1000 keys. The default value is {@code BLOCKING}.
+	 */
+	@Parameter(name = "transferBackend", property = "aws-p2.transferBackend", defaultValue = "BLOCKING")
+	private TransferBackend transferBackend;
+
+	/**
+	 * Whether or not to delete the existing objects at the destination only after the site has been uploaded. If
+	 * {@code true}, uploads start immediately while the existing objects are listed in the background, and once every
+	 * upload has succeeded only the objects which are not part of the new site are deleted. The previous site therefore
+	 * remains available throughout the deployment. If {@code false}, every existing object is deleted before the first
+	 * upload starts. The default value is {@code false}.
+	 */
+	@Parameter(name = "pruneAfterUpload", property = "aws-p2.pruneAfterUpload", defaultValue = "false")
+	private boolean pruneAfterUpload;
+
+	/**
+	 * Whether or not to upload the site to a unique staging prefix and then publish it by pointing the consumer-facing
+	 * location at it with a p2 composite repository. Consumers never see a partially uploaded site, and the previous
+	 * site remains available until the pointer is switched. Once the new site has been published, the previous site is
+	 * retained, older stages are deleted once {@code stageGracePeriod} has elapsed since they were superseded, and any
+	 * other objects which are not part of the new site are deleted. The default value is {@code false}.
+	 */
+	@Parameter(name = "stagedPublish", property = "aws-p2.stagedPublish", defaultValue = "false")
+	private boolean stagedPublish;
+
+	/**
+	 * The time in seconds for which a stage which has been superseded by a later stage is retained when
+	 * {@code stagedPublish} is enabled, measured from the start of the deployment of the later stage, so that consumers
+	 * which resolved the older stage can finish fetching from it. The stage which a deployment supersedes is always
+	 * retained until the next deployment. The default value is {@code 3600} (one hour).
+	 */
+	@Parameter(name = "stageGracePeriod", property = "aws-p2.stageGracePeriod", defaultValue = "3600")
+	private long stageGracePeriod;
+
+	/**
+	 * Whether or not to upload only the files which differ from the existing objects at the destination. The state of
+	 * the existing objects is discovered with whichever of a {@code HEAD} request per file, a listing of each directory
+	 * or a full listing is cheapest, and files whose size and entity tag match are not uploaded again. Objects which are
+	 * not part of the new site are deleted once it has been uploaded, as with {@code pruneAfterUpload}. Cannot be
+	 * combined with {@code stagedPublish}. The default value is {@code false}.
+	 */
+	@Parameter(name = "skipUnchanged", property = "aws-p2.skipUnchanged", defaultValue = "false")
+	private boolean skipUnchanged;
+
+	/**
+	 * Whether or not to permanently delete the noncurrent versions and delete markers behind the destination once the
+	 * site has been deployed, for buckets with versioning enabled. Only the current version of each object is kept.
+	 * The default value is {@code false}.
+	 */
+	@Parameter(name = "purgeVersions", property = "aws-p2.purgeVersions", defaultValue = "false")
+	private boolean purgeVersions;
+
+	/**
+	 * Whether or not to verify that every uploaded object matches the local file from which it was uploaded, by
+	 * comparing their sizes and entity tags. The state of the objects is discovered with whichever of a {@code HEAD}
+	 * request per file or a listing is cheapest. A missing or mismatched object fails the deployment to its bucket,
+	 * before a staged site is published. The default value is {@code false}.
+	 */
+	@Parameter(name = "verifyUpload", property = "aws-p2.verifyUpload", defaultValue = "false")
+	private boolean verifyUpload;
+
+	/**
+	 * The number of most recent snapshot versions of the project to keep in each bucket, including the version being
+	 * deployed. Older snapshot versions are deleted once the new version has been deployed. A value of {@code 0} keeps
+	 * every version. Release versions are never deleted. The default value is {@code 0}.
+	 */
+	@Parameter(name = "snapshotRetentionCount", property = "aws-p2.snapshotRetentionCount", defaultValue = "0")
+	private int snapshotRetentionCount;
+
+	/**
+	 * The number of days for which a snapshot version of the project is kept after it was last deployed. Expired
+	 * snapshot versions are deleted once the new version has been deployed. A value of {@code 0} keeps every version.
+	 * Release versions are never deleted. The default value is {@code 0}.
+	 */
+	@Parameter(name = "snapshotRetentionDays", property = "aws-p2.snapshotRetentionDays", defaultValue = "0")
+	private int snapshotRetentionDays;
+
+	/**
+	 * The number of directory levels behind an expired snapshot version by which its listing is split into shards,
+	 * which are listed concurrently. The default value is {@code 0}, which lists the objects one page after another.
+	 */
+	@Parameter(name = "snapshotRetentionShardDepth", property = "aws-p2.snapshotRetentionShardDepth",
+			defaultValue = "0")
+	private int snapshotRetentionShardDepth;
+
+	/**
+	 * The time in seconds for which the region of each bucket is cached on disk, so that subsequent builds need not look
+	 * it up. A value of {@code 0} disables the cache. The region is never looked up for buckets whose region or hosting
+	 * URL is specified. The cache is shared by every module of the build, so the most recently applied value other than
+	 * the default wins until the build ends. The default value is {@code 86400} (one day).
+	 */
+	@Parameter(name = "regionCacheTtl", property = "aws-p2.regionCacheTtl", defaultValue = "86400")
+	private long regionCacheTtl;
+
+	/**
+	 * The time in seconds for which the state of the existing objects at the destination is cached on disk when
+	 * {@code skipUnchanged} is enabled, so that a subsequent deployment from the same host need not discover it again.
+	 * The cached state is validated with a single {@code HEAD} request for a marker object which every such deployment
+	 * deletes before changing any object, and rewrites once it has succeeded. A value of {@code 0} disables the cache.
+	 * The cache is shared by every module of the build, so the most recently applied value other than the default wins
+	 * until the build ends. The default value is {@code 0}.
+	 */
+	@Parameter(name = "remoteStateCacheTtl", property = "aws-p2.remoteStateCacheTtl", defaultValue = "0")
+	private long remoteStateCacheTtl;
+
+	/**
+	 * Whether or not to store a compressed manifest next to the deployed site when {@code skipUnchanged} is enabled,
+	 * recording the size and entity tag of every file along with a hash of every directory. A subsequent deployment
+	 * fetches the manifest with a single {@code GET} request in place of discovering the state of the existing objects,
+	 * skips the files of every directory whose hash is unchanged, and skips the site altogether if its root hash is
+	 * unchanged. Every deployment which enables it deletes the manifest before changing any object and rewrites it once
+	 * it has succeeded, so it should be enabled consistently for a destination. The default value is {@code false}.
+	 */
+	@Parameter(name = "deployManifest", property = "aws-p2.deployManifest", defaultValue = "false")
+	private boolean deployManifest;
+
+	/**
+	 * Tuning of the HTTP connection pool, sockets and retries of the S3 clients. Settings which are not specified use
+	 * the defaults of the AWS SDK, except that the connection pool and the number of retries allowed before throttling
+	 * are scaled to the number of concurrent uploads, and TCP keep-alive is enabled.
+	 */
+	@Parameter(name = "client")
+	private ClientSettings client;
+
+	/**
+	 * The source of the AWS credentials. When not specified, the default credential provider chain is used, which
+	 * probes every source in turn and may take several seconds on hosts without an instance metadata service.
+	 */
+	@Parameter(name = "credentials")
+	private CredentialsSettings credentials;
+
+	/**
+	 * The metadata of uploaded objects. Rules set the {@code Cache-Control} and {@code Content-Type} headers of the
+	 * objects whose keys match their glob patterns, and role defaults derive the {@code Cache-Control} header of
+	 * artifacts and repository metadata. When not specified, only the content type is set, by file extension.
+	 */
+	@Parameter(name = "metadata")
+	private MetadataSettings metadata;
+
+	/**
+	 * The invalidation of the changed paths on the CDN in front of the bucket. Once the site has been deployed, the
+	 * paths of the objects which were uploaded or deleted are posted in batches to the endpoint, with every directory
+	 * in which most files changed collapsed into a single wildcard path. When not specified, nothing is invalidated.
+	 */
+	@Parameter(name = "invalidation")
+	private InvalidationSettings invalidation;
+
+	/**
+	 * Whether or not to defer deployment until the end of the reactor build. If {@code true}, each module registers its
+	 * update site, and the execution for the last module deploys the sites of every module together. Every module which
+	 * declares the plugin must enable this flag. The default value is {@code false}.
+	 */
+	@Parameter(name = "aggregate", property = "aws-p2.aggregate", defaultValue = "false")
+	private boolean aggregate;
+
 	/**
 	 * Whether or not to deploy snapshot sites. The default value is {@code true}.
 	 */
@@ -97,13 +358,33 @@ public class AWSP2Mojo extends AbstractMojo {
 	@Parameter(defaultValue = "${project}", readonly = true)
 	private MavenProject project;
 
-	// TODO: Allow additional metadata for putObject call?
+	/**
+	 * The Maven session. The default value is:
+	 * <pre>
+	 *     ${session}
+	 * </pre>
+	 * <em>This value is not configurable by consumers.</em>
+	 */
+	@Parameter(defaultValue = "${session}", readonly = true)
+	private MavenSession session;
+
+	/**
+	 * The descriptor of this plugin. The default value is:
+	 * <pre>
+	 *     ${plugin}
+	 * </pre>
+	 * <em>This value is not configurable by consumers.</em>
+	 */
+	@Parameter(defaultValue = "${plugin}", readonly = true)
+	private PluginDescriptor plugin;
 
 	/**
 	 * Default constructor invoked at runtime.
 	 */
 	public AWSP2Mojo() {
-		this(new S3BucketRepositoryFactory(new AmazonS3ClientFactory().create()), new LandingPageGeneratorFactory());
+		this(S3BucketRepositoryFactory.deferred(), new LandingPageGeneratorFactory(), new FanOutDeployerFactory(),
+				InFlightRequestLimiter.getGlobal(), BucketRegionCache.getGlobal(), BandwidthLimiter.getGlobal(),
+				RemoteStateCache.getGlobal());
 	}
 
 	/**
@@ -115,11 +396,38 @@ public class AWSP2Mojo extends AbstractMojo {
 	 * 		The {@link S3BucketRepositoryFactory}.
 	 * @param landingPageGeneratorFactory
 	 * 		The {@link LandingPageGeneratorFactory}.
+	 * @param fanOutDeployerFactory
+	 * 		The {@link FanOutDeployerFactory}.
+	 * @param requestLimiter
+	 * 		The {@link InFlightRequestLimiter} shared by the repositories.
+	 * @param regionCache
+	 * 		The {@link BucketRegionCache} shared by the repositories.
+	 * @param bandwidthLimiter
+	 * 		The {@link BandwidthLimiter} shared by the repositories.
+	 * @param stateCache
+	 * 		The {@link RemoteStateCache} of the state of the existing objects.
 	 */
 	AWSP2Mojo(final S3BucketRepositoryFactory repositoryFactory,
-			  final LandingPageGeneratorFactory landingPageGeneratorFactory) {
+			  final LandingPageGeneratorFactory landingPageGeneratorFactory,
+			  final FanOutDeployerFactory fanOutDeployerFactory, final InFlightRequestLimiter requestLimiter,
+			  final BucketRegionCache regionCache, final BandwidthLimiter bandwidthLimiter,
+			  final RemoteStateCache stateCache) {
+		this(Suppliers.ofInstance(repositoryFactory), landingPageGeneratorFactory, fanOutDeployerFactory,
+				requestLimiter, regionCache, bandwidthLimiter, stateCache);
+	}
+
+	private AWSP2Mojo(final Supplier<S3BucketRepositoryFactory> repositoryFactory,
+				  final LandingPageGeneratorFactory landingPageGeneratorFactory,
+				  final FanOutDeployerFactory fanOutDeployerFactory, final InFlightRequestLimiter requestLimiter,
+				  final BucketRegionCache regionCache, final BandwidthLimiter bandwidthLimiter,
+				  final RemoteStateCache stateCache) {
 		this.repositoryFactory = repositoryFactory;
 		this.landingPageGeneratorFactory = landingPageGeneratorFactory;
+		this.fanOutDeployerFactory = fanOutDeployerFactory;
+		this.requestLimiter = requestLimiter;
+		this.regionCache = regionCache;
+		this.bandwidthLimiter = bandwidthLimiter;
+		this.stateCache = stateCache;
 	}
 
 	/**
@@ -129,42 +437,799 @@ public class AWSP2Mojo extends AbstractMojo {
 	public void execute() throws MojoFailureException {
 		if (skip) {
 			LOGGER.info(ResourceUtil.getString(getClass(), "info.skippingExecution"));
+			register(Optional.<SiteRegistration>absent());
 			return;
 		}
 		final boolean isSnapshotVersion = isSnapshotVersion(project.getVersion());
 		if (isSnapshotVersion && !deploySnapshots) {
 			LOGGER.info(ResourceUtil.getString(getClass(), "info.skippingSnapshot"));
+			register(Optional.<SiteRegistration>absent());
 			return;
 		}
 
-		final S3BucketRepository repository;
-		try {
-			repository = repositoryFactory.create(bucket);
-		} catch (final BucketDoesNotExistException e) {
-			throw new MojoFailureException("The specified bucket does not exist", e);
+		final boolean hasTargets = targets != null && !targets.isEmpty();
+		if (!hasTargets && isBlank(bucket)) {
+			throw new MojoFailureException("Bucket has not been specified");
+		}
+		if (maxInFlightRequests < 1) {
+			throw new MojoFailureException("Max in-flight requests must be at least 1");
+		}
+		if (regionCacheTtl < 0) {
+			throw new MojoFailureException("Region cache TTL cannot be negative");
+		}
+		if (maxBytesPerSecond < 0) {
+			throw new MojoFailureException("Max bytes per second cannot be negative");
+		}
+		if (snapshotRetentionCount < 0) {
+			throw new MojoFailureException("Snapshot retention count cannot be negative");
+		}
+		if (snapshotRetentionDays < 0) {
+			throw new MojoFailureException("Snapshot retention days cannot be negative");
+		}
+		if (snapshotRetentionShardDepth < 0) {
+			throw new MojoFailureException("Snapshot retention shard depth cannot be negative");
+		}
+		if (stageGracePeriod < 0) {
+			throw new MojoFailureException("Stage grace period cannot be negative");
 		}
+		if (skipUnchanged && stagedPublish) {
+			throw new MojoFailureException("Unchanged files cannot be skipped when publishing through a stage");
+		}
+		if (remoteStateCacheTtl < 0) {
+			throw new MojoFailureException("Remote state cache TTL cannot be negative");
+		}
+		applySharedSettings();
+		final Optional<InvalidationClient> invalidationClient = getInvalidationClient();
+		final InvalidationPlanner invalidationPlanner = getInvalidationPlanner();
+		final CredentialsSettings credentialsSettings = getCredentialsSettings();
+		if (credentialsSettings.getSource() == CredentialsSource.STATIC && (isBlank(credentialsSettings.getAccessKey())
+				|| isBlank(credentialsSettings.getSecretKey()))) {
+			throw new MojoFailureException("Static credentials require an access key and a secret key");
+		}
+		SessionResources.releaseClients(session);
 
 		final File repositoryDirectory = new File(outputDirectory, REPOSITORY_DIR);
 		final BucketPath destination = new BucketPath();
 
-		if (projectName == null || projectName.trim().isEmpty()) {
+		// Unchanged files are only skipped by the fan-out deployment
+		if (!hasTargets && !aggregate && !skipUnchanged) {
+			final TransferBackend backend = getTransferBackend();
+			// The blocking backend uploads files one at a time when deploying to a single bucket
+			final int concurrency = backend == TransferBackend.ASYNC ? maxInFlightRequests : 1;
+			final RepositoryOptions repositoryOptions = RepositoryOptions.builder()
+					.clientSettings(getClientSettings().resolve(concurrency))
+					.credentials(credentialsSettings)
+					.backend(backend)
+					.metadataPolicy(getMetadataPolicy())
+					.build();
+			// The bucket is located while the site is read from disk
+			final ExecutorService lookupExecutor = Executors.newSingleThreadExecutor(
+					new ThreadFactoryBuilder().setNameFormat("aws-p2-lookup-%d").setDaemon(true).build());
+			try {
+				final Future<S3BucketRepository> lookup = lookupExecutor.submit(new Callable<S3BucketRepository>() {
+					@Override
+					public S3BucketRepository call() throws BucketDoesNotExistException {
+						return repositoryFactory.get().create(bucket, repositoryOptions);
+					}
+				});
+				appendSiteDirectory(destination, isSnapshotVersion);
+				deploy(lookup, repositoryDirectory, destination, invalidationClient, invalidationPlanner);
+			} finally {
+				// Abandons the lookup if the site could not be prepared
+				lookupExecutor.shutdownNow();
+			}
+			return;
+		}
+
+		appendSiteDirectory(destination, isSnapshotVersion);
+		final SiteRegistration site = new SiteRegistration(getDeployTargets(), repositoryDirectory, destination,
+				project.getArtifactId(), generateLandingPage);
+		if (aggregate) {
+			register(Optional.of(site));
+		} else {
+			deploy(Collections.singletonList(site));
+		}
+	}
+
+	/**
+	 * Deploys the site to the single bucket once it has been located by the given lookup.
+	 */
+	private void deploy(final Future<S3BucketRepository> lookup, final File repositoryDirectory,
+	                    final BucketPath destination, final Optional<InvalidationClient> invalidationClient,
+	                    final InvalidationPlanner invalidationPlanner) throws MojoFailureException {
+		if (!pruneAfterUpload && !stagedPublish) {
+			final S3BucketRepository repository = getRepository(lookup);
+			repository.deleteDirectory(destination.asString());
+			final Trie<String, String> content = repository.uploadDirectory(repositoryDirectory, destination);
+			if (!verify(repository, bucket, content, repositoryDirectory, destination)) {
+				throw new MojoFailureException("Verification failed for bucket " + bucket);
+			}
+			publish(repository, bucket, project.getArtifactId(), generateLandingPage, content, destination);
+			if (invalidationClient.isPresent()) {
+				// Every object behind the destination was replaced
+				invalidate(invalidationClient.get(), invalidationPlanner.plan(content, destination,
+						getSiteKeys(Optional.<StagedPublisher>absent(), repositoryDirectory, destination,
+								generateLandingPage)));
+			}
+			purgeNoncurrentVersions(repository, bucket, destination);
+			retain(repository, bucket, destination);
+			return;
+		}
+		final Optional<StagedPublisher> stager = getStagedPublisher();
+		final BucketPath uploadDestination = getUploadDestination(stager, destination);
+		final ExecutorService pruneExecutor = newPruneExecutor(1);
+		try {
+			// Existing objects are listed as soon as the bucket has been located
+			final StaleObjectPruner pruner = new StaleObjectPruner(lookup, destination, pruneExecutor);
+			final S3BucketRepository repository = getRepository(lookup);
+			final Trie<String, String> content = repository.uploadDirectory(repositoryDirectory, uploadDestination);
+			if (!verify(repository, bucket, content, repositoryDirectory, uploadDestination)) {
+				throw new MojoFailureException("Verification failed for bucket " + bucket);
+			}
+			if (stager.isPresent()) {
+				stager.get().publish(repository, destination, project.getArtifactId());
+			}
+			publish(repository, bucket, project.getArtifactId(), generateLandingPage, content, destination);
+			final Set<String> siteKeys = getSiteKeys(stager, repositoryDirectory, destination, generateLandingPage);
+			final Optional<List<String>> prunedKeys = prune(pruner, bucket, siteKeys, stager, destination);
+			if (invalidationClient.isPresent()) {
+				// A staged site is new to the CDN, so only the objects published over the previous site have changed
+				final Set<String> changedKeys = stager.isPresent()
+						? getPublishedKeys(stager, destination, generateLandingPage)
+						: new HashSet<String>(siteKeys);
+				changedKeys.addAll(prunedKeys.or(Collections.<String>emptyList()));
+				invalidate(invalidationClient.get(), invalidationPlanner.plan(content, destination, changedKeys));
+			}
+			purgeNoncurrentVersions(repository, bucket, destination);
+			retain(repository, bucket, destination);
+		} finally {
+			// Abandons the listing if the upload failed
+			pruneExecutor.shutdownNow();
+		}
+	}
+
+	/**
+	 * Waits for the given lookup to locate the bucket.
+	 */
+	private static S3BucketRepository getRepository(final Future<S3BucketRepository> lookup)
+			throws MojoFailureException {
+		try {
+			return lookup.get();
+		} catch (final InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new MojoFailureException("Deployment was interrupted", e);
+		} catch (final ExecutionException e) {
+			if (e.getCause() instanceof BucketDoesNotExistException) {
+				throw new MojoFailureException("The specified bucket does not exist", e.getCause());
+			}
+			Throwables.throwIfUnchecked(e.getCause());
+			throw new UncheckedExecutionException(e.getCause());
+		}
+	}
+
+	/**
+	 * Appends the directory of the update site within the bucket to the given destination.
+	 */
+	private void appendSiteDirectory(final BucketPath destination, final boolean isSnapshotVersion)
+			throws MojoFailureException {
+		if (isBlank(projectName)) {
 			throw new MojoFailureException("Project name has not been specified");
 		}
 		destination.append(projectName)
 				.append(isSnapshotVersion ? SNAPSHOT_DIR : RELEASE_DIR)
 				.append(project.getVersion());
+	}
+
+	/**
+	 * Gets the bucket, if specified, followed by every additional target.
+	 */
+	private List<DeployTarget> getDeployTargets() throws MojoFailureException {
+		final List<DeployTarget> deployTargets = new ArrayList<DeployTarget>();
+		if (!isBlank(bucket)) {
+			deployTargets.add(new DeployTarget(bucket, null, null));
+		}
+		if (targets != null) {
+			for (final DeployTarget target : targets) {
+				if (isBlank(target.getBucket())) {
+					throw new MojoFailureException("Bucket has not been specified");
+				}
+				deployTargets.add(target);
+			}
+		}
+		return deployTargets;
+	}
+
+	/**
+	 * Applies the settings which are shared by every module of the build. Each setting is only applied when it differs
+	 * from its default, so that a module which leaves it unconfigured does not undo the value configured by another
+	 * module. The shared settings are restored to their defaults once the session ends, so that they do not carry over
+	 * to the next build of a long-lived Maven process.
+	 */
+	private void applySharedSettings() {
+		if (maxInFlightRequests != InFlightRequestLimiter.DEFAULT_MAX_IN_FLIGHT_REQUESTS) {
+			requestLimiter.setMaxInFlightRequests(maxInFlightRequests);
+		}
+		if (regionCacheTtl != BucketRegionCache.DEFAULT_TTL_SECONDS) {
+			regionCache.setTtlSeconds(regionCacheTtl);
+		}
+		if (maxBytesPerSecond != BandwidthLimiter.DEFAULT_BYTES_PER_SECOND) {
+			bandwidthLimiter.configure(maxBytesPerSecond);
+		}
+		bandwidthLimiter.registerMBean();
+		if (remoteStateCacheTtl != RemoteStateCache.DEFAULT_TTL_SECONDS) {
+			stateCache.setTtlSeconds(remoteStateCacheTtl);
+		}
+		SessionResources.restoreSharedSettings(session, requestLimiter, regionCache, bandwidthLimiter, stateCache);
+	}
+
+	/**
+	 * Registers the project for the aggregated deployment, if enabled. The execution which registers the last project
+	 * of the reactor deploys the sites of every project.
+	 */
+	private void register(final Optional<SiteRegistration> site) throws MojoFailureException {
+		if (!aggregate) {
+			return;
+		}
+		// Each project is built with its own clone of the session, but every clone shares the request
+		final ReactorSiteRegistry registry = ReactorSiteRegistry.forSession(session.getRequest());
+		final int expectedProjects = countAggregatedProjects();
+		final Optional<List<SiteRegistration>> sites = registry.register(project.getId(), site, expectedProjects);
+		if (!sites.isPresent()) {
+			if (site.isPresent()) {
+				LOGGER.info(ResourceUtil.getString(getClass(), "info.siteRegistered"),
+						site.get().getDestination().asString());
+			}
+			// In a serial build nothing registers after the last project, so the pending sites will never be deployed
+			final List<MavenProject> reactorProjects = session.getProjects();
+			if (!session.isParallel() && project.equals(reactorProjects.get(reactorProjects.size() - 1))) {
+				LOGGER.warn(ResourceUtil.getString(getClass(), "warn.aggregationIncomplete"),
+						registry.getRegisteredProjectCount(), expectedProjects);
+			}
+			return;
+		}
+		if (!sites.get().isEmpty()) {
+			deploy(sites.get());
+		}
+	}
+
+	/**
+	 * Counts the projects of the reactor which are expected to register for the aggregated deployment.
+	 */
+	private int countAggregatedProjects() {
+		final String pluginKey = plugin.getPluginLookupKey();
+		int count = 0;
+		for (final MavenProject reactorProject : session.getProjects()) {
+			for (final Plugin buildPlugin : reactorProject.getBuildPlugins()) {
+				if (pluginKey.equals(buildPlugin.getKey()) && isAggregating(reactorProject, buildPlugin)) {
+					count++;
+					break;
+				}
+			}
+		}
+		// When the goal is invoked from the command line, the plugin need not be declared by any project
+		return count == 0 ? session.getProjects().size() : count;
+	}
+
+	/**
+	 * Determines whether or not the given declaration of the plugin binds the deploy goal with aggregation enabled, in
+	 * which case the execution for the project will register.
+	 */
+	private boolean isAggregating(final MavenProject reactorProject, final Plugin buildPlugin) {
+		for (final PluginExecution execution : buildPlugin.getExecutions()) {
+			if (!execution.getGoals().contains(GOAL) || PHASE_NONE.equals(execution.getPhase())) {
+				continue;
+			}
+			final Optional<String> value = getAggregateValue(execution.getConfiguration())
+					.or(getAggregateValue(buildPlugin.getConfiguration()));
+			if (Boolean.parseBoolean(resolveAggregateValue(reactorProject, value))) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * Gets the configured value of the aggregate parameter from the given plugin or execution configuration.
+	 */
+	private static Optional<String> getAggregateValue(final Object configuration) {
+		if (!(configuration instanceof Xpp3Dom)) {
+			return Optional.absent();
+		}
+		final Xpp3Dom child = ((Xpp3Dom) configuration).getChild(AGGREGATE_PARAMETER);
+		return child == null ? Optional.<String>absent() : Optional.fromNullable(child.getValue());
+	}
+
+	/**
+	 * Resolves the value of the aggregate parameter for the given project, falling back to the user property when the
+	 * parameter is not configured or is configured by a property expression.
+	 */
+	private String resolveAggregateValue(final MavenProject reactorProject, final Optional<String> value) {
+		String property = AGGREGATE_PROPERTY;
+		if (value.isPresent()) {
+			final String trimmed = value.get().trim();
+			if (!trimmed.startsWith("${") || !trimmed.endsWith("}")) {
+				return trimmed;
+			}
+			property = trimmed.substring(2, trimmed.length() - 1);
+		}
+		final Properties userProperties = session.getUserProperties();
+		if (userProperties != null && userProperties.getProperty(property) != null) {
+			return userProperties.getProperty(property);
+		}
+		final Properties projectProperties = reactorProject.getProperties();
+		return projectProperties == null ? null : projectProperties.getProperty(property);
+	}
+
+	/**
+	 * Deploys the given sites to their targets in a single fan-out, sharing one client and one pool of upload threads
+	 * per bucket.
+	 */
+	private void deploy(final List<SiteRegistration> sites) throws MojoFailureException {
+		if (uploadConcurrency < 1) {
+			throw new MojoFailureException("Upload concurrency must be at least 1");
+		}
+		final Set<DeployTarget> distinctTargets = new LinkedHashSet<DeployTarget>();
+		for (final SiteRegistration site : sites) {
+			distinctTargets.addAll(site.getTargets());
+		}
+		// Each bucket is served by its own pool of upload threads
+		final RepositoryOptions repositoryOptions = RepositoryOptions.builder()
+				.clientSettings(getClientSettings().resolve(uploadConcurrency * distinctTargets.size()))
+				.credentials(getCredentialsSettings())
+				.backend(getTransferBackend())
+				.metadataPolicy(getMetadataPolicy())
+				.build();
+		final Optional<InvalidationClient> invalidationClient = getInvalidationClient();
+		final InvalidationPlanner invalidationPlanner = getInvalidationPlanner();
+		final long start = System.currentTimeMillis();
+		// Buckets are located while the deployer reads the sites from disk
+		final ExecutorService lookupExecutor = Executors.newFixedThreadPool(distinctTargets.size(),
+				new ThreadFactoryBuilder().setNameFormat("aws-p2-lookup-%d").setDaemon(true).build());
+		final Map<DeployTarget, Future<S3BucketRepository>> repositories =
+				new LinkedHashMap<DeployTarget, Future<S3BucketRepository>>();
+		// Existing objects are listed while the sites are uploaded, and only deleted once each has succeeded. When
+		// unchanged files are skipped, the existing objects are usually known once the sites have been deployed, so
+		// they are only listed for the targets whose state was not complete.
+		final boolean pruneStale = pruneAfterUpload || stagedPublish || skipUnchanged;
+		final ExecutorService pruneExecutor = pruneStale ? newPruneExecutor(distinctTargets.size()) : null;
+		final List<StaleObjectPruner> pruners = new ArrayList<StaleObjectPruner>();
+		final Optional<StagedPublisher> stager = getStagedPublisher();
+		final List<SiteRegistration> uploads = new ArrayList<SiteRegistration>();
+		for (final SiteRegistration site : sites) {
+			uploads.add(new SiteRegistration(site.getTargets(), site.getDirectory(),
+					getUploadDestination(stager, site.getDestination()), site.getArtifactId(),
+					site.isGenerateLandingPage()));
+		}
+		final DeployManifestStore manifestStore = new DeployManifestStore();
+		final List<DeploymentResult> results;
+		try {
+			for (final DeployTarget target : distinctTargets) {
+				repositories.put(target, lookupExecutor.submit(new Callable<S3BucketRepository>() {
+					@Override
+					public S3BucketRepository call() throws BucketDoesNotExistException {
+						return repositoryFactory.get().create(target, repositoryOptions);
+					}
+				}));
+			}
+			if (pruneStale && !skipUnchanged) {
+				for (final SiteRegistration site : sites) {
+					for (final DeployTarget target : site.getTargets()) {
+						pruners.add(new StaleObjectPruner(repositories.get(target), site.getDestination(),
+								pruneExecutor));
+					}
+				}
+			}
+			final DeploymentOptions.Builder deploymentOptions = DeploymentOptions.builder(uploadConcurrency)
+					.deleteExisting(!pruneStale)
+					.skipUnchanged(skipUnchanged);
+			// The state of the existing objects is only needed, and so only kept, when skipping unchanged files
+			if (skipUnchanged && remoteStateCacheTtl > 0) {
+				deploymentOptions.stateCache(stateCache);
+			}
+			if (skipUnchanged && deployManifest) {
+				deploymentOptions.manifestStore(manifestStore);
+			}
+			final FanOutDeployer deployer = fanOutDeployerFactory.create(deploymentOptions.build());
+			results = deployer.deploy(repositories, uploads);
+			if (skipUnchanged) {
+				pruners.addAll(createPruners(sites, repositories, results, pruneExecutor));
+			}
+		} catch (final InterruptedException e) {
+			Thread.currentThread().interrupt();
+			shutdownNow(pruneExecutor);
+			throw new MojoFailureException("Deployment was interrupted", e);
+		} finally {
+			lookupExecutor.shutdown();
+		}
+		final long elapsed = System.currentTimeMillis() - start;
+
+		// Results are ordered by site and then by target, as are the pruners
+		final Iterator<DeploymentResult> iterator = results.iterator();
+		int index = 0;
+		int failures = 0;
+		int filesUploaded = 0;
+		final List<String> invalidationPaths = new ArrayList<String>();
+		try {
+			for (final SiteRegistration site : sites) {
+				final Set<String> siteKeys = pruneStale
+						? getSiteKeys(stager, site.getDirectory(), site.getDestination(), site.isGenerateLandingPage())
+						: Collections.<String>emptySet();
+				// The CDN serves every target, so the changes of each are invalidated together
+				Trie<String, String> changedContent = null;
+				final Set<String> changedKeys = new HashSet<String>();
+				for (int i = 0; i < site.getTargets().size(); i++, index++) {
+					final DeploymentResult result = iterator.next();
+					final String targetBucket = result.getTarget().getBucket();
+					filesUploaded += result.getFilesUploaded();
+					if (result.getFailure().isPresent()) {
+						LOGGER.error(ResourceUtil.getString(getClass(), "error.deploymentFailed"), targetBucket,
+								result.getFailure().get());
+						failures++;
+						continue;
+					}
+					if (result.isUpToDate()) {
+						LOGGER.info(ResourceUtil.getString(getClass(), "info.siteUpToDate"), targetBucket);
+						continue;
+					}
+					final S3BucketRepository repository = Futures.getUnchecked(repositories.get(result.getTarget()));
+					if (!verify(repository, targetBucket, result.getContent(), site.getDirectory(),
+							getUploadDestination(stager, site.getDestination()))) {
+						failures++;
+						continue;
+					}
+					if (stager.isPresent()) {
+						stager.get().publish(repository, site.getDestination(), getCompositeName(site));
+					}
+					publish(repository, targetBucket, site.getArtifactId(), site.isGenerateLandingPage(),
+							result.getContent(), site.getDestination());
+					if (skipUnchanged) {
+						LOGGER.info(ResourceUtil.getString(getClass(), "info.unchangedFilesSkipped"),
+								result.getFilesSkipped(), targetBucket);
+					}
+					// A state or manifest is trusted to include every object, so it is only stored once none is stale
+					boolean pruned = true;
+					if (pruneStale) {
+						final Optional<List<String>> prunedKeys = prune(pruners.get(index), targetBucket, siteKeys,
+								stager, site.getDestination());
+						pruned = prunedKeys.isPresent();
+						changedKeys.addAll(prunedKeys.or(Collections.<String>emptyList()));
+					}
+					if (invalidationClient.isPresent()) {
+						changedContent = result.getContent();
+						if (!stager.isPresent()) {
+							changedKeys.addAll(result.getUploadedKeys());
+						}
+						changedKeys.addAll(getPublishedKeys(stager, site.getDestination(),
+								site.isGenerateLandingPage()));
+					}
+					final String prefix = site.getDestination().asString() + BucketPath.PATH_DELIM;
+					if (pruned && result.getRemoteState().isPresent()) {
+						stateCache.put(repository, targetBucket, prefix, result.getRemoteState().get());
+					}
+					if (pruned && result.getManifest().isPresent()) {
+						manifestStore.put(repository, targetBucket, prefix, result.getManifest().get());
+					}
+					purgeNoncurrentVersions(repository, targetBucket, site.getDestination());
+					retain(repository, targetBucket, site.getDestination());
+				}
+				if (changedContent != null) {
+					invalidationPaths.addAll(invalidationPlanner.plan(changedContent, site.getDestination(),
+							changedKeys));
+				}
+			}
+		} finally {
+			// Abandons the listings of the targets which failed
+			shutdownNow(pruneExecutor);
+		}
+		if (invalidationClient.isPresent()) {
+			invalidate(invalidationClient.get(), invalidationPaths);
+		}
+		if (aggregate) {
+			LOGGER.info(ResourceUtil.getString(getClass(), "info.aggregatedDeploymentComplete"), sites.size(),
+					filesUploaded, repositories.size(), elapsed);
+		}
+		if (failures > 0) {
+			throw new MojoFailureException("Deployment failed for " + failures + " bucket(s)");
+		}
+	}
+
+	/**
+	 * Creates the pruner of each site and target from the results of their deployment, in the same order. The existing
+	 * objects are taken from the result when known, and otherwise listed, except for the targets which failed or were
+	 * already up to date, since nothing is pruned from them.
+	 */
+	private List<StaleObjectPruner> createPruners(final List<SiteRegistration> sites,
+	                                              final Map<DeployTarget, Future<S3BucketRepository>> repositories,
+	                                              final List<DeploymentResult> results,
+	                                              final ExecutorService pruneExecutor) {
+		final List<StaleObjectPruner> pruners = new ArrayList<StaleObjectPruner>();
+		final Iterator<DeploymentResult> iterator = results.iterator();
+		for (final SiteRegistration site : sites) {
+			for (final DeployTarget target : site.getTargets()) {
+				final DeploymentResult result = iterator.next();
+				if (result.getExistingKeys().isPresent()) {
+					pruners.add(new StaleObjectPruner(repositories.get(target), site.getDestination(),
+							result.getExistingKeys().get()));
+				} else if (result.getFailure().isPresent() || result.isUpToDate()) {
+					pruners.add(new StaleObjectPruner(repositories.get(target), site.getDestination(),
+							Collections.<String>emptySet()));
+				} else {
+					pruners.add(new StaleObjectPruner(repositories.get(target), site.getDestination(),
+							pruneExecutor));
+				}
+			}
+		}
+		return pruners;
+	}
+
+	/**
+	 * Creates the pool of threads which list the existing objects at the destination of each site.
+	 */
+	private ExecutorService newPruneExecutor(final int threads) {
+		return Executors.newFixedThreadPool(threads,
+				new ThreadFactoryBuilder().setNameFormat("aws-p2-prune-%d").setDaemon(true).build());
+	}
+
+	private void shutdownNow(final ExecutorService executor) {
+		if (executor != null) {
+			executor.shutdownNow();
+		}
+	}
+
+	/**
+	 * Gets the publisher of staged sites, if enabled.
+	 */
+	private Optional<StagedPublisher> getStagedPublisher() {
+		return stagedPublish ? Optional.of(new StagedPublisher(System.currentTimeMillis()))
+				: Optional.<StagedPublisher>absent();
+	}
+
+	/**
+	 * Gets the destination to which the site published at the given destination is uploaded.
+	 */
+	private BucketPath getUploadDestination(final Optional<StagedPublisher> stager, final BucketPath destination) {
+		return stager.isPresent() ? stager.get().getStagingDestination(destination) : destination;
+	}
+
+	/**
+	 * Gets the name of the composite repository which publishes a staged site.
+	 */
+	private String getCompositeName(final SiteRegistration site) {
+		return isBlank(site.getArtifactId()) ? site.getDestination().asString() : site.getArtifactId();
+	}
 
-		repository.deleteDirectory(destination.asString());
-		final Trie<String, String> content = repository.uploadDirectory(repositoryDirectory, destination);
+	/**
+	 * Gets the keys of every object of a newly deployed site, including the landing page if one was generated and the
+	 * pointer to the staged site if it was staged.
+	 */
+	private Set<String> getSiteKeys(final Optional<StagedPublisher> stager, final File directory,
+	                                final BucketPath destination, final boolean generateLandingPage) {
+		final Set<String> keys = StaleObjectPruner.inventory(directory, getUploadDestination(stager, destination));
+		keys.addAll(getPublishedKeys(stager, destination, generateLandingPage));
+		return keys;
+	}
+
+	/**
+	 * Gets the keys of the objects which are rewritten when a site is published, which are the landing page if one was
+	 * generated and the pointer to the staged site if it was staged.
+	 */
+	private Set<String> getPublishedKeys(final Optional<StagedPublisher> stager, final BucketPath destination,
+	                                     final boolean generateLandingPage) {
+		final Set<String> keys = new LinkedHashSet<String>();
+		if (stager.isPresent()) {
+			keys.addAll(stager.get().getPointerKeys(destination));
+		}
+		if (generateLandingPage) {
+			keys.add(new BucketPath(destination).append(LANDING_PAGE).asString());
+		}
+		return keys;
+	}
+
+	/**
+	 * Deletes the objects of previous deployments which are not part of the new site. The new site is complete at this
+	 * point, so a failure to delete the stale objects is reported without failing the build. When the site was staged,
+	 * the previous sites within the grace period are retained for the consumers which may still be fetching from them.
+	 *
+	 * @return The {@link Optional} keys of the objects which were deleted, which are absent if the deletion failed.
+	 */
+	private Optional<List<String>> prune(final StaleObjectPruner pruner, final String bucketName,
+	                                     final Set<String> siteKeys, final Optional<StagedPublisher> stager,
+	                                     final BucketPath destination) {
+		try {
+			final Set<String> keep = new HashSet<String>(siteKeys);
+			if (stager.isPresent()) {
+				keep.addAll(stager.get().getRetainedKeys(destination, pruner.getExistingKeys(),
+						System.currentTimeMillis(), TimeUnit.SECONDS.toMillis(stageGracePeriod)));
+			}
+			final List<String> prunedKeys = pruner.prune(keep);
+			LOGGER.info(ResourceUtil.getString(getClass(), "info.staleObjectsPruned"), prunedKeys.size(), bucketName);
+			return Optional.of(prunedKeys);
+		} catch (final RuntimeException e) {
+			LOGGER.warn(ResourceUtil.getString(getClass(), "warn.pruneFailed"), bucketName, e);
+			return Optional.absent();
+		}
+	}
+
+	/**
+	 * Submits the given paths for invalidation on the CDN in front of the bucket. The new site is complete at this
+	 * point, so a failure to invalidate the paths is reported without failing the build, and the CDN serves the
+	 * previous objects until they expire.
+	 */
+	private void invalidate(final InvalidationClient client, final List<String> paths) {
+		if (paths.isEmpty()) {
+			return;
+		}
+		try {
+			final int requests = client.submit(paths, "aws-p2-" + project.getArtifactId() + "-"
+					+ System.currentTimeMillis());
+			LOGGER.info(ResourceUtil.getString(getClass(), "info.pathsInvalidated"), paths.size(), requests);
+		} catch (final IOException e) {
+			LOGGER.warn(ResourceUtil.getString(getClass(), "warn.invalidationFailed"), paths.size(), e);
+		}
+	}
+
+	/**
+	 * Permanently deletes the noncurrent versions and delete markers behind the given destination, if enabled. The new
+	 * site is complete at this point, so a failure to delete them is reported without failing the build.
+	 */
+	private void purgeNoncurrentVersions(final S3BucketRepository repository, final String bucketName,
+	                                     final BucketPath destination) throws MojoFailureException {
+		if (!purgeVersions) {
+			return;
+		}
+		try {
+			final PurgeResult result = new VersionPurger(maxInFlightRequests).purge(repository, destination);
+			LOGGER.info(ResourceUtil.getString(getClass(), "info.versionsPurged"), result.getVersionsDeleted(),
+					result.getDeleteMarkersDeleted(), bucketName, result.getBytesReclaimed());
+		} catch (final InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new MojoFailureException("Purge was interrupted", e);
+		} catch (final RuntimeException e) {
+			LOGGER.warn(ResourceUtil.getString(getClass(), "warn.purgeFailed"), bucketName, e);
+		}
+	}
+
+	/**
+	 * Deletes the expired snapshot versions of the project deployed at the given destination, if a retention policy is
+	 * configured and the destination is a snapshot version. The new version is complete at this point, so a failure to
+	 * delete the expired versions is reported without failing the build.
+	 */
+	private void retain(final S3BucketRepository repository, final String bucketName, final BucketPath destination) {
+		final SnapshotRetentionPolicy policy = new SnapshotRetentionPolicy(snapshotRetentionCount,
+				snapshotRetentionDays, maxInFlightRequests, snapshotRetentionShardDepth);
+		final Optional<String> versionsDirectory = destination.getParent();
+		if (!policy.isEnabled() || !versionsDirectory.isPresent()
+				|| !versionsDirectory.get().endsWith(BucketPath.PATH_DELIM + SNAPSHOT_DIR)) {
+			return;
+		}
+		try {
+			final RetentionResult result = policy.apply(repository, destination, System.currentTimeMillis());
+			LOGGER.info(ResourceUtil.getString(getClass(), "info.snapshotsRemoved"),
+					result.getVersionsRemoved().size(), bucketName, result.getObjectsDeleted(),
+					result.getBytesReclaimed());
+		} catch (final RuntimeException e) {
+			LOGGER.warn(ResourceUtil.getString(getClass(), "warn.retentionFailed"), bucketName, e);
+		}
+	}
+
+	/**
+	 * Verifies that the objects of the site uploaded to the given destination match their local files, if enabled.
+	 * Every missing or mismatched object is reported.
+	 *
+	 * @return {@code true} if verification is disabled or succeeded, otherwise {@code false}.
+	 */
+	private boolean verify(final S3BucketRepository repository, final String bucketName,
+	                       final Trie<String, String> content, final File directory, final BucketPath destination) {
+		if (!verifyUpload) {
+			return true;
+		}
+		final VerificationResult result;
+		try {
+			result = new SiteVerifier(new ETagCalculator(), maxInFlightRequests).verify(repository, content, directory,
+					destination);
+		} catch (final RuntimeException e) {
+			LOGGER.error(ResourceUtil.getString(getClass(), "error.verificationFailed"), bucketName, e);
+			return false;
+		}
+		for (final String key : result.getMissing()) {
+			LOGGER.error(ResourceUtil.getString(getClass(), "error.objectMissing"), bucketName, key);
+		}
+		for (final String key : result.getMismatched()) {
+			LOGGER.error(ResourceUtil.getString(getClass(), "error.objectMismatched"), bucketName, key);
+		}
+		if (!result.isVerified()) {
+			return false;
+		}
+		LOGGER.info(ResourceUtil.getString(getClass(), "info.uploadVerified"), result.getObjectsVerified(),
+				bucketName);
+		return true;
+	}
+
+	/**
+	 * Gets the configured client settings, or the default settings if none were configured.
+	 */
+	private ClientSettings getClientSettings() {
+		return client == null ? new ClientSettings() : client;
+	}
+
+	/**
+	 * Gets the configured credentials settings, or the default settings if none were configured.
+	 */
+	private CredentialsSettings getCredentialsSettings() {
+		return credentials == null ? new CredentialsSettings() : credentials;
+	}
+
+	/**
+	 * Gets the metadata policy of the configured metadata settings, or of the default settings if none were
+	 * configured.
+	 */
+	private MetadataPolicy getMetadataPolicy() throws MojoFailureException {
+		try {
+			return (metadata == null ? new MetadataSettings() : metadata).toPolicy();
+		} catch (final IllegalArgumentException e) {
+			throw new MojoFailureException(e.getMessage(), e);
+		}
+	}
+
+	/**
+	 * Gets the client which submits the changed paths to the CDN, if an invalidation endpoint was configured.
+	 */
+	private Optional<InvalidationClient> getInvalidationClient() throws MojoFailureException {
+		final InvalidationSettings settings = getInvalidationSettings();
+		if (!settings.isEnabled()) {
+			return Optional.absent();
+		}
+		try {
+			return Optional.of(new InvalidationClient(new URL(settings.getEndpoint().trim()), settings.getHeaders(),
+					settings.getMaxPathsPerRequest(), settings.getMaxWildcardsPerRequest(), settings.getTimeout()));
+		} catch (final MalformedURLException e) {
+			throw new MojoFailureException("Invalid invalidation endpoint: " + settings.getEndpoint(), e);
+		} catch (final IllegalArgumentException e) {
+			throw new MojoFailureException(e.getMessage(), e);
+		}
+	}
+
+	/**
+	 * Gets the planner of the paths to invalidate on the CDN.
+	 */
+	private InvalidationPlanner getInvalidationPlanner() throws MojoFailureException {
+		final InvalidationSettings settings = getInvalidationSettings();
+		try {
+			return new InvalidationPlanner(settings.getWildcardThreshold(), settings.getMaxPathsPerRequest());
+		} catch (final IllegalArgumentException e) {
+			throw new MojoFailureException(e.getMessage(), e);
+		}
+	}
+
+	/**
+	 * Gets the configured invalidation settings, or the default settings if none were configured.
+	 */
+	private InvalidationSettings getInvalidationSettings() {
+		return invalidation == null ? new InvalidationSettings() : invalidation;
+	}
+
+	/**
+	 * Gets the configured transfer backend, or the blocking backend if none was configured.
+	 */
+	private TransferBackend getTransferBackend() {
+		return transferBackend == null ? TransferBackend.BLOCKING : transferBackend;
+	}
+
+	/**
+	 * Generates the landing page, if specified, and reports the URL of the deployed update site.
+	 */
+	private void publish(final S3BucketRepository repository, final String bucketName, final String artifactId,
+						 final boolean generateLandingPage, final Trie<String, String> content,
+						 final BucketPath destination) throws MojoFailureException {
 		// TODO: Log a message before this
 		content.log();
 
 		// Generate an HTML landing page if specified
 		if (generateLandingPage) {
 			try {
-				final BucketPath landingPageDestination = new BucketPath(destination).append("index.html");
+				final BucketPath landingPageDestination = new BucketPath(destination).append(LANDING_PAGE);
 				final LandingPageGenerator landingPageGenerator = landingPageGeneratorFactory.create();
-				final File index = landingPageGenerator.generate(bucket, project.getArtifactId(), content, new Date());
+				final File index = landingPageGenerator.generate(bucketName, artifactId, content, new Date());
 				repository.uploadFile(index, landingPageDestination);
 			} catch (IOException e) {
 				throw new MojoFailureException("Unable to generate landing page", e);
@@ -175,6 +1240,10 @@ public class AWSP2Mojo extends AbstractMojo {
 		LOGGER.info(ResourceUtil.getString(getClass(), "info.uploadComplete"), url);
 	}
 
+	private boolean isBlank(final String value) {
+		return value == null || value.trim().isEmpty();
+	}
+
 	/**
 	 * Checks whether or not a version is a snapshot version. From Maven documentation, a version is a snapshot version
 	 * if it contains the qualifier "-SNAPSHOT".
@@ -209,6 +1278,318 @@ public class AWSP2Mojo extends AbstractMojo {
 		this.bucket = bucket;
 	}
 
+	/**
+	 * Sets the deploy targets.
+	 * <p>
+	 * <em>Package-private scoped for testing purposes.</em>
+	 * </p>
+	 *
+	 * @param targets
+	 * 		The {@link List} of {@link DeployTarget}.
+	 */
+	protected void setTargets(final List<DeployTarget> targets) {
+		this.targets = targets;
+	}
+
+	/**
+	 * Sets the maximum number of concurrent uploads to each bucket.
+	 * <p>
+	 * <em>Package-private scoped for testing purposes.</em>
+	 * </p>
+	 *
+	 * @param uploadConcurrency
+	 * 		The maximum number of concurrent uploads.
+	 */
+	protected void setUploadConcurrency(final int uploadConcurrency) {
+		this.uploadConcurrency = uploadConcurrency;
+	}
+
+	/**
+	 * Sets the maximum number of in-flight requests.
+	 * <p>
+	 * <em>Package-private scoped for testing purposes.</em>
+	 * </p>
+	 *
+	 * @param maxInFlightRequests
+	 * 		The maximum number of in-flight requests.
+	 */
+	protected void setMaxInFlightRequests(final int maxInFlightRequests) {
+		this.maxInFlightRequests = maxInFlightRequests;
+	}
+
+	/**
+	 * Sets the maximum number of bytes uploaded per second.
+	 * <p>
+	 * <em>Package-private scoped for testing purposes.</em>
+	 * </p>
+	 *
+	 * @param maxBytesPerSecond
+	 * 		The maximum number of bytes per second.
+	 */
+	protected void setMaxBytesPerSecond(final long maxBytesPerSecond) {
+		this.maxBytesPerSecond = maxBytesPerSecond;
+	}
+
+	/**
+	 * Sets the transfer backend.
+	 * <p>
+	 * <em>Package-private scoped for testing purposes.</em>
+	 * </p>
+	 *
+	 * @param transferBackend
+	 * 		The {@link TransferBackend}.
+	 */
+	protected void setTransferBackend(final TransferBackend transferBackend) {
+		this.transferBackend = transferBackend;
+	}
+
+	/**
+	 * Sets the prune after upload flag.
+	 * <p>
+	 * <em>Package-private scoped for testing purposes.</em>
+	 * </p>
+	 *
+	 * @param pruneAfterUpload
+	 * 		The prune after upload flag.
+	 */
+	protected void setPruneAfterUpload(final boolean pruneAfterUpload) {
+		this.pruneAfterUpload = pruneAfterUpload;
+	}
+
+	/**
+	 * Sets the staged publish flag.
+	 * <p>
+	 * <em>Package-private scoped for testing purposes.</em>
+	 * </p>
+	 *
+	 * @param stagedPublish
+	 * 		The staged publish flag.
+	 */
+	protected void setStagedPublish(final boolean stagedPublish) {
+		this.stagedPublish = stagedPublish;
+	}
+
+	/**
+	 * Sets the grace period of superseded stages, in seconds.
+	 * <p>
+	 * <em>Package-private scoped for testing purposes.</em>
+	 * </p>
+	 *
+	 * @param stageGracePeriod
+	 * 		The grace period of superseded stages, in seconds.
+	 */
+	protected void setStageGracePeriod(final long stageGracePeriod) {
+		this.stageGracePeriod = stageGracePeriod;
+	}
+
+	/**
+	 * Sets the skip unchanged flag.
+	 * <p>
+	 * <em>Package-private scoped for testing purposes.</em>
+	 * </p>
+	 *
+	 * @param skipUnchanged
+	 * 		The skip unchanged flag.
+	 */
+	protected void setSkipUnchanged(final boolean skipUnchanged) {
+		this.skipUnchanged = skipUnchanged;
+	}
+
+	/**
+	 * Sets the purge versions flag.
+	 * <p>
+	 * <em>Package-private scoped for testing purposes.</em>
+	 * </p>
+	 *
+	 * @param purgeVersions
+	 * 		The purge versions flag.
+	 */
+	protected void setPurgeVersions(final boolean purgeVersions) {
+		this.purgeVersions = purgeVersions;
+	}
+
+	/**
+	 * Sets the verify upload flag.
+	 * <p>
+	 * <em>Package-private scoped for testing purposes.</em>
+	 * </p>
+	 *
+	 * @param verifyUpload
+	 * 		The verify upload flag.
+	 */
+	protected void setVerifyUpload(final boolean verifyUpload) {
+		this.verifyUpload = verifyUpload;
+	}
+
+	/**
+	 * Sets the number of snapshot versions to keep.
+	 * <p>
+	 * <em>Package-private scoped for testing purposes.</em>
+	 * </p>
+	 *
+	 * @param snapshotRetentionCount
+	 * 		The number of snapshot versions.
+	 */
+	protected void setSnapshotRetentionCount(final int snapshotRetentionCount) {
+		this.snapshotRetentionCount = snapshotRetentionCount;
+	}
+
+	/**
+	 * Sets the number of days for which snapshot versions are kept.
+	 * <p>
+	 * <em>Package-private scoped for testing purposes.</em>
+	 * </p>
+	 *
+	 * @param snapshotRetentionDays
+	 * 		The number of days.
+	 */
+	protected void setSnapshotRetentionDays(final int snapshotRetentionDays) {
+		this.snapshotRetentionDays = snapshotRetentionDays;
+	}
+
+	/**
+	 * Sets the listing shard depth of expired snapshot versions.
+	 * <p>
+	 * <em>Package-private scoped for testing purposes.</em>
+	 * </p>
+	 *
+	 * @param snapshotRetentionShardDepth
+	 * 		The listing shard depth.
+	 */
+	protected void setSnapshotRetentionShardDepth(final int snapshotRetentionShardDepth) {
+		this.snapshotRetentionShardDepth = snapshotRetentionShardDepth;
+	}
+
+	/**
+	 * Sets the time to live of the region cache.
+	 * <p>
+	 * <em>Package-private scoped for testing purposes.</em>
+	 * </p>
+	 *
+	 * @param regionCacheTtl
+	 * 		The time to live, in seconds.
+	 */
+	protected void setRegionCacheTtl(final long regionCacheTtl) {
+		this.regionCacheTtl = regionCacheTtl;
+	}
+
+	/**
+	 * Sets the time to live of the remote state cache.
+	 * <p>
+	 * <em>Package-private scoped for testing purposes.</em>
+	 * </p>
+	 *
+	 * @param remoteStateCacheTtl
+	 * 		The time to live, in seconds.
+	 */
+	protected void setRemoteStateCacheTtl(final long remoteStateCacheTtl) {
+		this.remoteStateCacheTtl = remoteStateCacheTtl;
+	}
+
+	/**
+	 * Sets the deploy manifest flag.
+	 * <p>
+	 * <em>Package-private scoped for testing purposes.</em>
+	 * </p>
+	 *
+	 * @param deployManifest
+	 * 		The deploy manifest flag.
+	 */
+	protected void setDeployManifest(final boolean deployManifest) {
+		this.deployManifest = deployManifest;
+	}
+
+	/**
+	 * Sets the client settings.
+	 * <p>
+	 * <em>Package-private scoped for testing purposes.</em>
+	 * </p>
+	 *
+	 * @param client
+	 * 		The {@link ClientSettings}.
+	 */
+	protected void setClient(final ClientSettings client) {
+		this.client = client;
+	}
+
+	/**
+	 * Sets the credentials settings.
+	 * <p>
+	 * <em>Package-private scoped for testing purposes.</em>
+	 * </p>
+	 *
+	 * @param credentials
+	 * 		The {@link CredentialsSettings}.
+	 */
+	protected void setCredentials(final CredentialsSettings credentials) {
+		this.credentials = credentials;
+	}
+
+	/**
+	 * Sets the metadata settings.
+	 * <p>
+	 * <em>Package-private scoped for testing purposes.</em>
+	 * </p>
+	 *
+	 * @param metadata
+	 * 		The {@link MetadataSettings}.
+	 */
+	protected void setMetadata(final MetadataSettings metadata) {
+		this.metadata = metadata;
+	}
+
+	/**
+	 * Sets the invalidation settings.
+	 * <p>
+	 * <em>Package-private scoped for testing purposes.</em>
+	 * </p>
+	 *
+	 * @param invalidation
+	 * 		The {@link InvalidationSettings}.
+	 */
+	protected void setInvalidation(final InvalidationSettings invalidation) {
+		this.invalidation = invalidation;
+	}
+
+	/**
+	 * Sets the aggregate flag.
+	 * <p>
+	 * <em>Package-private scoped for testing purposes.</em>
+	 * </p>
+	 *
+	 * @param aggregate
+	 * 		The aggregate flag.
+	 */
+	protected void setAggregate(final boolean aggregate) {
+		this.aggregate = aggregate;
+	}
+
+	/**
+	 * Sets the Maven session.
+	 * <p>
+	 * <em>Package-private scoped for testing purposes.</em>
+	 * </p>
+	 *
+	 * @param session
+	 * 		The {@link MavenSession}.
+	 */
+	protected void setSession(final MavenSession session) {
+		this.session = session;
+	}
+
+	/**
+	 * Sets the plugin descriptor.
+	 * <p>
+	 * <em>Package-private scoped for testing purposes.</em>
+	 * </p>
+	 *
+	 * @param plugin
+	 * 		The {@link PluginDescriptor}.
+	 */
+	protected void setPlugin(final PluginDescriptor plugin) {
+		this.plugin = plugin;
+	}
+
 	/**
 	 * Sets the deploy snapshots flag.
 	 * <p>
@@ -0,0 +1,62 @@
+package com.avojak.mojo.aws.p2.maven.plugin;
+
+import com.avojak.mojo.aws.p2.maven.plugin.s3.AmazonS3ClientCache;
+import com.avojak.mojo.aws.p2.maven.plugin.s3.limit.BandwidthLimiter;
+import com.avojak.mojo.aws.p2.maven.plugin.s3.limit.InFlightRequestLimiter;
+import com.avojak.mojo.aws.p2.maven.plugin.s3.region.BucketRegionCache;
+import com.avojak.mojo.aws.p2.maven.plugin.s3.state.RemoteStateCache;
+import com.avojak.mojo.aws.p2.maven.plugin.util.session.SessionEndListener;
+import org.apache.maven.execution.MavenSession;
+
+/**
+ * Releases the resources which the executions of the plugin share, and restores the settings they share, once the Maven
+ * session ends.
+ */
+final class SessionResources {
+
+	private static final String CLIENTS_TASK = "aws-p2-clients";
+	private static final String SETTINGS_TASK = "aws-p2-settings";
+
+	private SessionResources() {
+	}
+
+	/**
+	 * Shuts down the {@link AmazonS3ClientCache#getGlobal() global} clients once the given session ends. Every
+	 * execution which uses the clients calls this method, and the clients are shut down once, after the last of them.
+	 *
+	 * @param session The {@link MavenSession}. Cannot be {@code null}.
+	 */
+	static void releaseClients(final MavenSession session) {
+		SessionEndListener.register(session, CLIENTS_TASK, new Runnable() {
+			@Override
+			public void run() {
+				AmazonS3ClientCache.getGlobal().shutdown();
+			}
+		});
+	}
+
+	/**
+	 * Restores the defaults of the settings which every module of the build shares once the given session ends, so
+	 * that they do not carry over to the next build of a long-lived Maven process.
+	 *
+	 * @param session          The {@link MavenSession}. Cannot be {@code null}.
+	 * @param requestLimiter   The shared {@link InFlightRequestLimiter}. Cannot be {@code null}.
+	 * @param regionCache      The shared {@link BucketRegionCache}. Cannot be {@code null}.
+	 * @param bandwidthLimiter The shared {@link BandwidthLimiter}. Cannot be {@code null}.
+	 * @param stateCache       The shared {@link RemoteStateCache}. Cannot be {@code null}.
+	 */
+	static void restoreSharedSettings(final MavenSession session, final InFlightRequestLimiter requestLimiter,
+	                                  final BucketRegionCache regionCache, final BandwidthLimiter bandwidthLimiter,
+	                                  final RemoteStateCache stateCache) {
+		SessionEndListener.register(session, SETTINGS_TASK, new Runnable() {
+			@Override
+			public void run() {
+				requestLimiter.setMaxInFlightRequests(InFlightRequestLimiter.DEFAULT_MAX_IN_FLIGHT_REQUESTS);
+				regionCache.setTtlSeconds(BucketRegionCache.DEFAULT_TTL_SECONDS);
+				bandwidthLimiter.configure(BandwidthLimiter.DEFAULT_BYTES_PER_SECOND);
+				stateCache.setTtlSeconds(RemoteStateCache.DEFAULT_TTL_SECONDS);
+			}
+		});
+	}
+
+}
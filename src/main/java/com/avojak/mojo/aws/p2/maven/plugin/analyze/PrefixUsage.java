@@ -0,0 +1,93 @@
+package com.avojak.mojo.aws.p2.maven.plugin.analyze;
+
+import com.google.common.base.Objects;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * The number of objects and bytes behind a single prefix.
+ */
+public class PrefixUsage {
+
+	private final String prefix;
+	private final UsageLevel level;
+	private final long objects;
+	private final long bytes;
+
+	/**
+	 * Constructor.
+	 *
+	 * @param prefix  The prefix, ending with a delimiter. Cannot be {@code null}.
+	 * @param level   The {@link UsageLevel} of the prefix. Cannot be {@code null}.
+	 * @param objects The number of objects behind the prefix.
+	 * @param bytes   The total size in bytes of the objects behind the prefix.
+	 */
+	public PrefixUsage(final String prefix, final UsageLevel level, final long objects, final long bytes) {
+		this.prefix = checkNotNull(prefix, "prefix cannot be null");
+		this.level = checkNotNull(level, "level cannot be null");
+		this.objects = objects;
+		this.bytes = bytes;
+	}
+
+	/**
+	 * Gets the prefix.
+	 *
+	 * @return The non-{@code null} prefix.
+	 */
+	public String getPrefix() {
+		return prefix;
+	}
+
+	/**
+	 * Gets the level of the prefix.
+	 *
+	 * @return The non-{@code null} {@link UsageLevel}.
+	 */
+	public UsageLevel getLevel() {
+		return level;
+	}
+
+	/**
+	 * Gets the number of objects behind the prefix.
+	 *
+	 * @return The number of objects.
+	 */
+	public long getObjects() {
+		return objects;
+	}
+
+	/**
+	 * Gets the total size of the objects behind the prefix.
+	 *
+	 * @return The total size in bytes.
+	 */
+	public long getBytes() {
+		return bytes;
+	}
+
+	@Override
+	public boolean equals(final Object o) {
+		if (this == o) {
+			return true;
+		}
+		if (o == null || getClass() != o.getClass()) {
+			return false;
+		}
+
+		final PrefixUsage that = (PrefixUsage) o;
+
+		return objects == that.objects && bytes == that.bytes && Objects.equal(prefix, that.prefix)
+				&& level == that.level;
+	}
+
+	@Override
+	public int hashCode() {
+		return Objects.hashCode(prefix, level, objects, bytes);
+	}
+
+	@Override
+	public String toString() {
+		return "PrefixUsage{" + prefix + '}';
+	}
+
+}
@@ -0,0 +1,163 @@
+package com.avojak.mojo.aws.p2.maven.plugin.analyze;
+
+import com.amazonaws.services.s3.model.S3ObjectSummary;
+import com.avojak.mojo.aws.p2.maven.plugin.s3.model.BucketPath;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.concurrent.TimeUnit;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * Aggregates the number of objects and bytes behind each prefix of a listing at every {@link UsageLevel}, in a single
+ * pass over the listing.
+ * <p>
+ * The listing must be in ascending order of the keys, as returned by S3, in which the keys behind any prefix which
+ * ends with a delimiter are contiguous. Only the prefix which is currently being listed is therefore held at each
+ * level, and once a key beyond it is listed its totals are final and offered to a bounded heap of the heaviest
+ * prefixes at that level. Memory use depends only on the number of prefixes reported, not on the number of objects or
+ * prefixes in the bucket.
+ */
+public class UsageAnalyzer {
+
+	/**
+	 * Orders the heaviest prefix first, and prefixes of equal size by name.
+	 */
+	static final Comparator<PrefixUsage> HEAVIEST_FIRST = new Comparator<PrefixUsage>() {
+		@Override
+		public int compare(final PrefixUsage a, final PrefixUsage b) {
+			final int result = Long.compare(b.getBytes(), a.getBytes());
+			return result != 0 ? result : a.getPrefix().compareTo(b.getPrefix());
+		}
+	};
+
+	private final int topCount;
+
+	/**
+	 * Constructor.
+	 *
+	 * @param topCount The number of heaviest prefixes to report at each level. Must be positive.
+	 */
+	public UsageAnalyzer(final int topCount) {
+		checkArgument(topCount > 0, "topCount must be positive");
+		this.topCount = topCount;
+	}
+
+	/**
+	 * Analyzes the given listing, which is consumed once.
+	 *
+	 * @param summaries The {@link Iterable} of {@link S3ObjectSummary}, in ascending order of their keys. Cannot be
+	 *                  {@code null}.
+	 *
+	 * @return The non-{@code null} {@link UsageReport}.
+	 */
+	public UsageReport analyze(final Iterable<S3ObjectSummary> summaries) {
+		checkNotNull(summaries, "summaries cannot be null");
+		return analyze(summaries.iterator());
+	}
+
+	/**
+	 * Analyzes the given listing, which is consumed.
+	 *
+	 * @param summaries The {@link Iterator} of {@link S3ObjectSummary}, in ascending order of their keys. Cannot be
+	 *                  {@code null}.
+	 *
+	 * @return The non-{@code null} {@link UsageReport}.
+	 */
+	public UsageReport analyze(final Iterator<S3ObjectSummary> summaries) {
+		checkNotNull(summaries, "summaries cannot be null");
+		final long startNanos = System.nanoTime();
+		final Aggregation aggregation = new Aggregation();
+		while (summaries.hasNext()) {
+			final S3ObjectSummary summary = summaries.next();
+			aggregation.add(summary.getKey(), summary.getSize());
+		}
+		return aggregation.finish(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNanos));
+	}
+
+	/**
+	 * The state of a single analysis.
+	 */
+	private class Aggregation {
+
+		private final UsageLevel[] levels = UsageLevel.values();
+		private final String[] openPrefixes = new String[levels.length];
+		private final long[] openObjects = new long[levels.length];
+		private final long[] openBytes = new long[levels.length];
+		private final long[] prefixCounts = new long[levels.length];
+		private final List<PriorityQueue<PrefixUsage>> heaviest = new ArrayList<PriorityQueue<PrefixUsage>>();
+		private long totalObjects;
+		private long totalBytes;
+
+		private Aggregation() {
+			for (int i = 0; i < levels.length; i++) {
+				// The lightest of the heaviest prefixes is at the head, so that it is the first to be evicted
+				heaviest.add(new PriorityQueue<PrefixUsage>(topCount + 1, Collections.reverseOrder(HEAVIEST_FIRST)));
+			}
+		}
+
+		private void add(final String key, final long size) {
+			totalObjects++;
+			totalBytes += size;
+			int depth = 0;
+			int delimiter = key.indexOf(BucketPath.PATH_DELIM);
+			while (depth < levels.length && delimiter >= 0) {
+				final String open = openPrefixes[depth];
+				// Compared in place, so that a new prefix is only allocated when the previous one is complete
+				if (open == null || open.length() != delimiter + 1 || !key.startsWith(open)) {
+					close(depth);
+					openPrefixes[depth] = key.substring(0, delimiter + 1);
+				}
+				openObjects[depth]++;
+				openBytes[depth] += size;
+				depth++;
+				delimiter = key.indexOf(BucketPath.PATH_DELIM, delimiter + 1);
+			}
+			// The key is not within the prefixes open at the deeper levels, so they are complete
+			close(depth);
+		}
+
+		/**
+		 * Completes the open prefixes at the given level and every deeper level.
+		 */
+		private void close(final int fromDepth) {
+			for (int depth = levels.length - 1; depth >= fromDepth; depth--) {
+				if (openPrefixes[depth] == null) {
+					continue;
+				}
+				final PriorityQueue<PrefixUsage> queue = heaviest.get(depth);
+				queue.add(new PrefixUsage(openPrefixes[depth], levels[depth], openObjects[depth], openBytes[depth]));
+				if (queue.size() > topCount) {
+					queue.poll();
+				}
+				prefixCounts[depth]++;
+				openPrefixes[depth] = null;
+				openObjects[depth] = 0;
+				openBytes[depth] = 0;
+			}
+		}
+
+		private UsageReport finish(final long elapsedMillis) {
+			close(0);
+			final Map<UsageLevel, Long> counts = new EnumMap<UsageLevel, Long>(UsageLevel.class);
+			final Map<UsageLevel, List<PrefixUsage>> sorted = new EnumMap<UsageLevel, List<PrefixUsage>>(UsageLevel.class);
+			for (int depth = 0; depth < levels.length; depth++) {
+				final List<PrefixUsage> prefixes = new ArrayList<PrefixUsage>(heaviest.get(depth));
+				Collections.sort(prefixes, HEAVIEST_FIRST);
+				counts.put(levels[depth], prefixCounts[depth]);
+				sorted.put(levels[depth], prefixes);
+			}
+			return new UsageReport(totalObjects, totalBytes, elapsedMillis, counts, sorted);
+		}
+
+	}
+
+}
@@ -0,0 +1,41 @@
+package com.avojak.mojo.aws.p2.maven.plugin.analyze;
+
+/**
+ * The levels of the key hierarchy at which usage is aggregated, following the layout in which sites are deployed:
+ * <pre>
+ *     ${project.name}/(snapshots|releases)/${project.version}/
+ * </pre>
+ */
+public enum UsageLevel {
+
+	/**
+	 * The first level, for example {@code project/}.
+	 */
+	PROJECT("project"),
+
+	/**
+	 * The second level, for example {@code project/releases/}.
+	 */
+	REPOSITORY("repository"),
+
+	/**
+	 * The third level, for example {@code project/releases/1.0.0/}.
+	 */
+	VERSION("version");
+
+	private final String label;
+
+	UsageLevel(final String label) {
+		this.label = label;
+	}
+
+	/**
+	 * Gets the label of the level, as used in reports.
+	 *
+	 * @return The non-{@code null} label.
+	 */
+	public String getLabel() {
+		return label;
+	}
+
+}
@@ -0,0 +1,104 @@
+package com.avojak.mojo.aws.p2.maven.plugin.analyze;
+
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Map;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * The result of a {@link UsageAnalyzer}: the totals of the objects analyzed, and the heaviest prefixes at each {@link
+ * UsageLevel}.
+ */
+public class UsageReport {
+
+	private final long totalObjects;
+	private final long totalBytes;
+	private final long elapsedMillis;
+	private final Map<UsageLevel, Long> prefixCounts;
+	private final Map<UsageLevel, List<PrefixUsage>> heaviest;
+
+	/**
+	 * Constructor.
+	 *
+	 * @param totalObjects  The number of objects analyzed.
+	 * @param totalBytes    The total size in bytes of the objects analyzed.
+	 * @param elapsedMillis The time taken by the analysis, in milliseconds.
+	 * @param prefixCounts  The number of distinct prefixes at each {@link UsageLevel}. Cannot be {@code null}, and
+	 *                      must contain every level.
+	 * @param heaviest      The heaviest prefixes at each {@link UsageLevel}, heaviest first. Cannot be {@code null},
+	 *                      and must contain every level.
+	 */
+	public UsageReport(final long totalObjects, final long totalBytes, final long elapsedMillis,
+	                   final Map<UsageLevel, Long> prefixCounts, final Map<UsageLevel, List<PrefixUsage>> heaviest) {
+		checkNotNull(prefixCounts, "prefixCounts cannot be null");
+		checkNotNull(heaviest, "heaviest cannot be null");
+		checkArgument(prefixCounts.keySet().containsAll(EnumSet.allOf(UsageLevel.class)),
+				"prefixCounts must contain every level");
+		this.totalObjects = totalObjects;
+		this.totalBytes = totalBytes;
+		this.elapsedMillis = elapsedMillis;
+		this.prefixCounts = new EnumMap<UsageLevel, Long>(prefixCounts);
+		this.heaviest = new EnumMap<UsageLevel, List<PrefixUsage>>(UsageLevel.class);
+		for (final UsageLevel level : UsageLevel.values()) {
+			final List<PrefixUsage> prefixes = heaviest.get(level);
+			checkArgument(prefixes != null, "heaviest must contain every level");
+			this.heaviest.put(level, Collections.unmodifiableList(prefixes));
+		}
+	}
+
+	/**
+	 * Gets the number of objects analyzed.
+	 *
+	 * @return The number of objects.
+	 */
+	public long getTotalObjects() {
+		return totalObjects;
+	}
+
+	/**
+	 * Gets the total size of the objects analyzed.
+	 *
+	 * @return The total size in bytes.
+	 */
+	public long getTotalBytes() {
+		return totalBytes;
+	}
+
+	/**
+	 * Gets the time taken by the analysis.
+	 *
+	 * @return The elapsed time in milliseconds.
+	 */
+	public long getElapsedMillis() {
+		return elapsedMillis;
+	}
+
+	/**
+	 * Gets the number of distinct prefixes found at the given level, including those which are not among the heaviest.
+	 *
+	 * @param level The {@link UsageLevel}. Cannot be {@code null}.
+	 *
+	 * @return The number of prefixes.
+	 */
+	public long getPrefixCount(final UsageLevel level) {
+		checkNotNull(level, "level cannot be null");
+		return prefixCounts.get(level);
+	}
+
+	/**
+	 * Gets the heaviest prefixes at the given level, by total size.
+	 *
+	 * @param level The {@link UsageLevel}. Cannot be {@code null}.
+	 *
+	 * @return The non-{@code null}, unmodifiable {@link List} of {@link PrefixUsage}, heaviest first.
+	 */
+	public List<PrefixUsage> getHeaviest(final UsageLevel level) {
+		checkNotNull(level, "level cannot be null");
+		return heaviest.get(level);
+	}
+
+}
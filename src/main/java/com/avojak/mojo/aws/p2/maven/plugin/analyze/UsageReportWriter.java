@@ -0,0 +1,126 @@
+package com.avojak.mojo.aws.p2.maven.plugin.analyze;
+
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.List;
+import java.util.Locale;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * Writes a {@link UsageReport} as plain text, for reading, and as JSON, for further processing.
+ */
+public class UsageReportWriter {
+
+	private static final String[] UNITS = {"B", "KiB", "MiB", "GiB", "TiB", "PiB", "EiB"};
+
+	private final JsonFactory jsonFactory = new JsonFactory();
+
+	/**
+	 * Writes the given report as plain text, with a table of the heaviest prefixes at each level.
+	 *
+	 * @param report The {@link UsageReport}. Cannot be {@code null}.
+	 * @param source A description of the location which was analyzed. Cannot be {@code null} or empty.
+	 * @param file   The {@link File} to write, which is replaced if it exists. Cannot be {@code null}.
+	 *
+	 * @throws IOException if the file could not be written.
+	 */
+	public void writeText(final UsageReport report, final String source, final File file) throws IOException {
+		checkArguments(report, source, file);
+		try (final BufferedWriter writer = Files.newBufferedWriter(file.toPath(), StandardCharsets.UTF_8)) {
+			writer.write(String.format(Locale.ROOT, "Usage of %s\n", source));
+			writer.write(String.format(Locale.ROOT, "Objects: %d\n", report.getTotalObjects()));
+			writer.write(String.format(Locale.ROOT, "Bytes:   %d (%s)\n", report.getTotalBytes(),
+					formatBytes(report.getTotalBytes())));
+			for (final UsageLevel level : UsageLevel.values()) {
+				final List<PrefixUsage> heaviest = report.getHeaviest(level);
+				writer.write(String.format(Locale.ROOT, "\nHeaviest %s prefixes (%d of %d)\n", level.getLabel(),
+						heaviest.size(), report.getPrefixCount(level)));
+				if (heaviest.isEmpty()) {
+					continue;
+				}
+				writer.write(String.format(Locale.ROOT, "%20s %10s %7s %12s  %s\n", "Bytes", "Size", "Share",
+						"Objects", "Prefix"));
+				for (final PrefixUsage usage : heaviest) {
+					writer.write(String.format(Locale.ROOT, "%20d %10s %6.1f%% %12d  %s\n", usage.getBytes(),
+							formatBytes(usage.getBytes()), share(usage.getBytes(), report.getTotalBytes()),
+							usage.getObjects(), usage.getPrefix()));
+				}
+			}
+		}
+	}
+
+	/**
+	 * Writes the given report as a JSON object.
+	 *
+	 * @param report The {@link UsageReport}. Cannot be {@code null}.
+	 * @param source A description of the location which was analyzed. Cannot be {@code null} or empty.
+	 * @param file   The {@link File} to write, which is replaced if it exists. Cannot be {@code null}.
+	 *
+	 * @throws IOException if the file could not be written.
+	 */
+	public void writeJson(final UsageReport report, final String source, final File file) throws IOException {
+		checkArguments(report, source, file);
+		try (final JsonGenerator generator = jsonFactory.createGenerator(file, JsonEncoding.UTF8)) {
+			generator.useDefaultPrettyPrinter();
+			generator.writeStartObject();
+			generator.writeStringField("source", source);
+			generator.writeNumberField("totalObjects", report.getTotalObjects());
+			generator.writeNumberField("totalBytes", report.getTotalBytes());
+			generator.writeNumberField("elapsedMillis", report.getElapsedMillis());
+			generator.writeObjectFieldStart("levels");
+			for (final UsageLevel level : UsageLevel.values()) {
+				generator.writeObjectFieldStart(level.getLabel());
+				generator.writeNumberField("prefixCount", report.getPrefixCount(level));
+				generator.writeArrayFieldStart("heaviest");
+				for (final PrefixUsage usage : report.getHeaviest(level)) {
+					generator.writeStartObject();
+					generator.writeStringField("prefix", usage.getPrefix());
+					generator.writeNumberField("objects", usage.getObjects());
+					generator.writeNumberField("bytes", usage.getBytes());
+					generator.writeEndObject();
+				}
+				generator.writeEndArray();
+				generator.writeEndObject();
+			}
+			generator.writeEndObject();
+			generator.writeEndObject();
+		}
+	}
+
+	/**
+	 * Formats the given number of bytes with a binary unit, for example {@code 1.5 MiB}.
+	 */
+	static String formatBytes(final long bytes) {
+		if (bytes < 1024) {
+			return bytes + " " + UNITS[0];
+		}
+		int unit = 0;
+		double value = bytes;
+		while (value >= 1024 && unit < UNITS.length - 1) {
+			value /= 1024;
+			unit++;
+		}
+		return String.format(Locale.ROOT, "%.1f %s", value, UNITS[unit]);
+	}
+
+	private static double share(final long bytes, final long totalBytes) {
+		return totalBytes == 0 ? 0 : 100.0 * bytes / totalBytes;
+	}
+
+	private static void checkArguments(final UsageReport report, final String source, final File file) {
+		checkNotNull(report, "report cannot be null");
+		checkNotNull(source, "source cannot be null");
+		checkArgument(!source.trim().isEmpty(), "source cannot be empty");
+		checkNotNull(file, "file cannot be null");
+	}
+
+}
@@ -0,0 +1,180 @@
+package com.avojak.mojo.aws.p2.maven.plugin.cdn;
+
+import com.avojak.mojo.aws.p2.maven.plugin.util.resource.ResourceUtil;
+import com.google.common.collect.ImmutableMap;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * Submits the paths to invalidate on the CDN in front of a bucket to an HTTP endpoint, in batches which respect the
+ * per-request limits of the CDN.
+ * <p>
+ * Each batch is posted as a JSON object of the form {@code {"callerReference":"...","paths":["/a","/b/*"]}}, which the
+ * endpoint is expected to turn into an invalidation of the CDN, such as a {@code CreateInvalidation} request to
+ * CloudFront. The caller reference is unique to the batch, so that an endpoint which retries the request does not
+ * create a second invalidation. Any response other than a {@code 2xx} status fails the submission, and the batches
+ * which follow it are not submitted.
+ */
+public class InvalidationClient {
+
+	private static final Logger LOGGER = LoggerFactory.getLogger(InvalidationClient.class);
+
+	private final URL endpoint;
+	private final Map<String, String> headers;
+	private final int maxPathsPerRequest;
+	private final int maxWildcardsPerRequest;
+	private final int timeout;
+
+	/**
+	 * Constructor.
+	 *
+	 * @param endpoint               The {@link URL} to which invalidation requests are posted. Cannot be {@code null},
+	 *                               and must use the {@code http} or {@code https} protocol.
+	 * @param headers                The {@link Map} of additional request headers by name. Cannot be {@code null}.
+	 * @param maxPathsPerRequest     The maximum number of paths in a single request. Must be positive.
+	 * @param maxWildcardsPerRequest The maximum number of wildcard paths in a single request. Must be positive.
+	 * @param timeout                The connect and read timeout of each request, in milliseconds. Cannot be negative.
+	 */
+	public InvalidationClient(final URL endpoint, final Map<String, String> headers, final int maxPathsPerRequest,
+	                          final int maxWildcardsPerRequest, final int timeout) {
+		this.endpoint = checkNotNull(endpoint, "endpoint cannot be null");
+		checkArgument("http".equals(endpoint.getProtocol()) || "https".equals(endpoint.getProtocol()),
+				"Invalidation endpoint must be an HTTP URL: %s", endpoint);
+		this.headers = ImmutableMap.copyOf(checkNotNull(headers, "headers cannot be null"));
+		checkArgument(maxPathsPerRequest > 0, "maxPathsPerRequest must be positive");
+		checkArgument(maxWildcardsPerRequest > 0, "maxWildcardsPerRequest must be positive");
+		checkArgument(timeout >= 0, "timeout cannot be negative");
+		this.maxPathsPerRequest = maxPathsPerRequest;
+		this.maxWildcardsPerRequest = maxWildcardsPerRequest;
+		this.timeout = timeout;
+	}
+
+	/**
+	 * Submits the given paths for invalidation.
+	 *
+	 * @param paths           The {@link List} of paths to invalidate. Cannot be {@code null}.
+	 * @param callerReference The reference of the submission, from which the reference of each batch is derived. Cannot
+	 *                        be {@code null} or empty.
+	 *
+	 * @return The number of requests submitted.
+	 *
+	 * @throws IOException if a request could not be submitted or was rejected.
+	 */
+	public int submit(final List<String> paths, final String callerReference) throws IOException {
+		checkNotNull(paths, "paths cannot be null");
+		checkNotNull(callerReference, "callerReference cannot be null");
+		checkArgument(!callerReference.trim().isEmpty(), "callerReference cannot be empty");
+		final List<List<String>> batches = batch(paths);
+		for (int i = 0; i < batches.size(); i++) {
+			final List<String> batch = batches.get(i);
+			LOGGER.debug(ResourceUtil.getString(getClass(), "debug.submittingBatch"), batch.size(), endpoint);
+			post(toJson(callerReference + "-" + (i + 1), batch));
+		}
+		return batches.size();
+	}
+
+	/**
+	 * Splits the given paths into batches of at most the maximum number of paths and wildcard paths per request.
+	 * <p>
+	 * <em>Package-private scoped for testing purposes.</em>
+	 * </p>
+	 */
+	List<List<String>> batch(final List<String> paths) {
+		final List<List<String>> batches = new ArrayList<List<String>>();
+		List<String> batch = new ArrayList<String>();
+		int wildcards = 0;
+		for (final String path : paths) {
+			final boolean wildcard = path.endsWith(InvalidationPlanner.WILDCARD);
+			if (batch.size() == maxPathsPerRequest || (wildcard && wildcards == maxWildcardsPerRequest)) {
+				batches.add(batch);
+				batch = new ArrayList<String>();
+				wildcards = 0;
+			}
+			batch.add(path);
+			if (wildcard) {
+				wildcards++;
+			}
+		}
+		if (!batch.isEmpty()) {
+			batches.add(batch);
+		}
+		return batches;
+	}
+
+	private void post(final String body) throws IOException {
+		final byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+		final HttpURLConnection connection = (HttpURLConnection) endpoint.openConnection();
+		connection.setRequestMethod("POST");
+		connection.setConnectTimeout(timeout);
+		connection.setReadTimeout(timeout);
+		connection.setDoOutput(true);
+		connection.setFixedLengthStreamingMode(bytes.length);
+		connection.setRequestProperty("Content-Type", "application/json; charset=UTF-8");
+		for (final Map.Entry<String, String> header : headers.entrySet()) {
+			connection.setRequestProperty(header.getKey(), header.getValue());
+		}
+		try (final OutputStream outputStream = connection.getOutputStream()) {
+			outputStream.write(bytes);
+		}
+		final int status = connection.getResponseCode();
+		if (status < 200 || status >= 300) {
+			connection.disconnect();
+			throw new IOException("Invalidation request to " + endpoint + " failed with status " + status);
+		}
+		// Reading the response to its end allows the connection to be reused by the next batch
+		try (final InputStream inputStream = connection.getInputStream()) {
+			final byte[] buffer = new byte[1024];
+			while (inputStream.read(buffer) >= 0) {
+				// Discard the response
+			}
+		}
+	}
+
+	/**
+	 * Creates the body of the request for the given batch.
+	 * <p>
+	 * <em>Package-private scoped for testing purposes.</em>
+	 * </p>
+	 */
+	static String toJson(final String callerReference, final List<String> paths) {
+		final StringBuilder json = new StringBuilder("{\"callerReference\":");
+		appendString(json, callerReference);
+		json.append(",\"paths\":[");
+		for (int i = 0; i < paths.size(); i++) {
+			if (i > 0) {
+				json.append(',');
+			}
+			appendString(json, paths.get(i));
+		}
+		return json.append("]}").toString();
+	}
+
+	private static void appendString(final StringBuilder json, final String value) {
+		json.append('"');
+		for (int i = 0; i < value.length(); i++) {
+			final char c = value.charAt(i);
+			if (c == '"' || c == '\\') {
+				json.append('\\').append(c);
+			} else if (c < 0x20) {
+				json.append(String.format("\\u%04x", (int) c));
+			} else {
+				json.append(c);
+			}
+		}
+		json.append('"');
+	}
+
+}
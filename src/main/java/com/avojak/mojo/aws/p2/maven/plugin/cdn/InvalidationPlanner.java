@@ -0,0 +1,172 @@
+package com.avojak.mojo.aws.p2.maven.plugin.cdn;
+
+import com.avojak.mojo.aws.p2.maven.plugin.s3.model.BucketPath;
+import com.avojak.mojo.aws.p2.maven.plugin.s3.model.trie.Trie;
+import com.avojak.mojo.aws.p2.maven.plugin.s3.model.trie.TrieNode;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * Plans the paths to invalidate on the CDN in front of a bucket after a site has been deployed to it.
+ * <p>
+ * The layout of the site is taken from the {@link Trie} of its content, and the changes from the keys of the objects
+ * which were uploaded or deleted. Every changed object is invalidated by its own path, except that a directory in which
+ * at least the threshold share of the files changed is invalidated by a single wildcard path, as is a directory whose
+ * changes would not otherwise fit in a single request. A directory with a single change is never replaced by a
+ * wildcard, and no wildcard reaches above the destination of the site, so the other sites in the bucket remain cached.
+ */
+public class InvalidationPlanner {
+
+	/**
+	 * The suffix of a path which invalidates everything behind it.
+	 */
+	public static final String WILDCARD = "*";
+
+	private final double wildcardThreshold;
+	private final int maxPathsPerRequest;
+
+	/**
+	 * Constructor.
+	 *
+	 * @param wildcardThreshold  The share of the files of a directory which must have changed for the directory to be
+	 *                           invalidated by a wildcard path. Must be greater than 0 and at most 1.
+	 * @param maxPathsPerRequest The maximum number of paths in a single invalidation request. Must be positive.
+	 */
+	public InvalidationPlanner(final double wildcardThreshold, final int maxPathsPerRequest) {
+		checkArgument(wildcardThreshold > 0 && wildcardThreshold <= 1, "wildcardThreshold must be in (0, 1]");
+		checkArgument(maxPathsPerRequest > 0, "maxPathsPerRequest must be positive");
+		this.wildcardThreshold = wildcardThreshold;
+		this.maxPathsPerRequest = maxPathsPerRequest;
+	}
+
+	/**
+	 * Plans the paths to invalidate for the site deployed to the given destination.
+	 *
+	 * @param content     The {@link Trie} of the files of the site. Cannot be {@code null}.
+	 * @param destination The destination {@link BucketPath} of the site within the bucket. Cannot be {@code null}.
+	 * @param changedKeys The {@link Set} of the keys of the objects which were uploaded or deleted, including those
+	 *                    which are not part of the content. Cannot be {@code null}.
+	 *
+	 * @return The non-{@code null}, possibly empty {@link List} of paths, each beginning with a delimiter.
+	 */
+	public List<String> plan(final Trie<String, ?> content, final BucketPath destination,
+	                         final Set<String> changedKeys) {
+		checkNotNull(content, "content cannot be null");
+		checkNotNull(destination, "destination cannot be null");
+		checkNotNull(changedKeys, "changedKeys cannot be null");
+		if (changedKeys.isEmpty()) {
+			return Collections.emptyList();
+		}
+		final String root = destination.asString();
+		final String prefix = root.isEmpty() ? "" : root + BucketPath.PATH_DELIM;
+		final Directory directory = new Directory();
+		final List<String> outside = new ArrayList<String>();
+		final String contentPrefix = content.getPrefix().isPresent() ? content.getPrefix().get() : "";
+		collect(content.getRoot(), contentPrefix, prefix, changedKeys, directory);
+		for (final String key : changedKeys) {
+			if (key.startsWith(prefix)) {
+				directory.add(key.substring(prefix.length()), true);
+			} else {
+				outside.add(toPath(key));
+			}
+		}
+		final List<String> paths = new ArrayList<String>(plan(directory, root.isEmpty() ? "" : toPath(root)).paths);
+		Collections.sort(outside);
+		paths.addAll(outside);
+		return paths;
+	}
+
+	/**
+	 * Adds the files of the given node of the content which are behind the destination to the given directory.
+	 */
+	private static void collect(final TrieNode<?> node, final String key, final String prefix,
+	                            final Set<String> changedKeys, final Directory directory) {
+		if (node.getValue().isPresent() && key.startsWith(prefix)) {
+			directory.add(key.substring(prefix.length()), changedKeys.contains(key));
+		}
+		for (final Map.Entry<String, ? extends TrieNode<?>> entry : node.getChildren().entrySet()) {
+			collect(entry.getValue(), key.isEmpty() ? entry.getKey() : key + BucketPath.PATH_DELIM + entry.getKey(),
+					prefix, changedKeys, directory);
+		}
+	}
+
+	/**
+	 * Plans the paths of the given directory, which is reached by the given path.
+	 */
+	private Plan plan(final Directory directory, final String path) {
+		final Plan plan = new Plan();
+		for (final Map.Entry<String, Boolean> file : directory.files.entrySet()) {
+			plan.files++;
+			if (file.getValue()) {
+				plan.changed++;
+				plan.paths.add(path + BucketPath.PATH_DELIM + file.getKey());
+			}
+		}
+		for (final Map.Entry<String, Directory> child : directory.directories.entrySet()) {
+			final Plan childPlan = plan(child.getValue(), path + BucketPath.PATH_DELIM + child.getKey());
+			plan.files += childPlan.files;
+			plan.changed += childPlan.changed;
+			plan.paths.addAll(childPlan.paths);
+		}
+		if (plan.paths.size() > 1 && (plan.changed >= wildcardThreshold * plan.files
+				|| plan.paths.size() > maxPathsPerRequest)) {
+			plan.paths.clear();
+			plan.paths.add(path + BucketPath.PATH_DELIM + WILDCARD);
+		}
+		return plan;
+	}
+
+	private static String toPath(final String key) {
+		return BucketPath.PATH_DELIM + key;
+	}
+
+	/**
+	 * A directory of the site, whose files record whether or not they changed.
+	 */
+	private static final class Directory {
+
+		private final Map<String, Boolean> files = new TreeMap<String, Boolean>();
+		private final Map<String, Directory> directories = new TreeMap<String, Directory>();
+
+		/**
+		 * Adds the file with the given relative key. A file which is added more than once has changed if it has
+		 * changed in any of them.
+		 */
+		private void add(final String relativeKey, final boolean changed) {
+			final int index = relativeKey.indexOf(BucketPath.PATH_DELIM);
+			if (index < 0) {
+				final Boolean existing = files.get(relativeKey);
+				files.put(relativeKey, changed || (existing != null && existing));
+				return;
+			}
+			final String name = relativeKey.substring(0, index);
+			Directory directory = directories.get(name);
+			if (directory == null) {
+				directory = new Directory();
+				directories.put(name, directory);
+			}
+			directory.add(relativeKey.substring(index + 1), changed);
+		}
+
+	}
+
+	/**
+	 * The paths planned for a directory, and the number of files behind it.
+	 */
+	private static final class Plan {
+
+		private final List<String> paths = new ArrayList<String>();
+		private int files;
+		private int changed;
+
+	}
+
+}
@@ -0,0 +1,196 @@
+package com.avojak.mojo.aws.p2.maven.plugin.cdn;
+
+import com.google.common.base.Objects;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * The invalidation of the paths changed by a deployment on the CDN in front of the bucket. Instances are normally
+ * populated by Maven from the plugin configuration. Nothing is invalidated unless an endpoint is specified.
+ * <p>
+ * The defaults of the request limits are those of CloudFront, which accepts at most 3000 paths and 15 wildcard paths
+ * in progress at a time.
+ */
+public class InvalidationSettings {
+
+	/**
+	 * The default maximum number of paths in a single invalidation request.
+	 */
+	public static final int DEFAULT_MAX_PATHS_PER_REQUEST = 3000;
+
+	/**
+	 * The default maximum number of wildcard paths in a single invalidation request.
+	 */
+	public static final int DEFAULT_MAX_WILDCARDS_PER_REQUEST = 15;
+
+	/**
+	 * The default share of the files of a directory which must have changed for the directory to be invalidated as a
+	 * whole.
+	 */
+	public static final double DEFAULT_WILDCARD_THRESHOLD = 0.5;
+
+	/**
+	 * The default connect and read timeout of invalidation requests, in milliseconds.
+	 */
+	public static final int DEFAULT_TIMEOUT = 30000;
+
+	private String endpoint;
+	private Map<String, String> headers;
+	private Integer maxPathsPerRequest;
+	private Integer maxWildcardsPerRequest;
+	private Double wildcardThreshold;
+	private Integer timeout;
+
+	/**
+	 * Default constructor invoked by Maven when populating the plugin configuration.
+	 */
+	public InvalidationSettings() {
+	}
+
+	/**
+	 * Gets the URL to which invalidation requests are posted.
+	 *
+	 * @return The endpoint, or {@code null} if not specified.
+	 */
+	public String getEndpoint() {
+		return endpoint;
+	}
+
+	/**
+	 * Sets the URL to which invalidation requests are posted.
+	 *
+	 * @param endpoint The endpoint, or {@code null} to disable invalidation.
+	 */
+	public void setEndpoint(final String endpoint) {
+		this.endpoint = endpoint;
+	}
+
+	/**
+	 * Gets whether or not invalidation is enabled, which is when an endpoint is specified.
+	 *
+	 * @return {@code true} if invalidation is enabled, otherwise {@code false}.
+	 */
+	public boolean isEnabled() {
+		return endpoint != null && !endpoint.trim().isEmpty();
+	}
+
+	/**
+	 * Gets the additional headers of invalidation requests, such as their authorization.
+	 *
+	 * @return The non-{@code null}, possibly empty {@link Map} of header values by name.
+	 */
+	public Map<String, String> getHeaders() {
+		return headers == null ? Collections.<String, String>emptyMap() : headers;
+	}
+
+	/**
+	 * Sets the additional headers of invalidation requests.
+	 *
+	 * @param headers The {@link Map} of header values by name, or {@code null} for none.
+	 */
+	public void setHeaders(final Map<String, String> headers) {
+		this.headers = headers == null ? null : new LinkedHashMap<String, String>(headers);
+	}
+
+	/**
+	 * Gets the maximum number of paths in a single invalidation request.
+	 *
+	 * @return The maximum, which is {@link #DEFAULT_MAX_PATHS_PER_REQUEST} if not specified.
+	 */
+	public int getMaxPathsPerRequest() {
+		return maxPathsPerRequest == null ? DEFAULT_MAX_PATHS_PER_REQUEST : maxPathsPerRequest;
+	}
+
+	/**
+	 * Sets the maximum number of paths in a single invalidation request.
+	 *
+	 * @param maxPathsPerRequest The maximum, or {@code null} for the default.
+	 */
+	public void setMaxPathsPerRequest(final Integer maxPathsPerRequest) {
+		this.maxPathsPerRequest = maxPathsPerRequest;
+	}
+
+	/**
+	 * Gets the maximum number of wildcard paths in a single invalidation request.
+	 *
+	 * @return The maximum, which is {@link #DEFAULT_MAX_WILDCARDS_PER_REQUEST} if not specified.
+	 */
+	public int getMaxWildcardsPerRequest() {
+		return maxWildcardsPerRequest == null ? DEFAULT_MAX_WILDCARDS_PER_REQUEST : maxWildcardsPerRequest;
+	}
+
+	/**
+	 * Sets the maximum number of wildcard paths in a single invalidation request.
+	 *
+	 * @param maxWildcardsPerRequest The maximum, or {@code null} for the default.
+	 */
+	public void setMaxWildcardsPerRequest(final Integer maxWildcardsPerRequest) {
+		this.maxWildcardsPerRequest = maxWildcardsPerRequest;
+	}
+
+	/**
+	 * Gets the share of the files of a directory which must have changed for the directory to be invalidated by a
+	 * single wildcard path.
+	 *
+	 * @return The share, which is {@link #DEFAULT_WILDCARD_THRESHOLD} if not specified.
+	 */
+	public double getWildcardThreshold() {
+		return wildcardThreshold == null ? DEFAULT_WILDCARD_THRESHOLD : wildcardThreshold;
+	}
+
+	/**
+	 * Sets the share of the files of a directory which must have changed for the directory to be invalidated by a
+	 * single wildcard path.
+	 *
+	 * @param wildcardThreshold The share, or {@code null} for the default.
+	 */
+	public void setWildcardThreshold(final Double wildcardThreshold) {
+		this.wildcardThreshold = wildcardThreshold;
+	}
+
+	/**
+	 * Gets the connect and read timeout of invalidation requests, in milliseconds.
+	 *
+	 * @return The timeout, which is {@link #DEFAULT_TIMEOUT} if not specified.
+	 */
+	public int getTimeout() {
+		return timeout == null ? DEFAULT_TIMEOUT : timeout;
+	}
+
+	/**
+	 * Sets the connect and read timeout of invalidation requests, in milliseconds.
+	 *
+	 * @param timeout The timeout, or {@code null} for the default.
+	 */
+	public void setTimeout(final Integer timeout) {
+		this.timeout = timeout;
+	}
+
+	@Override
+	public boolean equals(final Object o) {
+		if (this == o) {
+			return true;
+		}
+		if (o == null || getClass() != o.getClass()) {
+			return false;
+		}
+
+		final InvalidationSettings that = (InvalidationSettings) o;
+
+		return Objects.equal(endpoint, that.endpoint)
+				&& getHeaders().equals(that.getHeaders())
+				&& getMaxPathsPerRequest() == that.getMaxPathsPerRequest()
+				&& getMaxWildcardsPerRequest() == that.getMaxWildcardsPerRequest()
+				&& Double.compare(getWildcardThreshold(), that.getWildcardThreshold()) == 0
+				&& getTimeout() == that.getTimeout();
+	}
+
+	@Override
+	public int hashCode() {
+		return Objects.hashCode(endpoint, getHeaders(), getMaxPathsPerRequest(), getMaxWildcardsPerRequest(),
+				getWildcardThreshold(), getTimeout());
+	}
+
+}
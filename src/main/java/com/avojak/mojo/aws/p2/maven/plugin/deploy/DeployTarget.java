@@ -0,0 +1,87 @@
+package com.avojak.mojo.aws.p2.maven.plugin.deploy;
+
+import com.google.common.base.Objects;
+
+/**
+ * Describes a bucket to which the update site is deployed. Instances are normally populated by Maven from the plugin
+ * configuration.
+ */
+public class DeployTarget {
+
+	private String bucket;
+	private String region;
+	private String hostingUrl;
+
+	/**
+	 * Default constructor invoked by Maven when populating the plugin configuration.
+	 */
+	public DeployTarget() {
+	}
+
+	/**
+	 * Constructor.
+	 *
+	 * @param bucket     The name of the bucket.
+	 * @param region     The region of the bucket. May be {@code null}.
+	 * @param hostingUrl The base URL from which the bucket content is served. May be {@code null}.
+	 */
+	public DeployTarget(final String bucket, final String region, final String hostingUrl) {
+		this.bucket = bucket;
+		this.region = region;
+		this.hostingUrl = hostingUrl;
+	}
+
+	/**
+	 * Gets the name of the bucket.
+	 *
+	 * @return The name of the bucket.
+	 */
+	public String getBucket() {
+		return bucket;
+	}
+
+	/**
+	 * Gets the region of the bucket. If {@code null}, the client will locate the bucket itself.
+	 *
+	 * @return The region of the bucket, or {@code null} if not specified.
+	 */
+	public String getRegion() {
+		return region;
+	}
+
+	/**
+	 * Gets the base URL from which the bucket content is served. If {@code null}, the AWS static website hosting URL of
+	 * the bucket is used.
+	 *
+	 * @return The base URL, or {@code null} if not specified.
+	 */
+	public String getHostingUrl() {
+		return hostingUrl;
+	}
+
+	@Override
+	public boolean equals(final Object o) {
+		if (this == o) {
+			return true;
+		}
+		if (o == null || getClass() != o.getClass()) {
+			return false;
+		}
+
+		final DeployTarget that = (DeployTarget) o;
+
+		return Objects.equal(bucket, that.bucket) && Objects.equal(region, that.region)
+				&& Objects.equal(hostingUrl, that.hostingUrl);
+	}
+
+	@Override
+	public int hashCode() {
+		return Objects.hashCode(bucket, region, hostingUrl);
+	}
+
+	@Override
+	public String toString() {
+		return "DeployTarget{" + bucket + '}';
+	}
+
+}
@@ -0,0 +1,197 @@
+package com.avojak.mojo.aws.p2.maven.plugin.deploy;
+
+import com.avojak.mojo.aws.p2.maven.plugin.s3.state.DeployManifestStore;
+import com.avojak.mojo.aws.p2.maven.plugin.s3.state.RemoteStateCache;
+import com.google.common.base.Objects;
+import com.google.common.base.Optional;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * The options with which a {@link FanOutDeployer} deploys sites. Instances should be created with {@link
+ * #builder(int)}. By default, the existing objects at the destination of each site are deleted before uploading to it.
+ */
+public final class DeploymentOptions {
+
+	private final int uploadConcurrency;
+	private final boolean deleteExisting;
+	private final boolean skipUnchanged;
+	private final Optional<RemoteStateCache> stateCache;
+	private final Optional<DeployManifestStore> manifestStore;
+
+	private DeploymentOptions(final Builder builder) {
+		this.uploadConcurrency = builder.uploadConcurrency;
+		this.deleteExisting = builder.deleteExisting;
+		this.skipUnchanged = builder.skipUnchanged;
+		this.stateCache = builder.stateCache;
+		this.manifestStore = builder.manifestStore;
+	}
+
+	/**
+	 * Creates a new {@link Builder} with the default options.
+	 *
+	 * @param uploadConcurrency The maximum number of concurrent uploads to each target. Must be positive.
+	 *
+	 * @return The new, non-{@code null} {@link Builder}.
+	 */
+	public static Builder builder(final int uploadConcurrency) {
+		checkArgument(uploadConcurrency > 0, "uploadConcurrency must be positive");
+		return new Builder(uploadConcurrency);
+	}
+
+	/**
+	 * Gets the maximum number of concurrent uploads to each target.
+	 *
+	 * @return The maximum number of concurrent uploads to each target.
+	 */
+	public int getUploadConcurrency() {
+		return uploadConcurrency;
+	}
+
+	/**
+	 * Gets whether or not to delete the existing objects at the destination of each site before uploading to it.
+	 *
+	 * @return {@code true} if the existing objects are deleted, otherwise {@code false}, in which case they are
+	 * overwritten or left in place.
+	 */
+	public boolean isDeleteExisting() {
+		return deleteExisting;
+	}
+
+	/**
+	 * Gets whether or not to skip the upload of files which match the existing object.
+	 *
+	 * @return {@code true} if unchanged files are skipped, otherwise {@code false}.
+	 */
+	public boolean isSkipUnchanged() {
+		return skipUnchanged;
+	}
+
+	/**
+	 * Gets the {@link RemoteStateCache} from which the state of the existing objects is taken when still valid.
+	 *
+	 * @return The non-{@code null} {@link Optional} {@link RemoteStateCache}.
+	 */
+	public Optional<RemoteStateCache> getStateCache() {
+		return stateCache;
+	}
+
+	/**
+	 * Gets the {@link DeployManifestStore} from which the manifest of each deployed site is taken.
+	 *
+	 * @return The non-{@code null} {@link Optional} {@link DeployManifestStore}.
+	 */
+	public Optional<DeployManifestStore> getManifestStore() {
+		return manifestStore;
+	}
+
+	@Override
+	public boolean equals(final Object o) {
+		if (this == o) {
+			return true;
+		}
+		if (o == null || getClass() != o.getClass()) {
+			return false;
+		}
+
+		final DeploymentOptions that = (DeploymentOptions) o;
+
+		return uploadConcurrency == that.uploadConcurrency
+				&& deleteExisting == that.deleteExisting
+				&& skipUnchanged == that.skipUnchanged
+				&& Objects.equal(stateCache, that.stateCache)
+				&& Objects.equal(manifestStore, that.manifestStore);
+	}
+
+	@Override
+	public int hashCode() {
+		return Objects.hashCode(uploadConcurrency, deleteExisting, skipUnchanged, stateCache, manifestStore);
+	}
+
+	/**
+	 * Builder for {@link DeploymentOptions}.
+	 */
+	public static final class Builder {
+
+		private final int uploadConcurrency;
+		private boolean deleteExisting = true;
+		private boolean skipUnchanged;
+		private Optional<RemoteStateCache> stateCache = Optional.absent();
+		private Optional<DeployManifestStore> manifestStore = Optional.absent();
+
+		private Builder(final int uploadConcurrency) {
+			this.uploadConcurrency = uploadConcurrency;
+		}
+
+		/**
+		 * Sets whether or not to delete the existing objects at the destination of each site before uploading to it.
+		 * If {@code false}, existing objects are overwritten or left in place. The default value is {@code true}.
+		 *
+		 * @param deleteExisting Whether or not to delete the existing objects.
+		 *
+		 * @return This {@link Builder}.
+		 */
+		public Builder deleteExisting(final boolean deleteExisting) {
+			this.deleteExisting = deleteExisting;
+			return this;
+		}
+
+		/**
+		 * Sets whether or not to skip the upload of files which match the existing object. Cannot be {@code true} if
+		 * the existing objects are deleted. The default value is {@code false}.
+		 *
+		 * @param skipUnchanged Whether or not to skip unchanged files.
+		 *
+		 * @return This {@link Builder}.
+		 */
+		public Builder skipUnchanged(final boolean skipUnchanged) {
+			this.skipUnchanged = skipUnchanged;
+			return this;
+		}
+
+		/**
+		 * Sets the {@link RemoteStateCache} from which the state of the existing objects is taken when still valid. Can
+		 * only be set if unchanged files are skipped.
+		 *
+		 * @param stateCache The {@link RemoteStateCache}. Cannot be {@code null}.
+		 *
+		 * @return This {@link Builder}.
+		 */
+		public Builder stateCache(final RemoteStateCache stateCache) {
+			this.stateCache = Optional.of(checkNotNull(stateCache, "stateCache cannot be null"));
+			return this;
+		}
+
+		/**
+		 * Sets the {@link DeployManifestStore} from which the manifest of each deployed site is taken. Can only be set
+		 * if unchanged files are skipped.
+		 *
+		 * @param manifestStore The {@link DeployManifestStore}. Cannot be {@code null}.
+		 *
+		 * @return This {@link Builder}.
+		 */
+		public Builder manifestStore(final DeployManifestStore manifestStore) {
+			this.manifestStore = Optional.of(checkNotNull(manifestStore, "manifestStore cannot be null"));
+			return this;
+		}
+
+		/**
+		 * Creates the {@link DeploymentOptions}.
+		 *
+		 * @return The new, non-{@code null} {@link DeploymentOptions}.
+		 *
+		 * @throws IllegalArgumentException if unchanged files are skipped while the existing objects are deleted, or if
+		 *                                  a state cache or manifest store is set while unchanged files are not
+		 *                                  skipped.
+		 */
+		public DeploymentOptions build() {
+			checkArgument(!(deleteExisting && skipUnchanged), "deleteExisting and skipUnchanged cannot both be set");
+			checkArgument(!stateCache.isPresent() || skipUnchanged, "stateCache requires skipUnchanged");
+			checkArgument(!manifestStore.isPresent() || skipUnchanged, "manifestStore requires skipUnchanged");
+			return new DeploymentOptions(this);
+		}
+
+	}
+
+}
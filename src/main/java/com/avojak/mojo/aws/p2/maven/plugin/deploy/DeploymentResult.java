@@ -0,0 +1,278 @@
+package com.avojak.mojo.aws.p2.maven.plugin.deploy;
+
+import com.avojak.mojo.aws.p2.maven.plugin.s3.model.BucketPath;
+import com.avojak.mojo.aws.p2.maven.plugin.s3.model.trie.Trie;
+import com.avojak.mojo.aws.p2.maven.plugin.s3.state.DeployManifest;
+import com.avojak.mojo.aws.p2.maven.plugin.s3.state.RemoteState;
+import com.google.common.base.Optional;
+import com.google.common.collect.ImmutableSet;
+
+import java.util.Collections;
+import java.util.Set;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * The outcome of deploying an update site to a single {@link DeployTarget}.
+ */
+public class DeploymentResult {
+
+	private final DeployTarget target;
+	private final BucketPath destination;
+	private final Trie<String, String> content;
+	private final int filesUploaded;
+	private final int filesSkipped;
+	private final Optional<Throwable> failure;
+	private final Optional<RemoteState> remoteState;
+	private final boolean upToDate;
+	private final Optional<DeployManifest> manifest;
+	private final Set<String> uploadedKeys;
+	private final Optional<Set<String>> existingKeys;
+
+	/**
+	 * Constructor.
+	 *
+	 * @param target        The {@link DeployTarget}. Cannot be {@code null}.
+	 * @param destination   The destination {@link BucketPath} of the site within the bucket. Cannot be {@code null}.
+	 * @param content       The {@link Trie} of the files which were uploaded. Cannot be {@code null}.
+	 * @param filesUploaded The number of files which were uploaded.
+	 * @param failure       The first failure encountered for the target. Cannot be {@code null}.
+	 */
+	public DeploymentResult(final DeployTarget target, final BucketPath destination,
+	                        final Trie<String, String> content, final int filesUploaded,
+	                        final Optional<Throwable> failure) {
+		this(target, destination, content, filesUploaded, 0, failure);
+	}
+
+	/**
+	 * Constructor.
+	 *
+	 * @param target        The {@link DeployTarget}. Cannot be {@code null}.
+	 * @param destination   The destination {@link BucketPath} of the site within the bucket. Cannot be {@code null}.
+	 * @param content       The {@link Trie} of the files of the site. Cannot be {@code null}.
+	 * @param filesUploaded The number of files which were uploaded.
+	 * @param filesSkipped  The number of files which were not uploaded because they were unchanged.
+	 * @param failure       The first failure encountered for the target. Cannot be {@code null}.
+	 */
+	public DeploymentResult(final DeployTarget target, final BucketPath destination,
+	                        final Trie<String, String> content, final int filesUploaded, final int filesSkipped,
+	                        final Optional<Throwable> failure) {
+		this(target, destination, content, filesUploaded, filesSkipped, failure, Optional.<RemoteState>absent());
+	}
+
+	/**
+	 * Constructor.
+	 *
+	 * @param target        The {@link DeployTarget}. Cannot be {@code null}.
+	 * @param destination   The destination {@link BucketPath} of the site within the bucket. Cannot be {@code null}.
+	 * @param content       The {@link Trie} of the files of the site. Cannot be {@code null}.
+	 * @param filesUploaded The number of files which were uploaded.
+	 * @param filesSkipped  The number of files which were not uploaded because they were unchanged.
+	 * @param failure       The first failure encountered for the target. Cannot be {@code null}.
+	 * @param remoteState   The {@link RemoteState} of the objects of the site after the deployment, if tracked. Cannot
+	 *                      be {@code null}.
+	 */
+	public DeploymentResult(final DeployTarget target, final BucketPath destination,
+	                        final Trie<String, String> content, final int filesUploaded, final int filesSkipped,
+	                        final Optional<Throwable> failure, final Optional<RemoteState> remoteState) {
+		this(target, destination, content, filesUploaded, filesSkipped, failure, remoteState, false,
+				Optional.<DeployManifest>absent());
+	}
+
+	/**
+	 * Constructor.
+	 *
+	 * @param target        The {@link DeployTarget}. Cannot be {@code null}.
+	 * @param destination   The destination {@link BucketPath} of the site within the bucket. Cannot be {@code null}.
+	 * @param content       The {@link Trie} of the files of the site. Cannot be {@code null}.
+	 * @param filesUploaded The number of files which were uploaded.
+	 * @param filesSkipped  The number of files which were not uploaded because they were unchanged.
+	 * @param failure       The first failure encountered for the target. Cannot be {@code null}.
+	 * @param remoteState   The {@link RemoteState} of the objects of the site after the deployment, if tracked. Cannot
+	 *                      be {@code null}.
+	 * @param upToDate      Whether or not the manifest of the deployed site matched the local site, so that nothing was
+	 *                      changed.
+	 * @param manifest      The {@link DeployManifest} of the site to store once the deployment is complete, if enabled.
+	 *                      Cannot be {@code null}.
+	 */
+	public DeploymentResult(final DeployTarget target, final BucketPath destination,
+	                        final Trie<String, String> content, final int filesUploaded, final int filesSkipped,
+	                        final Optional<Throwable> failure, final Optional<RemoteState> remoteState,
+	                        final boolean upToDate, final Optional<DeployManifest> manifest) {
+		this(target, destination, content, filesUploaded, filesSkipped, failure, remoteState, upToDate, manifest,
+				Collections.<String>emptySet());
+	}
+
+	/**
+	 * Constructor.
+	 *
+	 * @param target        The {@link DeployTarget}. Cannot be {@code null}.
+	 * @param destination   The destination {@link BucketPath} of the site within the bucket. Cannot be {@code null}.
+	 * @param content       The {@link Trie} of the files of the site. Cannot be {@code null}.
+	 * @param filesUploaded The number of files which were uploaded.
+	 * @param filesSkipped  The number of files which were not uploaded because they were unchanged.
+	 * @param failure       The first failure encountered for the target. Cannot be {@code null}.
+	 * @param remoteState   The {@link RemoteState} of the objects of the site after the deployment, if tracked. Cannot
+	 *                      be {@code null}.
+	 * @param upToDate      Whether or not the manifest of the deployed site matched the local site, so that nothing was
+	 *                      changed.
+	 * @param manifest      The {@link DeployManifest} of the site to store once the deployment is complete, if enabled.
+	 *                      Cannot be {@code null}.
+	 * @param uploadedKeys  The {@link Set} of the keys of the objects which were uploaded. Cannot be {@code null}.
+	 */
+	public DeploymentResult(final DeployTarget target, final BucketPath destination,
+	                        final Trie<String, String> content, final int filesUploaded, final int filesSkipped,
+	                        final Optional<Throwable> failure, final Optional<RemoteState> remoteState,
+	                        final boolean upToDate, final Optional<DeployManifest> manifest,
+	                        final Set<String> uploadedKeys) {
+		this(target, destination, content, filesUploaded, filesSkipped, failure, remoteState, upToDate, manifest,
+				uploadedKeys, Optional.<Set<String>>absent());
+	}
+
+	/**
+	 * Constructor.
+	 *
+	 * @param target        The {@link DeployTarget}. Cannot be {@code null}.
+	 * @param destination   The destination {@link BucketPath} of the site within the bucket. Cannot be {@code null}.
+	 * @param content       The {@link Trie} of the files of the site. Cannot be {@code null}.
+	 * @param filesUploaded The number of files which were uploaded.
+	 * @param filesSkipped  The number of files which were not uploaded because they were unchanged.
+	 * @param failure       The first failure encountered for the target. Cannot be {@code null}.
+	 * @param remoteState   The {@link RemoteState} of the objects of the site after the deployment, if tracked. Cannot
+	 *                      be {@code null}.
+	 * @param upToDate      Whether or not the manifest of the deployed site matched the local site, so that nothing was
+	 *                      changed.
+	 * @param manifest      The {@link DeployManifest} of the site to store once the deployment is complete, if enabled.
+	 *                      Cannot be {@code null}.
+	 * @param uploadedKeys  The {@link Set} of the keys of the objects which were uploaded. Cannot be {@code null}.
+	 * @param existingKeys  The {@link Set} of the keys of every object at the destination before the deployment, if
+	 *                      known. Cannot be {@code null}.
+	 */
+	public DeploymentResult(final DeployTarget target, final BucketPath destination,
+	                        final Trie<String, String> content, final int filesUploaded, final int filesSkipped,
+	                        final Optional<Throwable> failure, final Optional<RemoteState> remoteState,
+	                        final boolean upToDate, final Optional<DeployManifest> manifest,
+	                        final Set<String> uploadedKeys, final Optional<Set<String>> existingKeys) {
+		this.target = checkNotNull(target, "target cannot be null");
+		this.destination = checkNotNull(destination, "destination cannot be null");
+		this.content = checkNotNull(content, "content cannot be null");
+		this.filesUploaded = filesUploaded;
+		this.filesSkipped = filesSkipped;
+		this.failure = checkNotNull(failure, "failure cannot be null");
+		this.remoteState = checkNotNull(remoteState, "remoteState cannot be null");
+		this.upToDate = upToDate;
+		this.manifest = checkNotNull(manifest, "manifest cannot be null");
+		this.uploadedKeys = ImmutableSet.copyOf(checkNotNull(uploadedKeys, "uploadedKeys cannot be null"));
+		checkNotNull(existingKeys, "existingKeys cannot be null");
+		this.existingKeys = existingKeys.isPresent()
+				? Optional.<Set<String>>of(ImmutableSet.copyOf(existingKeys.get())) : Optional.<Set<String>>absent();
+	}
+
+	/**
+	 * Gets the {@link DeployTarget}.
+	 *
+	 * @return The non-{@code null} {@link DeployTarget}.
+	 */
+	public DeployTarget getTarget() {
+		return target;
+	}
+
+	/**
+	 * Gets the destination of the site within the bucket.
+	 *
+	 * @return The non-{@code null} {@link BucketPath}.
+	 */
+	public BucketPath getDestination() {
+		return destination;
+	}
+
+	/**
+	 * Gets the {@link Trie} of the files which were uploaded to the target.
+	 *
+	 * @return The non-{@code null}, possibly empty {@link Trie}.
+	 */
+	public Trie<String, String> getContent() {
+		return content;
+	}
+
+	/**
+	 * Gets the number of files which were uploaded to the target.
+	 *
+	 * @return The number of files uploaded.
+	 */
+	public int getFilesUploaded() {
+		return filesUploaded;
+	}
+
+	/**
+	 * Gets the number of files which were not uploaded to the target because the existing object was unchanged.
+	 *
+	 * @return The number of files skipped.
+	 */
+	public int getFilesSkipped() {
+		return filesSkipped;
+	}
+
+	/**
+	 * Gets the first failure encountered for the target. Once a failure is encountered, no further files are uploaded
+	 * to the target.
+	 *
+	 * @return The non-{@code null} {@link Optional} failure.
+	 */
+	public Optional<Throwable> getFailure() {
+		return failure;
+	}
+
+	/**
+	 * Gets the state of the objects of the site after the deployment, including the files which were skipped. The state
+	 * is only tracked when it is to be cached, and only for targets which did not fail.
+	 *
+	 * @return The non-{@code null} {@link Optional} {@link RemoteState}.
+	 */
+	public Optional<RemoteState> getRemoteState() {
+		return remoteState;
+	}
+
+	/**
+	 * Gets whether or not the site was already up to date on the target, in which case nothing was changed and the rest
+	 * of the deployment can be skipped.
+	 *
+	 * @return {@code true} if the site was up to date, otherwise {@code false}.
+	 */
+	public boolean isUpToDate() {
+		return upToDate;
+	}
+
+	/**
+	 * Gets the manifest of the site, which describes the objects behind the destination once the deployment is
+	 * complete. The manifest is only created when enabled, and only for targets which did not fail and were not up to
+	 * date.
+	 *
+	 * @return The non-{@code null} {@link Optional} {@link DeployManifest}.
+	 */
+	public Optional<DeployManifest> getManifest() {
+		return manifest;
+	}
+
+	/**
+	 * Gets the keys of the objects which were uploaded to the target, which exclude the files skipped because they were
+	 * unchanged.
+	 *
+	 * @return The non-{@code null}, possibly empty {@link Set} of keys.
+	 */
+	public Set<String> getUploadedKeys() {
+		return uploadedKeys;
+	}
+
+	/**
+	 * Gets the keys of every object at the destination before the deployment, which are known when the state of the
+	 * existing objects was discovered by a full listing, taken from a cache or taken from the stored manifest. The
+	 * objects left by previous deployments can then be found without listing the destination again.
+	 *
+	 * @return The non-{@code null} {@link Optional} {@link Set} of keys.
+	 */
+	public Optional<Set<String>> getExistingKeys() {
+		return existingKeys;
+	}
+
+}
@@ -0,0 +1,564 @@
+package com.avojak.mojo.aws.p2.maven.plugin.deploy;
+
+import com.avojak.mojo.aws.p2.maven.plugin.s3.model.BucketPath;
+import com.avojak.mojo.aws.p2.maven.plugin.s3.model.trie.Trie;
+import com.avojak.mojo.aws.p2.maven.plugin.s3.model.trie.impl.BucketTrieFactory;
+import com.avojak.mojo.aws.p2.maven.plugin.s3.repository.S3BucketRepository;
+import com.avojak.mojo.aws.p2.maven.plugin.s3.state.DeployManifest;
+import com.avojak.mojo.aws.p2.maven.plugin.s3.state.DeployManifestStore;
+import com.avojak.mojo.aws.p2.maven.plugin.s3.state.RemoteObject;
+import com.avojak.mojo.aws.p2.maven.plugin.s3.state.RemoteState;
+import com.avojak.mojo.aws.p2.maven.plugin.s3.state.RemoteStateCache;
+import com.avojak.mojo.aws.p2.maven.plugin.s3.state.RemoteStateDiscovery;
+import com.avojak.mojo.aws.p2.maven.plugin.util.checksum.ETagCalculator;
+import com.avojak.mojo.aws.p2.maven.plugin.util.resource.ResourceUtil;
+import com.google.common.base.Optional;
+import com.google.common.base.Supplier;
+import com.google.common.base.Suppliers;
+import com.google.common.util.concurrent.Futures;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * Deploys one or more directories to several buckets concurrently. Instances should be created with {@link
+ * FanOutDeployerFactory}.
+ * <p>
+ * Each file is read from disk once by memory-mapping it when it is first uploaded, and the mapping is shared between
+ * the uploads to every target, so only the files being uploaded hold a mapping. Files too large to be mapped are
+ * instead streamed from disk by each upload. Each target is served by its own pool of threads and its own unbounded
+ * queue, so a slow or failing bucket never holds up the others. Once an upload of a site to a target fails, the
+ * remaining uploads of that site to that target are abandoned.
+ * <p>
+ * When unchanged files are skipped, the {@link RemoteState} of each site is discovered in place of deleting the
+ * existing objects, and files whose size and entity tag match the existing object are not uploaded again. They remain
+ * part of the content of the site. The state may instead be taken from a {@link RemoteStateCache}, in which case the
+ * cache is invalidated before anything is uploaded, and the state of each site after its deployment is reported so
+ * that it can be cached once the site is complete. Whenever the state includes every existing object, their keys are
+ * reported so that the objects left by previous deployments can be found without listing the destination again.
+ * <p>
+ * The state may also be taken from the {@link DeployManifest} stored next to each site by a {@link
+ * DeployManifestStore}, which is compared against the manifest of the local site: files within directories whose
+ * hashes match are skipped without further comparison, and a site whose root hash matches is reported as up to date
+ * without anything being changed. Otherwise the stored manifest is deleted before anything is uploaded, and the
+ * manifest of the local site is reported so that it can be stored once the site is complete.
+ */
+public class FanOutDeployer {
+
+	private static final Logger LOGGER = LoggerFactory.getLogger(FanOutDeployer.class);
+
+	private final BucketTrieFactory bucketTrieFactory;
+	private final ETagCalculator eTagCalculator;
+	private final int uploadConcurrency;
+	private final boolean deleteExisting;
+	private final boolean skipUnchanged;
+	private final Optional<RemoteStateCache> stateCache;
+	private final Optional<DeployManifestStore> manifestStore;
+
+	/**
+	 * Constructor.
+	 *
+	 * @param bucketTrieFactory The {@link BucketTrieFactory}. Cannot be {@code null}.
+	 * @param eTagCalculator    The {@link ETagCalculator}. Cannot be {@code null}.
+	 * @param options           The {@link DeploymentOptions}. Cannot be {@code null}.
+	 */
+	FanOutDeployer(final BucketTrieFactory bucketTrieFactory, final ETagCalculator eTagCalculator,
+	               final DeploymentOptions options) {
+		this.bucketTrieFactory = checkNotNull(bucketTrieFactory, "bucketTrieFactory cannot be null");
+		this.eTagCalculator = checkNotNull(eTagCalculator, "eTagCalculator cannot be null");
+		checkNotNull(options, "options cannot be null");
+		this.uploadConcurrency = options.getUploadConcurrency();
+		this.deleteExisting = options.isDeleteExisting();
+		this.skipUnchanged = options.isSkipUnchanged();
+		this.stateCache = options.getStateCache();
+		this.manifestStore = options.getManifestStore();
+	}
+
+	/**
+	 * Deploys the contents of the given directory to every target. Unless disabled, existing objects at the destination
+	 * are deleted from each target before any files are uploaded to it. This method blocks until every target has either
+	 * completed or failed.
+	 *
+	 * @param targets The {@link Map} of each {@link DeployTarget} to the {@link S3BucketRepository} for its bucket.
+	 *                Cannot be {@code null}.
+	 * @param srcDir  The source directory {@link File} to upload. Cannot be {@code null}.
+	 * @param dest    The destination {@link BucketPath} location within each bucket. Cannot be {@code null}.
+	 *
+	 * @return The non-{@code null} {@link List} of {@link DeploymentResult}, in the iteration order of the targets.
+	 *
+	 * @throws InterruptedException if interrupted while waiting for uploads to complete.
+	 */
+	public List<DeploymentResult> deploy(final Map<DeployTarget, S3BucketRepository> targets, final File srcDir,
+	                                     final BucketPath dest) throws InterruptedException {
+		checkNotNull(targets, "targets cannot be null");
+		checkNotNull(srcDir, "srcDir cannot be null");
+		checkNotNull(dest, "dest cannot be null");
+		final SiteRegistration site = new SiteRegistration(new ArrayList<DeployTarget>(targets.keySet()), srcDir, dest);
+		final Map<DeployTarget, Future<S3BucketRepository>> repositories =
+				new LinkedHashMap<DeployTarget, Future<S3BucketRepository>>();
+		for (final Map.Entry<DeployTarget, S3BucketRepository> entry : targets.entrySet()) {
+			repositories.put(entry.getKey(), Futures.immediateFuture(entry.getValue()));
+		}
+		return deploy(repositories, Collections.singletonList(site));
+	}
+
+	/**
+	 * Deploys several sites, each to its own targets. Uploads to the same target share a single pool of threads,
+	 * regardless of the number of sites deployed to it, so the total time is bounded by the number of bytes rather than
+	 * by the number of sites. Unless disabled, existing objects at the destination of each site are deleted from each of
+	 * its targets before any of its files are uploaded. This method blocks until every site has either completed or failed on
+	 * every target.
+	 * <p>
+	 * The repositories may still be being created, for example while the bucket is located, in which case the source
+	 * directories are read in the meantime. A target whose repository cannot be created fails like any other.
+	 *
+	 * @param repositories The {@link Map} of each {@link DeployTarget} to the {@link Future} {@link
+	 *                     S3BucketRepository} for its bucket. Must contain every target of every site. Cannot be
+	 *                     {@code null}.
+	 * @param sites        The {@link List} of {@link SiteRegistration} to deploy. Cannot be {@code null}.
+	 *
+	 * @return The non-{@code null} {@link List} of {@link DeploymentResult}, ordered by site and then by target.
+	 *
+	 * @throws InterruptedException if interrupted while waiting for uploads to complete.
+	 */
+	public List<DeploymentResult> deploy(final Map<DeployTarget, ? extends Future<S3BucketRepository>> repositories,
+	                                     final List<SiteRegistration> sites) throws InterruptedException {
+		checkNotNull(repositories, "repositories cannot be null");
+		checkNotNull(sites, "sites cannot be null");
+		for (final SiteRegistration site : sites) {
+			for (final DeployTarget target : site.getTargets()) {
+				checkArgument(repositories.containsKey(target), "no repository for bucket " + target.getBucket());
+			}
+		}
+
+		final Map<DeployTarget, ExecutorService> executors = new LinkedHashMap<DeployTarget, ExecutorService>();
+		final List<TargetDeployment> deployments = new ArrayList<TargetDeployment>();
+		try {
+			// Start clearing the destination of every site while the source directories are being read
+			final List<List<TargetDeployment>> siteDeployments = new ArrayList<List<TargetDeployment>>();
+			for (final SiteRegistration site : sites) {
+				final String prefix = site.getDestination().getParent().orNull();
+				// The manifest of the site is created by whichever of its targets needs it first
+				final Supplier<Optional<DeployManifest>> manifest = Suppliers.memoize(
+						new Supplier<Optional<DeployManifest>>() {
+							@Override
+							public Optional<DeployManifest> get() {
+								return createManifest(site.getDirectory());
+							}
+						});
+				final List<TargetDeployment> targetDeployments = new ArrayList<TargetDeployment>();
+				for (final DeployTarget target : site.getTargets()) {
+					final TargetDeployment deployment = new TargetDeployment(target, repositories.get(target),
+							getExecutor(executors, target), site.getDirectory(), site.getDestination(),
+							prefix == null ? bucketTrieFactory.create() : bucketTrieFactory.create(prefix), manifest);
+					targetDeployments.add(deployment);
+					deployment.prepare();
+				}
+				siteDeployments.add(targetDeployments);
+				deployments.addAll(targetDeployments);
+			}
+			for (int i = 0; i < sites.size(); i++) {
+				final SiteRegistration site = sites.get(i);
+				final List<SourceFile> files = new ArrayList<SourceFile>();
+				collect(site.getDirectory(), site.getDestination(), files);
+				for (final SourceFile file : files) {
+					for (final TargetDeployment deployment : siteDeployments.get(i)) {
+						deployment.upload(file);
+					}
+				}
+			}
+		} finally {
+			for (final ExecutorService executor : executors.values()) {
+				executor.shutdown();
+			}
+			try {
+				for (final ExecutorService executor : executors.values()) {
+					executor.awaitTermination(Long.MAX_VALUE, TimeUnit.NANOSECONDS);
+				}
+			} catch (final InterruptedException e) {
+				for (final ExecutorService executor : executors.values()) {
+					executor.shutdownNow();
+				}
+				throw e;
+			}
+		}
+
+		final List<DeploymentResult> results = new ArrayList<DeploymentResult>();
+		for (final TargetDeployment deployment : deployments) {
+			final Optional<Throwable> failure = Optional.fromNullable(deployment.failure.get());
+			results.add(new DeploymentResult(deployment.target, deployment.dest, deployment.content,
+					deployment.filesUploaded.get(), deployment.filesSkipped.get(), failure,
+					stateCache.isPresent() && !failure.isPresent()
+							? Optional.of(new RemoteState(deployment.objects, true)) : Optional.<RemoteState>absent(),
+					deployment.upToDate, manifestStore.isPresent() && !failure.isPresent() && !deployment.upToDate
+							? deployment.manifest.get() : Optional.<DeployManifest>absent(),
+					new HashSet<String>(deployment.uploadedKeys), deployment.getExistingKeys()));
+		}
+		return results;
+	}
+
+	/**
+	 * Gets the pool of threads for uploads to the given target, creating it if needed.
+	 */
+	private ExecutorService getExecutor(final Map<DeployTarget, ExecutorService> executors,
+	                                    final DeployTarget target) {
+		ExecutorService executor = executors.get(target);
+		if (executor == null) {
+			executor = Executors.newFixedThreadPool(uploadConcurrency, new ThreadFactoryBuilder()
+					.setNameFormat("aws-p2-deploy-" + target.getBucket() + "-%d").setDaemon(true).build());
+			executors.put(target, executor);
+		}
+		return executor;
+	}
+
+	/**
+	 * Creates the manifest of the given site directory. A failure is logged, and the site is then deployed without a
+	 * manifest.
+	 */
+	private Optional<DeployManifest> createManifest(final File srcDir) {
+		try {
+			return Optional.of(DeployManifest.of(srcDir, eTagCalculator));
+		} catch (final IOException e) {
+			LOGGER.warn(ResourceUtil.getString(getClass(), "warn.manifestNotCreated"), srcDir.getName(), e);
+			return Optional.absent();
+		}
+	}
+
+	/**
+	 * Recursively walks the source directory, collecting each file along with its destination.
+	 */
+	private void collect(final File srcDir, final BucketPath dest, final List<SourceFile> files) {
+		if (!srcDir.exists() || !srcDir.isDirectory()) {
+			LOGGER.warn(ResourceUtil.getString(getClass(), "warn.directoryNotAccessible"), srcDir.getName());
+			return;
+		}
+		final File[] directoryContents = srcDir.listFiles();
+		if (directoryContents == null) {
+			LOGGER.warn(ResourceUtil.getString(getClass(), "warn.directoryNotAccessible"), srcDir.getName());
+			return;
+		}
+		for (final File file : directoryContents) {
+			final BucketPath nextDest = new BucketPath(dest).append(file.getName());
+			if (file.isFile()) {
+				files.add(new SourceFile(file, nextDest, eTagCalculator));
+			} else if (file.isDirectory()) {
+				collect(file, nextDest, files);
+			}
+		}
+	}
+
+	/**
+	 * A file of the site, along with its destination in the bucket.
+	 * <p>
+	 * The content is mapped into memory on first use and shared between the targets, unless the file is too large to
+	 * be mapped. The entity tags of the content are likewise calculated on first use, so the content is hashed once
+	 * however many targets compare it against their existing objects.
+	 */
+	private static class SourceFile {
+
+		/**
+		 * The size of the largest file which can be mapped into a single buffer.
+		 */
+		private static final long MAX_MAPPED_SIZE = Integer.MAX_VALUE;
+
+		private final File file;
+		private final long size;
+		private final BucketPath dest;
+		private final ETagCalculator eTagCalculator;
+		private final AtomicBoolean skipped = new AtomicBoolean();
+		// Multipart entity tags depend on the part size, so each is compared once and the result remembered
+		private final ConcurrentMap<String, Boolean> multipartMatches = new ConcurrentHashMap<String, Boolean>();
+		// Guarded by this
+		private ByteBuffer content;
+		private String eTag;
+
+		private SourceFile(final File file, final BucketPath dest, final ETagCalculator eTagCalculator) {
+			this.file = file;
+			this.size = file.length();
+			this.dest = dest;
+			this.eTagCalculator = eTagCalculator;
+		}
+
+		/**
+		 * Determines whether the file is small enough to be mapped into memory.
+		 */
+		private boolean isMappable() {
+			return size <= MAX_MAPPED_SIZE;
+		}
+
+		/**
+		 * Gets the content of the file, mapping it into memory on first use. Each caller should read from its own view
+		 * of the returned buffer.
+		 */
+		private synchronized ByteBuffer getContent() throws IOException {
+			if (content == null) {
+				try (final FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+					// The mapping remains valid after the channel has been closed
+					content = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+				}
+			}
+			return content;
+		}
+
+		/**
+		 * Gets the single-part entity tag of the content, calculating it on first use.
+		 */
+		private synchronized String getETag() throws IOException {
+			if (eTag == null) {
+				eTag = isMappable() ? eTagCalculator.calculate(getContent()) : eTagCalculator.calculate(file);
+			}
+			return eTag;
+		}
+
+		/**
+		 * Determines whether the content matches the given entity tag of a remote object.
+		 */
+		private boolean matches(final String remoteETag) throws IOException {
+			if (remoteETag == null) {
+				return false;
+			}
+			if (!ETagCalculator.isMultipart(remoteETag)) {
+				return ETagCalculator.normalize(remoteETag).equals(getETag());
+			}
+			Boolean matched = multipartMatches.get(remoteETag);
+			if (matched == null) {
+				matched = isMappable() ? eTagCalculator.matches(getContent(), remoteETag)
+						: eTagCalculator.matches(file, remoteETag);
+				multipartMatches.putIfAbsent(remoteETag, matched);
+			}
+			return matched;
+		}
+
+		/**
+		 * Reports that the file could not be read, once however many targets fail to read it.
+		 */
+		private void skip(final IOException e) {
+			if (skipped.compareAndSet(false, true)) {
+				LOGGER.warn(ResourceUtil.getString(FanOutDeployer.class, "warn.fileNotAccessible"), file.getName(), e);
+			}
+		}
+
+	}
+
+	/**
+	 * Tracks the deployment of a single site to a single target.
+	 */
+	private class TargetDeployment {
+
+		private final DeployTarget target;
+		private final Future<S3BucketRepository> repositoryFuture;
+		private final ExecutorService executor;
+		private final File srcDir;
+		private final BucketPath dest;
+		private final Trie<String, String> content;
+		private final Supplier<Optional<DeployManifest>> manifest;
+		private final CountDownLatch deleted = new CountDownLatch(1);
+		private final AtomicInteger filesUploaded = new AtomicInteger();
+		private final AtomicInteger filesSkipped = new AtomicInteger();
+		private final AtomicReference<Throwable> failure = new AtomicReference<Throwable>();
+		// Only tracked when the state is cached
+		private final Queue<RemoteObject> objects = new ConcurrentLinkedQueue<RemoteObject>();
+		private final Queue<String> uploadedKeys = new ConcurrentLinkedQueue<String>();
+		// Written before the preparation completes, so they are visible to every upload
+		private S3BucketRepository repository;
+		private RemoteState remoteState;
+		// Only set when the stored manifest was compared, in which case it decides which files are unchanged
+		private Set<String> unchangedKeys;
+		private boolean upToDate;
+
+		private TargetDeployment(final DeployTarget target, final Future<S3BucketRepository> repositoryFuture,
+		                         final ExecutorService executor, final File srcDir, final BucketPath dest,
+		                         final Trie<String, String> content,
+		                         final Supplier<Optional<DeployManifest>> manifest) {
+			this.target = target;
+			this.repositoryFuture = repositoryFuture;
+			this.executor = executor;
+			this.srcDir = srcDir;
+			this.dest = dest;
+			this.content = content;
+			this.manifest = manifest;
+		}
+
+		/**
+		 * Schedules the deletion of the existing objects at the destination, or the discovery of their state, if
+		 * enabled, once the repository is available. Uploads wait for it to complete, and since it is queued ahead of
+		 * them it never waits on an upload itself.
+		 */
+		private void prepare() {
+			executor.execute(new Runnable() {
+				@Override
+				public void run() {
+					try {
+						repository = repositoryFuture.get();
+						if (deleteExisting) {
+							repository.deleteDirectory(dest.asString());
+						} else if (skipUnchanged) {
+							remoteState = discover();
+						}
+					} catch (final ExecutionException e) {
+						fail(e.getCause());
+					} catch (final InterruptedException e) {
+						Thread.currentThread().interrupt();
+						fail(e);
+					} catch (final RuntimeException e) {
+						fail(e);
+					} finally {
+						deleted.countDown();
+					}
+				}
+			});
+		}
+
+		/**
+		 * Discovers the state of the existing objects at the destination, unless it can be taken from the stored
+		 * manifest or a valid state is cached. Unless the site is already up to date, the stored manifest and any
+		 * cached state are invalidated, since the objects are about to change.
+		 */
+		private RemoteState discover() {
+			final String prefix = dest.asString() + BucketPath.PATH_DELIM;
+			Optional<RemoteState> known = Optional.absent();
+			if (manifestStore.isPresent()) {
+				final Optional<DeployManifest> local = manifest.get();
+				final Optional<DeployManifest> remote = local.isPresent()
+						? manifestStore.get().get(repository, target.getBucket(), prefix)
+						: Optional.<DeployManifest>absent();
+				if (remote.isPresent()) {
+					final Set<String> unchanged = new HashSet<String>();
+					for (final String path : local.get().getUnchanged(remote.get())) {
+						unchanged.add(prefix + path);
+					}
+					unchangedKeys = unchanged;
+					known = Optional.of(remote.get().toRemoteState(prefix));
+					if (remote.get().getRootHash().equals(local.get().getRootHash())) {
+						upToDate = true;
+						return known.get();
+					}
+				}
+			}
+			if (stateCache.isPresent()) {
+				final Optional<RemoteState> cached = known.isPresent() ? Optional.<RemoteState>absent()
+						: stateCache.get().get(repository, target.getBucket(), prefix);
+				stateCache.get().invalidate(repository, target.getBucket(), prefix);
+				known = known.or(cached);
+			}
+			if (manifestStore.isPresent()) {
+				manifestStore.get().delete(repository, prefix);
+			}
+			if (known.isPresent()) {
+				return known.get();
+			}
+			return new RemoteStateDiscovery(repository, uploadConcurrency).discover(prefix,
+					StaleObjectPruner.inventory(srcDir, dest));
+		}
+
+		/**
+		 * Schedules the upload of a single file.
+		 */
+		private void upload(final SourceFile file) {
+			executor.execute(new Runnable() {
+				@Override
+				public void run() {
+					try {
+						deleted.await();
+					} catch (final InterruptedException e) {
+						Thread.currentThread().interrupt();
+						return;
+					}
+					if (failure.get() != null) {
+						return;
+					}
+					try {
+						if (remoteState != null && isUnchanged(file)) {
+							final String key = file.dest.asString();
+							final String url = repository.getHostingUrl(key);
+							synchronized (content) {
+								content.insert(key, url);
+							}
+							if (stateCache.isPresent()) {
+								objects.add(remoteState.get(key).get());
+							}
+							filesSkipped.incrementAndGet();
+							return;
+						}
+						// Each upload reads from its own view of the shared mapping
+						final String key = file.isMappable()
+								? repository.uploadFile(file.file, file.getContent().duplicate(), file.dest)
+								: repository.uploadFile(file.file, file.dest);
+						final String url = repository.getHostingUrl(key);
+						synchronized (content) {
+							content.insert(key, url);
+						}
+						if (stateCache.isPresent()) {
+							objects.add(new RemoteObject(key, file.size, file.getETag(), System.currentTimeMillis()));
+						}
+						uploadedKeys.add(key);
+						filesUploaded.incrementAndGet();
+					} catch (final IOException e) {
+						file.skip(e);
+					} catch (final RuntimeException e) {
+						fail(e);
+					}
+				}
+			});
+		}
+
+		/**
+		 * Determines whether the existing object already matches the given file, according to the stored manifest if it
+		 * was compared.
+		 */
+		private boolean isUnchanged(final SourceFile file) throws IOException {
+			if (unchangedKeys != null) {
+				return unchangedKeys.contains(file.dest.asString());
+			}
+			final Optional<RemoteObject> remote = remoteState.get(file.dest.asString());
+			return remote.isPresent() && remote.get().getSize() == file.size
+					&& file.matches(remote.get().getETag());
+		}
+
+		/**
+		 * Gets the keys of every existing object at the destination, if the state of the existing objects was complete.
+		 */
+		private Optional<Set<String>> getExistingKeys() {
+			return remoteState != null && remoteState.isComplete() ? Optional.of(remoteState.getKeys())
+					: Optional.<Set<String>>absent();
+		}
+
+		private void fail(final Throwable throwable) {
+			if (failure.compareAndSet(null, throwable)) {
+				LOGGER.warn(ResourceUtil.getString(FanOutDeployer.class, "warn.targetFailed"), dest.asString(),
+						target.getBucket(), throwable);
+			}
+		}
+
+	}
+
+}
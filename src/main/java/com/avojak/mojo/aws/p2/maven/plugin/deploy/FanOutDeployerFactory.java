@@ -0,0 +1,22 @@
+package com.avojak.mojo.aws.p2.maven.plugin.deploy;
+
+import com.avojak.mojo.aws.p2.maven.plugin.s3.model.trie.impl.BucketTrieFactory;
+import com.avojak.mojo.aws.p2.maven.plugin.util.checksum.ETagCalculator;
+
+/**
+ * Factory class to create instances of {@link FanOutDeployer}.
+ */
+public class FanOutDeployerFactory {
+
+	/**
+	 * Creates and returns a new instance of {@link FanOutDeployer}.
+	 *
+	 * @param options The {@link DeploymentOptions}. Cannot be {@code null}.
+	 *
+	 * @return The new, non-{@code null} {@link FanOutDeployer}.
+	 */
+	public FanOutDeployer create(final DeploymentOptions options) {
+		return new FanOutDeployer(new BucketTrieFactory(), new ETagCalculator(), options);
+	}
+
+}
@@ -0,0 +1,52 @@
+package com.avojak.mojo.aws.p2.maven.plugin.deploy;
+
+/**
+ * The outcome of a purge by a {@link VersionPurger}.
+ */
+public class PurgeResult {
+
+	private final long versionsDeleted;
+	private final long deleteMarkersDeleted;
+	private final long bytesReclaimed;
+
+	/**
+	 * Constructor.
+	 *
+	 * @param versionsDeleted      The number of noncurrent versions which were deleted.
+	 * @param deleteMarkersDeleted The number of delete markers which were deleted.
+	 * @param bytesReclaimed       The total size of the noncurrent versions which were deleted, in bytes.
+	 */
+	public PurgeResult(final long versionsDeleted, final long deleteMarkersDeleted, final long bytesReclaimed) {
+		this.versionsDeleted = versionsDeleted;
+		this.deleteMarkersDeleted = deleteMarkersDeleted;
+		this.bytesReclaimed = bytesReclaimed;
+	}
+
+	/**
+	 * Gets the number of noncurrent versions which were deleted.
+	 *
+	 * @return The number of versions deleted.
+	 */
+	public long getVersionsDeleted() {
+		return versionsDeleted;
+	}
+
+	/**
+	 * Gets the number of delete markers which were deleted.
+	 *
+	 * @return The number of delete markers deleted.
+	 */
+	public long getDeleteMarkersDeleted() {
+		return deleteMarkersDeleted;
+	}
+
+	/**
+	 * Gets the total size of the noncurrent versions which were deleted.
+	 *
+	 * @return The number of bytes reclaimed.
+	 */
+	public long getBytesReclaimed() {
+		return bytesReclaimed;
+	}
+
+}
@@ -0,0 +1,101 @@
+package com.avojak.mojo.aws.p2.maven.plugin.deploy;
+
+import com.google.common.base.Optional;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.WeakHashMap;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * Collects the sites of the modules of a reactor build so that they can be deployed together once every module has
+ * been built.
+ * <p>
+ * Maven loads the plugin classes once per build, so a registry obtained with {@link #forSession(Object)} is shared by
+ * every module of the session, including modules built in parallel. Maven gives each module its own clone of the
+ * session, so registries are keyed on an object which every clone shares, such as the execution request of the
+ * session. Registries are only weakly referenced by that object, so they do not outlive it in long-lived Maven
+ * processes.
+ */
+public class ReactorSiteRegistry {
+
+	private static final Map<Object, ReactorSiteRegistry> REGISTRIES = new WeakHashMap<Object, ReactorSiteRegistry>();
+
+	private final Set<String> registeredProjects = new HashSet<String>();
+	private final List<SiteRegistration> sites = new ArrayList<SiteRegistration>();
+	private boolean complete;
+
+	/**
+	 * Gets the registry for the given build session, creating it if needed.
+	 *
+	 * @param session The object which identifies the build session, and which every clone of the session shares, such
+	 *                as its execution request. Cannot be {@code null}.
+	 *
+	 * @return The non-{@code null} {@link ReactorSiteRegistry} for the session.
+	 */
+	public static ReactorSiteRegistry forSession(final Object session) {
+		checkNotNull(session, "session cannot be null");
+		synchronized (REGISTRIES) {
+			ReactorSiteRegistry registry = REGISTRIES.get(session);
+			if (registry == null) {
+				registry = new ReactorSiteRegistry();
+				REGISTRIES.put(session, registry);
+			}
+			return registry;
+		}
+	}
+
+	/**
+	 * Registers a project of the reactor, along with its site if it has one. Projects whose execution was skipped must
+	 * still be registered, so that the registry knows when every project has been built.
+	 * <p>
+	 * Once the expected number of projects has registered, every registered site is returned exactly once, to the
+	 * caller which completed the registry. Sites registered after that are returned straight back to their caller.
+	 *
+	 * @param projectId        The ID of the project. Cannot be {@code null} or empty.
+	 * @param site             The {@link Optional} {@link SiteRegistration} of the project. Cannot be {@code null}.
+	 * @param expectedProjects The number of projects expected to register. Must be positive.
+	 *
+	 * @return The {@link List} of {@link SiteRegistration} to deploy if this registration completed the registry,
+	 * otherwise {@link Optional#absent()}.
+	 */
+	public synchronized Optional<List<SiteRegistration>> register(final String projectId,
+	                                                              final Optional<SiteRegistration> site,
+	                                                              final int expectedProjects) {
+		checkNotNull(projectId, "projectId cannot be null");
+		checkArgument(!projectId.trim().isEmpty(), "projectId cannot be empty");
+		checkNotNull(site, "site cannot be null");
+		checkArgument(expectedProjects > 0, "expectedProjects must be positive");
+		if (complete) {
+			return Optional.of(site.isPresent() ? Collections.singletonList(site.get())
+					: Collections.<SiteRegistration>emptyList());
+		}
+		registeredProjects.add(projectId);
+		if (site.isPresent()) {
+			sites.add(site.get());
+		}
+		if (registeredProjects.size() < expectedProjects) {
+			return Optional.absent();
+		}
+		complete = true;
+		final List<SiteRegistration> registeredSites = new ArrayList<SiteRegistration>(sites);
+		sites.clear();
+		return Optional.<List<SiteRegistration>>of(registeredSites);
+	}
+
+	/**
+	 * Gets the number of distinct projects which have registered so far.
+	 *
+	 * @return The number of registered projects.
+	 */
+	public synchronized int getRegisteredProjectCount() {
+		return registeredProjects.size();
+	}
+
+}
@@ -0,0 +1,58 @@
+package com.avojak.mojo.aws.p2.maven.plugin.deploy;
+
+import java.util.Collections;
+import java.util.List;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * The outcome of applying a {@link SnapshotRetentionPolicy}.
+ */
+public class RetentionResult {
+
+	private final List<String> versionsRemoved;
+	private final long objectsDeleted;
+	private final long bytesReclaimed;
+
+	/**
+	 * Constructor.
+	 *
+	 * @param versionsRemoved The prefixes of the versions which were removed. Cannot be {@code null}.
+	 * @param objectsDeleted  The number of objects which were deleted.
+	 * @param bytesReclaimed  The total size of the objects which were deleted, in bytes.
+	 */
+	public RetentionResult(final List<String> versionsRemoved, final long objectsDeleted, final long bytesReclaimed) {
+		this.versionsRemoved = Collections.unmodifiableList(checkNotNull(versionsRemoved,
+				"versionsRemoved cannot be null"));
+		this.objectsDeleted = objectsDeleted;
+		this.bytesReclaimed = bytesReclaimed;
+	}
+
+	/**
+	 * Gets the prefixes of the versions which were removed.
+	 *
+	 * @return The non-{@code null}, possibly empty, unmodifiable {@link List} of prefixes.
+	 */
+	public List<String> getVersionsRemoved() {
+		return versionsRemoved;
+	}
+
+	/**
+	 * Gets the number of objects which were deleted.
+	 *
+	 * @return The number of objects deleted.
+	 */
+	public long getObjectsDeleted() {
+		return objectsDeleted;
+	}
+
+	/**
+	 * Gets the total size of the objects which were deleted.
+	 *
+	 * @return The number of bytes reclaimed.
+	 */
+	public long getBytesReclaimed() {
+		return bytesReclaimed;
+	}
+
+}
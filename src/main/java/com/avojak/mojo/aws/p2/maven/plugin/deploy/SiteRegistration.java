@@ -0,0 +1,104 @@
+package com.avojak.mojo.aws.p2.maven.plugin.deploy;
+
+import com.avojak.mojo.aws.p2.maven.plugin.s3.model.BucketPath;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * Describes an update site to be deployed: the local directory containing the site, where it is placed within each
+ * bucket, and the buckets to deploy it to.
+ */
+public class SiteRegistration {
+
+	private final List<DeployTarget> targets;
+	private final File directory;
+	private final BucketPath destination;
+	private final String artifactId;
+	private final boolean generateLandingPage;
+
+	/**
+	 * Constructor for a site without a landing page.
+	 *
+	 * @param targets     The {@link List} of {@link DeployTarget} to deploy to. Cannot be {@code null} or empty.
+	 * @param directory   The local directory {@link File} of the site. Cannot be {@code null}.
+	 * @param destination The destination {@link BucketPath} of the site within each bucket. Cannot be {@code null}.
+	 */
+	public SiteRegistration(final List<DeployTarget> targets, final File directory, final BucketPath destination) {
+		this(targets, directory, destination, null, false);
+	}
+
+	/**
+	 * Constructor.
+	 *
+	 * @param targets             The {@link List} of {@link DeployTarget} to deploy to. Cannot be {@code null} or
+	 *                            empty.
+	 * @param directory           The local directory {@link File} of the site. Cannot be {@code null}.
+	 * @param destination         The destination {@link BucketPath} of the site within each bucket. Cannot be {@code
+	 *                            null}.
+	 * @param artifactId          The artifact ID of the project which built the site. May be {@code null} if no
+	 *                            landing page is generated.
+	 * @param generateLandingPage Whether or not to generate a landing page for the site.
+	 */
+	public SiteRegistration(final List<DeployTarget> targets, final File directory, final BucketPath destination,
+	                        final String artifactId, final boolean generateLandingPage) {
+		checkNotNull(targets, "targets cannot be null");
+		checkArgument(!targets.isEmpty(), "targets cannot be empty");
+		this.targets = Collections.unmodifiableList(new ArrayList<DeployTarget>(targets));
+		this.directory = checkNotNull(directory, "directory cannot be null");
+		this.destination = new BucketPath(checkNotNull(destination, "destination cannot be null"));
+		this.artifactId = artifactId;
+		this.generateLandingPage = generateLandingPage;
+	}
+
+	/**
+	 * Gets the targets to deploy the site to.
+	 *
+	 * @return The non-{@code null}, non-empty, unmodifiable {@link List} of {@link DeployTarget}.
+	 */
+	public List<DeployTarget> getTargets() {
+		return targets;
+	}
+
+	/**
+	 * Gets the local directory of the site.
+	 *
+	 * @return The non-{@code null} directory {@link File}.
+	 */
+	public File getDirectory() {
+		return directory;
+	}
+
+	/**
+	 * Gets the destination of the site within each bucket.
+	 *
+	 * @return The non-{@code null} {@link BucketPath}.
+	 */
+	public BucketPath getDestination() {
+		return destination;
+	}
+
+	/**
+	 * Gets the artifact ID of the project which built the site.
+	 *
+	 * @return The artifact ID, or {@code null} if not specified.
+	 */
+	public String getArtifactId() {
+		return artifactId;
+	}
+
+	/**
+	 * Gets whether or not to generate a landing page for the site.
+	 *
+	 * @return {@code true} if a landing page should be generated, otherwise {@code false}.
+	 */
+	public boolean isGenerateLandingPage() {
+		return generateLandingPage;
+	}
+
+}
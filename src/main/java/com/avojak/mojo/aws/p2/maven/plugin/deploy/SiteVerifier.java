@@ -0,0 +1,151 @@
+package com.avojak.mojo.aws.p2.maven.plugin.deploy;
+
+import com.avojak.mojo.aws.p2.maven.plugin.s3.model.BucketPath;
+import com.avojak.mojo.aws.p2.maven.plugin.s3.model.trie.Trie;
+import com.avojak.mojo.aws.p2.maven.plugin.s3.model.trie.TrieNode;
+import com.avojak.mojo.aws.p2.maven.plugin.s3.repository.S3BucketRepository;
+import com.avojak.mojo.aws.p2.maven.plugin.s3.state.RemoteObject;
+import com.avojak.mojo.aws.p2.maven.plugin.s3.state.RemoteState;
+import com.avojak.mojo.aws.p2.maven.plugin.s3.state.RemoteStateDiscovery;
+import com.avojak.mojo.aws.p2.maven.plugin.util.checksum.ETagCalculator;
+import com.google.common.base.Optional;
+import com.google.common.util.concurrent.Futures;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * Verifies that every object of an uploaded site matches the local file from which it was uploaded.
+ * <p>
+ * The keys of the site are taken from the content {@link Trie} returned by the upload. The state of the objects is
+ * discovered by a {@link RemoteStateDiscovery}, which chooses between a listing and concurrent {@code HEAD} requests,
+ * whichever needs fewer rounds of requests. The size of each object is compared first, and the entity tag of the local
+ * file is only calculated when the sizes match, concurrently across files.
+ */
+public class SiteVerifier {
+
+	private final ETagCalculator eTagCalculator;
+	private final int concurrency;
+
+	/**
+	 * Constructor.
+	 *
+	 * @param eTagCalculator The {@link ETagCalculator}. Cannot be {@code null}.
+	 * @param concurrency    The maximum number of requests in flight, and of files digested, at once. Must be
+	 *                       positive.
+	 */
+	public SiteVerifier(final ETagCalculator eTagCalculator, final int concurrency) {
+		this.eTagCalculator = checkNotNull(eTagCalculator, "eTagCalculator cannot be null");
+		checkArgument(concurrency > 0, "concurrency must be positive");
+		this.concurrency = concurrency;
+	}
+
+	/**
+	 * Verifies the objects of the site uploaded from the given directory to the given destination.
+	 *
+	 * @param repository The {@link S3BucketRepository} of the bucket. Cannot be {@code null}.
+	 * @param content    The content {@link Trie} of the upload. Cannot be {@code null}.
+	 * @param srcDir     The local directory from which the site was uploaded. Cannot be {@code null}.
+	 * @param dest       The destination {@link BucketPath} of the upload. Cannot be {@code null}.
+	 *
+	 * @return The non-{@code null} {@link VerificationResult}.
+	 *
+	 * @throws com.google.common.util.concurrent.UncheckedExecutionException if a request failed, or a local file could
+	 *                                                                         not be read.
+	 */
+	public VerificationResult verify(final S3BucketRepository repository, final Trie<String, String> content,
+	                                 final File srcDir, final BucketPath dest) {
+		checkNotNull(repository, "repository cannot be null");
+		checkNotNull(content, "content cannot be null");
+		checkNotNull(srcDir, "srcDir cannot be null");
+		checkNotNull(dest, "dest cannot be null");
+		final String prefix = dest.asString() + BucketPath.PATH_DELIM;
+		final Map<String, File> files = new LinkedHashMap<String, File>();
+		for (final String key : getKeys(content)) {
+			// Objects which were not uploaded from the directory, such as the landing page, have nothing to match
+			if (key.startsWith(prefix)) {
+				files.put(key, new File(srcDir, key.substring(prefix.length())));
+			}
+		}
+		if (files.isEmpty()) {
+			return new VerificationResult(0, Collections.<String>emptyList(), Collections.<String>emptyList());
+		}
+		final RemoteState remoteState = new RemoteStateDiscovery(repository, concurrency).discover(prefix,
+				files.keySet());
+
+		final List<String> missing = new ArrayList<String>();
+		final Map<String, Future<Boolean>> comparisons = new LinkedHashMap<String, Future<Boolean>>();
+		final ExecutorService executor = Executors.newFixedThreadPool(Math.min(concurrency, files.size()),
+				new ThreadFactoryBuilder().setNameFormat("aws-p2-verify-%d").setDaemon(true).build());
+		try {
+			for (final Map.Entry<String, File> entry : files.entrySet()) {
+				final Optional<RemoteObject> remote = remoteState.get(entry.getKey());
+				if (!remote.isPresent()) {
+					missing.add(entry.getKey());
+					continue;
+				}
+				comparisons.put(entry.getKey(), executor.submit(new Callable<Boolean>() {
+					@Override
+					public Boolean call() throws IOException {
+						final File file = entry.getValue();
+						return file.length() == remote.get().getSize()
+								&& eTagCalculator.matches(file, remote.get().getETag());
+					}
+				}));
+			}
+			final List<String> mismatched = new ArrayList<String>();
+			for (final Map.Entry<String, Future<Boolean>> comparison : comparisons.entrySet()) {
+				if (!Futures.getUnchecked(comparison.getValue())) {
+					mismatched.add(comparison.getKey());
+				}
+			}
+			return new VerificationResult(files.size(), missing, mismatched);
+		} finally {
+			executor.shutdownNow();
+		}
+	}
+
+	/**
+	 * Gets the full key of every object in the given content trie, in ascending order.
+	 *
+	 * @param content The content {@link Trie}. Cannot be {@code null}.
+	 *
+	 * @return The non-{@code null}, possibly empty {@link List} of keys.
+	 */
+	static List<String> getKeys(final Trie<String, String> content) {
+		checkNotNull(content, "content cannot be null");
+		// The prefix is removed from the keys when they are inserted, and the remainder split into its path elements
+		final Optional<String> prefix = content.getPrefix();
+		final TreeSet<String> keys = new TreeSet<String>();
+		collectKeys(prefix.isPresent() ? prefix.get() + BucketPath.PATH_DELIM : "", content.getRoot(), keys);
+		return new ArrayList<String>(keys);
+	}
+
+	/**
+	 * Recursive helper method for {@link SiteVerifier#getKeys(Trie)}.
+	 */
+	private static void collectKeys(final String path, final TrieNode<String> node, final TreeSet<String> keys) {
+		for (final Map.Entry<String, TrieNode<String>> child : node.getChildren().entrySet()) {
+			if (child.getValue().getValue().isPresent()) {
+				keys.add(path + child.getKey());
+			} else {
+				collectKeys(path + child.getKey() + BucketPath.PATH_DELIM, child.getValue(), keys);
+			}
+		}
+	}
+
+}
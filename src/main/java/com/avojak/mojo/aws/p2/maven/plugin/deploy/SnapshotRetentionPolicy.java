@@ -0,0 +1,221 @@
+package com.avojak.mojo.aws.p2.maven.plugin.deploy;
+
+import com.amazonaws.services.s3.model.S3ObjectSummary;
+import com.avojak.mojo.aws.p2.maven.plugin.s3.listing.ShardedLister;
+import com.avojak.mojo.aws.p2.maven.plugin.s3.listing.ShardedListing;
+import com.avojak.mojo.aws.p2.maven.plugin.s3.model.BucketPath;
+import com.avojak.mojo.aws.p2.maven.plugin.s3.repository.S3BucketRepository;
+import com.avojak.mojo.aws.p2.maven.plugin.s3.request.factory.delete.DeleteObjectRequestFactory;
+import com.avojak.mojo.aws.p2.maven.plugin.util.resource.ResourceUtil;
+import com.google.common.base.Optional;
+import com.google.common.util.concurrent.Futures;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * Removes the snapshot versions of a project which have expired, keeping either a number of the most recent versions,
+ * the versions deployed within a number of days, or both.
+ * <p>
+ * The versions are discovered with a delimited listing of the directory which contains them, so the objects of the
+ * versions which are kept are never enumerated. The time at which a version was last deployed is taken from the first
+ * object listed within it, which costs a single page per version. Expired versions are then listed and deleted
+ * concurrently, up to 1000 keys per request. When a listing shard depth is given, each expired version is instead
+ * listed as concurrent shards, one version after another, so that a version with many objects is not listed one page
+ * after another.
+ */
+public class SnapshotRetentionPolicy {
+
+	private static final Logger LOGGER = LoggerFactory.getLogger(SnapshotRetentionPolicy.class);
+
+	private final int keepCount;
+	private final long maxAgeMillis;
+	private final int concurrency;
+	private final int listingShardDepth;
+
+	/**
+	 * Constructor.
+	 *
+	 * @param keepCount         The number of most recent versions to keep, including the version being deployed. A
+	 *                          value of {@code 0} keeps versions regardless of their number. Cannot be negative.
+	 * @param maxAgeDays        The number of days after its last deployment for which a version is kept. A value of
+	 *                          {@code 0} keeps versions regardless of their age. Cannot be negative.
+	 * @param concurrency       The maximum number of versions examined or deleted, or shards listed, concurrently.
+	 *                          Must be positive.
+	 * @param listingShardDepth The number of directory levels behind an expired version by which its listing is split
+	 *                          into shards, or {@code 0} to list without sharding. Cannot be negative.
+	 */
+	public SnapshotRetentionPolicy(final int keepCount, final int maxAgeDays, final int concurrency,
+	                               final int listingShardDepth) {
+		checkArgument(keepCount >= 0, "keepCount cannot be negative");
+		checkArgument(maxAgeDays >= 0, "maxAgeDays cannot be negative");
+		checkArgument(concurrency > 0, "concurrency must be positive");
+		checkArgument(listingShardDepth >= 0, "listingShardDepth cannot be negative");
+		this.keepCount = keepCount;
+		this.maxAgeMillis = TimeUnit.DAYS.toMillis(maxAgeDays);
+		this.concurrency = concurrency;
+		this.listingShardDepth = listingShardDepth;
+	}
+
+	/**
+	 * Gets whether or not any version can expire under this policy.
+	 *
+	 * @return {@code true} if a number of versions or a maximum age is set, otherwise {@code false}.
+	 */
+	public boolean isEnabled() {
+		return keepCount > 0 || maxAgeMillis > 0;
+	}
+
+	/**
+	 * Removes the expired siblings of the version deployed at the given destination. The deployed version itself is
+	 * always kept.
+	 *
+	 * @param repository  The {@link S3BucketRepository} of the bucket. Cannot be {@code null}.
+	 * @param destination The destination {@link BucketPath} of the deployed version. Cannot be {@code null}.
+	 * @param now         The current time, in milliseconds since the epoch.
+	 *
+	 * @return The non-{@code null} {@link RetentionResult}.
+	 *
+	 * @throws com.google.common.util.concurrent.UncheckedExecutionException if a version could not be examined or
+	 *                                                                         deleted.
+	 */
+	public RetentionResult apply(final S3BucketRepository repository, final BucketPath destination, final long now) {
+		checkNotNull(repository, "repository cannot be null");
+		checkNotNull(destination, "destination cannot be null");
+		final Optional<String> parent = destination.getParent();
+		if (!isEnabled() || !parent.isPresent()) {
+			return new RetentionResult(Collections.<String>emptyList(), 0, 0);
+		}
+		final String current = destination.asString() + BucketPath.PATH_DELIM;
+		final List<String> versions = new ArrayList<String>();
+		for (final String version : repository.listDirectories(parent.get() + BucketPath.PATH_DELIM)) {
+			if (!version.equals(current)) {
+				versions.add(version);
+			}
+		}
+		if (versions.isEmpty()) {
+			return new RetentionResult(Collections.<String>emptyList(), 0, 0);
+		}
+
+		final ExecutorService executor = Executors.newFixedThreadPool(Math.min(concurrency, versions.size()),
+				new ThreadFactoryBuilder().setNameFormat("aws-p2-retention-%d").setDaemon(true).build());
+		try {
+			final List<String> expired = findExpired(repository, versions, now, executor);
+			final AtomicLong objects = new AtomicLong();
+			final AtomicLong bytes = new AtomicLong();
+			final List<Future<?>> deletions = new ArrayList<Future<?>>();
+			for (final String version : expired) {
+				final Future<?> deletion = executor.submit(new Runnable() {
+					@Override
+					public void run() {
+						delete(repository, version, objects, bytes);
+					}
+				});
+				if (listingShardDepth > 0) {
+					// Each version is already listed concurrently, so the versions are deleted one after another
+					Futures.getUnchecked(deletion);
+				}
+				deletions.add(deletion);
+			}
+			for (final Future<?> deletion : deletions) {
+				Futures.getUnchecked(deletion);
+			}
+			return new RetentionResult(expired, objects.get(), bytes.get());
+		} finally {
+			executor.shutdownNow();
+		}
+	}
+
+	/**
+	 * Determines the time at which each version was last deployed, and returns the versions which have expired.
+	 */
+	private List<String> findExpired(final S3BucketRepository repository, final List<String> versions,
+	                                 final long now, final ExecutorService executor) {
+		final Map<String, Future<Long>> futures = new LinkedHashMap<String, Future<Long>>();
+		for (final String version : versions) {
+			futures.put(version, executor.submit(new Callable<Long>() {
+				@Override
+				public Long call() {
+					// Only the first page of the listing is requested
+					final Iterator<S3ObjectSummary> iterator = repository.iterate(version).iterator();
+					return iterator.hasNext() ? iterator.next().getLastModified().getTime() : 0L;
+				}
+			}));
+		}
+		final Map<String, Long> lastModified = new LinkedHashMap<String, Long>();
+		for (final Map.Entry<String, Future<Long>> entry : futures.entrySet()) {
+			lastModified.put(entry.getKey(), Futures.getUnchecked(entry.getValue()));
+		}
+
+		final List<String> newestFirst = new ArrayList<String>(versions);
+		Collections.sort(newestFirst, new Comparator<String>() {
+			@Override
+			public int compare(final String a, final String b) {
+				return Long.compare(lastModified.get(b), lastModified.get(a));
+			}
+		});
+		final List<String> expired = new ArrayList<String>();
+		for (int i = 0; i < newestFirst.size(); i++) {
+			final String version = newestFirst.get(i);
+			// The deployed version occupies the first place
+			final boolean tooMany = keepCount > 0 && i + 1 >= keepCount;
+			final boolean tooOld = maxAgeMillis > 0 && lastModified.get(version) < now - maxAgeMillis;
+			if (tooMany || tooOld) {
+				expired.add(version);
+			}
+		}
+		return expired;
+	}
+
+	/**
+	 * Deletes every object of the given version, each batch of keys as soon as it has been listed.
+	 */
+	private void delete(final S3BucketRepository repository, final String version, final AtomicLong objects,
+	                    final AtomicLong bytes) {
+		LOGGER.debug(ResourceUtil.getString(getClass(), "debug.removingVersion"), version);
+		// The objects are deleted in whichever order they are listed, so the shards need not be sorted
+		final ShardedListing listing = listingShardDepth > 0
+				? new ShardedLister(repository, concurrency, listingShardDepth).list(version, false) : null;
+		List<String> keys = new ArrayList<String>();
+		try {
+			final Iterator<S3ObjectSummary> summaries = listing != null ? listing
+					: repository.iterate(version).iterator();
+			while (summaries.hasNext()) {
+				final S3ObjectSummary summary = summaries.next();
+				keys.add(summary.getKey());
+				bytes.addAndGet(summary.getSize());
+				if (keys.size() == DeleteObjectRequestFactory.MAX_KEYS_PER_REQUEST) {
+					repository.deleteObjects(keys);
+					objects.addAndGet(keys.size());
+					keys = new ArrayList<String>();
+				}
+			}
+		} finally {
+			if (listing != null) {
+				listing.close();
+			}
+		}
+		if (!keys.isEmpty()) {
+			repository.deleteObjects(keys);
+			objects.addAndGet(keys.size());
+		}
+	}
+
+}
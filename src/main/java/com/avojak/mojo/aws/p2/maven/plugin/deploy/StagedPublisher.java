@@ -0,0 +1,253 @@
+package com.avojak.mojo.aws.p2.maven.plugin.deploy;
+
+import com.avojak.mojo.aws.p2.maven.plugin.s3.model.BucketPath;
+import com.avojak.mojo.aws.p2.maven.plugin.s3.repository.S3BucketRepository;
+import com.avojak.mojo.aws.p2.maven.plugin.util.resource.ResourceUtil;
+import com.google.common.escape.Escaper;
+import com.google.common.xml.XmlEscapers;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.File;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.text.ParsePosition;
+import java.text.SimpleDateFormat;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Date;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.TimeZone;
+import java.util.UUID;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * Publishes a site which has been uploaded to a unique staging prefix, by pointing the consumer-facing location at it.
+ * <p>
+ * The pointer is a p2 composite repository whose only child is the staged site, along with a {@code p2.index} which
+ * directs p2 to the composite repository and nothing else, so that files left at the consumer-facing location by a
+ * previous flat deployment are ignored. Each of these is a single small object, so consumers switch from the previous
+ * site to the staged site as soon as they are written, and never see a partially uploaded site.
+ * <p>
+ * Consumers which resolved the previous site before the pointer was switched may still be fetching from it, so the
+ * previous site is always retained when a stage is published. Older sites are retained until the grace period has
+ * elapsed since the deployment which superseded them started.
+ */
+public class StagedPublisher {
+
+	/**
+	 * The name of the directory, within the consumer-facing location, which contains the staged sites.
+	 */
+	public static final String STAGING_DIR = "staging";
+
+	static final String COMPOSITE_ARTIFACTS = "compositeArtifacts.xml";
+	static final String COMPOSITE_CONTENT = "compositeContent.xml";
+	static final String P2_INDEX = "p2.index";
+
+	private static final int STAGE_TIMESTAMP_LENGTH = "yyyyMMdd-HHmmss".length();
+
+	private static final Logger LOGGER = LoggerFactory.getLogger(StagedPublisher.class);
+
+	private static final String COMPOSITE_TEMPLATE = "<?xml version='1.0' encoding='UTF-8'?>\n"
+			+ "<?%s version='1.0.0'?>\n"
+			+ "<repository name='%s' type='%s' version='1.0.0'>\n"
+			+ "  <properties size='2'>\n"
+			+ "    <property name='p2.timestamp' value='%d'/>\n"
+			+ "    <property name='p2.atomic.composite.loading' value='true'/>\n"
+			+ "  </properties>\n"
+			+ "  <children size='1'>\n"
+			+ "    <child location='%s'/>\n"
+			+ "  </children>\n"
+			+ "</repository>\n";
+	private static final String P2_INDEX_CONTENT = "version=1\n"
+			+ "metadata.repository.factory.order=" + COMPOSITE_CONTENT + ",\\!\n"
+			+ "artifact.repository.factory.order=" + COMPOSITE_ARTIFACTS + ",\\!\n";
+
+	private final String stageId;
+	private final long timestamp;
+
+	/**
+	 * Constructor for a new stage, identified by the given time and a random suffix so that concurrent deployments
+	 * never share a stage.
+	 *
+	 * @param timestamp The time at which the deployment started, in milliseconds since the epoch.
+	 */
+	public StagedPublisher(final long timestamp) {
+		this(formatStageId(timestamp, UUID.randomUUID()), timestamp);
+	}
+
+	/**
+	 * Constructor.
+	 * <p>
+	 * <em>Package-private scoped for testing purposes.</em>
+	 *
+	 * @param stageId   The identifier of the stage. Cannot be {@code null} or empty.
+	 * @param timestamp The time at which the deployment started, in milliseconds since the epoch.
+	 */
+	StagedPublisher(final String stageId, final long timestamp) {
+		this.stageId = checkNotNull(stageId, "stageId cannot be null");
+		checkArgument(!stageId.trim().isEmpty(), "stageId cannot be empty");
+		this.timestamp = timestamp;
+	}
+
+	/**
+	 * Gets the staging destination of the site which is published at the given destination.
+	 *
+	 * @param dest The consumer-facing destination {@link BucketPath} of the site. Cannot be {@code null}.
+	 *
+	 * @return The new, non-{@code null} staging {@link BucketPath}.
+	 */
+	public BucketPath getStagingDestination(final BucketPath dest) {
+		checkNotNull(dest, "dest cannot be null");
+		return new BucketPath(dest).append(STAGING_DIR).append(stageId);
+	}
+
+	/**
+	 * Gets the keys of the objects which {@link #publish(S3BucketRepository, BucketPath, String)} writes for the
+	 * given destination.
+	 *
+	 * @param dest The consumer-facing destination {@link BucketPath} of the site. Cannot be {@code null}.
+	 *
+	 * @return The non-{@code null} {@link Set} of keys.
+	 */
+	public Set<String> getPointerKeys(final BucketPath dest) {
+		checkNotNull(dest, "dest cannot be null");
+		final Set<String> keys = new LinkedHashSet<String>();
+		for (final String name : Arrays.asList(COMPOSITE_ARTIFACTS, COMPOSITE_CONTENT, P2_INDEX)) {
+			keys.add(new BucketPath(dest).append(name).asString());
+		}
+		return keys;
+	}
+
+	/**
+	 * Points the given destination at the staged site. The artifact repository is switched before the metadata
+	 * repository, so that consumers never see metadata whose artifacts are not yet reachable.
+	 *
+	 * @param repository The {@link S3BucketRepository} of the bucket. Cannot be {@code null}.
+	 * @param dest       The consumer-facing destination {@link BucketPath} of the site. Cannot be {@code null}.
+	 * @param name       The name of the composite repository. Cannot be {@code null} or empty.
+	 */
+	public void publish(final S3BucketRepository repository, final BucketPath dest, final String name) {
+		checkNotNull(repository, "repository cannot be null");
+		checkNotNull(dest, "dest cannot be null");
+		checkNotNull(name, "name cannot be null");
+		checkArgument(!name.trim().isEmpty(), "name cannot be empty");
+		final Escaper escaper = XmlEscapers.xmlAttributeEscaper();
+		final String child = escaper.escape(STAGING_DIR + BucketPath.PATH_DELIM + stageId);
+		upload(repository, dest, COMPOSITE_ARTIFACTS, String.format(COMPOSITE_TEMPLATE,
+				"compositeArtifactRepository", escaper.escape(name),
+				"org.eclipse.equinox.internal.p2.artifact.repository.CompositeArtifactRepository", timestamp, child));
+		upload(repository, dest, COMPOSITE_CONTENT, String.format(COMPOSITE_TEMPLATE,
+				"compositeMetadataRepository", escaper.escape(name),
+				"org.eclipse.equinox.internal.p2.metadata.repository.CompositeMetadataRepository", timestamp, child));
+		upload(repository, dest, P2_INDEX, P2_INDEX_CONTENT);
+		LOGGER.debug(ResourceUtil.getString(getClass(), "debug.publishedStage"), dest.asString(), stageId);
+	}
+
+	/**
+	 * Gets the keys, among the given existing keys behind the destination, of the previous sites which must be retained
+	 * once this stage has been published. The previous site is the most recent other stage or, if there is none, the
+	 * objects of a flat deployment outside of the staging directory. Any older site is retained while the deployment
+	 * which superseded it started within the grace period.
+	 *
+	 * @param dest              The consumer-facing destination {@link BucketPath} of the site. Cannot be {@code null}.
+	 * @param existingKeys      The {@link Collection} of the keys of the existing objects behind the destination.
+	 *                          Cannot be {@code null}.
+	 * @param now               The current time, in milliseconds since the epoch.
+	 * @param gracePeriodMillis The grace period in milliseconds. Cannot be negative.
+	 *
+	 * @return The non-{@code null}, possibly empty {@link Set} of keys to retain.
+	 */
+	public Set<String> getRetainedKeys(final BucketPath dest, final Collection<String> existingKeys, final long now,
+	                                   final long gracePeriodMillis) {
+		checkNotNull(dest, "dest cannot be null");
+		checkNotNull(existingKeys, "existingKeys cannot be null");
+		checkArgument(gracePeriodMillis >= 0, "gracePeriodMillis cannot be negative");
+		final String stagingPrefix = new BucketPath(dest).append(STAGING_DIR).asString() + BucketPath.PATH_DELIM;
+		final List<String> flatKeys = new ArrayList<String>();
+		// The identifiers of the stages sort in the order in which the stages were created
+		final SortedMap<String, List<String>> stages = new TreeMap<String, List<String>>();
+		for (final String key : existingKeys) {
+			if (!key.startsWith(stagingPrefix)) {
+				flatKeys.add(key);
+				continue;
+			}
+			final String relativeKey = key.substring(stagingPrefix.length());
+			final int index = relativeKey.indexOf(BucketPath.PATH_DELIM);
+			final String id = index < 0 ? relativeKey : relativeKey.substring(0, index);
+			if (id.equals(stageId)) {
+				continue;
+			}
+			List<String> keys = stages.get(id);
+			if (keys == null) {
+				keys = new ArrayList<String>();
+				stages.put(id, keys);
+			}
+			keys.add(key);
+		}
+		final List<List<String>> sites = new ArrayList<List<String>>();
+		final List<String> ids = new ArrayList<String>(stages.keySet());
+		// A flat deployment precedes every stage
+		final int offset = flatKeys.isEmpty() ? 0 : 1;
+		if (!flatKeys.isEmpty()) {
+			sites.add(flatKeys);
+		}
+		sites.addAll(stages.values());
+		final Set<String> retainedKeys = new LinkedHashSet<String>();
+		for (int i = 0; i < sites.size(); i++) {
+			if (i == sites.size() - 1) {
+				// The previous site, which was superseded by this stage
+				retainedKeys.addAll(sites.get(i));
+				continue;
+			}
+			final long supersededTime = parseStageTimestamp(ids.get(i + 1 - offset));
+			// A site whose successor cannot be dated is retained
+			if (supersededTime < 0 || now - supersededTime < gracePeriodMillis) {
+				retainedKeys.addAll(sites.get(i));
+			}
+		}
+		if (!retainedKeys.isEmpty()) {
+			LOGGER.debug(ResourceUtil.getString(getClass(), "debug.retainedPreviousSites"), retainedKeys.size(),
+					dest.asString());
+		}
+		return retainedKeys;
+	}
+
+	private void upload(final S3BucketRepository repository, final BucketPath dest, final String filename,
+	                    final String content) {
+		repository.uploadFile(new File(filename), ByteBuffer.wrap(content.getBytes(StandardCharsets.UTF_8)),
+				new BucketPath(dest).append(filename));
+	}
+
+	/**
+	 * Formats the identifier of a stage, which sorts in the order in which the stages were created.
+	 */
+	static String formatStageId(final long timestamp, final UUID uuid) {
+		final SimpleDateFormat format = new SimpleDateFormat("yyyyMMdd-HHmmss");
+		format.setTimeZone(TimeZone.getTimeZone("UTC"));
+		return format.format(new Date(timestamp)) + "-" + uuid.toString().substring(0, 8);
+	}
+
+	/**
+	 * Parses the time at which a stage was created from its identifier.
+	 *
+	 * @return The time in milliseconds since the epoch, or {@code -1} if the identifier was not formatted by {@link
+	 * #formatStageId(long, UUID)}.
+	 */
+	static long parseStageTimestamp(final String stageId) {
+		final SimpleDateFormat format = new SimpleDateFormat("yyyyMMdd-HHmmss");
+		format.setTimeZone(TimeZone.getTimeZone("UTC"));
+		format.setLenient(false);
+		final ParsePosition position = new ParsePosition(0);
+		final Date date = format.parse(stageId, position);
+		return date == null || position.getIndex() != STAGE_TIMESTAMP_LENGTH ? -1 : date.getTime();
+	}
+
+}
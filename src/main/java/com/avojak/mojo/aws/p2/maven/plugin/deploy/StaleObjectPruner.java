@@ -0,0 +1,157 @@
+package com.avojak.mojo.aws.p2.maven.plugin.deploy;
+
+import com.amazonaws.services.s3.model.S3ObjectSummary;
+import com.avojak.mojo.aws.p2.maven.plugin.s3.model.BucketPath;
+import com.avojak.mojo.aws.p2.maven.plugin.s3.repository.S3BucketRepository;
+import com.avojak.mojo.aws.p2.maven.plugin.util.resource.ResourceUtil;
+import com.google.common.util.concurrent.Futures;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * Deletes the objects left at the destination of a site by previous deployments, once the new deployment has completed.
+ * <p>
+ * The existing objects are listed in the background as soon as the pruner is created, so the listing overlaps with the
+ * uploads rather than preceding them. When the existing objects are already known, they are not listed at all. Nothing
+ * is deleted until {@link #prune(Set)} is called, so the previous site remains available until the new site has been
+ * uploaded over it.
+ */
+public class StaleObjectPruner {
+
+	private static final Logger LOGGER = LoggerFactory.getLogger(StaleObjectPruner.class);
+
+	private final Future<S3BucketRepository> repository;
+	private final String prefix;
+	private final Future<List<String>> existingKeys;
+
+	/**
+	 * Constructor. Starts listing the existing objects at the destination.
+	 *
+	 * @param repository The {@link Future} {@link S3BucketRepository} for the bucket. Cannot be {@code null}.
+	 * @param dest       The destination {@link BucketPath} of the site within the bucket. Cannot be {@code null}.
+	 * @param executor   The {@link ExecutorService} on which to list the existing objects. Cannot be {@code null}.
+	 */
+	public StaleObjectPruner(final Future<S3BucketRepository> repository, final BucketPath dest,
+	                         final ExecutorService executor) {
+		this.repository = checkNotNull(repository, "repository cannot be null");
+		checkNotNull(dest, "dest cannot be null");
+		checkNotNull(executor, "executor cannot be null");
+		// The trailing delimiter keeps sites whose names share a prefix, such as 1.0 and 1.0.1, apart
+		prefix = dest.asString() + BucketPath.PATH_DELIM;
+		existingKeys = executor.submit(new Callable<List<String>>() {
+			@Override
+			public List<String> call() throws Exception {
+				final List<String> keys = new ArrayList<String>();
+				for (final S3ObjectSummary summary : StaleObjectPruner.this.repository.get().iterate(prefix)) {
+					keys.add(summary.getKey());
+				}
+				return keys;
+			}
+		});
+	}
+
+	/**
+	 * Constructor. Takes the keys of the existing objects at the destination from a state which is already known, such
+	 * as a complete {@link com.avojak.mojo.aws.p2.maven.plugin.s3.state.RemoteState}, so nothing is listed.
+	 *
+	 * @param repository   The {@link Future} {@link S3BucketRepository} for the bucket. Cannot be {@code null}.
+	 * @param dest         The destination {@link BucketPath} of the site within the bucket. Cannot be {@code null}.
+	 * @param existingKeys The {@link Collection} of the keys of every existing object at the destination. Cannot be
+	 *                     {@code null}.
+	 */
+	public StaleObjectPruner(final Future<S3BucketRepository> repository, final BucketPath dest,
+	                         final Collection<String> existingKeys) {
+		this.repository = checkNotNull(repository, "repository cannot be null");
+		checkNotNull(dest, "dest cannot be null");
+		checkNotNull(existingKeys, "existingKeys cannot be null");
+		prefix = dest.asString() + BucketPath.PATH_DELIM;
+		this.existingKeys = Futures.<List<String>>immediateFuture(new ArrayList<String>(existingKeys));
+	}
+
+	/**
+	 * Gets the keys of the existing objects at the destination. Blocks until the listing has completed.
+	 *
+	 * @return The non-{@code null}, possibly empty {@link List} of keys.
+	 *
+	 * @throws com.google.common.util.concurrent.UncheckedExecutionException if the existing objects could not be
+	 *                                                                         listed.
+	 */
+	public List<String> getExistingKeys() {
+		return Futures.getUnchecked(existingKeys);
+	}
+
+	/**
+	 * Deletes every existing object at the destination whose key is not among the given keys. Blocks until the listing
+	 * of the existing objects has completed.
+	 *
+	 * @param keep The {@link Set} of keys of the objects to keep, which should include every object of the new
+	 *             deployment. Cannot be {@code null}.
+	 *
+	 * @return The non-{@code null}, possibly empty {@link List} of the keys of the objects deleted.
+	 *
+	 * @throws com.google.common.util.concurrent.UncheckedExecutionException if the existing objects could not be
+	 *                                                                         listed.
+	 */
+	public List<String> prune(final Set<String> keep) {
+		checkNotNull(keep, "keep cannot be null");
+		final List<String> staleKeys = new ArrayList<String>();
+		for (final String key : Futures.getUnchecked(existingKeys)) {
+			if (!keep.contains(key)) {
+				staleKeys.add(key);
+			}
+		}
+		if (!staleKeys.isEmpty()) {
+			LOGGER.debug(ResourceUtil.getString(getClass(), "debug.deletingStaleObjects"), staleKeys.size(), prefix);
+			Futures.getUnchecked(repository).deleteObjects(staleKeys);
+		}
+		return staleKeys;
+	}
+
+	/**
+	 * Gets the keys to which the contents of the given directory are uploaded, in the same way as {@link
+	 * S3BucketRepository#uploadDirectory(File, BucketPath)}.
+	 *
+	 * @param srcDir The source directory {@link File}. Cannot be {@code null}.
+	 * @param dest   The destination {@link BucketPath} location within the bucket. Cannot be {@code null}.
+	 *
+	 * @return The non-{@code null}, possibly empty {@link Set} of keys.
+	 */
+	public static Set<String> inventory(final File srcDir, final BucketPath dest) {
+		checkNotNull(srcDir, "srcDir cannot be null");
+		checkNotNull(dest, "dest cannot be null");
+		final Set<String> keys = new LinkedHashSet<String>();
+		inventory(srcDir, dest, keys);
+		return keys;
+	}
+
+	/**
+	 * Recursive helper method for taking the inventory of a directory.
+	 */
+	private static void inventory(final File srcDir, final BucketPath dest, final Set<String> keys) {
+		final File[] directoryContents = srcDir.listFiles();
+		if (directoryContents == null) {
+			return;
+		}
+		for (final File file : directoryContents) {
+			final BucketPath nextDest = new BucketPath(dest).append(file.getName());
+			if (file.isFile()) {
+				keys.add(nextDest.asString());
+			} else if (file.isDirectory()) {
+				inventory(file, nextDest, keys);
+			}
+		}
+	}
+
+}
@@ -0,0 +1,67 @@
+package com.avojak.mojo.aws.p2.maven.plugin.deploy;
+
+import java.util.Collections;
+import java.util.List;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * The outcome of a verification by a {@link SiteVerifier}.
+ */
+public class VerificationResult {
+
+	private final int objectsVerified;
+	private final List<String> missing;
+	private final List<String> mismatched;
+
+	/**
+	 * Constructor.
+	 *
+	 * @param objectsVerified The number of objects which were verified.
+	 * @param missing         The keys of the objects which do not exist. Cannot be {@code null}.
+	 * @param mismatched      The keys of the objects whose size or entity tag does not match the local file. Cannot
+	 *                        be {@code null}.
+	 */
+	public VerificationResult(final int objectsVerified, final List<String> missing, final List<String> mismatched) {
+		this.objectsVerified = objectsVerified;
+		this.missing = Collections.unmodifiableList(checkNotNull(missing, "missing cannot be null"));
+		this.mismatched = Collections.unmodifiableList(checkNotNull(mismatched, "mismatched cannot be null"));
+	}
+
+	/**
+	 * Gets the number of objects which were verified.
+	 *
+	 * @return The number of objects verified.
+	 */
+	public int getObjectsVerified() {
+		return objectsVerified;
+	}
+
+	/**
+	 * Gets the keys of the objects which do not exist.
+	 *
+	 * @return The non-{@code null}, possibly empty, unmodifiable {@link List} of keys.
+	 */
+	public List<String> getMissing() {
+		return missing;
+	}
+
+	/**
+	 * Gets the keys of the objects whose size or entity tag does not match the local file.
+	 *
+	 * @return The non-{@code null}, possibly empty, unmodifiable {@link List} of keys.
+	 */
+	public List<String> getMismatched() {
+		return mismatched;
+	}
+
+	/**
+	 * Gets whether or not every object matched its local file.
+	 *
+	 * @return {@code true} if no object is missing or mismatched, otherwise {@code false}.
+	 */
+	public boolean isVerified() {
+		return missing.isEmpty() && mismatched.isEmpty();
+	}
+
+}
@@ -0,0 +1,161 @@
+package com.avojak.mojo.aws.p2.maven.plugin.deploy;
+
+import com.amazonaws.services.s3.model.DeleteObjectsRequest.KeyVersion;
+import com.amazonaws.services.s3.model.S3VersionSummary;
+import com.avojak.mojo.aws.p2.maven.plugin.s3.model.BucketPath;
+import com.avojak.mojo.aws.p2.maven.plugin.s3.repository.S3BucketRepository;
+import com.avojak.mojo.aws.p2.maven.plugin.s3.request.factory.delete.DeleteObjectRequestFactory;
+import com.avojak.mojo.aws.p2.maven.plugin.util.resource.ResourceUtil;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * Permanently deletes the noncurrent versions and delete markers left behind a destination in a bucket with versioning
+ * enabled, leaving only the current version of each object.
+ * <p>
+ * The versions are streamed from a paged listing and deleted in batches of up to 1000 as soon as each batch is full,
+ * with a bounded number of batches in flight, so memory use does not grow with the number of versions. A delete marker
+ * which is the current version of its key hides the versions beneath it, and deleting it first would briefly restore
+ * the object. The noncurrent versions are therefore deleted in a first pass, and the remaining delete markers, which
+ * no longer hide anything, in a second pass.
+ */
+public class VersionPurger {
+
+	private static final Logger LOGGER = LoggerFactory.getLogger(VersionPurger.class);
+
+	private final int concurrency;
+
+	/**
+	 * Constructor.
+	 *
+	 * @param concurrency The maximum number of batches deleted concurrently. Must be positive.
+	 */
+	public VersionPurger(final int concurrency) {
+		checkArgument(concurrency > 0, "concurrency must be positive");
+		this.concurrency = concurrency;
+	}
+
+	/**
+	 * Deletes every noncurrent version and delete marker behind the given destination.
+	 *
+	 * @param repository  The {@link S3BucketRepository} of the bucket. Cannot be {@code null}.
+	 * @param destination The destination {@link BucketPath} of the site. Cannot be {@code null}.
+	 *
+	 * @return The non-{@code null} {@link PurgeResult}.
+	 *
+	 * @throws InterruptedException if interrupted while waiting for the deletes to complete.
+	 */
+	public PurgeResult purge(final S3BucketRepository repository, final BucketPath destination)
+			throws InterruptedException {
+		checkNotNull(repository, "repository cannot be null");
+		checkNotNull(destination, "destination cannot be null");
+		// The trailing delimiter keeps sites whose names share a prefix, such as 1.0 and 1.0.1, apart
+		final String prefix = destination.asString() + BucketPath.PATH_DELIM;
+		final ExecutorService executor = Executors.newFixedThreadPool(concurrency,
+				new ThreadFactoryBuilder().setNameFormat("aws-p2-purge-%d").setDaemon(true).build());
+		try {
+			final Pass noncurrent = new Pass(repository, executor);
+			for (final S3VersionSummary summary : repository.iterateVersions(prefix)) {
+				if (!summary.isLatest()) {
+					noncurrent.add(summary);
+				}
+			}
+			noncurrent.await();
+			final Pass markers = new Pass(repository, executor);
+			for (final S3VersionSummary summary : repository.iterateVersions(prefix)) {
+				if (summary.isLatest() && summary.isDeleteMarker()) {
+					markers.add(summary);
+				}
+			}
+			markers.await();
+			return new PurgeResult(noncurrent.versions + markers.versions, noncurrent.deleteMarkers
+					+ markers.deleteMarkers, noncurrent.bytes);
+		} finally {
+			executor.shutdownNow();
+		}
+	}
+
+	/**
+	 * A single pass over the listing, which deletes each batch of versions on the executor as soon as it is full.
+	 */
+	private class Pass {
+
+		private final S3BucketRepository repository;
+		private final ExecutorService executor;
+		private final Semaphore permits = new Semaphore(concurrency);
+		private final AtomicReference<RuntimeException> failure = new AtomicReference<RuntimeException>();
+
+		private List<KeyVersion> batch = new ArrayList<KeyVersion>();
+		private long versions;
+		private long deleteMarkers;
+		private long bytes;
+
+		Pass(final S3BucketRepository repository, final ExecutorService executor) {
+			this.repository = repository;
+			this.executor = executor;
+		}
+
+		void add(final S3VersionSummary summary) throws InterruptedException {
+			batch.add(new KeyVersion(summary.getKey(), summary.getVersionId()));
+			if (summary.isDeleteMarker()) {
+				deleteMarkers++;
+			} else {
+				versions++;
+				bytes += summary.getSize();
+			}
+			if (batch.size() == DeleteObjectRequestFactory.MAX_KEYS_PER_REQUEST) {
+				submit();
+			}
+		}
+
+		void await() throws InterruptedException {
+			if (!batch.isEmpty()) {
+				submit();
+			}
+			// Every permit is returned once the last batch has been deleted
+			permits.acquire(concurrency);
+			permits.release(concurrency);
+			if (failure.get() != null) {
+				throw failure.get();
+			}
+		}
+
+		private void submit() throws InterruptedException {
+			final List<KeyVersion> toDelete = batch;
+			batch = new ArrayList<KeyVersion>();
+			// Blocks the listing while the maximum number of batches is in flight
+			permits.acquire();
+			if (failure.get() != null) {
+				permits.release();
+				throw failure.get();
+			}
+			LOGGER.debug(ResourceUtil.getString(VersionPurger.class, "debug.deletingVersions"), toDelete.size(),
+					toDelete.get(0).getKey());
+			executor.execute(new Runnable() {
+				@Override
+				public void run() {
+					try {
+						repository.deleteVersions(toDelete);
+					} catch (final RuntimeException e) {
+						failure.compareAndSet(null, e);
+					} finally {
+						permits.release();
+					}
+				}
+			});
+		}
+
+	}
+
+}
@@ -0,0 +1,234 @@
+package com.avojak.mojo.aws.p2.maven.plugin.gc;
+
+import com.google.common.base.Optional;
+
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * Parses the p2 artifact repository metadata ({@code artifacts.xml}, or {@code artifacts.jar} which contains it) to
+ * find the paths of the files of every artifact, relative to the root of the repository.
+ * <p>
+ * The metadata is read with a streaming parser, so that only the mapping rules and the artifact being read are held in
+ * memory. The path of each artifact is given by the first mapping rule whose filter it matches, and artifacts whose
+ * rule maps them outside of the repository have no path. Filters are matched against the {@code classifier}, {@code
+ * id} and {@code version} of the artifact and its {@code format} property, and only filters which are a single {@code
+ * (name=value)} term or a conjunction ({@code &}) of such terms are understood, which covers the rules written by p2
+ * itself. Metadata with any other filter, or with an artifact which matches no rule, cannot be mapped with certainty,
+ * so no paths are returned for it at all.
+ */
+public class ArtifactMetadataParser {
+
+	/**
+	 * The name of the entry within {@code artifacts.jar} which contains the metadata.
+	 */
+	static final String METADATA_ENTRY = "artifacts.xml";
+
+	private static final Pattern FILTER_TERM = Pattern.compile("\\(\\s*([\\w.]+)\\s*=\\s*([^()*]*?)\\s*\\)");
+	private static final Pattern CONJUNCTION = Pattern.compile("\\(\\s*&(.*)\\)");
+	private static final Pattern VARIABLE = Pattern.compile("\\$\\{(\\w+)}");
+	private static final String REPO_URL = "${repoUrl}";
+
+	/**
+	 * Parses uncompressed metadata.
+	 *
+	 * @param inputStream The {@link InputStream} of the {@code artifacts.xml} content, which is not closed. Cannot be
+	 *                    {@code null}.
+	 *
+	 * @return The non-{@code null} {@link Optional} {@link Set} of paths, relative to the root of the repository, which
+	 * is absent if the mapping rules of the metadata are not understood or do not map every artifact.
+	 *
+	 * @throws IOException if the metadata could not be read or parsed.
+	 */
+	public Optional<Set<String>> parse(final InputStream inputStream) throws IOException {
+		checkNotNull(inputStream, "inputStream cannot be null");
+		final XMLInputFactory factory = XMLInputFactory.newInstance();
+		// The metadata never needs a DTD, and resolving one would reach out to the network
+		factory.setProperty(XMLInputFactory.SUPPORT_DTD, false);
+		factory.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, false);
+		try {
+			final XMLStreamReader reader = factory.createXMLStreamReader(inputStream);
+			try {
+				return parse(reader);
+			} finally {
+				reader.close();
+			}
+		} catch (final XMLStreamException e) {
+			throw new IOException("Unable to parse artifact repository metadata", e);
+		}
+	}
+
+	/**
+	 * Parses the metadata within a jar.
+	 *
+	 * @param jar The {@code artifacts.jar} {@link File}. Cannot be {@code null}.
+	 *
+	 * @return The non-{@code null} {@link Optional} {@link Set} of paths, relative to the root of the repository, which
+	 * is absent if the mapping rules of the metadata are not understood or do not map every artifact.
+	 *
+	 * @throws IOException if the jar does not contain the metadata, or it could not be read or parsed.
+	 */
+	public Optional<Set<String>> parseJar(final File jar) throws IOException {
+		checkNotNull(jar, "jar cannot be null");
+		try (final ZipFile zipFile = new ZipFile(jar)) {
+			final ZipEntry entry = zipFile.getEntry(METADATA_ENTRY);
+			if (entry == null) {
+				throw new IOException("Jar does not contain " + METADATA_ENTRY + ": " + jar);
+			}
+			try (final InputStream inputStream = zipFile.getInputStream(entry)) {
+				return parse(inputStream);
+			}
+		}
+	}
+
+	private Optional<Set<String>> parse(final XMLStreamReader reader) throws XMLStreamException {
+		final List<Rule> rules = new ArrayList<Rule>();
+		final Set<String> paths = new LinkedHashSet<String>();
+		Map<String, String> artifact = null;
+		while (reader.hasNext()) {
+			final int event = reader.next();
+			if (event == XMLStreamConstants.START_ELEMENT) {
+				final String name = reader.getLocalName();
+				if ("rule".equals(name)) {
+					final Optional<Map<String, String>> terms = parseFilter(reader.getAttributeValue(null, "filter"));
+					if (!terms.isPresent()) {
+						return Optional.absent();
+					}
+					rules.add(new Rule(terms.get(), reader.getAttributeValue(null, "output")));
+				} else if ("artifact".equals(name)) {
+					artifact = new HashMap<String, String>();
+					for (final String attribute : new String[]{"classifier", "id", "version"}) {
+						artifact.put(attribute, reader.getAttributeValue(null, attribute));
+					}
+				} else if ("property".equals(name) && artifact != null
+						&& "format".equals(reader.getAttributeValue(null, "name"))) {
+					artifact.put("format", reader.getAttributeValue(null, "value"));
+				}
+			} else if (event == XMLStreamConstants.END_ELEMENT && "artifact".equals(reader.getLocalName())) {
+				final Rule rule = getRule(rules, artifact);
+				if (rule == null) {
+					return Optional.absent();
+				}
+				if (rule.isInRepository()) {
+					paths.add(rule.apply(artifact));
+				}
+				artifact = null;
+			}
+		}
+		return Optional.<Set<String>>of(paths);
+	}
+
+	/**
+	 * Gets the first rule whose filter the given artifact matches, or {@code null} if it matches none.
+	 */
+	private static Rule getRule(final List<Rule> rules, final Map<String, String> artifact) {
+		for (final Rule rule : rules) {
+			if (rule.matches(artifact)) {
+				return rule;
+			}
+		}
+		return null;
+	}
+
+	/**
+	 * Parses the terms of the given filter, which is either a single term or a conjunction of terms. The terms are
+	 * absent if the filter takes any other form.
+	 */
+	private static Optional<Map<String, String>> parseFilter(final String filter) {
+		final Map<String, String> terms = new HashMap<String, String>();
+		if (filter == null) {
+			return Optional.of(terms);
+		}
+		final String trimmed = filter.trim();
+		final Matcher term = FILTER_TERM.matcher(trimmed);
+		if (term.matches()) {
+			terms.put(term.group(1), term.group(2));
+			return Optional.of(terms);
+		}
+		final Matcher conjunction = CONJUNCTION.matcher(trimmed);
+		if (!conjunction.matches()) {
+			return Optional.absent();
+		}
+		// Every character of the conjunction must belong to one of its terms
+		final String operands = conjunction.group(1).trim();
+		final Matcher operand = FILTER_TERM.matcher(operands);
+		int end = 0;
+		while (end < operands.length()) {
+			operand.region(end, operands.length());
+			if (!operand.lookingAt()) {
+				return Optional.absent();
+			}
+			terms.put(operand.group(1), operand.group(2));
+			end = operand.end();
+			while (end < operands.length() && Character.isWhitespace(operands.charAt(end))) {
+				end++;
+			}
+		}
+		return terms.isEmpty() ? Optional.<Map<String, String>>absent() : Optional.of(terms);
+	}
+
+	/**
+	 * A mapping rule, which gives the path of the artifacts which match its filter.
+	 */
+	private static class Rule {
+
+		private final Map<String, String> terms;
+		private final String output;
+
+		private Rule(final Map<String, String> terms, final String output) {
+			this.terms = terms;
+			this.output = output;
+		}
+
+		private boolean matches(final Map<String, String> artifact) {
+			for (final Map.Entry<String, String> term : terms.entrySet()) {
+				if (!term.getValue().equals(artifact.get(term.getKey()))) {
+					return false;
+				}
+			}
+			return true;
+		}
+
+		/**
+		 * Whether the artifacts which match this rule are stored within the repository. Artifacts stored outside of it
+		 * are never collected.
+		 */
+		private boolean isInRepository() {
+			return output != null && output.startsWith(REPO_URL);
+		}
+
+		private String apply(final Map<String, String> artifact) {
+			String path = output.substring(REPO_URL.length());
+			while (path.startsWith("/")) {
+				path = path.substring(1);
+			}
+			final Matcher matcher = VARIABLE.matcher(path);
+			final StringBuffer buffer = new StringBuffer();
+			while (matcher.find()) {
+				final String value = artifact.get(matcher.group(1));
+				matcher.appendReplacement(buffer, Matcher.quoteReplacement(value == null ? "" : value));
+			}
+			matcher.appendTail(buffer);
+			return buffer.toString();
+		}
+
+	}
+
+}
@@ -0,0 +1,65 @@
+package com.avojak.mojo.aws.p2.maven.plugin.gc;
+
+/**
+ * The outcome of a collection by an {@link OrphanCollector}.
+ */
+public class CollectionResult {
+
+	private final long metadataFiles;
+	private final long referencedArtifacts;
+	private final long orphanedObjects;
+	private final long orphanedBytes;
+
+	/**
+	 * Constructor.
+	 *
+	 * @param metadataFiles       The number of artifact repository metadata files which were read.
+	 * @param referencedArtifacts The number of artifact files referenced by the metadata.
+	 * @param orphanedObjects     The number of unreferenced objects which were found.
+	 * @param orphanedBytes       The total size of the unreferenced objects, in bytes.
+	 */
+	public CollectionResult(final long metadataFiles, final long referencedArtifacts, final long orphanedObjects,
+	                        final long orphanedBytes) {
+		this.metadataFiles = metadataFiles;
+		this.referencedArtifacts = referencedArtifacts;
+		this.orphanedObjects = orphanedObjects;
+		this.orphanedBytes = orphanedBytes;
+	}
+
+	/**
+	 * Gets the number of artifact repository metadata files which were read.
+	 *
+	 * @return The number of metadata files.
+	 */
+	public long getMetadataFiles() {
+		return metadataFiles;
+	}
+
+	/**
+	 * Gets the number of artifact files referenced by the metadata.
+	 *
+	 * @return The number of referenced artifacts.
+	 */
+	public long getReferencedArtifacts() {
+		return referencedArtifacts;
+	}
+
+	/**
+	 * Gets the number of unreferenced objects which were found, and deleted unless the collection was a dry run.
+	 *
+	 * @return The number of orphaned objects.
+	 */
+	public long getOrphanedObjects() {
+		return orphanedObjects;
+	}
+
+	/**
+	 * Gets the total size of the unreferenced objects.
+	 *
+	 * @return The number of orphaned bytes.
+	 */
+	public long getOrphanedBytes() {
+		return orphanedBytes;
+	}
+
+}
@@ -0,0 +1,358 @@
+package com.avojak.mojo.aws.p2.maven.plugin.gc;
+
+import com.amazonaws.services.s3.model.ObjectMetadata;
+import com.amazonaws.services.s3.model.S3ObjectSummary;
+import com.avojak.mojo.aws.p2.maven.plugin.s3.listing.ShardedLister;
+import com.avojak.mojo.aws.p2.maven.plugin.s3.listing.ShardedListing;
+import com.avojak.mojo.aws.p2.maven.plugin.s3.model.BucketPath;
+import com.avojak.mojo.aws.p2.maven.plugin.s3.repository.S3BucketRepository;
+import com.avojak.mojo.aws.p2.maven.plugin.s3.request.factory.delete.DeleteObjectRequestFactory;
+import com.avojak.mojo.aws.p2.maven.plugin.util.resource.ResourceUtil;
+import com.google.common.base.Optional;
+import com.google.common.hash.BloomFilter;
+import com.google.common.hash.Funnels;
+import com.google.common.util.concurrent.Futures;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * Deletes the artifact files within a prefix which are no longer referenced by the metadata of the p2 repository
+ * which contains them, such as those left behind by an interrupted deployment.
+ * <p>
+ * The objects which are considered are those directly within a {@code plugins}, {@code features} or {@code binary}
+ * directory, whose repository root is the parent of that directory. Objects modified within the grace period are
+ * never collected, so that a deployment which is still uploading its artifacts is not disturbed.
+ * <p>
+ * The prefix is listed twice, so that memory use does not grow with the number of objects. The first listing finds
+ * the metadata files and counts the candidate objects. The metadata files are then read concurrently, and the key of
+ * every artifact they reference is added to a Bloom filter sized for the candidates. The second listing tests each
+ * candidate against the filter. A negative answer is certain, but the filter may answer positively for a small share
+ * of unreferenced objects, so objects which it does not contain are verified exactly against the current metadata of
+ * their repository before they are deleted. The listing is in ascending order of the keys, so the objects of each
+ * repository are contiguous and its metadata is read again at most once. Any remaining false positives are kept,
+ * which is always safe. Orphans are deleted up to 1000 keys per request as they are found. When a listing shard depth
+ * is given, each listing is split into shards which are listed concurrently but returned in order, so that the objects
+ * of each repository remain contiguous.
+ * <p>
+ * A repository without an {@code artifacts.jar} or {@code artifacts.xml}, such as one which only publishes {@code
+ * artifacts.xml.xz} or whose metadata failed to upload, is skipped entirely, since nothing is known of what it
+ * references. So is a repository whose metadata cannot be mapped with certainty, such as one with a mapping rule whose
+ * filter is not a conjunction, or with an artifact which matches no rule (see {@link ArtifactMetadataParser}).
+ */
+public class OrphanCollector {
+
+	/**
+	 * The names of the artifact repository metadata files.
+	 */
+	static final List<String> METADATA_FILES = Collections.unmodifiableList(Arrays.asList("artifacts.jar",
+			"artifacts.xml"));
+
+	/**
+	 * The names of the directories which contain artifact files.
+	 */
+	static final Set<String> ARTIFACT_DIRECTORIES = Collections.unmodifiableSet(new HashSet<String>(
+			Arrays.asList("plugins", "features", "binary")));
+
+	/**
+	 * The false positive probability of the Bloom filter, which only affects how many objects are verified exactly.
+	 */
+	static final double FALSE_POSITIVE_PROBABILITY = 0.001;
+
+	/**
+	 * The minimum number of expected insertions of the Bloom filter.
+	 */
+	static final int MIN_EXPECTED_INSERTIONS = 1000;
+
+	private static final Logger LOGGER = LoggerFactory.getLogger(OrphanCollector.class);
+
+	private final ArtifactMetadataParser parser;
+	private final int concurrency;
+	private final int listingShardDepth;
+	private final long minAgeMillis;
+	private final boolean dryRun;
+
+	/**
+	 * Constructor.
+	 *
+	 * @param parser            The {@link ArtifactMetadataParser}. Cannot be {@code null}.
+	 * @param concurrency       The maximum number of metadata files read, or listing requests made, concurrently. Must
+	 *                          be positive.
+	 * @param listingShardDepth The number of directory levels behind the prefix by which each listing is split into
+	 *                          shards, or {@code 0} to list without sharding. Cannot be negative.
+	 * @param minAgeHours       The number of hours after its last modification before which an object is never
+	 *                          collected. Cannot be negative.
+	 * @param dryRun            Whether or not to only report the orphaned objects, without deleting them.
+	 */
+	public OrphanCollector(final ArtifactMetadataParser parser, final int concurrency, final int listingShardDepth,
+	                       final int minAgeHours, final boolean dryRun) {
+		this.parser = checkNotNull(parser, "parser cannot be null");
+		checkArgument(concurrency > 0, "concurrency must be positive");
+		checkArgument(listingShardDepth >= 0, "listingShardDepth cannot be negative");
+		checkArgument(minAgeHours >= 0, "minAgeHours cannot be negative");
+		this.concurrency = concurrency;
+		this.listingShardDepth = listingShardDepth;
+		this.minAgeMillis = TimeUnit.HOURS.toMillis(minAgeHours);
+		this.dryRun = dryRun;
+	}
+
+	/**
+	 * Collects the orphaned objects within the given prefix.
+	 *
+	 * @param repository The {@link S3BucketRepository} of the bucket. Cannot be {@code null}.
+	 * @param prefix     The key prefix. Cannot be {@code null} or empty.
+	 * @param now        The current time, in milliseconds since the epoch.
+	 *
+	 * @return The non-{@code null} {@link CollectionResult}.
+	 *
+	 * @throws com.google.common.util.concurrent.UncheckedExecutionException if a metadata file could not be read.
+	 */
+	public CollectionResult collect(final S3BucketRepository repository, final String prefix, final long now) {
+		checkNotNull(repository, "repository cannot be null");
+		checkNotNull(prefix, "prefix cannot be null");
+		checkArgument(!prefix.trim().isEmpty(), "prefix cannot be empty");
+
+		final List<S3ObjectSummary> metadataFiles = new ArrayList<S3ObjectSummary>();
+		long candidates = 0;
+		ShardedListing listing = list(repository, prefix);
+		try {
+			final Iterator<S3ObjectSummary> summaries = iterate(repository, prefix, listing);
+			while (summaries.hasNext()) {
+				final S3ObjectSummary summary = summaries.next();
+				if (isMetadataFile(summary.getKey())) {
+					metadataFiles.add(summary);
+				} else if (getRepositoryRoot(summary.getKey()) != null) {
+					candidates++;
+				}
+			}
+		} finally {
+			close(listing);
+		}
+		if (candidates == 0) {
+			return new CollectionResult(metadataFiles.size(), 0, 0, 0);
+		}
+
+		final BloomFilter<CharSequence> referenced = BloomFilter.create(Funnels.stringFunnel(StandardCharsets.UTF_8),
+				Math.max(candidates, MIN_EXPECTED_INSERTIONS), FALSE_POSITIVE_PROBABILITY);
+		final long referencedArtifacts = readReferences(repository, metadataFiles, referenced);
+
+		long orphanedObjects = 0;
+		long orphanedBytes = 0;
+		String verifiedRoot = null;
+		Optional<Set<String>> verifiedKeys = Optional.absent();
+		List<String> keys = new ArrayList<String>();
+		listing = list(repository, prefix);
+		try {
+			final Iterator<S3ObjectSummary> summaries = iterate(repository, prefix, listing);
+			while (summaries.hasNext()) {
+				final S3ObjectSummary summary = summaries.next();
+				final String key = summary.getKey();
+				final String root = getRepositoryRoot(key);
+				if (root == null || isMetadataFile(key) || isRecent(summary, now) || referenced.mightContain(key)) {
+					continue;
+				}
+				if (!root.equals(verifiedRoot)) {
+					verifiedRoot = root;
+					verifiedKeys = readReferences(repository, root);
+					if (!verifiedKeys.isPresent()) {
+						LOGGER.info(ResourceUtil.getString(getClass(), "info.repositorySkipped"), root);
+					}
+				}
+				if (!verifiedKeys.isPresent() || verifiedKeys.get().contains(key)) {
+					continue;
+				}
+				LOGGER.debug(ResourceUtil.getString(getClass(), "debug.orphanFound"), key);
+				orphanedObjects++;
+				orphanedBytes += summary.getSize();
+				keys.add(key);
+				if (keys.size() == DeleteObjectRequestFactory.MAX_KEYS_PER_REQUEST) {
+					delete(repository, keys);
+					keys = new ArrayList<String>();
+				}
+			}
+		} finally {
+			close(listing);
+		}
+		if (!keys.isEmpty()) {
+			delete(repository, keys);
+		}
+		return new CollectionResult(metadataFiles.size(), referencedArtifacts, orphanedObjects, orphanedBytes);
+	}
+
+	/**
+	 * Starts a sorted, sharded listing of the given prefix, or returns {@code null} if the prefix is not sharded.
+	 */
+	private ShardedListing list(final S3BucketRepository repository, final String prefix) {
+		return listingShardDepth > 0 ? new ShardedLister(repository, concurrency, listingShardDepth).list(prefix, true)
+				: null;
+	}
+
+	private static Iterator<S3ObjectSummary> iterate(final S3BucketRepository repository, final String prefix,
+	                                                 final ShardedListing listing) {
+		return listing != null ? listing : repository.iterate(prefix).iterator();
+	}
+
+	private static void close(final ShardedListing listing) {
+		if (listing != null) {
+			listing.close();
+		}
+	}
+
+	/**
+	 * Reads the given metadata files concurrently, adding the key of every artifact they reference to the given
+	 * filter, and returns the number of references.
+	 */
+	private long readReferences(final S3BucketRepository repository, final List<S3ObjectSummary> metadataFiles,
+	                            final BloomFilter<CharSequence> referenced) {
+		if (metadataFiles.isEmpty()) {
+			return 0;
+		}
+		final AtomicLong references = new AtomicLong();
+		final ExecutorService executor = Executors.newFixedThreadPool(Math.min(concurrency, metadataFiles.size()),
+				new ThreadFactoryBuilder().setNameFormat("aws-p2-gc-%d").setDaemon(true).build());
+		try {
+			final List<Future<Void>> futures = new ArrayList<Future<Void>>();
+			for (final S3ObjectSummary summary : metadataFiles) {
+				futures.add(executor.submit(new Callable<Void>() {
+					@Override
+					public Void call() throws IOException {
+						final String root = getParent(summary.getKey());
+						// Metadata which cannot be mapped references nothing, so its repository is skipped on checking
+						final Set<String> paths = read(repository, summary.getKey(), summary.getSize())
+								.or(Collections.<String>emptySet());
+						for (final String path : paths) {
+							// The filter is safe for concurrent use
+							referenced.put(root + path);
+							references.incrementAndGet();
+						}
+						return null;
+					}
+				}));
+			}
+			for (final Future<Void> future : futures) {
+				Futures.getUnchecked(future);
+			}
+			return references.get();
+		} finally {
+			executor.shutdownNow();
+		}
+	}
+
+	/**
+	 * Reads the current metadata of the repository with the given root, and returns the keys of every artifact it
+	 * references, or nothing if the repository has no metadata, or metadata which cannot be mapped with certainty.
+	 */
+	private Optional<Set<String>> readReferences(final S3BucketRepository repository, final String root) {
+		final Set<String> keys = new HashSet<String>();
+		boolean found = false;
+		for (final String name : METADATA_FILES) {
+			final Optional<ObjectMetadata> metadata = repository.getMetadata(root + name);
+			if (!metadata.isPresent()) {
+				continue;
+			}
+			found = true;
+			try {
+				final Optional<Set<String>> paths = read(repository, root + name, metadata.get().getContentLength());
+				if (!paths.isPresent()) {
+					LOGGER.warn(ResourceUtil.getString(getClass(), "warn.metadataNotMapped"), root + name);
+					return Optional.absent();
+				}
+				for (final String path : paths.get()) {
+					keys.add(root + path);
+				}
+			} catch (final IOException e) {
+				throw new IllegalStateException("Unable to read artifact repository metadata: " + root + name, e);
+			}
+		}
+		return found ? Optional.of(keys) : Optional.<Set<String>>absent();
+	}
+
+	/**
+	 * Downloads and parses the metadata file with the given key, returning the paths of the artifacts it references
+	 * relative to the root of its repository, or nothing if they cannot be mapped with certainty.
+	 */
+	private Optional<Set<String>> read(final S3BucketRepository repository, final String key, final long size)
+			throws IOException {
+		final File file = File.createTempFile("aws-p2-gc", ".tmp");
+		try {
+			try (final FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.WRITE)) {
+				if (size > 0) {
+					repository.downloadRange(key, 0, size - 1, channel);
+				}
+			}
+			if (key.endsWith(".jar")) {
+				return parser.parseJar(file);
+			}
+			try (final InputStream inputStream = new FileInputStream(file)) {
+				return parser.parse(inputStream);
+			}
+		} finally {
+			if (!file.delete()) {
+				file.deleteOnExit();
+			}
+		}
+	}
+
+	private void delete(final S3BucketRepository repository, final List<String> keys) {
+		if (!dryRun) {
+			repository.deleteObjects(keys);
+		}
+	}
+
+	private boolean isRecent(final S3ObjectSummary summary, final long now) {
+		// An object without a modification time is treated as recent, which is always safe
+		return summary.getLastModified() == null || summary.getLastModified().getTime() > now - minAgeMillis;
+	}
+
+	private static boolean isMetadataFile(final String key) {
+		return METADATA_FILES.contains(key.substring(key.lastIndexOf(BucketPath.PATH_DELIM) + 1));
+	}
+
+	/**
+	 * Gets the prefix of the directory which contains the given key, ending with a delimiter.
+	 */
+	private static String getParent(final String key) {
+		return key.substring(0, key.lastIndexOf(BucketPath.PATH_DELIM) + 1);
+	}
+
+	/**
+	 * Gets the root of the repository which contains the given artifact file, ending with a delimiter, or {@code
+	 * null} if the key is not directly within an artifact directory.
+	 */
+	static String getRepositoryRoot(final String key) {
+		final int delimiter = key.lastIndexOf(BucketPath.PATH_DELIM);
+		if (delimiter < 0 || delimiter == key.length() - 1) {
+			return null;
+		}
+		final int previous = key.lastIndexOf(BucketPath.PATH_DELIM, delimiter - 1);
+		if (!ARTIFACT_DIRECTORIES.contains(key.substring(previous + 1, delimiter))) {
+			return null;
+		}
+		return key.substring(0, previous + 1);
+	}
+
+}
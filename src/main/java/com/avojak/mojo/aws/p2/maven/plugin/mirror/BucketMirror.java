@@ -0,0 +1,264 @@
+package com.avojak.mojo.aws.p2.maven.plugin.mirror;
+
+import com.amazonaws.services.s3.model.S3ObjectSummary;
+import com.avojak.mojo.aws.p2.maven.plugin.s3.listing.ShardedLister;
+import com.avojak.mojo.aws.p2.maven.plugin.s3.listing.ShardedListing;
+import com.avojak.mojo.aws.p2.maven.plugin.s3.model.BucketPath;
+import com.avojak.mojo.aws.p2.maven.plugin.s3.repository.S3BucketRepository;
+import com.avojak.mojo.aws.p2.maven.plugin.util.checksum.ETagCalculator;
+import com.avojak.mojo.aws.p2.maven.plugin.util.resource.ResourceUtil;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Iterator;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * Mirrors the objects behind a prefix of an S3 bucket into a local directory. Instances should be created with {@link
+ * BucketMirrorFactory}.
+ * <p>
+ * Objects are laid out locally using their full key, so that several prefixes may be mirrored into the same directory.
+ * The listing is consumed lazily and downloads are scheduled as it advances, with the number of queued downloads
+ * bounded so that memory use does not depend on the number of objects. Objects larger than the part size are fetched
+ * with parallel ranged requests which write directly into a shared {@link FileChannel}. Content is written to a
+ * temporary file which replaces the local copy only once every range has completed.
+ * <p>
+ * Local files whose size and entity tag already match the remote object are not downloaded again.
+ * <p>
+ * When a shard depth is set, the listing itself is split into shards which are listed concurrently with a {@link
+ * ShardedLister}, for prefixes with too many objects to be listed one page after another.
+ */
+public class BucketMirror {
+
+	private static final Logger LOGGER = LoggerFactory.getLogger(BucketMirror.class);
+
+	private static final String PARTIAL_SUFFIX = ".part";
+
+	private final S3BucketRepository repository;
+	private final ETagCalculator eTagCalculator;
+	private final int concurrency;
+	private final long partSize;
+	private final int shardDepth;
+
+	/**
+	 * Constructor.
+	 *
+	 * @param repository     The {@link S3BucketRepository} to download from. Cannot be {@code null}.
+	 * @param eTagCalculator The {@link ETagCalculator}. Cannot be {@code null}.
+	 * @param concurrency    The maximum number of concurrent requests. Must be positive.
+	 * @param partSize       The size in bytes above which objects are split into ranged requests. Must be positive.
+	 * @param shardDepth     The number of directory levels by which the listing is sharded. A value of {@code 0}
+	 *                       lists the objects without sharding. Cannot be negative.
+	 */
+	BucketMirror(final S3BucketRepository repository, final ETagCalculator eTagCalculator, final int concurrency,
+	             final long partSize, final int shardDepth) {
+		this.repository = checkNotNull(repository, "repository cannot be null");
+		this.eTagCalculator = checkNotNull(eTagCalculator, "eTagCalculator cannot be null");
+		checkArgument(concurrency > 0, "concurrency must be positive");
+		checkArgument(partSize > 0, "partSize must be positive");
+		checkArgument(shardDepth >= 0, "shardDepth cannot be negative");
+		this.concurrency = concurrency;
+		this.partSize = partSize;
+		this.shardDepth = shardDepth;
+	}
+
+	/**
+	 * Mirrors all objects behind the given prefix into the given directory. This method blocks until every download
+	 * has either completed or failed.
+	 *
+	 * @param prefix    The key prefix. Cannot be {@code null} or empty.
+	 * @param directory The local directory to mirror into. Cannot be {@code null}.
+	 *
+	 * @return The non-{@code null} {@link MirrorStatistics} for the run.
+	 *
+	 * @throws InterruptedException if interrupted while waiting for downloads to complete.
+	 */
+	public MirrorStatistics mirror(final String prefix, final File directory) throws InterruptedException {
+		checkNotNull(prefix, "prefix cannot be null");
+		checkArgument(!prefix.trim().isEmpty(), "prefix cannot be empty");
+		checkNotNull(directory, "directory cannot be null");
+
+		final MirrorStatistics statistics = new MirrorStatistics();
+		final Path root = directory.toPath().toAbsolutePath().normalize();
+		final ShardedListing listing = shardDepth > 0
+				? new ShardedLister(repository, concurrency, shardDepth).list(prefix, false) : null;
+		final ExecutorService executor = Executors.newFixedThreadPool(concurrency,
+				new ThreadFactoryBuilder().setNameFormat("aws-p2-mirror-%d").setDaemon(true).build());
+		// Bound the number of queued ranges so that the listing is not consumed faster than it can be downloaded
+		final Semaphore permits = new Semaphore(concurrency * 2);
+		try {
+			final Iterator<S3ObjectSummary> summaries = listing != null ? listing : repository.iterate(prefix).iterator();
+			while (summaries.hasNext()) {
+				final S3ObjectSummary summary = summaries.next();
+				final String key = summary.getKey();
+				if (key.endsWith(String.valueOf(BucketPath.PATH_DELIM))) {
+					continue;
+				}
+				final Path path = root.resolve(key).normalize();
+				if (!path.startsWith(root)) {
+					LOGGER.warn(ResourceUtil.getString(getClass(), "warn.keyOutsideDirectory"), key);
+					statistics.recordFailed();
+					continue;
+				}
+				if (isUpToDate(path.toFile(), summary)) {
+					LOGGER.debug(ResourceUtil.getString(getClass(), "debug.skippingUpToDate"), key);
+					statistics.recordSkipped();
+					continue;
+				}
+				schedule(summary, path, executor, permits, statistics);
+			}
+		} finally {
+			if (listing != null) {
+				listing.close();
+			}
+			executor.shutdown();
+			try {
+				executor.awaitTermination(Long.MAX_VALUE, TimeUnit.NANOSECONDS);
+			} catch (final InterruptedException e) {
+				executor.shutdownNow();
+				throw e;
+			}
+		}
+		statistics.stop();
+		return statistics;
+	}
+
+	/**
+	 * Determines whether the local file already matches the remote object.
+	 */
+	private boolean isUpToDate(final File file, final S3ObjectSummary summary) {
+		if (!file.isFile() || file.length() != summary.getSize()) {
+			return false;
+		}
+		try {
+			return eTagCalculator.matches(file, summary.getETag());
+		} catch (final IOException e) {
+			return false;
+		}
+	}
+
+	/**
+	 * Schedules the ranged downloads for a single object.
+	 */
+	private void schedule(final S3ObjectSummary summary, final Path path, final ExecutorService executor,
+	                      final Semaphore permits, final MirrorStatistics statistics) throws InterruptedException {
+		final String key = summary.getKey();
+		final long size = summary.getSize();
+		final Path partial = path.resolveSibling(path.getFileName() + PARTIAL_SUFFIX);
+		final FileChannel channel;
+		try {
+			Files.createDirectories(path.getParent());
+			channel = FileChannel.open(partial, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+					StandardOpenOption.TRUNCATE_EXISTING);
+		} catch (final IOException e) {
+			LOGGER.warn(ResourceUtil.getString(getClass(), "warn.downloadFailed"), key, e);
+			statistics.recordFailed();
+			return;
+		}
+		final int parts = (int) Math.max(1, (size + partSize - 1) / partSize);
+		final PendingDownload download = new PendingDownload(key, path, partial, channel, parts, statistics);
+		if (size == 0) {
+			download.partCompleted();
+			return;
+		}
+		LOGGER.debug(ResourceUtil.getString(getClass(), "debug.schedulingDownload"), key, parts);
+		for (int i = 0; i < parts; i++) {
+			final long start = i * partSize;
+			final long end = Math.min(size, start + partSize) - 1;
+			permits.acquire();
+			executor.execute(new Runnable() {
+				@Override
+				public void run() {
+					try {
+						statistics.recordBytes(repository.downloadRange(key, start, end, channel));
+						if (parts > 1) {
+							statistics.recordRangedRequest();
+						}
+						download.partCompleted();
+					} catch (final IOException | RuntimeException e) {
+						download.partFailed(e);
+					} finally {
+						permits.release();
+					}
+				}
+			});
+		}
+	}
+
+	/**
+	 * Tracks the outstanding ranges of a single object, and finalizes the local file once the last range completes.
+	 */
+	private class PendingDownload {
+
+		private final String key;
+		private final Path path;
+		private final Path partial;
+		private final FileChannel channel;
+		private final MirrorStatistics statistics;
+		private final AtomicInteger remainingParts;
+
+		private volatile Exception failure;
+
+		PendingDownload(final String key, final Path path, final Path partial, final FileChannel channel,
+		                final int parts, final MirrorStatistics statistics) {
+			this.key = key;
+			this.path = path;
+			this.partial = partial;
+			this.channel = channel;
+			this.statistics = statistics;
+			this.remainingParts = new AtomicInteger(parts);
+		}
+
+		void partCompleted() {
+			if (remainingParts.decrementAndGet() == 0) {
+				finish();
+			}
+		}
+
+		void partFailed(final Exception e) {
+			failure = e;
+			partCompleted();
+		}
+
+		private void finish() {
+			try {
+				channel.close();
+				if (failure != null) {
+					throw failure;
+				}
+				try {
+					Files.move(partial, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+				} catch (final AtomicMoveNotSupportedException e) {
+					Files.move(partial, path, StandardCopyOption.REPLACE_EXISTING);
+				}
+				statistics.recordDownloaded();
+			} catch (final Exception e) {
+				LOGGER.warn(ResourceUtil.getString(BucketMirror.class, "warn.downloadFailed"), key, e);
+				statistics.recordFailed();
+				try {
+					Files.deleteIfExists(partial);
+				} catch (final IOException ignored) {
+					// The partial file will be truncated by the next run
+				}
+			}
+		}
+
+	}
+
+}
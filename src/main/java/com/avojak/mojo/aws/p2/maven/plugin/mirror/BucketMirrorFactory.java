@@ -0,0 +1,27 @@
+package com.avojak.mojo.aws.p2.maven.plugin.mirror;
+
+import com.avojak.mojo.aws.p2.maven.plugin.s3.repository.S3BucketRepository;
+import com.avojak.mojo.aws.p2.maven.plugin.util.checksum.ETagCalculator;
+
+/**
+ * Factory class to create instances of {@link BucketMirror}.
+ */
+public class BucketMirrorFactory {
+
+	/**
+	 * Creates and returns a new instance of {@link BucketMirror}.
+	 *
+	 * @param repository  The {@link S3BucketRepository} to download from. Cannot be {@code null}.
+	 * @param concurrency The maximum number of concurrent requests. Must be positive.
+	 * @param partSize    The size in bytes above which objects are split into ranged requests. Must be positive.
+	 * @param shardDepth  The number of directory levels by which the listing is sharded. A value of {@code 0} lists
+	 *                    the objects without sharding. Cannot be negative.
+	 *
+	 * @return The new, non-{@code null} {@link BucketMirror}.
+	 */
+	public BucketMirror create(final S3BucketRepository repository, final int concurrency, final long partSize,
+	                           final int shardDepth) {
+		return new BucketMirror(repository, new ETagCalculator(), concurrency, partSize, shardDepth);
+	}
+
+}
@@ -0,0 +1,117 @@
+package com.avojak.mojo.aws.p2.maven.plugin.mirror;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Collects statistics for a single run of a {@link BucketMirror}. Counters may be updated concurrently by the download
+ * threads.
+ */
+public class MirrorStatistics {
+
+	private final AtomicLong objectsDownloaded = new AtomicLong();
+	private final AtomicLong objectsSkipped = new AtomicLong();
+	private final AtomicLong objectsFailed = new AtomicLong();
+	private final AtomicLong bytesDownloaded = new AtomicLong();
+	private final AtomicLong rangedRequests = new AtomicLong();
+
+	private final long startNanos;
+	private volatile long endNanos = -1;
+
+	/**
+	 * Constructor. The elapsed time is measured from construction.
+	 */
+	MirrorStatistics() {
+		startNanos = System.nanoTime();
+	}
+
+	void recordDownloaded() {
+		objectsDownloaded.incrementAndGet();
+	}
+
+	void recordSkipped() {
+		objectsSkipped.incrementAndGet();
+	}
+
+	void recordFailed() {
+		objectsFailed.incrementAndGet();
+	}
+
+	void recordBytes(final long bytes) {
+		bytesDownloaded.addAndGet(bytes);
+	}
+
+	void recordRangedRequest() {
+		rangedRequests.incrementAndGet();
+	}
+
+	void stop() {
+		endNanos = System.nanoTime();
+	}
+
+	/**
+	 * Returns the number of objects which were downloaded.
+	 *
+	 * @return The number of downloaded objects.
+	 */
+	public long getObjectsDownloaded() {
+		return objectsDownloaded.get();
+	}
+
+	/**
+	 * Returns the number of objects which were skipped because the local copy was already up to date.
+	 *
+	 * @return The number of skipped objects.
+	 */
+	public long getObjectsSkipped() {
+		return objectsSkipped.get();
+	}
+
+	/**
+	 * Returns the number of objects which could not be downloaded.
+	 *
+	 * @return The number of failed objects.
+	 */
+	public long getObjectsFailed() {
+		return objectsFailed.get();
+	}
+
+	/**
+	 * Returns the total number of bytes written to disk.
+	 *
+	 * @return The number of downloaded bytes.
+	 */
+	public long getBytesDownloaded() {
+		return bytesDownloaded.get();
+	}
+
+	/**
+	 * Returns the number of ranged requests issued for objects which were split into multiple parts.
+	 *
+	 * @return The number of ranged requests.
+	 */
+	public long getRangedRequests() {
+		return rangedRequests.get();
+	}
+
+	/**
+	 * Returns the elapsed time of the run. If the run has not finished, the time elapsed so far is returned.
+	 *
+	 * @return The elapsed time in milliseconds.
+	 */
+	public long getElapsedMillis() {
+		final long end = endNanos == -1 ? System.nanoTime() : endNanos;
+		return TimeUnit.NANOSECONDS.toMillis(end - startNanos);
+	}
+
+	/**
+	 * Returns the average download throughput of the run.
+	 *
+	 * @return The throughput in bytes per second.
+	 */
+	public long getBytesPerSecond() {
+		final long elapsedMillis = Math.max(1, getElapsedMillis());
+		return getBytesDownloaded() * 1000 / elapsedMillis;
+	}
+
+}
@@ -0,0 +1,216 @@
+package com.avojak.mojo.aws.p2.maven.plugin.s3;
+
+import com.amazonaws.auth.AWSCredentialsProvider;
+import com.amazonaws.auth.DefaultAWSCredentialsProviderChain;
+import com.amazonaws.services.s3.AmazonS3;
+import com.google.common.base.Objects;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * Caches instances of {@link AmazonS3} by region, credentials provider and {@link ClientSettings}, so that the cost of
+ * building a client, resolving credentials and establishing connections is paid once rather than by every execution of
+ * the plugin.
+ * <p>
+ * Clients are created lazily, on first use. Maven loads the plugin classes once per build, and long-lived Maven
+ * processes such as the Maven Daemon (mvnd) retain them between builds, so the {@link #getGlobal() global} cache keeps
+ * its clients and their pooled connections warm across modules. Idle connections are closed by the SDK in the meantime,
+ * and the plugin {@link #shutdown() shuts down} the global cache once the Maven session ends, so that a long-lived
+ * process does not keep the connections of a finished build open.
+ * <p>
+ * Clients are keyed by the instance of their credentials provider rather than by the credentials it resolves, since a
+ * client asks its provider for credentials on every request. Credentials which rotate, such as those of a web identity
+ * or a container, therefore keep using the same client. The cache holds at most a bounded number of clients, and the
+ * least recently used client is evicted when another must be created, so that clients for settings which are no
+ * longer used do not accumulate in long-lived processes. An evicted client may still be in use by an execution, so it
+ * is not shut down: it keeps working until it is no longer referenced, and the SDK releases its connections once it is
+ * garbage collected.
+ */
+public class AmazonS3ClientCache {
+
+	/**
+	 * The default maximum number of cached clients.
+	 */
+	public static final int DEFAULT_MAX_CLIENTS = 16;
+
+	private final AmazonS3ClientFactory clientFactory;
+	private final AWSCredentialsProvider credentialsProvider;
+	private final int maxClients;
+	private final Map<ClientKey, AmazonS3> clients = new LinkedHashMap<ClientKey, AmazonS3>(16, 0.75f, true);
+
+	/**
+	 * Constructor.
+	 *
+	 * @param clientFactory       The {@link AmazonS3ClientFactory}. Cannot be {@code null}.
+	 * @param credentialsProvider The {@link AWSCredentialsProvider} used by clients for which no other credentials are
+	 *                            given. Cannot be {@code null}.
+	 */
+	public AmazonS3ClientCache(final AmazonS3ClientFactory clientFactory,
+	                           final AWSCredentialsProvider credentialsProvider) {
+		this(clientFactory, credentialsProvider, DEFAULT_MAX_CLIENTS);
+	}
+
+	/**
+	 * Constructor.
+	 *
+	 * @param clientFactory       The {@link AmazonS3ClientFactory}. Cannot be {@code null}.
+	 * @param credentialsProvider The {@link AWSCredentialsProvider} used by clients for which no other credentials are
+	 *                            given. Cannot be {@code null}.
+	 * @param maxClients          The maximum number of cached clients. Must be positive.
+	 */
+	public AmazonS3ClientCache(final AmazonS3ClientFactory clientFactory,
+	                           final AWSCredentialsProvider credentialsProvider, final int maxClients) {
+		this.clientFactory = checkNotNull(clientFactory, "clientFactory cannot be null");
+		this.credentialsProvider = checkNotNull(credentialsProvider, "credentialsProvider cannot be null");
+		checkArgument(maxClients > 0, "maxClients must be positive");
+		this.maxClients = maxClients;
+	}
+
+	/**
+	 * Gets the cache which is shared by every execution of the plugin for the lifetime of the plugin class loader.
+	 *
+	 * @return The non-{@code null} global {@link AmazonS3ClientCache}.
+	 */
+	public static AmazonS3ClientCache getGlobal() {
+		return GlobalHolder.GLOBAL;
+	}
+
+	/**
+	 * Gets the client for the default region, creating it if needed.
+	 *
+	 * @return The non-{@code null} {@link AmazonS3}.
+	 */
+	public AmazonS3 getClient() {
+		return getClient(AmazonS3ClientFactory.DEFAULT_REGION);
+	}
+
+	/**
+	 * Gets the client for the given region, creating it if needed.
+	 *
+	 * @param region The region. Cannot be {@code null} or empty.
+	 *
+	 * @return The non-{@code null} {@link AmazonS3}.
+	 */
+	public AmazonS3 getClient(final String region) {
+		return getClient(region, new ClientSettings());
+	}
+
+	/**
+	 * Gets the client for the given region and settings, creating it if needed. Clients with different settings are
+	 * cached separately.
+	 *
+	 * @param region   The region. Cannot be {@code null} or empty.
+	 * @param settings The {@link ClientSettings}. Cannot be {@code null}.
+	 *
+	 * @return The non-{@code null} {@link AmazonS3}.
+	 */
+	public AmazonS3 getClient(final String region, final ClientSettings settings) {
+		return getClient(region, settings, credentialsProvider);
+	}
+
+	/**
+	 * Gets the client for the given region and settings which authenticates with the given credentials, creating it
+	 * if needed.
+	 *
+	 * @param region              The region. Cannot be {@code null} or empty.
+	 * @param settings            The {@link ClientSettings}. Cannot be {@code null}.
+	 * @param credentialsProvider The {@link AWSCredentialsProvider}. Cannot be {@code null}.
+	 *
+	 * @return The non-{@code null} {@link AmazonS3}.
+	 */
+	public AmazonS3 getClient(final String region, final ClientSettings settings,
+	                          final AWSCredentialsProvider credentialsProvider) {
+		checkNotNull(region, "region cannot be null");
+		checkArgument(!region.trim().isEmpty(), "region cannot be empty");
+		checkNotNull(settings, "settings cannot be null");
+		checkNotNull(credentialsProvider, "credentialsProvider cannot be null");
+		final ClientKey key = new ClientKey(region, credentialsProvider, new ClientSettings(settings));
+		synchronized (clients) {
+			AmazonS3 client = clients.get(key);
+			if (client == null) {
+				client = clientFactory.create(region, credentialsProvider, key.settings);
+				clients.put(key, client);
+				// The map is in access order, so the first entries are the least recently used
+				final Iterator<AmazonS3> iterator = clients.values().iterator();
+				while (clients.size() > maxClients) {
+					iterator.next();
+					iterator.remove();
+				}
+			}
+			return client;
+		}
+	}
+
+	/**
+	 * Shuts down and evicts every cached client. Clients requested afterwards are created anew. Must only be called
+	 * once no execution uses a cached client, such as at the end of the Maven session.
+	 */
+	public void shutdown() {
+		final List<AmazonS3> evicted;
+		synchronized (clients) {
+			evicted = new ArrayList<AmazonS3>(clients.values());
+			clients.clear();
+		}
+		for (final AmazonS3 client : evicted) {
+			client.shutdown();
+		}
+	}
+
+	/**
+	 * Holds the global cache, which is created (and the credential provider chain loaded) on first use rather than
+	 * when this class is loaded.
+	 */
+	private static final class GlobalHolder {
+
+		private static final AmazonS3ClientCache GLOBAL = new AmazonS3ClientCache(new AmazonS3ClientFactory(),
+				DefaultAWSCredentialsProviderChain.getInstance());
+
+	}
+
+	/**
+	 * The key of a cached client.
+	 */
+	private static final class ClientKey {
+
+		private final String region;
+		private final AWSCredentialsProvider credentialsProvider;
+		private final ClientSettings settings;
+
+		private ClientKey(final String region, final AWSCredentialsProvider credentialsProvider,
+		                  final ClientSettings settings) {
+			this.region = region;
+			this.credentialsProvider = credentialsProvider;
+			this.settings = settings;
+		}
+
+		@Override
+		public boolean equals(final Object o) {
+			if (this == o) {
+				return true;
+			}
+			if (o == null || getClass() != o.getClass()) {
+				return false;
+			}
+
+			final ClientKey that = (ClientKey) o;
+
+			// Providers are compared by identity, as they may resolve different credentials over time
+			return Objects.equal(region, that.region) && credentialsProvider == that.credentialsProvider
+					&& Objects.equal(settings, that.settings);
+		}
+
+		@Override
+		public int hashCode() {
+			return Objects.hashCode(region, System.identityHashCode(credentialsProvider), settings);
+		}
+
+	}
+
+}
@@ -1,17 +1,24 @@
 package com.avojak.mojo.aws.p2.maven.plugin.s3;
 
+import com.amazonaws.auth.AWSCredentialsProvider;
 import com.amazonaws.auth.DefaultAWSCredentialsProviderChain;
 import com.amazonaws.services.s3.AmazonS3;
 import com.amazonaws.services.s3.AmazonS3ClientBuilder;
 
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+
 /**
  * Factory class to create instances of {@link AmazonS3}.
  */
 public class AmazonS3ClientFactory {
 
+	/**
+	 * The region of clients for buckets whose region is not specified.
+	 */
 	// Attempt to use an arbitrary default region for creating the client, even if it's incorrect.
 	// See: https://github.com/aws/aws-sdk-java/issues/1142#issuecomment-300308009
-	private static final String DEFAULT_REGION = "us-east-1";
+	public static final String DEFAULT_REGION = "us-east-1";
 
 	/**
 	 * Creates and returns a new instance of {@link AmazonS3}.
@@ -19,9 +26,52 @@ public class AmazonS3ClientFactory {
 	 * @return The new, non-{@code null} instance of {@link AmazonS3}.
 	 */
 	public AmazonS3 create() {
-		return AmazonS3ClientBuilder.standard().withRegion(DEFAULT_REGION)
+		return create(DEFAULT_REGION);
+	}
+
+	/**
+	 * Creates and returns a new instance of {@link AmazonS3} for the given region.
+	 *
+	 * @param region The region. Cannot be {@code null} or empty.
+	 *
+	 * @return The new, non-{@code null} instance of {@link AmazonS3}.
+	 */
+	public AmazonS3 create(final String region) {
+		return create(region, new DefaultAWSCredentialsProviderChain());
+	}
+
+	/**
+	 * Creates and returns a new instance of {@link AmazonS3} for the given region and credentials.
+	 *
+	 * @param region              The region. Cannot be {@code null} or empty.
+	 * @param credentialsProvider The {@link AWSCredentialsProvider}. Cannot be {@code null}.
+	 *
+	 * @return The new, non-{@code null} instance of {@link AmazonS3}.
+	 */
+	public AmazonS3 create(final String region, final AWSCredentialsProvider credentialsProvider) {
+		return create(region, credentialsProvider, new ClientSettings());
+	}
+
+	/**
+	 * Creates and returns a new instance of {@link AmazonS3} for the given region and credentials, tuned with the
+	 * given settings.
+	 *
+	 * @param region              The region. Cannot be {@code null} or empty.
+	 * @param credentialsProvider The {@link AWSCredentialsProvider}. Cannot be {@code null}.
+	 * @param settings            The {@link ClientSettings}. Cannot be {@code null}.
+	 *
+	 * @return The new, non-{@code null} instance of {@link AmazonS3}.
+	 */
+	public AmazonS3 create(final String region, final AWSCredentialsProvider credentialsProvider,
+	                       final ClientSettings settings) {
+		checkNotNull(region, "region cannot be null");
+		checkArgument(!region.trim().isEmpty(), "region cannot be empty");
+		checkNotNull(credentialsProvider, "credentialsProvider cannot be null");
+		checkNotNull(settings, "settings cannot be null");
+		return AmazonS3ClientBuilder.standard().withRegion(region)
 				.withForceGlobalBucketAccessEnabled(true)
-				.withCredentials(new DefaultAWSCredentialsProviderChain())
+				.withCredentials(credentialsProvider)
+				.withClientConfiguration(settings.toClientConfiguration())
 				.build();
 	}
 
@@ -0,0 +1,408 @@
+package com.avojak.mojo.aws.p2.maven.plugin.s3;
+
+import com.amazonaws.ClientConfiguration;
+import com.google.common.base.Objects;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+/**
+ * Tuning of the HTTP connection pool, sockets and retries of an S3 client. Instances are normally populated by Maven
+ * from the plugin configuration. Settings which are not specified fall back to the defaults of {@link
+ * ClientConfiguration}, unless {@link #resolve(int) resolved} against the expected request concurrency.
+ * <p>
+ * All durations are in milliseconds.
+ */
+public class ClientSettings {
+
+	/**
+	 * The default size of the connection pool, which is also the minimum size when scaling to the request
+	 * concurrency.
+	 */
+	public static final int DEFAULT_MAX_CONNECTIONS = ClientConfiguration.DEFAULT_MAX_CONNECTIONS;
+
+	private Integer maxConnections;
+	private Long connectionTtl;
+	private Long connectionMaxIdle;
+	private Boolean useReaper;
+	private Integer socketSendBufferSize;
+	private Integer socketReceiveBufferSize;
+	private Boolean tcpKeepAlive;
+	private Integer connectionTimeout;
+	private Integer socketTimeout;
+	private Integer requestTimeout;
+	private Integer maxErrorRetry;
+	private Boolean throttleRetries;
+	private Integer maxConsecutiveRetriesBeforeThrottling;
+
+	/**
+	 * Default constructor invoked by Maven when populating the plugin configuration.
+	 */
+	public ClientSettings() {
+	}
+
+	/**
+	 * Copy constructor.
+	 *
+	 * @param settings The {@link ClientSettings} to copy. Cannot be {@code null}.
+	 */
+	public ClientSettings(final ClientSettings settings) {
+		this.maxConnections = settings.maxConnections;
+		this.connectionTtl = settings.connectionTtl;
+		this.connectionMaxIdle = settings.connectionMaxIdle;
+		this.useReaper = settings.useReaper;
+		this.socketSendBufferSize = settings.socketSendBufferSize;
+		this.socketReceiveBufferSize = settings.socketReceiveBufferSize;
+		this.tcpKeepAlive = settings.tcpKeepAlive;
+		this.connectionTimeout = settings.connectionTimeout;
+		this.socketTimeout = settings.socketTimeout;
+		this.requestTimeout = settings.requestTimeout;
+		this.maxErrorRetry = settings.maxErrorRetry;
+		this.throttleRetries = settings.throttleRetries;
+		this.maxConsecutiveRetriesBeforeThrottling = settings.maxConsecutiveRetriesBeforeThrottling;
+	}
+
+	/**
+	 * Returns a copy of these settings in which the settings that scale with concurrency are given defaults suited to
+	 * the expected number of concurrent requests. Settings which were specified are left unchanged.
+	 * <p>
+	 * The connection pool is sized so that every concurrent request can hold a connection, the budget of retries
+	 * before throttling grows with the pool so that a burst of failures across many connections does not immediately
+	 * disable retries, and TCP keep-alive is enabled so that pooled connections survive the pauses between modules.
+	 *
+	 * @param concurrency The expected number of concurrent requests. Must be positive.
+	 *
+	 * @return The new, non-{@code null} {@link ClientSettings}.
+	 */
+	public ClientSettings resolve(final int concurrency) {
+		checkArgument(concurrency > 0, "concurrency must be positive");
+		final ClientSettings resolved = new ClientSettings(this);
+		if (resolved.maxConnections == null) {
+			resolved.maxConnections = Math.max(DEFAULT_MAX_CONNECTIONS, concurrency);
+		}
+		if (resolved.maxConsecutiveRetriesBeforeThrottling == null) {
+			resolved.maxConsecutiveRetriesBeforeThrottling =
+					Math.max(ClientConfiguration.DEFAULT_MAX_CONSECUTIVE_RETRIES_BEFORE_THROTTLING,
+							resolved.maxConnections);
+		}
+		if (resolved.tcpKeepAlive == null) {
+			resolved.tcpKeepAlive = true;
+		}
+		return resolved;
+	}
+
+	/**
+	 * Creates the {@link ClientConfiguration} for these settings.
+	 *
+	 * @return The new, non-{@code null} {@link ClientConfiguration}.
+	 */
+	public ClientConfiguration toClientConfiguration() {
+		final ClientConfiguration configuration = new ClientConfiguration();
+		if (maxConnections != null) {
+			configuration.setMaxConnections(maxConnections);
+		}
+		if (connectionTtl != null) {
+			configuration.setConnectionTTL(connectionTtl);
+		}
+		if (connectionMaxIdle != null) {
+			configuration.setConnectionMaxIdleMillis(connectionMaxIdle);
+		}
+		if (useReaper != null) {
+			configuration.setUseReaper(useReaper);
+		}
+		if (socketSendBufferSize != null || socketReceiveBufferSize != null) {
+			// The hints are only applied by the SDK when both are positive
+			configuration.setSocketBufferSizeHints(socketSendBufferSize == null ? 0 : socketSendBufferSize,
+					socketReceiveBufferSize == null ? 0 : socketReceiveBufferSize);
+		}
+		if (tcpKeepAlive != null) {
+			configuration.setUseTcpKeepAlive(tcpKeepAlive);
+		}
+		if (connectionTimeout != null) {
+			configuration.setConnectionTimeout(connectionTimeout);
+		}
+		if (socketTimeout != null) {
+			configuration.setSocketTimeout(socketTimeout);
+		}
+		if (requestTimeout != null) {
+			configuration.setRequestTimeout(requestTimeout);
+		}
+		if (maxErrorRetry != null) {
+			configuration.setMaxErrorRetry(maxErrorRetry);
+		}
+		if (throttleRetries != null) {
+			configuration.setUseThrottleRetries(throttleRetries);
+		}
+		if (maxConsecutiveRetriesBeforeThrottling != null) {
+			configuration.setMaxConsecutiveRetriesBeforeThrottling(maxConsecutiveRetriesBeforeThrottling);
+		}
+		return configuration;
+	}
+
+	/**
+	 * Gets the maximum number of open HTTP connections.
+	 *
+	 * @return The maximum number of connections, or {@code null} if not specified.
+	 */
+	public Integer getMaxConnections() {
+		return maxConnections;
+	}
+
+	/**
+	 * Sets the maximum number of open HTTP connections.
+	 *
+	 * @param maxConnections The maximum number of connections. May be {@code null}.
+	 */
+	public void setMaxConnections(final Integer maxConnections) {
+		this.maxConnections = maxConnections;
+	}
+
+	/**
+	 * Gets the time to live of a pooled connection, after which it is closed rather than reused.
+	 *
+	 * @return The time to live, or {@code null} if not specified.
+	 */
+	public Long getConnectionTtl() {
+		return connectionTtl;
+	}
+
+	/**
+	 * Sets the time to live of a pooled connection.
+	 *
+	 * @param connectionTtl The time to live. May be {@code null}.
+	 */
+	public void setConnectionTtl(final Long connectionTtl) {
+		this.connectionTtl = connectionTtl;
+	}
+
+	/**
+	 * Gets the time a connection may remain idle in the pool before it is reaped.
+	 *
+	 * @return The maximum idle time, or {@code null} if not specified.
+	 */
+	public Long getConnectionMaxIdle() {
+		return connectionMaxIdle;
+	}
+
+	/**
+	 * Sets the time a connection may remain idle in the pool before it is reaped.
+	 *
+	 * @param connectionMaxIdle The maximum idle time. May be {@code null}.
+	 */
+	public void setConnectionMaxIdle(final Long connectionMaxIdle) {
+		this.connectionMaxIdle = connectionMaxIdle;
+	}
+
+	/**
+	 * Gets whether or not idle connections are reaped in the background.
+	 *
+	 * @return Whether or not to reap idle connections, or {@code null} if not specified.
+	 */
+	public Boolean getUseReaper() {
+		return useReaper;
+	}
+
+	/**
+	 * Sets whether or not idle connections are reaped in the background.
+	 *
+	 * @param useReaper Whether or not to reap idle connections. May be {@code null}.
+	 */
+	public void setUseReaper(final Boolean useReaper) {
+		this.useReaper = useReaper;
+	}
+
+	/**
+	 * Gets the hint for the size of the socket send buffer, in bytes.
+	 *
+	 * @return The send buffer size hint, or {@code null} if not specified.
+	 */
+	public Integer getSocketSendBufferSize() {
+		return socketSendBufferSize;
+	}
+
+	/**
+	 * Sets the hint for the size of the socket send buffer, in bytes.
+	 *
+	 * @param socketSendBufferSize The send buffer size hint. May be {@code null}.
+	 */
+	public void setSocketSendBufferSize(final Integer socketSendBufferSize) {
+		this.socketSendBufferSize = socketSendBufferSize;
+	}
+
+	/**
+	 * Gets the hint for the size of the socket receive buffer, in bytes.
+	 *
+	 * @return The receive buffer size hint, or {@code null} if not specified.
+	 */
+	public Integer getSocketReceiveBufferSize() {
+		return socketReceiveBufferSize;
+	}
+
+	/**
+	 * Sets the hint for the size of the socket receive buffer, in bytes.
+	 *
+	 * @param socketReceiveBufferSize The receive buffer size hint. May be {@code null}.
+	 */
+	public void setSocketReceiveBufferSize(final Integer socketReceiveBufferSize) {
+		this.socketReceiveBufferSize = socketReceiveBufferSize;
+	}
+
+	/**
+	 * Gets whether or not TCP keep-alive is enabled.
+	 *
+	 * @return Whether or not to use TCP keep-alive, or {@code null} if not specified.
+	 */
+	public Boolean getTcpKeepAlive() {
+		return tcpKeepAlive;
+	}
+
+	/**
+	 * Sets whether or not TCP keep-alive is enabled.
+	 *
+	 * @param tcpKeepAlive Whether or not to use TCP keep-alive. May be {@code null}.
+	 */
+	public void setTcpKeepAlive(final Boolean tcpKeepAlive) {
+		this.tcpKeepAlive = tcpKeepAlive;
+	}
+
+	/**
+	 * Gets the timeout for establishing a connection.
+	 *
+	 * @return The connection timeout, or {@code null} if not specified.
+	 */
+	public Integer getConnectionTimeout() {
+		return connectionTimeout;
+	}
+
+	/**
+	 * Sets the timeout for establishing a connection.
+	 *
+	 * @param connectionTimeout The connection timeout. May be {@code null}.
+	 */
+	public void setConnectionTimeout(final Integer connectionTimeout) {
+		this.connectionTimeout = connectionTimeout;
+	}
+
+	/**
+	 * Gets the timeout for reading from an established connection.
+	 *
+	 * @return The socket timeout, or {@code null} if not specified.
+	 */
+	public Integer getSocketTimeout() {
+		return socketTimeout;
+	}
+
+	/**
+	 * Sets the timeout for reading from an established connection.
+	 *
+	 * @param socketTimeout The socket timeout. May be {@code null}.
+	 */
+	public void setSocketTimeout(final Integer socketTimeout) {
+		this.socketTimeout = socketTimeout;
+	}
+
+	/**
+	 * Gets the timeout for a single HTTP request to complete.
+	 *
+	 * @return The request timeout, or {@code null} if not specified.
+	 */
+	public Integer getRequestTimeout() {
+		return requestTimeout;
+	}
+
+	/**
+	 * Sets the timeout for a single HTTP request to complete.
+	 *
+	 * @param requestTimeout The request timeout. May be {@code null}.
+	 */
+	public void setRequestTimeout(final Integer requestTimeout) {
+		this.requestTimeout = requestTimeout;
+	}
+
+	/**
+	 * Gets the maximum number of times a failed request is retried.
+	 *
+	 * @return The maximum number of retries, or {@code null} if not specified.
+	 */
+	public Integer getMaxErrorRetry() {
+		return maxErrorRetry;
+	}
+
+	/**
+	 * Sets the maximum number of times a failed request is retried.
+	 *
+	 * @param maxErrorRetry The maximum number of retries. May be {@code null}.
+	 */
+	public void setMaxErrorRetry(final Integer maxErrorRetry) {
+		this.maxErrorRetry = maxErrorRetry;
+	}
+
+	/**
+	 * Gets whether or not retries are throttled once too many consecutive requests have failed.
+	 *
+	 * @return Whether or not to throttle retries, or {@code null} if not specified.
+	 */
+	public Boolean getThrottleRetries() {
+		return throttleRetries;
+	}
+
+	/**
+	 * Sets whether or not retries are throttled once too many consecutive requests have failed.
+	 *
+	 * @param throttleRetries Whether or not to throttle retries. May be {@code null}.
+	 */
+	public void setThrottleRetries(final Boolean throttleRetries) {
+		this.throttleRetries = throttleRetries;
+	}
+
+	/**
+	 * Gets the number of consecutive failed retries allowed before retries are throttled.
+	 *
+	 * @return The number of consecutive retries, or {@code null} if not specified.
+	 */
+	public Integer getMaxConsecutiveRetriesBeforeThrottling() {
+		return maxConsecutiveRetriesBeforeThrottling;
+	}
+
+	/**
+	 * Sets the number of consecutive failed retries allowed before retries are throttled.
+	 *
+	 * @param maxConsecutiveRetriesBeforeThrottling The number of consecutive retries. May be {@code null}.
+	 */
+	public void setMaxConsecutiveRetriesBeforeThrottling(final Integer maxConsecutiveRetriesBeforeThrottling) {
+		this.maxConsecutiveRetriesBeforeThrottling = maxConsecutiveRetriesBeforeThrottling;
+	}
+
+	@Override
+	public boolean equals(final Object o) {
+		if (this == o) {
+			return true;
+		}
+		if (o == null || getClass() != o.getClass()) {
+			return false;
+		}
+
+		final ClientSettings that = (ClientSettings) o;
+
+		return Objects.equal(maxConnections, that.maxConnections)
+				&& Objects.equal(connectionTtl, that.connectionTtl)
+				&& Objects.equal(connectionMaxIdle, that.connectionMaxIdle)
+				&& Objects.equal(useReaper, that.useReaper)
+				&& Objects.equal(socketSendBufferSize, that.socketSendBufferSize)
+				&& Objects.equal(socketReceiveBufferSize, that.socketReceiveBufferSize)
+				&& Objects.equal(tcpKeepAlive, that.tcpKeepAlive)
+				&& Objects.equal(connectionTimeout, that.connectionTimeout)
+				&& Objects.equal(socketTimeout, that.socketTimeout)
+				&& Objects.equal(requestTimeout, that.requestTimeout)
+				&& Objects.equal(maxErrorRetry, that.maxErrorRetry)
+				&& Objects.equal(throttleRetries, that.throttleRetries)
+				&& Objects.equal(maxConsecutiveRetriesBeforeThrottling, that.maxConsecutiveRetriesBeforeThrottling);
+	}
+
+	@Override
+	public int hashCode() {
+		return Objects.hashCode(maxConnections, connectionTtl, connectionMaxIdle, useReaper, socketSendBufferSize,
+				socketReceiveBufferSize, tcpKeepAlive, connectionTimeout, socketTimeout, requestTimeout, maxErrorRetry,
+				throttleRetries, maxConsecutiveRetriesBeforeThrottling);
+	}
+
+}
@@ -0,0 +1,112 @@
+package com.avojak.mojo.aws.p2.maven.plugin.s3.credentials;
+
+import com.amazonaws.auth.AWSCredentialsProvider;
+import com.amazonaws.auth.AWSStaticCredentialsProvider;
+import com.amazonaws.auth.BasicAWSCredentials;
+import com.amazonaws.auth.ContainerCredentialsProvider;
+import com.amazonaws.auth.DefaultAWSCredentialsProviderChain;
+import com.amazonaws.auth.EnvironmentVariableCredentialsProvider;
+import com.amazonaws.auth.WebIdentityTokenCredentialsProvider;
+import com.amazonaws.auth.profile.ProfileCredentialsProvider;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * Caches instances of {@link AWSCredentialsProvider} by {@link CredentialsSettings}.
+ * <p>
+ * An explicit {@link CredentialsSource} bypasses the default credential provider chain, which on hosts without an
+ * instance metadata service spends several seconds probing each source before it settles. Providers are cached for
+ * the lifetime of the plugin class loader, so the credentials they resolve (and refresh) are reused by every
+ * execution of the plugin rather than resolved anew by each.
+ */
+public class CredentialsProviderCache {
+
+	private final AWSCredentialsProvider defaultProvider;
+	private final Map<CredentialsSettings, AWSCredentialsProvider> providers =
+			new HashMap<CredentialsSettings, AWSCredentialsProvider>();
+
+	/**
+	 * Constructor.
+	 *
+	 * @param defaultProvider The {@link AWSCredentialsProvider} for the {@link CredentialsSource#DEFAULT} source.
+	 *                        Cannot be {@code null}.
+	 */
+	public CredentialsProviderCache(final AWSCredentialsProvider defaultProvider) {
+		this.defaultProvider = checkNotNull(defaultProvider, "defaultProvider cannot be null");
+	}
+
+	/**
+	 * Gets the cache which is shared by every execution of the plugin for the lifetime of the plugin class loader.
+	 *
+	 * @return The non-{@code null} global {@link CredentialsProviderCache}.
+	 */
+	public static CredentialsProviderCache getGlobal() {
+		return GlobalHolder.GLOBAL;
+	}
+
+	/**
+	 * Gets the provider for the given settings, creating it if needed.
+	 *
+	 * @param settings The {@link CredentialsSettings}. Cannot be {@code null}. The {@link CredentialsSource#STATIC}
+	 *                 source requires both an access key and a secret key.
+	 *
+	 * @return The non-{@code null} {@link AWSCredentialsProvider}.
+	 */
+	public AWSCredentialsProvider get(final CredentialsSettings settings) {
+		checkNotNull(settings, "settings cannot be null");
+		if (settings.getSource() == CredentialsSource.DEFAULT) {
+			return defaultProvider;
+		}
+		final CredentialsSettings key = new CredentialsSettings(settings);
+		synchronized (providers) {
+			AWSCredentialsProvider provider = providers.get(key);
+			if (provider == null) {
+				provider = create(key);
+				providers.put(key, provider);
+			}
+			return provider;
+		}
+	}
+
+	private AWSCredentialsProvider create(final CredentialsSettings settings) {
+		switch (settings.getSource()) {
+			case ENVIRONMENT:
+				return new EnvironmentVariableCredentialsProvider();
+			case PROFILE:
+				return isBlank(settings.getProfile())
+						? new ProfileCredentialsProvider()
+						: new ProfileCredentialsProvider(settings.getProfile());
+			case WEB_IDENTITY:
+				return WebIdentityTokenCredentialsProvider.create();
+			case CONTAINER:
+				return new ContainerCredentialsProvider();
+			case STATIC:
+				checkArgument(!isBlank(settings.getAccessKey()), "accessKey cannot be empty");
+				checkArgument(!isBlank(settings.getSecretKey()), "secretKey cannot be empty");
+				return new AWSStaticCredentialsProvider(
+						new BasicAWSCredentials(settings.getAccessKey(), settings.getSecretKey()));
+			default:
+				return defaultProvider;
+		}
+	}
+
+	private static boolean isBlank(final String value) {
+		return value == null || value.trim().isEmpty();
+	}
+
+	/**
+	 * Holds the global cache, which is created (and the credential provider chain loaded) on first use rather than
+	 * when this class is loaded.
+	 */
+	private static final class GlobalHolder {
+
+		private static final CredentialsProviderCache GLOBAL =
+				new CredentialsProviderCache(DefaultAWSCredentialsProviderChain.getInstance());
+
+	}
+
+}
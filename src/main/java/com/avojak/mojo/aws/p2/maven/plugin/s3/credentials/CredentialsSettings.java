@@ -0,0 +1,130 @@
+package com.avojak.mojo.aws.p2.maven.plugin.s3.credentials;
+
+import com.google.common.base.Objects;
+
+/**
+ * The source of the credentials of an S3 client. Instances are normally populated by Maven from the plugin
+ * configuration. When no source is specified, the {@link CredentialsSource#DEFAULT default} credential provider chain
+ * is used.
+ */
+public class CredentialsSettings {
+
+	private CredentialsSource source;
+	private String profile;
+	private String accessKey;
+	private String secretKey;
+
+	/**
+	 * Default constructor invoked by Maven when populating the plugin configuration.
+	 */
+	public CredentialsSettings() {
+	}
+
+	/**
+	 * Copy constructor.
+	 *
+	 * @param settings The {@link CredentialsSettings} to copy. Cannot be {@code null}.
+	 */
+	public CredentialsSettings(final CredentialsSettings settings) {
+		this.source = settings.source;
+		this.profile = settings.profile;
+		this.accessKey = settings.accessKey;
+		this.secretKey = settings.secretKey;
+	}
+
+	/**
+	 * Gets the source of the credentials.
+	 *
+	 * @return The non-{@code null} {@link CredentialsSource}, which is {@link CredentialsSource#DEFAULT} if not
+	 * specified.
+	 */
+	public CredentialsSource getSource() {
+		return source == null ? CredentialsSource.DEFAULT : source;
+	}
+
+	/**
+	 * Sets the source of the credentials.
+	 *
+	 * @param source The {@link CredentialsSource}, or {@code null} for the default.
+	 */
+	public void setSource(final CredentialsSource source) {
+		this.source = source;
+	}
+
+	/**
+	 * Gets the name of the profile used by the {@link CredentialsSource#PROFILE} source.
+	 *
+	 * @return The profile, or {@code null} for the default profile.
+	 */
+	public String getProfile() {
+		return profile;
+	}
+
+	/**
+	 * Sets the name of the profile used by the {@link CredentialsSource#PROFILE} source.
+	 *
+	 * @param profile The profile, or {@code null} for the default profile.
+	 */
+	public void setProfile(final String profile) {
+		this.profile = profile;
+	}
+
+	/**
+	 * Gets the access key used by the {@link CredentialsSource#STATIC} source.
+	 *
+	 * @return The access key, or {@code null} if not specified.
+	 */
+	public String getAccessKey() {
+		return accessKey;
+	}
+
+	/**
+	 * Sets the access key used by the {@link CredentialsSource#STATIC} source.
+	 *
+	 * @param accessKey The access key.
+	 */
+	public void setAccessKey(final String accessKey) {
+		this.accessKey = accessKey;
+	}
+
+	/**
+	 * Gets the secret key used by the {@link CredentialsSource#STATIC} source.
+	 *
+	 * @return The secret key, or {@code null} if not specified.
+	 */
+	public String getSecretKey() {
+		return secretKey;
+	}
+
+	/**
+	 * Sets the secret key used by the {@link CredentialsSource#STATIC} source.
+	 *
+	 * @param secretKey The secret key.
+	 */
+	public void setSecretKey(final String secretKey) {
+		this.secretKey = secretKey;
+	}
+
+	@Override
+	public boolean equals(final Object o) {
+		if (this == o) {
+			return true;
+		}
+		if (o == null || getClass() != o.getClass()) {
+			return false;
+		}
+
+		final CredentialsSettings that = (CredentialsSettings) o;
+
+		return getSource() == that.getSource()
+				&& Objects.equal(profile, that.profile)
+				&& Objects.equal(accessKey, that.accessKey)
+				&& Objects.equal(secretKey, that.secretKey);
+	}
+
+	@Override
+	public int hashCode() {
+		return Objects.hashCode(getSource(), profile, accessKey, secretKey);
+	}
+
+}
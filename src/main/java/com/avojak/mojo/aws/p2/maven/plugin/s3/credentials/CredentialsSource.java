@@ -0,0 +1,40 @@
+package com.avojak.mojo.aws.p2.maven.plugin.s3.credentials;
+
+/**
+ * The source from which AWS credentials are resolved.
+ */
+public enum CredentialsSource {
+
+	/**
+	 * The default credential provider chain, which tries each of the other sources in turn, ending with the instance
+	 * metadata service.
+	 */
+	DEFAULT,
+
+	/**
+	 * The {@code AWS_ACCESS_KEY_ID} and {@code AWS_SECRET_ACCESS_KEY} environment variables.
+	 */
+	ENVIRONMENT,
+
+	/**
+	 * A profile of the shared credentials file.
+	 */
+	PROFILE,
+
+	/**
+	 * A web identity token, exchanged for credentials with STS. Requires {@code aws-java-sdk-sts} on the plugin
+	 * classpath.
+	 */
+	WEB_IDENTITY,
+
+	/**
+	 * The credentials endpoint of the container, as used by ECS and EKS.
+	 */
+	CONTAINER,
+
+	/**
+	 * An access key and secret key given in the plugin configuration.
+	 */
+	STATIC
+
+}
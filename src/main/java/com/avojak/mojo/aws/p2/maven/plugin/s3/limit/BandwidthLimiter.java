@@ -0,0 +1,205 @@
+package com.avojak.mojo.aws.p2.maven.plugin.s3.limit;
+
+import com.avojak.mojo.aws.p2.maven.plugin.util.resource.ResourceUtil;
+import com.google.common.base.Ticker;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.management.InstanceAlreadyExistsException;
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * Limits the rate at which bytes are uploaded, across every stream which shares the limiter. Streams {@link
+ * #acquire(int) acquire} each chunk of bytes as it is read, and are held back until the chunk fits within the rate.
+ * <p>
+ * The limiter is a token bucket which holds at most {@link #BURST_NANOS} worth of bytes, kept as the virtual time at
+ * which the bytes reserved so far will have been sent. Each acquisition advances that time by the time its bytes take
+ * at the configured rate, and waits until it is reached, so concurrent streams are paced in turn rather than each
+ * bursting a full second of bytes. Streams should read chunks of no more than {@link #getMaxChunkSize()} bytes.
+ * <p>
+ * As with the {@link InFlightRequestLimiter}, the {@link #getGlobal() global} limiter is shared by every module of the
+ * build. It may be {@link #registerMBean() registered} with the platform MBean server, so that the limit can be
+ * adjusted while a deployment is running.
+ */
+public class BandwidthLimiter implements BandwidthLimiterMBean {
+
+	/**
+	 * The name under which the global limiter is registered with the platform MBean server.
+	 */
+	public static final String OBJECT_NAME = "com.avojak.mojo.aws.p2:type=BandwidthLimiter";
+
+	/**
+	 * The default maximum number of bytes per second, which leaves the bandwidth unlimited.
+	 */
+	public static final long DEFAULT_BYTES_PER_SECOND = 0;
+
+	/**
+	 * The time worth of bytes which may be sent without waiting after the limiter has been idle, and the time worth of
+	 * bytes which streams should read at once.
+	 */
+	static final long BURST_NANOS = TimeUnit.MILLISECONDS.toNanos(10);
+
+	private static final Logger LOGGER = LoggerFactory.getLogger(BandwidthLimiter.class);
+
+	private static final BandwidthLimiter GLOBAL = new BandwidthLimiter(DEFAULT_BYTES_PER_SECOND);
+
+	private final Ticker ticker;
+	private final AtomicLong bytesTransferred = new AtomicLong();
+	private volatile long bytesPerSecond;
+	private long nextFreeNanos;
+	private long configuredBytesPerSecond = -1;
+	private boolean registered;
+
+	/**
+	 * Constructor.
+	 *
+	 * @param bytesPerSecond The maximum number of bytes per second, or {@code 0} for unlimited bandwidth. Cannot be
+	 *                       negative.
+	 */
+	public BandwidthLimiter(final long bytesPerSecond) {
+		this(bytesPerSecond, Ticker.systemTicker());
+	}
+
+	/**
+	 * Constructor.
+	 * <p>
+	 * <em>Package-private scoped for testing purposes.</em>
+	 *
+	 * @param bytesPerSecond The maximum number of bytes per second, or {@code 0} for unlimited bandwidth. Cannot be
+	 *                       negative.
+	 * @param ticker         The {@link Ticker} which measures time. Cannot be {@code null}.
+	 */
+	BandwidthLimiter(final long bytesPerSecond, final Ticker ticker) {
+		checkArgument(bytesPerSecond >= 0, "bytesPerSecond cannot be negative");
+		this.bytesPerSecond = bytesPerSecond;
+		this.ticker = checkNotNull(ticker, "ticker cannot be null");
+		this.nextFreeNanos = ticker.read();
+	}
+
+	/**
+	 * Gets the limiter which is shared by every execution of the plugin within the build. It is unlimited until an
+	 * execution sets its limit.
+	 *
+	 * @return The non-{@code null} global {@link BandwidthLimiter}.
+	 */
+	public static BandwidthLimiter getGlobal() {
+		return GLOBAL;
+	}
+
+	/**
+	 * Acquires the given number of bytes, waiting until they may be sent without exceeding the limit.
+	 *
+	 * @param bytes The number of bytes. Cannot be negative.
+	 *
+	 * @throws InterruptedException if interrupted while waiting.
+	 */
+	public void acquire(final int bytes) throws InterruptedException {
+		final long waitNanos = reserve(bytes);
+		if (waitNanos > 0) {
+			TimeUnit.NANOSECONDS.sleep(waitNanos);
+		}
+	}
+
+	/**
+	 * Reserves the given number of bytes, and returns the time to wait before they may be sent.
+	 */
+	long reserve(final int bytes) {
+		checkArgument(bytes >= 0, "bytes cannot be negative");
+		bytesTransferred.addAndGet(bytes);
+		final long rate = bytesPerSecond;
+		if (rate == 0) {
+			return 0;
+		}
+		final long costNanos = TimeUnit.SECONDS.toNanos(bytes) / rate;
+		synchronized (this) {
+			final long now = ticker.read();
+			// Time which has passed idle only accrues up to the burst allowance
+			nextFreeNanos = Math.max(nextFreeNanos, now - BURST_NANOS) + costNanos;
+			return nextFreeNanos - now;
+		}
+	}
+
+	/**
+	 * Gets the largest number of bytes which streams should read and acquire at once, so that they are paced evenly
+	 * rather than in bursts.
+	 *
+	 * @return The maximum chunk size, which is at least {@code 1}, or {@link Integer#MAX_VALUE} if the bandwidth is
+	 * unlimited.
+	 */
+	public int getMaxChunkSize() {
+		final long rate = bytesPerSecond;
+		if (rate == 0) {
+			return Integer.MAX_VALUE;
+		}
+		return (int) Math.min(Integer.MAX_VALUE, Math.max(1, rate * BURST_NANOS / TimeUnit.SECONDS.toNanos(1)));
+	}
+
+	@Override
+	public long getBytesPerSecond() {
+		return bytesPerSecond;
+	}
+
+	@Override
+	public synchronized void setBytesPerSecond(final long bytesPerSecond) {
+		checkArgument(bytesPerSecond >= 0, "bytesPerSecond cannot be negative");
+		if (this.bytesPerSecond == 0) {
+			// Bytes sent while unlimited are not owed
+			nextFreeNanos = ticker.read();
+		}
+		this.bytesPerSecond = bytesPerSecond;
+	}
+
+	/**
+	 * Applies the limit configured by an execution of the plugin. The limit is only changed when the configured value
+	 * differs from the one last applied, so an adjustment made through JMX lasts for the rest of the build unless a
+	 * module configures a different limit.
+	 *
+	 * @param bytesPerSecond The maximum number of bytes per second, or {@code 0} for unlimited bandwidth. Cannot be
+	 *                       negative.
+	 */
+	public synchronized void configure(final long bytesPerSecond) {
+		checkArgument(bytesPerSecond >= 0, "bytesPerSecond cannot be negative");
+		if (bytesPerSecond != configuredBytesPerSecond) {
+			configuredBytesPerSecond = bytesPerSecond;
+			setBytesPerSecond(bytesPerSecond);
+		}
+	}
+
+	@Override
+	public long getBytesTransferred() {
+		return bytesTransferred.get();
+	}
+
+	/**
+	 * Registers this limiter with the platform MBean server under {@link #OBJECT_NAME}, replacing any limiter which was
+	 * registered by an earlier build in the same JVM. Subsequent calls have no effect. A failure to register is logged
+	 * rather than thrown, as the limit still applies.
+	 */
+	public synchronized void registerMBean() {
+		if (registered) {
+			return;
+		}
+		registered = true;
+		final MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+		try {
+			final ObjectName name = new ObjectName(OBJECT_NAME);
+			try {
+				server.registerMBean(this, name);
+			} catch (final InstanceAlreadyExistsException e) {
+				server.unregisterMBean(name);
+				server.registerMBean(this, name);
+			}
+		} catch (final JMException e) {
+			LOGGER.warn(ResourceUtil.getString(getClass(), "warn.registrationFailed"), OBJECT_NAME, e);
+		}
+	}
+
+}
@@ -0,0 +1,31 @@
+package com.avojak.mojo.aws.p2.maven.plugin.s3.limit;
+
+/**
+ * Management interface of the {@link BandwidthLimiter}, through which the limit may be inspected and adjusted while a
+ * deployment is running, for example with JConsole.
+ */
+public interface BandwidthLimiterMBean {
+
+	/**
+	 * Gets the maximum number of bytes uploaded per second.
+	 *
+	 * @return The maximum number of bytes per second, or {@code 0} if the bandwidth is unlimited.
+	 */
+	long getBytesPerSecond();
+
+	/**
+	 * Sets the maximum number of bytes uploaded per second. The new limit applies to every stream from its next read.
+	 *
+	 * @param bytesPerSecond The maximum number of bytes per second, or {@code 0} to remove the limit. Cannot be
+	 *                       negative.
+	 */
+	void setBytesPerSecond(long bytesPerSecond);
+
+	/**
+	 * Gets the number of bytes which have passed through the limiter.
+	 *
+	 * @return The number of bytes.
+	 */
+	long getBytesTransferred();
+
+}
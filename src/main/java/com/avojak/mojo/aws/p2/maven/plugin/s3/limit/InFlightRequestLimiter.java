@@ -0,0 +1,105 @@
+package com.avojak.mojo.aws.p2.maven.plugin.s3.limit;
+
+import com.amazonaws.ClientConfiguration;
+
+import java.util.concurrent.Semaphore;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+/**
+ * Limits the number of S3 requests which may be in flight at once. Callers must {@link #acquire()} a permit before
+ * issuing a request, and {@link #release()} it once the response has been fully consumed.
+ * <p>
+ * Maven loads the plugin classes once per build, so the {@link #getGlobal() global} limiter is shared by every module
+ * of a parallel reactor build ({@code mvn -T}). This prevents modules which deploy at the same time from oversubscribing
+ * the connection pool of the S3 clients.
+ */
+public class InFlightRequestLimiter {
+
+	/**
+	 * The default maximum number of in-flight requests, which matches the default size of the connection pool.
+	 */
+	public static final int DEFAULT_MAX_IN_FLIGHT_REQUESTS = ClientConfiguration.DEFAULT_MAX_CONNECTIONS;
+
+	private static final InFlightRequestLimiter GLOBAL = new InFlightRequestLimiter(DEFAULT_MAX_IN_FLIGHT_REQUESTS);
+
+	private final ResizableSemaphore semaphore;
+	private int maxInFlightRequests;
+
+	/**
+	 * Constructor.
+	 *
+	 * @param maxInFlightRequests The maximum number of in-flight requests. Must be positive.
+	 */
+	public InFlightRequestLimiter(final int maxInFlightRequests) {
+		checkArgument(maxInFlightRequests > 0, "maxInFlightRequests must be positive");
+		this.maxInFlightRequests = maxInFlightRequests;
+		this.semaphore = new ResizableSemaphore(maxInFlightRequests);
+	}
+
+	/**
+	 * Gets the limiter which is shared by every execution of the plugin within the build.
+	 *
+	 * @return The non-{@code null} global {@link InFlightRequestLimiter}.
+	 */
+	public static InFlightRequestLimiter getGlobal() {
+		return GLOBAL;
+	}
+
+	/**
+	 * Acquires a permit, waiting until one is available.
+	 */
+	public void acquire() {
+		semaphore.acquireUninterruptibly();
+	}
+
+	/**
+	 * Releases a permit which was previously acquired.
+	 */
+	public void release() {
+		semaphore.release();
+	}
+
+	/**
+	 * Gets the maximum number of in-flight requests.
+	 *
+	 * @return The maximum number of in-flight requests.
+	 */
+	public synchronized int getMaxInFlightRequests() {
+		return maxInFlightRequests;
+	}
+
+	/**
+	 * Sets the maximum number of in-flight requests. Requests which are already in flight are unaffected, but when the
+	 * limit is lowered no further permits are granted until enough of them have completed.
+	 *
+	 * @param maxInFlightRequests The maximum number of in-flight requests. Must be positive.
+	 */
+	public synchronized void setMaxInFlightRequests(final int maxInFlightRequests) {
+		checkArgument(maxInFlightRequests > 0, "maxInFlightRequests must be positive");
+		final int delta = maxInFlightRequests - this.maxInFlightRequests;
+		if (delta > 0) {
+			semaphore.release(delta);
+		} else if (delta < 0) {
+			semaphore.reducePermits(-delta);
+		}
+		this.maxInFlightRequests = maxInFlightRequests;
+	}
+
+	/**
+	 * Extension of {@link Semaphore} which allows the number of permits to be reduced.
+	 */
+	private static class ResizableSemaphore extends Semaphore {
+
+		private ResizableSemaphore(final int permits) {
+			super(permits, true);
+		}
+
+		@Override
+		protected void reducePermits(final int reduction) {
+			super.reducePermits(reduction);
+		}
+
+	}
+
+}
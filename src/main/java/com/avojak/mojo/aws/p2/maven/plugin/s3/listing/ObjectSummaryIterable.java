@@ -0,0 +1,73 @@
+package com.avojak.mojo.aws.p2.maven.plugin.s3.listing;
+
+import com.amazonaws.services.s3.AmazonS3;
+import com.amazonaws.services.s3.model.ListObjectsRequest;
+import com.amazonaws.services.s3.model.ObjectListing;
+import com.amazonaws.services.s3.model.S3ObjectSummary;
+import com.avojak.mojo.aws.p2.maven.plugin.s3.limit.InFlightRequestLimiter;
+import com.google.common.collect.AbstractIterator;
+
+import java.util.Iterator;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * Lazily pages through the {@link S3ObjectSummary} objects matched by a {@link ListObjectsRequest}. The next page is
+ * only requested once every summary of the current page has been consumed, so at most a single page is held in memory
+ * regardless of the total number of objects.
+ * <p>
+ * Each call to {@link #iterator()} starts a new listing from the first page.
+ */
+public class ObjectSummaryIterable implements Iterable<S3ObjectSummary> {
+
+	private final AmazonS3 client;
+	private final ListObjectsRequest request;
+	private final InFlightRequestLimiter requestLimiter;
+
+	/**
+	 * Constructor.
+	 *
+	 * @param client         The {@link AmazonS3} client. Cannot be {@code null}.
+	 * @param request        The {@link ListObjectsRequest} for the first page. Cannot be {@code null}.
+	 * @param requestLimiter The {@link InFlightRequestLimiter} for page requests. Cannot be {@code null}.
+	 */
+	public ObjectSummaryIterable(final AmazonS3 client, final ListObjectsRequest request,
+	                             final InFlightRequestLimiter requestLimiter) {
+		this.client = checkNotNull(client, "client cannot be null");
+		this.request = checkNotNull(request, "request cannot be null");
+		this.requestLimiter = checkNotNull(requestLimiter, "requestLimiter cannot be null");
+	}
+
+	@Override
+	public Iterator<S3ObjectSummary> iterator() {
+		return new ObjectSummaryIterator();
+	}
+
+	/**
+	 * Iterator which requests the next page on demand.
+	 */
+	private class ObjectSummaryIterator extends AbstractIterator<S3ObjectSummary> {
+
+		private ObjectListing listing;
+		private Iterator<S3ObjectSummary> page;
+
+		@Override
+		protected S3ObjectSummary computeNext() {
+			while (page == null || !page.hasNext()) {
+				if (listing != null && !listing.isTruncated()) {
+					return endOfData();
+				}
+				requestLimiter.acquire();
+				try {
+					listing = listing == null ? client.listObjects(request) : client.listNextBatchOfObjects(listing);
+				} finally {
+					requestLimiter.release();
+				}
+				page = listing.getObjectSummaries().iterator();
+			}
+			return page.next();
+		}
+
+	}
+
+}
@@ -0,0 +1,109 @@
+package com.avojak.mojo.aws.p2.maven.plugin.s3.listing;
+
+import com.avojak.mojo.aws.p2.maven.plugin.s3.repository.S3BucketRepository;
+import com.avojak.mojo.aws.p2.maven.plugin.util.resource.ResourceUtil;
+import com.google.common.util.concurrent.Futures;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * Lists the objects behind a prefix as several shards which are listed concurrently, rather than one page after
+ * another.
+ * <p>
+ * The "directories" behind the prefix are first discovered with delimited listings, down to the given depth, for
+ * example the project, the snapshot or release directory and the version directory. Their prefixes split the key
+ * space into contiguous ranges, and each range is listed as a shard starting after its lower bound. Every key falls in
+ * exactly one range, including the keys of objects which are not within any directory, so the shards together list
+ * every object exactly once.
+ */
+public class ShardedLister {
+
+	private static final Logger LOGGER = LoggerFactory.getLogger(ShardedLister.class);
+
+	private final S3BucketRepository repository;
+	private final int concurrency;
+	private final int depth;
+
+	/**
+	 * Constructor.
+	 *
+	 * @param repository  The {@link S3BucketRepository} of the bucket. Cannot be {@code null}.
+	 * @param concurrency The maximum number of listing requests in flight at once. Must be positive.
+	 * @param depth       The number of directory levels to discover. Must be positive.
+	 */
+	public ShardedLister(final S3BucketRepository repository, final int concurrency, final int depth) {
+		this.repository = checkNotNull(repository, "repository cannot be null");
+		checkArgument(concurrency > 0, "concurrency must be positive");
+		checkArgument(depth > 0, "depth must be positive");
+		this.concurrency = concurrency;
+		this.depth = depth;
+	}
+
+	/**
+	 * Starts listing the objects behind the given prefix. The returned {@link ShardedListing} must be closed once it is
+	 * no longer needed.
+	 *
+	 * @param prefix The key prefix. Cannot be {@code null} or empty.
+	 * @param sorted Whether or not the objects are returned in ascending order of their keys. If {@code false}, the
+	 *               objects of each shard are returned as soon as they are listed.
+	 *
+	 * @return The new, non-{@code null} {@link ShardedListing}.
+	 */
+	public ShardedListing list(final String prefix, final boolean sorted) {
+		checkNotNull(prefix, "prefix cannot be null");
+		checkArgument(!prefix.trim().isEmpty(), "prefix cannot be empty");
+		final ExecutorService executor = Executors.newFixedThreadPool(concurrency,
+				new ThreadFactoryBuilder().setNameFormat("aws-p2-listing-%d").setDaemon(true).build());
+		try {
+			final List<String> boundaries = discoverBoundaries(prefix, executor);
+			LOGGER.debug(ResourceUtil.getString(getClass(), "debug.listingShards"), boundaries.size() + 1, prefix);
+			return new ShardedListing(repository, prefix, boundaries, executor, concurrency, sorted);
+		} catch (final RuntimeException e) {
+			executor.shutdownNow();
+			throw e;
+		}
+	}
+
+	/**
+	 * Discovers the prefixes of the directories behind the given prefix, in ascending order. Directories which contain
+	 * no subdirectories are kept as they are when the levels beneath them are discovered.
+	 */
+	private List<String> discoverBoundaries(final String prefix, final ExecutorService executor) {
+		List<String> level = Collections.singletonList(prefix);
+		for (int i = 0; i < depth && !level.isEmpty(); i++) {
+			final List<Future<List<String>>> futures = new ArrayList<Future<List<String>>>();
+			for (final String directory : level) {
+				futures.add(executor.submit(new Callable<List<String>>() {
+					@Override
+					public List<String> call() {
+						return repository.listDirectories(directory);
+					}
+				}));
+			}
+			final List<String> next = new ArrayList<String>();
+			for (int j = 0; j < level.size(); j++) {
+				final List<String> children = Futures.getUnchecked(futures.get(j));
+				if (!children.isEmpty()) {
+					next.addAll(children);
+				} else if (i > 0) {
+					next.add(level.get(j));
+				}
+			}
+			level = next;
+		}
+		return level;
+	}
+
+}
@@ -0,0 +1,151 @@
+package com.avojak.mojo.aws.p2.maven.plugin.s3.listing;
+
+import com.amazonaws.services.s3.model.S3ObjectSummary;
+import com.avojak.mojo.aws.p2.maven.plugin.s3.repository.S3BucketRepository;
+import com.google.common.collect.AbstractIterator;
+import com.google.common.util.concurrent.Uninterruptibles;
+
+import java.io.Closeable;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * The objects listed by a {@link ShardedLister}. Instances should be created with {@link ShardedLister}.
+ * <p>
+ * Each shard is listed on its own thread, and its objects are handed over a page at a time through a bounded queue,
+ * so a shard which is listed faster than it is consumed waits rather than holding more pages in memory. When sorted,
+ * each shard has its own queue and the queues are drained in the order of the shards, whose ranges are already in
+ * ascending order of their keys. Otherwise, every shard shares a single queue.
+ * <p>
+ * The failure of a shard is thrown by {@link #next()} or {@link #hasNext()}.
+ */
+public class ShardedListing extends AbstractIterator<S3ObjectSummary> implements Closeable {
+
+	private static final int PAGE_SIZE = 1000;
+	private static final int PAGES_PER_SHARD = 2;
+
+	// Marks the end of a shard in its queue
+	private static final List<S3ObjectSummary> END = Collections.unmodifiableList(new ArrayList<S3ObjectSummary>());
+
+	private final ExecutorService executor;
+	private final List<BlockingQueue<List<S3ObjectSummary>>> queues;
+	private final int shards;
+	private final AtomicReference<RuntimeException> failure = new AtomicReference<RuntimeException>();
+
+	private int endedShards;
+	private Iterator<S3ObjectSummary> page = Collections.<S3ObjectSummary>emptyList().iterator();
+
+	/**
+	 * Constructor. Starts listing every shard.
+	 */
+	ShardedListing(final S3BucketRepository repository, final String prefix, final List<String> boundaries,
+	               final ExecutorService executor, final int concurrency, final boolean sorted) {
+		this.executor = executor;
+		this.shards = boundaries.size() + 1;
+		queues = new ArrayList<BlockingQueue<List<S3ObjectSummary>>>(shards);
+		final BlockingQueue<List<S3ObjectSummary>> shared = sorted ? null
+				: new ArrayBlockingQueue<List<S3ObjectSummary>>(concurrency * PAGES_PER_SHARD);
+		for (int i = 0; i < shards; i++) {
+			queues.add(sorted ? new ArrayBlockingQueue<List<S3ObjectSummary>>(PAGES_PER_SHARD) : shared);
+		}
+		// Shards are submitted in order, so the shard being consumed is always listed before those after it
+		for (int i = 0; i < shards; i++) {
+			final String marker = i == 0 ? null : boundaries.get(i - 1);
+			final String end = i == boundaries.size() ? null : boundaries.get(i);
+			final BlockingQueue<List<S3ObjectSummary>> queue = queues.get(i);
+			executor.execute(new Runnable() {
+				@Override
+				public void run() {
+					listShard(repository, prefix, marker, end, queue);
+				}
+			});
+		}
+	}
+
+	/**
+	 * Lists the keys behind the prefix which sort after the marker, up to and including the end.
+	 */
+	private void listShard(final S3BucketRepository repository, final String prefix, final String marker,
+	                       final String end, final BlockingQueue<List<S3ObjectSummary>> queue) {
+		try {
+			try {
+				List<S3ObjectSummary> summaries = new ArrayList<S3ObjectSummary>(PAGE_SIZE);
+				for (final S3ObjectSummary summary : repository.iterateAfter(prefix, marker)) {
+					if (end != null && compareKeys(summary.getKey(), end) > 0) {
+						break;
+					}
+					summaries.add(summary);
+					if (summaries.size() == PAGE_SIZE) {
+						queue.put(summaries);
+						summaries = new ArrayList<S3ObjectSummary>(PAGE_SIZE);
+					}
+				}
+				if (!summaries.isEmpty()) {
+					queue.put(summaries);
+				}
+			} catch (final RuntimeException e) {
+				failure.compareAndSet(null, e);
+			}
+			queue.put(END);
+		} catch (final InterruptedException e) {
+			// The listing has been closed
+			Thread.currentThread().interrupt();
+		}
+	}
+
+	@Override
+	protected S3ObjectSummary computeNext() {
+		while (!page.hasNext()) {
+			if (endedShards == shards) {
+				close();
+				return endOfData();
+			}
+			// When sorted, the shards are drained in order, one queue after another
+			final List<S3ObjectSummary> summaries = Uninterruptibles.takeUninterruptibly(queues.get(endedShards));
+			if (failure.get() != null) {
+				close();
+				throw failure.get();
+			}
+			if (summaries == END) {
+				endedShards++;
+			} else {
+				page = summaries.iterator();
+			}
+		}
+		return page.next();
+	}
+
+	/**
+	 * Stops listing the shards which have not yet been listed.
+	 */
+	@Override
+	public void close() {
+		executor.shutdownNow();
+	}
+
+	/**
+	 * Compares keys in the order in which S3 lists them, which is the order of the code points of their UTF-8
+	 * encoding rather than of their UTF-16 characters.
+	 */
+	static int compareKeys(final String a, final String b) {
+		int i = 0;
+		int j = 0;
+		while (i < a.length() && j < b.length()) {
+			final int codePointA = a.codePointAt(i);
+			final int codePointB = b.codePointAt(j);
+			if (codePointA != codePointB) {
+				return codePointA < codePointB ? -1 : 1;
+			}
+			i += Character.charCount(codePointA);
+			j += Character.charCount(codePointB);
+		}
+		return (a.length() - i) - (b.length() - j);
+	}
+
+}
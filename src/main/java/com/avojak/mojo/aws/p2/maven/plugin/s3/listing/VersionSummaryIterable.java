@@ -0,0 +1,72 @@
+package com.avojak.mojo.aws.p2.maven.plugin.s3.listing;
+
+import com.amazonaws.services.s3.AmazonS3;
+import com.amazonaws.services.s3.model.ListVersionsRequest;
+import com.amazonaws.services.s3.model.S3VersionSummary;
+import com.amazonaws.services.s3.model.VersionListing;
+import com.avojak.mojo.aws.p2.maven.plugin.s3.limit.InFlightRequestLimiter;
+import com.google.common.collect.AbstractIterator;
+
+import java.util.Iterator;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * Lazily pages through the {@link S3VersionSummary} objects matched by a {@link ListVersionsRequest}, in the same way
+ * as {@link ObjectSummaryIterable}. At most a single page is held in memory regardless of the total number of versions.
+ * <p>
+ * Each call to {@link #iterator()} starts a new listing from the first page.
+ */
+public class VersionSummaryIterable implements Iterable<S3VersionSummary> {
+
+	private final AmazonS3 client;
+	private final ListVersionsRequest request;
+	private final InFlightRequestLimiter requestLimiter;
+
+	/**
+	 * Constructor.
+	 *
+	 * @param client         The {@link AmazonS3} client. Cannot be {@code null}.
+	 * @param request        The {@link ListVersionsRequest} for the first page. Cannot be {@code null}.
+	 * @param requestLimiter The {@link InFlightRequestLimiter} for page requests. Cannot be {@code null}.
+	 */
+	public VersionSummaryIterable(final AmazonS3 client, final ListVersionsRequest request,
+	                              final InFlightRequestLimiter requestLimiter) {
+		this.client = checkNotNull(client, "client cannot be null");
+		this.request = checkNotNull(request, "request cannot be null");
+		this.requestLimiter = checkNotNull(requestLimiter, "requestLimiter cannot be null");
+	}
+
+	@Override
+	public Iterator<S3VersionSummary> iterator() {
+		return new VersionSummaryIterator();
+	}
+
+	/**
+	 * Iterator which requests the next page on demand.
+	 */
+	private class VersionSummaryIterator extends AbstractIterator<S3VersionSummary> {
+
+		private VersionListing listing;
+		private Iterator<S3VersionSummary> page;
+
+		@Override
+		protected S3VersionSummary computeNext() {
+			while (page == null || !page.hasNext()) {
+				if (listing != null && !listing.isTruncated()) {
+					return endOfData();
+				}
+				requestLimiter.acquire();
+				try {
+					listing = listing == null ? client.listVersions(request) : client.listNextBatchOfVersions(listing);
+				} finally {
+					requestLimiter.release();
+				}
+				page = listing.getVersionSummaries().iterator();
+			}
+			return page.next();
+		}
+
+	}
+
+}
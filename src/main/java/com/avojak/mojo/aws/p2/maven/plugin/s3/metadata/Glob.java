@@ -0,0 +1,102 @@
+package com.avojak.mojo.aws.p2.maven.plugin.s3.metadata;
+
+import java.util.regex.Pattern;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * A glob pattern of object keys, compiled once into a regular expression. See {@link MetadataRule} for the syntax.
+ */
+final class Glob {
+
+	private static final char DELIMITER = '/';
+
+	private final String glob;
+	private final Pattern pattern;
+
+	private Glob(final String glob, final Pattern pattern) {
+		this.glob = glob;
+		this.pattern = pattern;
+	}
+
+	/**
+	 * Compiles the given glob pattern.
+	 *
+	 * @param glob The glob pattern. Cannot be {@code null} or empty.
+	 *
+	 * @return The new, non-{@code null} {@link Glob}.
+	 *
+	 * @throws IllegalArgumentException if the pattern is empty or its alternatives are not balanced.
+	 */
+	static Glob compile(final String glob) {
+		checkNotNull(glob, "glob cannot be null");
+		checkArgument(!glob.trim().isEmpty(), "glob cannot be empty");
+		final StringBuilder regex = new StringBuilder();
+		int start = 0;
+		if (glob.charAt(0) == DELIMITER) {
+			start = 1;
+		} else {
+			// Unanchored patterns match after any delimiter
+			regex.append("(?:.*/)?");
+		}
+		boolean inAlternatives = false;
+		for (int i = start; i < glob.length(); i++) {
+			final char c = glob.charAt(i);
+			switch (c) {
+				case '*':
+					if (i + 1 < glob.length() && glob.charAt(i + 1) == '*') {
+						i++;
+						if (i + 1 < glob.length() && glob.charAt(i + 1) == DELIMITER) {
+							// "**/" also matches no directory at all
+							i++;
+							regex.append("(?:.*/)?");
+						} else {
+							regex.append(".*");
+						}
+					} else {
+						regex.append("[^/]*");
+					}
+					break;
+				case '?':
+					regex.append("[^/]");
+					break;
+				case '{':
+					checkArgument(!inAlternatives, "Nested alternatives in glob: %s", glob);
+					inAlternatives = true;
+					regex.append("(?:");
+					break;
+				case '}':
+					checkArgument(inAlternatives, "Unbalanced alternatives in glob: %s", glob);
+					inAlternatives = false;
+					regex.append(')');
+					break;
+				case ',':
+					regex.append(inAlternatives ? "|" : ",");
+					break;
+				default:
+					regex.append(Pattern.quote(String.valueOf(c)));
+			}
+		}
+		checkArgument(!inAlternatives, "Unbalanced alternatives in glob: %s", glob);
+		return new Glob(glob, Pattern.compile(regex.toString()));
+	}
+
+	/**
+	 * Determines whether or not the given key matches the pattern.
+	 *
+	 * @param key The key. Cannot be {@code null}.
+	 *
+	 * @return {@code true} if the key matches, otherwise {@code false}.
+	 */
+	boolean matches(final String key) {
+		checkNotNull(key, "key cannot be null");
+		return pattern.matcher(key).matches();
+	}
+
+	@Override
+	public String toString() {
+		return glob;
+	}
+
+}
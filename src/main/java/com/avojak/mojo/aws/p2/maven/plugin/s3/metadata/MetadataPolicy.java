@@ -0,0 +1,132 @@
+package com.avojak.mojo.aws.p2.maven.plugin.s3.metadata;
+
+import com.google.common.base.Optional;
+import com.google.common.collect.ImmutableList;
+
+import java.util.Collections;
+import java.util.List;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * Determines the {@code Content-Type} and {@code Cache-Control} headers of uploaded objects.
+ * <p>
+ * Each header is taken from the first {@link MetadataRule rule} whose pattern matches the key of the object and which
+ * sets the header. Content types which are not set by any rule are looked up by file extension. Cache control headers
+ * which are not set by any rule are, when role defaults are enabled, derived from the {@link ObjectRole role} of the
+ * object: released artifacts never change and may be cached indefinitely, whereas repository metadata and snapshot
+ * artifacts may only be cached briefly. Other objects are left without a cache control header.
+ */
+public class MetadataPolicy {
+
+	/**
+	 * The policy which only sets content types by file extension.
+	 */
+	public static final MetadataPolicy DEFAULT = new MetadataPolicy(Collections.<MetadataRule>emptyList(),
+			Optional.<String>absent(), Optional.<String>absent());
+
+	private static final String SNAPSHOT_DIR = "/snapshots/";
+
+	private final List<CompiledRule> rules;
+	private final Optional<String> artifactCacheControl;
+	private final Optional<String> metadataCacheControl;
+
+	/**
+	 * Constructor.
+	 *
+	 * @param rules                The {@link MetadataRule rules}, in order of precedence. Cannot be {@code null}.
+	 *                             Every rule must have a pattern and set at least one header.
+	 * @param artifactCacheControl The {@link Optional} {@code Cache-Control} header of released artifacts, which is
+	 *                             absent to leave them without one unless set by a rule. Cannot be {@code null}.
+	 * @param metadataCacheControl The {@link Optional} {@code Cache-Control} header of repository metadata and
+	 *                             snapshot artifacts, which is absent to leave them without one unless set by a rule.
+	 *                             Cannot be {@code null}.
+	 *
+	 * @throws IllegalArgumentException if a rule is not valid.
+	 */
+	public MetadataPolicy(final List<MetadataRule> rules, final Optional<String> artifactCacheControl,
+	                      final Optional<String> metadataCacheControl) {
+		checkNotNull(rules, "rules cannot be null");
+		this.artifactCacheControl = checkNotNull(artifactCacheControl, "artifactCacheControl cannot be null");
+		this.metadataCacheControl = checkNotNull(metadataCacheControl, "metadataCacheControl cannot be null");
+		final ImmutableList.Builder<CompiledRule> compiled = ImmutableList.builder();
+		for (final MetadataRule rule : rules) {
+			checkNotNull(rule, "rule cannot be null");
+			checkArgument(!isBlank(rule.getPattern()), "Metadata rule must have a pattern");
+			checkArgument(!isBlank(rule.getCacheControl()) || !isBlank(rule.getContentType()),
+					"Metadata rule must set a header: %s", rule.getPattern());
+			// The rule is copied, as Maven populates mutable instances
+			compiled.add(new CompiledRule(Glob.compile(rule.getPattern().trim()),
+					new MetadataRule(rule.getPattern(), rule.getCacheControl(), rule.getContentType())));
+		}
+		this.rules = compiled.build();
+	}
+
+	/**
+	 * Gets the {@code Content-Type} header of the object with the given key.
+	 *
+	 * @param key      The key of the object. Cannot be {@code null}.
+	 * @param fileName The name of the file uploaded to the object. Cannot be {@code null}.
+	 *
+	 * @return The non-{@code null} {@link Optional} header, which is absent if it is not known.
+	 */
+	public Optional<String> getContentType(final String key, final String fileName) {
+		checkNotNull(key, "key cannot be null");
+		checkNotNull(fileName, "fileName cannot be null");
+		for (final CompiledRule rule : rules) {
+			if (!isBlank(rule.rule.getContentType()) && rule.glob.matches(key)) {
+				return Optional.of(rule.rule.getContentType().trim());
+			}
+		}
+		return MimeTypes.get(fileName);
+	}
+
+	/**
+	 * Gets the {@code Cache-Control} header of the object with the given key.
+	 *
+	 * @param key The key of the object. Cannot be {@code null}.
+	 *
+	 * @return The non-{@code null} {@link Optional} header, which is absent if the object should have none.
+	 */
+	public Optional<String> getCacheControl(final String key) {
+		checkNotNull(key, "key cannot be null");
+		for (final CompiledRule rule : rules) {
+			if (!isBlank(rule.rule.getCacheControl()) && rule.glob.matches(key)) {
+				return Optional.of(rule.rule.getCacheControl().trim());
+			}
+		}
+		switch (ObjectRole.of(key)) {
+			case ARTIFACT:
+				return isSnapshot(key) ? metadataCacheControl : artifactCacheControl;
+			case METADATA:
+				return metadataCacheControl;
+			default:
+				return Optional.absent();
+		}
+	}
+
+	private static boolean isSnapshot(final String key) {
+		return ('/' + key).contains(SNAPSHOT_DIR);
+	}
+
+	private static boolean isBlank(final String value) {
+		return value == null || value.trim().isEmpty();
+	}
+
+	/**
+	 * A rule and its compiled pattern.
+	 */
+	private static final class CompiledRule {
+
+		private final Glob glob;
+		private final MetadataRule rule;
+
+		private CompiledRule(final Glob glob, final MetadataRule rule) {
+			this.glob = glob;
+			this.rule = rule;
+		}
+
+	}
+
+}
@@ -0,0 +1,114 @@
+package com.avojak.mojo.aws.p2.maven.plugin.s3.metadata;
+
+import com.google.common.base.Objects;
+
+/**
+ * A rule which sets the metadata of the uploaded objects whose keys match a glob pattern. Instances are normally
+ * populated by Maven from the plugin configuration.
+ * <p>
+ * Within the pattern, {@code *} matches any characters other than the path delimiter, {@code **} matches any
+ * characters, {@code ?} matches a single character other than the path delimiter, and {@code {a,b}} matches either
+ * alternative. A pattern which starts with the path delimiter is matched against the whole key, and any other pattern
+ * is matched against every trailing part of the key which starts after a path delimiter.
+ */
+public class MetadataRule {
+
+	private String pattern;
+	private String cacheControl;
+	private String contentType;
+
+	/**
+	 * Default constructor invoked by Maven when populating the plugin configuration.
+	 */
+	public MetadataRule() {
+	}
+
+	/**
+	 * Constructor.
+	 *
+	 * @param pattern      The glob pattern.
+	 * @param cacheControl The {@code Cache-Control} header, or {@code null} if not set by this rule.
+	 * @param contentType  The {@code Content-Type} header, or {@code null} if not set by this rule.
+	 */
+	public MetadataRule(final String pattern, final String cacheControl, final String contentType) {
+		this.pattern = pattern;
+		this.cacheControl = cacheControl;
+		this.contentType = contentType;
+	}
+
+	/**
+	 * Gets the glob pattern of the keys to which the rule applies.
+	 *
+	 * @return The pattern, or {@code null} if not specified.
+	 */
+	public String getPattern() {
+		return pattern;
+	}
+
+	/**
+	 * Sets the glob pattern of the keys to which the rule applies.
+	 *
+	 * @param pattern The pattern.
+	 */
+	public void setPattern(final String pattern) {
+		this.pattern = pattern;
+	}
+
+	/**
+	 * Gets the {@code Cache-Control} header of the objects to which the rule applies.
+	 *
+	 * @return The header, or {@code null} if not set by this rule.
+	 */
+	public String getCacheControl() {
+		return cacheControl;
+	}
+
+	/**
+	 * Sets the {@code Cache-Control} header of the objects to which the rule applies.
+	 *
+	 * @param cacheControl The header, or {@code null} if not set by this rule.
+	 */
+	public void setCacheControl(final String cacheControl) {
+		this.cacheControl = cacheControl;
+	}
+
+	/**
+	 * Gets the {@code Content-Type} header of the objects to which the rule applies.
+	 *
+	 * @return The header, or {@code null} if not set by this rule.
+	 */
+	public String getContentType() {
+		return contentType;
+	}
+
+	/**
+	 * Sets the {@code Content-Type} header of the objects to which the rule applies.
+	 *
+	 * @param contentType The header, or {@code null} if not set by this rule.
+	 */
+	public void setContentType(final String contentType) {
+		this.contentType = contentType;
+	}
+
+	@Override
+	public boolean equals(final Object o) {
+		if (this == o) {
+			return true;
+		}
+		if (o == null || getClass() != o.getClass()) {
+			return false;
+		}
+
+		final MetadataRule that = (MetadataRule) o;
+
+		return Objects.equal(pattern, that.pattern)
+				&& Objects.equal(cacheControl, that.cacheControl)
+				&& Objects.equal(contentType, that.contentType);
+	}
+
+	@Override
+	public int hashCode() {
+		return Objects.hashCode(pattern, cacheControl, contentType);
+	}
+
+}
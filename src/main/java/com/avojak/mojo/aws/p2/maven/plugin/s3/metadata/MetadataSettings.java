@@ -0,0 +1,160 @@
+package com.avojak.mojo.aws.p2.maven.plugin.s3.metadata;
+
+import com.google.common.base.Objects;
+import com.google.common.base.Optional;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * The metadata of uploaded objects. Instances are normally populated by Maven from the plugin configuration. When
+ * nothing is specified, only the content type of each object is set, by file extension.
+ */
+public class MetadataSettings {
+
+	/**
+	 * The default {@code Cache-Control} header of released artifacts, which may be cached for a year without being
+	 * revalidated.
+	 */
+	public static final String DEFAULT_ARTIFACT_CACHE_CONTROL = "public, max-age=31536000, immutable";
+
+	/**
+	 * The default {@code Cache-Control} header of repository metadata and snapshot artifacts, which may be cached for
+	 * five minutes.
+	 */
+	public static final String DEFAULT_METADATA_CACHE_CONTROL = "public, max-age=300";
+
+	private List<MetadataRule> rules;
+	private Boolean roleDefaults;
+	private String artifactCacheControl;
+	private String metadataCacheControl;
+
+	/**
+	 * Default constructor invoked by Maven when populating the plugin configuration.
+	 */
+	public MetadataSettings() {
+	}
+
+	/**
+	 * Gets the rules, in order of precedence.
+	 *
+	 * @return The non-{@code null} {@link List} of {@link MetadataRule rules}.
+	 */
+	public List<MetadataRule> getRules() {
+		return rules == null ? Collections.<MetadataRule>emptyList() : rules;
+	}
+
+	/**
+	 * Sets the rules, in order of precedence.
+	 *
+	 * @param rules The {@link List} of {@link MetadataRule rules}, or {@code null} for none.
+	 */
+	public void setRules(final List<MetadataRule> rules) {
+		this.rules = rules == null ? null : new ArrayList<MetadataRule>(rules);
+	}
+
+	/**
+	 * Gets whether or not the {@code Cache-Control} header of objects not matched by any rule is derived from their
+	 * {@link ObjectRole role}.
+	 *
+	 * @return {@code true} if role defaults are enabled, which is {@code false} if not specified.
+	 */
+	public boolean isRoleDefaults() {
+		return roleDefaults != null && roleDefaults;
+	}
+
+	/**
+	 * Sets whether or not the {@code Cache-Control} header of objects not matched by any rule is derived from their
+	 * {@link ObjectRole role}.
+	 *
+	 * @param roleDefaults Whether or not role defaults are enabled, or {@code null} for the default.
+	 */
+	public void setRoleDefaults(final Boolean roleDefaults) {
+		this.roleDefaults = roleDefaults;
+	}
+
+	/**
+	 * Gets the {@code Cache-Control} header of released artifacts when role defaults are enabled.
+	 *
+	 * @return The non-{@code null} header, which is {@link #DEFAULT_ARTIFACT_CACHE_CONTROL} if not specified.
+	 */
+	public String getArtifactCacheControl() {
+		return artifactCacheControl == null ? DEFAULT_ARTIFACT_CACHE_CONTROL : artifactCacheControl;
+	}
+
+	/**
+	 * Sets the {@code Cache-Control} header of released artifacts when role defaults are enabled.
+	 *
+	 * @param artifactCacheControl The header, or {@code null} for the default.
+	 */
+	public void setArtifactCacheControl(final String artifactCacheControl) {
+		this.artifactCacheControl = artifactCacheControl;
+	}
+
+	/**
+	 * Gets the {@code Cache-Control} header of repository metadata and snapshot artifacts when role defaults are
+	 * enabled.
+	 *
+	 * @return The non-{@code null} header, which is {@link #DEFAULT_METADATA_CACHE_CONTROL} if not specified.
+	 */
+	public String getMetadataCacheControl() {
+		return metadataCacheControl == null ? DEFAULT_METADATA_CACHE_CONTROL : metadataCacheControl;
+	}
+
+	/**
+	 * Sets the {@code Cache-Control} header of repository metadata and snapshot artifacts when role defaults are
+	 * enabled.
+	 *
+	 * @param metadataCacheControl The header, or {@code null} for the default.
+	 */
+	public void setMetadataCacheControl(final String metadataCacheControl) {
+		this.metadataCacheControl = metadataCacheControl;
+	}
+
+	/**
+	 * Creates the {@link MetadataPolicy} for these settings.
+	 *
+	 * @return The new, non-{@code null} {@link MetadataPolicy}.
+	 *
+	 * @throws IllegalArgumentException if a rule is not valid.
+	 */
+	public MetadataPolicy toPolicy() {
+		if (!isRoleDefaults()) {
+			return getRules().isEmpty() ? MetadataPolicy.DEFAULT
+					: new MetadataPolicy(getRules(), Optional.<String>absent(), Optional.<String>absent());
+		}
+		return new MetadataPolicy(getRules(), toHeader(getArtifactCacheControl()),
+				toHeader(getMetadataCacheControl()));
+	}
+
+	/**
+	 * An empty header leaves the objects of the role without one.
+	 */
+	private static Optional<String> toHeader(final String value) {
+		return value.trim().isEmpty() ? Optional.<String>absent() : Optional.of(value.trim());
+	}
+
+	@Override
+	public boolean equals(final Object o) {
+		if (this == o) {
+			return true;
+		}
+		if (o == null || getClass() != o.getClass()) {
+			return false;
+		}
+
+		final MetadataSettings that = (MetadataSettings) o;
+
+		return getRules().equals(that.getRules())
+				&& isRoleDefaults() == that.isRoleDefaults()
+				&& getArtifactCacheControl().equals(that.getArtifactCacheControl())
+				&& getMetadataCacheControl().equals(that.getMetadataCacheControl());
+	}
+
+	@Override
+	public int hashCode() {
+		return Objects.hashCode(getRules(), isRoleDefaults(), getArtifactCacheControl(), getMetadataCacheControl());
+	}
+
+}
@@ -0,0 +1,64 @@
+package com.avojak.mojo.aws.p2.maven.plugin.s3.metadata;
+
+import com.google.common.base.Optional;
+import com.google.common.collect.ImmutableMap;
+
+import java.util.Locale;
+import java.util.Map;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * The content types of the files found in p2 repositories and their landing pages, looked up by file extension. Files
+ * without a known extension are left without a content type, which S3 serves as {@code application/octet-stream}.
+ */
+final class MimeTypes {
+
+	private static final Map<String, String> TYPES = ImmutableMap.<String, String>builder()
+			.put("html", "text/html")
+			.put("htm", "text/html")
+			.put("css", "text/css")
+			.put("js", "application/javascript")
+			.put("json", "application/json")
+			.put("xml", "application/xml")
+			.put("jar", "application/java-archive")
+			.put("zip", "application/zip")
+			.put("gz", "application/gzip")
+			.put("xz", "application/x-xz")
+			.put("txt", "text/plain")
+			.put("properties", "text/plain")
+			// The p2.index file
+			.put("index", "text/plain")
+			.put("md5", "text/plain")
+			.put("sha1", "text/plain")
+			.put("sha256", "text/plain")
+			.put("sha512", "text/plain")
+			.put("asc", "text/plain")
+			.put("png", "image/png")
+			.put("gif", "image/gif")
+			.put("jpg", "image/jpeg")
+			.put("jpeg", "image/jpeg")
+			.put("svg", "image/svg+xml")
+			.put("ico", "image/x-icon")
+			.build();
+
+	private MimeTypes() {
+	}
+
+	/**
+	 * Gets the content type of the file with the given name.
+	 *
+	 * @param fileName The name of the file. Cannot be {@code null}.
+	 *
+	 * @return The non-{@code null} {@link Optional} content type, which is absent if the extension is not known.
+	 */
+	static Optional<String> get(final String fileName) {
+		checkNotNull(fileName, "fileName cannot be null");
+		final int index = fileName.lastIndexOf('.');
+		if (index < 0) {
+			return Optional.absent();
+		}
+		return Optional.fromNullable(TYPES.get(fileName.substring(index + 1).toLowerCase(Locale.ROOT)));
+	}
+
+}
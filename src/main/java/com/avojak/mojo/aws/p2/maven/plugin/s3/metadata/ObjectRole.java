@@ -0,0 +1,59 @@
+package com.avojak.mojo.aws.p2.maven.plugin.s3.metadata;
+
+import com.google.common.collect.ImmutableSet;
+
+import java.util.Set;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * The role of an object in a p2 repository, which determines how long it may be cached.
+ */
+public enum ObjectRole {
+
+	/**
+	 * A plugin, feature or binary artifact. The content of an artifact never changes once it has been released, as a
+	 * new build produces a new version.
+	 */
+	ARTIFACT,
+
+	/**
+	 * The metadata of the repository or its landing page, which is replaced by every deployment.
+	 */
+	METADATA,
+
+	/**
+	 * Any other object.
+	 */
+	OTHER;
+
+	private static final Set<String> ARTIFACT_DIRECTORIES = ImmutableSet.of("plugins", "features", "binary");
+
+	private static final Set<String> METADATA_FILES = ImmutableSet.of("content.jar", "content.xml", "content.xml.xz",
+			"artifacts.jar", "artifacts.xml", "artifacts.xml.xz", "compositeContent.jar", "compositeContent.xml",
+			"compositeArtifacts.jar", "compositeArtifacts.xml", "p2.index");
+
+	/**
+	 * Gets the role of the object with the given key.
+	 *
+	 * @param key The key. Cannot be {@code null}.
+	 *
+	 * @return The non-{@code null} {@link ObjectRole}.
+	 */
+	public static ObjectRole of(final String key) {
+		checkNotNull(key, "key cannot be null");
+		final int nameIndex = key.lastIndexOf('/') + 1;
+		final String name = key.substring(nameIndex);
+		if (METADATA_FILES.contains(name) || name.endsWith(".html")) {
+			return METADATA;
+		}
+		if (nameIndex > 0) {
+			final String parent = key.substring(key.lastIndexOf('/', nameIndex - 2) + 1, nameIndex - 1);
+			if (ARTIFACT_DIRECTORIES.contains(parent)) {
+				return ARTIFACT;
+			}
+		}
+		return OTHER;
+	}
+
+}
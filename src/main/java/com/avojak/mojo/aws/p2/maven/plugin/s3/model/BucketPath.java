@@ -1,5 +1,7 @@
 package com.avojak.mojo.aws.p2.maven.plugin.s3.model;
 
+import com.google.common.base.Optional;
+
 import static com.google.common.base.Preconditions.checkArgument;
 import static com.google.common.base.Preconditions.checkNotNull;
 
@@ -70,6 +72,22 @@ public class BucketPath {
 		return stringBuilder.toString();
 	}
 
+	/**
+	 * Returns the parent of the path, which is the portion of the path before the last path separator.
+	 * <p>
+	 * For example, given the path "some/folder/subfolder", the parent will be "some/folder".
+	 *
+	 * @return The non-{@code null} {@link Optional} parent path, if present. Otherwise {@link Optional#absent()}.
+	 */
+	public Optional<String> getParent() {
+		final String path = asString();
+		final int lastSeparatorIndex = path.lastIndexOf(PATH_DELIM);
+		if (lastSeparatorIndex == -1) {
+			return Optional.absent();
+		}
+		return Optional.of(path.substring(0, lastSeparatorIndex));
+	}
+
 	@Override
 	public boolean equals(final Object o) {
 		if (this == o) {
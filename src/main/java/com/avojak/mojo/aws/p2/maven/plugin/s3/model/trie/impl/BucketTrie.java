@@ -25,6 +25,9 @@ public class BucketTrie implements Trie<String, String> {
 
 	private static final Logger LOGGER = LoggerFactory.getLogger(BucketTrie.class);
 
+	// Modules of a parallel build may output their tries at the same time, so each trie is output as a whole
+	private static final Object OUTPUT_LOCK = new Object();
+
 	private final TrieNode<String> root;
 	private final String prefix;
 	private final TriePrinter systemPrinter;
@@ -99,12 +102,16 @@ public class BucketTrie implements Trie<String, String> {
 
 	@Override
 	public void print() {
-		outputChildren("", root, systemPrinter);
+		synchronized (OUTPUT_LOCK) {
+			outputChildren("", root, systemPrinter);
+		}
 	}
 
 	@Override
 	public void log() {
-		outputChildren("", root, loggerPrinter);
+		synchronized (OUTPUT_LOCK) {
+			outputChildren("", root, loggerPrinter);
+		}
 	}
 
 	/**
@@ -0,0 +1,93 @@
+package com.avojak.mojo.aws.p2.maven.plugin.s3.region;
+
+import com.amazonaws.services.s3.AmazonS3;
+import com.amazonaws.services.s3.model.AmazonS3Exception;
+import com.amazonaws.services.s3.model.HeadBucketResult;
+import com.avojak.mojo.aws.p2.maven.plugin.s3.exception.BucketDoesNotExistException;
+import com.avojak.mojo.aws.p2.maven.plugin.s3.limit.InFlightRequestLimiter;
+import com.avojak.mojo.aws.p2.maven.plugin.s3.request.factory.head.HeadBucketRequestFactory;
+import com.avojak.mojo.aws.p2.maven.plugin.util.resource.ResourceUtil;
+import com.google.common.base.Optional;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * Verifies that a bucket exists and determines its region with a single {@code HEAD} request, consulting the {@link
+ * BucketRegionCache} first.
+ */
+public class BucketLocator {
+
+	private static final Logger LOGGER = LoggerFactory.getLogger(BucketLocator.class);
+
+	private static final int NOT_FOUND = 404;
+	private static final int FORBIDDEN = 403;
+
+	private final AmazonS3 client;
+	private final String bucketName;
+	private final HeadBucketRequestFactory headBucketRequestFactory;
+	private final InFlightRequestLimiter requestLimiter;
+	private final BucketRegionCache regionCache;
+
+	/**
+	 * Constructor.
+	 *
+	 * @param client                   The {@link AmazonS3} client. Cannot be {@code null}.
+	 * @param bucketName               The name of the bucket. Cannot be {@code null} or empty.
+	 * @param headBucketRequestFactory The {@link HeadBucketRequestFactory}. Cannot be {@code null}.
+	 * @param requestLimiter           The {@link InFlightRequestLimiter}. Cannot be {@code null}.
+	 * @param regionCache              The {@link BucketRegionCache}. Cannot be {@code null}.
+	 */
+	public BucketLocator(final AmazonS3 client, final String bucketName,
+	                     final HeadBucketRequestFactory headBucketRequestFactory,
+	                     final InFlightRequestLimiter requestLimiter, final BucketRegionCache regionCache) {
+		this.client = checkNotNull(client, "client cannot be null");
+		this.bucketName = checkNotNull(bucketName, "bucketName cannot be null");
+		checkArgument(!bucketName.trim().isEmpty(), "bucketName cannot be empty");
+		this.headBucketRequestFactory =
+				checkNotNull(headBucketRequestFactory, "headBucketRequestFactory cannot be null");
+		this.requestLimiter = checkNotNull(requestLimiter, "requestLimiter cannot be null");
+		this.regionCache = checkNotNull(regionCache, "regionCache cannot be null");
+	}
+
+	/**
+	 * Locates the bucket.
+	 * <p>
+	 * A bucket which exists but may not be accessed by the caller is still located, but its region cannot be
+	 * determined.
+	 *
+	 * @return The {@link Optional} region of the bucket.
+	 *
+	 * @throws BucketDoesNotExistException if the bucket does not exist.
+	 */
+	public Optional<String> locate() throws BucketDoesNotExistException {
+		final Optional<String> cachedRegion = regionCache.get(bucketName);
+		if (cachedRegion.isPresent()) {
+			LOGGER.debug(ResourceUtil.getString(getClass(), "debug.cachedRegion"), bucketName, cachedRegion.get());
+			return cachedRegion;
+		}
+		final HeadBucketResult headBucketResult;
+		requestLimiter.acquire();
+		try {
+			headBucketResult = client.headBucket(headBucketRequestFactory.create());
+		} catch (final AmazonS3Exception e) {
+			if (e.getStatusCode() == NOT_FOUND) {
+				throw new BucketDoesNotExistException(bucketName);
+			}
+			if (e.getStatusCode() == FORBIDDEN) {
+				return Optional.absent();
+			}
+			throw e;
+		} finally {
+			requestLimiter.release();
+		}
+		final Optional<String> region = Optional.fromNullable(headBucketResult.getBucketRegion());
+		if (region.isPresent()) {
+			regionCache.put(bucketName, region.get());
+		}
+		return region;
+	}
+
+}
@@ -0,0 +1,179 @@
+package com.avojak.mojo.aws.p2.maven.plugin.s3.region;
+
+import com.avojak.mojo.aws.p2.maven.plugin.util.resource.ResourceUtil;
+import com.google.common.base.Optional;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.Properties;
+import java.util.concurrent.TimeUnit;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * Caches the region of each bucket in a file, so that the region lookup is not repeated by every build. Entries expire
+ * once older than the time to live, and a time to live of zero disables the cache.
+ * <p>
+ * The cache is best-effort: failures to read or write the file are logged and otherwise ignored. The file is replaced
+ * atomically where supported, so concurrent builds never observe a partially written file.
+ */
+public class BucketRegionCache {
+
+	/**
+	 * The default time to live of an entry, in seconds.
+	 */
+	public static final long DEFAULT_TTL_SECONDS = TimeUnit.DAYS.toSeconds(1);
+
+	private static final Logger LOGGER = LoggerFactory.getLogger(BucketRegionCache.class);
+
+	private static final String SEPARATOR = ",";
+
+	private static final BucketRegionCache GLOBAL = new BucketRegionCache(
+			new File(System.getProperty("user.home"), ".m2" + File.separator + "aws-p2-bucket-regions.properties"),
+			DEFAULT_TTL_SECONDS);
+
+	private final File file;
+	private Properties entries;
+	private long ttlSeconds;
+
+	/**
+	 * Constructor.
+	 *
+	 * @param file       The {@link File} in which the regions are stored. Cannot be {@code null}.
+	 * @param ttlSeconds The time to live of an entry, in seconds. Cannot be negative.
+	 */
+	public BucketRegionCache(final File file, final long ttlSeconds) {
+		this.file = checkNotNull(file, "file cannot be null");
+		checkArgument(ttlSeconds >= 0, "ttlSeconds cannot be negative");
+		this.ttlSeconds = ttlSeconds;
+	}
+
+	/**
+	 * Gets the cache which is shared by every execution of the plugin, stored in the Maven user directory.
+	 *
+	 * @return The non-{@code null} global {@link BucketRegionCache}.
+	 */
+	public static BucketRegionCache getGlobal() {
+		return GLOBAL;
+	}
+
+	/**
+	 * Gets the cached region of the given bucket.
+	 *
+	 * @param bucketName The name of the bucket. Cannot be {@code null}.
+	 *
+	 * @return The {@link Optional} region, which is absent if not cached or expired.
+	 */
+	public synchronized Optional<String> get(final String bucketName) {
+		checkNotNull(bucketName, "bucketName cannot be null");
+		if (ttlSeconds == 0) {
+			return Optional.absent();
+		}
+		final String entry = getEntries().getProperty(bucketName);
+		if (entry == null) {
+			return Optional.absent();
+		}
+		final int separator = entry.lastIndexOf(SEPARATOR);
+		if (separator <= 0) {
+			return Optional.absent();
+		}
+		final long timestamp;
+		try {
+			timestamp = Long.parseLong(entry.substring(separator + 1));
+		} catch (final NumberFormatException e) {
+			return Optional.absent();
+		}
+		if (System.currentTimeMillis() - timestamp > TimeUnit.SECONDS.toMillis(ttlSeconds)) {
+			return Optional.absent();
+		}
+		return Optional.of(entry.substring(0, separator));
+	}
+
+	/**
+	 * Caches the region of the given bucket.
+	 *
+	 * @param bucketName The name of the bucket. Cannot be {@code null}.
+	 * @param region     The region of the bucket. Cannot be {@code null}.
+	 */
+	public synchronized void put(final String bucketName, final String region) {
+		checkNotNull(bucketName, "bucketName cannot be null");
+		checkNotNull(region, "region cannot be null");
+		if (ttlSeconds == 0) {
+			return;
+		}
+		// Merge with any entries written by other builds since the file was read
+		entries = read();
+		entries.setProperty(bucketName, region + SEPARATOR + System.currentTimeMillis());
+		write();
+	}
+
+	/**
+	 * Gets the time to live of an entry.
+	 *
+	 * @return The time to live, in seconds.
+	 */
+	public synchronized long getTtlSeconds() {
+		return ttlSeconds;
+	}
+
+	/**
+	 * Sets the time to live of an entry. A time to live of zero disables the cache.
+	 *
+	 * @param ttlSeconds The time to live, in seconds. Cannot be negative.
+	 */
+	public synchronized void setTtlSeconds(final long ttlSeconds) {
+		checkArgument(ttlSeconds >= 0, "ttlSeconds cannot be negative");
+		this.ttlSeconds = ttlSeconds;
+	}
+
+	private Properties getEntries() {
+		if (entries == null) {
+			entries = read();
+		}
+		return entries;
+	}
+
+	private Properties read() {
+		final Properties properties = new Properties();
+		if (!file.isFile()) {
+			return properties;
+		}
+		try (final InputStream inputStream = Files.newInputStream(file.toPath())) {
+			properties.load(inputStream);
+		} catch (final IOException | IllegalArgumentException e) {
+			LOGGER.debug(ResourceUtil.getString(getClass(), "debug.cacheNotReadable"), file, e);
+		}
+		return properties;
+	}
+
+	private void write() {
+		final File directory = file.getAbsoluteFile().getParentFile();
+		try {
+			Files.createDirectories(directory.toPath());
+			final File temporaryFile = File.createTempFile(file.getName(), ".tmp", directory);
+			try {
+				try (final OutputStream outputStream = Files.newOutputStream(temporaryFile.toPath())) {
+					entries.store(outputStream, null);
+				}
+				try {
+					Files.move(temporaryFile.toPath(), file.toPath(), StandardCopyOption.ATOMIC_MOVE);
+				} catch (final AtomicMoveNotSupportedException e) {
+					Files.move(temporaryFile.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING);
+				}
+			} finally {
+				Files.deleteIfExists(temporaryFile.toPath());
+			}
+		} catch (final IOException e) {
+			LOGGER.warn(ResourceUtil.getString(getClass(), "warn.cacheNotWritable"), file, e);
+		}
+	}
+
+}
@@ -0,0 +1,169 @@
+package com.avojak.mojo.aws.p2.maven.plugin.s3.repository;
+
+import com.avojak.mojo.aws.p2.maven.plugin.s3.ClientSettings;
+import com.avojak.mojo.aws.p2.maven.plugin.s3.credentials.CredentialsSettings;
+import com.avojak.mojo.aws.p2.maven.plugin.s3.metadata.MetadataPolicy;
+import com.google.common.base.Objects;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * The options with which a {@link S3BucketRepositoryFactory} creates a repository. Instances should be created with
+ * {@link #builder()}. Options which are not set default to a client with default settings, the default credentials,
+ * the {@link TransferBackend#BLOCKING blocking} backend and the {@link MetadataPolicy#DEFAULT default} metadata
+ * policy.
+ */
+public final class RepositoryOptions {
+
+	private final ClientSettings clientSettings;
+	private final CredentialsSettings credentials;
+	private final TransferBackend backend;
+	private final MetadataPolicy metadataPolicy;
+
+	private RepositoryOptions(final Builder builder) {
+		this.clientSettings = builder.clientSettings;
+		this.credentials = builder.credentials;
+		this.backend = builder.backend;
+		this.metadataPolicy = builder.metadataPolicy;
+	}
+
+	/**
+	 * Creates a new {@link Builder} with the default options.
+	 *
+	 * @return The new, non-{@code null} {@link Builder}.
+	 */
+	public static Builder builder() {
+		return new Builder();
+	}
+
+	/**
+	 * Gets the {@link ClientSettings} with which the client is tuned.
+	 *
+	 * @return The non-{@code null} {@link ClientSettings}.
+	 */
+	public ClientSettings getClientSettings() {
+		return clientSettings;
+	}
+
+	/**
+	 * Gets the {@link CredentialsSettings} with which the client authenticates.
+	 *
+	 * @return The non-{@code null} {@link CredentialsSettings}.
+	 */
+	public CredentialsSettings getCredentials() {
+		return credentials;
+	}
+
+	/**
+	 * Gets the {@link TransferBackend} which carries out the transfers.
+	 *
+	 * @return The non-{@code null} {@link TransferBackend}.
+	 */
+	public TransferBackend getBackend() {
+		return backend;
+	}
+
+	/**
+	 * Gets the {@link MetadataPolicy} by which uploads are given metadata.
+	 *
+	 * @return The non-{@code null} {@link MetadataPolicy}.
+	 */
+	public MetadataPolicy getMetadataPolicy() {
+		return metadataPolicy;
+	}
+
+	@Override
+	public boolean equals(final Object o) {
+		if (this == o) {
+			return true;
+		}
+		if (o == null || getClass() != o.getClass()) {
+			return false;
+		}
+
+		final RepositoryOptions that = (RepositoryOptions) o;
+
+		return Objects.equal(clientSettings, that.clientSettings)
+				&& Objects.equal(credentials, that.credentials)
+				&& backend == that.backend
+				&& Objects.equal(metadataPolicy, that.metadataPolicy);
+	}
+
+	@Override
+	public int hashCode() {
+		return Objects.hashCode(clientSettings, credentials, backend, metadataPolicy);
+	}
+
+	/**
+	 * Builder for {@link RepositoryOptions}.
+	 */
+	public static final class Builder {
+
+		private ClientSettings clientSettings = new ClientSettings();
+		private CredentialsSettings credentials = new CredentialsSettings();
+		private TransferBackend backend = TransferBackend.BLOCKING;
+		private MetadataPolicy metadataPolicy = MetadataPolicy.DEFAULT;
+
+		private Builder() {
+		}
+
+		/**
+		 * Sets the {@link ClientSettings} with which the client is tuned.
+		 *
+		 * @param clientSettings The {@link ClientSettings}. Cannot be {@code null}.
+		 *
+		 * @return This {@link Builder}.
+		 */
+		public Builder clientSettings(final ClientSettings clientSettings) {
+			this.clientSettings = checkNotNull(clientSettings, "clientSettings cannot be null");
+			return this;
+		}
+
+		/**
+		 * Sets the {@link CredentialsSettings} with which the client authenticates.
+		 *
+		 * @param credentials The {@link CredentialsSettings}. Cannot be {@code null}.
+		 *
+		 * @return This {@link Builder}.
+		 */
+		public Builder credentials(final CredentialsSettings credentials) {
+			this.credentials = checkNotNull(credentials, "credentials cannot be null");
+			return this;
+		}
+
+		/**
+		 * Sets the {@link TransferBackend} which carries out the transfers.
+		 *
+		 * @param backend The {@link TransferBackend}. Cannot be {@code null}.
+		 *
+		 * @return This {@link Builder}.
+		 */
+		public Builder backend(final TransferBackend backend) {
+			this.backend = checkNotNull(backend, "backend cannot be null");
+			return this;
+		}
+
+		/**
+		 * Sets the {@link MetadataPolicy} by which uploads are given metadata.
+		 *
+		 * @param metadataPolicy The {@link MetadataPolicy}. Cannot be {@code null}.
+		 *
+		 * @return This {@link Builder}.
+		 */
+		public Builder metadataPolicy(final MetadataPolicy metadataPolicy) {
+			this.metadataPolicy = checkNotNull(metadataPolicy, "metadataPolicy cannot be null");
+			return this;
+		}
+
+		/**
+		 * Creates the {@link RepositoryOptions}.
+		 *
+		 * @return The new, non-{@code null} {@link RepositoryOptions}.
+		 */
+		public RepositoryOptions build() {
+			return new RepositoryOptions(this);
+		}
+
+	}
+
+}
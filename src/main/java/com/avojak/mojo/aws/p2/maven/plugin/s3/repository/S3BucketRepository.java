@@ -1,11 +1,19 @@
 package com.avojak.mojo.aws.p2.maven.plugin.s3.repository;
 
+import com.amazonaws.services.s3.model.DeleteObjectsRequest.KeyVersion;
+import com.amazonaws.services.s3.model.ObjectMetadata;
 import com.amazonaws.services.s3.model.S3Object;
 import com.amazonaws.services.s3.model.S3ObjectSummary;
+import com.amazonaws.services.s3.model.S3VersionSummary;
 import com.avojak.mojo.aws.p2.maven.plugin.s3.model.BucketPath;
 import com.avojak.mojo.aws.p2.maven.plugin.s3.model.trie.Trie;
+import com.google.common.base.Optional;
 
 import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.Collection;
 import java.util.List;
 
 /**
@@ -34,6 +42,21 @@ public interface S3BucketRepository {
 	 */
 	String uploadFile(final File src, final BucketPath dest);
 
+	/**
+	 * Uploads content which has already been read from a file into the given location in the bucket. The file is not
+	 * read again, so callers uploading the same file to several buckets need only read it once.
+	 * <p>
+	 * The remaining content of the given buffer is uploaded without modifying its position, so the same buffer may be
+	 * passed to several concurrent calls.
+	 *
+	 * @param src     The source {@link File} from which the content was read. Cannot be {@code null}.
+	 * @param content The {@link ByteBuffer} content of the file. Cannot be {@code null}.
+	 * @param dest    The destination {@link BucketPath} location within the bucket. Cannot be {@code null}.
+	 *
+	 * @return The non-{@code null} {@link String} key of the file which was uploaded.
+	 */
+	String uploadFile(final File src, final ByteBuffer content, final BucketPath dest);
+
 	/**
 	 * Uploads a directory and its contents into the given location in the bucket. The destination path should refer to
 	 * the desired name of the folder in the bucket.
@@ -68,6 +91,25 @@ public interface S3BucketRepository {
 	 */
 	void deleteDirectory(final String prefix);
 
+	/**
+	 * Deletes the objects with the given keys, up to 1000 keys per request.
+	 * <p>
+	 * There is no consequence for attempting to delete non-existent objects.
+	 *
+	 * @param keys The {@link Collection} of object keys. Cannot be {@code null}.
+	 */
+	void deleteObjects(final Collection<String> keys);
+
+	/**
+	 * Permanently deletes the given versions of objects, up to 1000 versions per request. Deleting a delete marker
+	 * restores the version beneath it, if any.
+	 * <p>
+	 * There is no consequence for attempting to delete non-existent versions.
+	 *
+	 * @param versions The {@link Collection} of {@link KeyVersion} objects. Cannot be {@code null}.
+	 */
+	void deleteVersions(final Collection<KeyVersion> versions);
+
 	/**
 	 * Enumerates all {@link S3Object} objects behind the given prefix.
 	 *
@@ -77,6 +119,103 @@ public interface S3BucketRepository {
 	 */
 	List<S3ObjectSummary> enumerate(final String prefix);
 
+	/**
+	 * Lazily iterates over all {@link S3Object} objects behind the given prefix. Unlike {@link #enumerate(String)},
+	 * pages of the listing are only requested as the iteration advances, so memory use does not grow with the number
+	 * of objects.
+	 *
+	 * @param prefix The {@link S3Object} prefix {@code String}. Cannot be {@code null} or empty.
+	 *
+	 * @return The non-{@code null}, possibly empty {@link Iterable} of {@link S3ObjectSummary} objects.
+	 */
+	Iterable<S3ObjectSummary> iterate(final String prefix);
+
+	/**
+	 * Lazily iterates over every {@link S3Object} object in the bucket, in the same way as {@link #iterate(String)}.
+	 * Objects are listed in ascending order of their keys.
+	 *
+	 * @return The non-{@code null}, possibly empty {@link Iterable} of {@link S3ObjectSummary} objects.
+	 */
+	Iterable<S3ObjectSummary> iterateAll();
+
+	/**
+	 * Lazily iterates over the {@link S3Object} objects behind the given prefix whose keys sort after the given marker,
+	 * in the same way as {@link #iterate(String)}. Objects are listed in ascending order of their keys.
+	 *
+	 * @param prefix The {@link S3Object} prefix {@code String}. Cannot be {@code null} or empty.
+	 * @param marker The key after which to start listing. May be {@code null} to start from the first key.
+	 *
+	 * @return The non-{@code null}, possibly empty {@link Iterable} of {@link S3ObjectSummary} objects.
+	 */
+	Iterable<S3ObjectSummary> iterateAfter(final String prefix, final String marker);
+
+	/**
+	 * Lazily iterates over the {@link S3Object} objects immediately behind the given prefix, in the same way as {@link
+	 * #iterate(String)}. The listing is delimited, so the objects within the "directories" behind the prefix are never
+	 * enumerated.
+	 * <p>
+	 * For example, given the objects {@code a/x}, {@code a/1/y} and {@code a/2/z}, iterating the prefix {@code a/}
+	 * returns only {@code a/x}.
+	 *
+	 * @param prefix The key prefix, which should end with a delimiter. Cannot be {@code null} or empty.
+	 *
+	 * @return The non-{@code null}, possibly empty {@link Iterable} of {@link S3ObjectSummary} objects.
+	 */
+	Iterable<S3ObjectSummary> iterateChildren(final String prefix);
+
+	/**
+	 * Lazily iterates over every version and delete marker of the objects behind the given prefix, in the same way as
+	 * {@link #iterate(String)}. The versions of each key are listed together, most recent first.
+	 *
+	 * @param prefix The key prefix. Cannot be {@code null} or empty.
+	 *
+	 * @return The non-{@code null}, possibly empty {@link Iterable} of {@link S3VersionSummary} objects.
+	 */
+	Iterable<S3VersionSummary> iterateVersions(final String prefix);
+
+	/**
+	 * Lists the "directories" immediately behind the given prefix. The listing is delimited, so each directory is
+	 * returned once regardless of the number of objects within it, and those objects are never enumerated.
+	 * <p>
+	 * For example, given the objects {@code a/1/x}, {@code a/1/y} and {@code a/2/z}, listing the prefix {@code a/}
+	 * returns {@code a/1/} and {@code a/2/}.
+	 *
+	 * @param prefix The key prefix, which should end with a delimiter. Cannot be {@code null} or empty.
+	 *
+	 * @return The non-{@code null}, possibly empty {@link List} of the prefixes of the directories, each ending with a
+	 * delimiter.
+	 */
+	List<String> listDirectories(final String prefix);
+
+	/**
+	 * Gets the metadata of the object with the given key, such as its size and entity tag, without its content.
+	 *
+	 * @param key The object key. Cannot be {@code null} or empty.
+	 *
+	 * @return The non-{@code null} {@link Optional} {@link ObjectMetadata}, which is absent if there is no object with
+	 * the given key.
+	 */
+	Optional<ObjectMetadata> getMetadata(final String key);
+
+	/**
+	 * Downloads a byte range of the object with the given key, writing it into the channel at the same offset that it
+	 * occupies in the object. Both ends of the range are inclusive.
+	 * <p>
+	 * Positional writes are used, so multiple ranges of the same object may be downloaded into a shared channel
+	 * concurrently.
+	 *
+	 * @param key     The object key. Cannot be {@code null} or empty.
+	 * @param start   The position of the first byte in the range. Cannot be negative.
+	 * @param end     The position of the last byte in the range. Cannot be less than {@code start}.
+	 * @param channel The {@link FileChannel} to write into. Cannot be {@code null}.
+	 *
+	 * @return The number of bytes written.
+	 *
+	 * @throws IOException if the object content cannot be read or written.
+	 */
+	long downloadRange(final String key, final long start, final long end, final FileChannel channel)
+			throws IOException;
+
 	/**
 	 * Gets the AWS static website hosting URL for the object with the given key. If no key is provided, the URL
 	 * returned will point to the root of the bucket.
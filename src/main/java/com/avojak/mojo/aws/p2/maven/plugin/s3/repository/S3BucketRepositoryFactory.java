@@ -1,34 +1,98 @@
 package com.avojak.mojo.aws.p2.maven.plugin.s3.repository;
 
 import com.amazonaws.services.s3.AmazonS3;
+import com.avojak.mojo.aws.p2.maven.plugin.deploy.DeployTarget;
+import com.avojak.mojo.aws.p2.maven.plugin.s3.AmazonS3ClientCache;
+import com.avojak.mojo.aws.p2.maven.plugin.s3.AmazonS3ClientFactory;
+import com.avojak.mojo.aws.p2.maven.plugin.s3.credentials.CredentialsProviderCache;
 import com.avojak.mojo.aws.p2.maven.plugin.s3.exception.BucketDoesNotExistException;
+import com.avojak.mojo.aws.p2.maven.plugin.s3.limit.BandwidthLimiter;
+import com.avojak.mojo.aws.p2.maven.plugin.s3.limit.InFlightRequestLimiter;
 import com.avojak.mojo.aws.p2.maven.plugin.s3.model.trie.impl.BucketTrieFactory;
+import com.avojak.mojo.aws.p2.maven.plugin.s3.region.BucketLocator;
+import com.avojak.mojo.aws.p2.maven.plugin.s3.region.BucketRegionCache;
+import com.avojak.mojo.aws.p2.maven.plugin.s3.repository.impl.AsyncS3BucketRepositoryImpl;
 import com.avojak.mojo.aws.p2.maven.plugin.s3.repository.impl.S3BucketRepositoryImpl;
 import com.avojak.mojo.aws.p2.maven.plugin.s3.request.factory.delete.DeleteObjectRequestFactory;
+import com.avojak.mojo.aws.p2.maven.plugin.s3.request.factory.get.GetObjectRequestFactory;
 import com.avojak.mojo.aws.p2.maven.plugin.s3.request.factory.head.HeadBucketRequestFactory;
 import com.avojak.mojo.aws.p2.maven.plugin.s3.request.factory.list.ListObjectsRequestFactory;
 import com.avojak.mojo.aws.p2.maven.plugin.s3.request.factory.put.PutObjectRequestFactory;
+import com.google.common.base.Supplier;
+import com.google.common.base.Suppliers;
+import com.google.common.util.concurrent.ListeningExecutorService;
+import com.google.common.util.concurrent.MoreExecutors;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+
+import java.util.concurrent.Executors;
 
 import static com.google.common.base.Preconditions.checkNotNull;
 
 /**
- * Factory class to create instances of {@link S3BucketRepositoryImpl}.
+ * Factory class to create instances of {@link S3BucketRepositoryImpl}, and of {@link AsyncS3BucketRepositoryImpl} for
+ * the {@link TransferBackend#ASYNC asynchronous} backend.
  */
 public class S3BucketRepositoryFactory {
 
-	private final AmazonS3 client;
+	private final AmazonS3ClientCache clientCache;
+	private final InFlightRequestLimiter requestLimiter;
+	private final BucketRegionCache regionCache;
+	private final CredentialsProviderCache credentialsProviderCache;
+	private final BandwidthLimiter bandwidthLimiter;
+
+	/**
+	 * Constructor. Repositories share the {@link AmazonS3ClientCache#getGlobal() global} client cache, the {@link
+	 * InFlightRequestLimiter#getGlobal() global} request limiter, the {@link BucketRegionCache#getGlobal() global}
+	 * region cache, the {@link CredentialsProviderCache#getGlobal() global} credentials providers and the {@link
+	 * BandwidthLimiter#getGlobal() global} bandwidth limiter. No client is created until a repository is.
+	 */
+	public S3BucketRepositoryFactory() {
+		this(AmazonS3ClientCache.getGlobal(), InFlightRequestLimiter.getGlobal(), BucketRegionCache.getGlobal(),
+				CredentialsProviderCache.getGlobal(), BandwidthLimiter.getGlobal());
+	}
 
 	/**
 	 * Constructor.
 	 *
-	 * @param client The instance of {@link AmazonS3}. Cannot be {@code null}.
+	 * @param clientCache              The {@link AmazonS3ClientCache}. Cannot be {@code null}.
+	 * @param requestLimiter           The {@link InFlightRequestLimiter} shared by the repositories. Cannot be {@code
+	 *                                 null}.
+	 * @param regionCache              The {@link BucketRegionCache}. Cannot be {@code null}.
+	 * @param credentialsProviderCache The {@link CredentialsProviderCache}. Cannot be {@code null}.
+	 * @param bandwidthLimiter         The {@link BandwidthLimiter} shared by the uploads of the repositories. Cannot
+	 *                                 be {@code null}.
+	 */
+	public S3BucketRepositoryFactory(final AmazonS3ClientCache clientCache,
+	                                 final InFlightRequestLimiter requestLimiter,
+	                                 final BucketRegionCache regionCache,
+	                                 final CredentialsProviderCache credentialsProviderCache,
+	                                 final BandwidthLimiter bandwidthLimiter) {
+		this.clientCache = checkNotNull(clientCache, "clientCache cannot be null");
+		this.requestLimiter = checkNotNull(requestLimiter, "requestLimiter cannot be null");
+		this.regionCache = checkNotNull(regionCache, "regionCache cannot be null");
+		this.credentialsProviderCache =
+				checkNotNull(credentialsProviderCache, "credentialsProviderCache cannot be null");
+		this.bandwidthLimiter = checkNotNull(bandwidthLimiter, "bandwidthLimiter cannot be null");
+	}
+
+	/**
+	 * Returns a {@link Supplier} which creates the factory, and with it loads the AWS SDK, only when first asked for
+	 * it. Executions which are skipped therefore never load the SDK.
+	 *
+	 * @return A new, non-{@code null} {@link Supplier} of a {@link S3BucketRepositoryFactory} which uses the global
+	 * caches.
 	 */
-	public S3BucketRepositoryFactory(final AmazonS3 client) {
-		this.client = checkNotNull(client, "client cannot be null");
+	public static Supplier<S3BucketRepositoryFactory> deferred() {
+		return Suppliers.memoize(new Supplier<S3BucketRepositoryFactory>() {
+			@Override
+			public S3BucketRepositoryFactory get() {
+				return new S3BucketRepositoryFactory();
+			}
+		});
 	}
 
 	/**
-	 * Creates and returns a new instance of {@link S3BucketRepositoryImpl}.
+	 * Creates and returns a new instance of {@link S3BucketRepositoryImpl} with the default options.
 	 *
 	 * @param bucketName The name of the S3 bucket.
 	 *
@@ -37,13 +101,95 @@ public class S3BucketRepositoryFactory {
 	 * @throws BucketDoesNotExistException if the specified bucket does not exist.
 	 */
 	public S3BucketRepository create(final String bucketName) throws BucketDoesNotExistException {
-		final PutObjectRequestFactory filePutObjectRequestFactory = new PutObjectRequestFactory(bucketName);
+		return create(bucketName, RepositoryOptions.builder().build());
+	}
+
+	/**
+	 * Creates and returns a new repository with the given options, which tune and authenticate its client, select the
+	 * backend which carries out its transfers, and give its uploads metadata.
+	 *
+	 * @param bucketName The name of the S3 bucket.
+	 * @param options    The {@link RepositoryOptions}. Cannot be {@code null}.
+	 *
+	 * @return A new, non-{@code null} instance of {@link S3BucketRepository}.
+	 *
+	 * @throws BucketDoesNotExistException if the specified bucket does not exist.
+	 */
+	public S3BucketRepository create(final String bucketName, final RepositoryOptions options)
+			throws BucketDoesNotExistException {
+		checkNotNull(options, "options cannot be null");
+		final AmazonS3 client = clientCache.getClient(AmazonS3ClientFactory.DEFAULT_REGION,
+				options.getClientSettings(), credentialsProviderCache.get(options.getCredentials()));
+		return create(client, bucketName, null, null, options);
+	}
+
+	/**
+	 * Creates and returns a new repository for the given {@link DeployTarget} with the given options, which tune and
+	 * authenticate its client, select the backend which carries out its transfers, and give its uploads metadata.
+	 * Targets which specify a region are served by a client for that region, which is
+	 * shared between all targets in the same region. Targets which specify either a region or a hosting URL are not
+	 * looked up, so their existence is not verified until the first request.
+	 *
+	 * @param target  The {@link DeployTarget}. Cannot be {@code null}.
+	 * @param options The {@link RepositoryOptions}. Cannot be {@code null}.
+	 *
+	 * @return A new, non-{@code null} instance of {@link S3BucketRepository}.
+	 *
+	 * @throws BucketDoesNotExistException if the specified bucket does not exist.
+	 */
+	public S3BucketRepository create(final DeployTarget target, final RepositoryOptions options)
+			throws BucketDoesNotExistException {
+		checkNotNull(target, "target cannot be null");
+		checkNotNull(options, "options cannot be null");
+		final String region = isBlank(target.getRegion()) ? null : target.getRegion();
+		final AmazonS3 targetClient = clientCache.getClient(
+				region == null ? AmazonS3ClientFactory.DEFAULT_REGION : region, options.getClientSettings(),
+				credentialsProviderCache.get(options.getCredentials()));
+		return create(targetClient, target.getBucket(), region, target.getHostingUrl(), options);
+	}
+
+	private S3BucketRepository create(final AmazonS3 client, final String bucketName, final String region,
+	                                  final String hostingUrl, final RepositoryOptions options)
+			throws BucketDoesNotExistException {
+		final PutObjectRequestFactory filePutObjectRequestFactory =
+				new PutObjectRequestFactory(bucketName, bandwidthLimiter, options.getMetadataPolicy());
 		final DeleteObjectRequestFactory deleteObjectRequestFactory = new DeleteObjectRequestFactory(bucketName);
 		final ListObjectsRequestFactory listObjectsRequestFactory = new ListObjectsRequestFactory(bucketName);
 		final HeadBucketRequestFactory headBucketRequestFactory = new HeadBucketRequestFactory(bucketName);
+		final GetObjectRequestFactory getObjectRequestFactory = new GetObjectRequestFactory(bucketName);
 		final BucketTrieFactory bucketTrieFactory = new BucketTrieFactory();
-		return new S3BucketRepositoryImpl(client, bucketName, filePutObjectRequestFactory, deleteObjectRequestFactory,
-				listObjectsRequestFactory, headBucketRequestFactory, bucketTrieFactory);
+		String bucketRegion = region;
+		// The region is only needed to derive the hosting URL, so an explicit region or hosting URL avoids the lookup
+		if (bucketRegion == null && isBlank(hostingUrl)) {
+			bucketRegion = new BucketLocator(client, bucketName, headBucketRequestFactory, requestLimiter, regionCache)
+					.locate().orNull();
+		}
+		final S3BucketRepository repository = new S3BucketRepositoryImpl(client, bucketName,
+				filePutObjectRequestFactory, deleteObjectRequestFactory, listObjectsRequestFactory,
+				headBucketRequestFactory, getObjectRequestFactory, bucketTrieFactory, requestLimiter, bucketRegion,
+				isBlank(hostingUrl) ? null : hostingUrl);
+		if (options.getBackend() == TransferBackend.ASYNC) {
+			return new AsyncS3BucketRepositoryImpl(client, repository, filePutObjectRequestFactory,
+					deleteObjectRequestFactory, bucketTrieFactory, requestLimiter, AsyncExecutorHolder.EXECUTOR);
+		}
+		return repository;
+	}
+
+	private static boolean isBlank(final String value) {
+		return value == null || value.trim().isEmpty();
+	}
+
+	/**
+	 * Holds the executor of the asynchronous backend, which is shared by every repository and created on first use.
+	 * Threads are only created while requests are in flight, so their number is bounded by the in-flight request limit,
+	 * and idle threads are discarded.
+	 */
+	private static final class AsyncExecutorHolder {
+
+		private static final ListeningExecutorService EXECUTOR = MoreExecutors.listeningDecorator(
+				Executors.newCachedThreadPool(
+						new ThreadFactoryBuilder().setNameFormat("aws-p2-transfer-%d").setDaemon(true).build()));
+
 	}
 
 }
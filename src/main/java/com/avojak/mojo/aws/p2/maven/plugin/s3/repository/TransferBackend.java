@@ -0,0 +1,19 @@
+package com.avojak.mojo.aws.p2.maven.plugin.s3.repository;
+
+/**
+ * The backend which carries out the transfers of an {@link S3BucketRepository}.
+ */
+public enum TransferBackend {
+
+	/**
+	 * Each request is issued and completed on the calling thread.
+	 */
+	BLOCKING,
+
+	/**
+	 * Requests are composed as futures and issued concurrently on a shared pool of threads, bounded by the in-flight
+	 * request limit, and deletes are batched.
+	 */
+	ASYNC
+
+}
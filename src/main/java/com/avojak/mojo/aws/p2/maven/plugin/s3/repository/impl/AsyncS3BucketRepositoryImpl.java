@@ -0,0 +1,359 @@
+package com.avojak.mojo.aws.p2.maven.plugin.s3.repository.impl;
+
+import com.amazonaws.services.s3.AmazonS3;
+import com.amazonaws.services.s3.model.DeleteObjectsRequest;
+import com.amazonaws.services.s3.model.DeleteObjectsRequest.KeyVersion;
+import com.amazonaws.services.s3.model.ObjectMetadata;
+import com.amazonaws.services.s3.model.PutObjectRequest;
+import com.amazonaws.services.s3.model.S3ObjectSummary;
+import com.amazonaws.services.s3.model.S3VersionSummary;
+import com.avojak.mojo.aws.p2.maven.plugin.s3.exception.ObjectRequestCreationException;
+import com.avojak.mojo.aws.p2.maven.plugin.s3.limit.InFlightRequestLimiter;
+import com.avojak.mojo.aws.p2.maven.plugin.s3.model.BucketPath;
+import com.avojak.mojo.aws.p2.maven.plugin.s3.model.trie.Trie;
+import com.avojak.mojo.aws.p2.maven.plugin.s3.model.trie.impl.BucketTrieFactory;
+import com.avojak.mojo.aws.p2.maven.plugin.s3.repository.S3BucketRepository;
+import com.avojak.mojo.aws.p2.maven.plugin.s3.repository.S3BucketRepositoryFactory;
+import com.avojak.mojo.aws.p2.maven.plugin.s3.request.factory.delete.DeleteObjectRequestFactory;
+import com.avojak.mojo.aws.p2.maven.plugin.s3.request.factory.put.PutObjectRequestFactory;
+import com.avojak.mojo.aws.p2.maven.plugin.util.resource.ResourceUtil;
+import com.google.common.base.Function;
+import com.google.common.base.Optional;
+import com.google.common.base.Throwables;
+import com.google.common.collect.Iterables;
+import com.google.common.util.concurrent.Futures;
+import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.ListeningExecutorService;
+import com.google.common.util.concurrent.MoreExecutors;
+import com.google.common.util.concurrent.UncheckedExecutionException;
+import com.google.common.util.concurrent.Uninterruptibles;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.RejectedExecutionException;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * Implementation of {@link S3BucketRepository} which composes uploads and deletes as {@link ListenableFuture futures}
+ * and issues them concurrently on a shared executor. Instances should be created with {@link
+ * S3BucketRepositoryFactory}.
+ * <p>
+ * A permit is acquired from the {@link InFlightRequestLimiter} before each request is submitted, and released once it
+ * completes, so callers which submit faster than the bucket responds are held back rather than queueing without bound.
+ * Objects are deleted in batches of up to {@link DeleteObjectRequestFactory#MAX_KEYS_PER_REQUEST} keys, each batch
+ * being submitted as soon as the listing has produced it. Listings, downloads and hosting URLs are served by the
+ * delegate repository.
+ */
+public class AsyncS3BucketRepositoryImpl implements S3BucketRepository {
+
+	private static final Logger LOGGER = LoggerFactory.getLogger(AsyncS3BucketRepositoryImpl.class);
+
+	private static final Function<List<Integer>, Integer> SUM = new Function<List<Integer>, Integer>() {
+		@Override
+		public Integer apply(final List<Integer> counts) {
+			int total = 0;
+			for (final Integer count : counts) {
+				total += count;
+			}
+			return total;
+		}
+	};
+
+	private final AmazonS3 client;
+	private final S3BucketRepository delegate;
+	private final PutObjectRequestFactory putObjectRequestFactory;
+	private final DeleteObjectRequestFactory deleteObjectRequestFactory;
+	private final BucketTrieFactory bucketTrieFactory;
+	private final InFlightRequestLimiter requestLimiter;
+	private final ListeningExecutorService executor;
+
+	/**
+	 * Constructor.
+	 *
+	 * @param client                     The {@link AmazonS3} client. Cannot be {@code null}.
+	 * @param delegate                   The {@link S3BucketRepository} for the same bucket, which serves listings,
+	 *                                   downloads and hosting URLs. Cannot be {@code null}.
+	 * @param putObjectRequestFactory    The {@link PutObjectRequestFactory} for {@link File files}. Cannot be {@code
+	 *                                   null}.
+	 * @param deleteObjectRequestFactory The {@link DeleteObjectRequestFactory}. Cannot be {@code null}.
+	 * @param bucketTrieFactory          The {@link BucketTrieFactory}. Cannot be {@code null}.
+	 * @param requestLimiter             The {@link InFlightRequestLimiter}. Cannot be {@code null}.
+	 * @param executor                   The {@link ListeningExecutorService} on which requests are issued. Cannot be
+	 *                                   {@code null}.
+	 */
+	public AsyncS3BucketRepositoryImpl(final AmazonS3 client, final S3BucketRepository delegate,
+	                                   final PutObjectRequestFactory putObjectRequestFactory,
+	                                   final DeleteObjectRequestFactory deleteObjectRequestFactory,
+	                                   final BucketTrieFactory bucketTrieFactory,
+	                                   final InFlightRequestLimiter requestLimiter,
+	                                   final ListeningExecutorService executor) {
+		this.client = checkNotNull(client, "client cannot be null");
+		this.delegate = checkNotNull(delegate, "delegate cannot be null");
+		this.putObjectRequestFactory = checkNotNull(putObjectRequestFactory, "putObjectRequestFactory cannot be null");
+		this.deleteObjectRequestFactory =
+				checkNotNull(deleteObjectRequestFactory, "deleteObjectRequestFactory cannot be null");
+		this.bucketTrieFactory = checkNotNull(bucketTrieFactory, "bucketTrieFactory cannot be null");
+		this.requestLimiter = checkNotNull(requestLimiter, "requestLimiter cannot be null");
+		this.executor = checkNotNull(executor, "executor cannot be null");
+	}
+
+	@Override
+	public String uploadFile(final File src, final BucketPath dest) {
+		return await(uploadFileAsync(src, dest));
+	}
+
+	/**
+	 * Uploads a file into the given location in the bucket without waiting for the upload to complete. This method
+	 * blocks only while the number of in-flight requests is at its limit.
+	 *
+	 * @param src  The source {@link File} to upload. Cannot be {@code null}.
+	 * @param dest The destination {@link BucketPath} location within the bucket. Cannot be {@code null}.
+	 *
+	 * @return The non-{@code null} {@link ListenableFuture} of the {@link String} key of the file which was uploaded,
+	 * or of {@code null} if no file was uploaded.
+	 */
+	public ListenableFuture<String> uploadFileAsync(final File src, final BucketPath dest) {
+		checkNotNull(src, "src cannot be null");
+		checkNotNull(dest, "dest cannot be null");
+		if (!src.exists() || !src.isFile()) {
+			LOGGER.warn(ResourceUtil.getString(getClass(), "warn.fileNotAccessible"), src.getName());
+			return Futures.immediateFuture(null);
+		}
+		final String key = dest.asString();
+		final PutObjectRequest putObjectRequest;
+		try {
+			putObjectRequest = putObjectRequestFactory.create(src, key);
+		} catch (final ObjectRequestCreationException e) {
+			LOGGER.error(ResourceUtil.getString(getClass(), "error.failedUploadRequestCreation"), e);
+			return Futures.immediateFuture(null);
+		}
+		LOGGER.debug(ResourceUtil.getString(getClass(), "debug.uploadingFile"), key);
+		return submit(new Callable<String>() {
+			@Override
+			public String call() {
+				client.putObject(putObjectRequest);
+				return key;
+			}
+		});
+	}
+
+	@Override
+	public String uploadFile(final File src, final ByteBuffer content, final BucketPath dest) {
+		return delegate.uploadFile(src, content, dest);
+	}
+
+	@Override
+	public Trie<String, String> uploadDirectory(final File srcDir, final BucketPath dest) {
+		checkNotNull(srcDir, "srcDir cannot be null");
+		checkNotNull(dest, "dest cannot be null");
+		final String prefix = dest.getParent().orNull();
+		LOGGER.debug(ResourceUtil.getString(getClass(), "debug.determinedTriePrefix"), prefix);
+		final Trie<String, String> content =
+				prefix == null ? bucketTrieFactory.create() : bucketTrieFactory.create(prefix);
+		final List<String> keys = new ArrayList<String>();
+		final List<ListenableFuture<String>> uploads = new ArrayList<ListenableFuture<String>>();
+		uploadDirectory(srcDir, dest, keys, uploads);
+		await(Futures.allAsList(uploads));
+		// The trie is populated in the order in which the files were found, regardless of when each upload completed
+		for (final String key : keys) {
+			content.insert(key, getHostingUrl(key));
+		}
+		return content;
+	}
+
+	/**
+	 * Recursive helper method for submitting the uploads of a directory.
+	 */
+	private void uploadDirectory(final File srcDir, final BucketPath dest, final List<String> keys,
+	                             final List<ListenableFuture<String>> uploads) {
+		if (!srcDir.exists() || !srcDir.isDirectory()) {
+			LOGGER.warn(ResourceUtil.getString(getClass(), "warn.directoryNotAccessible"), srcDir.getName());
+			return;
+		}
+		final File[] directoryContents = srcDir.listFiles();
+		if (directoryContents == null) {
+			LOGGER.warn(ResourceUtil.getString(getClass(), "warn.directoryContentsNull"), srcDir.getName());
+			return;
+		}
+		if (directoryContents.length == 0) {
+			LOGGER.debug(ResourceUtil.getString(getClass(), "debug.skippingEmptyDirectory"), srcDir.getName());
+			return;
+		}
+		for (final File file : directoryContents) {
+			final BucketPath nextDest = new BucketPath(dest).append(file.getName());
+			if (file.isFile()) {
+				uploads.add(uploadFileAsync(file, nextDest));
+				keys.add(nextDest.asString());
+			} else if (file.isDirectory()) {
+				uploadDirectory(file, nextDest, keys, uploads);
+			}
+		}
+	}
+
+	@Override
+	public void deleteDirectory(final String prefix) {
+		await(deleteDirectoryAsync(prefix));
+	}
+
+	/**
+	 * Deletes all objects whose key matches the given prefix without waiting for the deletes to complete. The listing
+	 * is paged through on the calling thread, and each batch of keys is deleted while the next page is requested.
+	 *
+	 * @param prefix The key prefix. Cannot be {@code null} or empty.
+	 *
+	 * @return The non-{@code null} {@link ListenableFuture} of the number of objects deleted.
+	 */
+	public ListenableFuture<Integer> deleteDirectoryAsync(final String prefix) {
+		checkNotNull(prefix, "prefix cannot be null");
+		checkArgument(!prefix.trim().isEmpty(), "prefix cannot be empty");
+		final List<ListenableFuture<Integer>> batches = new ArrayList<ListenableFuture<Integer>>();
+		List<String> keys = new ArrayList<String>();
+		for (final S3ObjectSummary summary : delegate.iterate(prefix)) {
+			keys.add(summary.getKey());
+			if (keys.size() == DeleteObjectRequestFactory.MAX_KEYS_PER_REQUEST) {
+				batches.add(deleteBatch(keys));
+				keys = new ArrayList<String>();
+			}
+		}
+		if (!keys.isEmpty()) {
+			batches.add(deleteBatch(keys));
+		}
+		return Futures.transform(Futures.allAsList(batches), SUM, MoreExecutors.directExecutor());
+	}
+
+	@Override
+	public void deleteObjects(final Collection<String> keys) {
+		await(deleteObjectsAsync(keys));
+	}
+
+	@Override
+	public void deleteVersions(final Collection<KeyVersion> versions) {
+		delegate.deleteVersions(versions);
+	}
+
+	/**
+	 * Deletes the objects with the given keys in batches, without waiting for the deletes to complete.
+	 *
+	 * @param keys The {@link Collection} of object keys. Cannot be {@code null}.
+	 *
+	 * @return The non-{@code null} {@link ListenableFuture} of the number of objects deleted.
+	 */
+	public ListenableFuture<Integer> deleteObjectsAsync(final Collection<String> keys) {
+		checkNotNull(keys, "keys cannot be null");
+		final List<ListenableFuture<Integer>> batches = new ArrayList<ListenableFuture<Integer>>();
+		for (final List<String> batch : Iterables.partition(keys, DeleteObjectRequestFactory.MAX_KEYS_PER_REQUEST)) {
+			batches.add(deleteBatch(batch));
+		}
+		return Futures.transform(Futures.allAsList(batches), SUM, MoreExecutors.directExecutor());
+	}
+
+	private ListenableFuture<Integer> deleteBatch(final List<String> keys) {
+		final DeleteObjectsRequest deleteObjectsRequest = deleteObjectRequestFactory.createBatch(keys);
+		LOGGER.debug(ResourceUtil.getString(getClass(), "debug.deletingObjects"), keys.size(), keys.get(0));
+		return submit(new Callable<Integer>() {
+			@Override
+			public Integer call() {
+				client.deleteObjects(deleteObjectsRequest);
+				return keys.size();
+			}
+		});
+	}
+
+	@Override
+	public List<S3ObjectSummary> enumerate(final String prefix) {
+		return delegate.enumerate(prefix);
+	}
+
+	@Override
+	public Iterable<S3ObjectSummary> iterate(final String prefix) {
+		return delegate.iterate(prefix);
+	}
+
+	@Override
+	public Iterable<S3ObjectSummary> iterateAll() {
+		return delegate.iterateAll();
+	}
+
+	@Override
+	public Iterable<S3ObjectSummary> iterateAfter(final String prefix, final String marker) {
+		return delegate.iterateAfter(prefix, marker);
+	}
+
+	@Override
+	public Iterable<S3ObjectSummary> iterateChildren(final String prefix) {
+		return delegate.iterateChildren(prefix);
+	}
+
+	@Override
+	public Iterable<S3VersionSummary> iterateVersions(final String prefix) {
+		return delegate.iterateVersions(prefix);
+	}
+
+	@Override
+	public List<String> listDirectories(final String prefix) {
+		return delegate.listDirectories(prefix);
+	}
+
+	@Override
+	public Optional<ObjectMetadata> getMetadata(final String key) {
+		return delegate.getMetadata(key);
+	}
+
+	@Override
+	public long downloadRange(final String key, final long start, final long end, final FileChannel channel)
+			throws IOException {
+		return delegate.downloadRange(key, start, end, channel);
+	}
+
+	@Override
+	public String getHostingUrl(final String key) {
+		return delegate.getHostingUrl(key);
+	}
+
+	/**
+	 * Submits a request to the executor once a permit is available, releasing the permit when the request completes.
+	 */
+	private <T> ListenableFuture<T> submit(final Callable<T> request) {
+		requestLimiter.acquire();
+		try {
+			return executor.submit(new Callable<T>() {
+				@Override
+				public T call() throws Exception {
+					try {
+						return request.call();
+					} finally {
+						requestLimiter.release();
+					}
+				}
+			});
+		} catch (final RejectedExecutionException e) {
+			requestLimiter.release();
+			throw e;
+		}
+	}
+
+	/**
+	 * Waits for the given future, rethrowing the failure of the request as it would have been thrown by the blocking
+	 * repository.
+	 */
+	private static <T> T await(final ListenableFuture<T> future) {
+		try {
+			return Uninterruptibles.getUninterruptibly(future);
+		} catch (final ExecutionException e) {
+			Throwables.throwIfUnchecked(e.getCause());
+			throw new UncheckedExecutionException(e.getCause());
+		}
+	}
+
+}
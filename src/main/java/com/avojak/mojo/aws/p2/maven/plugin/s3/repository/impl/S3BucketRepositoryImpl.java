@@ -1,30 +1,50 @@
 package com.avojak.mojo.aws.p2.maven.plugin.s3.repository.impl;
 
 import com.amazonaws.services.s3.AmazonS3;
+import com.amazonaws.services.s3.model.AmazonS3Exception;
 import com.amazonaws.services.s3.model.DeleteObjectRequest;
+import com.amazonaws.services.s3.model.DeleteObjectsRequest;
+import com.amazonaws.services.s3.model.DeleteObjectsRequest.KeyVersion;
+import com.amazonaws.services.s3.model.GetObjectMetadataRequest;
+import com.amazonaws.services.s3.model.GetObjectRequest;
 import com.amazonaws.services.s3.model.HeadBucketRequest;
 import com.amazonaws.services.s3.model.HeadBucketResult;
 import com.amazonaws.services.s3.model.ListObjectsRequest;
 import com.amazonaws.services.s3.model.ObjectListing;
+import com.amazonaws.services.s3.model.ObjectMetadata;
+import com.amazonaws.services.s3.model.PutObjectRequest;
+import com.amazonaws.services.s3.model.S3Object;
 import com.amazonaws.services.s3.model.S3ObjectSummary;
-import com.avojak.mojo.aws.p2.maven.plugin.s3.exception.BucketDoesNotExistException;
+import com.amazonaws.services.s3.model.S3VersionSummary;
 import com.avojak.mojo.aws.p2.maven.plugin.s3.exception.ObjectRequestCreationException;
+import com.avojak.mojo.aws.p2.maven.plugin.s3.limit.InFlightRequestLimiter;
+import com.avojak.mojo.aws.p2.maven.plugin.s3.listing.ObjectSummaryIterable;
+import com.avojak.mojo.aws.p2.maven.plugin.s3.listing.VersionSummaryIterable;
 import com.avojak.mojo.aws.p2.maven.plugin.s3.model.BucketPath;
 import com.avojak.mojo.aws.p2.maven.plugin.s3.model.trie.Trie;
 import com.avojak.mojo.aws.p2.maven.plugin.s3.model.trie.impl.BucketTrieFactory;
 import com.avojak.mojo.aws.p2.maven.plugin.s3.repository.S3BucketRepository;
 import com.avojak.mojo.aws.p2.maven.plugin.s3.repository.S3BucketRepositoryFactory;
 import com.avojak.mojo.aws.p2.maven.plugin.s3.request.factory.delete.DeleteObjectRequestFactory;
+import com.avojak.mojo.aws.p2.maven.plugin.s3.request.factory.get.GetObjectRequestFactory;
 import com.avojak.mojo.aws.p2.maven.plugin.s3.request.factory.head.HeadBucketRequestFactory;
 import com.avojak.mojo.aws.p2.maven.plugin.s3.request.factory.list.ListObjectsRequestFactory;
 import com.avojak.mojo.aws.p2.maven.plugin.s3.request.factory.put.PutObjectRequestFactory;
 import com.avojak.mojo.aws.p2.maven.plugin.util.resource.ResourceUtil;
+import com.google.common.base.Optional;
+import com.google.common.collect.Iterables;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
 import java.text.MessageFormat;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.List;
 
 import static com.google.common.base.Preconditions.checkArgument;
@@ -32,21 +52,30 @@ import static com.google.common.base.Preconditions.checkNotNull;
 
 /**
  * Implementation of {@link S3BucketRepository} to wrap an {@link AmazonS3} bucket. Instances should be created with
- * {@link S3BucketRepositoryFactory}.
+ * {@link S3BucketRepositoryFactory}, which verifies that the bucket exists.
+ * <p>
+ * Instances are thread-safe. Every request to the bucket holds a permit from the {@link InFlightRequestLimiter} until
+ * its response has been consumed.
  */
 public class S3BucketRepositoryImpl implements S3BucketRepository {
 
 	private static final Logger LOGGER = LoggerFactory.getLogger(S3BucketRepositoryImpl.class);
 
+	private static final int DOWNLOAD_BUFFER_SIZE = 64 * 1024;
+	private static final int NOT_FOUND = 404;
+
 	private final AmazonS3 client;
 	private final String bucketName;
 	private final PutObjectRequestFactory putObjectRequestFactory;
 	private final DeleteObjectRequestFactory deleteObjectRequestFactory;
 	private final ListObjectsRequestFactory listObjectsRequestFactory;
 	private final HeadBucketRequestFactory headBucketRequestFactory;
+	private final GetObjectRequestFactory getObjectRequestFactory;
 	private final BucketTrieFactory bucketTrieFactory;
+	private final InFlightRequestLimiter requestLimiter;
+	private final String hostingBaseUrl;
 
-	private String bucketRegion;
+	private volatile String bucketRegion;
 
 	/**
 	 * Constructor.
@@ -59,16 +88,23 @@ public class S3BucketRepositoryImpl implements S3BucketRepository {
 	 * @param deleteObjectRequestFactory The {@link DeleteObjectRequestFactory}. Cannot be {@code null}.
 	 * @param listObjectsRequestFactory  The {@link ListObjectsRequestFactory}. Cannot be {@code null}.
 	 * @param headBucketRequestFactory   The {@link HeadBucketRequestFactory}. Cannot be {@code null}.
+	 * @param getObjectRequestFactory    The {@link GetObjectRequestFactory}. Cannot be {@code null}.
 	 * @param bucketTrieFactory          The {@link BucketTrieFactory}. Cannot be {@code null}.
-	 *
-	 * @throws BucketDoesNotExistException if the specified bucketName does not refer to an existing bucket.
+	 * @param requestLimiter             The {@link InFlightRequestLimiter}. Cannot be {@code null}.
+	 * @param bucketRegion               The region of the bucket, if already known. May be {@code null}, in which case
+	 *                                   the region is looked up if it is needed.
+	 * @param hostingBaseUrl             The base URL from which the bucket content is served. May be {@code null}, in
+	 *                                   which case the AWS static website hosting URL of the bucket is used.
 	 */
 	public S3BucketRepositoryImpl(final AmazonS3 client, final String bucketName,
 	                              final PutObjectRequestFactory putObjectRequestFactory,
 	                              final DeleteObjectRequestFactory deleteObjectRequestFactory,
 	                              final ListObjectsRequestFactory listObjectsRequestFactory,
 	                              final HeadBucketRequestFactory headBucketRequestFactory,
-	                              final BucketTrieFactory bucketTrieFactory) throws BucketDoesNotExistException {
+	                              final GetObjectRequestFactory getObjectRequestFactory,
+	                              final BucketTrieFactory bucketTrieFactory,
+	                              final InFlightRequestLimiter requestLimiter, final String bucketRegion,
+	                              final String hostingBaseUrl) {
 		this.client = checkNotNull(client, "client cannot be null");
 		this.bucketName = checkNotNull(bucketName, "bucketName cannot be null");
 		checkArgument(!bucketName.trim().isEmpty(), "bucketName cannot be empty");
@@ -79,10 +115,11 @@ public class S3BucketRepositoryImpl implements S3BucketRepository {
 				checkNotNull(listObjectsRequestFactory, "listObjectsRequestFactory cannot be null");
 		this.headBucketRequestFactory =
 				checkNotNull(headBucketRequestFactory, "headBucketRequestFactory cannot be null");
+		this.getObjectRequestFactory = checkNotNull(getObjectRequestFactory, "getObjectRequestFactory cannot be null");
 		this.bucketTrieFactory = checkNotNull(bucketTrieFactory, "bucketTrieFactory cannot be null");
-		if (!client.doesBucketExist(bucketName)) {
-			throw new BucketDoesNotExistException(bucketName);
-		}
+		this.requestLimiter = checkNotNull(requestLimiter, "requestLimiter cannot be null");
+		this.bucketRegion = bucketRegion;
+		this.hostingBaseUrl = hostingBaseUrl;
 	}
 
 	@Override
@@ -96,7 +133,7 @@ public class S3BucketRepositoryImpl implements S3BucketRepository {
 		final String key = dest.asString();
 		try {
 			LOGGER.debug(ResourceUtil.getString(getClass(), "debug.uploadingFile"), key);
-			client.putObject(putObjectRequestFactory.create(src, key));
+			putObject(putObjectRequestFactory.create(src, key));
 		} catch (final ObjectRequestCreationException e) {
 			LOGGER.error(ResourceUtil.getString(getClass(), "error.failedUploadRequestCreation"), e);
 			return null;
@@ -104,11 +141,31 @@ public class S3BucketRepositoryImpl implements S3BucketRepository {
 		return key;
 	}
 
+	@Override
+	public String uploadFile(final File src, final ByteBuffer content, final BucketPath dest) {
+		checkNotNull(src, "src cannot be null");
+		checkNotNull(content, "content cannot be null");
+		checkNotNull(dest, "dest cannot be null");
+		final String key = dest.asString();
+		LOGGER.debug(ResourceUtil.getString(getClass(), "debug.uploadingFile"), key);
+		putObject(putObjectRequestFactory.create(src, content, key));
+		return key;
+	}
+
+	private void putObject(final PutObjectRequest putObjectRequest) {
+		requestLimiter.acquire();
+		try {
+			client.putObject(putObjectRequest);
+		} finally {
+			requestLimiter.release();
+		}
+	}
+
 	@Override
 	public Trie<String, String> uploadDirectory(final File srcDir, final BucketPath dest) {
 		checkNotNull(srcDir, "srcDir cannot be null");
 		checkNotNull(dest, "dest cannot be null");
-		final String prefix = getPrefix(dest.asString());
+		final String prefix = dest.getParent().orNull();
 		LOGGER.debug(ResourceUtil.getString(getClass(), "debug.determinedTriePrefix"), prefix);
 		final Trie<String, String> content =
 				prefix == null ? bucketTrieFactory.create() : bucketTrieFactory.create(prefix);
@@ -116,21 +173,6 @@ public class S3BucketRepositoryImpl implements S3BucketRepository {
 		return content;
 	}
 
-	/**
-	 * Determines the trie prefix to use based on the destination in the bucket. The prefix will be the substring of the
-	 * given destination beginning after the last path separator.
-	 * <p>
-	 * For example, given the destination "some/folder/subfolder", the prefix will be "some/folder". If there is no
-	 * path separator in the given destination, then there will be no prefix, {@code null} will be returned.
-	 */
-	private String getPrefix(final String destination) {
-		final int lastSeparatorIndex = destination.lastIndexOf(BucketPath.PATH_DELIM);
-		if (lastSeparatorIndex == -1) {
-			return null;
-		}
-		return destination.substring(0, lastSeparatorIndex);
-	}
-
 	/**
 	 * Recursive helper method for uploading a directory.
 	 */
@@ -171,48 +213,188 @@ public class S3BucketRepositoryImpl implements S3BucketRepository {
 			final String key = summary.getKey();
 			final DeleteObjectRequest deleteObjectRequest = deleteObjectRequestFactory.create(key);
 			LOGGER.debug(ResourceUtil.getString(getClass(), "debug.deleteExistingObject"), key);
-			client.deleteObject(deleteObjectRequest);
+			requestLimiter.acquire();
+			try {
+				client.deleteObject(deleteObjectRequest);
+			} finally {
+				requestLimiter.release();
+			}
+		}
+	}
+
+	@Override
+	public void deleteObjects(final Collection<String> keys) {
+		checkNotNull(keys, "keys cannot be null");
+		for (final List<String> batch : Iterables.partition(keys, DeleteObjectRequestFactory.MAX_KEYS_PER_REQUEST)) {
+			final DeleteObjectsRequest deleteObjectsRequest = deleteObjectRequestFactory.createBatch(batch);
+			LOGGER.debug(ResourceUtil.getString(getClass(), "debug.deletingObjects"), batch.size(), batch.get(0));
+			requestLimiter.acquire();
+			try {
+				client.deleteObjects(deleteObjectsRequest);
+			} finally {
+				requestLimiter.release();
+			}
+		}
+	}
+
+	@Override
+	public void deleteVersions(final Collection<KeyVersion> versions) {
+		checkNotNull(versions, "versions cannot be null");
+		for (final List<KeyVersion> batch : Iterables.partition(versions,
+				DeleteObjectRequestFactory.MAX_KEYS_PER_REQUEST)) {
+			final DeleteObjectsRequest deleteObjectsRequest = deleteObjectRequestFactory.createVersionBatch(batch);
+			LOGGER.debug(ResourceUtil.getString(getClass(), "debug.deletingVersions"), batch.size(),
+					batch.get(0).getKey());
+			requestLimiter.acquire();
+			try {
+				client.deleteObjects(deleteObjectsRequest);
+			} finally {
+				requestLimiter.release();
+			}
 		}
 	}
 
 	@Override
 	public List<S3ObjectSummary> enumerate(final String prefix) {
+		final List<S3ObjectSummary> objectSummaries = new ArrayList<S3ObjectSummary>();
+		for (final S3ObjectSummary summary : iterate(prefix)) {
+			objectSummaries.add(summary);
+		}
+		return objectSummaries;
+	}
+
+	@Override
+	public Iterable<S3ObjectSummary> iterate(final String prefix) {
 		checkNotNull(prefix, "prefix cannot be null");
 		checkArgument(!prefix.trim().isEmpty(), "prefix cannot be empty");
-		final List<S3ObjectSummary> objectSummaries = new ArrayList<S3ObjectSummary>();
-		final ListObjectsRequest listObjectsRequest = listObjectsRequestFactory.create(prefix);
-		ObjectListing objectListing = client.listObjects(listObjectsRequest);
-		List<S3ObjectSummary> currentSummaries = objectListing.getObjectSummaries();
-		while (true) {
-			objectSummaries.addAll(currentSummaries);
-			// Ensure that we get all objects. Not all may be returned by the first call to listObjects()
-			if (objectListing.isTruncated()) {
-				objectListing = client.listNextBatchOfObjects(objectListing);
-				currentSummaries = objectListing.getObjectSummaries();
-			} else {
-				break;
+		// Not all objects may be returned by the first call to listObjects(), so the iterable pages through the rest
+		return new ObjectSummaryIterable(client, listObjectsRequestFactory.create(prefix), requestLimiter);
+	}
+
+	@Override
+	public Iterable<S3ObjectSummary> iterateAll() {
+		return new ObjectSummaryIterable(client, listObjectsRequestFactory.create(null), requestLimiter);
+	}
+
+	@Override
+	public Iterable<S3ObjectSummary> iterateAfter(final String prefix, final String marker) {
+		checkNotNull(prefix, "prefix cannot be null");
+		checkArgument(!prefix.trim().isEmpty(), "prefix cannot be empty");
+		return new ObjectSummaryIterable(client, listObjectsRequestFactory.createAfter(prefix, marker), requestLimiter);
+	}
+
+	@Override
+	public Iterable<S3ObjectSummary> iterateChildren(final String prefix) {
+		checkNotNull(prefix, "prefix cannot be null");
+		checkArgument(!prefix.trim().isEmpty(), "prefix cannot be empty");
+		return new ObjectSummaryIterable(client,
+				listObjectsRequestFactory.create(prefix, String.valueOf(BucketPath.PATH_DELIM)), requestLimiter);
+	}
+
+	@Override
+	public Iterable<S3VersionSummary> iterateVersions(final String prefix) {
+		checkNotNull(prefix, "prefix cannot be null");
+		checkArgument(!prefix.trim().isEmpty(), "prefix cannot be empty");
+		return new VersionSummaryIterable(client, listObjectsRequestFactory.createVersions(prefix), requestLimiter);
+	}
+
+	@Override
+	public List<String> listDirectories(final String prefix) {
+		checkNotNull(prefix, "prefix cannot be null");
+		checkArgument(!prefix.trim().isEmpty(), "prefix cannot be empty");
+		final ListObjectsRequest listObjectsRequest =
+				listObjectsRequestFactory.create(prefix, String.valueOf(BucketPath.PATH_DELIM));
+		final List<String> directories = new ArrayList<String>();
+		ObjectListing listing = null;
+		do {
+			requestLimiter.acquire();
+			try {
+				listing = listing == null ? client.listObjects(listObjectsRequest)
+						: client.listNextBatchOfObjects(listing);
+			} finally {
+				requestLimiter.release();
+			}
+			directories.addAll(listing.getCommonPrefixes());
+		} while (listing.isTruncated());
+		return directories;
+	}
+
+	@Override
+	public Optional<ObjectMetadata> getMetadata(final String key) {
+		final GetObjectMetadataRequest getObjectMetadataRequest = getObjectRequestFactory.createMetadata(key);
+		requestLimiter.acquire();
+		try {
+			return Optional.of(client.getObjectMetadata(getObjectMetadataRequest));
+		} catch (final AmazonS3Exception e) {
+			if (e.getStatusCode() == NOT_FOUND) {
+				return Optional.absent();
 			}
+			throw e;
+		} finally {
+			requestLimiter.release();
 		}
-		return objectSummaries;
+	}
+
+	@Override
+	public long downloadRange(final String key, final long start, final long end, final FileChannel channel)
+			throws IOException {
+		checkNotNull(channel, "channel cannot be null");
+		final GetObjectRequest getObjectRequest = getObjectRequestFactory.create(key, start, end);
+		LOGGER.debug(ResourceUtil.getString(getClass(), "debug.downloadingRange"), key, start, end);
+		final ByteBuffer buffer = ByteBuffer.allocate(DOWNLOAD_BUFFER_SIZE);
+		long position = start;
+		// The connection is held until the content has been read, so the permit is too
+		requestLimiter.acquire();
+		try (final S3Object object = client.getObject(getObjectRequest);
+		     final ReadableByteChannel source = Channels.newChannel(object.getObjectContent())) {
+			while (source.read(buffer) != -1) {
+				buffer.flip();
+				while (buffer.hasRemaining()) {
+					position += channel.write(buffer, position);
+				}
+				buffer.clear();
+			}
+		} finally {
+			requestLimiter.release();
+		}
+		return position - start;
 	}
 
 	@Override
 	public String getHostingUrl(final String key) {
+		if (hostingBaseUrl != null) {
+			final String baseUrl = hostingBaseUrl.endsWith("/") ? hostingBaseUrl : hostingBaseUrl + "/";
+			return baseUrl + (key == null ? "" : key);
+		}
 		final String hostingUrlFormat = ResourceUtil.getString(getClass(), "hostingUrlFormat");
 		return MessageFormat.format(hostingUrlFormat, bucketName, getBucketRegion(), key == null ? "" : key);
 	}
 
 	/**
 	 * Gets the bucket region. If the region is needed, this method should be used to retrieve it. The actual lookup
-	 * should only have to be done once, so the result is cached.
+	 * should only have to be done once, so the result is cached. Concurrent callers wait for a single lookup rather than
+	 * each issuing their own.
 	 */
 	private String getBucketRegion() {
-		if (bucketRegion == null) {
-			final HeadBucketRequest headBucketRequest = headBucketRequestFactory.create();
-			final HeadBucketResult headBucketResult = client.headBucket(headBucketRequest);
-			bucketRegion = headBucketResult.getBucketRegion();
+		String region = bucketRegion;
+		if (region == null) {
+			synchronized (this) {
+				region = bucketRegion;
+				if (region == null) {
+					final HeadBucketRequest headBucketRequest = headBucketRequestFactory.create();
+					final HeadBucketResult headBucketResult;
+					requestLimiter.acquire();
+					try {
+						headBucketResult = client.headBucket(headBucketRequest);
+					} finally {
+						requestLimiter.release();
+					}
+					region = headBucketResult.getBucketRegion();
+					bucketRegion = region;
+				}
+			}
 		}
-		return bucketRegion;
+		return region;
 	}
 
 }
@@ -1,15 +1,25 @@
 package com.avojak.mojo.aws.p2.maven.plugin.s3.request.factory.delete;
 
 import com.amazonaws.services.s3.model.DeleteObjectRequest;
+import com.amazonaws.services.s3.model.DeleteObjectsRequest;
+import com.amazonaws.services.s3.model.DeleteObjectsRequest.KeyVersion;
+
+import java.util.ArrayList;
+import java.util.List;
 
 import static com.google.common.base.Preconditions.checkArgument;
 import static com.google.common.base.Preconditions.checkNotNull;
 
 /**
- * Factory class to create instances of {@link DeleteObjectRequest}.
+ * Factory class to create instances of {@link DeleteObjectRequest} and {@link DeleteObjectsRequest}.
  */
 public class DeleteObjectRequestFactory {
 
+	/**
+	 * The maximum number of keys which S3 accepts in a single {@link DeleteObjectsRequest}.
+	 */
+	public static final int MAX_KEYS_PER_REQUEST = 1000;
+
 	private final String bucketName;
 
 	/**
@@ -35,4 +45,42 @@ public class DeleteObjectRequestFactory {
 		return new DeleteObjectRequest(bucketName, key);
 	}
 
+	/**
+	 * Creates a new instance of {@link DeleteObjectsRequest} which deletes several objects at once. The request is
+	 * quiet, so its result only reports the keys which could not be deleted.
+	 *
+	 * @param keys The object keys for which to create the request. Cannot be {@code null} or empty, and cannot contain
+	 *             more than {@link #MAX_KEYS_PER_REQUEST} keys.
+	 *
+	 * @return The new, non-{@code null} instance of {@link DeleteObjectsRequest}.
+	 */
+	public DeleteObjectsRequest createBatch(final List<String> keys) {
+		checkNotNull(keys, "keys cannot be null");
+		checkArgument(!keys.isEmpty(), "keys cannot be empty");
+		checkArgument(keys.size() <= MAX_KEYS_PER_REQUEST, "keys cannot contain more than %s keys",
+				MAX_KEYS_PER_REQUEST);
+		final List<KeyVersion> keyVersions = new ArrayList<KeyVersion>(keys.size());
+		for (final String key : keys) {
+			keyVersions.add(new KeyVersion(key));
+		}
+		return createVersionBatch(keyVersions);
+	}
+
+	/**
+	 * Creates a new instance of {@link DeleteObjectsRequest} which deletes several specific versions of objects at
+	 * once. The request is quiet, so its result only reports the versions which could not be deleted.
+	 *
+	 * @param versions The {@link KeyVersion} of each version to delete. Cannot be {@code null} or empty, and cannot
+	 *                 contain more than {@link #MAX_KEYS_PER_REQUEST} versions.
+	 *
+	 * @return The new, non-{@code null} instance of {@link DeleteObjectsRequest}.
+	 */
+	public DeleteObjectsRequest createVersionBatch(final List<KeyVersion> versions) {
+		checkNotNull(versions, "versions cannot be null");
+		checkArgument(!versions.isEmpty(), "versions cannot be empty");
+		checkArgument(versions.size() <= MAX_KEYS_PER_REQUEST, "versions cannot contain more than %s versions",
+				MAX_KEYS_PER_REQUEST);
+		return new DeleteObjectsRequest(bucketName).withKeys(versions).withQuiet(true);
+	}
+
 }
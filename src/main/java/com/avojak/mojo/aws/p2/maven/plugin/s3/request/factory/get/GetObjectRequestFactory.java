@@ -0,0 +1,58 @@
+package com.avojak.mojo.aws.p2.maven.plugin.s3.request.factory.get;
+
+import com.amazonaws.services.s3.model.GetObjectMetadataRequest;
+import com.amazonaws.services.s3.model.GetObjectRequest;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * Factory class to create instances of {@link GetObjectRequest}.
+ */
+public class GetObjectRequestFactory {
+
+	private final String bucketName;
+
+	/**
+	 * Constructor.
+	 *
+	 * @param bucketName The name of the bucket for which requests are created. Cannot be {@code null} or empty.
+	 */
+	public GetObjectRequestFactory(final String bucketName) {
+		this.bucketName = checkNotNull(bucketName, "bucketName cannot be null");
+		checkArgument(!bucketName.trim().isEmpty(), "bucketName cannot be empty");
+	}
+
+	/**
+	 * Creates a new instance of {@link GetObjectRequest} for the byte range of an object. Both ends of the range are
+	 * inclusive.
+	 *
+	 * @param key   The object key for which to create the request. Cannot be {@code null} or empty.
+	 * @param start The position of the first byte in the range. Cannot be negative.
+	 * @param end   The position of the last byte in the range. Cannot be less than {@code start}.
+	 *
+	 * @return The new, non-{@code null} instance of {@link GetObjectRequest}.
+	 */
+	public GetObjectRequest create(final String key, final long start, final long end) {
+		checkNotNull(key, "key cannot be null");
+		checkArgument(!key.trim().isEmpty(), "key cannot be empty");
+		checkArgument(start >= 0, "start cannot be negative");
+		checkArgument(end >= start, "end cannot be less than start");
+		return new GetObjectRequest(bucketName, key).withRange(start, end);
+	}
+
+	/**
+	 * Creates a new instance of {@link GetObjectMetadataRequest}, which retrieves the metadata of an object without its
+	 * content.
+	 *
+	 * @param key The object key for which to create the request. Cannot be {@code null} or empty.
+	 *
+	 * @return The new, non-{@code null} instance of {@link GetObjectMetadataRequest}.
+	 */
+	public GetObjectMetadataRequest createMetadata(final String key) {
+		checkNotNull(key, "key cannot be null");
+		checkArgument(!key.trim().isEmpty(), "key cannot be empty");
+		return new GetObjectMetadataRequest(bucketName, key);
+	}
+
+}
@@ -1,12 +1,13 @@
 package com.avojak.mojo.aws.p2.maven.plugin.s3.request.factory.list;
 
 import com.amazonaws.services.s3.model.ListObjectsRequest;
+import com.amazonaws.services.s3.model.ListVersionsRequest;
 
 import static com.google.common.base.Preconditions.checkArgument;
 import static com.google.common.base.Preconditions.checkNotNull;
 
 /**
- * Factory class to create instances of {@link ListObjectsRequest}.
+ * Factory class to create instances of {@link ListObjectsRequest} and {@link ListVersionsRequest}.
  */
 public class ListObjectsRequestFactory {
 
@@ -36,4 +37,51 @@ public class ListObjectsRequestFactory {
 		return request;
 	}
 
+	/**
+	 * Creates and returns a new {@link ListObjectsRequest} which groups the keys behind the prefix by the given
+	 * delimiter, so that each group is listed once as a common prefix rather than object by object.
+	 *
+	 * @param prefix    The object prefix.
+	 * @param delimiter The delimiter. Cannot be {@code null} or empty.
+	 *
+	 * @return A new, non-{@code null} {@link ListObjectsRequest}.
+	 */
+	public ListObjectsRequest create(final String prefix, final String delimiter) {
+		checkNotNull(delimiter, "delimiter cannot be null");
+		checkArgument(!delimiter.isEmpty(), "delimiter cannot be empty");
+		final ListObjectsRequest request = create(prefix);
+		request.setDelimiter(delimiter);
+		return request;
+	}
+
+	/**
+	 * Creates and returns a new {@link ListObjectsRequest} which starts after the given key, so that only the keys
+	 * behind the prefix which sort after it are listed.
+	 *
+	 * @param prefix The object prefix.
+	 * @param marker The key after which to start listing. May be {@code null} to start from the first key.
+	 *
+	 * @return A new, non-{@code null} {@link ListObjectsRequest}.
+	 */
+	public ListObjectsRequest createAfter(final String prefix, final String marker) {
+		final ListObjectsRequest request = create(prefix);
+		request.setMarker(marker);
+		return request;
+	}
+
+	/**
+	 * Creates and returns a new {@link ListVersionsRequest}, which lists every version and delete marker of the objects
+	 * behind the prefix.
+	 *
+	 * @param prefix The object prefix.
+	 *
+	 * @return A new, non-{@code null} {@link ListVersionsRequest}.
+	 */
+	public ListVersionsRequest createVersions(final String prefix) {
+		final ListVersionsRequest request = new ListVersionsRequest();
+		request.setBucketName(bucketName);
+		request.setPrefix(prefix);
+		return request;
+	}
+
 }
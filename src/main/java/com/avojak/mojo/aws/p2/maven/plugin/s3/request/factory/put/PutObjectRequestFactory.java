@@ -3,8 +3,13 @@ package com.avojak.mojo.aws.p2.maven.plugin.s3.request.factory.put;
 import com.amazonaws.services.s3.model.CannedAccessControlList;
 import com.amazonaws.services.s3.model.ObjectMetadata;
 import com.amazonaws.services.s3.model.PutObjectRequest;
-import com.avojak.mojo.aws.p2.maven.plugin.util.resource.ResourceUtil;
 import com.avojak.mojo.aws.p2.maven.plugin.s3.exception.ObjectRequestCreationException;
+import com.avojak.mojo.aws.p2.maven.plugin.s3.limit.BandwidthLimiter;
+import com.avojak.mojo.aws.p2.maven.plugin.s3.metadata.MetadataPolicy;
+import com.avojak.mojo.aws.p2.maven.plugin.util.io.ByteBufferInputStream;
+import com.avojak.mojo.aws.p2.maven.plugin.util.io.ThrottledInputStream;
+import com.avojak.mojo.aws.p2.maven.plugin.util.resource.ResourceUtil;
+import com.google.common.base.Optional;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -12,27 +17,60 @@ import java.io.File;
 import java.io.FileInputStream;
 import java.io.FileNotFoundException;
 import java.io.InputStream;
+import java.nio.ByteBuffer;
 
 import static com.google.common.base.Preconditions.checkArgument;
 import static com.google.common.base.Preconditions.checkNotNull;
 
 /**
- * Factory class to create instances of {@link PutObjectRequest}.
+ * Factory class to create instances of {@link PutObjectRequest}. The content of every request is read through the
+ * {@link BandwidthLimiter}, if any, and the metadata of every object is determined by the {@link MetadataPolicy}.
  */
 public class PutObjectRequestFactory {
 
 	private static final Logger LOGGER = LoggerFactory.getLogger(PutObjectRequestFactory.class);
 
+	private static final String HTML_CONTENT_TYPE = "text/html";
+
 	private final String bucketName;
+	private final BandwidthLimiter bandwidthLimiter;
+	private final MetadataPolicy metadataPolicy;
 
 	/**
-	 * Constructor.
+	 * Constructor. The content of requests is not throttled.
 	 *
 	 * @param bucketName The name of the bucket for which requests are created. Cannot be {@code null} or empty.
 	 */
 	public PutObjectRequestFactory(final String bucketName) {
+		this(bucketName, new BandwidthLimiter(0));
+	}
+
+	/**
+	 * Constructor. Objects are given the {@link MetadataPolicy#DEFAULT default} metadata.
+	 *
+	 * @param bucketName       The name of the bucket for which requests are created. Cannot be {@code null} or empty.
+	 * @param bandwidthLimiter The {@link BandwidthLimiter} which paces the content of requests. Cannot be {@code
+	 *                         null}.
+	 */
+	public PutObjectRequestFactory(final String bucketName, final BandwidthLimiter bandwidthLimiter) {
+		this(bucketName, bandwidthLimiter, MetadataPolicy.DEFAULT);
+	}
+
+	/**
+	 * Constructor.
+	 *
+	 * @param bucketName       The name of the bucket for which requests are created. Cannot be {@code null} or empty.
+	 * @param bandwidthLimiter The {@link BandwidthLimiter} which paces the content of requests. Cannot be {@code
+	 *                         null}.
+	 * @param metadataPolicy   The {@link MetadataPolicy} which determines the metadata of objects. Cannot be {@code
+	 *                         null}.
+	 */
+	public PutObjectRequestFactory(final String bucketName, final BandwidthLimiter bandwidthLimiter,
+	                               final MetadataPolicy metadataPolicy) {
 		this.bucketName = checkNotNull(bucketName, "bucketName cannot be null");
 		checkArgument(!bucketName.trim().isEmpty(), "bucketName cannot be empty");
+		this.bandwidthLimiter = checkNotNull(bandwidthLimiter, "bandwidthLimiter cannot be null");
+		this.metadataPolicy = checkNotNull(metadataPolicy, "metadataPolicy cannot be null");
 	}
 
 	/**
@@ -52,28 +90,55 @@ public class PutObjectRequestFactory {
 
 		final InputStream inputStream;
 		try {
-			inputStream = new FileInputStream(file);
+			inputStream = new ThrottledInputStream(new FileInputStream(file), bandwidthLimiter);
 		} catch (final FileNotFoundException e) {
 			throw new ObjectRequestCreationException(e);
 		}
-		final ObjectMetadata metadata = new ObjectMetadata();
-		metadata.setContentLength(file.length());
-		// Need to set the content type to text/html for static hosting
-		if (isFileHTML(file)) {
-			LOGGER.debug(ResourceUtil.getString(getClass(), "debug.setHtmlContentType"), file.getName());
-			metadata.setContentType("text/html");
-		}
-		return new PutObjectRequest(bucketName, dest, inputStream, metadata)
+		return new PutObjectRequest(bucketName, dest, inputStream, createMetadata(file, dest, file.length()))
 				.withCannedAcl(CannedAccessControlList.PublicRead);
 	}
 
-	private boolean isFileHTML(final File file) {
-		return endsWithIgnoreCase(file.getName(), ".html");
+	/**
+	 * Creates a new instance of {@link PutObjectRequest} for content which has already been read from a file. The file
+	 * itself is not read again, and is only used to determine the object metadata.
+	 * <p>
+	 * The remaining content of the given buffer is uploaded, and reading it does not modify the position of the given
+	 * buffer. The same buffer may therefore be shared between requests.
+	 *
+	 * @param file    The {@link File} from which the content was read. Cannot be {@code null}.
+	 * @param content The {@link ByteBuffer} content of the file. Cannot be {@code null}.
+	 * @param dest    The destination path in the bucket for the file. Cannot be {@code null} or empty.
+	 *
+	 * @return A new, non-{@code null} instance of {@link PutObjectRequest}.
+	 */
+	public PutObjectRequest create(final File file, final ByteBuffer content, final String dest) {
+		checkNotNull(file, "file cannot be null");
+		checkNotNull(content, "content cannot be null");
+		checkNotNull(dest, "dest cannot be null");
+		checkArgument(!dest.trim().isEmpty(), "dest cannot be empty");
+
+		final InputStream inputStream =
+				new ThrottledInputStream(new ByteBufferInputStream(content.duplicate()), bandwidthLimiter);
+		return new PutObjectRequest(bucketName, dest, inputStream, createMetadata(file, dest, content.remaining()))
+				.withCannedAcl(CannedAccessControlList.PublicRead);
 	}
 
-	private boolean endsWithIgnoreCase(final String str, final String suffix) {
-		int suffixLength = suffix.length();
-		return str.regionMatches(true, str.length() - suffixLength, suffix, 0, suffixLength);
+	private ObjectMetadata createMetadata(final File file, final String dest, final long contentLength) {
+		final ObjectMetadata metadata = new ObjectMetadata();
+		metadata.setContentLength(contentLength);
+		final Optional<String> contentType = metadataPolicy.getContentType(dest, file.getName());
+		if (contentType.isPresent()) {
+			// The content type of HTML files must be text/html for static hosting
+			if (HTML_CONTENT_TYPE.equals(contentType.get())) {
+				LOGGER.debug(ResourceUtil.getString(getClass(), "debug.setHtmlContentType"), file.getName());
+			}
+			metadata.setContentType(contentType.get());
+		}
+		final Optional<String> cacheControl = metadataPolicy.getCacheControl(dest);
+		if (cacheControl.isPresent()) {
+			metadata.setCacheControl(cacheControl.get());
+		}
+		return metadata;
 	}
 
 }
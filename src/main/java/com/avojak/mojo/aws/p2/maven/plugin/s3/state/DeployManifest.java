@@ -0,0 +1,309 @@
+package com.avojak.mojo.aws.p2.maven.plugin.s3.state;
+
+import com.avojak.mojo.aws.p2.maven.plugin.s3.model.BucketPath;
+import com.avojak.mojo.aws.p2.maven.plugin.util.checksum.ETagCalculator;
+import com.google.common.base.Objects;
+import com.google.common.hash.HashCode;
+import com.google.common.hash.Hasher;
+import com.google.common.hash.Hashing;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * The size and entity tag of every file of a deployed site, keyed by its path relative to the destination, along with
+ * a Merkle tree over its directories. The hash of each directory covers the name, size and entity tag of every file
+ * beneath it, so two manifests whose root hashes are equal describe identical sites, and any directory whose hash is
+ * equal in both can be skipped without comparing its files.
+ * <p>
+ * A manifest is serialized in a compact binary form compressed with gzip: paths are front coded against the preceding
+ * path and entity tags are stored as raw digests. The root hash is stored last, and is checked against the one
+ * recomputed when the manifest is read, so a corrupt or truncated manifest is never trusted.
+ */
+public class DeployManifest {
+
+	private static final int MAGIC = 0x4150324D;
+	private static final int VERSION = 1;
+	private static final String ROOT = "";
+
+	private final SortedMap<String, RemoteObject> files;
+	private final Map<String, HashCode> directoryHashes = new HashMap<String, HashCode>();
+
+	/**
+	 * Constructor.
+	 *
+	 * @param files The {@link Collection} of {@link RemoteObject} for every file, each keyed by its path relative to
+	 *              the destination. Cannot be {@code null}.
+	 */
+	public DeployManifest(final Collection<RemoteObject> files) {
+		checkNotNull(files, "files cannot be null");
+		final SortedMap<String, RemoteObject> byPath = new TreeMap<String, RemoteObject>();
+		for (final RemoteObject file : files) {
+			final String path = file.getKey();
+			checkArgument(path.charAt(0) != BucketPath.PATH_DELIM
+					&& path.charAt(path.length() - 1) != BucketPath.PATH_DELIM, "paths must be relative file paths");
+			byPath.put(file.getKey(), file);
+		}
+		this.files = Collections.unmodifiableSortedMap(byPath);
+		hash(ROOT, new ArrayList<String>(this.files.keySet()));
+	}
+
+	/**
+	 * Creates the manifest of the objects behind the given prefix. Objects which are not behind the prefix are
+	 * ignored.
+	 *
+	 * @param prefix The prefix, ending with the path delimiter. Cannot be {@code null}.
+	 * @param state  The {@link RemoteState}. Cannot be {@code null}.
+	 *
+	 * @return The non-{@code null} {@link DeployManifest}.
+	 */
+	public static DeployManifest of(final String prefix, final RemoteState state) {
+		checkNotNull(prefix, "prefix cannot be null");
+		checkNotNull(state, "state cannot be null");
+		final List<RemoteObject> files = new ArrayList<RemoteObject>();
+		for (final RemoteObject object : state.getObjects()) {
+			if (object.getKey().startsWith(prefix) && object.getKey().length() > prefix.length()) {
+				files.add(new RemoteObject(object.getKey().substring(prefix.length()), object.getSize(),
+						object.getETag(), 0));
+			}
+		}
+		return new DeployManifest(files);
+	}
+
+	/**
+	 * Creates the manifest of the files within the given directory, calculating the single-part entity tag of each.
+	 *
+	 * @param directory      The directory {@link File}. Cannot be {@code null}.
+	 * @param eTagCalculator The {@link ETagCalculator}. Cannot be {@code null}.
+	 *
+	 * @return The non-{@code null} {@link DeployManifest}.
+	 *
+	 * @throws IOException if the directory or any of its files cannot be read.
+	 */
+	public static DeployManifest of(final File directory, final ETagCalculator eTagCalculator) throws IOException {
+		checkNotNull(directory, "directory cannot be null");
+		checkNotNull(eTagCalculator, "eTagCalculator cannot be null");
+		final List<RemoteObject> files = new ArrayList<RemoteObject>();
+		collect(directory, "", eTagCalculator, files);
+		return new DeployManifest(files);
+	}
+
+	/**
+	 * Reads a manifest written by {@link #write(OutputStream)}.
+	 *
+	 * @param inputStream The {@link InputStream}. Cannot be {@code null}.
+	 *
+	 * @return The non-{@code null} {@link DeployManifest}.
+	 *
+	 * @throws IOException if the manifest cannot be read, or its root hash does not match its content.
+	 */
+	public static DeployManifest read(final InputStream inputStream) throws IOException {
+		checkNotNull(inputStream, "inputStream cannot be null");
+		final DataInputStream input = new DataInputStream(new GZIPInputStream(inputStream));
+		if (input.readInt() != MAGIC || input.readByte() != VERSION) {
+			throw new IOException("Unsupported format");
+		}
+		final DeployManifest manifest;
+		try {
+			final long count = StateEncoding.readVarLong(input);
+			final List<RemoteObject> files = new ArrayList<RemoteObject>();
+			String previousPath = "";
+			for (long i = 0; i < count; i++) {
+				final String path = StateEncoding.readKey(input, previousPath);
+				final long size = StateEncoding.readVarLong(input);
+				files.add(new RemoteObject(path, size, StateEncoding.readETag(input), 0));
+				previousPath = path;
+			}
+			manifest = new DeployManifest(files);
+		} catch (final IllegalArgumentException e) {
+			throw new IOException(e);
+		}
+		final byte[] rootHash = new byte[manifest.getRootHash().bits() / Byte.SIZE];
+		input.readFully(rootHash);
+		if (!HashCode.fromBytes(rootHash).equals(manifest.getRootHash())) {
+			throw new IOException("Root hash does not match the manifest");
+		}
+		return manifest;
+	}
+
+	/**
+	 * Writes the manifest to the given stream, which is not closed.
+	 *
+	 * @param outputStream The {@link OutputStream}. Cannot be {@code null}.
+	 *
+	 * @throws IOException if the manifest cannot be written.
+	 */
+	public void write(final OutputStream outputStream) throws IOException {
+		checkNotNull(outputStream, "outputStream cannot be null");
+		final GZIPOutputStream gzipOutputStream = new GZIPOutputStream(outputStream);
+		final DataOutputStream output = new DataOutputStream(gzipOutputStream);
+		output.writeInt(MAGIC);
+		output.writeByte(VERSION);
+		StateEncoding.writeVarLong(output, files.size());
+		String previousPath = "";
+		for (final RemoteObject file : files.values()) {
+			StateEncoding.writeKey(output, previousPath, file.getKey());
+			StateEncoding.writeVarLong(output, file.getSize());
+			StateEncoding.writeETag(output, file.getETag());
+			previousPath = file.getKey();
+		}
+		output.write(getRootHash().asBytes());
+		output.flush();
+		gzipOutputStream.finish();
+	}
+
+	/**
+	 * Gets the state of the objects described by the manifest, behind the given prefix. The manifest describes every
+	 * object of the deployed site, so the state is complete.
+	 *
+	 * @param prefix The prefix, ending with the path delimiter. Cannot be {@code null}.
+	 *
+	 * @return The non-{@code null} {@link RemoteState}.
+	 */
+	public RemoteState toRemoteState(final String prefix) {
+		checkNotNull(prefix, "prefix cannot be null");
+		final List<RemoteObject> objects = new ArrayList<RemoteObject>();
+		for (final RemoteObject file : files.values()) {
+			objects.add(new RemoteObject(prefix + file.getKey(), file.getSize(), file.getETag(), 0));
+		}
+		return new RemoteState(objects, true);
+	}
+
+	/**
+	 * Gets the paths of the files which are identical in the given manifest. Directories whose hashes are equal in both
+	 * manifests are matched as a whole, and only the files of the directories which differ are compared one by one.
+	 *
+	 * @param other The other {@link DeployManifest}. Cannot be {@code null}.
+	 *
+	 * @return The non-{@code null} {@link Set} of relative paths.
+	 */
+	public Set<String> getUnchanged(final DeployManifest other) {
+		checkNotNull(other, "other cannot be null");
+		final Set<String> unchanged = new HashSet<String>();
+		for (final RemoteObject file : files.values()) {
+			if (isUnchanged(file, other)) {
+				unchanged.add(file.getKey());
+			}
+		}
+		return unchanged;
+	}
+
+	/**
+	 * Gets the root hash of the Merkle tree.
+	 *
+	 * @return The non-{@code null} {@link HashCode}.
+	 */
+	public HashCode getRootHash() {
+		return directoryHashes.get(ROOT);
+	}
+
+	/**
+	 * Gets every file.
+	 *
+	 * @return The non-{@code null}, unmodifiable {@link Collection} of {@link RemoteObject}, each keyed by its relative
+	 * path, in the order of their paths.
+	 */
+	public Collection<RemoteObject> getFiles() {
+		return files.values();
+	}
+
+	/**
+	 * Gets the number of files.
+	 *
+	 * @return The number of files.
+	 */
+	public int size() {
+		return files.size();
+	}
+
+	/**
+	 * Determines whether the given file is identical in the other manifest, starting from the root and descending only
+	 * as far as the first directory whose hash is equal.
+	 */
+	private boolean isUnchanged(final RemoteObject file, final DeployManifest other) {
+		int end = -1;
+		do {
+			final String directory = file.getKey().substring(0, end + 1);
+			final HashCode hash = other.directoryHashes.get(directory);
+			if (hash == null) {
+				return false;
+			}
+			if (hash.equals(directoryHashes.get(directory))) {
+				return true;
+			}
+			end = file.getKey().indexOf(BucketPath.PATH_DELIM, end + 1);
+		} while (end != -1);
+		final RemoteObject otherFile = other.files.get(file.getKey());
+		return otherFile != null && otherFile.getSize() == file.getSize()
+				&& Objects.equal(otherFile.getETag(), file.getETag());
+	}
+
+	/**
+	 * Hashes the directory with the given path, and every directory beneath it. The paths are those of the files
+	 * beneath the directory, in order, so the files of each subdirectory are contiguous.
+	 */
+	private HashCode hash(final String directory, final List<String> paths) {
+		final Hasher hasher = Hashing.sha256().newHasher();
+		int i = 0;
+		while (i < paths.size()) {
+			final String name = paths.get(i).substring(directory.length());
+			final int delimIndex = name.indexOf(BucketPath.PATH_DELIM);
+			if (delimIndex == -1) {
+				final RemoteObject file = files.get(paths.get(i));
+				hasher.putString("F" + name + '\0' + file.getSize() + '\0'
+						+ (file.getETag() == null ? "" : file.getETag()) + '\n', StandardCharsets.UTF_8);
+				i++;
+				continue;
+			}
+			final String subdirectory = directory + name.substring(0, delimIndex + 1);
+			int j = i;
+			while (j < paths.size() && paths.get(j).startsWith(subdirectory)) {
+				j++;
+			}
+			final HashCode subdirectoryHash = hash(subdirectory, paths.subList(i, j));
+			hasher.putString("D" + name.substring(0, delimIndex) + '\0' + subdirectoryHash + '\n',
+					StandardCharsets.UTF_8);
+			i = j;
+		}
+		final HashCode hash = hasher.hash();
+		directoryHashes.put(directory, hash);
+		return hash;
+	}
+
+	private static void collect(final File directory, final String path, final ETagCalculator eTagCalculator,
+	                            final List<RemoteObject> files) throws IOException {
+		final File[] directoryContents = directory.listFiles();
+		if (directoryContents == null) {
+			throw new IOException("Cannot list directory " + directory);
+		}
+		for (final File file : directoryContents) {
+			final String filePath = path + file.getName();
+			if (file.isFile()) {
+				files.add(new RemoteObject(filePath, file.length(), eTagCalculator.calculate(file), 0));
+			} else if (file.isDirectory()) {
+				collect(file, filePath + BucketPath.PATH_DELIM, eTagCalculator, files);
+			}
+		}
+	}
+
+}
@@ -0,0 +1,143 @@
+package com.avojak.mojo.aws.p2.maven.plugin.s3.state;
+
+import com.amazonaws.services.s3.model.AmazonS3Exception;
+import com.avojak.mojo.aws.p2.maven.plugin.s3.model.BucketPath;
+import com.avojak.mojo.aws.p2.maven.plugin.s3.repository.S3BucketRepository;
+import com.avojak.mojo.aws.p2.maven.plugin.util.resource.ResourceUtil;
+import com.google.common.base.Optional;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.Collections;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * Stores the {@link DeployManifest} of a deployed site in an object next to the site, so that the state of every
+ * object behind the destination can be discovered with a single {@code GET} request.
+ * <p>
+ * The manifest is only valid as long as no object behind the destination has changed since it was written, so a
+ * deployment deletes it before changing any object and writes it again once it has succeeded. The store is otherwise
+ * best-effort: a manifest which cannot be read is treated as absent, and a failure to write one is logged.
+ */
+public class DeployManifestStore {
+
+	/**
+	 * The name of the manifest object.
+	 */
+	public static final String MANIFEST_NAME = ".aws-p2-manifest";
+
+	private static final Logger LOGGER = LoggerFactory.getLogger(DeployManifestStore.class);
+
+	private static final int NOT_FOUND = 404;
+
+	/**
+	 * Gets the key of the manifest object of the site behind the given prefix.
+	 *
+	 * @param prefix The prefix, ending with the path delimiter. Cannot be {@code null}.
+	 *
+	 * @return The non-{@code null} key.
+	 */
+	public static String getManifestKey(final String prefix) {
+		checkNotNull(prefix, "prefix cannot be null");
+		return prefix + MANIFEST_NAME;
+	}
+
+	/**
+	 * Gets the manifest of the site behind the given prefix.
+	 *
+	 * @param repository The {@link S3BucketRepository} of the bucket. Cannot be {@code null}.
+	 * @param bucketName The name of the bucket. Cannot be {@code null}.
+	 * @param prefix     The prefix, ending with the path delimiter. Cannot be {@code null}.
+	 *
+	 * @return The non-{@code null} {@link Optional} {@link DeployManifest}, which is absent if there is no manifest or
+	 * it could not be read.
+	 */
+	public Optional<DeployManifest> get(final S3BucketRepository repository, final String bucketName,
+	                                    final String prefix) {
+		checkNotNull(repository, "repository cannot be null");
+		checkNotNull(bucketName, "bucketName cannot be null");
+		checkNotNull(prefix, "prefix cannot be null");
+		try {
+			final DeployManifest manifest = download(repository, getManifestKey(prefix));
+			LOGGER.info(ResourceUtil.getString(getClass(), "info.usingManifest"), manifest.size(), prefix, bucketName);
+			return Optional.of(manifest);
+		} catch (final AmazonS3Exception e) {
+			if (e.getStatusCode() != NOT_FOUND) {
+				LOGGER.warn(ResourceUtil.getString(getClass(), "warn.manifestNotReadable"), prefix, bucketName, e);
+			}
+			return Optional.absent();
+		} catch (final IOException | RuntimeException e) {
+			LOGGER.warn(ResourceUtil.getString(getClass(), "warn.manifestNotReadable"), prefix, bucketName, e);
+			return Optional.absent();
+		}
+	}
+
+	/**
+	 * Writes the manifest of the site behind the given prefix. The manifest must describe every object behind the
+	 * prefix. A failure to write it is logged.
+	 *
+	 * @param repository The {@link S3BucketRepository} of the bucket. Cannot be {@code null}.
+	 * @param bucketName The name of the bucket. Cannot be {@code null}.
+	 * @param prefix     The prefix, ending with the path delimiter. Cannot be {@code null}.
+	 * @param manifest   The {@link DeployManifest}. Cannot be {@code null}.
+	 */
+	public void put(final S3BucketRepository repository, final String bucketName, final String prefix,
+	                final DeployManifest manifest) {
+		checkNotNull(repository, "repository cannot be null");
+		checkNotNull(bucketName, "bucketName cannot be null");
+		checkNotNull(prefix, "prefix cannot be null");
+		checkNotNull(manifest, "manifest cannot be null");
+		try {
+			final ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+			manifest.write(outputStream);
+			repository.uploadFile(new File(MANIFEST_NAME), ByteBuffer.wrap(outputStream.toByteArray()),
+					new BucketPath().append(getManifestKey(prefix)));
+		} catch (final IOException | RuntimeException e) {
+			LOGGER.warn(ResourceUtil.getString(getClass(), "warn.manifestNotWritten"), prefix, bucketName, e);
+		}
+	}
+
+	/**
+	 * Deletes the manifest of the site behind the given prefix. This must be called before any object behind the
+	 * prefix is changed.
+	 *
+	 * @param repository The {@link S3BucketRepository} of the bucket. Cannot be {@code null}.
+	 * @param prefix     The prefix, ending with the path delimiter. Cannot be {@code null}.
+	 */
+	public void delete(final S3BucketRepository repository, final String prefix) {
+		checkNotNull(repository, "repository cannot be null");
+		checkNotNull(prefix, "prefix cannot be null");
+		repository.deleteObjects(Collections.singletonList(getManifestKey(prefix)));
+	}
+
+	/**
+	 * Downloads and reads the manifest with the given key in a single request. The size of the manifest is not known in
+	 * advance, so the range requested extends past the end of any object, and is truncated to it.
+	 */
+	private DeployManifest download(final S3BucketRepository repository, final String key) throws IOException {
+		final File file = File.createTempFile("aws-p2-manifest", ".tmp");
+		try {
+			try (final FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.WRITE)) {
+				repository.downloadRange(key, 0, Long.MAX_VALUE - 1, channel);
+			}
+			try (final InputStream inputStream = new BufferedInputStream(new FileInputStream(file))) {
+				return DeployManifest.read(inputStream);
+			}
+		} finally {
+			if (!file.delete()) {
+				file.deleteOnExit();
+			}
+		}
+	}
+
+}
@@ -0,0 +1,26 @@
+package com.avojak.mojo.aws.p2.maven.plugin.s3.state;
+
+/**
+ * The ways in which {@link RemoteStateDiscovery} can discover the remote state of a set of local files.
+ */
+public enum DiscoveryStrategy {
+
+	/**
+	 * A concurrent {@code HEAD} request for each local file. The cost depends only on the number of local files, so it
+	 * suits a small site deployed into a large prefix.
+	 */
+	HEAD_REQUESTS,
+
+	/**
+	 * A concurrent delimited listing of each directory which contains local files. The objects within other
+	 * directories are never enumerated.
+	 */
+	DIRECTORY_LISTINGS,
+
+	/**
+	 * A single paged listing of every object behind the prefix. The cost depends only on the number of remote objects,
+	 * so it suits a large site, or a small prefix.
+	 */
+	FULL_LISTING
+
+}
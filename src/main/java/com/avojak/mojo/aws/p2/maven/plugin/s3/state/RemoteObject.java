@@ -0,0 +1,97 @@
+package com.avojak.mojo.aws.p2.maven.plugin.s3.state;
+
+import com.google.common.base.Objects;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * The state of a single object in a bucket, as far as it is needed to decide whether a local file must be uploaded.
+ */
+public class RemoteObject {
+
+	private final String key;
+	private final long size;
+	private final String eTag;
+	private final long lastModified;
+
+	/**
+	 * Constructor.
+	 *
+	 * @param key          The object key. Cannot be {@code null} or empty.
+	 * @param size         The size of the object in bytes. Cannot be negative.
+	 * @param eTag         The entity tag of the object. May be {@code null} if not known.
+	 * @param lastModified The time at which the object was last modified, in milliseconds since the epoch, or {@code 0}
+	 *                     if not known.
+	 */
+	public RemoteObject(final String key, final long size, final String eTag, final long lastModified) {
+		this.key = checkNotNull(key, "key cannot be null");
+		checkArgument(!key.trim().isEmpty(), "key cannot be empty");
+		checkArgument(size >= 0, "size cannot be negative");
+		this.size = size;
+		this.eTag = eTag;
+		this.lastModified = lastModified;
+	}
+
+	/**
+	 * Gets the object key.
+	 *
+	 * @return The non-{@code null} key.
+	 */
+	public String getKey() {
+		return key;
+	}
+
+	/**
+	 * Gets the size of the object.
+	 *
+	 * @return The size in bytes.
+	 */
+	public long getSize() {
+		return size;
+	}
+
+	/**
+	 * Gets the entity tag of the object.
+	 *
+	 * @return The entity tag, or {@code null} if not known.
+	 */
+	public String getETag() {
+		return eTag;
+	}
+
+	/**
+	 * Gets the time at which the object was last modified.
+	 *
+	 * @return The time in milliseconds since the epoch, or {@code 0} if not known.
+	 */
+	public long getLastModified() {
+		return lastModified;
+	}
+
+	@Override
+	public boolean equals(final Object o) {
+		if (this == o) {
+			return true;
+		}
+		if (o == null || getClass() != o.getClass()) {
+			return false;
+		}
+
+		final RemoteObject that = (RemoteObject) o;
+
+		return size == that.size && lastModified == that.lastModified && Objects.equal(key, that.key)
+				&& Objects.equal(eTag, that.eTag);
+	}
+
+	@Override
+	public int hashCode() {
+		return Objects.hashCode(key, size, eTag, lastModified);
+	}
+
+	@Override
+	public String toString() {
+		return "RemoteObject{" + key + '}';
+	}
+
+}
@@ -0,0 +1,117 @@
+package com.avojak.mojo.aws.p2.maven.plugin.s3.state;
+
+import com.google.common.base.Objects;
+import com.google.common.base.Optional;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * The state of the objects in a bucket which correspond to a set of local files, as discovered by {@link
+ * RemoteStateDiscovery}. Files which have no object in the bucket are simply absent. A state which is complete
+ * includes every object behind the prefix, including those which correspond to no local file, so the objects left by
+ * previous deployments can be found without listing the prefix again.
+ */
+public class RemoteState {
+
+	private final Map<String, RemoteObject> objects;
+	private final boolean complete;
+
+	/**
+	 * Constructor. The state is not complete.
+	 *
+	 * @param objects The {@link Collection} of {@link RemoteObject}. Cannot be {@code null}.
+	 */
+	public RemoteState(final Collection<RemoteObject> objects) {
+		this(objects, false);
+	}
+
+	/**
+	 * Constructor.
+	 *
+	 * @param objects  The {@link Collection} of {@link RemoteObject}. Cannot be {@code null}.
+	 * @param complete Whether or not the objects include every object behind the prefix.
+	 */
+	public RemoteState(final Collection<RemoteObject> objects, final boolean complete) {
+		checkNotNull(objects, "objects cannot be null");
+		final Map<String, RemoteObject> byKey = new LinkedHashMap<String, RemoteObject>();
+		for (final RemoteObject object : objects) {
+			byKey.put(object.getKey(), object);
+		}
+		this.objects = Collections.unmodifiableMap(byKey);
+		this.complete = complete;
+	}
+
+	/**
+	 * Gets the object with the given key.
+	 *
+	 * @param key The object key. Cannot be {@code null}.
+	 *
+	 * @return The non-{@code null} {@link Optional} {@link RemoteObject}, which is absent if there is no object with
+	 * the given key.
+	 */
+	public Optional<RemoteObject> get(final String key) {
+		checkNotNull(key, "key cannot be null");
+		return Optional.fromNullable(objects.get(key));
+	}
+
+	/**
+	 * Gets every object.
+	 *
+	 * @return The non-{@code null}, unmodifiable {@link Collection} of {@link RemoteObject}.
+	 */
+	public Collection<RemoteObject> getObjects() {
+		return objects.values();
+	}
+
+	/**
+	 * Gets the keys of every object.
+	 *
+	 * @return The non-{@code null}, unmodifiable {@link Set} of keys.
+	 */
+	public Set<String> getKeys() {
+		return objects.keySet();
+	}
+
+	/**
+	 * Gets whether or not the objects include every object behind the prefix, so that any other object has since been
+	 * created by someone else.
+	 *
+	 * @return {@code true} if the state is complete, otherwise {@code false}.
+	 */
+	public boolean isComplete() {
+		return complete;
+	}
+
+	/**
+	 * Gets the number of objects.
+	 *
+	 * @return The number of objects.
+	 */
+	public int size() {
+		return objects.size();
+	}
+
+	@Override
+	public boolean equals(final Object o) {
+		if (this == o) {
+			return true;
+		}
+		if (o == null || getClass() != o.getClass()) {
+			return false;
+		}
+		final RemoteState that = (RemoteState) o;
+		return complete == that.complete && objects.equals(that.objects);
+	}
+
+	@Override
+	public int hashCode() {
+		return Objects.hashCode(objects, complete);
+	}
+
+}
@@ -0,0 +1,335 @@
+package com.avojak.mojo.aws.p2.maven.plugin.s3.state;
+
+import com.amazonaws.services.s3.model.ObjectMetadata;
+import com.avojak.mojo.aws.p2.maven.plugin.s3.model.BucketPath;
+import com.avojak.mojo.aws.p2.maven.plugin.s3.repository.S3BucketRepository;
+import com.avojak.mojo.aws.p2.maven.plugin.util.resource.ResourceUtil;
+import com.google.common.base.Optional;
+import com.google.common.hash.Hashing;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * Caches the {@link RemoteState} of the objects behind a prefix of a bucket in a file, so that a deployment which
+ * follows one from the same host need not discover the state again. Entries expire once older than the time to live,
+ * and a time to live of zero disables the cache.
+ * <p>
+ * Each cached state is validated with a single {@code HEAD} request for a marker object behind the prefix, which is
+ * written with unique content whenever the state is cached. A deployment deletes the marker before changing any object,
+ * so a cached state is discarded as soon as any other deployment has started behind the same prefix, whether or not it
+ * succeeded.
+ * <p>
+ * Each state is stored in its own file, in a compact binary form: keys are front coded against the preceding key, and
+ * entity tags are stored as raw digests. The cache is otherwise best-effort: failures to read or write the files are
+ * logged and otherwise ignored. Files are replaced atomically where supported, so concurrent builds never observe a
+ * partially written file.
+ */
+public class RemoteStateCache {
+
+	/**
+	 * The name of the marker object which validates a cached state.
+	 */
+	public static final String MARKER_NAME = ".aws-p2-state";
+
+	/**
+	 * The default time to live of an entry, in seconds, which disables the cache.
+	 */
+	public static final long DEFAULT_TTL_SECONDS = 0;
+
+	private static final Logger LOGGER = LoggerFactory.getLogger(RemoteStateCache.class);
+
+	private static final int MAGIC = 0x41503253;
+	private static final int VERSION = 2;
+	private static final String FILE_SUFFIX = ".state";
+
+	private static final RemoteStateCache GLOBAL = new RemoteStateCache(
+			new File(System.getProperty("user.home"), ".m2" + File.separator + "aws-p2-remote-state"),
+			DEFAULT_TTL_SECONDS);
+
+	private final File directory;
+	private long ttlSeconds;
+
+	/**
+	 * Constructor.
+	 *
+	 * @param directory  The directory {@link File} in which the states are stored. Cannot be {@code null}.
+	 * @param ttlSeconds The time to live of an entry, in seconds. Cannot be negative.
+	 */
+	public RemoteStateCache(final File directory, final long ttlSeconds) {
+		this.directory = checkNotNull(directory, "directory cannot be null");
+		checkArgument(ttlSeconds >= 0, "ttlSeconds cannot be negative");
+		this.ttlSeconds = ttlSeconds;
+	}
+
+	/**
+	 * Gets the cache which is shared by every execution of the plugin, stored in the Maven user directory. The cache is
+	 * disabled until a time to live is set.
+	 *
+	 * @return The non-{@code null} global {@link RemoteStateCache}.
+	 */
+	public static RemoteStateCache getGlobal() {
+		return GLOBAL;
+	}
+
+	/**
+	 * Gets the key of the marker object which validates the cached state of the given prefix.
+	 *
+	 * @param prefix The prefix, ending with the path delimiter. Cannot be {@code null}.
+	 *
+	 * @return The non-{@code null} key.
+	 */
+	public static String getMarkerKey(final String prefix) {
+		checkNotNull(prefix, "prefix cannot be null");
+		return prefix + MARKER_NAME;
+	}
+
+	/**
+	 * Gets the cached state of the objects behind the given prefix, provided that the marker object still matches the
+	 * one written when the state was cached. A cached state which does not match is discarded.
+	 *
+	 * @param repository The {@link S3BucketRepository} of the bucket. Cannot be {@code null}.
+	 * @param bucketName The name of the bucket. Cannot be {@code null}.
+	 * @param prefix     The prefix, ending with the path delimiter. Cannot be {@code null}.
+	 *
+	 * @return The non-{@code null} {@link Optional} {@link RemoteState}, which is absent if not cached, expired or no
+	 * longer valid.
+	 */
+	public Optional<RemoteState> get(final S3BucketRepository repository, final String bucketName,
+	                                 final String prefix) {
+		checkNotNull(repository, "repository cannot be null");
+		checkNotNull(bucketName, "bucketName cannot be null");
+		checkNotNull(prefix, "prefix cannot be null");
+		final long ttl = getTtlSeconds();
+		final File file = getFile(bucketName, prefix);
+		if (ttl == 0 || !file.isFile()) {
+			return Optional.absent();
+		}
+		final Entry entry;
+		try {
+			entry = read(file);
+		} catch (final IOException e) {
+			LOGGER.debug(ResourceUtil.getString(getClass(), "debug.cacheNotReadable"), file, e);
+			delete(file);
+			return Optional.absent();
+		}
+		if (!entry.bucketName.equals(bucketName) || !entry.prefix.equals(prefix)) {
+			return Optional.absent();
+		}
+		if (System.currentTimeMillis() - entry.timestamp > TimeUnit.SECONDS.toMillis(ttl)) {
+			delete(file);
+			return Optional.absent();
+		}
+		final Optional<ObjectMetadata> marker = repository.getMetadata(getMarkerKey(prefix));
+		if (!marker.isPresent() || !entry.marker.equals(marker.get().getETag())) {
+			LOGGER.info(ResourceUtil.getString(getClass(), "info.cachedStateInvalid"), prefix, bucketName);
+			delete(file);
+			return Optional.absent();
+		}
+		LOGGER.info(ResourceUtil.getString(getClass(), "info.usingCachedState"), entry.state.size(), prefix,
+				bucketName);
+		return Optional.of(entry.state);
+	}
+
+	/**
+	 * Invalidates the cached state of the objects behind the given prefix, wherever it is cached, by deleting the
+	 * marker object. This must be called before any object behind the prefix is changed.
+	 *
+	 * @param repository The {@link S3BucketRepository} of the bucket. Cannot be {@code null}.
+	 * @param bucketName The name of the bucket. Cannot be {@code null}.
+	 * @param prefix     The prefix, ending with the path delimiter. Cannot be {@code null}.
+	 */
+	public void invalidate(final S3BucketRepository repository, final String bucketName, final String prefix) {
+		checkNotNull(repository, "repository cannot be null");
+		checkNotNull(bucketName, "bucketName cannot be null");
+		checkNotNull(prefix, "prefix cannot be null");
+		delete(getFile(bucketName, prefix));
+		repository.deleteObjects(Collections.singletonList(getMarkerKey(prefix)));
+	}
+
+	/**
+	 * Caches the state of the objects behind the given prefix, and writes a new marker object to validate it. The state
+	 * must be complete, as any object behind the prefix which it does not include is assumed not to exist. A failure to
+	 * write the marker object is logged, and the state is not cached.
+	 *
+	 * @param repository The {@link S3BucketRepository} of the bucket. Cannot be {@code null}.
+	 * @param bucketName The name of the bucket. Cannot be {@code null}.
+	 * @param prefix     The prefix, ending with the path delimiter. Cannot be {@code null}.
+	 * @param state      The {@link RemoteState} of the objects behind the prefix. Cannot be {@code null}.
+	 */
+	public void put(final S3BucketRepository repository, final String bucketName, final String prefix,
+	                final RemoteState state) {
+		checkNotNull(repository, "repository cannot be null");
+		checkNotNull(bucketName, "bucketName cannot be null");
+		checkNotNull(prefix, "prefix cannot be null");
+		checkNotNull(state, "state cannot be null");
+		if (getTtlSeconds() == 0) {
+			return;
+		}
+		final File file = getFile(bucketName, prefix);
+		final Optional<ObjectMetadata> marker;
+		try {
+			final byte[] token = UUID.randomUUID().toString().getBytes(StandardCharsets.UTF_8);
+			repository.uploadFile(new File(MARKER_NAME), ByteBuffer.wrap(token),
+					new BucketPath().append(getMarkerKey(prefix)));
+			marker = repository.getMetadata(getMarkerKey(prefix));
+		} catch (final RuntimeException e) {
+			LOGGER.warn(ResourceUtil.getString(getClass(), "warn.markerNotWritten"), prefix, bucketName, e);
+			delete(file);
+			return;
+		}
+		if (!marker.isPresent() || marker.get().getETag() == null) {
+			delete(file);
+			return;
+		}
+		write(file, new Entry(bucketName, prefix, marker.get().getETag(), System.currentTimeMillis(), state));
+	}
+
+	/**
+	 * Gets the time to live of an entry.
+	 *
+	 * @return The time to live, in seconds.
+	 */
+	public synchronized long getTtlSeconds() {
+		return ttlSeconds;
+	}
+
+	/**
+	 * Sets the time to live of an entry. A time to live of zero disables the cache.
+	 *
+	 * @param ttlSeconds The time to live, in seconds. Cannot be negative.
+	 */
+	public synchronized void setTtlSeconds(final long ttlSeconds) {
+		checkArgument(ttlSeconds >= 0, "ttlSeconds cannot be negative");
+		this.ttlSeconds = ttlSeconds;
+	}
+
+	/**
+	 * Gets the file in which the state of the given prefix is stored.
+	 */
+	private File getFile(final String bucketName, final String prefix) {
+		final String name = Hashing.sha256().hashString(bucketName + '\n' + prefix, StandardCharsets.UTF_8).toString();
+		return new File(directory, name + FILE_SUFFIX);
+	}
+
+	private void delete(final File file) {
+		try {
+			Files.deleteIfExists(file.toPath());
+		} catch (final IOException e) {
+			LOGGER.warn(ResourceUtil.getString(getClass(), "warn.cacheNotWritable"), file, e);
+		}
+	}
+
+	private Entry read(final File file) throws IOException {
+		try (final DataInputStream input = new DataInputStream(
+				new BufferedInputStream(Files.newInputStream(file.toPath())))) {
+			if (input.readInt() != MAGIC || input.readByte() != VERSION) {
+				throw new IOException("Unsupported format");
+			}
+			final String bucketName = input.readUTF();
+			final String prefix = input.readUTF();
+			final String marker = input.readUTF();
+			final long timestamp = input.readLong();
+			final boolean complete = input.readBoolean();
+			final int count = (int) StateEncoding.readVarLong(input);
+			final List<RemoteObject> objects = new ArrayList<RemoteObject>(count);
+			String previousKey = "";
+			for (int i = 0; i < count; i++) {
+				final String key = StateEncoding.readKey(input, previousKey);
+				objects.add(new RemoteObject(key, StateEncoding.readVarLong(input), StateEncoding.readETag(input),
+						StateEncoding.readVarLong(input)));
+				previousKey = key;
+			}
+			return new Entry(bucketName, prefix, marker, timestamp, new RemoteState(objects, complete));
+		} catch (final IllegalArgumentException e) {
+			throw new IOException(e);
+		}
+	}
+
+	private void write(final File file, final Entry entry) {
+		final List<RemoteObject> objects = new ArrayList<RemoteObject>(entry.state.getObjects());
+		Collections.sort(objects, new Comparator<RemoteObject>() {
+			@Override
+			public int compare(final RemoteObject o1, final RemoteObject o2) {
+				return o1.getKey().compareTo(o2.getKey());
+			}
+		});
+		try {
+			Files.createDirectories(directory.toPath());
+			final File temporaryFile = File.createTempFile(file.getName(), ".tmp", directory);
+			try {
+				try (final DataOutputStream output = new DataOutputStream(
+						new BufferedOutputStream(Files.newOutputStream(temporaryFile.toPath())))) {
+					output.writeInt(MAGIC);
+					output.writeByte(VERSION);
+					output.writeUTF(entry.bucketName);
+					output.writeUTF(entry.prefix);
+					output.writeUTF(entry.marker);
+					output.writeLong(entry.timestamp);
+					output.writeBoolean(entry.state.isComplete());
+					StateEncoding.writeVarLong(output, objects.size());
+					String previousKey = "";
+					for (final RemoteObject object : objects) {
+						StateEncoding.writeKey(output, previousKey, object.getKey());
+						StateEncoding.writeVarLong(output, object.getSize());
+						StateEncoding.writeETag(output, object.getETag());
+						StateEncoding.writeVarLong(output, Math.max(0, object.getLastModified()));
+						previousKey = object.getKey();
+					}
+				}
+				try {
+					Files.move(temporaryFile.toPath(), file.toPath(), StandardCopyOption.ATOMIC_MOVE);
+				} catch (final AtomicMoveNotSupportedException e) {
+					Files.move(temporaryFile.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING);
+				}
+			} finally {
+				Files.deleteIfExists(temporaryFile.toPath());
+			}
+		} catch (final IOException e) {
+			LOGGER.warn(ResourceUtil.getString(getClass(), "warn.cacheNotWritable"), file, e);
+		}
+	}
+
+	/**
+	 * A cached state, along with the marker which validates it.
+	 */
+	private static class Entry {
+
+		private final String bucketName;
+		private final String prefix;
+		private final String marker;
+		private final long timestamp;
+		private final RemoteState state;
+
+		private Entry(final String bucketName, final String prefix, final String marker, final long timestamp,
+		              final RemoteState state) {
+			this.bucketName = bucketName;
+			this.prefix = prefix;
+			this.marker = marker;
+			this.timestamp = timestamp;
+			this.state = state;
+		}
+
+	}
+
+}
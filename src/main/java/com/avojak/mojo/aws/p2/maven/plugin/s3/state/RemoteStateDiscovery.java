@@ -0,0 +1,251 @@
+package com.avojak.mojo.aws.p2.maven.plugin.s3.state;
+
+import com.amazonaws.services.s3.model.ObjectMetadata;
+import com.amazonaws.services.s3.model.S3ObjectSummary;
+import com.avojak.mojo.aws.p2.maven.plugin.s3.model.BucketPath;
+import com.avojak.mojo.aws.p2.maven.plugin.s3.repository.S3BucketRepository;
+import com.avojak.mojo.aws.p2.maven.plugin.util.resource.ResourceUtil;
+import com.google.common.base.Optional;
+import com.google.common.math.LongMath;
+import com.google.common.util.concurrent.Futures;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.math.RoundingMode;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * Discovers the {@link RemoteState} of a set of local files, choosing the cheapest {@link DiscoveryStrategy} for the
+ * number of local files and the size of the remote prefix.
+ * <p>
+ * The first page of a full listing of the prefix is always requested. If the listing ends within that page, it is the
+ * complete remote state. Otherwise the number of remote objects is estimated from how many of the local keys sort
+ * before the last key of the page, and each strategy is costed as the number of consecutive rounds of requests it
+ * needs: the remaining pages of the full listing, which are requested one after another, or the directory listings or
+ * {@code HEAD} requests, which are issued concurrently. Only a full listing discovers a complete {@link RemoteState},
+ * which also includes the objects that correspond to no local file.
+ */
+public class RemoteStateDiscovery {
+
+	static final int PAGE_SIZE = 1000;
+
+	private static final Logger LOGGER = LoggerFactory.getLogger(RemoteStateDiscovery.class);
+
+	private final S3BucketRepository repository;
+	private final int concurrency;
+
+	/**
+	 * Constructor.
+	 *
+	 * @param repository  The {@link S3BucketRepository} of the bucket. Cannot be {@code null}.
+	 * @param concurrency The maximum number of requests in flight at once. Must be positive.
+	 */
+	public RemoteStateDiscovery(final S3BucketRepository repository, final int concurrency) {
+		this.repository = checkNotNull(repository, "repository cannot be null");
+		checkArgument(concurrency > 0, "concurrency must be positive");
+		this.concurrency = concurrency;
+	}
+
+	/**
+	 * Discovers the state of the objects with the given keys. Every key must begin with the given prefix.
+	 *
+	 * @param prefix The key prefix, which should end with a delimiter. Cannot be {@code null} or empty.
+	 * @param keys   The {@link Set} of keys of the local files. Cannot be {@code null}.
+	 *
+	 * @return The non-{@code null} {@link RemoteState}.
+	 *
+	 * @throws com.google.common.util.concurrent.UncheckedExecutionException if a concurrent request failed.
+	 */
+	public RemoteState discover(final String prefix, final Set<String> keys) {
+		checkNotNull(prefix, "prefix cannot be null");
+		checkArgument(!prefix.trim().isEmpty(), "prefix cannot be empty");
+		checkNotNull(keys, "keys cannot be null");
+		final Map<String, RemoteObject> objects = new ConcurrentHashMap<String, RemoteObject>();
+		if (keys.isEmpty()) {
+			return new RemoteState(objects.values());
+		}
+
+		// Every listed object is kept in case the listing turns out to be the cheapest strategy
+		final Iterator<S3ObjectSummary> listing = repository.iterate(prefix).iterator();
+		final List<RemoteObject> listed = new ArrayList<RemoteObject>();
+		while (listed.size() < PAGE_SIZE && listing.hasNext()) {
+			listed.add(toRemoteObject(listing.next()));
+		}
+		if (listed.size() < PAGE_SIZE) {
+			log(keys, prefix, DiscoveryStrategy.FULL_LISTING, listed.size());
+			return new RemoteState(listed, true);
+		}
+
+		final long estimate = estimateRemoteObjects(keys, listed.get(listed.size() - 1).getKey());
+		final Map<String, Integer> directories = countByDirectory(keys);
+		// Each directory listing also returns the remote objects which have no local file
+		final double density = (double) estimate / keys.size();
+		long directoryRequests = 0;
+		for (final int count : directories.values()) {
+			directoryRequests = LongMath.saturatedAdd(directoryRequests, (long) Math.ceil(count * density / PAGE_SIZE));
+		}
+		final DiscoveryStrategy strategy = choose(keys.size(), directoryRequests, estimate, concurrency);
+		log(keys, prefix, strategy, estimate);
+		if (strategy == DiscoveryStrategy.FULL_LISTING) {
+			// Continues from the page which has already been requested
+			while (listing.hasNext()) {
+				listed.add(toRemoteObject(listing.next()));
+			}
+			return new RemoteState(listed, true);
+		}
+		for (final RemoteObject object : listed) {
+			if (keys.contains(object.getKey())) {
+				objects.put(object.getKey(), object);
+			}
+		}
+		if (strategy == DiscoveryStrategy.DIRECTORY_LISTINGS) {
+			listDirectories(directories.keySet(), keys, objects);
+		} else {
+			requestHeads(keys, objects);
+		}
+		return new RemoteState(objects.values());
+	}
+
+	/**
+	 * Chooses the strategy with the fewest consecutive rounds of requests, preferring a listing when the costs are
+	 * equal.
+	 *
+	 * @param localKeys         The number of local files.
+	 * @param directoryRequests The estimated number of requests needed to list every directory which contains local
+	 *                          files.
+	 * @param estimate          The estimated number of remote objects behind the prefix, of which the first page has
+	 *                          already been listed.
+	 * @param concurrency       The maximum number of requests in flight at once.
+	 */
+	static DiscoveryStrategy choose(final int localKeys, final long directoryRequests, final long estimate,
+	                                final int concurrency) {
+		final long listingRounds = LongMath.divide(estimate, PAGE_SIZE, RoundingMode.CEILING) - 1;
+		final long directoryRounds = LongMath.divide(directoryRequests, concurrency, RoundingMode.CEILING);
+		final long headRounds = LongMath.divide(localKeys, concurrency, RoundingMode.CEILING);
+		if (listingRounds <= directoryRounds && listingRounds <= headRounds) {
+			return DiscoveryStrategy.FULL_LISTING;
+		}
+		return directoryRounds <= headRounds ? DiscoveryStrategy.DIRECTORY_LISTINGS : DiscoveryStrategy.HEAD_REQUESTS;
+	}
+
+	/**
+	 * Estimates the number of remote objects, assuming that they are distributed across the key space in the same way
+	 * as the local files.
+	 */
+	static long estimateRemoteObjects(final Set<String> keys, final String lastKey) {
+		int before = 0;
+		for (final String key : keys) {
+			if (key.compareTo(lastKey) <= 0) {
+				before++;
+			}
+		}
+		// A full page of remote objects sorts before every local file, so the prefix is assumed to be unbounded
+		return before == 0 ? Long.MAX_VALUE : Math.max(PAGE_SIZE + 1L, (long) PAGE_SIZE * keys.size() / before);
+	}
+
+	/**
+	 * Counts the local files within each directory.
+	 */
+	private static Map<String, Integer> countByDirectory(final Set<String> keys) {
+		final Map<String, Integer> directories = new LinkedHashMap<String, Integer>();
+		for (final String key : keys) {
+			final String directory = key.substring(0, key.lastIndexOf(BucketPath.PATH_DELIM) + 1);
+			final Integer count = directories.get(directory);
+			directories.put(directory, count == null ? 1 : count + 1);
+		}
+		return directories;
+	}
+
+	private void listDirectories(final Set<String> directories, final Set<String> keys,
+	                             final Map<String, RemoteObject> objects) {
+		final List<Runnable> requests = new ArrayList<Runnable>();
+		for (final String directory : directories) {
+			requests.add(new Runnable() {
+				@Override
+				public void run() {
+					for (final S3ObjectSummary summary : repository.iterateChildren(directory)) {
+						collect(summary, keys, objects);
+					}
+				}
+			});
+		}
+		runConcurrently(requests);
+	}
+
+	private void requestHeads(final Set<String> keys, final Map<String, RemoteObject> objects) {
+		final List<Runnable> requests = new ArrayList<Runnable>();
+		for (final String key : keys) {
+			if (objects.containsKey(key)) {
+				// Already found in the first page of the listing
+				continue;
+			}
+			requests.add(new Runnable() {
+				@Override
+				public void run() {
+					final Optional<ObjectMetadata> metadata = repository.getMetadata(key);
+					if (metadata.isPresent()) {
+						objects.put(key, new RemoteObject(key, metadata.get().getContentLength(),
+								metadata.get().getETag(), getTime(metadata.get().getLastModified())));
+					}
+				}
+			});
+		}
+		runConcurrently(requests);
+	}
+
+	private void runConcurrently(final List<Runnable> requests) {
+		if (requests.isEmpty()) {
+			return;
+		}
+		final ExecutorService executor = Executors.newFixedThreadPool(Math.min(concurrency, requests.size()),
+				new ThreadFactoryBuilder().setNameFormat("aws-p2-discovery-%d").setDaemon(true).build());
+		try {
+			final List<Future<?>> futures = new ArrayList<Future<?>>();
+			for (final Runnable request : requests) {
+				futures.add(executor.submit(request));
+			}
+			for (final Future<?> future : futures) {
+				Futures.getUnchecked(future);
+			}
+		} finally {
+			executor.shutdownNow();
+		}
+	}
+
+	private static void collect(final S3ObjectSummary summary, final Set<String> keys,
+	                            final Map<String, RemoteObject> objects) {
+		if (keys.contains(summary.getKey())) {
+			objects.put(summary.getKey(), toRemoteObject(summary));
+		}
+	}
+
+	private static RemoteObject toRemoteObject(final S3ObjectSummary summary) {
+		return new RemoteObject(summary.getKey(), summary.getSize(), summary.getETag(),
+				getTime(summary.getLastModified()));
+	}
+
+	private static long getTime(final Date date) {
+		return date == null ? 0 : date.getTime();
+	}
+
+	private void log(final Set<String> keys, final String prefix, final DiscoveryStrategy strategy,
+	                 final long estimate) {
+		LOGGER.info(ResourceUtil.getString(getClass(), "info.discoveringState"), keys.size(), prefix, strategy);
+		LOGGER.debug(ResourceUtil.getString(getClass(), "debug.estimatedObjects"), estimate, prefix);
+	}
+
+}
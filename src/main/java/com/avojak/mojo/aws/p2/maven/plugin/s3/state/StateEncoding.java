@@ -0,0 +1,183 @@
+package com.avojak.mojo.aws.p2.maven.plugin.s3.state;
+
+import com.google.common.io.BaseEncoding;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+
+/**
+ * Compact binary encoding of the state of objects, shared by the formats in which states are stored. Keys are front
+ * coded against the preceding key, entity tags are stored as raw digests where possible, and numbers are stored in as
+ * few bytes as their value needs.
+ */
+final class StateEncoding {
+
+	private static final String MULTIPART_DELIM = "-";
+	private static final int DIGEST_LENGTH = 16;
+
+	private static final byte ETAG_ABSENT = 0;
+	private static final byte ETAG_DIGEST = 1;
+	private static final byte ETAG_MULTIPART = 2;
+	private static final byte ETAG_OTHER = 3;
+
+	private StateEncoding() {
+	}
+
+	/**
+	 * Writes a key as the length it shares with the preceding key, followed by the remainder.
+	 *
+	 * @param output      The {@link DataOutput}. Cannot be {@code null}.
+	 * @param previousKey The preceding key, or the empty string for the first key. Cannot be {@code null}.
+	 * @param key         The key. Cannot be {@code null}.
+	 *
+	 * @throws IOException if the key could not be written.
+	 */
+	static void writeKey(final DataOutput output, final String previousKey, final String key) throws IOException {
+		final int limit = Math.min(previousKey.length(), key.length());
+		int shared = 0;
+		while (shared < limit && previousKey.charAt(shared) == key.charAt(shared)) {
+			shared++;
+		}
+		writeVarLong(output, shared);
+		output.writeUTF(key.substring(shared));
+	}
+
+	/**
+	 * Reads a key written by {@link #writeKey(DataOutput, String, String)}.
+	 *
+	 * @param input       The {@link DataInput}. Cannot be {@code null}.
+	 * @param previousKey The preceding key, or the empty string for the first key. Cannot be {@code null}.
+	 *
+	 * @return The non-{@code null} key.
+	 *
+	 * @throws IOException if the key could not be read.
+	 */
+	static String readKey(final DataInput input, final String previousKey) throws IOException {
+		final long shared = readVarLong(input);
+		if (shared > previousKey.length()) {
+			throw new IOException("Malformed key");
+		}
+		return previousKey.substring(0, (int) shared) + input.readUTF();
+	}
+
+	/**
+	 * Writes an entity tag, storing the digest of a single-part or multipart entity tag as raw bytes.
+	 *
+	 * @param output The {@link DataOutput}. Cannot be {@code null}.
+	 * @param eTag   The entity tag. May be {@code null}.
+	 *
+	 * @throws IOException if the entity tag could not be written.
+	 */
+	static void writeETag(final DataOutput output, final String eTag) throws IOException {
+		if (eTag == null) {
+			output.writeByte(ETAG_ABSENT);
+			return;
+		}
+		final int delimIndex = eTag.indexOf(MULTIPART_DELIM);
+		final String digest = delimIndex == -1 ? eTag : eTag.substring(0, delimIndex);
+		final String parts = delimIndex == -1 ? null : eTag.substring(delimIndex + 1);
+		if (isDigest(digest) && (parts == null || isPartCount(parts))) {
+			output.writeByte(parts == null ? ETAG_DIGEST : ETAG_MULTIPART);
+			output.write(BaseEncoding.base16().lowerCase().decode(digest));
+			if (parts != null) {
+				writeVarLong(output, Long.parseLong(parts));
+			}
+			return;
+		}
+		output.writeByte(ETAG_OTHER);
+		output.writeUTF(eTag);
+	}
+
+	/**
+	 * Reads an entity tag written by {@link #writeETag(DataOutput, String)}.
+	 *
+	 * @param input The {@link DataInput}. Cannot be {@code null}.
+	 *
+	 * @return The entity tag, or {@code null} if none was written.
+	 *
+	 * @throws IOException if the entity tag could not be read.
+	 */
+	static String readETag(final DataInput input) throws IOException {
+		final byte type = input.readByte();
+		switch (type) {
+			case ETAG_ABSENT:
+				return null;
+			case ETAG_DIGEST:
+			case ETAG_MULTIPART:
+				final byte[] digest = new byte[DIGEST_LENGTH];
+				input.readFully(digest);
+				final String eTag = BaseEncoding.base16().lowerCase().encode(digest);
+				return type == ETAG_DIGEST ? eTag : eTag + MULTIPART_DELIM + readVarLong(input);
+			case ETAG_OTHER:
+				return input.readUTF();
+			default:
+				throw new IOException("Unsupported entity tag type " + type);
+		}
+	}
+
+	/**
+	 * Writes a non-negative value in as few bytes as possible, seven bits at a time.
+	 *
+	 * @param output The {@link DataOutput}. Cannot be {@code null}.
+	 * @param value  The value. Cannot be negative.
+	 *
+	 * @throws IOException if the value could not be written.
+	 */
+	static void writeVarLong(final DataOutput output, final long value) throws IOException {
+		long remaining = value;
+		while ((remaining & ~0x7FL) != 0) {
+			output.writeByte((int) ((remaining & 0x7F) | 0x80));
+			remaining >>>= 7;
+		}
+		output.writeByte((int) remaining);
+	}
+
+	/**
+	 * Reads a value written by {@link #writeVarLong(DataOutput, long)}.
+	 *
+	 * @param input The {@link DataInput}. Cannot be {@code null}.
+	 *
+	 * @return The value.
+	 *
+	 * @throws IOException if the value could not be read.
+	 */
+	static long readVarLong(final DataInput input) throws IOException {
+		long value = 0;
+		for (int shift = 0; shift < Long.SIZE; shift += 7) {
+			final byte b = input.readByte();
+			value |= (long) (b & 0x7F) << shift;
+			if ((b & 0x80) == 0) {
+				return value;
+			}
+		}
+		throw new IOException("Malformed variable-length value");
+	}
+
+	private static boolean isDigest(final String value) {
+		if (value.length() != DIGEST_LENGTH * 2) {
+			return false;
+		}
+		for (int i = 0; i < value.length(); i++) {
+			final char c = value.charAt(i);
+			if (!(c >= '0' && c <= '9') && !(c >= 'a' && c <= 'f')) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	private static boolean isPartCount(final String value) {
+		// Only the canonical form survives the round trip
+		if (value.isEmpty() || value.length() > 5 || value.charAt(0) == '0') {
+			return false;
+		}
+		for (int i = 0; i < value.length(); i++) {
+			if (!Character.isDigit(value.charAt(i))) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+}
@@ -0,0 +1,279 @@
+package com.avojak.mojo.aws.p2.maven.plugin.util.checksum;
+
+import com.google.common.io.BaseEncoding;
+import com.google.common.io.ByteSource;
+import com.google.common.io.Files;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.LinkedHashSet;
+import java.util.Set;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * Calculates S3 entity tags for local files so that they can be compared against remote objects without downloading
+ * them.
+ * <p>
+ * The entity tag of an object uploaded in a single request is the hex encoded MD5 digest of its content. The entity tag
+ * of an object uploaded in multiple parts is the MD5 digest of the concatenated part digests, followed by a dash and
+ * the number of parts.
+ */
+public class ETagCalculator {
+
+	private static final String MULTIPART_DELIM = "-";
+	private static final long MEGABYTE = 1024 * 1024;
+	private static final int BUFFER_SIZE = 64 * 1024;
+
+	/**
+	 * The part sizes, in megabytes, used by common uploaders: the minimum part size of S3, the default of the AWS CLI and
+	 * SDK transfer managers, and the larger sizes those are often configured with.
+	 */
+	private static final long[] COMMON_PART_SIZES = {5, 8, 15, 16, 32, 50, 64, 100, 128, 256, 512};
+
+	/**
+	 * Calculates the single-part entity tag of the given file.
+	 *
+	 * @param file The {@link File}. Cannot be {@code null}.
+	 *
+	 * @return The non-{@code null} entity tag.
+	 *
+	 * @throws IOException if the file cannot be read.
+	 */
+	public String calculate(final File file) throws IOException {
+		checkNotNull(file, "file cannot be null");
+		return encode(digest(Files.asByteSource(file)));
+	}
+
+	/**
+	 * Calculates the single-part entity tag of content which has already been read into memory. The remaining content of
+	 * the given buffer is digested without modifying its position.
+	 *
+	 * @param content The {@link ByteBuffer} content. Cannot be {@code null}.
+	 *
+	 * @return The non-{@code null} entity tag.
+	 */
+	public String calculate(final ByteBuffer content) {
+		checkNotNull(content, "content cannot be null");
+		final MessageDigest digest = newDigest();
+		digest.update(content.duplicate());
+		return encode(digest.digest());
+	}
+
+	/**
+	 * Calculates the multipart entity tag of the given file, assuming it was uploaded in parts of the given size.
+	 *
+	 * @param file     The {@link File}. Cannot be {@code null}.
+	 * @param partSize The size of each part in bytes. Must be positive.
+	 *
+	 * @return The non-{@code null} entity tag.
+	 *
+	 * @throws IOException if the file cannot be read.
+	 */
+	public String calculate(final File file, final long partSize) throws IOException {
+		checkNotNull(file, "file cannot be null");
+		checkArgument(partSize > 0, "partSize must be positive");
+		final ByteSource source = Files.asByteSource(file);
+		final MessageDigest partDigests = newDigest();
+		final long length = file.length();
+		int parts = 0;
+		for (long offset = 0; offset < length || parts == 0; offset += partSize) {
+			partDigests.update(digest(source.slice(offset, partSize)));
+			parts++;
+		}
+		return encode(partDigests.digest()) + MULTIPART_DELIM + parts;
+	}
+
+	/**
+	 * Calculates the multipart entity tag of content which has already been read into memory, assuming it was uploaded
+	 * in parts of the given size. The remaining content of the given buffer is digested without modifying its position.
+	 *
+	 * @param content  The {@link ByteBuffer} content. Cannot be {@code null}.
+	 * @param partSize The size of each part in bytes. Must be positive.
+	 *
+	 * @return The non-{@code null} entity tag.
+	 */
+	public String calculate(final ByteBuffer content, final long partSize) {
+		checkNotNull(content, "content cannot be null");
+		checkArgument(partSize > 0, "partSize must be positive");
+		final MessageDigest partDigests = newDigest();
+		final int start = content.position();
+		final int length = content.remaining();
+		int parts = 0;
+		for (long offset = 0; offset < length || parts == 0; offset += partSize) {
+			final ByteBuffer part = content.duplicate();
+			part.position((int) (start + offset));
+			part.limit((int) Math.min(start + offset + partSize, start + length));
+			final MessageDigest digest = newDigest();
+			digest.update(part);
+			partDigests.update(digest.digest());
+			parts++;
+		}
+		return encode(partDigests.digest()) + MULTIPART_DELIM + parts;
+	}
+
+	/**
+	 * Determines whether the given file matches the entity tag of a remote object. Surrounding quotes on the entity tag
+	 * are ignored.
+	 * <p>
+	 * The part size of a multipart entity tag is not recorded by S3, so every common part size which yields the same
+	 * number of parts is tried, along with the smallest whole number of megabytes which does.
+	 *
+	 * @param file The {@link File}. Cannot be {@code null}.
+	 * @param eTag The remote entity tag. May be {@code null}, in which case the file does not match.
+	 *
+	 * @return {@code true} if the file content matches the entity tag, otherwise {@code false}.
+	 *
+	 * @throws IOException if the file cannot be read.
+	 */
+	public boolean matches(final File file, final String eTag) throws IOException {
+		checkNotNull(file, "file cannot be null");
+		if (eTag == null) {
+			return false;
+		}
+		final String expected = normalize(eTag);
+		final int parts = parseParts(expected);
+		if (parts < 0) {
+			return false;
+		}
+		if (parts == 0) {
+			return expected.equals(calculate(file));
+		}
+		for (final long partSize : getCandidatePartSizes(file.length(), parts)) {
+			if (expected.equals(calculate(file, partSize))) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * Determines whether content which has already been read into memory matches the entity tag of a remote object, in
+	 * the same way as {@link #matches(File, String)}.
+	 *
+	 * @param content The {@link ByteBuffer} content. Cannot be {@code null}.
+	 * @param eTag    The remote entity tag. May be {@code null}, in which case the content does not match.
+	 *
+	 * @return {@code true} if the content matches the entity tag, otherwise {@code false}.
+	 */
+	public boolean matches(final ByteBuffer content, final String eTag) {
+		checkNotNull(content, "content cannot be null");
+		if (eTag == null) {
+			return false;
+		}
+		final String expected = normalize(eTag);
+		final int parts = parseParts(expected);
+		if (parts < 0) {
+			return false;
+		}
+		if (parts == 0) {
+			return expected.equals(calculate(content));
+		}
+		for (final long partSize : getCandidatePartSizes(content.remaining(), parts)) {
+			if (expected.equals(calculate(content, partSize))) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * Determines whether the given entity tag is that of an object uploaded in multiple parts.
+	 *
+	 * @param eTag The entity tag. Cannot be {@code null}.
+	 *
+	 * @return {@code true} if the entity tag is a multipart entity tag, otherwise {@code false}.
+	 */
+	public static boolean isMultipart(final String eTag) {
+		checkNotNull(eTag, "eTag cannot be null");
+		return eTag.contains(MULTIPART_DELIM);
+	}
+
+	/**
+	 * Normalizes the given entity tag for comparison with a calculated entity tag, by removing surrounding quotes and
+	 * whitespace and converting it to lower case.
+	 *
+	 * @param eTag The entity tag. Cannot be {@code null}.
+	 *
+	 * @return The non-{@code null} normalized entity tag.
+	 */
+	public static String normalize(final String eTag) {
+		checkNotNull(eTag, "eTag cannot be null");
+		return eTag.replace("\"", "").trim().toLowerCase();
+	}
+
+	/**
+	 * Parses the number of parts of the given normalized entity tag.
+	 *
+	 * @return The number of parts, {@code 0} for a single-part entity tag, or {@code -1} if the number of parts is
+	 * invalid.
+	 */
+	private static int parseParts(final String expected) {
+		final int delimIndex = expected.indexOf(MULTIPART_DELIM);
+		if (delimIndex == -1) {
+			return 0;
+		}
+		final int parts;
+		try {
+			parts = Integer.parseInt(expected.substring(delimIndex + 1));
+		} catch (final NumberFormatException e) {
+			return -1;
+		}
+		return parts < 1 ? -1 : parts;
+	}
+
+	/**
+	 * Gets the part sizes which split content of the given length into the given number of parts, starting with the
+	 * smallest whole number of megabytes.
+	 */
+	private static Set<Long> getCandidatePartSizes(final long length, final int parts) {
+		final Set<Long> partSizes = new LinkedHashSet<Long>();
+		final long minimumPartSize = Math.max(1, (length + parts - 1) / parts);
+		final long inferred = ((minimumPartSize + MEGABYTE - 1) / MEGABYTE) * MEGABYTE;
+		if (countParts(length, inferred) == parts) {
+			partSizes.add(inferred);
+		}
+		for (final long megabytes : COMMON_PART_SIZES) {
+			final long partSize = megabytes * MEGABYTE;
+			if (countParts(length, partSize) == parts) {
+				partSizes.add(partSize);
+			}
+		}
+		return partSizes;
+	}
+
+	private static long countParts(final long length, final long partSize) {
+		return length == 0 ? 1 : (length + partSize - 1) / partSize;
+	}
+
+	private byte[] digest(final ByteSource source) throws IOException {
+		final MessageDigest digest = newDigest();
+		final byte[] buffer = new byte[BUFFER_SIZE];
+		try (final InputStream inputStream = source.openStream()) {
+			int read;
+			while ((read = inputStream.read(buffer)) != -1) {
+				digest.update(buffer, 0, read);
+			}
+		}
+		return digest.digest();
+	}
+
+	private MessageDigest newDigest() {
+		try {
+			return MessageDigest.getInstance("MD5");
+		} catch (final NoSuchAlgorithmException e) {
+			// Every Java platform implementation is required to support MD5
+			throw new IllegalStateException(e);
+		}
+	}
+
+	private String encode(final byte[] bytes) {
+		return BaseEncoding.base16().lowerCase().encode(bytes);
+	}
+
+}
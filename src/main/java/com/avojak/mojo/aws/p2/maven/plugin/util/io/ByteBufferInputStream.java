@@ -0,0 +1,76 @@
+package com.avojak.mojo.aws.p2.maven.plugin.util.io;
+
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * Implementation of {@link InputStream} which reads the remaining content of a {@link ByteBuffer}.
+ * <p>
+ * Reading advances the position of the given buffer, so callers which share a buffer between several streams should
+ * pass each stream its own {@link ByteBuffer#duplicate() duplicate}. Mark and reset are supported, which allows the
+ * AWS SDK to replay the content when a request is retried.
+ */
+public class ByteBufferInputStream extends InputStream {
+
+	private final ByteBuffer buffer;
+
+	/**
+	 * Constructor.
+	 *
+	 * @param buffer The {@link ByteBuffer} to read from. Cannot be {@code null}.
+	 */
+	public ByteBufferInputStream(final ByteBuffer buffer) {
+		this.buffer = checkNotNull(buffer, "buffer cannot be null");
+	}
+
+	@Override
+	public int read() {
+		if (!buffer.hasRemaining()) {
+			return -1;
+		}
+		return buffer.get() & 0xFF;
+	}
+
+	@Override
+	public int read(final byte[] bytes, final int offset, final int length) {
+		if (length == 0) {
+			return 0;
+		}
+		if (!buffer.hasRemaining()) {
+			return -1;
+		}
+		final int count = Math.min(length, buffer.remaining());
+		buffer.get(bytes, offset, count);
+		return count;
+	}
+
+	@Override
+	public long skip(final long count) {
+		final int skipped = (int) Math.max(0, Math.min(count, buffer.remaining()));
+		buffer.position(buffer.position() + skipped);
+		return skipped;
+	}
+
+	@Override
+	public int available() {
+		return buffer.remaining();
+	}
+
+	@Override
+	public boolean markSupported() {
+		return true;
+	}
+
+	@Override
+	public synchronized void mark(final int readLimit) {
+		buffer.mark();
+	}
+
+	@Override
+	public synchronized void reset() {
+		buffer.reset();
+	}
+
+}
@@ -0,0 +1,61 @@
+package com.avojak.mojo.aws.p2.maven.plugin.util.io;
+
+import com.avojak.mojo.aws.p2.maven.plugin.s3.limit.BandwidthLimiter;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * Implementation of {@link InputStream} which paces reads from another stream with a {@link BandwidthLimiter}.
+ * <p>
+ * Each read returns at most {@link BandwidthLimiter#getMaxChunkSize()} bytes, and returns only once those bytes have
+ * been acquired from the limiter. No buffer is allocated, and mark and reset are passed through to the wrapped stream,
+ * so bytes which are replayed when a request is retried count towards the limit again.
+ */
+public class ThrottledInputStream extends FilterInputStream {
+
+	private final BandwidthLimiter limiter;
+
+	/**
+	 * Constructor.
+	 *
+	 * @param in      The {@link InputStream} to read from. Cannot be {@code null}.
+	 * @param limiter The {@link BandwidthLimiter}. Cannot be {@code null}.
+	 */
+	public ThrottledInputStream(final InputStream in, final BandwidthLimiter limiter) {
+		super(checkNotNull(in, "in cannot be null"));
+		this.limiter = checkNotNull(limiter, "limiter cannot be null");
+	}
+
+	@Override
+	public int read() throws IOException {
+		final int value = in.read();
+		if (value != -1) {
+			acquire(1);
+		}
+		return value;
+	}
+
+	@Override
+	public int read(final byte[] bytes, final int offset, final int length) throws IOException {
+		final int read = in.read(bytes, offset, Math.min(length, limiter.getMaxChunkSize()));
+		if (read > 0) {
+			acquire(read);
+		}
+		return read;
+	}
+
+	private void acquire(final int bytes) throws InterruptedIOException {
+		try {
+			limiter.acquire(bytes);
+		} catch (final InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new InterruptedIOException("Interrupted while waiting for upload bandwidth");
+		}
+	}
+
+}
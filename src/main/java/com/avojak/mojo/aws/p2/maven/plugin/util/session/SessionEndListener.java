@@ -0,0 +1,209 @@
+package com.avojak.mojo.aws.p2.maven.plugin.util.session;
+
+import com.avojak.mojo.aws.p2.maven.plugin.util.resource.ResourceUtil;
+import org.apache.maven.execution.ExecutionEvent;
+import org.apache.maven.execution.ExecutionListener;
+import org.apache.maven.execution.MavenExecutionRequest;
+import org.apache.maven.execution.MavenSession;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * An {@link ExecutionListener} which runs tasks once a Maven session ends, and otherwise forwards every event to the
+ * listener it replaced.
+ * <p>
+ * A plugin which is not declared as a build extension is never told that the session has ended. Maven does however
+ * notify the execution listener of the session request of every event, and every module of the session shares that
+ * request. The first execution which registers a task therefore installs this listener in the request, and the tasks
+ * are run once the session ends. Tasks are registered by name, so that every execution may register the same task and
+ * it still runs once.
+ */
+public final class SessionEndListener implements ExecutionListener {
+
+	private static final Logger LOGGER = LoggerFactory.getLogger(SessionEndListener.class);
+
+	private final ExecutionListener delegate;
+	private final Map<String, Runnable> tasks = new LinkedHashMap<String, Runnable>();
+
+	private SessionEndListener(final ExecutionListener delegate) {
+		this.delegate = delegate;
+	}
+
+	/**
+	 * Registers a task to run once the given session ends, unless a task of the same name is already registered.
+	 *
+	 * @param session The {@link MavenSession}. Cannot be {@code null}.
+	 * @param name    The name of the task. Cannot be {@code null} or empty.
+	 * @param task    The task. Cannot be {@code null}.
+	 */
+	public static void register(final MavenSession session, final String name, final Runnable task) {
+		checkNotNull(session, "session cannot be null");
+		checkNotNull(name, "name cannot be null");
+		checkArgument(!name.trim().isEmpty(), "name cannot be empty");
+		checkNotNull(task, "task cannot be null");
+		final MavenExecutionRequest request = checkNotNull(session.getRequest(), "session request cannot be null");
+		synchronized (request) {
+			final ExecutionListener listener = request.getExecutionListener();
+			final SessionEndListener sessionEndListener;
+			if (listener instanceof SessionEndListener) {
+				sessionEndListener = (SessionEndListener) listener;
+			} else {
+				sessionEndListener = new SessionEndListener(listener);
+				request.setExecutionListener(sessionEndListener);
+			}
+			sessionEndListener.add(name, task);
+		}
+	}
+
+	private synchronized void add(final String name, final Runnable task) {
+		if (!tasks.containsKey(name)) {
+			tasks.put(name, task);
+		}
+	}
+
+	/**
+	 * Forwards the event, then runs every registered task in the order in which they were registered. A task which
+	 * fails is logged without stopping the others.
+	 *
+	 * @param event The {@link ExecutionEvent}.
+	 */
+	@Override
+	public void sessionEnded(final ExecutionEvent event) {
+		if (delegate != null) {
+			delegate.sessionEnded(event);
+		}
+		final List<Map.Entry<String, Runnable>> pending;
+		synchronized (this) {
+			pending = new ArrayList<Map.Entry<String, Runnable>>(tasks.entrySet());
+			tasks.clear();
+		}
+		for (final Map.Entry<String, Runnable> task : pending) {
+			try {
+				task.getValue().run();
+			} catch (final RuntimeException e) {
+				LOGGER.warn(ResourceUtil.getString(getClass(), "warn.taskFailed"), task.getKey(), e);
+			}
+		}
+	}
+
+	@Override
+	public void projectDiscoveryStarted(final ExecutionEvent event) {
+		if (delegate != null) {
+			delegate.projectDiscoveryStarted(event);
+		}
+	}
+
+	@Override
+	public void sessionStarted(final ExecutionEvent event) {
+		if (delegate != null) {
+			delegate.sessionStarted(event);
+		}
+	}
+
+	@Override
+	public void projectSkipped(final ExecutionEvent event) {
+		if (delegate != null) {
+			delegate.projectSkipped(event);
+		}
+	}
+
+	@Override
+	public void projectStarted(final ExecutionEvent event) {
+		if (delegate != null) {
+			delegate.projectStarted(event);
+		}
+	}
+
+	@Override
+	public void projectSucceeded(final ExecutionEvent event) {
+		if (delegate != null) {
+			delegate.projectSucceeded(event);
+		}
+	}
+
+	@Override
+	public void projectFailed(final ExecutionEvent event) {
+		if (delegate != null) {
+			delegate.projectFailed(event);
+		}
+	}
+
+	@Override
+	public void mojoSkipped(final ExecutionEvent event) {
+		if (delegate != null) {
+			delegate.mojoSkipped(event);
+		}
+	}
+
+	@Override
+	public void mojoStarted(final ExecutionEvent event) {
+		if (delegate != null) {
+			delegate.mojoStarted(event);
+		}
+	}
+
+	@Override
+	public void mojoSucceeded(final ExecutionEvent event) {
+		if (delegate != null) {
+			delegate.mojoSucceeded(event);
+		}
+	}
+
+	@Override
+	public void mojoFailed(final ExecutionEvent event) {
+		if (delegate != null) {
+			delegate.mojoFailed(event);
+		}
+	}
+
+	@Override
+	public void forkStarted(final ExecutionEvent event) {
+		if (delegate != null) {
+			delegate.forkStarted(event);
+		}
+	}
+
+	@Override
+	public void forkSucceeded(final ExecutionEvent event) {
+		if (delegate != null) {
+			delegate.forkSucceeded(event);
+		}
+	}
+
+	@Override
+	public void forkFailed(final ExecutionEvent event) {
+		if (delegate != null) {
+			delegate.forkFailed(event);
+		}
+	}
+
+	@Override
+	public void forkedProjectStarted(final ExecutionEvent event) {
+		if (delegate != null) {
+			delegate.forkedProjectStarted(event);
+		}
+	}
+
+	@Override
+	public void forkedProjectSucceeded(final ExecutionEvent event) {
+		if (delegate != null) {
+			delegate.forkedProjectSucceeded(event);
+		}
+	}
+
+	@Override
+	public void forkedProjectFailed(final ExecutionEvent event) {
+		if (delegate != null) {
+			delegate.forkedProjectFailed(event);
+		}
+	}
+
+}
@@ -0,0 +1,283 @@
+package com.avojak.mojo.aws.p2.maven.plugin;
+
+import com.amazonaws.services.s3.model.S3ObjectSummary;
+import com.avojak.mojo.aws.p2.maven.plugin.analyze.UsageLevel;
+import com.avojak.mojo.aws.p2.maven.plugin.analyze.UsageReport;
+import com.avojak.mojo.aws.p2.maven.plugin.analyze.UsageReportWriter;
+import com.avojak.mojo.aws.p2.maven.plugin.s3.exception.BucketDoesNotExistException;
+import com.avojak.mojo.aws.p2.maven.plugin.s3.repository.S3BucketRepository;
+import com.avojak.mojo.aws.p2.maven.plugin.s3.repository.S3BucketRepositoryFactory;
+import com.avojak.mojo.aws.p2.maven.plugin.util.FileSystemTestUtil;
+import com.avojak.mojo.aws.p2.maven.plugin.util.MavenSessionTestUtil;
+import org.apache.maven.plugin.MojoFailureException;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.MockitoJUnitRunner;
+import uk.org.lidalia.slf4jtest.TestLogger;
+import uk.org.lidalia.slf4jtest.TestLoggerFactory;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Collections;
+
+import static java.util.Arrays.asList;
+import static java.util.Collections.singletonList;
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static uk.org.lidalia.slf4jtest.LoggingEvent.info;
+
+/**
+ * Test class for {@link AWSP2AnalyzeMojo}.
+ */
+@RunWith(MockitoJUnitRunner.class)
+public class AWSP2AnalyzeMojoTest {
+
+	private static final String BUCKET_NAME = "mock";
+	private static final String PREFIX = "Mock/";
+
+	@Mock
+	private S3BucketRepositoryFactory repositoryFactory;
+
+	@Mock
+	private S3BucketRepository repository;
+
+	@Mock
+	private UsageReportWriter reportWriter;
+
+	private final TestLogger logger = TestLoggerFactory.getTestLogger(AWSP2AnalyzeMojo.class);
+
+	private File reportDirectory;
+	private AWSP2AnalyzeMojo mojo;
+
+	/**
+	 * Setup mocks.
+	 *
+	 * @throws IOException Unexpected.
+	 */
+	@Before
+	public void setup() throws IOException {
+		reportDirectory = new File(FileSystemTestUtil.createAccessibleDirectory(), "analysis");
+		mojo = new AWSP2AnalyzeMojo(repositoryFactory, reportWriter);
+		mojo.setBucket(BUCKET_NAME);
+		mojo.setReportDirectory(reportDirectory);
+		mojo.setTopPrefixes(20);
+		mojo.setConcurrency(8);
+		mojo.setListingShardDepth(0);
+		mojo.setSkip(false);
+		mojo.setSession(MavenSessionTestUtil.createSession());
+	}
+
+	/**
+	 * Clear loggers.
+	 */
+	@After
+	public void clearLoggers() {
+		TestLoggerFactory.clear();
+	}
+
+	/**
+	 * Tests that {@link AWSP2AnalyzeMojo#execute()} skips execution when the skip property is set to {@code true}.
+	 *
+	 * @throws MojoFailureException        Unexpected.
+	 * @throws BucketDoesNotExistException Unexpected.
+	 */
+	@Test
+	public void testExecuteSkipExecution() throws MojoFailureException, BucketDoesNotExistException {
+		mojo.setSkip(true);
+		mojo.execute();
+
+		verify(repositoryFactory, never()).create(any(String.class));
+		assertThat(logger.getLoggingEvents(), is(singletonList(info("Skipping execution"))));
+	}
+
+	/**
+	 * Tests that {@link AWSP2AnalyzeMojo#execute()} throws an exception when the number of top prefixes is not
+	 * positive.
+	 */
+	@Test
+	public void testExecuteInvalidTopPrefixes() {
+		mojo.setTopPrefixes(0);
+		assertFailure("Top prefixes must be at least 1");
+	}
+
+	/**
+	 * Tests that {@link AWSP2AnalyzeMojo#execute()} throws an exception when the concurrency is not positive.
+	 */
+	@Test
+	public void testExecuteInvalidConcurrency() {
+		mojo.setConcurrency(0);
+		assertFailure("Concurrency must be at least 1");
+	}
+
+	/**
+	 * Tests that {@link AWSP2AnalyzeMojo#execute()} throws an exception when the listing shard depth is negative.
+	 */
+	@Test
+	public void testExecuteInvalidListingShardDepth() {
+		mojo.setListingShardDepth(-1);
+		assertFailure("Listing shard depth cannot be negative");
+	}
+
+	/**
+	 * Tests that {@link AWSP2AnalyzeMojo#execute()} throws an exception when the specified bucket does not exist.
+	 *
+	 * @throws BucketDoesNotExistException Expected to be caught and wrapped by {@link MojoFailureException}.
+	 */
+	@Test
+	public void testExecuteBucketDoesNotExist() throws BucketDoesNotExistException {
+		when(repositoryFactory.create(BUCKET_NAME)).thenThrow(BucketDoesNotExistException.class);
+		assertFailure("The specified bucket does not exist");
+	}
+
+	/**
+	 * Tests that {@link AWSP2AnalyzeMojo#execute()} analyzes the whole bucket when no prefix is specified, and writes
+	 * both reports.
+	 *
+	 * @throws Exception Unexpected.
+	 */
+	@Test
+	public void testExecuteWholeBucket() throws Exception {
+		when(repositoryFactory.create(BUCKET_NAME)).thenReturn(repository);
+		when(repository.iterateAll()).thenReturn(asList(createSummary("Mock/releases/1.0.0/content.xml", 10),
+				createSummary("Mock/releases/2.0.0/content.xml", 20)));
+		final ArgumentCaptor<UsageReport> captor = ArgumentCaptor.forClass(UsageReport.class);
+
+		mojo.execute();
+
+		final File textReport = new File(reportDirectory, AWSP2AnalyzeMojo.TEXT_REPORT);
+		verify(reportWriter).writeText(captor.capture(), eq(BUCKET_NAME), eq(textReport));
+		verify(reportWriter).writeJson(captor.capture(), eq(BUCKET_NAME),
+				eq(new File(reportDirectory, AWSP2AnalyzeMojo.JSON_REPORT)));
+		verify(repository, never()).iterate(anyString());
+		assertTrue(reportDirectory.isDirectory());
+		final UsageReport report = captor.getAllValues().get(0);
+		assertSame(report, captor.getAllValues().get(1));
+		assertEquals(2, report.getTotalObjects());
+		assertEquals(30, report.getTotalBytes());
+		assertEquals(2, report.getPrefixCount(UsageLevel.VERSION));
+		assertThat(logger.getLoggingEvents(), is(asList(
+				info("Analyzed {} objects, {} bytes in {} in {} ms", 2L, 30L, BUCKET_NAME, report.getElapsedMillis()),
+				info("Usage report written to {}", textReport))));
+	}
+
+	/**
+	 * Tests that {@link AWSP2AnalyzeMojo#execute()} analyzes only the objects behind the prefix when one is
+	 * specified.
+	 *
+	 * @throws Exception Unexpected.
+	 */
+	@Test
+	public void testExecutePrefix() throws Exception {
+		when(repositoryFactory.create(BUCKET_NAME)).thenReturn(repository);
+		when(repository.iterate(PREFIX)).thenReturn(singletonList(createSummary("Mock/releases/1.0.0/content.xml", 10)));
+		mojo.setPrefix(PREFIX);
+
+		mojo.execute();
+
+		verify(reportWriter).writeText(any(UsageReport.class), eq(BUCKET_NAME + "/" + PREFIX),
+				eq(new File(reportDirectory, AWSP2AnalyzeMojo.TEXT_REPORT)));
+		verify(repository, never()).iterateAll();
+	}
+
+	/**
+	 * Tests that {@link AWSP2AnalyzeMojo#execute()} lists the prefix in sorted shards when a listing shard depth is
+	 * specified.
+	 *
+	 * @throws Exception Unexpected.
+	 */
+	@Test
+	public void testExecutePrefixSharded() throws Exception {
+		final S3ObjectSummary release = createSummary("Mock/releases/1.0.0/content.xml", 10);
+		final S3ObjectSummary snapshot = createSummary("Mock/snapshots/1.1.0/content.xml", 20);
+		when(repositoryFactory.create(BUCKET_NAME)).thenReturn(repository);
+		when(repository.listDirectories(PREFIX)).thenReturn(asList("Mock/releases/", "Mock/snapshots/"));
+		when(repository.iterateAfter(PREFIX, null)).thenReturn(Collections.<S3ObjectSummary>emptyList());
+		when(repository.iterateAfter(PREFIX, "Mock/releases/")).thenReturn(asList(release, snapshot));
+		when(repository.iterateAfter(PREFIX, "Mock/snapshots/")).thenReturn(singletonList(snapshot));
+		final ArgumentCaptor<UsageReport> captor = ArgumentCaptor.forClass(UsageReport.class);
+		mojo.setPrefix(PREFIX);
+		mojo.setListingShardDepth(1);
+
+		mojo.execute();
+
+		verify(reportWriter).writeText(captor.capture(), eq(BUCKET_NAME + "/" + PREFIX),
+				eq(new File(reportDirectory, AWSP2AnalyzeMojo.TEXT_REPORT)));
+		verify(repository, never()).iterate(anyString());
+		final UsageReport report = captor.getValue();
+		assertEquals(2, report.getTotalObjects());
+		assertEquals(30, report.getTotalBytes());
+		assertEquals(2, report.getPrefixCount(UsageLevel.VERSION));
+	}
+
+	/**
+	 * Tests that {@link AWSP2AnalyzeMojo#execute()} lists the whole bucket one page after another even when a listing
+	 * shard depth is specified.
+	 *
+	 * @throws Exception Unexpected.
+	 */
+	@Test
+	public void testExecuteWholeBucketShardDepth() throws Exception {
+		when(repositoryFactory.create(BUCKET_NAME)).thenReturn(repository);
+		when(repository.iterateAll()).thenReturn(singletonList(createSummary("Mock/releases/1.0.0/content.xml", 10)));
+		mojo.setListingShardDepth(1);
+
+		mojo.execute();
+
+		verify(repository, never()).listDirectories(anyString());
+		verify(reportWriter).writeText(any(UsageReport.class), eq(BUCKET_NAME),
+				eq(new File(reportDirectory, AWSP2AnalyzeMojo.TEXT_REPORT)));
+	}
+
+	/**
+	 * Tests that {@link AWSP2AnalyzeMojo#execute()} throws an exception when a report could not be written.
+	 *
+	 * @throws Exception Unexpected.
+	 */
+	@Test
+	public void testExecuteWriteFailure() throws Exception {
+		final IOException exception = new IOException("mock");
+		when(repositoryFactory.create(BUCKET_NAME)).thenReturn(repository);
+		when(repository.iterateAll()).thenReturn(singletonList(createSummary("Mock/releases/1.0.0/content.xml", 10)));
+		doThrow(exception).when(reportWriter).writeText(any(UsageReport.class), anyString(), any(File.class));
+
+		try {
+			mojo.execute();
+			fail("Expected exception not thrown");
+		} catch (final MojoFailureException e) {
+			assertEquals("Unable to write the usage report", e.getMessage());
+			assertSame(exception, e.getCause());
+		}
+	}
+
+	private void assertFailure(final String expectedMessage) {
+		try {
+			mojo.execute();
+			fail("Expected exception not thrown");
+		} catch (final MojoFailureException e) {
+			assertEquals(expectedMessage, e.getMessage());
+		}
+	}
+
+	private static S3ObjectSummary createSummary(final String key, final long size) {
+		final S3ObjectSummary summary = new S3ObjectSummary();
+		summary.setKey(key);
+		summary.setSize(size);
+		return summary;
+	}
+
+}
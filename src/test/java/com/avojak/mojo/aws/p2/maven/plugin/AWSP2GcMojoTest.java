@@ -0,0 +1,249 @@
+package com.avojak.mojo.aws.p2.maven.plugin;
+
+import com.amazonaws.services.s3.model.ObjectMetadata;
+import com.amazonaws.services.s3.model.S3ObjectSummary;
+import com.avojak.mojo.aws.p2.maven.plugin.s3.exception.BucketDoesNotExistException;
+import com.avojak.mojo.aws.p2.maven.plugin.s3.repository.S3BucketRepository;
+import com.avojak.mojo.aws.p2.maven.plugin.s3.repository.S3BucketRepositoryFactory;
+import com.avojak.mojo.aws.p2.maven.plugin.util.MavenSessionTestUtil;
+import com.google.common.base.Optional;
+import org.apache.maven.plugin.MojoFailureException;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.junit.MockitoJUnitRunner;
+import org.mockito.stubbing.Answer;
+import uk.org.lidalia.slf4jtest.TestLogger;
+import uk.org.lidalia.slf4jtest.TestLoggerFactory;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.Collection;
+import java.util.Date;
+
+import static java.util.Arrays.asList;
+import static java.util.Collections.singletonList;
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.fail;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static uk.org.lidalia.slf4jtest.LoggingEvent.info;
+
+/**
+ * Test class for {@link AWSP2GcMojo}.
+ */
+@RunWith(MockitoJUnitRunner.class)
+public class AWSP2GcMojoTest {
+
+	private static final String BUCKET_NAME = "mock";
+	private static final String PREFIX = "Mock/";
+	private static final String ORPHAN = "Mock/releases/1.0.0/plugins/a.jar";
+	private static final String METADATA_KEY = "Mock/releases/1.0.0/artifacts.xml";
+	private static final byte[] METADATA = ("<?xml version='1.0' encoding='UTF-8'?>\n"
+			+ "<repository name='mock' type='org.eclipse.equinox.p2.artifact.repository.simpleRepository'"
+			+ " version='1'>\n"
+			+ "  <mappings size='0'/>\n"
+			+ "  <artifacts size='0'/>\n"
+			+ "</repository>\n").getBytes(StandardCharsets.UTF_8);
+
+	@Mock
+	private S3BucketRepositoryFactory repositoryFactory;
+
+	@Mock
+	private S3BucketRepository repository;
+
+	private final TestLogger logger = TestLoggerFactory.getTestLogger(AWSP2GcMojo.class);
+
+	private AWSP2GcMojo mojo;
+
+	/**
+	 * Setup mocks.
+	 */
+	@Before
+	public void setup() {
+		mojo = new AWSP2GcMojo(repositoryFactory);
+		mojo.setBucket(BUCKET_NAME);
+		mojo.setPrefix(PREFIX);
+		mojo.setConcurrency(8);
+		mojo.setListingShardDepth(0);
+		mojo.setMinAgeHours(24);
+		mojo.setDryRun(false);
+		mojo.setSkip(false);
+		mojo.setSession(MavenSessionTestUtil.createSession());
+	}
+
+	/**
+	 * Clear loggers.
+	 */
+	@After
+	public void clearLoggers() {
+		TestLoggerFactory.clear();
+	}
+
+	/**
+	 * Tests that {@link AWSP2GcMojo#execute()} skips execution when the skip property is set to {@code true}.
+	 *
+	 * @throws MojoFailureException        Unexpected.
+	 * @throws BucketDoesNotExistException Unexpected.
+	 */
+	@Test
+	public void testExecuteSkipExecution() throws MojoFailureException, BucketDoesNotExistException {
+		mojo.setSkip(true);
+		mojo.execute();
+
+		verify(repositoryFactory, never()).create(any(String.class));
+		assertThat(logger.getLoggingEvents(), is(singletonList(info("Skipping execution"))));
+	}
+
+	/**
+	 * Tests that {@link AWSP2GcMojo#execute()} throws an exception when no prefix is specified.
+	 */
+	@Test
+	public void testExecuteMissingPrefix() {
+		mojo.setPrefix(" ");
+		assertFailure("A prefix is required");
+	}
+
+	/**
+	 * Tests that {@link AWSP2GcMojo#execute()} throws an exception when the concurrency is not positive.
+	 */
+	@Test
+	public void testExecuteInvalidConcurrency() {
+		mojo.setConcurrency(0);
+		assertFailure("Concurrency must be at least 1");
+	}
+
+	/**
+	 * Tests that {@link AWSP2GcMojo#execute()} throws an exception when the listing shard depth is negative.
+	 */
+	@Test
+	public void testExecuteInvalidListingShardDepth() {
+		mojo.setListingShardDepth(-1);
+		assertFailure("Listing shard depth cannot be negative");
+	}
+
+	/**
+	 * Tests that {@link AWSP2GcMojo#execute()} throws an exception when the minimum age is negative.
+	 */
+	@Test
+	public void testExecuteInvalidMinAgeHours() {
+		mojo.setMinAgeHours(-1);
+		assertFailure("Minimum age cannot be negative");
+	}
+
+	/**
+	 * Tests that {@link AWSP2GcMojo#execute()} throws an exception when the specified bucket does not exist.
+	 *
+	 * @throws BucketDoesNotExistException Expected to be caught and wrapped by {@link MojoFailureException}.
+	 */
+	@Test
+	public void testExecuteBucketDoesNotExist() throws BucketDoesNotExistException {
+		when(repositoryFactory.create(BUCKET_NAME)).thenThrow(BucketDoesNotExistException.class);
+		assertFailure("The specified bucket does not exist");
+	}
+
+	/**
+	 * Tests that {@link AWSP2GcMojo#execute()} deletes the orphaned objects.
+	 *
+	 * @throws Exception Unexpected.
+	 */
+	@Test
+	public void testExecute() throws Exception {
+		when(repositoryFactory.create(BUCKET_NAME)).thenReturn(repository);
+		stubMetadata();
+
+		mojo.execute();
+
+		verify(repository).deleteObjects(singletonList(ORPHAN));
+		assertThat(logger.getLoggingEvents(), is(asList(
+				info("Read {} metadata file(s) referencing {} artifact(s)", 1L, 0L),
+				info("Deleted {} orphaned object(s), {} bytes reclaimed", 1L, 10L))));
+	}
+
+	/**
+	 * Tests that {@link AWSP2GcMojo#execute()} only reports the orphaned objects during a dry run.
+	 *
+	 * @throws Exception Unexpected.
+	 */
+	@Test
+	public void testExecuteDryRun() throws Exception {
+		when(repositoryFactory.create(BUCKET_NAME)).thenReturn(repository);
+		stubMetadata();
+		mojo.setDryRun(true);
+
+		mojo.execute();
+
+		verify(repository, never()).deleteObjects(any(Collection.class));
+		assertThat(logger.getLoggingEvents(), is(asList(
+				info("Read {} metadata file(s) referencing {} artifact(s)", 1L, 0L),
+				info("Found {} orphaned object(s), {} bytes (dry run, nothing was deleted)", 1L, 10L))));
+	}
+
+	/**
+	 * Tests that {@link AWSP2GcMojo#execute()} throws an exception when the metadata could not be read.
+	 *
+	 * @throws Exception Unexpected.
+	 */
+	@Test
+	public void testExecuteMetadataFailure() throws Exception {
+		when(repositoryFactory.create(BUCKET_NAME)).thenReturn(repository);
+		when(repository.iterate(PREFIX)).thenReturn(asList(createSummary(METADATA_KEY, 10),
+				createSummary(ORPHAN, 10)));
+		doThrow(new IOException("mock")).when(repository)
+				.downloadRange(eq(METADATA_KEY), anyLong(), anyLong(), any(FileChannel.class));
+
+		assertFailure("Unable to read the artifact repository metadata");
+		verify(repository, never()).deleteObjects(any(Collection.class));
+	}
+
+	private void assertFailure(final String expectedMessage) {
+		try {
+			mojo.execute();
+			fail("Expected exception not thrown");
+		} catch (final MojoFailureException e) {
+			assertEquals(expectedMessage, e.getMessage());
+		}
+	}
+
+	/**
+	 * Stubs a repository whose metadata references no artifacts, so its only other object is orphaned.
+	 */
+	private void stubMetadata() throws IOException {
+		final ObjectMetadata metadata = new ObjectMetadata();
+		metadata.setContentLength(METADATA.length);
+		when(repository.iterate(PREFIX)).thenReturn(asList(createSummary(METADATA_KEY, METADATA.length),
+				createSummary(ORPHAN, 10)));
+		when(repository.getMetadata(anyString())).thenReturn(Optional.<ObjectMetadata>absent());
+		when(repository.getMetadata(METADATA_KEY)).thenReturn(Optional.of(metadata));
+		doAnswer(new Answer<Long>() {
+			@Override
+			public Long answer(final InvocationOnMock invocation) throws IOException {
+				invocation.<FileChannel>getArgument(3).write(ByteBuffer.wrap(METADATA));
+				return (long) METADATA.length;
+			}
+		}).when(repository).downloadRange(eq(METADATA_KEY), anyLong(), anyLong(), any(FileChannel.class));
+	}
+
+	private static S3ObjectSummary createSummary(final String key, final long size) {
+		final S3ObjectSummary summary = new S3ObjectSummary();
+		summary.setKey(key);
+		summary.setSize(size);
+		summary.setLastModified(new Date(0));
+		return summary;
+	}
+
+}
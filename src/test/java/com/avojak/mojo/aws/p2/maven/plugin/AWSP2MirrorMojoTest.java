@@ -0,0 +1,200 @@
+package com.avojak.mojo.aws.p2.maven.plugin;
+
+import com.avojak.mojo.aws.p2.maven.plugin.mirror.BucketMirror;
+import com.avojak.mojo.aws.p2.maven.plugin.mirror.BucketMirrorFactory;
+import com.avojak.mojo.aws.p2.maven.plugin.mirror.MirrorStatistics;
+import com.avojak.mojo.aws.p2.maven.plugin.s3.exception.BucketDoesNotExistException;
+import com.avojak.mojo.aws.p2.maven.plugin.s3.repository.S3BucketRepository;
+import com.avojak.mojo.aws.p2.maven.plugin.s3.repository.S3BucketRepositoryFactory;
+import com.avojak.mojo.aws.p2.maven.plugin.util.MavenSessionTestUtil;
+import org.apache.maven.plugin.MojoFailureException;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.junit.MockitoJUnitRunner;
+import uk.org.lidalia.slf4jtest.TestLogger;
+import uk.org.lidalia.slf4jtest.TestLoggerFactory;
+
+import java.io.File;
+
+import static java.util.Arrays.asList;
+import static java.util.Collections.singletonList;
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.fail;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static uk.org.lidalia.slf4jtest.LoggingEvent.info;
+
+/**
+ * Test class for {@link AWSP2MirrorMojo}.
+ */
+@RunWith(MockitoJUnitRunner.class)
+public class AWSP2MirrorMojoTest {
+
+	private static final String BUCKET_NAME = "mock";
+	private static final String PREFIX = "Mock/releases";
+	private static final int CONCURRENCY = 4;
+	private static final long PART_SIZE = 1024;
+	private static final int SHARD_DEPTH = 2;
+
+	@Mock
+	private S3BucketRepositoryFactory repositoryFactory;
+
+	@Mock
+	private S3BucketRepository repository;
+
+	@Mock
+	private BucketMirrorFactory bucketMirrorFactory;
+
+	@Mock
+	private BucketMirror bucketMirror;
+
+	@Mock
+	private MirrorStatistics statistics;
+
+	private final TestLogger logger = TestLoggerFactory.getTestLogger(AWSP2MirrorMojo.class);
+	private final File mirrorDirectory = new File("target", "mirror");
+
+	private AWSP2MirrorMojo mojo;
+
+	/**
+	 * Setup mocks.
+	 */
+	@Before
+	public void setup() {
+		mojo = new AWSP2MirrorMojo(repositoryFactory, bucketMirrorFactory);
+		mojo.setBucket(BUCKET_NAME);
+		mojo.setPrefix(PREFIX);
+		mojo.setMirrorDirectory(mirrorDirectory);
+		mojo.setConcurrency(CONCURRENCY);
+		mojo.setPartSize(PART_SIZE);
+		mojo.setListingShardDepth(SHARD_DEPTH);
+		mojo.setSkip(false);
+		mojo.setSession(MavenSessionTestUtil.createSession());
+	}
+
+	/**
+	 * Clear loggers.
+	 */
+	@After
+	public void clearLoggers() {
+		TestLoggerFactory.clear();
+	}
+
+	/**
+	 * Tests that {@link AWSP2MirrorMojo#execute()} skips execution when the skip property is set to {@code true}.
+	 *
+	 * @throws MojoFailureException        Unexpected.
+	 * @throws BucketDoesNotExistException Unexpected.
+	 */
+	@Test
+	public void testExecuteSkipExecution() throws MojoFailureException, BucketDoesNotExistException {
+		mojo.setSkip(true);
+		mojo.execute();
+
+		verify(repositoryFactory, never()).create(any(String.class));
+		assertThat(logger.getLoggingEvents(), is(singletonList(info("Skipping execution"))));
+	}
+
+	/**
+	 * Tests that {@link AWSP2MirrorMojo#execute()} throws an exception when the prefix is empty.
+	 */
+	@Test
+	public void testExecuteEmptyPrefix() {
+		mojo.setPrefix(" ");
+		assertFailure("Prefix has not been specified");
+	}
+
+	/**
+	 * Tests that {@link AWSP2MirrorMojo#execute()} throws an exception when the concurrency is not positive.
+	 */
+	@Test
+	public void testExecuteInvalidConcurrency() {
+		mojo.setConcurrency(0);
+		assertFailure("Concurrency must be at least 1");
+	}
+
+	/**
+	 * Tests that {@link AWSP2MirrorMojo#execute()} throws an exception when the part size is not positive.
+	 */
+	@Test
+	public void testExecuteInvalidPartSize() {
+		mojo.setPartSize(0);
+		assertFailure("Part size must be at least 1");
+	}
+
+	/**
+	 * Tests that {@link AWSP2MirrorMojo#execute()} throws an exception when the listing shard depth is negative.
+	 */
+	@Test
+	public void testExecuteNegativeListingShardDepth() {
+		mojo.setListingShardDepth(-1);
+		assertFailure("Listing shard depth cannot be negative");
+	}
+
+	/**
+	 * Tests that {@link AWSP2MirrorMojo#execute()} throws an exception when the specified bucket does not exist.
+	 *
+	 * @throws BucketDoesNotExistException Expected to be caught and wrapped by {@link MojoFailureException}.
+	 */
+	@Test
+	public void testExecuteBucketDoesNotExist() throws BucketDoesNotExistException {
+		when(repositoryFactory.create(BUCKET_NAME)).thenThrow(BucketDoesNotExistException.class);
+		assertFailure("The specified bucket does not exist");
+	}
+
+	/**
+	 * Tests {@link AWSP2MirrorMojo#execute()}.
+	 *
+	 * @throws Exception Unexpected.
+	 */
+	@Test
+	public void testExecute() throws Exception {
+		when(repositoryFactory.create(BUCKET_NAME)).thenReturn(repository);
+		when(bucketMirrorFactory.create(repository, CONCURRENCY, PART_SIZE, SHARD_DEPTH)).thenReturn(bucketMirror);
+		when(bucketMirror.mirror(PREFIX, mirrorDirectory)).thenReturn(statistics);
+		when(statistics.getObjectsDownloaded()).thenReturn(2L);
+		when(statistics.getBytesDownloaded()).thenReturn(2048L);
+		when(statistics.getElapsedMillis()).thenReturn(1000L);
+		when(statistics.getBytesPerSecond()).thenReturn(2048L);
+		when(statistics.getObjectsSkipped()).thenReturn(3L);
+		when(statistics.getRangedRequests()).thenReturn(1L);
+
+		mojo.execute();
+
+		assertThat(logger.getLoggingEvents(), is(asList(
+				info("Mirror complete: {} objects, {} bytes in {} ms ({} bytes/s)", 2L, 2048L, 1000L, 2048L),
+				info("Skipped {} up-to-date objects, issued {} ranged requests", 3L, 1L))));
+	}
+
+	/**
+	 * Tests that {@link AWSP2MirrorMojo#execute()} throws an exception when objects could not be mirrored.
+	 *
+	 * @throws Exception Unexpected.
+	 */
+	@Test
+	public void testExecuteFailedObjects() throws Exception {
+		when(repositoryFactory.create(BUCKET_NAME)).thenReturn(repository);
+		when(bucketMirrorFactory.create(repository, CONCURRENCY, PART_SIZE, SHARD_DEPTH)).thenReturn(bucketMirror);
+		when(bucketMirror.mirror(PREFIX, mirrorDirectory)).thenReturn(statistics);
+		when(statistics.getObjectsFailed()).thenReturn(2L);
+
+		assertFailure("2 object(s) could not be mirrored");
+	}
+
+	private void assertFailure(final String expectedMessage) {
+		try {
+			mojo.execute();
+			fail("Expected exception not thrown");
+		} catch (final MojoFailureException e) {
+			assertEquals(expectedMessage, e.getMessage());
+		}
+	}
+
+}
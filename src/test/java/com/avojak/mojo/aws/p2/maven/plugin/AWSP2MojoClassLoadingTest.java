@@ -0,0 +1,117 @@
+package com.avojak.mojo.aws.p2.maven.plugin;
+
+import com.avojak.mojo.aws.p2.maven.plugin.util.IsolatedClassLoader;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Tests that skipped executions of the plugin goals never load the AWS SDK.
+ */
+public class AWSP2MojoClassLoadingTest {
+
+	private static final String SDK_PACKAGE = "com.amazonaws.";
+
+	private IsolatedClassLoader classLoader;
+
+	/**
+	 * Setup the class loader.
+	 */
+	@Before
+	public void setup() {
+		classLoader = new IsolatedClassLoader();
+	}
+
+	/**
+	 * Close the class loader.
+	 *
+	 * @throws IOException Unexpected.
+	 */
+	@After
+	public void close() throws IOException {
+		classLoader.close();
+	}
+
+	/**
+	 * Tests that a skipped execution of {@link AWSP2Mojo} does not load the AWS SDK.
+	 *
+	 * @throws Exception Unexpected.
+	 */
+	@Test
+	public void testSkipExecution() throws Exception {
+		final Object mojo = classLoader.newInstance(AWSP2Mojo.class.getName());
+		IsolatedClassLoader.invoke(mojo, "setSkip", new Class<?>[]{boolean.class}, true);
+
+		IsolatedClassLoader.invoke(mojo, "execute", new Class<?>[0]);
+
+		assertEquals(0, classLoader.countLoadedClasses(SDK_PACKAGE));
+	}
+
+	/**
+	 * Tests that an execution of {@link AWSP2Mojo} which skips a snapshot version does not load the AWS SDK.
+	 *
+	 * @throws Exception Unexpected.
+	 */
+	@Test
+	public void testSkipSnapshot() throws Exception {
+		final Object project = classLoader.newInstance("org.apache.maven.project.MavenProject");
+		IsolatedClassLoader.invoke(project, "setVersion", new Class<?>[]{String.class}, "1.0.0-SNAPSHOT");
+		final Object mojo = classLoader.newInstance(AWSP2Mojo.class.getName());
+		IsolatedClassLoader.invoke(mojo, "setProject", new Class<?>[]{project.getClass()}, project);
+		IsolatedClassLoader.invoke(mojo, "setDeploySnapshots", new Class<?>[]{boolean.class}, false);
+
+		IsolatedClassLoader.invoke(mojo, "execute", new Class<?>[0]);
+
+		assertEquals(0, classLoader.countLoadedClasses(SDK_PACKAGE));
+	}
+
+	/**
+	 * Tests that a skipped execution of {@link AWSP2MirrorMojo} does not load the AWS SDK.
+	 *
+	 * @throws Exception Unexpected.
+	 */
+	@Test
+	public void testSkipMirror() throws Exception {
+		final Object mojo = classLoader.newInstance(AWSP2MirrorMojo.class.getName());
+		IsolatedClassLoader.invoke(mojo, "setSkip", new Class<?>[]{boolean.class}, true);
+
+		IsolatedClassLoader.invoke(mojo, "execute", new Class<?>[0]);
+
+		assertEquals(0, classLoader.countLoadedClasses(SDK_PACKAGE));
+	}
+
+	/**
+	 * Tests that a skipped execution of {@link AWSP2AnalyzeMojo} does not load the AWS SDK.
+	 *
+	 * @throws Exception Unexpected.
+	 */
+	@Test
+	public void testSkipAnalyze() throws Exception {
+		final Object mojo = classLoader.newInstance(AWSP2AnalyzeMojo.class.getName());
+		IsolatedClassLoader.invoke(mojo, "setSkip", new Class<?>[]{boolean.class}, true);
+
+		IsolatedClassLoader.invoke(mojo, "execute", new Class<?>[0]);
+
+		assertEquals(0, classLoader.countLoadedClasses(SDK_PACKAGE));
+	}
+
+	/**
+	 * Tests that a skipped execution of {@link AWSP2GcMojo} does not load the AWS SDK.
+	 *
+	 * @throws Exception Unexpected.
+	 */
+	@Test
+	public void testSkipGc() throws Exception {
+		final Object mojo = classLoader.newInstance(AWSP2GcMojo.class.getName());
+		IsolatedClassLoader.invoke(mojo, "setSkip", new Class<?>[]{boolean.class}, true);
+
+		IsolatedClassLoader.invoke(mojo, "execute", new Class<?>[0]);
+
+		assertEquals(0, classLoader.countLoadedClasses(SDK_PACKAGE));
+	}
+
+}
@@ -0,0 +1,227 @@
+package com.avojak.mojo.aws.p2.maven.plugin;
+
+import com.amazonaws.auth.AWSCredentialsProvider;
+import com.amazonaws.services.s3.AmazonS3;
+import com.amazonaws.services.s3.model.HeadBucketRequest;
+import com.amazonaws.services.s3.model.HeadBucketResult;
+import com.amazonaws.services.s3.model.ListObjectsRequest;
+import com.amazonaws.services.s3.model.ObjectListing;
+import com.amazonaws.services.s3.model.PutObjectRequest;
+import com.amazonaws.services.s3.model.PutObjectResult;
+import com.avojak.mojo.aws.p2.maven.plugin.deploy.DeployTarget;
+import com.avojak.mojo.aws.p2.maven.plugin.deploy.FanOutDeployerFactory;
+import com.avojak.mojo.aws.p2.maven.plugin.index.generator.LandingPageGeneratorFactory;
+import com.avojak.mojo.aws.p2.maven.plugin.s3.AmazonS3ClientCache;
+import com.avojak.mojo.aws.p2.maven.plugin.s3.AmazonS3ClientFactory;
+import com.avojak.mojo.aws.p2.maven.plugin.s3.ClientSettings;
+import com.avojak.mojo.aws.p2.maven.plugin.s3.credentials.CredentialsProviderCache;
+import com.avojak.mojo.aws.p2.maven.plugin.s3.limit.BandwidthLimiter;
+import com.avojak.mojo.aws.p2.maven.plugin.s3.limit.InFlightRequestLimiter;
+import com.avojak.mojo.aws.p2.maven.plugin.s3.region.BucketRegionCache;
+import com.avojak.mojo.aws.p2.maven.plugin.s3.repository.S3BucketRepositoryFactory;
+import com.avojak.mojo.aws.p2.maven.plugin.s3.state.RemoteStateCache;
+import com.avojak.mojo.aws.p2.maven.plugin.util.FileSystemTestUtil;
+import com.avojak.mojo.aws.p2.maven.plugin.util.MavenSessionTestUtil;
+import org.apache.maven.execution.MavenSession;
+import org.apache.maven.project.MavenProject;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.junit.MockitoJUnitRunner;
+import org.mockito.stubbing.Answer;
+import uk.org.lidalia.slf4jtest.TestLoggerFactory;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Stress test for {@link AWSP2Mojo} executing concurrently, as it does for the modules of a parallel reactor build
+ * ({@code mvn -T}). Every module deploys to several buckets through the same client, with a small shared limit on the
+ * number of in-flight requests.
+ */
+@RunWith(MockitoJUnitRunner.class)
+public class AWSP2MojoConcurrencyTest {
+
+	private static final int MODULES = 8;
+	private static final int FILES = 6;
+	private static final int MAX_IN_FLIGHT_REQUESTS = 4;
+	private static final List<String> BUCKETS = Arrays.asList("primary", "replica-a", "replica-b");
+
+	@Mock
+	private AmazonS3ClientFactory clientFactory;
+
+	@Mock
+	private AWSCredentialsProvider credentialsProvider;
+
+	@Mock
+	private AmazonS3 client;
+
+	private final InFlightRequestLimiter requestLimiter = new InFlightRequestLimiter(MAX_IN_FLIGHT_REQUESTS);
+	private final BandwidthLimiter bandwidthLimiter = new BandwidthLimiter(0);
+	private final AtomicInteger inFlight = new AtomicInteger();
+	private final AtomicInteger maxInFlight = new AtomicInteger();
+	private final AtomicInteger uploads = new AtomicInteger();
+
+	private final MavenSession session = MavenSessionTestUtil.createSession();
+
+	private File outputDirectory;
+	private BucketRegionCache regionCache;
+
+	/**
+	 * Setup mocks and the repository directory which every module deploys.
+	 *
+	 * @throws IOException Unexpected.
+	 */
+	@Before
+	public void setup() throws IOException {
+		outputDirectory = FileSystemTestUtil.createAccessibleDirectory();
+		final File repositoryDirectory = new File(outputDirectory, "repository");
+		assertTrue(repositoryDirectory.mkdir());
+		for (int i = 0; i < FILES; i++) {
+			Files.write(new File(repositoryDirectory, "file" + i + ".jar").toPath(),
+					("content" + i).getBytes(StandardCharsets.UTF_8));
+		}
+
+		regionCache = new BucketRegionCache(new File(outputDirectory, "regions.properties"), 0);
+		when(clientFactory.create(anyString(), eq(credentialsProvider), any(ClientSettings.class))).thenReturn(client);
+		when(client.headBucket(any(HeadBucketRequest.class)))
+				.thenAnswer(new InFlightAnswer<HeadBucketResult>(new HeadBucketResult().withBucketRegion("us-east-1")));
+		when(client.listObjects(any(ListObjectsRequest.class)))
+				.thenAnswer(new InFlightAnswer<ObjectListing>(new ObjectListing()));
+		when(client.putObject(any(PutObjectRequest.class))).thenAnswer(new InFlightAnswer<PutObjectResult>(
+				new PutObjectResult()) {
+			@Override
+			public PutObjectResult answer(final InvocationOnMock invocation) throws InterruptedException {
+				uploads.incrementAndGet();
+				return super.answer(invocation);
+			}
+		});
+	}
+
+	/**
+	 * Clear loggers.
+	 */
+	@After
+	public void clearLoggers() {
+		TestLoggerFactory.clear();
+	}
+
+	/**
+	 * Tests that concurrent executions deploy every file to every bucket, only look up the buckets whose region is not
+	 * configured, and never exceed the shared limit on in-flight requests.
+	 *
+	 * @throws Exception Unexpected.
+	 */
+	@Test(timeout = 60000)
+	public void testConcurrentExecutions() throws Exception {
+		final S3BucketRepositoryFactory repositoryFactory = new S3BucketRepositoryFactory(
+				new AmazonS3ClientCache(clientFactory, credentialsProvider), requestLimiter, regionCache,
+				new CredentialsProviderCache(credentialsProvider), bandwidthLimiter);
+		final List<AWSP2Mojo> mojos = new ArrayList<AWSP2Mojo>();
+		for (int i = 0; i < MODULES; i++) {
+			mojos.add(createMojo(repositoryFactory, "module-" + i));
+		}
+		final CountDownLatch start = new CountDownLatch(1);
+		final ExecutorService executor = Executors.newFixedThreadPool(MODULES);
+		final List<Future<Void>> futures = new ArrayList<Future<Void>>();
+		for (final AWSP2Mojo mojo : mojos) {
+			futures.add(executor.submit(new Callable<Void>() {
+				@Override
+				public Void call() throws Exception {
+					start.await();
+					mojo.execute();
+					return null;
+				}
+			}));
+		}
+
+		start.countDown();
+		for (final Future<Void> future : futures) {
+			future.get();
+		}
+		executor.shutdown();
+
+		assertEquals(MODULES * BUCKETS.size() * FILES, uploads.get());
+		assertTrue("Exceeded the limit with " + maxInFlight.get() + " requests",
+				maxInFlight.get() <= MAX_IN_FLIGHT_REQUESTS);
+		// The region cache is disabled, so each module looks up the primary bucket once; the replicas have a region
+		verify(client, times(MODULES)).headBucket(any(HeadBucketRequest.class));
+	}
+
+	private AWSP2Mojo createMojo(final S3BucketRepositoryFactory repositoryFactory, final String projectName) {
+		final MavenProject project = mock(MavenProject.class);
+		when(project.getVersion()).thenReturn("1.0.0");
+		final List<DeployTarget> targets = new ArrayList<DeployTarget>();
+		for (final String bucket : BUCKETS.subList(1, BUCKETS.size())) {
+			targets.add(new DeployTarget(bucket, "eu-west-1", null));
+		}
+		final AWSP2Mojo mojo = new AWSP2Mojo(repositoryFactory, new LandingPageGeneratorFactory(),
+				new FanOutDeployerFactory(), requestLimiter, regionCache, bandwidthLimiter,
+				new RemoteStateCache(new File(outputDirectory, "state"), 0));
+		mojo.setProject(project);
+		mojo.setBucket(BUCKETS.get(0));
+		mojo.setTargets(targets);
+		mojo.setProjectName(projectName);
+		mojo.setDeploySnapshots(true);
+		mojo.setSkip(false);
+		mojo.setGenerateLandingPage(false);
+		mojo.setOutputDirectory(outputDirectory);
+		mojo.setUploadConcurrency(4);
+		mojo.setMaxInFlightRequests(MAX_IN_FLIGHT_REQUESTS);
+		mojo.setSession(session);
+		return mojo;
+	}
+
+	/**
+	 * Answer which records the number of concurrent client requests.
+	 */
+	private class InFlightAnswer<T> implements Answer<T> {
+
+		private final T result;
+
+		private InFlightAnswer(final T result) {
+			this.result = result;
+		}
+
+		@Override
+		public T answer(final InvocationOnMock invocation) throws InterruptedException {
+			final int current = inFlight.incrementAndGet();
+			try {
+				int max;
+				while (current > (max = maxInFlight.get()) && !maxInFlight.compareAndSet(max, current)) {
+					// Retry until the maximum has been updated
+				}
+				Thread.sleep(1);
+				return result;
+			} finally {
+				inFlight.decrementAndGet();
+			}
+		}
+
+	}
+
+}
@@ -1,40 +1,118 @@
 package com.avojak.mojo.aws.p2.maven.plugin;
 
+import com.amazonaws.AmazonClientException;
+import com.amazonaws.services.s3.model.S3ObjectSummary;
+import com.amazonaws.services.s3.model.S3VersionSummary;
+import com.avojak.mojo.aws.p2.maven.plugin.cdn.InvalidationSettings;
+import com.avojak.mojo.aws.p2.maven.plugin.deploy.DeployTarget;
+import com.avojak.mojo.aws.p2.maven.plugin.deploy.DeploymentOptions;
+import com.avojak.mojo.aws.p2.maven.plugin.deploy.DeploymentResult;
+import com.avojak.mojo.aws.p2.maven.plugin.deploy.FanOutDeployer;
+import com.avojak.mojo.aws.p2.maven.plugin.deploy.FanOutDeployerFactory;
+import com.avojak.mojo.aws.p2.maven.plugin.deploy.SiteRegistration;
 import com.avojak.mojo.aws.p2.maven.plugin.index.generator.LandingPageGenerator;
 import com.avojak.mojo.aws.p2.maven.plugin.index.generator.LandingPageGeneratorFactory;
+import com.avojak.mojo.aws.p2.maven.plugin.s3.ClientSettings;
+import com.avojak.mojo.aws.p2.maven.plugin.s3.credentials.CredentialsSettings;
+import com.avojak.mojo.aws.p2.maven.plugin.s3.credentials.CredentialsSource;
 import com.avojak.mojo.aws.p2.maven.plugin.s3.exception.BucketDoesNotExistException;
+import com.avojak.mojo.aws.p2.maven.plugin.s3.limit.BandwidthLimiter;
+import com.avojak.mojo.aws.p2.maven.plugin.s3.limit.InFlightRequestLimiter;
+import com.avojak.mojo.aws.p2.maven.plugin.s3.metadata.MetadataRule;
+import com.avojak.mojo.aws.p2.maven.plugin.s3.metadata.MetadataSettings;
 import com.avojak.mojo.aws.p2.maven.plugin.s3.model.BucketPath;
 import com.avojak.mojo.aws.p2.maven.plugin.s3.model.trie.Trie;
+import com.avojak.mojo.aws.p2.maven.plugin.s3.model.trie.impl.BucketTrieFactory;
+import com.avojak.mojo.aws.p2.maven.plugin.s3.region.BucketRegionCache;
+import com.avojak.mojo.aws.p2.maven.plugin.s3.repository.RepositoryOptions;
+import com.avojak.mojo.aws.p2.maven.plugin.s3.repository.S3BucketRepository;
 import com.avojak.mojo.aws.p2.maven.plugin.s3.repository.S3BucketRepositoryFactory;
+import com.avojak.mojo.aws.p2.maven.plugin.s3.repository.TransferBackend;
 import com.avojak.mojo.aws.p2.maven.plugin.s3.repository.impl.S3BucketRepositoryImpl;
+import com.avojak.mojo.aws.p2.maven.plugin.s3.state.DeployManifest;
+import com.avojak.mojo.aws.p2.maven.plugin.s3.state.DeployManifestStore;
+import com.avojak.mojo.aws.p2.maven.plugin.s3.state.RemoteObject;
+import com.avojak.mojo.aws.p2.maven.plugin.s3.state.RemoteState;
+import com.avojak.mojo.aws.p2.maven.plugin.s3.state.RemoteStateCache;
+import com.avojak.mojo.aws.p2.maven.plugin.util.FileSystemTestUtil;
+import com.avojak.mojo.aws.p2.maven.plugin.util.MavenSessionTestUtil;
+import com.avojak.mojo.aws.p2.maven.plugin.util.checksum.ETagCalculator;
+import com.avojak.mojo.aws.p2.maven.plugin.util.session.SessionEndListener;
+import com.google.common.base.Optional;
+import com.google.common.io.ByteStreams;
+import com.google.common.util.concurrent.Futures;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+import org.apache.maven.execution.ExecutionEvent;
+import org.apache.maven.execution.MavenExecutionRequest;
+import org.apache.maven.execution.MavenSession;
+import org.apache.maven.model.Plugin;
+import org.apache.maven.model.PluginExecution;
 import org.apache.maven.plugin.MojoFailureException;
+import org.apache.maven.plugin.descriptor.PluginDescriptor;
 import org.apache.maven.project.MavenProject;
+import org.codehaus.plexus.util.xml.Xpp3Dom;
 import org.junit.After;
 import org.junit.Before;
 import org.junit.Test;
 import org.junit.runner.RunWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InOrder;
 import org.mockito.Mock;
+import org.mockito.invocation.InvocationOnMock;
 import org.mockito.junit.MockitoJUnitRunner;
+import org.mockito.stubbing.Answer;
+import uk.org.lidalia.slf4jext.Level;
+import uk.org.lidalia.slf4jtest.LoggingEvent;
 import uk.org.lidalia.slf4jtest.TestLogger;
 import uk.org.lidalia.slf4jtest.TestLoggerFactory;
 
 import java.io.File;
 import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
 import java.net.MalformedURLException;
 import java.net.URL;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.Date;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Future;
 
+import static java.util.Arrays.asList;
+import static java.util.Collections.singleton;
 import static java.util.Collections.singletonList;
 import static org.hamcrest.CoreMatchers.is;
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
 import static org.junit.Assert.assertThat;
+import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.fail;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
 import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
+import static uk.org.lidalia.slf4jtest.LoggingEvent.error;
 import static uk.org.lidalia.slf4jtest.LoggingEvent.info;
+import static uk.org.lidalia.slf4jtest.LoggingEvent.warn;
 
 /**
  * Test class for {@link AWSP2Mojo}.
@@ -69,6 +147,39 @@ public class AWSP2MojoTest {
 	@Mock
 	private File landingPage;
 
+	@Mock
+	private FanOutDeployerFactory fanOutDeployerFactory;
+
+	@Mock
+	private FanOutDeployer fanOutDeployer;
+
+	@Mock
+	private S3BucketRepository replicaRepository;
+
+	@Mock
+	private Trie<String, String> replicaContentTrie;
+
+	@Mock
+	private InFlightRequestLimiter requestLimiter;
+
+	@Mock
+	private BandwidthLimiter bandwidthLimiter;
+
+	@Mock
+	private BucketRegionCache regionCache;
+
+	@Mock
+	private RemoteStateCache stateCache;
+
+	@Mock
+	private MavenSession session;
+
+	@Mock
+	private MavenExecutionRequest request;
+
+	@Mock
+	private PluginDescriptor plugin;
+
 	private String artifactId;
 	private String projectVersion;
 	private String outputDirectory;
@@ -98,10 +209,12 @@ public class AWSP2MojoTest {
 		when(project.getVersion()).thenReturn(projectVersion);
 		when(project.getArtifactId()).thenReturn(artifactId);
 
-		when(repositoryFactory.create(bucketName)).thenReturn(repository);
+		when(repositoryFactory.create(eq(bucketName), any(RepositoryOptions.class)))
+				.thenReturn(repository);
 		when(landingPageGeneratorFactory.create()).thenReturn(landingPageGenerator);
 
-		mojo = new AWSP2Mojo(repositoryFactory, landingPageGeneratorFactory);
+		mojo = new AWSP2Mojo(repositoryFactory, landingPageGeneratorFactory, fanOutDeployerFactory, requestLimiter,
+				regionCache, bandwidthLimiter, stateCache);
 		mojo.setProject(project);
 		mojo.setBucket(bucketName);
 		mojo.setDeploySnapshots(true);
@@ -109,6 +222,9 @@ public class AWSP2MojoTest {
 		mojo.setSkip(false);
 		mojo.setGenerateLandingPage(false);
 		mojo.setOutputDirectory(new File(outputDirectory));
+		mojo.setUploadConcurrency(8);
+		mojo.setMaxInFlightRequests(50);
+		mojo.setSession(MavenSessionTestUtil.createSession());
 	}
 
 	/**
@@ -132,7 +248,7 @@ public class AWSP2MojoTest {
 		mojo.setSkip(true);
 		mojo.execute();
 
-		verify(repositoryFactory, never()).create(any(String.class));
+		verify(repositoryFactory, never()).create(any(String.class), any(RepositoryOptions.class));
 		assertThat(logger.getLoggingEvents(), is(singletonList(info("Skipping execution"))));
 	}
 
@@ -150,7 +266,7 @@ public class AWSP2MojoTest {
 		mojo.setDeploySnapshots(false);
 		mojo.execute();
 
-		verify(repositoryFactory, never()).create(any(String.class));
+		verify(repositoryFactory, never()).create(any(String.class), any(RepositoryOptions.class));
 		assertThat(logger.getLoggingEvents(), is(singletonList(info("Skipping deployment of SNAPSHOT version"))));
 	}
 
@@ -162,7 +278,8 @@ public class AWSP2MojoTest {
 	 */
 	@Test
 	public void testExecuteBucketDoesNotExist() throws BucketDoesNotExistException {
-		when(repositoryFactory.create(bucketName)).thenThrow(BucketDoesNotExistException.class);
+		when(repositoryFactory.create(eq(bucketName), any(RepositoryOptions.class)))
+				.thenThrow(BucketDoesNotExistException.class);
 
 		try {
 			mojo.execute();
@@ -172,6 +289,33 @@ public class AWSP2MojoTest {
 		}
 	}
 
+	/**
+	 * Tests that {@link AWSP2Mojo#execute()} locates the single bucket on a separate thread, so that the lookup
+	 * overlaps with the preparation of the site.
+	 *
+	 * @throws Exception
+	 * 		Unexpected.
+	 */
+	@Test
+	public void testExecuteLocatesBucketAsynchronously() throws Exception {
+		final List<String> lookupThreads = new CopyOnWriteArrayList<>();
+		when(repositoryFactory.create(eq(bucketName), any(RepositoryOptions.class)))
+				.thenAnswer(new Answer<S3BucketRepository>() {
+					@Override
+					public S3BucketRepository answer(final InvocationOnMock invocation) {
+						lookupThreads.add(Thread.currentThread().getName());
+						return repository;
+					}
+				});
+		when(repository.uploadDirectory(any(File.class), any(BucketPath.class))).thenReturn(contentTrie);
+
+		mojo.execute();
+
+		assertEquals(1, lookupThreads.size());
+		assertTrue(lookupThreads.get(0).startsWith("aws-p2-lookup-"));
+		verify(repository).uploadDirectory(any(File.class), any(BucketPath.class));
+	}
+
 	/**
 	 * Tests {@link AWSP2Mojo#execute()} on a snapshot deployment.
 	 *
@@ -227,6 +371,161 @@ public class AWSP2MojoTest {
 		verify(repository).uploadDirectory(expectedRepositoryDirectory, expectedDestination);
 	}
 
+	/**
+	 * Tests that {@link AWSP2Mojo#execute()} registers the shutdown of the shared clients at the end of the session,
+	 * and that a skipped execution does not.
+	 *
+	 * @throws MojoFailureException
+	 * 		Unexpected.
+	 */
+	@Test
+	public void testExecuteReleasesClientsAtSessionEnd() throws MojoFailureException {
+		final MavenSession skippedSession = MavenSessionTestUtil.createSession();
+		mojo.setSession(skippedSession);
+		mojo.setSkip(true);
+		mojo.execute();
+		assertNull(skippedSession.getRequest().getExecutionListener());
+
+		final MavenSession executedSession = MavenSessionTestUtil.createSession();
+		when(repository.uploadDirectory(any(File.class), any(BucketPath.class))).thenReturn(contentTrie);
+		when(repository.getHostingUrl(any(String.class))).thenReturn("http://example.com/mock");
+		mojo.setSession(executedSession);
+		mojo.setSkip(false);
+		mojo.execute();
+		assertTrue(executedSession.getRequest().getExecutionListener() instanceof SessionEndListener);
+	}
+
+	/**
+	 * Tests that {@link AWSP2Mojo#execute()} uploads the site without deleting the existing objects first, and then
+	 * deletes only the objects which are not part of the new site, when pruning after upload.
+	 *
+	 * @throws Exception
+	 * 		Unexpected.
+	 */
+	@Test
+	public void testExecutePruneAfterUpload() throws Exception {
+		final File output = createOutputDirectory();
+		final File expectedRepositoryDirectory = new File(output, REPOSITORY_DIR);
+		final BucketPath expectedDestination = new BucketPath()
+				.append(projectName)
+				.append(SNAPSHOT_DIR)
+				.append(projectVersion);
+		final String prefix = expectedDestination.asString() + "/";
+		when(repository.iterate(prefix)).thenReturn(asList(createSummary(prefix + "content.xml"),
+				createSummary(prefix + "old.jar"), createSummary(prefix + "index.html")));
+		when(repository.uploadDirectory(expectedRepositoryDirectory, expectedDestination)).thenReturn(contentTrie);
+		when(repository.getHostingUrl(expectedDestination.asString())).thenReturn("http://primary");
+		when(landingPageGenerator.generate(eq(bucketName), eq(artifactId), eq(contentTrie), any(Date.class)))
+				.thenReturn(landingPage);
+		mojo.setOutputDirectory(output);
+		mojo.setGenerateLandingPage(true);
+		mojo.setPruneAfterUpload(true);
+
+		mojo.execute();
+
+		verify(repository, never()).deleteDirectory(any(String.class));
+		verify(repository).deleteObjects(singletonList(prefix + "old.jar"));
+		assertThat(logger.getLoggingEvents(), is(asList(
+				info("Upload complete: {}", "http://primary"),
+				info("Deleted {} stale object(s) from bucket {}", 1, bucketName))));
+	}
+
+	/**
+	 * Tests that {@link AWSP2Mojo#execute()} deletes nothing when the upload fails while pruning after upload.
+	 *
+	 * @throws Exception
+	 * 		Unexpected.
+	 */
+	@Test
+	public void testExecutePruneAfterUploadFailed() throws Exception {
+		final File output = createOutputDirectory();
+		final RuntimeException exception = new RuntimeException("mock");
+		when(repository.uploadDirectory(any(File.class), any(BucketPath.class))).thenThrow(exception);
+		mojo.setOutputDirectory(output);
+		mojo.setPruneAfterUpload(true);
+
+		try {
+			mojo.execute();
+			fail("Expected exception not thrown");
+		} catch (final RuntimeException e) {
+			assertSame(exception, e);
+		}
+		verify(repository, never()).deleteDirectory(any(String.class));
+		verify(repository, never()).deleteObjects(any(Collection.class));
+	}
+
+	/**
+	 * Tests that {@link AWSP2Mojo#execute()} does not fail the deployment when the stale objects cannot be deleted.
+	 *
+	 * @throws Exception
+	 * 		Unexpected.
+	 */
+	@Test
+	public void testExecutePruneAfterUploadListingFailed() throws Exception {
+		final File output = createOutputDirectory();
+		final BucketPath expectedDestination = new BucketPath()
+				.append(projectName)
+				.append(SNAPSHOT_DIR)
+				.append(projectVersion);
+		final RuntimeException exception = new RuntimeException("mock");
+		when(repository.iterate(expectedDestination.asString() + "/")).thenThrow(exception);
+		when(repository.uploadDirectory(new File(output, REPOSITORY_DIR), expectedDestination)).thenReturn(contentTrie);
+		when(repository.getHostingUrl(expectedDestination.asString())).thenReturn("http://primary");
+		mojo.setOutputDirectory(output);
+		mojo.setPruneAfterUpload(true);
+
+		mojo.execute();
+
+		verify(repository, never()).deleteObjects(any(Collection.class));
+		assertEquals(2, logger.getLoggingEvents().size());
+		assertEquals(warn("Unable to delete stale objects from bucket {}", bucketName).getMessage(),
+				logger.getLoggingEvents().get(1).getMessage());
+		assertSame(exception, logger.getLoggingEvents().get(1).getThrowable().get().getCause());
+	}
+
+	/**
+	 * Tests that {@link AWSP2Mojo#execute()} uploads the site to a staging prefix, points the destination at it, and
+	 * then deletes the previous stages and any other objects which are not part of the new site, when staging.
+	 *
+	 * @throws Exception
+	 * 		Unexpected.
+	 */
+	@Test
+	public void testExecuteStagedPublish() throws Exception {
+		final File output = createOutputDirectory();
+		final File expectedRepositoryDirectory = new File(output, REPOSITORY_DIR);
+		final BucketPath expectedDestination = new BucketPath()
+				.append(projectName)
+				.append(SNAPSHOT_DIR)
+				.append(projectVersion);
+		final String prefix = expectedDestination.asString() + "/";
+		when(repository.iterate(prefix)).thenReturn(asList(createSummary(prefix + "content.xml"),
+				createSummary(prefix + "p2.index"),
+				createSummary(prefix + "staging/20200101-000000-aaaaaaaa/content.xml"),
+				createSummary(prefix + "staging/20200102-000000-bbbbbbbb/content.xml")));
+		when(repository.uploadDirectory(eq(expectedRepositoryDirectory), any(BucketPath.class))).thenReturn(contentTrie);
+		when(repository.getHostingUrl(expectedDestination.asString())).thenReturn("http://primary");
+		mojo.setOutputDirectory(output);
+		mojo.setStagedPublish(true);
+		mojo.setStageGracePeriod(3600);
+
+		mojo.execute();
+
+		final ArgumentCaptor<BucketPath> captor = ArgumentCaptor.forClass(BucketPath.class);
+		final InOrder inOrder = inOrder(repository);
+		inOrder.verify(repository).uploadDirectory(eq(expectedRepositoryDirectory), captor.capture());
+		inOrder.verify(repository).uploadFile(any(File.class), any(ByteBuffer.class),
+				eq(new BucketPath(expectedDestination).append("p2.index")));
+		// The previous stage is retained, while the older stage and the flat site were superseded long ago
+		inOrder.verify(repository).deleteObjects(asList(prefix + "content.xml",
+				prefix + "staging/20200101-000000-aaaaaaaa/content.xml"));
+		assertTrue(captor.getValue().asString().startsWith(prefix + "staging/"));
+		verify(repository, never()).deleteDirectory(any(String.class));
+		assertThat(logger.getLoggingEvents(), is(asList(
+				info("Upload complete: {}", "http://primary"),
+				info("Deleted {} stale object(s) from bucket {}", 2, bucketName))));
+	}
+
 	/**
 	 * Tests that {@link AWSP2Mojo#execute()} does not write a landing page when the landing page flag is set to {@code
 	 * false}.
@@ -308,4 +607,1646 @@ public class AWSP2MojoTest {
 		mojo.execute();
 	}
 
+	/**
+	 * Tests that {@link AWSP2Mojo#execute()} throws an exception when neither a bucket nor any targets are specified.
+	 *
+	 * @throws BucketDoesNotExistException
+	 * 		Unexpected.
+	 */
+	@Test
+	public void testExecuteNoBucket() throws BucketDoesNotExistException {
+		mojo.setBucket(" ");
+
+		try {
+			mojo.execute();
+			fail("Expected exception not thrown");
+		} catch (final MojoFailureException e) {
+			assertEquals("Bucket has not been specified", e.getMessage());
+		}
+		verify(repositoryFactory, never()).create(any(String.class), any(RepositoryOptions.class));
+	}
+
+	/**
+	 * Tests that {@link AWSP2Mojo#execute()} throws an exception when the upload concurrency is not positive.
+	 *
+	 * @throws BucketDoesNotExistException
+	 * 		Unexpected.
+	 */
+	@Test
+	public void testExecuteInvalidUploadConcurrency() throws BucketDoesNotExistException {
+		mojo.setTargets(singletonList(new DeployTarget("replica", "eu-west-1", null)));
+		mojo.setUploadConcurrency(0);
+
+		try {
+			mojo.execute();
+			fail("Expected exception not thrown");
+		} catch (final MojoFailureException e) {
+			assertEquals("Upload concurrency must be at least 1", e.getMessage());
+		}
+	}
+
+	/**
+	 * Tests that {@link AWSP2Mojo#execute()} deploys a single bucket through the fan-out when skipping unchanged files,
+	 * and then deletes the objects which are not part of the new site.
+	 *
+	 * @throws Exception
+	 * 		Unexpected.
+	 */
+	@Test
+	public void testExecuteSkipUnchanged() throws Exception {
+		final File output = createOutputDirectory();
+		final DeployTarget primary = new DeployTarget(bucketName, null, null);
+		final BucketPath expectedDestination = new BucketPath()
+				.append(projectName)
+				.append(SNAPSHOT_DIR)
+				.append(projectVersion);
+		final String prefix = expectedDestination.asString() + "/";
+		when(repositoryFactory.create(eq(primary), any(RepositoryOptions.class)))
+				.thenReturn(repository);
+		when(repository.iterate(prefix)).thenReturn(asList(createSummary(prefix + "content.xml"),
+				createSummary(prefix + "old.jar")));
+		when(fanOutDeployerFactory.create(DeploymentOptions.builder(8).deleteExisting(false)
+				.skipUnchanged(true).build())).thenReturn(fanOutDeployer);
+		when(fanOutDeployer.deploy(any(Map.class), any(List.class))).thenReturn(singletonList(
+				new DeploymentResult(primary, expectedDestination, contentTrie, 1, 3, Optional.<Throwable>absent())));
+		when(repository.getHostingUrl(expectedDestination.asString())).thenReturn("http://primary");
+		mojo.setOutputDirectory(output);
+		mojo.setSkipUnchanged(true);
+
+		mojo.execute();
+
+		verify(repository, never()).deleteDirectory(any(String.class));
+		verify(repository, never()).uploadDirectory(any(File.class), any(BucketPath.class));
+		verify(repository).deleteObjects(singletonList(prefix + "old.jar"));
+		assertThat(logger.getLoggingEvents(), is(asList(
+				info("Upload complete: {}", "http://primary"),
+				info("Skipped {} unchanged file(s) in bucket {}", 3, bucketName),
+				info("Deleted {} stale object(s) from bucket {}", 1, bucketName))));
+	}
+
+	/**
+	 * Tests that {@link AWSP2Mojo#execute()} takes the state of the existing objects from the remote state cache when
+	 * enabled, and caches the new state once the site is complete.
+	 *
+	 * @throws Exception
+	 * 		Unexpected.
+	 */
+	@Test
+	public void testExecuteSkipUnchangedCachesState() throws Exception {
+		final File output = createOutputDirectory();
+		final DeployTarget primary = new DeployTarget(bucketName, null, null);
+		final BucketPath expectedDestination = new BucketPath()
+				.append(projectName)
+				.append(SNAPSHOT_DIR)
+				.append(projectVersion);
+		final String prefix = expectedDestination.asString() + "/";
+		final RemoteState state =
+				new RemoteState(singletonList(new RemoteObject(prefix + "content.xml", 7, "etag", 1L)));
+		when(repositoryFactory.create(eq(primary), any(RepositoryOptions.class)))
+				.thenReturn(repository);
+		when(repository.iterate(prefix)).thenReturn(singletonList(createSummary(prefix + "content.xml")));
+		when(fanOutDeployerFactory.create(DeploymentOptions.builder(8).deleteExisting(false).skipUnchanged(true)
+				.stateCache(stateCache).build()))
+				.thenReturn(fanOutDeployer);
+		when(fanOutDeployer.deploy(any(Map.class), any(List.class))).thenReturn(singletonList(
+				new DeploymentResult(primary, expectedDestination, contentTrie, 0, 1, Optional.<Throwable>absent(),
+						Optional.of(state))));
+		when(repository.getHostingUrl(expectedDestination.asString())).thenReturn("http://primary");
+		mojo.setOutputDirectory(output);
+		mojo.setSkipUnchanged(true);
+		mojo.setRemoteStateCacheTtl(3600);
+
+		mojo.execute();
+
+		verify(stateCache).setTtlSeconds(3600);
+		verify(stateCache).put(repository, bucketName, prefix, state);
+	}
+
+	/**
+	 * Tests that {@link AWSP2Mojo#execute()} stores the manifest of the site once it is complete when the deploy
+	 * manifest is enabled.
+	 *
+	 * @throws Exception
+	 * 		Unexpected.
+	 */
+	@Test
+	public void testExecuteSkipUnchangedStoresManifest() throws Exception {
+		final File output = createOutputDirectory();
+		final DeployTarget primary = new DeployTarget(bucketName, null, null);
+		final BucketPath expectedDestination = new BucketPath()
+				.append(projectName)
+				.append(SNAPSHOT_DIR)
+				.append(projectVersion);
+		final String prefix = expectedDestination.asString() + "/";
+		final DeployManifest manifest = new DeployManifest(singletonList(new RemoteObject("content.xml", 7, null, 0)));
+		when(repositoryFactory.create(eq(primary), any(RepositoryOptions.class)))
+				.thenReturn(repository);
+		when(repository.iterate(prefix)).thenReturn(singletonList(createSummary(prefix + "content.xml")));
+		when(fanOutDeployerFactory.create(any(DeploymentOptions.class))).thenReturn(fanOutDeployer);
+		when(fanOutDeployer.deploy(any(Map.class), any(List.class))).thenReturn(singletonList(
+				new DeploymentResult(primary, expectedDestination, contentTrie, 1, 0, Optional.<Throwable>absent(),
+						Optional.<RemoteState>absent(), false, Optional.of(manifest))));
+		when(repository.getHostingUrl(expectedDestination.asString())).thenReturn("http://primary");
+		mojo.setOutputDirectory(output);
+		mojo.setSkipUnchanged(true);
+		mojo.setDeployManifest(true);
+
+		mojo.execute();
+
+		verify(repository).uploadFile(any(File.class), any(ByteBuffer.class),
+				eq(new BucketPath().append(DeployManifestStore.getManifestKey(prefix))));
+	}
+
+	/**
+	 * Tests that {@link AWSP2Mojo#execute()} skips the rest of the deployment to a bucket in which the site is already
+	 * up to date.
+	 *
+	 * @throws Exception
+	 * 		Unexpected.
+	 */
+	@Test
+	public void testExecuteSiteUpToDate() throws Exception {
+		final File output = createOutputDirectory();
+		final DeployTarget primary = new DeployTarget(bucketName, null, null);
+		final BucketPath expectedDestination = new BucketPath()
+				.append(projectName)
+				.append(SNAPSHOT_DIR)
+				.append(projectVersion);
+		final DeployManifest manifest = new DeployManifest(singletonList(new RemoteObject("content.xml", 7, null, 0)));
+		when(repositoryFactory.create(eq(primary), any(RepositoryOptions.class)))
+				.thenReturn(repository);
+		when(fanOutDeployerFactory.create(any(DeploymentOptions.class))).thenReturn(fanOutDeployer);
+		when(fanOutDeployer.deploy(any(Map.class), any(List.class))).thenReturn(singletonList(
+				new DeploymentResult(primary, expectedDestination, contentTrie, 0, 1, Optional.<Throwable>absent(),
+						Optional.<RemoteState>absent(), true, Optional.of(manifest))));
+		mojo.setOutputDirectory(output);
+		mojo.setSkipUnchanged(true);
+		mojo.setDeployManifest(true);
+
+		mojo.execute();
+
+		assertThat(logger.getLoggingEvents(), is(singletonList(
+				info("Site is already up to date in bucket {}", bucketName))));
+		verify(repository, never()).uploadFile(any(File.class), any(ByteBuffer.class), any(BucketPath.class));
+		verify(repository, never()).deleteObjects(any(Collection.class));
+		verify(repository, never()).iterate(any(String.class));
+	}
+
+	/**
+	 * Tests that {@link AWSP2Mojo#execute()} takes the stale objects from the existing keys known to the deployment,
+	 * without listing the destination.
+	 *
+	 * @throws Exception
+	 * 		Unexpected.
+	 */
+	@Test
+	public void testExecuteSkipUnchangedKnownState() throws Exception {
+		final File output = createOutputDirectory();
+		final DeployTarget primary = new DeployTarget(bucketName, null, null);
+		final BucketPath expectedDestination = new BucketPath()
+				.append(projectName)
+				.append(SNAPSHOT_DIR)
+				.append(projectVersion);
+		final String prefix = expectedDestination.asString() + "/";
+		when(repositoryFactory.create(eq(primary), any(RepositoryOptions.class)))
+				.thenReturn(repository);
+		when(fanOutDeployerFactory.create(DeploymentOptions.builder(8).deleteExisting(false)
+				.skipUnchanged(true).build())).thenReturn(fanOutDeployer);
+		when(fanOutDeployer.deploy(any(Map.class), any(List.class))).thenReturn(singletonList(
+				new DeploymentResult(primary, expectedDestination, contentTrie, 1, 3, Optional.<Throwable>absent(),
+						Optional.<RemoteState>absent(), false, Optional.<DeployManifest>absent(),
+						Collections.<String>emptySet(), Optional.<Set<String>>of(new HashSet<String>(
+						asList(prefix + "content.xml", prefix + "old.jar"))))));
+		when(repository.getHostingUrl(expectedDestination.asString())).thenReturn("http://primary");
+		mojo.setOutputDirectory(output);
+		mojo.setSkipUnchanged(true);
+
+		mojo.execute();
+
+		verify(repository).deleteObjects(singletonList(prefix + "old.jar"));
+		verify(repository, never()).iterate(any(String.class));
+	}
+
+	/**
+	 * Tests that {@link AWSP2Mojo#execute()} does not cache the state of a site whose stale objects could not be
+	 * deleted, since the cached state would no longer include every object.
+	 *
+	 * @throws Exception
+	 * 		Unexpected.
+	 */
+	@Test
+	public void testExecuteSkipUnchangedPruneFailed() throws Exception {
+		final File output = createOutputDirectory();
+		final DeployTarget primary = new DeployTarget(bucketName, null, null);
+		final BucketPath expectedDestination = new BucketPath()
+				.append(projectName)
+				.append(SNAPSHOT_DIR)
+				.append(projectVersion);
+		final String prefix = expectedDestination.asString() + "/";
+		final RemoteState state =
+				new RemoteState(singletonList(new RemoteObject(prefix + "content.xml", 7, "etag", 1L)), true);
+		when(repositoryFactory.create(eq(primary), any(RepositoryOptions.class)))
+				.thenReturn(repository);
+		when(repository.iterate(prefix)).thenThrow(new AmazonClientException("mock"));
+		when(fanOutDeployerFactory.create(DeploymentOptions.builder(8).deleteExisting(false).skipUnchanged(true)
+				.stateCache(stateCache).build()))
+				.thenReturn(fanOutDeployer);
+		when(fanOutDeployer.deploy(any(Map.class), any(List.class))).thenReturn(singletonList(
+				new DeploymentResult(primary, expectedDestination, contentTrie, 0, 1, Optional.<Throwable>absent(),
+						Optional.of(state))));
+		when(repository.getHostingUrl(expectedDestination.asString())).thenReturn("http://primary");
+		mojo.setOutputDirectory(output);
+		mojo.setSkipUnchanged(true);
+		mojo.setRemoteStateCacheTtl(3600);
+
+		mojo.execute();
+
+		verify(stateCache, never()).put(any(S3BucketRepository.class), any(String.class), any(String.class),
+				any(RemoteState.class));
+	}
+
+	/**
+	 * Tests that {@link AWSP2Mojo#execute()} verifies the uploaded objects against the local files before publishing
+	 * the site.
+	 *
+	 * @throws Exception
+	 * 		Unexpected.
+	 */
+	@Test
+	public void testExecuteVerifyUpload() throws Exception {
+		final File output = createOutputDirectory();
+		final File expectedRepositoryDirectory = new File(output, REPOSITORY_DIR);
+		final BucketPath expectedDestination = new BucketPath()
+				.append(projectName)
+				.append(SNAPSHOT_DIR)
+				.append(projectVersion);
+		final String key = expectedDestination.asString() + "/content.xml";
+		final Trie<String, String> content = new BucketTrieFactory().create(expectedDestination.getParent().get());
+		content.insert(key, "http://content");
+		final S3ObjectSummary summary = createSummary(key);
+		summary.setSize(7);
+		summary.setETag(new ETagCalculator().calculate(new File(expectedRepositoryDirectory, "content.xml")));
+		when(repository.uploadDirectory(expectedRepositoryDirectory, expectedDestination)).thenReturn(content);
+		when(repository.iterate(expectedDestination.asString() + "/")).thenReturn(singletonList(summary));
+		when(repository.getHostingUrl(expectedDestination.asString())).thenReturn("http://primary");
+		mojo.setOutputDirectory(output);
+		mojo.setVerifyUpload(true);
+
+		mojo.execute();
+
+		assertThat(logger.getLoggingEvents(), is(asList(
+				info("Verified {} object(s) in bucket {}", 1, bucketName),
+				info("Upload complete: {}", "http://primary"))));
+	}
+
+	/**
+	 * Tests that {@link AWSP2Mojo#execute()} throws an exception, without publishing the site, when an uploaded object
+	 * is missing.
+	 *
+	 * @throws Exception
+	 * 		Unexpected.
+	 */
+	@Test
+	public void testExecuteVerifyUploadMissingObject() throws Exception {
+		final File output = createOutputDirectory();
+		final File expectedRepositoryDirectory = new File(output, REPOSITORY_DIR);
+		final BucketPath expectedDestination = new BucketPath()
+				.append(projectName)
+				.append(SNAPSHOT_DIR)
+				.append(projectVersion);
+		final String key = expectedDestination.asString() + "/content.xml";
+		final Trie<String, String> content = new BucketTrieFactory().create(expectedDestination.getParent().get());
+		content.insert(key, "http://content");
+		when(repository.uploadDirectory(expectedRepositoryDirectory, expectedDestination)).thenReturn(content);
+		when(repository.iterate(expectedDestination.asString() + "/"))
+				.thenReturn(Collections.<S3ObjectSummary>emptyList());
+		mojo.setOutputDirectory(output);
+		mojo.setVerifyUpload(true);
+
+		try {
+			mojo.execute();
+			fail("Expected exception not thrown");
+		} catch (final MojoFailureException e) {
+			assertEquals("Verification failed for bucket " + bucketName, e.getMessage());
+		}
+		verify(repository, never()).getHostingUrl(expectedDestination.asString());
+		assertTrue(logger.getLoggingEvents().contains(error("Object is missing from bucket {}: {}", bucketName,
+				key)));
+	}
+
+	/**
+	 * Tests that {@link AWSP2Mojo#execute()} throws an exception when skipping unchanged files while publishing
+	 * through a stage.
+	 *
+	 * @throws BucketDoesNotExistException
+	 * 		Unexpected.
+	 */
+	@Test
+	public void testExecuteSkipUnchangedStagedPublish() throws BucketDoesNotExistException {
+		mojo.setSkipUnchanged(true);
+		mojo.setStagedPublish(true);
+
+		try {
+			mojo.execute();
+			fail("Expected exception not thrown");
+		} catch (final MojoFailureException e) {
+			assertEquals("Unchanged files cannot be skipped when publishing through a stage", e.getMessage());
+		}
+		verify(repositoryFactory, never()).create(bucketName);
+	}
+
+	/**
+	 * Tests {@link AWSP2Mojo#execute()} when deploying to additional targets. The site should be deployed to the bucket
+	 * and every target in a single fan-out.
+	 *
+	 * @throws Exception
+	 * 		Unexpected.
+	 */
+	@Test
+	public void testExecuteTargets() throws Exception {
+		final DeployTarget primary = new DeployTarget(bucketName, null, null);
+		final DeployTarget replica = new DeployTarget("replica", "eu-west-1", "https://replica.example.com");
+		final File expectedRepositoryDirectory = new File(outputDirectory, REPOSITORY_DIR);
+		final BucketPath expectedDestination = new BucketPath()
+				.append(projectName)
+				.append(SNAPSHOT_DIR)
+				.append(projectVersion);
+		when(repositoryFactory.create(eq(primary), any(RepositoryOptions.class)))
+				.thenReturn(repository);
+		when(repositoryFactory.create(eq(replica), any(RepositoryOptions.class)))
+				.thenReturn(replicaRepository);
+		when(fanOutDeployerFactory.create(DeploymentOptions.builder(8).build())).thenReturn(fanOutDeployer);
+		final Map<DeployTarget, Future<S3BucketRepository>> deployedTargets = new LinkedHashMap<>();
+		final List<SiteRegistration> deployedSites = new ArrayList<>();
+		when(fanOutDeployer.deploy(any(Map.class), any(List.class))).thenAnswer(new Answer<Object>() {
+			@Override
+			public Object answer(final InvocationOnMock invocation) {
+				final Map<DeployTarget, Future<S3BucketRepository>> targets = invocation.getArgument(0);
+				final List<SiteRegistration> sites = invocation.getArgument(1);
+				deployedTargets.putAll(targets);
+				deployedSites.addAll(sites);
+				return asList(
+						new DeploymentResult(primary, expectedDestination, contentTrie, 2,
+								Optional.<Throwable>absent()),
+						new DeploymentResult(replica, expectedDestination, replicaContentTrie, 2,
+								Optional.<Throwable>absent()));
+			}
+		});
+		when(repository.getHostingUrl(expectedDestination.asString())).thenReturn("http://primary");
+		when(replicaRepository.getHostingUrl(expectedDestination.asString())).thenReturn("http://replica");
+		mojo.setTargets(singletonList(replica));
+
+		mojo.execute();
+
+		assertEquals(asList(primary, replica), new ArrayList<>(deployedTargets.keySet()));
+		assertEquals(repository, Futures.getUnchecked(deployedTargets.get(primary)));
+		assertEquals(replicaRepository, Futures.getUnchecked(deployedTargets.get(replica)));
+		assertEquals(1, deployedSites.size());
+		assertEquals(asList(primary, replica), deployedSites.get(0).getTargets());
+		assertEquals(expectedRepositoryDirectory, deployedSites.get(0).getDirectory());
+		assertEquals(expectedDestination, deployedSites.get(0).getDestination());
+		verify(repositoryFactory, never()).create(bucketName);
+		verify(contentTrie).log();
+		verify(replicaContentTrie).log();
+		assertThat(logger.getLoggingEvents(), is(asList(
+				info("Upload complete: {}", "http://primary"),
+				info("Upload complete: {}", "http://replica"))));
+	}
+
+	/**
+	 * Tests that {@link AWSP2Mojo#execute()} throws an exception when the deployment to a target fails, after the other
+	 * targets have been published.
+	 *
+	 * @throws Exception
+	 * 		Unexpected.
+	 */
+	@Test
+	public void testExecuteTargetFailed() throws Exception {
+		final DeployTarget replica = new DeployTarget("replica", null, null);
+		final Throwable failure = new RuntimeException("mock");
+		final BucketPath expectedDestination = new BucketPath()
+				.append(projectName)
+				.append(SNAPSHOT_DIR)
+				.append(projectVersion);
+		when(repositoryFactory.create(eq(replica), any(RepositoryOptions.class)))
+				.thenReturn(replicaRepository);
+		when(fanOutDeployerFactory.create(DeploymentOptions.builder(8).build())).thenReturn(fanOutDeployer);
+		when(fanOutDeployer.deploy(any(Map.class), any(List.class)))
+				.thenReturn(singletonList(new DeploymentResult(replica, expectedDestination, replicaContentTrie, 0,
+						Optional.of(failure))));
+		mojo.setBucket(null);
+		mojo.setTargets(singletonList(replica));
+
+		try {
+			mojo.execute();
+			fail("Expected exception not thrown");
+		} catch (final MojoFailureException e) {
+			assertEquals("Deployment failed for 1 bucket(s)", e.getMessage());
+		}
+		verify(repositoryFactory, never()).create(bucketName);
+		assertThat(logger.getLoggingEvents(),
+				is(singletonList(error(failure, "Deployment to bucket {} failed", "replica"))));
+	}
+
+	/**
+	 * Tests that {@link AWSP2Mojo#execute()} deletes the stale objects only from the targets which succeeded when
+	 * pruning after upload.
+	 *
+	 * @throws Exception
+	 * 		Unexpected.
+	 */
+	@Test
+	public void testExecuteTargetsPruneAfterUpload() throws Exception {
+		final File output = createOutputDirectory();
+		final DeployTarget primary = new DeployTarget(bucketName, null, null);
+		final DeployTarget replica = new DeployTarget("replica", null, null);
+		final Throwable failure = new RuntimeException("mock");
+		final BucketPath expectedDestination = new BucketPath()
+				.append(projectName)
+				.append(SNAPSHOT_DIR)
+				.append(projectVersion);
+		final String prefix = expectedDestination.asString() + "/";
+		when(repositoryFactory.create(eq(primary), any(RepositoryOptions.class)))
+				.thenReturn(repository);
+		when(repositoryFactory.create(eq(replica), any(RepositoryOptions.class)))
+				.thenReturn(replicaRepository);
+		when(repository.iterate(prefix)).thenReturn(asList(createSummary(prefix + "content.xml"),
+				createSummary(prefix + "old.jar")));
+		when(fanOutDeployerFactory.create(DeploymentOptions.builder(8).deleteExisting(false).build()))
+				.thenReturn(fanOutDeployer);
+		when(fanOutDeployer.deploy(any(Map.class), any(List.class))).thenReturn(asList(
+				new DeploymentResult(primary, expectedDestination, contentTrie, 1, Optional.<Throwable>absent()),
+				new DeploymentResult(replica, expectedDestination, replicaContentTrie, 0, Optional.of(failure))));
+		when(repository.getHostingUrl(expectedDestination.asString())).thenReturn("http://primary");
+		mojo.setOutputDirectory(output);
+		mojo.setTargets(singletonList(replica));
+		mojo.setPruneAfterUpload(true);
+
+		try {
+			mojo.execute();
+			fail("Expected exception not thrown");
+		} catch (final MojoFailureException e) {
+			assertEquals("Deployment failed for 1 bucket(s)", e.getMessage());
+		}
+		verify(repository).deleteObjects(singletonList(prefix + "old.jar"));
+		verify(replicaRepository, never()).deleteObjects(any(Collection.class));
+		assertThat(logger.getLoggingEvents(), is(asList(
+				info("Upload complete: {}", "http://primary"),
+				info("Deleted {} stale object(s) from bucket {}", 1, bucketName),
+				error(failure, "Deployment to bucket {} failed", "replica"))));
+	}
+
+	/**
+	 * Tests that {@link AWSP2Mojo#execute()} deploys the sites to staging prefixes and points each target at them when
+	 * staging.
+	 *
+	 * @throws Exception
+	 * 		Unexpected.
+	 */
+	@Test
+	public void testExecuteTargetsStagedPublish() throws Exception {
+		final File output = createOutputDirectory();
+		final DeployTarget replica = new DeployTarget("replica", null, null);
+		final BucketPath expectedDestination = new BucketPath()
+				.append(projectName)
+				.append(SNAPSHOT_DIR)
+				.append(projectVersion);
+		when(repositoryFactory.create(eq(replica), any(RepositoryOptions.class)))
+				.thenReturn(replicaRepository);
+		when(replicaRepository.iterate(expectedDestination.asString() + "/"))
+				.thenReturn(Collections.<S3ObjectSummary>emptyList());
+		when(fanOutDeployerFactory.create(DeploymentOptions.builder(8).deleteExisting(false).build()))
+				.thenReturn(fanOutDeployer);
+		final List<SiteRegistration> deployedSites = new ArrayList<>();
+		when(fanOutDeployer.deploy(any(Map.class), any(List.class))).thenAnswer(new Answer<Object>() {
+			@Override
+			public Object answer(final InvocationOnMock invocation) {
+				final List<SiteRegistration> sites = invocation.getArgument(1);
+				deployedSites.addAll(sites);
+				return singletonList(new DeploymentResult(replica, sites.get(0).getDestination(), replicaContentTrie,
+						1, Optional.<Throwable>absent()));
+			}
+		});
+		when(replicaRepository.getHostingUrl(expectedDestination.asString())).thenReturn("http://replica");
+		mojo.setOutputDirectory(output);
+		mojo.setBucket(null);
+		mojo.setTargets(singletonList(replica));
+		mojo.setStagedPublish(true);
+
+		mojo.execute();
+
+		assertEquals(1, deployedSites.size());
+		assertTrue(deployedSites.get(0).getDestination().asString()
+				.startsWith(expectedDestination.asString() + "/staging/"));
+		verify(replicaRepository).uploadFile(any(File.class), any(ByteBuffer.class),
+				eq(new BucketPath(expectedDestination).append("compositeContent.xml")));
+		verify(replicaRepository, never()).deleteObjects(any(Collection.class));
+		assertThat(logger.getLoggingEvents(), is(asList(
+				info("Upload complete: {}", "http://replica"),
+				info("Deleted {} stale object(s) from bucket {}", 0, "replica"))));
+	}
+
+	/**
+	 * Tests that {@link AWSP2Mojo#execute()} purges the noncurrent versions behind the destination once the site has
+	 * been deployed, and reports what was reclaimed.
+	 *
+	 * @throws Exception
+	 * 		Unexpected.
+	 */
+	@Test
+	public void testExecutePurgeVersions() throws Exception {
+		final BucketPath expectedDestination = new BucketPath()
+				.append(projectName)
+				.append(SNAPSHOT_DIR)
+				.append(projectVersion);
+		final String prefix = expectedDestination.asString() + "/";
+		final S3VersionSummary noncurrent = new S3VersionSummary();
+		noncurrent.setKey(prefix + "content.xml");
+		noncurrent.setVersionId("1");
+		noncurrent.setSize(256);
+		when(repository.uploadDirectory(new File(outputDirectory, REPOSITORY_DIR), expectedDestination))
+				.thenReturn(contentTrie);
+		when(repository.getHostingUrl(expectedDestination.asString())).thenReturn("http://primary");
+		when(repository.iterateVersions(prefix)).thenReturn(singletonList(noncurrent));
+		mojo.setPurgeVersions(true);
+
+		mojo.execute();
+
+		final InOrder inOrder = inOrder(repository);
+		inOrder.verify(repository).uploadDirectory(new File(outputDirectory, REPOSITORY_DIR), expectedDestination);
+		inOrder.verify(repository).deleteVersions(any(Collection.class));
+		assertThat(logger.getLoggingEvents(), is(asList(
+				info("Upload complete: {}", "http://primary"),
+				info("Purged {} noncurrent version(s) and {} delete marker(s) from bucket {}: {} byte(s) reclaimed",
+						1L, 0L, bucketName, 256L))));
+	}
+
+	/**
+	 * Tests that {@link AWSP2Mojo#execute()} does not fail the deployment when the noncurrent versions cannot be
+	 * purged.
+	 *
+	 * @throws Exception
+	 * 		Unexpected.
+	 */
+	@Test
+	public void testExecutePurgeVersionsFailed() throws Exception {
+		final BucketPath expectedDestination = new BucketPath()
+				.append(projectName)
+				.append(SNAPSHOT_DIR)
+				.append(projectVersion);
+		final RuntimeException exception = new RuntimeException("mock");
+		when(repository.uploadDirectory(new File(outputDirectory, REPOSITORY_DIR), expectedDestination))
+				.thenReturn(contentTrie);
+		when(repository.getHostingUrl(expectedDestination.asString())).thenReturn("http://primary");
+		when(repository.iterateVersions(expectedDestination.asString() + "/")).thenThrow(exception);
+		mojo.setPurgeVersions(true);
+
+		mojo.execute();
+
+		assertThat(logger.getLoggingEvents(), is(asList(
+				info("Upload complete: {}", "http://primary"),
+				warn(exception, "Unable to purge noncurrent versions from bucket {}", bucketName))));
+	}
+
+	/**
+	 * Tests that {@link AWSP2Mojo#execute()} deletes the expired snapshot versions of the project once the new version
+	 * has been deployed, and reports what was reclaimed.
+	 *
+	 * @throws Exception
+	 * 		Unexpected.
+	 */
+	@Test
+	public void testExecuteSnapshotRetention() throws Exception {
+		final BucketPath expectedDestination = new BucketPath()
+				.append(projectName)
+				.append(SNAPSHOT_DIR)
+				.append(projectVersion);
+		final String versions = projectName + "/" + SNAPSHOT_DIR + "/";
+		final String expired = versions + "0.9.0-SNAPSHOT/";
+		final S3ObjectSummary summary = createSummary(expired + "content.xml");
+		summary.setLastModified(new Date(0));
+		summary.setSize(512);
+		when(repository.uploadDirectory(new File(outputDirectory, REPOSITORY_DIR), expectedDestination))
+				.thenReturn(contentTrie);
+		when(repository.getHostingUrl(expectedDestination.asString())).thenReturn("http://primary");
+		when(repository.listDirectories(versions)).thenReturn(asList(expired, expectedDestination.asString() + "/"));
+		when(repository.iterate(expired)).thenReturn(singletonList(summary));
+		mojo.setSnapshotRetentionCount(1);
+
+		mojo.execute();
+
+		verify(repository).deleteObjects(singletonList(expired + "content.xml"));
+		assertThat(logger.getLoggingEvents(), is(asList(
+				info("Upload complete: {}", "http://primary"),
+				info("Removed {} expired snapshot version(s) from bucket {}: {} object(s), {} byte(s) reclaimed", 1,
+						bucketName, 1L, 512L))));
+	}
+
+	/**
+	 * Tests that {@link AWSP2Mojo#execute()} never deletes release versions.
+	 *
+	 * @throws Exception
+	 * 		Unexpected.
+	 */
+	@Test
+	public void testExecuteSnapshotRetentionRelease() throws Exception {
+		projectVersion = RELEASE_VERSION;
+		when(project.getVersion()).thenReturn(projectVersion);
+		final BucketPath expectedDestination = new BucketPath()
+				.append(projectName)
+				.append(RELEASE_DIR)
+				.append(projectVersion);
+		when(repository.uploadDirectory(new File(outputDirectory, REPOSITORY_DIR), expectedDestination))
+				.thenReturn(contentTrie);
+		mojo.setSnapshotRetentionCount(1);
+		mojo.setSnapshotRetentionDays(1);
+
+		mojo.execute();
+
+		verify(repository, never()).listDirectories(any(String.class));
+		verify(repository, never()).deleteObjects(any(Collection.class));
+	}
+
+	/**
+	 * Tests that {@link AWSP2Mojo#execute()} does not fail the deployment when the expired snapshot versions cannot be
+	 * deleted.
+	 *
+	 * @throws Exception
+	 * 		Unexpected.
+	 */
+	@Test
+	public void testExecuteSnapshotRetentionFailed() throws Exception {
+		final BucketPath expectedDestination = new BucketPath()
+				.append(projectName)
+				.append(SNAPSHOT_DIR)
+				.append(projectVersion);
+		final RuntimeException exception = new RuntimeException("mock");
+		when(repository.uploadDirectory(new File(outputDirectory, REPOSITORY_DIR), expectedDestination))
+				.thenReturn(contentTrie);
+		when(repository.getHostingUrl(expectedDestination.asString())).thenReturn("http://primary");
+		when(repository.listDirectories(projectName + "/" + SNAPSHOT_DIR + "/")).thenThrow(exception);
+		mojo.setSnapshotRetentionDays(30);
+
+		mojo.execute();
+
+		assertThat(logger.getLoggingEvents(), is(asList(
+				info("Upload complete: {}", "http://primary"),
+				warn(exception, "Unable to delete expired snapshot versions from bucket {}", bucketName))));
+	}
+
+	/**
+	 * Tests that {@link AWSP2Mojo#execute()} throws an exception when the number of snapshot versions to keep is
+	 * negative.
+	 *
+	 * @throws BucketDoesNotExistException
+	 * 		Unexpected.
+	 */
+	@Test
+	public void testExecuteNegativeSnapshotRetentionCount() throws BucketDoesNotExistException {
+		mojo.setSnapshotRetentionCount(-1);
+
+		try {
+			mojo.execute();
+			fail("Expected exception not thrown");
+		} catch (final MojoFailureException e) {
+			assertEquals("Snapshot retention count cannot be negative", e.getMessage());
+		}
+		verify(repositoryFactory, never()).create(any(String.class), any(RepositoryOptions.class));
+	}
+
+	/**
+	 * Tests that {@link AWSP2Mojo#execute()} throws an exception when the number of days for which snapshot versions
+	 * are kept is negative.
+	 *
+	 * @throws BucketDoesNotExistException
+	 * 		Unexpected.
+	 */
+	@Test
+	public void testExecuteNegativeSnapshotRetentionDays() throws BucketDoesNotExistException {
+		mojo.setSnapshotRetentionDays(-1);
+
+		try {
+			mojo.execute();
+			fail("Expected exception not thrown");
+		} catch (final MojoFailureException e) {
+			assertEquals("Snapshot retention days cannot be negative", e.getMessage());
+		}
+		verify(repositoryFactory, never()).create(any(String.class), any(RepositoryOptions.class));
+	}
+
+	/**
+	 * Tests that {@link AWSP2Mojo#execute()} throws an exception when the listing shard depth of expired snapshot
+	 * versions is negative.
+	 *
+	 * @throws BucketDoesNotExistException
+	 * 		Unexpected.
+	 */
+	@Test
+	public void testExecuteNegativeSnapshotRetentionShardDepth() throws BucketDoesNotExistException {
+		mojo.setSnapshotRetentionShardDepth(-1);
+
+		try {
+			mojo.execute();
+			fail("Expected exception not thrown");
+		} catch (final MojoFailureException e) {
+			assertEquals("Snapshot retention shard depth cannot be negative", e.getMessage());
+		}
+		verify(repositoryFactory, never()).create(any(String.class), any(RepositoryOptions.class));
+	}
+
+	/**
+	 * Tests that {@link AWSP2Mojo#execute()} throws an exception when the maximum number of in-flight requests is not
+	 * positive.
+	 *
+	 * @throws BucketDoesNotExistException
+	 * 		Unexpected.
+	 */
+	@Test
+	public void testExecuteInvalidMaxInFlightRequests() throws BucketDoesNotExistException {
+		mojo.setMaxInFlightRequests(0);
+
+		try {
+			mojo.execute();
+			fail("Expected exception not thrown");
+		} catch (final MojoFailureException e) {
+			assertEquals("Max in-flight requests must be at least 1", e.getMessage());
+		}
+		verify(requestLimiter, never()).setMaxInFlightRequests(anyInt());
+		verify(repositoryFactory, never()).create(any(String.class), any(RepositoryOptions.class));
+	}
+
+	/**
+	 * Tests that {@link AWSP2Mojo#execute()} applies the maximum number of in-flight requests to the shared limiter.
+	 *
+	 * @throws MojoFailureException
+	 * 		Unexpected.
+	 */
+	@Test
+	public void testExecuteSetsMaxInFlightRequests() throws MojoFailureException {
+		final File expectedRepositoryDirectory = new File(outputDirectory, REPOSITORY_DIR);
+		final BucketPath expectedDestination = new BucketPath()
+				.append(projectName)
+				.append(SNAPSHOT_DIR)
+				.append(projectVersion);
+		when(repository.uploadDirectory(expectedRepositoryDirectory, expectedDestination)).thenReturn(contentTrie);
+		mojo.setMaxInFlightRequests(12);
+
+		mojo.execute();
+
+		verify(requestLimiter).setMaxInFlightRequests(12);
+	}
+
+	/**
+	 * Tests that {@link AWSP2Mojo#execute()} leaves the shared settings untouched when the module configures their
+	 * defaults, so that it does not undo the values configured by another module.
+	 *
+	 * @throws MojoFailureException
+	 * 		Unexpected.
+	 */
+	@Test
+	public void testExecuteDefaultSharedSettings() throws MojoFailureException {
+		final File expectedRepositoryDirectory = new File(outputDirectory, REPOSITORY_DIR);
+		final BucketPath expectedDestination = new BucketPath()
+				.append(projectName)
+				.append(SNAPSHOT_DIR)
+				.append(projectVersion);
+		when(repository.uploadDirectory(expectedRepositoryDirectory, expectedDestination)).thenReturn(contentTrie);
+		mojo.setMaxInFlightRequests(InFlightRequestLimiter.DEFAULT_MAX_IN_FLIGHT_REQUESTS);
+		mojo.setRegionCacheTtl(BucketRegionCache.DEFAULT_TTL_SECONDS);
+		mojo.setMaxBytesPerSecond(BandwidthLimiter.DEFAULT_BYTES_PER_SECOND);
+		mojo.setRemoteStateCacheTtl(RemoteStateCache.DEFAULT_TTL_SECONDS);
+
+		mojo.execute();
+
+		verify(requestLimiter, never()).setMaxInFlightRequests(anyInt());
+		verify(regionCache, never()).setTtlSeconds(anyLong());
+		verify(bandwidthLimiter, never()).configure(anyLong());
+		verify(stateCache, never()).setTtlSeconds(anyLong());
+		verify(bandwidthLimiter).registerMBean();
+	}
+
+	/**
+	 * Tests that the shared settings applied by {@link AWSP2Mojo#execute()} are restored to their defaults once the
+	 * session ends.
+	 *
+	 * @throws MojoFailureException
+	 * 		Unexpected.
+	 */
+	@Test
+	public void testExecuteRestoresSharedSettingsAtSessionEnd() throws MojoFailureException {
+		final File expectedRepositoryDirectory = new File(outputDirectory, REPOSITORY_DIR);
+		final BucketPath expectedDestination = new BucketPath()
+				.append(projectName)
+				.append(SNAPSHOT_DIR)
+				.append(projectVersion);
+		when(repository.uploadDirectory(expectedRepositoryDirectory, expectedDestination)).thenReturn(contentTrie);
+		final MavenSession executedSession = MavenSessionTestUtil.createSession();
+		mojo.setSession(executedSession);
+		mojo.setMaxInFlightRequests(12);
+		mojo.setRegionCacheTtl(3600);
+		mojo.setMaxBytesPerSecond(1048576);
+		mojo.setRemoteStateCacheTtl(60);
+
+		mojo.execute();
+		verify(requestLimiter, never()).setMaxInFlightRequests(InFlightRequestLimiter.DEFAULT_MAX_IN_FLIGHT_REQUESTS);
+
+		executedSession.getRequest().getExecutionListener().sessionEnded(mock(ExecutionEvent.class));
+
+		verify(requestLimiter).setMaxInFlightRequests(12);
+		verify(requestLimiter).setMaxInFlightRequests(InFlightRequestLimiter.DEFAULT_MAX_IN_FLIGHT_REQUESTS);
+		verify(regionCache).setTtlSeconds(3600);
+		verify(regionCache).setTtlSeconds(BucketRegionCache.DEFAULT_TTL_SECONDS);
+		verify(bandwidthLimiter).configure(1048576);
+		verify(bandwidthLimiter).configure(BandwidthLimiter.DEFAULT_BYTES_PER_SECOND);
+		verify(stateCache).setTtlSeconds(60);
+		verify(stateCache).setTtlSeconds(RemoteStateCache.DEFAULT_TTL_SECONDS);
+	}
+
+	/**
+	 * Tests that {@link AWSP2Mojo#execute()} throws an exception when the region cache TTL is negative.
+	 */
+	@Test
+	public void testExecuteNegativeRegionCacheTtl() {
+		mojo.setRegionCacheTtl(-1);
+
+		try {
+			mojo.execute();
+			fail("Expected exception not thrown");
+		} catch (final MojoFailureException e) {
+			assertEquals("Region cache TTL cannot be negative", e.getMessage());
+		}
+		verify(regionCache, never()).setTtlSeconds(anyLong());
+	}
+
+	/**
+	 * Tests that {@link AWSP2Mojo#execute()} throws an exception when the stage grace period is negative.
+	 */
+	@Test
+	public void testExecuteNegativeStageGracePeriod() {
+		mojo.setStagedPublish(true);
+		mojo.setStageGracePeriod(-1);
+
+		try {
+			mojo.execute();
+			fail("Expected exception not thrown");
+		} catch (final MojoFailureException e) {
+			assertEquals("Stage grace period cannot be negative", e.getMessage());
+		}
+	}
+
+	/**
+	 * Tests that {@link AWSP2Mojo#execute()} throws an exception when the remote state cache TTL is negative.
+	 */
+	@Test
+	public void testExecuteNegativeRemoteStateCacheTtl() {
+		mojo.setRemoteStateCacheTtl(-1);
+
+		try {
+			mojo.execute();
+			fail("Expected exception not thrown");
+		} catch (final MojoFailureException e) {
+			assertEquals("Remote state cache TTL cannot be negative", e.getMessage());
+		}
+		verify(stateCache, never()).setTtlSeconds(anyLong());
+	}
+
+	/**
+	 * Tests that {@link AWSP2Mojo#execute()} applies the region cache TTL to the shared region cache.
+	 *
+	 * @throws MojoFailureException
+	 * 		Unexpected.
+	 */
+	@Test
+	public void testExecuteSetsRegionCacheTtl() throws MojoFailureException {
+		final File expectedRepositoryDirectory = new File(outputDirectory, REPOSITORY_DIR);
+		final BucketPath expectedDestination = new BucketPath()
+				.append(projectName)
+				.append(SNAPSHOT_DIR)
+				.append(projectVersion);
+		when(repository.uploadDirectory(expectedRepositoryDirectory, expectedDestination)).thenReturn(contentTrie);
+		mojo.setRegionCacheTtl(3600);
+
+		mojo.execute();
+
+		verify(regionCache).setTtlSeconds(3600);
+	}
+
+	/**
+	 * Tests that {@link AWSP2Mojo#execute()} throws an exception when the maximum bytes per second is negative.
+	 */
+	@Test
+	public void testExecuteNegativeMaxBytesPerSecond() {
+		mojo.setMaxBytesPerSecond(-1);
+
+		try {
+			mojo.execute();
+			fail("Expected exception not thrown");
+		} catch (final MojoFailureException e) {
+			assertEquals("Max bytes per second cannot be negative", e.getMessage());
+		}
+		verify(bandwidthLimiter, never()).configure(anyLong());
+		verify(bandwidthLimiter, never()).registerMBean();
+	}
+
+	/**
+	 * Tests that {@link AWSP2Mojo#execute()} applies the maximum bytes per second to the shared bandwidth limiter, and
+	 * registers it for management.
+	 *
+	 * @throws MojoFailureException
+	 * 		Unexpected.
+	 */
+	@Test
+	public void testExecuteConfiguresBandwidthLimiter() throws MojoFailureException {
+		final File expectedRepositoryDirectory = new File(outputDirectory, REPOSITORY_DIR);
+		final BucketPath expectedDestination = new BucketPath()
+				.append(projectName)
+				.append(SNAPSHOT_DIR)
+				.append(projectVersion);
+		when(repository.uploadDirectory(expectedRepositoryDirectory, expectedDestination)).thenReturn(contentTrie);
+		mojo.setMaxBytesPerSecond(1048576);
+
+		mojo.execute();
+
+		verify(bandwidthLimiter).configure(1048576);
+		verify(bandwidthLimiter).registerMBean();
+	}
+
+	/**
+	 * Tests that {@link AWSP2Mojo#execute()} only registers the site when aggregating and other projects of the reactor
+	 * have yet to be built.
+	 *
+	 * @throws Exception
+	 * 		Unexpected.
+	 */
+	@Test
+	public void testExecuteAggregateRegistersSite() throws Exception {
+		final MavenProject otherProject = mock(MavenProject.class);
+		setupAggregation(project, otherProject);
+		when(project.getId()).thenReturn("com.example:mock-project:1.0.0-SNAPSHOT");
+
+		mojo.execute();
+
+		verify(fanOutDeployerFactory, never()).create(any(DeploymentOptions.class));
+		verify(repositoryFactory, never()).create(any(DeployTarget.class), any(RepositoryOptions.class));
+		assertThat(logger.getLoggingEvents(), is(singletonList(
+				info("Registered site for aggregated deployment: {}", "Mock/snapshots/1.0.0-SNAPSHOT"))));
+	}
+
+	/**
+	 * Tests that {@link AWSP2Mojo#execute()} deploys the sites of every project of the reactor once the last project
+	 * has registered, including projects which were skipped, and that reactor projects which do not use the plugin are
+	 * not waited for.
+	 *
+	 * @throws Exception
+	 * 		Unexpected.
+	 */
+	@Test
+	public void testExecuteAggregateDeploysAtEnd() throws Exception {
+		final DeployTarget primary = new DeployTarget(bucketName, null, null);
+		final MavenProject otherProject = mock(MavenProject.class);
+		final MavenProject skippedProject = mock(MavenProject.class);
+		final MavenProject unrelatedProject = mock(MavenProject.class);
+		setupAggregation(project, otherProject, skippedProject, unrelatedProject);
+		when(unrelatedProject.getBuildPlugins()).thenReturn(Collections.<Plugin>emptyList());
+		when(project.getId()).thenReturn("com.example:mock-project:1.0.0-SNAPSHOT");
+		when(otherProject.getId()).thenReturn("com.example:other-project:2.0.0");
+		when(otherProject.getVersion()).thenReturn(RELEASE_VERSION);
+		when(otherProject.getArtifactId()).thenReturn("other-project");
+		when(skippedProject.getId()).thenReturn("com.example:skipped-project:1.0.0");
+		final BucketPath snapshotDestination = new BucketPath().append(projectName).append(SNAPSHOT_DIR)
+				.append(projectVersion);
+		final BucketPath releaseDestination = new BucketPath().append(projectName).append(RELEASE_DIR)
+				.append(RELEASE_VERSION);
+		when(repositoryFactory.create(eq(primary), any(RepositoryOptions.class)))
+				.thenReturn(repository);
+		when(fanOutDeployerFactory.create(DeploymentOptions.builder(8).build())).thenReturn(fanOutDeployer);
+		final List<SiteRegistration> deployedSites = new ArrayList<>();
+		when(fanOutDeployer.deploy(any(Map.class), any(List.class))).thenAnswer(new Answer<Object>() {
+			@Override
+			public Object answer(final InvocationOnMock invocation) {
+				deployedSites.addAll(invocation.<List<SiteRegistration>>getArgument(1));
+				return asList(
+						new DeploymentResult(primary, snapshotDestination, contentTrie, 2,
+								Optional.<Throwable>absent()),
+						new DeploymentResult(primary, releaseDestination, replicaContentTrie, 3,
+								Optional.<Throwable>absent()));
+			}
+		});
+		when(repository.getHostingUrl(snapshotDestination.asString())).thenReturn("http://snapshot");
+		when(repository.getHostingUrl(releaseDestination.asString())).thenReturn("http://release");
+
+		mojo.execute();
+		final AWSP2Mojo skippedMojo = createAggregatingMojo(skippedProject);
+		skippedMojo.setSkip(true);
+		skippedMojo.execute();
+		verify(fanOutDeployerFactory, never()).create(any(DeploymentOptions.class));
+		createAggregatingMojo(otherProject).execute();
+
+		assertEquals(2, deployedSites.size());
+		assertEquals(snapshotDestination, deployedSites.get(0).getDestination());
+		assertEquals(artifactId, deployedSites.get(0).getArtifactId());
+		assertEquals(releaseDestination, deployedSites.get(1).getDestination());
+		assertEquals("other-project", deployedSites.get(1).getArtifactId());
+		verify(contentTrie).log();
+		verify(replicaContentTrie).log();
+		final List<LoggingEvent> events = logger.getLoggingEvents();
+		assertEquals(5, events.size());
+		assertEquals(info("Registered site for aggregated deployment: {}", snapshotDestination.asString()),
+				events.get(0));
+		assertEquals(info("Skipping execution"), events.get(1));
+		assertEquals(info("Upload complete: {}", "http://snapshot"), events.get(2));
+		assertEquals(info("Upload complete: {}", "http://release"), events.get(3));
+		assertEquals("Aggregated deployment complete: {} site(s), {} file(s) to {} bucket(s) in {} ms",
+				events.get(4).getMessage());
+		assertEquals(Arrays.<Object>asList(2, 5, 1), events.get(4).getArguments().subList(0, 3));
+	}
+
+	/**
+	 * Tests that {@link AWSP2Mojo#execute()} expects every project of the reactor to register when no project declares
+	 * the plugin, as is the case when the goal is invoked from the command line.
+	 *
+	 * @throws Exception
+	 * 		Unexpected.
+	 */
+	@Test
+	public void testExecuteAggregateCommandLine() throws Exception {
+		final MavenProject otherProject = mock(MavenProject.class);
+		setupAggregation(project, otherProject);
+		when(project.getBuildPlugins()).thenReturn(Collections.<Plugin>emptyList());
+		when(otherProject.getBuildPlugins()).thenReturn(Collections.<Plugin>emptyList());
+		when(project.getId()).thenReturn("com.example:mock-project:1.0.0-SNAPSHOT");
+		when(otherProject.getId()).thenReturn("com.example:other-project:1.0.0");
+
+		mojo.setSkip(true);
+		mojo.execute();
+		final AWSP2Mojo otherMojo = createAggregatingMojo(otherProject);
+		otherMojo.setSkip(true);
+		otherMojo.execute();
+
+		verify(fanOutDeployerFactory, never()).create(any(DeploymentOptions.class));
+		assertThat(logger.getLoggingEvents(), is(asList(info("Skipping execution"), info("Skipping execution"))));
+	}
+
+	/**
+	 * Tests that {@link AWSP2Mojo#execute()} registers the projects of the reactor in one registry, although Maven
+	 * builds each project with its own clone of the session.
+	 *
+	 * @throws Exception
+	 * 		Unexpected.
+	 */
+	@Test
+	public void testExecuteAggregateSessionClones() throws Exception {
+		final MavenProject otherProject = mock(MavenProject.class);
+		setupAggregation(project, otherProject);
+		when(project.getId()).thenReturn("com.example:mock-project:1.0.0-SNAPSHOT");
+		when(otherProject.getId()).thenReturn("com.example:other-project:1.0.0");
+		final MavenSession clonedSession = mock(MavenSession.class);
+		when(clonedSession.getProjects()).thenReturn(asList(project, otherProject));
+		when(clonedSession.getRequest()).thenReturn(request);
+
+		mojo.setSkip(true);
+		mojo.execute();
+		final AWSP2Mojo otherMojo = createAggregatingMojo(otherProject);
+		otherMojo.setSession(clonedSession);
+		otherMojo.setSkip(true);
+		otherMojo.execute();
+
+		assertThat(logger.getLoggingEvents(), is(asList(info("Skipping execution"), info("Skipping execution"))));
+	}
+
+	/**
+	 * Tests that {@link AWSP2Mojo#execute()} does not wait for reactor projects which declare the plugin without
+	 * enabling aggregation, or without binding the deploy goal, since their executions never register.
+	 *
+	 * @throws Exception
+	 * 		Unexpected.
+	 */
+	@Test
+	public void testExecuteAggregateIgnoresNonAggregatingProjects() throws Exception {
+		final MavenProject otherProject = mock(MavenProject.class);
+		final MavenProject nonAggregatingProject = mock(MavenProject.class);
+		final MavenProject unboundProject = mock(MavenProject.class);
+		setupAggregation(project, otherProject, nonAggregatingProject, unboundProject);
+		when(nonAggregatingProject.getBuildPlugins()).thenReturn(singletonList(createBuildPlugin("false")));
+		final Plugin unboundPlugin = createBuildPlugin("true");
+		unboundPlugin.getExecutions().get(0).setPhase("none");
+		when(unboundProject.getBuildPlugins()).thenReturn(singletonList(unboundPlugin));
+		when(project.getId()).thenReturn("com.example:mock-project:1.0.0-SNAPSHOT");
+		when(otherProject.getId()).thenReturn("com.example:other-project:1.0.0");
+		final DeployTarget primary = new DeployTarget(bucketName, null, null);
+		final BucketPath destination = new BucketPath().append(projectName).append(SNAPSHOT_DIR)
+				.append(projectVersion);
+		when(repositoryFactory.create(eq(primary), any(RepositoryOptions.class)))
+				.thenReturn(repository);
+		when(fanOutDeployerFactory.create(DeploymentOptions.builder(8).build())).thenReturn(fanOutDeployer);
+		when(fanOutDeployer.deploy(any(Map.class), any(List.class))).thenReturn(singletonList(
+				new DeploymentResult(primary, destination, contentTrie, 2, Optional.<Throwable>absent())));
+		when(repository.getHostingUrl(destination.asString())).thenReturn("http://snapshot");
+
+		mojo.execute();
+		final AWSP2Mojo otherMojo = createAggregatingMojo(otherProject);
+		otherMojo.setSkip(true);
+		otherMojo.execute();
+
+		verify(fanOutDeployer).deploy(any(Map.class), any(List.class));
+		verify(contentTrie).log();
+	}
+
+	/**
+	 * Tests that {@link AWSP2Mojo#execute()} waits for reactor projects which enable aggregation through the user
+	 * property rather than the plugin configuration.
+	 *
+	 * @throws Exception
+	 * 		Unexpected.
+	 */
+	@Test
+	public void testExecuteAggregateUserProperty() throws Exception {
+		final MavenProject otherProject = mock(MavenProject.class);
+		final MavenProject propertyProject = mock(MavenProject.class);
+		setupAggregation(project, propertyProject, otherProject);
+		when(propertyProject.getBuildPlugins()).thenReturn(singletonList(createBuildPlugin(null)));
+		final Properties userProperties = new Properties();
+		userProperties.setProperty("aws-p2.aggregate", "true");
+		when(session.getUserProperties()).thenReturn(userProperties);
+		when(project.getId()).thenReturn("com.example:mock-project:1.0.0-SNAPSHOT");
+		when(otherProject.getId()).thenReturn("com.example:other-project:1.0.0");
+
+		mojo.setSkip(true);
+		mojo.execute();
+		final AWSP2Mojo otherMojo = createAggregatingMojo(otherProject);
+		otherMojo.setSkip(true);
+		otherMojo.execute();
+
+		verify(fanOutDeployerFactory, never()).create(any(DeploymentOptions.class));
+	}
+
+	/**
+	 * Tests that {@link AWSP2Mojo#execute()} warns when the last project of a serial reactor build registers while
+	 * other expected projects have not, since the registered sites will never be deployed.
+	 *
+	 * @throws Exception
+	 * 		Unexpected.
+	 */
+	@Test
+	public void testExecuteAggregateIncompleteAtEnd() throws Exception {
+		final MavenProject otherProject = mock(MavenProject.class);
+		setupAggregation(otherProject, project);
+		when(project.getId()).thenReturn("com.example:mock-project:1.0.0-SNAPSHOT");
+
+		mojo.setSkip(true);
+		mojo.execute();
+
+		verify(fanOutDeployerFactory, never()).create(any(DeploymentOptions.class));
+		assertThat(logger.getLoggingEvents(), is(asList(info("Skipping execution"),
+				warn("Only {} of {} expected project(s) registered for aggregated deployment by the end of the "
+						+ "reactor, so the registered sites have not been deployed", 1, 2))));
+	}
+
+	private File createOutputDirectory() throws IOException {
+		final File output = FileSystemTestUtil.createAccessibleDirectory();
+		final File repositoryDirectory = new File(output, REPOSITORY_DIR);
+		assertTrue(repositoryDirectory.mkdir());
+		Files.write(new File(repositoryDirectory, "content.xml").toPath(), "content".getBytes(StandardCharsets.UTF_8));
+		return output;
+	}
+
+	/**
+	 * Starts a local stand-in for the invalidation endpoint, which records the body of each request and responds with
+	 * the given status.
+	 */
+	private static HttpServer startInvalidationServer(final List<String> bodies, final int status) throws IOException {
+		final HttpServer server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+		server.createContext("/invalidations", new HttpHandler() {
+			@Override
+			public void handle(final HttpExchange exchange) throws IOException {
+				bodies.add(new String(ByteStreams.toByteArray(exchange.getRequestBody()), StandardCharsets.UTF_8));
+				exchange.sendResponseHeaders(status, -1);
+				exchange.close();
+			}
+		});
+		server.start();
+		return server;
+	}
+
+	private static String getInvalidationEndpoint(final HttpServer server) {
+		return "http://" + server.getAddress().getHostString() + ":" + server.getAddress().getPort() + "/invalidations";
+	}
+
+	private static S3ObjectSummary createSummary(final String key) {
+		final S3ObjectSummary summary = new S3ObjectSummary();
+		summary.setKey(key);
+		return summary;
+	}
+
+	private void setupAggregation(final MavenProject... reactorProjects) {
+		final Plugin buildPlugin = createBuildPlugin("true");
+		when(session.getProjects()).thenReturn(asList(reactorProjects));
+		when(session.getRequest()).thenReturn(request);
+		for (final MavenProject reactorProject : reactorProjects) {
+			when(reactorProject.getBuildPlugins()).thenReturn(singletonList(buildPlugin));
+		}
+		when(plugin.getPluginLookupKey()).thenReturn("com.avojak.mojo:aws-p2-maven-plugin");
+		mojo.setAggregate(true);
+		mojo.setSession(session);
+		mojo.setPlugin(plugin);
+	}
+
+	/**
+	 * Creates a declaration of the plugin which binds the deploy goal, with the given value of the aggregate parameter
+	 * if not {@code null}.
+	 */
+	private static Plugin createBuildPlugin(final String aggregate) {
+		final PluginExecution execution = new PluginExecution();
+		execution.setId("default");
+		execution.addGoal("deploy");
+		if (aggregate != null) {
+			final Xpp3Dom configuration = new Xpp3Dom("configuration");
+			final Xpp3Dom child = new Xpp3Dom("aggregate");
+			child.setValue(aggregate);
+			configuration.addChild(child);
+			execution.setConfiguration(configuration);
+		}
+		final Plugin buildPlugin = new Plugin();
+		buildPlugin.setGroupId("com.avojak.mojo");
+		buildPlugin.setArtifactId("aws-p2-maven-plugin");
+		buildPlugin.addExecution(execution);
+		return buildPlugin;
+	}
+
+	private AWSP2Mojo createAggregatingMojo(final MavenProject reactorProject) {
+		final AWSP2Mojo reactorMojo = new AWSP2Mojo(repositoryFactory, landingPageGeneratorFactory,
+				fanOutDeployerFactory, requestLimiter, regionCache, bandwidthLimiter, stateCache);
+		reactorMojo.setProject(reactorProject);
+		reactorMojo.setBucket(bucketName);
+		reactorMojo.setDeploySnapshots(true);
+		reactorMojo.setProjectName(projectName);
+		reactorMojo.setSkip(false);
+		reactorMojo.setGenerateLandingPage(false);
+		reactorMojo.setOutputDirectory(new File(outputDirectory));
+		reactorMojo.setUploadConcurrency(8);
+		reactorMojo.setMaxInFlightRequests(50);
+		reactorMojo.setAggregate(true);
+		reactorMojo.setSession(session);
+		reactorMojo.setPlugin(plugin);
+		return reactorMojo;
+	}
+
+	/**
+	 * Tests that {@link AWSP2Mojo#execute()} creates the repository with the configured client settings.
+	 *
+	 * @throws Exception
+	 * 		Unexpected.
+	 */
+	@Test
+	public void testExecuteClientSettings() throws Exception {
+		final File expectedRepositoryDirectory = new File(outputDirectory, REPOSITORY_DIR);
+		final BucketPath expectedDestination = new BucketPath()
+				.append(projectName)
+				.append(SNAPSHOT_DIR)
+				.append(projectVersion);
+		when(repository.uploadDirectory(expectedRepositoryDirectory, expectedDestination)).thenReturn(contentTrie);
+		final ClientSettings settings = new ClientSettings();
+		settings.setMaxConnections(200);
+		settings.setTcpKeepAlive(false);
+		mojo.setClient(settings);
+
+		mojo.execute();
+
+		final ClientSettings expectedSettings = new ClientSettings(settings);
+		expectedSettings.setMaxConsecutiveRetriesBeforeThrottling(200);
+		verify(repositoryFactory).create(bucketName,
+				RepositoryOptions.builder().clientSettings(expectedSettings).build());
+	}
+
+	/**
+	 * Tests that {@link AWSP2Mojo#execute()} creates the repository with the asynchronous backend when configured, with
+	 * a connection pool scaled to the in-flight request limit.
+	 *
+	 * @throws Exception
+	 * 		Unexpected.
+	 */
+	@Test
+	public void testExecuteAsyncTransferBackend() throws Exception {
+		final File expectedRepositoryDirectory = new File(outputDirectory, REPOSITORY_DIR);
+		final BucketPath expectedDestination = new BucketPath()
+				.append(projectName)
+				.append(SNAPSHOT_DIR)
+				.append(projectVersion);
+		when(repository.uploadDirectory(expectedRepositoryDirectory, expectedDestination)).thenReturn(contentTrie);
+		mojo.setTransferBackend(TransferBackend.ASYNC);
+		mojo.setMaxInFlightRequests(200);
+
+		mojo.execute();
+
+		verify(repositoryFactory).create(bucketName, RepositoryOptions.builder()
+				.clientSettings(new ClientSettings().resolve(200))
+				.backend(TransferBackend.ASYNC)
+				.build());
+		verify(repository).deleteDirectory(expectedDestination.asString());
+		verify(repository).uploadDirectory(expectedRepositoryDirectory, expectedDestination);
+	}
+
+	/**
+	 * Tests that {@link AWSP2Mojo#execute()} creates the repository with the configured credentials settings.
+	 *
+	 * @throws Exception
+	 * 		Unexpected.
+	 */
+	@Test
+	public void testExecuteCredentialsSettings() throws Exception {
+		final File expectedRepositoryDirectory = new File(outputDirectory, REPOSITORY_DIR);
+		final BucketPath expectedDestination = new BucketPath()
+				.append(projectName)
+				.append(SNAPSHOT_DIR)
+				.append(projectVersion);
+		when(repository.uploadDirectory(expectedRepositoryDirectory, expectedDestination)).thenReturn(contentTrie);
+		final CredentialsSettings credentials = new CredentialsSettings();
+		credentials.setSource(CredentialsSource.PROFILE);
+		credentials.setProfile("ci");
+		mojo.setCredentials(credentials);
+
+		final ArgumentCaptor<RepositoryOptions> captor = ArgumentCaptor.forClass(RepositoryOptions.class);
+
+		mojo.execute();
+
+		verify(repositoryFactory).create(eq(bucketName), captor.capture());
+		assertEquals(credentials, captor.getValue().getCredentials());
+		assertEquals(TransferBackend.BLOCKING, captor.getValue().getBackend());
+	}
+
+	/**
+	 * Tests that {@link AWSP2Mojo#execute()} creates the repository with the policy of the configured metadata
+	 * settings.
+	 *
+	 * @throws Exception
+	 * 		Unexpected.
+	 */
+	@Test
+	public void testExecuteMetadataSettings() throws Exception {
+		final File expectedRepositoryDirectory = new File(outputDirectory, REPOSITORY_DIR);
+		final BucketPath expectedDestination = new BucketPath()
+				.append(projectName)
+				.append(SNAPSHOT_DIR)
+				.append(projectVersion);
+		when(repository.uploadDirectory(expectedRepositoryDirectory, expectedDestination)).thenReturn(contentTrie);
+		final MetadataSettings metadata = new MetadataSettings();
+		metadata.setRules(singletonList(new MetadataRule("*.jar", "no-cache", null)));
+		mojo.setMetadata(metadata);
+		final ArgumentCaptor<RepositoryOptions> captor = ArgumentCaptor.forClass(RepositoryOptions.class);
+
+		mojo.execute();
+
+		verify(repositoryFactory).create(eq(bucketName), captor.capture());
+		assertEquals(Optional.of("no-cache"),
+				captor.getValue().getMetadataPolicy().getCacheControl("plugins/plugin.jar"));
+	}
+
+	/**
+	 * Tests that {@link AWSP2Mojo#execute()} throws an exception when a metadata rule is not valid.
+	 *
+	 * @throws BucketDoesNotExistException
+	 * 		Unexpected.
+	 */
+	@Test
+	public void testExecuteInvalidMetadataRule() throws BucketDoesNotExistException {
+		final MetadataSettings metadata = new MetadataSettings();
+		metadata.setRules(singletonList(new MetadataRule("*.jar", null, null)));
+		mojo.setMetadata(metadata);
+
+		try {
+			mojo.execute();
+			fail("Expected exception not thrown");
+		} catch (final MojoFailureException e) {
+			assertEquals("Metadata rule must set a header: *.jar", e.getMessage());
+		}
+		verify(repositoryFactory, never()).create(any(String.class), any(RepositoryOptions.class));
+	}
+
+	/**
+	 * Tests that {@link AWSP2Mojo#execute()} invalidates the paths changed on every target together once the site has
+	 * been deployed, collapsing the directories dense with changes into wildcard paths.
+	 *
+	 * @throws Exception
+	 * 		Unexpected.
+	 */
+	@Test
+	public void testExecuteTargetsInvalidation() throws Exception {
+		final File output = createOutputDirectory();
+		final DeployTarget primary = new DeployTarget(bucketName, null, null);
+		final DeployTarget replica = new DeployTarget("replica", null, null);
+		final BucketPath expectedDestination = new BucketPath()
+				.append(projectName)
+				.append(SNAPSHOT_DIR)
+				.append(projectVersion);
+		final String prefix = expectedDestination.asString() + "/";
+		final Trie<String, String> content = new BucketTrieFactory().create(projectName + "/" + SNAPSHOT_DIR);
+		for (final String key : asList("content.xml", "artifacts.xml", "p2.index", "features/f1.jar",
+				"features/f2.jar", "plugins/a.jar", "plugins/b.jar", "plugins/c.jar", "plugins/d.jar")) {
+			content.insert(prefix + key, "http://" + key);
+		}
+		when(repositoryFactory.create(eq(primary), any(RepositoryOptions.class)))
+				.thenReturn(repository);
+		when(repositoryFactory.create(eq(replica), any(RepositoryOptions.class)))
+				.thenReturn(replicaRepository);
+		when(repository.iterate(prefix)).thenReturn(singletonList(createSummary(prefix + "plugins/old.jar")));
+		when(replicaRepository.iterate(prefix)).thenReturn(Collections.<S3ObjectSummary>emptyList());
+		when(fanOutDeployerFactory.create(DeploymentOptions.builder(8).deleteExisting(false).build()))
+				.thenReturn(fanOutDeployer);
+		when(fanOutDeployer.deploy(any(Map.class), any(List.class))).thenReturn(asList(
+				new DeploymentResult(primary, expectedDestination, content, 2, 0, Optional.<Throwable>absent(),
+						Optional.<RemoteState>absent(), false, Optional.<DeployManifest>absent(),
+						new HashSet<String>(asList(prefix + "content.xml", prefix + "plugins/a.jar"))),
+				new DeploymentResult(replica, expectedDestination, content, 1, 0, Optional.<Throwable>absent(),
+						Optional.<RemoteState>absent(), false, Optional.<DeployManifest>absent(),
+						singleton(prefix + "plugins/b.jar"))));
+		when(repository.getHostingUrl(expectedDestination.asString())).thenReturn("http://primary");
+		when(replicaRepository.getHostingUrl(expectedDestination.asString())).thenReturn("http://replica");
+		final List<String> bodies = new CopyOnWriteArrayList<String>();
+		final HttpServer server = startInvalidationServer(bodies, 201);
+		try {
+			final InvalidationSettings invalidation = new InvalidationSettings();
+			invalidation.setEndpoint(getInvalidationEndpoint(server));
+			mojo.setInvalidation(invalidation);
+			mojo.setOutputDirectory(output);
+			mojo.setTargets(singletonList(replica));
+			mojo.setPruneAfterUpload(true);
+
+			mojo.execute();
+		} finally {
+			server.stop(0);
+		}
+
+		assertEquals(1, bodies.size());
+		assertTrue(bodies.get(0).endsWith("\"paths\":[\"/" + prefix + "content.xml\",\"/" + prefix
+				+ "plugins/*\"]}"));
+		assertThat(logger.getLoggingEvents(), is(asList(
+				info("Upload complete: {}", "http://primary"),
+				info("Deleted {} stale object(s) from bucket {}", 1, bucketName),
+				info("Upload complete: {}", "http://replica"),
+				info("Deleted {} stale object(s) from bucket {}", 0, "replica"),
+				info("Submitted {} path(s) for invalidation on the CDN in {} request(s)", 2, 1))));
+	}
+
+	/**
+	 * Tests that {@link AWSP2Mojo#execute()} reports a failure to invalidate the changed paths without failing the
+	 * build.
+	 *
+	 * @throws Exception
+	 * 		Unexpected.
+	 */
+	@Test
+	public void testExecuteInvalidationFailed() throws Exception {
+		final File output = createOutputDirectory();
+		final File expectedRepositoryDirectory = new File(output, REPOSITORY_DIR);
+		final BucketPath expectedDestination = new BucketPath()
+				.append(projectName)
+				.append(SNAPSHOT_DIR)
+				.append(projectVersion);
+		final Trie<String, String> content = new BucketTrieFactory().create(projectName + "/" + SNAPSHOT_DIR);
+		content.insert(expectedDestination.asString() + "/content.xml", "http://content.xml");
+		when(repository.uploadDirectory(expectedRepositoryDirectory, expectedDestination)).thenReturn(content);
+		when(repository.getHostingUrl(expectedDestination.asString())).thenReturn("http://primary");
+		final List<String> bodies = new CopyOnWriteArrayList<String>();
+		final HttpServer server = startInvalidationServer(bodies, 500);
+		try {
+			final InvalidationSettings invalidation = new InvalidationSettings();
+			invalidation.setEndpoint(getInvalidationEndpoint(server));
+			mojo.setInvalidation(invalidation);
+			mojo.setOutputDirectory(output);
+
+			mojo.execute();
+		} finally {
+			server.stop(0);
+		}
+
+		assertEquals(1, bodies.size());
+		assertTrue(bodies.get(0).endsWith("\"paths\":[\"/" + expectedDestination.asString() + "/content.xml\"]}"));
+		final LoggingEvent event = logger.getLoggingEvents().get(logger.getLoggingEvents().size() - 1);
+		assertEquals(Level.WARN, event.getLevel());
+		assertEquals("Unable to invalidate {} path(s) on the CDN, which serves the previous objects until they expire",
+				event.getMessage());
+		assertTrue(event.getThrowable().get() instanceof IOException);
+	}
+
+	/**
+	 * Tests that {@link AWSP2Mojo#execute()} only invalidates the pointer and the deleted objects when staging, as the
+	 * staged site has never been served by the CDN.
+	 *
+	 * @throws Exception
+	 * 		Unexpected.
+	 */
+	@Test
+	public void testExecuteStagedPublishInvalidation() throws Exception {
+		final File output = createOutputDirectory();
+		final BucketPath expectedDestination = new BucketPath()
+				.append(projectName)
+				.append(SNAPSHOT_DIR)
+				.append(projectVersion);
+		final String prefix = expectedDestination.asString() + "/";
+		when(repository.iterate(prefix)).thenReturn(asList(createSummary(prefix + "content.xml"),
+				createSummary(prefix + "p2.index"),
+				createSummary(prefix + "staging/20200101-000000-aaaaaaaa/content.xml"),
+				createSummary(prefix + "staging/20200102-000000-bbbbbbbb/content.xml")));
+		when(repository.uploadDirectory(eq(new File(output, REPOSITORY_DIR)), any(BucketPath.class)))
+				.thenAnswer(new Answer<Trie<String, String>>() {
+					@Override
+					public Trie<String, String> answer(final InvocationOnMock invocation) {
+						final String stage = ((BucketPath) invocation.getArgument(1)).asString() + "/";
+						final Trie<String, String> content = new BucketTrieFactory().create(projectName + "/"
+								+ SNAPSHOT_DIR);
+						for (final String key : asList("content.xml", "artifacts.xml", "features/f1.jar",
+								"plugins/a.jar", "plugins/b.jar", "plugins/c.jar")) {
+							content.insert(stage + key, "http://" + key);
+						}
+						return content;
+					}
+				});
+		when(repository.getHostingUrl(expectedDestination.asString())).thenReturn("http://primary");
+		final List<String> bodies = new CopyOnWriteArrayList<String>();
+		final HttpServer server = startInvalidationServer(bodies, 201);
+		try {
+			final InvalidationSettings invalidation = new InvalidationSettings();
+			invalidation.setEndpoint(getInvalidationEndpoint(server));
+			mojo.setInvalidation(invalidation);
+			mojo.setOutputDirectory(output);
+			mojo.setStagedPublish(true);
+			mojo.setStageGracePeriod(3600);
+
+			mojo.execute();
+		} finally {
+			server.stop(0);
+		}
+
+		assertEquals(1, bodies.size());
+		assertTrue(bodies.get(0).endsWith("\"paths\":[\"/" + prefix + "compositeArtifacts.xml\",\"/" + prefix
+				+ "compositeContent.xml\",\"/" + prefix + "content.xml\",\"/" + prefix + "p2.index\",\"/" + prefix
+				+ "staging/20200101-000000-aaaaaaaa/content.xml\"]}"));
+	}
+
+	/**
+	 * Tests that {@link AWSP2Mojo#execute()} throws an exception when the invalidation endpoint is not a URL, before
+	 * anything is deployed.
+	 *
+	 * @throws BucketDoesNotExistException
+	 * 		Unexpected.
+	 */
+	@Test
+	public void testExecuteInvalidInvalidationEndpoint() throws BucketDoesNotExistException {
+		final InvalidationSettings invalidation = new InvalidationSettings();
+		invalidation.setEndpoint("cdn.example.com");
+		mojo.setInvalidation(invalidation);
+
+		try {
+			mojo.execute();
+			fail("Expected exception not thrown");
+		} catch (final MojoFailureException e) {
+			assertEquals("Invalid invalidation endpoint: cdn.example.com", e.getMessage());
+		}
+		verify(repositoryFactory, never()).create(any(String.class), any(RepositoryOptions.class));
+	}
+
+	/**
+	 * Tests that {@link AWSP2Mojo#execute()} throws an exception when the wildcard threshold is not valid.
+	 *
+	 * @throws BucketDoesNotExistException
+	 * 		Unexpected.
+	 */
+	@Test
+	public void testExecuteInvalidWildcardThreshold() throws BucketDoesNotExistException {
+		final InvalidationSettings invalidation = new InvalidationSettings();
+		invalidation.setEndpoint("http://localhost/invalidations");
+		invalidation.setWildcardThreshold(2.0);
+		mojo.setInvalidation(invalidation);
+
+		try {
+			mojo.execute();
+			fail("Expected exception not thrown");
+		} catch (final MojoFailureException e) {
+			assertEquals("wildcardThreshold must be in (0, 1]", e.getMessage());
+		}
+		verify(repositoryFactory, never()).create(any(String.class), any(RepositoryOptions.class));
+	}
+
+	/**
+	 * Tests that {@link AWSP2Mojo#execute()} throws an exception when static credentials are missing a key.
+	 *
+	 * @throws BucketDoesNotExistException
+	 * 		Unexpected.
+	 */
+	@Test
+	public void testExecuteIncompleteStaticCredentials() throws BucketDoesNotExistException {
+		final CredentialsSettings credentials = new CredentialsSettings();
+		credentials.setSource(CredentialsSource.STATIC);
+		credentials.setAccessKey("access");
+		mojo.setCredentials(credentials);
+
+		try {
+			mojo.execute();
+			fail("Expected exception not thrown");
+		} catch (final MojoFailureException e) {
+			assertEquals("Static credentials require an access key and a secret key", e.getMessage());
+		}
+		verify(repositoryFactory, never()).create(any(String.class), any(RepositoryOptions.class));
+	}
+
 }
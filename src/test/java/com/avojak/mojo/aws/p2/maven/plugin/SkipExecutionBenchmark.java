@@ -0,0 +1,59 @@
+package com.avojak.mojo.aws.p2.maven.plugin;
+
+import com.avojak.mojo.aws.p2.maven.plugin.s3.AmazonS3ClientCache;
+import com.avojak.mojo.aws.p2.maven.plugin.util.IsolatedClassLoader;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmark of the time taken by a skipped execution of {@link AWSP2Mojo}, from the instantiation of the mojo to the
+ * return of {@link AWSP2Mojo#execute()}, in a fresh class loader as each module of a reactor pays it. For comparison,
+ * it also measures loading the AWS SDK and the credential provider chain, which skipped executions no longer do.
+ * <p>
+ * The benchmark is not run as part of the build, and is run with:
+ * <pre>
+ * mvn test -Dtest=SkipExecutionBenchmark
+ * </pre>
+ */
+public class SkipExecutionBenchmark {
+
+	private static final int RUNS = 5;
+
+	/**
+	 * Measures a skipped execution, and the loading of the SDK which it avoids.
+	 *
+	 * @throws Exception Unexpected.
+	 */
+	@Test
+	public void benchmarkSkipExecution() throws Exception {
+		long skipNanos = 0;
+		long sdkNanos = 0;
+		for (int i = 0; i < RUNS; i++) {
+			skipNanos += timeSkipExecution();
+			sdkNanos += timeSdkInitialization();
+		}
+		System.out.printf("Skipped execution:     %d ms%n", TimeUnit.NANOSECONDS.toMillis(skipNanos / RUNS));
+		System.out.printf("SDK initialization:    %d ms%n", TimeUnit.NANOSECONDS.toMillis(sdkNanos / RUNS));
+	}
+
+	private long timeSkipExecution() throws ReflectiveOperationException, IOException {
+		try (final IsolatedClassLoader classLoader = new IsolatedClassLoader()) {
+			final long start = System.nanoTime();
+			final Object mojo = classLoader.newInstance(AWSP2Mojo.class.getName());
+			IsolatedClassLoader.invoke(mojo, "setSkip", new Class<?>[]{boolean.class}, true);
+			IsolatedClassLoader.invoke(mojo, "execute", new Class<?>[0]);
+			return System.nanoTime() - start;
+		}
+	}
+
+	private long timeSdkInitialization() throws ReflectiveOperationException, IOException {
+		try (final IsolatedClassLoader classLoader = new IsolatedClassLoader()) {
+			final long start = System.nanoTime();
+			classLoader.loadClass(AmazonS3ClientCache.class.getName()).getMethod("getGlobal").invoke(null);
+			return System.nanoTime() - start;
+		}
+	}
+
+}
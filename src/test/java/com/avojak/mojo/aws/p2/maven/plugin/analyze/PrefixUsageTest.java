@@ -0,0 +1,75 @@
+package com.avojak.mojo.aws.p2.maven.plugin.analyze;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+
+/**
+ * Test class for {@link PrefixUsage}.
+ */
+public class PrefixUsageTest {
+
+	/**
+	 * Tests that the constructor throws an exception when the given prefix is {@code null}.
+	 */
+	@Test(expected = NullPointerException.class)
+	public void testConstructorNullPrefix() {
+		new PrefixUsage(null, UsageLevel.PROJECT, 0, 0);
+	}
+
+	/**
+	 * Tests that the constructor throws an exception when the given level is {@code null}.
+	 */
+	@Test(expected = NullPointerException.class)
+	public void testConstructorNullLevel() {
+		new PrefixUsage("project/", null, 0, 0);
+	}
+
+	/**
+	 * Tests the getters.
+	 */
+	@Test
+	public void testGetters() {
+		final PrefixUsage usage = new PrefixUsage("project/", UsageLevel.PROJECT, 3, 1024);
+
+		assertEquals("project/", usage.getPrefix());
+		assertEquals(UsageLevel.PROJECT, usage.getLevel());
+		assertEquals(3, usage.getObjects());
+		assertEquals(1024, usage.getBytes());
+	}
+
+	/**
+	 * Tests {@link PrefixUsage#equals(Object)}.
+	 */
+	@Test
+	public void testEquals() {
+		final PrefixUsage usage1 = new PrefixUsage("project/", UsageLevel.PROJECT, 3, 1024);
+		final PrefixUsage usage2 = new PrefixUsage("project/", UsageLevel.PROJECT, 3, 1024);
+		final PrefixUsage usage3 = new PrefixUsage("project/", UsageLevel.PROJECT, 3, 2048);
+
+		assertEquals(usage1, usage1);
+		assertEquals(usage1, usage2);
+		assertNotEquals(usage1, null);
+		assertNotEquals(usage1, "String");
+		assertNotEquals(usage1, usage3);
+	}
+
+	/**
+	 * Tests {@link PrefixUsage#hashCode()}.
+	 */
+	@Test
+	public void testHashCode() {
+		assertEquals(new PrefixUsage("project/", UsageLevel.PROJECT, 3, 1024).hashCode(),
+				new PrefixUsage("project/", UsageLevel.PROJECT, 3, 1024).hashCode());
+	}
+
+	/**
+	 * Tests {@link PrefixUsage#toString()}.
+	 */
+	@Test
+	public void testToString() {
+		assertEquals("PrefixUsage{project/}", new PrefixUsage("project/", UsageLevel.PROJECT, 3, 1024).toString());
+	}
+
+}
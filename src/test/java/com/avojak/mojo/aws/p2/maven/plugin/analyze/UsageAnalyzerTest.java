@@ -0,0 +1,158 @@
+package com.avojak.mojo.aws.p2.maven.plugin.analyze;
+
+import com.amazonaws.services.s3.model.S3ObjectSummary;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Test class for {@link UsageAnalyzer}.
+ */
+public class UsageAnalyzerTest {
+
+	/**
+	 * Tests that the constructor throws an exception when the given top count is not positive.
+	 */
+	@Test(expected = IllegalArgumentException.class)
+	public void testConstructorInvalidTopCount() {
+		new UsageAnalyzer(0);
+	}
+
+	/**
+	 * Tests that {@link UsageAnalyzer#analyze(Iterable)} throws an exception when the given summaries are {@code
+	 * null}.
+	 */
+	@Test(expected = NullPointerException.class)
+	public void testAnalyzeNullSummaries() {
+		new UsageAnalyzer(1).analyze((Iterable<S3ObjectSummary>) null);
+	}
+
+	/**
+	 * Tests that {@link UsageAnalyzer#analyze(Iterator)} throws an exception when the given summaries are {@code
+	 * null}.
+	 */
+	@Test(expected = NullPointerException.class)
+	public void testAnalyzeNullIterator() {
+		new UsageAnalyzer(1).analyze((Iterator<S3ObjectSummary>) null);
+	}
+
+	/**
+	 * Tests that {@link UsageAnalyzer#analyze(Iterator)} consumes the given listing.
+	 */
+	@Test
+	public void testAnalyzeIterator() {
+		final Iterator<S3ObjectSummary> summaries = Arrays.asList(createSummary("a/releases/1.0.0/content.xml", 10),
+				createSummary("a/releases/1.1.0/content.xml", 20)).iterator();
+
+		final UsageReport report = new UsageAnalyzer(10).analyze(summaries);
+
+		assertFalse(summaries.hasNext());
+		assertEquals(2, report.getTotalObjects());
+		assertEquals(30, report.getTotalBytes());
+		assertEquals(2, report.getPrefixCount(UsageLevel.VERSION));
+	}
+
+	/**
+	 * Tests that {@link UsageAnalyzer#analyze(Iterable)} reports nothing for an empty listing.
+	 */
+	@Test
+	public void testAnalyzeEmpty() {
+		final UsageReport report = new UsageAnalyzer(1).analyze(Collections.<S3ObjectSummary>emptyList());
+
+		assertEquals(0, report.getTotalObjects());
+		assertEquals(0, report.getTotalBytes());
+		for (final UsageLevel level : UsageLevel.values()) {
+			assertEquals(0, report.getPrefixCount(level));
+			assertTrue(report.getHeaviest(level).isEmpty());
+		}
+	}
+
+	/**
+	 * Tests that {@link UsageAnalyzer#analyze(Iterable)} aggregates every object into each prefix which contains it,
+	 * including objects which are not within a version directory.
+	 */
+	@Test
+	public void testAnalyze() {
+		final UsageReport report = new UsageAnalyzer(10).analyze(Arrays.asList(
+				createSummary("index.html", 1),
+				createSummary("other/releases/1.0.0/content.xml", 100),
+				createSummary("project/index.html", 2),
+				createSummary("project/releases/1.0.0/content.xml", 10),
+				createSummary("project/releases/1.0.0/plugins/plugin.jar", 20),
+				createSummary("project/releases/2.0.0/content.xml", 40),
+				createSummary("project/releases/index.html", 4),
+				createSummary("project/snapshots/1.1.0-SNAPSHOT/content.xml", 8)));
+
+		assertEquals(8, report.getTotalObjects());
+		assertEquals(185, report.getTotalBytes());
+		assertEquals(2, report.getPrefixCount(UsageLevel.PROJECT));
+		assertEquals(3, report.getPrefixCount(UsageLevel.REPOSITORY));
+		assertEquals(4, report.getPrefixCount(UsageLevel.VERSION));
+		assertEquals(Arrays.asList(
+				new PrefixUsage("other/", UsageLevel.PROJECT, 1, 100),
+				new PrefixUsage("project/", UsageLevel.PROJECT, 6, 84)),
+				report.getHeaviest(UsageLevel.PROJECT));
+		assertEquals(Arrays.asList(
+				new PrefixUsage("other/releases/", UsageLevel.REPOSITORY, 1, 100),
+				new PrefixUsage("project/releases/", UsageLevel.REPOSITORY, 4, 74),
+				new PrefixUsage("project/snapshots/", UsageLevel.REPOSITORY, 1, 8)),
+				report.getHeaviest(UsageLevel.REPOSITORY));
+		assertEquals(Arrays.asList(
+				new PrefixUsage("other/releases/1.0.0/", UsageLevel.VERSION, 1, 100),
+				new PrefixUsage("project/releases/2.0.0/", UsageLevel.VERSION, 1, 40),
+				new PrefixUsage("project/releases/1.0.0/", UsageLevel.VERSION, 2, 30),
+				new PrefixUsage("project/snapshots/1.1.0-SNAPSHOT/", UsageLevel.VERSION, 1, 8)),
+				report.getHeaviest(UsageLevel.VERSION));
+	}
+
+	/**
+	 * Tests that {@link UsageAnalyzer#analyze(Iterable)} keeps only the heaviest prefixes at each level, while still
+	 * counting every prefix.
+	 */
+	@Test
+	public void testAnalyzeTopCount() {
+		final List<S3ObjectSummary> summaries = new ArrayList<S3ObjectSummary>();
+		for (int i = 0; i < 100; i++) {
+			// The weights are not in key order, so the heaviest are found throughout the listing
+			summaries.add(createSummary(String.format("project/releases/%03d/content.xml", i), (i * 37) % 100));
+		}
+
+		final UsageReport report = new UsageAnalyzer(3).analyze(summaries);
+
+		assertEquals(100, report.getPrefixCount(UsageLevel.VERSION));
+		assertEquals(Arrays.asList(
+				new PrefixUsage("project/releases/027/", UsageLevel.VERSION, 1, 99),
+				new PrefixUsage("project/releases/054/", UsageLevel.VERSION, 1, 98),
+				new PrefixUsage("project/releases/081/", UsageLevel.VERSION, 1, 97)),
+				report.getHeaviest(UsageLevel.VERSION));
+		assertEquals(1, report.getHeaviest(UsageLevel.PROJECT).size());
+	}
+
+	/**
+	 * Tests that {@link UsageAnalyzer#analyze(Iterable)} orders prefixes of equal size by name.
+	 */
+	@Test
+	public void testAnalyzeTies() {
+		final UsageReport report = new UsageAnalyzer(2).analyze(Arrays.asList(
+				createSummary("a/x", 5), createSummary("b/x", 5), createSummary("c/x", 5)));
+
+		assertEquals(Arrays.asList(new PrefixUsage("a/", UsageLevel.PROJECT, 1, 5),
+				new PrefixUsage("b/", UsageLevel.PROJECT, 1, 5)), report.getHeaviest(UsageLevel.PROJECT));
+	}
+
+	private static S3ObjectSummary createSummary(final String key, final long size) {
+		final S3ObjectSummary summary = new S3ObjectSummary();
+		summary.setKey(key);
+		summary.setSize(size);
+		return summary;
+	}
+
+}
@@ -0,0 +1,93 @@
+package com.avojak.mojo.aws.p2.maven.plugin.analyze;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Test class for {@link UsageReport}.
+ */
+public class UsageReportTest {
+
+	private final PrefixUsage usage = new PrefixUsage("project/", UsageLevel.PROJECT, 3, 1024);
+	private final Map<UsageLevel, Long> prefixCounts = new EnumMap<UsageLevel, Long>(UsageLevel.class);
+	private final Map<UsageLevel, List<PrefixUsage>> heaviest =
+			new EnumMap<UsageLevel, List<PrefixUsage>>(UsageLevel.class);
+
+	/**
+	 * Setup the maps.
+	 */
+	@Before
+	public void setup() {
+		for (final UsageLevel level : UsageLevel.values()) {
+			prefixCounts.put(level, 0L);
+			heaviest.put(level, Collections.<PrefixUsage>emptyList());
+		}
+		prefixCounts.put(UsageLevel.PROJECT, 5L);
+		heaviest.put(UsageLevel.PROJECT, Collections.singletonList(usage));
+	}
+
+	/**
+	 * Tests that the constructor throws an exception when the given prefix counts are {@code null}.
+	 */
+	@Test(expected = NullPointerException.class)
+	public void testConstructorNullPrefixCounts() {
+		new UsageReport(0, 0, 0, null, heaviest);
+	}
+
+	/**
+	 * Tests that the constructor throws an exception when the given heaviest prefixes are {@code null}.
+	 */
+	@Test(expected = NullPointerException.class)
+	public void testConstructorNullHeaviest() {
+		new UsageReport(0, 0, 0, prefixCounts, null);
+	}
+
+	/**
+	 * Tests that the constructor throws an exception when a level is missing from the prefix counts.
+	 */
+	@Test(expected = IllegalArgumentException.class)
+	public void testConstructorMissingPrefixCount() {
+		prefixCounts.remove(UsageLevel.VERSION);
+		new UsageReport(0, 0, 0, prefixCounts, heaviest);
+	}
+
+	/**
+	 * Tests that the constructor throws an exception when a level is missing from the heaviest prefixes.
+	 */
+	@Test(expected = IllegalArgumentException.class)
+	public void testConstructorMissingHeaviest() {
+		heaviest.remove(UsageLevel.VERSION);
+		new UsageReport(0, 0, 0, prefixCounts, heaviest);
+	}
+
+	/**
+	 * Tests the getters.
+	 */
+	@Test
+	public void testGetters() {
+		final UsageReport report = new UsageReport(3, 1024, 10, prefixCounts, heaviest);
+
+		assertEquals(3, report.getTotalObjects());
+		assertEquals(1024, report.getTotalBytes());
+		assertEquals(10, report.getElapsedMillis());
+		assertEquals(5, report.getPrefixCount(UsageLevel.PROJECT));
+		assertEquals(0, report.getPrefixCount(UsageLevel.VERSION));
+		assertEquals(Collections.singletonList(usage), report.getHeaviest(UsageLevel.PROJECT));
+	}
+
+	/**
+	 * Tests that the heaviest prefixes cannot be modified.
+	 */
+	@Test(expected = UnsupportedOperationException.class)
+	public void testGetHeaviestUnmodifiable() {
+		new UsageReport(3, 1024, 10, prefixCounts, heaviest).getHeaviest(UsageLevel.PROJECT).clear();
+	}
+
+}
@@ -0,0 +1,159 @@
+package com.avojak.mojo.aws.p2.maven.plugin.analyze;
+
+import com.avojak.mojo.aws.p2.maven.plugin.util.FileSystemTestUtil;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Test class for {@link UsageReportWriter}.
+ */
+public class UsageReportWriterTest {
+
+	private final UsageReportWriter writer = new UsageReportWriter();
+
+	private UsageReport report;
+	private File file;
+
+	/**
+	 * Setup the report.
+	 *
+	 * @throws IOException Unexpected.
+	 */
+	@Before
+	public void setup() throws IOException {
+		final Map<UsageLevel, Long> prefixCounts = new EnumMap<UsageLevel, Long>(UsageLevel.class);
+		final Map<UsageLevel, List<PrefixUsage>> heaviest =
+				new EnumMap<UsageLevel, List<PrefixUsage>>(UsageLevel.class);
+		prefixCounts.put(UsageLevel.PROJECT, 1L);
+		prefixCounts.put(UsageLevel.REPOSITORY, 2L);
+		prefixCounts.put(UsageLevel.VERSION, 0L);
+		heaviest.put(UsageLevel.PROJECT, Collections.singletonList(
+				new PrefixUsage("project/", UsageLevel.PROJECT, 3, 4096)));
+		heaviest.put(UsageLevel.REPOSITORY, Arrays.asList(
+				new PrefixUsage("project/releases/", UsageLevel.REPOSITORY, 2, 3072),
+				new PrefixUsage("project/snapshots/", UsageLevel.REPOSITORY, 1, 1024)));
+		heaviest.put(UsageLevel.VERSION, Collections.<PrefixUsage>emptyList());
+		report = new UsageReport(3, 4096, 10, prefixCounts, heaviest);
+		file = new File(FileSystemTestUtil.createAccessibleDirectory(), "usage");
+	}
+
+	/**
+	 * Tests that {@link UsageReportWriter#writeText(UsageReport, String, File)} throws an exception when the given
+	 * report is {@code null}.
+	 *
+	 * @throws IOException Unexpected.
+	 */
+	@Test(expected = NullPointerException.class)
+	public void testWriteTextNullReport() throws IOException {
+		writer.writeText(null, "mock", file);
+	}
+
+	/**
+	 * Tests that {@link UsageReportWriter#writeText(UsageReport, String, File)} throws an exception when the given
+	 * source is empty.
+	 *
+	 * @throws IOException Unexpected.
+	 */
+	@Test(expected = IllegalArgumentException.class)
+	public void testWriteTextEmptySource() throws IOException {
+		writer.writeText(report, " ", file);
+	}
+
+	/**
+	 * Tests that {@link UsageReportWriter#writeText(UsageReport, String, File)} throws an exception when the given
+	 * file is {@code null}.
+	 *
+	 * @throws IOException Unexpected.
+	 */
+	@Test(expected = NullPointerException.class)
+	public void testWriteTextNullFile() throws IOException {
+		writer.writeText(report, "mock", null);
+	}
+
+	/**
+	 * Tests {@link UsageReportWriter#writeText(UsageReport, String, File)}.
+	 *
+	 * @throws IOException Unexpected.
+	 */
+	@Test
+	public void testWriteText() throws IOException {
+		writer.writeText(report, "mock", file);
+
+		assertEquals(Arrays.asList(
+				"Usage of mock",
+				"Objects: 3",
+				"Bytes:   4096 (4.0 KiB)",
+				"",
+				"Heaviest project prefixes (1 of 1)",
+				"               Bytes       Size   Share      Objects  Prefix",
+				"                4096    4.0 KiB  100.0%            3  project/",
+				"",
+				"Heaviest repository prefixes (2 of 2)",
+				"               Bytes       Size   Share      Objects  Prefix",
+				"                3072    3.0 KiB   75.0%            2  project/releases/",
+				"                1024    1.0 KiB   25.0%            1  project/snapshots/",
+				"",
+				"Heaviest version prefixes (0 of 0)"), Files.readAllLines(file.toPath(), StandardCharsets.UTF_8));
+	}
+
+	/**
+	 * Tests that {@link UsageReportWriter#writeJson(UsageReport, String, File)} throws an exception when the given
+	 * report is {@code null}.
+	 *
+	 * @throws IOException Unexpected.
+	 */
+	@Test(expected = NullPointerException.class)
+	public void testWriteJsonNullReport() throws IOException {
+		writer.writeJson(null, "mock", file);
+	}
+
+	/**
+	 * Tests {@link UsageReportWriter#writeJson(UsageReport, String, File)}.
+	 *
+	 * @throws IOException Unexpected.
+	 */
+	@Test
+	public void testWriteJson() throws IOException {
+		writer.writeJson(report, "mock", file);
+
+		final JsonNode json = new ObjectMapper().readTree(file);
+		assertEquals("mock", json.get("source").asText());
+		assertEquals(3, json.get("totalObjects").asLong());
+		assertEquals(4096, json.get("totalBytes").asLong());
+		assertEquals(10, json.get("elapsedMillis").asLong());
+		final JsonNode repository = json.get("levels").get("repository");
+		assertEquals(2, repository.get("prefixCount").asLong());
+		assertEquals(2, repository.get("heaviest").size());
+		assertEquals("project/releases/", repository.get("heaviest").get(0).get("prefix").asText());
+		assertEquals(2, repository.get("heaviest").get(0).get("objects").asLong());
+		assertEquals(3072, repository.get("heaviest").get(0).get("bytes").asLong());
+		assertEquals(0, json.get("levels").get("version").get("heaviest").size());
+	}
+
+	/**
+	 * Tests {@link UsageReportWriter#formatBytes(long)}.
+	 */
+	@Test
+	public void testFormatBytes() {
+		assertEquals("0 B", UsageReportWriter.formatBytes(0));
+		assertEquals("1023 B", UsageReportWriter.formatBytes(1023));
+		assertEquals("1.5 KiB", UsageReportWriter.formatBytes(1536));
+		assertEquals("2.0 GiB", UsageReportWriter.formatBytes(2L * 1024 * 1024 * 1024));
+		assertEquals("8.0 EiB", UsageReportWriter.formatBytes(Long.MAX_VALUE));
+	}
+
+}
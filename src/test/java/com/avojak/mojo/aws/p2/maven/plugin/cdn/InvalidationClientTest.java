@@ -0,0 +1,228 @@
+package com.avojak.mojo.aws.p2.maven.plugin.cdn;
+
+import com.google.common.io.ByteStreams;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static java.util.Arrays.asList;
+import static java.util.Collections.singletonList;
+import static java.util.Collections.singletonMap;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+
+/**
+ * Test class for {@link InvalidationClient}.
+ */
+public class InvalidationClientTest {
+
+	private final List<String> bodies = new CopyOnWriteArrayList<String>();
+	private final List<String> authorizations = new CopyOnWriteArrayList<String>();
+
+	private HttpServer server;
+	private URL endpoint;
+	private volatile int status = 201;
+
+	/**
+	 * Starts a local stand-in for the invalidation endpoint.
+	 *
+	 * @throws IOException Unexpected.
+	 */
+	@Before
+	public void setup() throws IOException {
+		server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+		server.createContext("/invalidations", new HttpHandler() {
+			@Override
+			public void handle(final HttpExchange exchange) throws IOException {
+				bodies.add(new String(ByteStreams.toByteArray(exchange.getRequestBody()), StandardCharsets.UTF_8));
+				authorizations.add(exchange.getRequestHeaders().getFirst("Authorization"));
+				exchange.sendResponseHeaders(status, -1);
+				exchange.close();
+			}
+		});
+		server.start();
+		endpoint = new URL("http://" + server.getAddress().getHostString() + ":" + server.getAddress().getPort()
+				+ "/invalidations");
+	}
+
+	/**
+	 * Stops the stand-in.
+	 */
+	@After
+	public void teardown() {
+		server.stop(0);
+	}
+
+	/**
+	 * Tests that the constructor throws an exception when the given endpoint is {@code null}.
+	 */
+	@Test(expected = NullPointerException.class)
+	public void testConstructorNullEndpoint() {
+		new InvalidationClient(null, Collections.<String, String>emptyMap(), 10, 10, 1000);
+	}
+
+	/**
+	 * Tests that the constructor throws an exception when the given endpoint does not use HTTP.
+	 *
+	 * @throws IOException Unexpected.
+	 */
+	@Test(expected = IllegalArgumentException.class)
+	public void testConstructorNonHttpEndpoint() throws IOException {
+		new InvalidationClient(new URL("file:/tmp/invalidations"), Collections.<String, String>emptyMap(), 10, 10,
+				1000);
+	}
+
+	/**
+	 * Tests that the constructor throws an exception when the given headers are {@code null}.
+	 */
+	@Test(expected = NullPointerException.class)
+	public void testConstructorNullHeaders() {
+		new InvalidationClient(endpoint, null, 10, 10, 1000);
+	}
+
+	/**
+	 * Tests that the constructor throws an exception when the given maximum number of paths is not positive.
+	 */
+	@Test(expected = IllegalArgumentException.class)
+	public void testConstructorInvalidMaxPaths() {
+		new InvalidationClient(endpoint, Collections.<String, String>emptyMap(), 0, 10, 1000);
+	}
+
+	/**
+	 * Tests that the constructor throws an exception when the given maximum number of wildcard paths is not positive.
+	 */
+	@Test(expected = IllegalArgumentException.class)
+	public void testConstructorInvalidMaxWildcards() {
+		new InvalidationClient(endpoint, Collections.<String, String>emptyMap(), 10, 0, 1000);
+	}
+
+	/**
+	 * Tests that the constructor throws an exception when the given timeout is negative.
+	 */
+	@Test(expected = IllegalArgumentException.class)
+	public void testConstructorNegativeTimeout() {
+		new InvalidationClient(endpoint, Collections.<String, String>emptyMap(), 10, 10, -1);
+	}
+
+	/**
+	 * Tests that {@link InvalidationClient#submit(List, String)} throws an exception when the given paths are {@code
+	 * null}.
+	 *
+	 * @throws IOException Unexpected.
+	 */
+	@Test(expected = NullPointerException.class)
+	public void testSubmitNullPaths() throws IOException {
+		new InvalidationClient(endpoint, Collections.<String, String>emptyMap(), 10, 10, 1000).submit(null, "ref");
+	}
+
+	/**
+	 * Tests that {@link InvalidationClient#submit(List, String)} throws an exception when the given caller reference
+	 * is empty.
+	 *
+	 * @throws IOException Unexpected.
+	 */
+	@Test(expected = IllegalArgumentException.class)
+	public void testSubmitEmptyCallerReference() throws IOException {
+		new InvalidationClient(endpoint, Collections.<String, String>emptyMap(), 10, 10, 1000)
+				.submit(singletonList("/a"), " ");
+	}
+
+	/**
+	 * Tests that {@link InvalidationClient#batch(List)} closes a batch when it holds the maximum number of paths.
+	 */
+	@Test
+	public void testBatchMaxPaths() {
+		final InvalidationClient client = new InvalidationClient(endpoint, Collections.<String, String>emptyMap(), 2,
+				10, 1000);
+
+		assertEquals(asList(asList("/a", "/b"), asList("/c", "/d"), singletonList("/e")),
+				client.batch(asList("/a", "/b", "/c", "/d", "/e")));
+	}
+
+	/**
+	 * Tests that {@link InvalidationClient#batch(List)} closes a batch when it holds the maximum number of wildcard
+	 * paths, while still adding exact paths to it.
+	 */
+	@Test
+	public void testBatchMaxWildcards() {
+		final InvalidationClient client = new InvalidationClient(endpoint, Collections.<String, String>emptyMap(), 10,
+				1, 1000);
+
+		assertEquals(asList(asList("/a/*", "/b"), asList("/c/*")), client.batch(asList("/a/*", "/b", "/c/*")));
+	}
+
+	/**
+	 * Tests that {@link InvalidationClient#toJson(String, List)} escapes the strings of the request body.
+	 */
+	@Test
+	public void testToJson() {
+		assertEquals("{\"callerReference\":\"ref-1\",\"paths\":[\"/a/*\",\"/b\\\"c\\\\d\\u0009\"]}",
+				InvalidationClient.toJson("ref-1", asList("/a/*", "/b\"c\\d\t")));
+	}
+
+	/**
+	 * Tests that {@link InvalidationClient#submit(List, String)} posts each batch to the endpoint with its own caller
+	 * reference and the additional headers.
+	 *
+	 * @throws IOException Unexpected.
+	 */
+	@Test
+	public void testSubmit() throws IOException {
+		final Map<String, String> headers = singletonMap("Authorization", "Bearer token");
+		final InvalidationClient client = new InvalidationClient(endpoint, headers, 2, 10, 5000);
+
+		final int requests = client.submit(asList("/a", "/b", "/c/*"), "ref");
+
+		assertEquals(2, requests);
+		assertEquals(asList("{\"callerReference\":\"ref-1\",\"paths\":[\"/a\",\"/b\"]}",
+				"{\"callerReference\":\"ref-2\",\"paths\":[\"/c/*\"]}"), bodies);
+		assertEquals(asList("Bearer token", "Bearer token"), authorizations);
+	}
+
+	/**
+	 * Tests that {@link InvalidationClient#submit(List, String)} submits nothing when there are no paths.
+	 *
+	 * @throws IOException Unexpected.
+	 */
+	@Test
+	public void testSubmitNoPaths() throws IOException {
+		final InvalidationClient client = new InvalidationClient(endpoint, Collections.<String, String>emptyMap(), 2,
+				10, 5000);
+
+		assertEquals(0, client.submit(Collections.<String>emptyList(), "ref"));
+		assertEquals(Collections.<String>emptyList(), bodies);
+	}
+
+	/**
+	 * Tests that {@link InvalidationClient#submit(List, String)} throws an exception when the endpoint rejects a
+	 * request, without submitting the batches which follow it.
+	 */
+	@Test
+	public void testSubmitRejected() {
+		status = 403;
+		final InvalidationClient client = new InvalidationClient(endpoint, Collections.<String, String>emptyMap(), 1,
+				10, 5000);
+
+		try {
+			client.submit(asList("/a", "/b"), "ref");
+			fail("Expected exception not thrown");
+		} catch (final IOException e) {
+			assertEquals("Invalidation request to " + endpoint + " failed with status 403", e.getMessage());
+		}
+		assertEquals(1, bodies.size());
+	}
+
+}
@@ -0,0 +1,214 @@
+package com.avojak.mojo.aws.p2.maven.plugin.cdn;
+
+import com.avojak.mojo.aws.p2.maven.plugin.s3.model.BucketPath;
+import com.avojak.mojo.aws.p2.maven.plugin.s3.model.trie.Trie;
+import com.avojak.mojo.aws.p2.maven.plugin.s3.model.trie.impl.BucketTrieFactory;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import static java.util.Arrays.asList;
+import static java.util.Collections.singletonList;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Test class for {@link InvalidationPlanner}.
+ */
+public class InvalidationPlannerTest {
+
+	private static final BucketPath DESTINATION = new BucketPath().append("project").append("snapshots")
+			.append("1.0.0-SNAPSHOT");
+	private static final String PREFIX = DESTINATION.asString() + "/";
+
+	private Trie<String, String> content;
+
+	/**
+	 * Setup.
+	 */
+	@Before
+	public void setup() {
+		// The deployers key the content by the parent of the destination
+		content = new BucketTrieFactory().create("project/snapshots");
+		for (final String key : asList("content.jar", "artifacts.jar", "plugins/a.jar", "plugins/b.jar",
+				"plugins/c.jar", "plugins/d.jar", "features/f.jar")) {
+			content.insert(PREFIX + key, "http://" + key);
+		}
+	}
+
+	/**
+	 * Tests that the constructor throws an exception when the given threshold is not positive.
+	 */
+	@Test(expected = IllegalArgumentException.class)
+	public void testConstructorZeroThreshold() {
+		new InvalidationPlanner(0, 10);
+	}
+
+	/**
+	 * Tests that the constructor throws an exception when the given threshold is greater than 1.
+	 */
+	@Test(expected = IllegalArgumentException.class)
+	public void testConstructorThresholdAboveOne() {
+		new InvalidationPlanner(1.5, 10);
+	}
+
+	/**
+	 * Tests that the constructor throws an exception when the given maximum number of paths is not positive.
+	 */
+	@Test(expected = IllegalArgumentException.class)
+	public void testConstructorInvalidMaxPaths() {
+		new InvalidationPlanner(0.5, 0);
+	}
+
+	/**
+	 * Tests that {@link InvalidationPlanner#plan(Trie, BucketPath, Set)} throws an exception when the given content is
+	 * {@code null}.
+	 */
+	@Test(expected = NullPointerException.class)
+	public void testPlanNullContent() {
+		new InvalidationPlanner(0.5, 10).plan(null, DESTINATION, Collections.<String>emptySet());
+	}
+
+	/**
+	 * Tests that {@link InvalidationPlanner#plan(Trie, BucketPath, Set)} throws an exception when the given
+	 * destination is {@code null}.
+	 */
+	@Test(expected = NullPointerException.class)
+	public void testPlanNullDestination() {
+		new InvalidationPlanner(0.5, 10).plan(content, null, Collections.<String>emptySet());
+	}
+
+	/**
+	 * Tests that {@link InvalidationPlanner#plan(Trie, BucketPath, Set)} throws an exception when the given changed
+	 * keys are {@code null}.
+	 */
+	@Test(expected = NullPointerException.class)
+	public void testPlanNullChangedKeys() {
+		new InvalidationPlanner(0.5, 10).plan(content, DESTINATION, null);
+	}
+
+	/**
+	 * Tests that {@link InvalidationPlanner#plan(Trie, BucketPath, Set)} plans nothing when nothing changed.
+	 */
+	@Test
+	public void testPlanNothingChanged() {
+		assertTrue(new InvalidationPlanner(0.5, 10).plan(content, DESTINATION, Collections.<String>emptySet())
+				.isEmpty());
+	}
+
+	/**
+	 * Tests that {@link InvalidationPlanner#plan(Trie, BucketPath, Set)} invalidates each change by its own path when
+	 * no directory is dense with changes.
+	 */
+	@Test
+	public void testPlanSparseChanges() {
+		final List<String> paths = new InvalidationPlanner(0.5, 10).plan(content, DESTINATION,
+				keys("content.jar", "plugins/a.jar"));
+
+		assertEquals(asList("/" + PREFIX + "content.jar", "/" + PREFIX + "plugins/a.jar"), paths);
+	}
+
+	/**
+	 * Tests that {@link InvalidationPlanner#plan(Trie, BucketPath, Set)} collapses a directory in which at least the
+	 * threshold share of the files changed into a wildcard path.
+	 */
+	@Test
+	public void testPlanDenseDirectory() {
+		final List<String> paths = new InvalidationPlanner(0.5, 10).plan(content, DESTINATION,
+				keys("content.jar", "plugins/a.jar", "plugins/b.jar"));
+
+		assertEquals(asList("/" + PREFIX + "content.jar", "/" + PREFIX + "plugins/*"), paths);
+	}
+
+	/**
+	 * Tests that {@link InvalidationPlanner#plan(Trie, BucketPath, Set)} collapses the whole site into a single
+	 * wildcard path when most of its files changed, without reaching above the destination.
+	 */
+	@Test
+	public void testPlanDenseSite() {
+		final List<String> paths = new InvalidationPlanner(0.5, 10).plan(content, DESTINATION,
+				keys("content.jar", "artifacts.jar", "plugins/a.jar", "plugins/b.jar", "features/f.jar"));
+
+		assertEquals(singletonList("/" + PREFIX + "*"), paths);
+	}
+
+	/**
+	 * Tests that {@link InvalidationPlanner#plan(Trie, BucketPath, Set)} never collapses a single change into a
+	 * wildcard path.
+	 */
+	@Test
+	public void testPlanSingleChange() {
+		final List<String> paths = new InvalidationPlanner(0.5, 10).plan(content, DESTINATION,
+				keys("features/f.jar"));
+
+		assertEquals(singletonList("/" + PREFIX + "features/f.jar"), paths);
+	}
+
+	/**
+	 * Tests that {@link InvalidationPlanner#plan(Trie, BucketPath, Set)} collapses a directory whose changes would not
+	 * fit in a single request, even when they are below the threshold.
+	 */
+	@Test
+	public void testPlanExceedsMaxPaths() {
+		final List<String> paths = new InvalidationPlanner(1, 2).plan(content, DESTINATION,
+				keys("plugins/a.jar", "plugins/b.jar", "plugins/c.jar"));
+
+		assertEquals(singletonList("/" + PREFIX + "plugins/*"), paths);
+	}
+
+	/**
+	 * Tests that {@link InvalidationPlanner#plan(Trie, BucketPath, Set)} includes the changed keys which are not part
+	 * of the content, such as deleted objects, in the share of changes of their directories.
+	 */
+	@Test
+	public void testPlanDeletedKeys() {
+		final List<String> paths = new InvalidationPlanner(0.5, 10).plan(content, DESTINATION,
+				keys("index.html", "plugins/old.jar", "plugins/older.jar", "plugins/a.jar", "binary/gone"));
+
+		assertEquals(asList("/" + PREFIX + "index.html", "/" + PREFIX + "binary/gone", "/" + PREFIX + "plugins/*"),
+				paths);
+	}
+
+	/**
+	 * Tests that {@link InvalidationPlanner#plan(Trie, BucketPath, Set)} invalidates the changed keys outside the
+	 * destination by their own paths.
+	 */
+	@Test
+	public void testPlanKeysOutsideDestination() {
+		final Set<String> changedKeys = keys("plugins/a.jar");
+		changedKeys.add("project/index.html");
+
+		final List<String> paths = new InvalidationPlanner(0.5, 10).plan(content, DESTINATION, changedKeys);
+
+		assertEquals(asList("/" + PREFIX + "plugins/a.jar", "/project/index.html"), paths);
+	}
+
+	/**
+	 * Tests that {@link InvalidationPlanner#plan(Trie, BucketPath, Set)} plans the paths of content keyed without a
+	 * prefix.
+	 */
+	@Test
+	public void testPlanUnprefixedContent() {
+		final Trie<String, String> unprefixed = new BucketTrieFactory().create();
+		unprefixed.insert("site/content.jar", "http://content.jar");
+		unprefixed.insert("site/artifacts.jar", "http://artifacts.jar");
+
+		final List<String> paths = new InvalidationPlanner(0.5, 10).plan(unprefixed, new BucketPath().append("site"),
+				new HashSet<String>(asList("site/content.jar", "site/artifacts.jar")));
+
+		assertEquals(singletonList("/site/*"), paths);
+	}
+
+	private static Set<String> keys(final String... relativeKeys) {
+		final Set<String> keys = new HashSet<String>();
+		for (final String relativeKey : relativeKeys) {
+			keys.add(PREFIX + relativeKey);
+		}
+		return keys;
+	}
+
+}
@@ -0,0 +1,101 @@
+package com.avojak.mojo.aws.p2.maven.plugin.cdn;
+
+import org.junit.Test;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+import static java.util.Collections.singletonMap;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Test class for {@link InvalidationSettings}.
+ */
+public class InvalidationSettingsTest {
+
+	/**
+	 * Tests the defaults when nothing is specified.
+	 */
+	@Test
+	public void testDefaults() {
+		final InvalidationSettings settings = new InvalidationSettings();
+
+		assertNull(settings.getEndpoint());
+		assertFalse(settings.isEnabled());
+		assertEquals(Collections.<String, String>emptyMap(), settings.getHeaders());
+		assertEquals(InvalidationSettings.DEFAULT_MAX_PATHS_PER_REQUEST, settings.getMaxPathsPerRequest());
+		assertEquals(InvalidationSettings.DEFAULT_MAX_WILDCARDS_PER_REQUEST, settings.getMaxWildcardsPerRequest());
+		assertEquals(InvalidationSettings.DEFAULT_WILDCARD_THRESHOLD, settings.getWildcardThreshold(), 0);
+		assertEquals(InvalidationSettings.DEFAULT_TIMEOUT, settings.getTimeout());
+	}
+
+	/**
+	 * Tests the specified settings.
+	 */
+	@Test
+	public void testSpecified() {
+		final InvalidationSettings settings = new InvalidationSettings();
+		settings.setEndpoint("http://localhost/invalidations");
+		settings.setMaxPathsPerRequest(100);
+		settings.setMaxWildcardsPerRequest(5);
+		settings.setWildcardThreshold(0.75);
+		settings.setTimeout(1000);
+
+		assertTrue(settings.isEnabled());
+		assertEquals("http://localhost/invalidations", settings.getEndpoint());
+		assertEquals(100, settings.getMaxPathsPerRequest());
+		assertEquals(5, settings.getMaxWildcardsPerRequest());
+		assertEquals(0.75, settings.getWildcardThreshold(), 0);
+		assertEquals(1000, settings.getTimeout());
+	}
+
+	/**
+	 * Tests that a blank endpoint leaves invalidation disabled.
+	 */
+	@Test
+	public void testBlankEndpoint() {
+		final InvalidationSettings settings = new InvalidationSettings();
+		settings.setEndpoint(" ");
+
+		assertFalse(settings.isEnabled());
+	}
+
+	/**
+	 * Tests that {@link InvalidationSettings#setHeaders(Map)} copies the given headers.
+	 */
+	@Test
+	public void testSetHeaders() {
+		final Map<String, String> headers = new HashMap<String, String>();
+		headers.put("Authorization", "Bearer token");
+		final InvalidationSettings settings = new InvalidationSettings();
+		settings.setHeaders(headers);
+		headers.clear();
+
+		assertEquals(singletonMap("Authorization", "Bearer token"), settings.getHeaders());
+	}
+
+	/**
+	 * Tests {@link InvalidationSettings#equals(Object)} and {@link InvalidationSettings#hashCode()}.
+	 */
+	@Test
+	public void testEqualsAndHashCode() {
+		final InvalidationSettings settings = new InvalidationSettings();
+		settings.setEndpoint("http://localhost/invalidations");
+		final InvalidationSettings equal = new InvalidationSettings();
+		equal.setEndpoint("http://localhost/invalidations");
+		equal.setMaxPathsPerRequest(InvalidationSettings.DEFAULT_MAX_PATHS_PER_REQUEST);
+		final InvalidationSettings different = new InvalidationSettings();
+		different.setEndpoint("http://localhost/invalidations");
+		different.setWildcardThreshold(1.0);
+
+		assertEquals(settings, equal);
+		assertEquals(settings.hashCode(), equal.hashCode());
+		assertNotEquals(settings, different);
+	}
+
+}
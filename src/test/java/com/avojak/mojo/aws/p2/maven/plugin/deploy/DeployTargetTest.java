@@ -0,0 +1,37 @@
+package com.avojak.mojo.aws.p2.maven.plugin.deploy;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+
+/**
+ * Test class for {@link DeployTarget}.
+ */
+public class DeployTargetTest {
+
+	/**
+	 * Tests {@link DeployTarget#equals(Object)}.
+	 */
+	@Test
+	public void testEquals() {
+		final DeployTarget target1 = new DeployTarget("mock", "us-west-2", "https://example.com");
+		final DeployTarget target2 = new DeployTarget("mock", "us-west-2", "https://example.com");
+		final DeployTarget target3 = new DeployTarget("mock", null, null);
+
+		assertEquals(target1, target1);
+		assertEquals(target1, target2);
+		assertNotEquals(target1, null);
+		assertNotEquals(target1, "String");
+		assertNotEquals(target1, target3);
+	}
+
+	/**
+	 * Tests {@link DeployTarget#hashCode()}.
+	 */
+	@Test
+	public void testHashCode() {
+		assertEquals(new DeployTarget("mock", null, null).hashCode(), new DeployTarget("mock", null, null).hashCode());
+	}
+
+}
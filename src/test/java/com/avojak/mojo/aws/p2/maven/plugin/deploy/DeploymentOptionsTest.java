@@ -0,0 +1,139 @@
+package com.avojak.mojo.aws.p2.maven.plugin.deploy;
+
+import com.avojak.mojo.aws.p2.maven.plugin.s3.state.DeployManifestStore;
+import com.avojak.mojo.aws.p2.maven.plugin.s3.state.RemoteStateCache;
+import com.google.common.base.Optional;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.junit.MockitoJUnitRunner;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Test class for {@link DeploymentOptions}.
+ */
+@RunWith(MockitoJUnitRunner.class)
+public class DeploymentOptionsTest {
+
+	@Mock
+	private RemoteStateCache stateCache;
+
+	@Mock
+	private DeployManifestStore manifestStore;
+
+	/**
+	 * Tests that {@link DeploymentOptions#builder(int)} throws an exception when the given upload concurrency is not
+	 * positive.
+	 */
+	@Test(expected = IllegalArgumentException.class)
+	public void testBuilderInvalidUploadConcurrency() {
+		DeploymentOptions.builder(0);
+	}
+
+	/**
+	 * Tests that {@link DeploymentOptions.Builder#build()} throws an exception when both deleting the existing objects
+	 * and skipping unchanged files are enabled.
+	 */
+	@Test(expected = IllegalArgumentException.class)
+	public void testBuildDeleteExistingAndSkipUnchanged() {
+		DeploymentOptions.builder(1).skipUnchanged(true).build();
+	}
+
+	/**
+	 * Tests that {@link DeploymentOptions.Builder#build()} throws an exception when a state cache is given without
+	 * skipping unchanged files.
+	 */
+	@Test(expected = IllegalArgumentException.class)
+	public void testBuildStateCacheWithoutSkipUnchanged() {
+		DeploymentOptions.builder(1).deleteExisting(false).stateCache(stateCache).build();
+	}
+
+	/**
+	 * Tests that {@link DeploymentOptions.Builder#build()} throws an exception when a manifest store is given without
+	 * skipping unchanged files.
+	 */
+	@Test(expected = IllegalArgumentException.class)
+	public void testBuildManifestStoreWithoutSkipUnchanged() {
+		DeploymentOptions.builder(1).deleteExisting(false).manifestStore(manifestStore).build();
+	}
+
+	/**
+	 * Tests that {@link DeploymentOptions.Builder#stateCache(RemoteStateCache)} throws an exception when the given
+	 * cache is {@code null}.
+	 */
+	@Test(expected = NullPointerException.class)
+	public void testStateCacheNull() {
+		DeploymentOptions.builder(1).stateCache(null);
+	}
+
+	/**
+	 * Tests that {@link DeploymentOptions.Builder#manifestStore(DeployManifestStore)} throws an exception when the
+	 * given store is {@code null}.
+	 */
+	@Test(expected = NullPointerException.class)
+	public void testManifestStoreNull() {
+		DeploymentOptions.builder(1).manifestStore(null);
+	}
+
+	/**
+	 * Tests the default options.
+	 */
+	@Test
+	public void testDefaults() {
+		final DeploymentOptions options = DeploymentOptions.builder(4).build();
+
+		assertEquals(4, options.getUploadConcurrency());
+		assertTrue(options.isDeleteExisting());
+		assertFalse(options.isSkipUnchanged());
+		assertEquals(Optional.<RemoteStateCache>absent(), options.getStateCache());
+		assertEquals(Optional.<DeployManifestStore>absent(), options.getManifestStore());
+	}
+
+	/**
+	 * Tests that the options which are set are built.
+	 */
+	@Test
+	public void testBuild() {
+		final DeploymentOptions options = DeploymentOptions.builder(2).deleteExisting(false).skipUnchanged(true)
+				.stateCache(stateCache).manifestStore(manifestStore).build();
+
+		assertEquals(2, options.getUploadConcurrency());
+		assertFalse(options.isDeleteExisting());
+		assertTrue(options.isSkipUnchanged());
+		assertEquals(Optional.of(stateCache), options.getStateCache());
+		assertEquals(Optional.of(manifestStore), options.getManifestStore());
+	}
+
+	/**
+	 * Tests {@link DeploymentOptions#equals(Object)}.
+	 */
+	@Test
+	public void testEquals() {
+		final DeploymentOptions options1 = DeploymentOptions.builder(2).deleteExisting(false).skipUnchanged(true)
+				.stateCache(stateCache).build();
+		final DeploymentOptions options2 = DeploymentOptions.builder(2).deleteExisting(false).skipUnchanged(true)
+				.stateCache(stateCache).build();
+		final DeploymentOptions options3 = DeploymentOptions.builder(2).deleteExisting(false).skipUnchanged(true)
+				.build();
+
+		assertEquals(options1, options1);
+		assertEquals(options1, options2);
+		assertNotEquals(options1, null);
+		assertNotEquals(options1, "String");
+		assertNotEquals(options1, options3);
+		assertNotEquals(options1, DeploymentOptions.builder(2).build());
+	}
+
+	/**
+	 * Tests {@link DeploymentOptions#hashCode()}.
+	 */
+	@Test
+	public void testHashCode() {
+		assertEquals(DeploymentOptions.builder(2).build().hashCode(), DeploymentOptions.builder(2).build().hashCode());
+	}
+
+}
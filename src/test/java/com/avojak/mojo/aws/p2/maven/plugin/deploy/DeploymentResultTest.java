@@ -0,0 +1,159 @@
+package com.avojak.mojo.aws.p2.maven.plugin.deploy;
+
+import com.avojak.mojo.aws.p2.maven.plugin.s3.model.BucketPath;
+import com.avojak.mojo.aws.p2.maven.plugin.s3.model.trie.Trie;
+import com.avojak.mojo.aws.p2.maven.plugin.s3.model.trie.impl.BucketTrieFactory;
+import com.avojak.mojo.aws.p2.maven.plugin.s3.state.DeployManifest;
+import com.avojak.mojo.aws.p2.maven.plugin.s3.state.RemoteObject;
+import com.avojak.mojo.aws.p2.maven.plugin.s3.state.RemoteState;
+import com.google.common.base.Optional;
+import org.junit.Test;
+
+import static java.util.Collections.singleton;
+import static java.util.Collections.singletonList;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Test class for {@link DeploymentResult}.
+ */
+public class DeploymentResultTest {
+
+	private final DeployTarget target = new DeployTarget("mock", "us-west-2", "https://example.com");
+	private final BucketPath destination = new BucketPath().append("Mock");
+	private final Trie<String, String> content = new BucketTrieFactory().create();
+
+	/**
+	 * Tests that the constructor throws an exception when the given target is {@code null}.
+	 */
+	@Test(expected = NullPointerException.class)
+	public void testConstructorNullTarget() {
+		new DeploymentResult(null, destination, content, 0, Optional.<Throwable>absent());
+	}
+
+	/**
+	 * Tests that the constructor throws an exception when the given destination is {@code null}.
+	 */
+	@Test(expected = NullPointerException.class)
+	public void testConstructorNullDestination() {
+		new DeploymentResult(target, null, content, 0, Optional.<Throwable>absent());
+	}
+
+	/**
+	 * Tests that the constructor throws an exception when the given content is {@code null}.
+	 */
+	@Test(expected = NullPointerException.class)
+	public void testConstructorNullContent() {
+		new DeploymentResult(target, destination, null, 0, Optional.<Throwable>absent());
+	}
+
+	/**
+	 * Tests that the constructor throws an exception when the given failure is {@code null}.
+	 */
+	@Test(expected = NullPointerException.class)
+	public void testConstructorNullFailure() {
+		new DeploymentResult(target, destination, content, 0, null);
+	}
+
+	/**
+	 * Tests the getters.
+	 */
+	@Test
+	public void testGetters() {
+		final Throwable failure = new RuntimeException();
+		final DeploymentResult result = new DeploymentResult(target, destination, content, 3, Optional.of(failure));
+
+		assertSame(target, result.getTarget());
+		assertSame(destination, result.getDestination());
+		assertSame(content, result.getContent());
+		assertEquals(3, result.getFilesUploaded());
+		assertSame(failure, result.getFailure().get());
+		assertEquals("mock", result.getTarget().getBucket());
+		assertEquals("us-west-2", result.getTarget().getRegion());
+		assertEquals("https://example.com", result.getTarget().getHostingUrl());
+		assertEquals(0, result.getFilesSkipped());
+		assertFalse(result.getRemoteState().isPresent());
+	}
+
+	/**
+	 * Tests that the constructor throws an exception when the given remote state is {@code null}.
+	 */
+	@Test(expected = NullPointerException.class)
+	public void testConstructorNullRemoteState() {
+		new DeploymentResult(target, destination, content, 0, 0, Optional.<Throwable>absent(), null);
+	}
+
+	/**
+	 * Tests the state of the objects after the deployment.
+	 */
+	@Test
+	public void testGetRemoteState() {
+		final RemoteState state = new RemoteState(singletonList(new RemoteObject("Mock/content.xml", 7, "etag", 1L)));
+		final DeploymentResult result = new DeploymentResult(target, destination, content, 1, 0,
+				Optional.<Throwable>absent(), Optional.of(state));
+
+		assertSame(state, result.getRemoteState().get());
+	}
+
+	/**
+	 * Tests that the constructor throws an exception when the given manifest is {@code null}.
+	 */
+	@Test(expected = NullPointerException.class)
+	public void testConstructorNullManifest() {
+		new DeploymentResult(target, destination, content, 0, 0, Optional.<Throwable>absent(),
+				Optional.<RemoteState>absent(), false, null);
+	}
+
+	/**
+	 * Tests whether the site was up to date and the manifest of the site.
+	 */
+	@Test
+	public void testIsUpToDateAndGetManifest() {
+		final DeployManifest manifest = new DeployManifest(singletonList(new RemoteObject("content.xml", 7, null, 0)));
+		final DeploymentResult result = new DeploymentResult(target, destination, content, 1, 0,
+				Optional.<Throwable>absent(), Optional.<RemoteState>absent(), true, Optional.of(manifest));
+
+		assertTrue(result.isUpToDate());
+		assertSame(manifest, result.getManifest().get());
+		assertFalse(new DeploymentResult(target, destination, content, 1, 0, Optional.<Throwable>absent())
+				.isUpToDate());
+	}
+
+	/**
+	 * Tests that the constructor throws an exception when the given uploaded keys are {@code null}.
+	 */
+	@Test(expected = NullPointerException.class)
+	public void testConstructorNullUploadedKeys() {
+		new DeploymentResult(target, destination, content, 0, 0, Optional.<Throwable>absent(),
+				Optional.<RemoteState>absent(), false, Optional.<DeployManifest>absent(), null);
+	}
+
+	/**
+	 * Tests the keys of the objects which were uploaded.
+	 */
+	@Test
+	public void testGetUploadedKeys() {
+		final DeploymentResult result = new DeploymentResult(target, destination, content, 1, 1,
+				Optional.<Throwable>absent(), Optional.<RemoteState>absent(), false, Optional.<DeployManifest>absent(),
+				singleton("Mock/content.xml"));
+
+		assertEquals(singleton("Mock/content.xml"), result.getUploadedKeys());
+		assertTrue(new DeploymentResult(target, destination, content, 1, 0, Optional.<Throwable>absent())
+				.getUploadedKeys().isEmpty());
+	}
+
+	/**
+	 * Tests the number of files skipped.
+	 */
+	@Test
+	public void testGetFilesSkipped() {
+		final DeploymentResult result = new DeploymentResult(target, destination, content, 1, 2,
+				Optional.<Throwable>absent());
+
+		assertEquals(1, result.getFilesUploaded());
+		assertEquals(2, result.getFilesSkipped());
+	}
+
+}
@@ -0,0 +1,637 @@
+package com.avojak.mojo.aws.p2.maven.plugin.deploy;
+
+import com.amazonaws.AmazonClientException;
+import com.amazonaws.services.s3.model.S3ObjectSummary;
+import com.avojak.mojo.aws.p2.maven.plugin.s3.model.BucketPath;
+import com.avojak.mojo.aws.p2.maven.plugin.s3.model.trie.impl.BucketTrieFactory;
+import com.avojak.mojo.aws.p2.maven.plugin.s3.repository.S3BucketRepository;
+import com.avojak.mojo.aws.p2.maven.plugin.s3.state.DeployManifest;
+import com.avojak.mojo.aws.p2.maven.plugin.s3.state.DeployManifestStore;
+import com.avojak.mojo.aws.p2.maven.plugin.s3.state.RemoteObject;
+import com.avojak.mojo.aws.p2.maven.plugin.s3.state.RemoteState;
+import com.avojak.mojo.aws.p2.maven.plugin.s3.state.RemoteStateCache;
+import com.avojak.mojo.aws.p2.maven.plugin.util.FileSystemTestUtil;
+import com.avojak.mojo.aws.p2.maven.plugin.util.checksum.ETagCalculator;
+import com.google.common.base.Optional;
+import com.google.common.util.concurrent.Futures;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.InOrder;
+import org.mockito.Mock;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.junit.MockitoJUnitRunner;
+import org.mockito.stubbing.Answer;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Future;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.spy;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Test class for {@link FanOutDeployer}.
+ */
+@RunWith(MockitoJUnitRunner.class)
+public class FanOutDeployerTest {
+
+	private static final BucketPath DESTINATION = new BucketPath().append("project").append("releases").append("1.0.0");
+
+	@Mock
+	private S3BucketRepository primaryRepository;
+
+	@Mock
+	private S3BucketRepository replicaRepository;
+
+	@Mock
+	private RemoteStateCache stateCache;
+
+	@Mock
+	private DeployManifestStore manifestStore;
+
+	private final BucketTrieFactory bucketTrieFactory = new BucketTrieFactory();
+	private final DeployTarget primary = new DeployTarget("primary", null, null);
+	private final DeployTarget replica = new DeployTarget("replica", "eu-west-1", null);
+	private final Map<String, String> primaryContent = new ConcurrentHashMap<String, String>();
+	private final Map<String, String> replicaContent = new ConcurrentHashMap<String, String>();
+	private final Map<DeployTarget, S3BucketRepository> targets = new LinkedHashMap<DeployTarget, S3BucketRepository>();
+
+	private File directory;
+
+	/**
+	 * Setup mocks.
+	 *
+	 * @throws IOException Unexpected.
+	 */
+	@Before
+	public void setup() throws IOException {
+		directory = FileSystemTestUtil.createAccessibleDirectory();
+		final File subdirectory = new File(directory, "plugins");
+		assertTrue(subdirectory.mkdir());
+		Files.write(new File(directory, "content.xml").toPath(), "content".getBytes(StandardCharsets.UTF_8));
+		Files.write(new File(subdirectory, "plugin.jar").toPath(), "plugin".getBytes(StandardCharsets.UTF_8));
+		targets.put(primary, primaryRepository);
+		targets.put(replica, replicaRepository);
+	}
+
+	/**
+	 * Tests that the constructor throws an exception when the given {@link BucketTrieFactory} is {@code null}.
+	 */
+	@Test(expected = NullPointerException.class)
+	public void testConstructorNullBucketTrieFactory() {
+		new FanOutDeployer(null, new ETagCalculator(), DeploymentOptions.builder(1).build());
+	}
+
+	/**
+	 * Tests that the constructor throws an exception when the given {@link ETagCalculator} is {@code null}.
+	 */
+	@Test(expected = NullPointerException.class)
+	public void testConstructorNullETagCalculator() {
+		new FanOutDeployer(bucketTrieFactory, null, DeploymentOptions.builder(1).build());
+	}
+
+	/**
+	 * Tests that the constructor throws an exception when the given {@link DeploymentOptions} are {@code null}.
+	 */
+	@Test(expected = NullPointerException.class)
+	public void testConstructorNullOptions() {
+		new FanOutDeployer(bucketTrieFactory, new ETagCalculator(), null);
+	}
+
+	/**
+	 * Tests that {@link FanOutDeployer#deploy(Map, File, BucketPath)} throws an exception when the given targets are
+	 * {@code null}.
+	 *
+	 * @throws InterruptedException Unexpected.
+	 */
+	@Test(expected = NullPointerException.class)
+	public void testDeployNullTargets() throws InterruptedException {
+		createDeployer(DeploymentOptions.builder(1)).deploy(null, directory, DESTINATION);
+	}
+
+	/**
+	 * Tests that {@link FanOutDeployer#deploy(Map, File, BucketPath)} throws an exception when the given source
+	 * directory is {@code null}.
+	 *
+	 * @throws InterruptedException Unexpected.
+	 */
+	@Test(expected = NullPointerException.class)
+	public void testDeployNullSourceDirectory() throws InterruptedException {
+		createDeployer(DeploymentOptions.builder(1)).deploy(targets, null, DESTINATION);
+	}
+
+	/**
+	 * Tests that {@link FanOutDeployer#deploy(Map, File, BucketPath)} throws an exception when the given destination
+	 * is {@code null}.
+	 *
+	 * @throws InterruptedException Unexpected.
+	 */
+	@Test(expected = NullPointerException.class)
+	public void testDeployNullDestination() throws InterruptedException {
+		createDeployer(DeploymentOptions.builder(1)).deploy(targets, directory, null);
+	}
+
+	/**
+	 * Tests that {@link FanOutDeployer#deploy(Map, File, BucketPath)} uploads every file to every target, after the
+	 * existing content of each target has been deleted.
+	 *
+	 * @throws InterruptedException Unexpected.
+	 */
+	@Test
+	public void testDeploy() throws InterruptedException {
+		stubUploads(primaryRepository, primaryContent);
+		stubUploads(replicaRepository, replicaContent);
+
+		final List<DeploymentResult> results = createDeployer(DeploymentOptions.builder(4))
+				.deploy(targets, directory, DESTINATION);
+
+		assertEquals(2, results.size());
+		assertSuccessful(results.get(0), primary);
+		assertSuccessful(results.get(1), replica);
+		for (final Map<String, String> content : Arrays.<Map<String, String>>asList(primaryContent, replicaContent)) {
+			assertEquals(2, content.size());
+			assertEquals("content", content.get("project/releases/1.0.0/content.xml"));
+			assertEquals("plugin", content.get("project/releases/1.0.0/plugins/plugin.jar"));
+		}
+		for (final S3BucketRepository repository : targets.values()) {
+			final InOrder inOrder = inOrder(repository);
+			inOrder.verify(repository).deleteDirectory(DESTINATION.asString());
+			inOrder.verify(repository, times(2)).uploadFile(any(File.class), any(ByteBuffer.class),
+					any(BucketPath.class));
+		}
+	}
+
+	/**
+	 * Tests that {@link FanOutDeployer#deploy(Map, File, BucketPath)} streams a file which is too large to be mapped
+	 * into memory from disk, rather than failing the deployment.
+	 *
+	 * @throws InterruptedException Unexpected.
+	 * @throws IOException          Unexpected.
+	 */
+	@Test
+	public void testDeployFileTooLargeToMap() throws InterruptedException, IOException {
+		final File large = new File(directory, "large.zip");
+		// The file is sparse, so it takes no space on disk
+		try (final RandomAccessFile file = new RandomAccessFile(large, "rw")) {
+			file.setLength(Integer.MAX_VALUE + 1L);
+		}
+		final BucketPath largeDestination = new BucketPath(DESTINATION).append("large.zip");
+		stubUploads(primaryRepository, primaryContent);
+		when(primaryRepository.uploadFile(large, largeDestination)).thenReturn(largeDestination.asString());
+
+		try {
+			final List<DeploymentResult> results = createDeployer(DeploymentOptions.builder(2))
+					.deploy(Collections.singletonMap(primary, primaryRepository), directory, DESTINATION);
+
+			assertFalse(results.get(0).getFailure().isPresent());
+			assertEquals(3, results.get(0).getFilesUploaded());
+			assertEquals(2, primaryContent.size());
+			verify(primaryRepository).uploadFile(large, largeDestination);
+			verify(primaryRepository, never()).uploadFile(eq(large), any(ByteBuffer.class), any(BucketPath.class));
+		} finally {
+			Files.delete(large.toPath());
+		}
+	}
+
+	/**
+	 * Tests that {@link FanOutDeployer#deploy(Map, File, BucketPath)} uploads over the existing objects without deleting
+	 * them when deletion is disabled.
+	 *
+	 * @throws InterruptedException Unexpected.
+	 */
+	@Test
+	public void testDeployWithoutDeletingExisting() throws InterruptedException {
+		stubUploads(primaryRepository, primaryContent);
+		stubUploads(replicaRepository, replicaContent);
+
+		final List<DeploymentResult> results = createDeployer(DeploymentOptions.builder(2).deleteExisting(false))
+				.deploy(targets, directory, DESTINATION);
+
+		assertSuccessful(results.get(0), primary);
+		assertSuccessful(results.get(1), replica);
+		assertEquals(2, primaryContent.size());
+		assertEquals(2, replicaContent.size());
+		for (final S3BucketRepository repository : targets.values()) {
+			verify(repository, never()).deleteDirectory(anyString());
+		}
+	}
+
+	/**
+	 * Tests that {@link FanOutDeployer#deploy(Map, File, BucketPath)} skips the upload of files which match the
+	 * existing object, while still including them in the content and excluding them from the uploaded keys.
+	 *
+	 * @throws InterruptedException Unexpected.
+	 * @throws IOException          Unexpected.
+	 */
+	@Test
+	public void testDeploySkipUnchanged() throws InterruptedException, IOException {
+		final S3ObjectSummary summary = new S3ObjectSummary();
+		summary.setKey("project/releases/1.0.0/content.xml");
+		summary.setSize(7);
+		summary.setETag(new ETagCalculator().calculate(new File(directory, "content.xml")));
+		final S3ObjectSummary changed = new S3ObjectSummary();
+		changed.setKey("project/releases/1.0.0/plugins/plugin.jar");
+		changed.setSize(6);
+		changed.setETag("stale");
+		when(primaryRepository.iterate("project/releases/1.0.0/")).thenReturn(Arrays.asList(summary, changed));
+		stubUploads(primaryRepository, primaryContent);
+
+		final List<DeploymentResult> results = createDeployer(DeploymentOptions.builder(2).deleteExisting(false)
+				.skipUnchanged(true)).deploy(Collections.singletonMap(primary, primaryRepository), directory,
+				DESTINATION);
+
+		assertEquals(1, results.get(0).getFilesUploaded());
+		assertEquals(1, results.get(0).getFilesSkipped());
+		assertFalse(results.get(0).getFailure().isPresent());
+		assertEquals(Collections.singleton("project/releases/1.0.0/plugins/plugin.jar"),
+				results.get(0).getUploadedKeys());
+		assertEquals(Collections.singletonMap("project/releases/1.0.0/plugins/plugin.jar", "plugin"), primaryContent);
+		assertTrue(results.get(0).getContent().getRoot().getChildren().get("1.0.0").getChildren()
+				.containsKey("content.xml"));
+		verify(primaryRepository, never()).deleteDirectory(anyString());
+	}
+
+	/**
+	 * Tests that {@link FanOutDeployer#deploy(Map, File, BucketPath)} hashes each file once when comparing it against
+	 * the existing objects of several targets, rather than reading it again for every target.
+	 *
+	 * @throws InterruptedException Unexpected.
+	 * @throws IOException          Unexpected.
+	 */
+	@Test
+	public void testDeploySkipUnchangedHashesOnce() throws InterruptedException, IOException {
+		final ETagCalculator eTagCalculator = spy(new ETagCalculator());
+		final S3ObjectSummary summary = new S3ObjectSummary();
+		summary.setKey("project/releases/1.0.0/content.xml");
+		summary.setSize(7);
+		summary.setETag(new ETagCalculator().calculate(new File(directory, "content.xml")));
+		final S3ObjectSummary changed = new S3ObjectSummary();
+		changed.setKey("project/releases/1.0.0/plugins/plugin.jar");
+		changed.setSize(6);
+		changed.setETag("stale");
+		when(primaryRepository.iterate("project/releases/1.0.0/")).thenReturn(Arrays.asList(summary, changed));
+		when(replicaRepository.iterate("project/releases/1.0.0/")).thenReturn(Arrays.asList(summary, changed));
+		stubUploads(primaryRepository, primaryContent);
+		stubUploads(replicaRepository, replicaContent);
+
+		final List<DeploymentResult> results = new FanOutDeployer(bucketTrieFactory, eTagCalculator,
+				DeploymentOptions.builder(2).deleteExisting(false).skipUnchanged(true).build())
+				.deploy(targets, directory, DESTINATION);
+
+		assertEquals(1, results.get(0).getFilesSkipped());
+		assertEquals(1, results.get(1).getFilesSkipped());
+		verify(eTagCalculator, times(2)).calculate(any(ByteBuffer.class));
+		verify(eTagCalculator, never()).matches(any(File.class), anyString());
+	}
+
+	/**
+	 * Tests that {@link FanOutDeployer#deploy(Map, File, BucketPath)} takes the state of the existing objects from the
+	 * cache when it is still valid, invalidates the cache before uploading, and reports the state of the site after the
+	 * deployment.
+	 *
+	 * @throws InterruptedException Unexpected.
+	 * @throws IOException          Unexpected.
+	 */
+	@Test
+	public void testDeployCachedState() throws InterruptedException, IOException {
+		final String prefix = "project/releases/1.0.0/";
+		final RemoteObject unchanged = new RemoteObject(prefix + "content.xml", 7,
+				new ETagCalculator().calculate(new File(directory, "content.xml")), 1L);
+		final RemoteObject changed = new RemoteObject(prefix + "plugins/plugin.jar", 6, "stale", 1L);
+		when(stateCache.get(primaryRepository, "primary", prefix))
+				.thenReturn(Optional.of(new RemoteState(Arrays.asList(unchanged, changed))));
+		stubUploads(primaryRepository, primaryContent);
+
+		final List<DeploymentResult> results = createDeployer(DeploymentOptions.builder(2).deleteExisting(false)
+				.skipUnchanged(true).stateCache(stateCache))
+				.deploy(Collections.singletonMap(primary, primaryRepository), directory, DESTINATION);
+
+		assertEquals(1, results.get(0).getFilesUploaded());
+		assertEquals(1, results.get(0).getFilesSkipped());
+		final RemoteState state = results.get(0).getRemoteState().get();
+		assertEquals(2, state.size());
+		assertEquals(unchanged, state.get(prefix + "content.xml").get());
+		// The entity tag of an uploaded file is the digest of its content
+		assertEquals("a24bcf2198b1b13ad985304483f7f324", state.get(prefix + "plugins/plugin.jar").get().getETag());
+		// The cached state does not include every existing object
+		assertFalse(results.get(0).getExistingKeys().isPresent());
+		final InOrder inOrder = inOrder(stateCache, primaryRepository);
+		inOrder.verify(stateCache).invalidate(primaryRepository, "primary", prefix);
+		inOrder.verify(primaryRepository).uploadFile(any(File.class), any(ByteBuffer.class), any(BucketPath.class));
+		verify(primaryRepository, never()).iterate(anyString());
+	}
+
+	/**
+	 * Tests that {@link FanOutDeployer#deploy(Map, File, BucketPath)} reports the keys of every existing object when
+	 * the cached state is complete, including those of the objects which are no longer part of the site.
+	 *
+	 * @throws InterruptedException Unexpected.
+	 */
+	@Test
+	public void testDeployCompleteState() throws InterruptedException {
+		final String prefix = "project/releases/1.0.0/";
+		final RemoteObject old = new RemoteObject(prefix + "plugins/old.jar", 3, "old", 1L);
+		when(stateCache.get(primaryRepository, "primary", prefix))
+				.thenReturn(Optional.of(new RemoteState(Collections.singletonList(old), true)));
+		stubUploads(primaryRepository, primaryContent);
+
+		final List<DeploymentResult> results = createDeployer(DeploymentOptions.builder(2).deleteExisting(false)
+				.skipUnchanged(true).stateCache(stateCache))
+				.deploy(Collections.singletonMap(primary, primaryRepository), directory, DESTINATION);
+
+		assertEquals(Collections.singleton(prefix + "plugins/old.jar"), results.get(0).getExistingKeys().get());
+		assertTrue(results.get(0).getRemoteState().get().isComplete());
+		verify(primaryRepository, never()).iterate(anyString());
+	}
+
+	/**
+	 * Tests that {@link FanOutDeployer#deploy(Map, File, BucketPath)} discovers the state of the existing objects when
+	 * no valid state is cached, and reports no state for a target which failed.
+	 *
+	 * @throws InterruptedException Unexpected.
+	 */
+	@Test
+	public void testDeployCachedStateAbsent() throws InterruptedException {
+		final String prefix = "project/releases/1.0.0/";
+		when(stateCache.get(primaryRepository, "primary", prefix)).thenReturn(Optional.<RemoteState>absent());
+		when(primaryRepository.iterate(prefix)).thenReturn(Collections.<S3ObjectSummary>emptyList());
+		when(primaryRepository.uploadFile(any(File.class), any(ByteBuffer.class), any(BucketPath.class)))
+				.thenThrow(new AmazonClientException("mock"));
+
+		final List<DeploymentResult> results = createDeployer(DeploymentOptions.builder(1).deleteExisting(false)
+				.skipUnchanged(true).stateCache(stateCache))
+				.deploy(Collections.singletonMap(primary, primaryRepository), directory, DESTINATION);
+
+		assertTrue(results.get(0).getFailure().isPresent());
+		assertFalse(results.get(0).getRemoteState().isPresent());
+		verify(primaryRepository).iterate(prefix);
+		verify(stateCache).invalidate(primaryRepository, "primary", prefix);
+	}
+
+	/**
+	 * Tests that {@link FanOutDeployer#deploy(Map, File, BucketPath)} reports a site whose stored manifest matches the
+	 * local site as up to date, without changing anything.
+	 *
+	 * @throws InterruptedException Unexpected.
+	 * @throws IOException          Unexpected.
+	 */
+	@Test
+	public void testDeployManifestUpToDate() throws InterruptedException, IOException {
+		final String prefix = "project/releases/1.0.0/";
+		when(manifestStore.get(primaryRepository, "primary", prefix))
+				.thenReturn(Optional.of(DeployManifest.of(directory, new ETagCalculator())));
+		when(primaryRepository.getHostingUrl(anyString())).thenReturn("http://primary");
+
+		final List<DeploymentResult> results = createDeployer(DeploymentOptions.builder(2).deleteExisting(false)
+				.skipUnchanged(true).manifestStore(manifestStore))
+				.deploy(Collections.singletonMap(primary, primaryRepository), directory, DESTINATION);
+
+		assertTrue(results.get(0).isUpToDate());
+		assertEquals(0, results.get(0).getFilesUploaded());
+		assertEquals(2, results.get(0).getFilesSkipped());
+		assertFalse(results.get(0).getManifest().isPresent());
+		verify(manifestStore, never()).delete(any(S3BucketRepository.class), anyString());
+		verify(primaryRepository, never()).uploadFile(any(File.class), any(ByteBuffer.class), any(BucketPath.class));
+		verify(primaryRepository, never()).iterate(anyString());
+	}
+
+	/**
+	 * Tests that {@link FanOutDeployer#deploy(Map, File, BucketPath)} uploads only the files which differ from the
+	 * stored manifest, deleting it first, and reports the manifest of the local site.
+	 *
+	 * @throws InterruptedException Unexpected.
+	 * @throws IOException          Unexpected.
+	 */
+	@Test
+	public void testDeployManifestChanged() throws InterruptedException, IOException {
+		final String prefix = "project/releases/1.0.0/";
+		final ETagCalculator eTagCalculator = new ETagCalculator();
+		final DeployManifest remote = new DeployManifest(Arrays.asList(
+				new RemoteObject("content.xml", 7, eTagCalculator.calculate(new File(directory, "content.xml")), 0),
+				new RemoteObject("plugins/plugin.jar", 6, "stale", 0)));
+		when(manifestStore.get(primaryRepository, "primary", prefix)).thenReturn(Optional.of(remote));
+		stubUploads(primaryRepository, primaryContent);
+
+		final DeploymentOptions options = DeploymentOptions.builder(2).deleteExisting(false).skipUnchanged(true)
+				.manifestStore(manifestStore).build();
+		final List<DeploymentResult> results = new FanOutDeployer(bucketTrieFactory, eTagCalculator, options)
+				.deploy(Collections.singletonMap(primary, primaryRepository), directory, DESTINATION);
+
+		assertFalse(results.get(0).isUpToDate());
+		assertEquals(1, results.get(0).getFilesUploaded());
+		assertEquals(1, results.get(0).getFilesSkipped());
+		assertEquals(DeployManifest.of(directory, eTagCalculator).getRootHash(),
+				results.get(0).getManifest().get().getRootHash());
+		assertEquals(Collections.singleton(prefix + "plugins/plugin.jar"), primaryContent.keySet());
+		final InOrder inOrder = inOrder(manifestStore, primaryRepository);
+		inOrder.verify(manifestStore).delete(primaryRepository, prefix);
+		inOrder.verify(primaryRepository).uploadFile(any(File.class), any(ByteBuffer.class),
+				eq(new BucketPath(DESTINATION).append("plugins").append("plugin.jar")));
+		verify(primaryRepository, never()).iterate(anyString());
+	}
+
+	/**
+	 * Tests that {@link FanOutDeployer#deploy(Map, File, BucketPath)} discovers the state of the existing objects when
+	 * there is no stored manifest.
+	 *
+	 * @throws InterruptedException Unexpected.
+	 */
+	@Test
+	public void testDeployManifestAbsent() throws InterruptedException {
+		final String prefix = "project/releases/1.0.0/";
+		when(manifestStore.get(primaryRepository, "primary", prefix)).thenReturn(Optional.<DeployManifest>absent());
+		when(primaryRepository.iterate(prefix)).thenReturn(Collections.<S3ObjectSummary>emptyList());
+		stubUploads(primaryRepository, primaryContent);
+
+		final List<DeploymentResult> results = createDeployer(DeploymentOptions.builder(1).deleteExisting(false)
+				.skipUnchanged(true).manifestStore(manifestStore))
+				.deploy(Collections.singletonMap(primary, primaryRepository), directory, DESTINATION);
+
+		assertEquals(2, results.get(0).getFilesUploaded());
+		assertEquals(2, results.get(0).getManifest().get().size());
+		verify(manifestStore).delete(primaryRepository, prefix);
+		verify(primaryRepository).iterate(prefix);
+	}
+
+	/**
+	 * Tests that a failed upload abandons the remaining uploads to that target without affecting the other targets.
+	 *
+	 * @throws InterruptedException Unexpected.
+	 */
+	@Test
+	public void testDeployUploadFailure() throws InterruptedException {
+		final AmazonClientException exception = new AmazonClientException("mock");
+		stubUploads(primaryRepository, primaryContent);
+		when(replicaRepository.uploadFile(any(File.class), any(ByteBuffer.class), any(BucketPath.class)))
+				.thenThrow(exception);
+
+		final List<DeploymentResult> results = createDeployer(DeploymentOptions.builder(1))
+				.deploy(targets, directory, DESTINATION);
+
+		assertSuccessful(results.get(0), primary);
+		assertEquals(2, primaryContent.size());
+		assertSame(replica, results.get(1).getTarget());
+		assertEquals(0, results.get(1).getFilesUploaded());
+		assertTrue(results.get(1).getContent().isEmpty());
+		assertSame(exception, results.get(1).getFailure().get());
+		verify(replicaRepository).uploadFile(any(File.class), any(ByteBuffer.class), any(BucketPath.class));
+	}
+
+	/**
+	 * Tests that no files are uploaded to a target whose existing content could not be deleted.
+	 *
+	 * @throws InterruptedException Unexpected.
+	 */
+	@Test
+	public void testDeployDeleteFailure() throws InterruptedException {
+		final AmazonClientException exception = new AmazonClientException("mock");
+		stubUploads(primaryRepository, primaryContent);
+		doThrow(exception).when(replicaRepository).deleteDirectory(DESTINATION.asString());
+
+		final List<DeploymentResult> results = createDeployer(DeploymentOptions.builder(2))
+				.deploy(targets, directory, DESTINATION);
+
+		assertSuccessful(results.get(0), primary);
+		assertSame(exception, results.get(1).getFailure().get());
+		verify(replicaRepository, never()).uploadFile(any(File.class), any(ByteBuffer.class), any(BucketPath.class));
+	}
+
+	/**
+	 * Tests that {@link FanOutDeployer#deploy(Map, List)} throws an exception when the given sites are {@code null}.
+	 *
+	 * @throws InterruptedException Unexpected.
+	 */
+	@Test(expected = NullPointerException.class)
+	public void testDeployNullSites() throws InterruptedException {
+		createDeployer(DeploymentOptions.builder(1)).deploy(futures(), null);
+	}
+
+	/**
+	 * Tests that {@link FanOutDeployer#deploy(Map, List)} throws an exception when a target of a site has no
+	 * repository.
+	 *
+	 * @throws InterruptedException Unexpected.
+	 */
+	@Test(expected = IllegalArgumentException.class)
+	public void testDeployMissingRepository() throws InterruptedException {
+		final DeployTarget other = new DeployTarget("other", null, null);
+		createDeployer(DeploymentOptions.builder(1)).deploy(futures(),
+				Collections.singletonList(new SiteRegistration(Collections.singletonList(other), directory, DESTINATION)));
+	}
+
+	/**
+	 * Tests that {@link FanOutDeployer#deploy(Map, List)} deploys several sites, each to its own targets, and orders
+	 * the results by site and then by target.
+	 *
+	 * @throws InterruptedException Unexpected.
+	 */
+	@Test
+	public void testDeploySites() throws InterruptedException {
+		final BucketPath otherDestination = new BucketPath().append("other").append("releases").append("2.0.0");
+		stubUploads(primaryRepository, primaryContent);
+		stubUploads(replicaRepository, replicaContent);
+		final List<SiteRegistration> sites = Arrays.asList(
+				new SiteRegistration(Arrays.asList(primary, replica), directory, DESTINATION),
+				new SiteRegistration(Collections.singletonList(primary), directory, otherDestination));
+
+		final List<DeploymentResult> results = createDeployer(DeploymentOptions.builder(2)).deploy(futures(), sites);
+
+		assertEquals(3, results.size());
+		assertSuccessful(results.get(0), primary);
+		assertEquals(DESTINATION, results.get(0).getDestination());
+		assertSuccessful(results.get(1), replica);
+		assertEquals(DESTINATION, results.get(1).getDestination());
+		assertSame(primary, results.get(2).getTarget());
+		assertEquals(otherDestination, results.get(2).getDestination());
+		assertEquals("other/releases", results.get(2).getContent().getPrefix().get());
+		assertEquals(4, primaryContent.size());
+		assertEquals("plugin", primaryContent.get("other/releases/2.0.0/plugins/plugin.jar"));
+		assertEquals(2, replicaContent.size());
+		verify(primaryRepository).deleteDirectory(DESTINATION.asString());
+		verify(primaryRepository).deleteDirectory(otherDestination.asString());
+		verify(replicaRepository, never()).deleteDirectory(otherDestination.asString());
+	}
+
+	/**
+	 * Tests that a target whose repository could not be created fails without affecting the other targets.
+	 *
+	 * @throws InterruptedException Unexpected.
+	 */
+	@Test
+	public void testDeployRepositoryFailure() throws InterruptedException {
+		final AmazonClientException exception = new AmazonClientException("mock");
+		stubUploads(primaryRepository, primaryContent);
+		final Map<DeployTarget, Future<S3BucketRepository>> repositories = futures();
+		repositories.put(replica, Futures.<S3BucketRepository>immediateFailedFuture(exception));
+		final List<SiteRegistration> sites = Collections.singletonList(
+				new SiteRegistration(Arrays.asList(primary, replica), directory, DESTINATION));
+
+		final List<DeploymentResult> results = createDeployer(DeploymentOptions.builder(2)).deploy(repositories, sites);
+
+		assertSuccessful(results.get(0), primary);
+		assertSame(replica, results.get(1).getTarget());
+		assertEquals(0, results.get(1).getFilesUploaded());
+		assertSame(exception, results.get(1).getFailure().get());
+	}
+
+	private FanOutDeployer createDeployer(final DeploymentOptions.Builder options) {
+		return new FanOutDeployer(bucketTrieFactory, new ETagCalculator(), options.build());
+	}
+
+	private Map<DeployTarget, Future<S3BucketRepository>> futures() {
+		final Map<DeployTarget, Future<S3BucketRepository>> futures =
+				new LinkedHashMap<DeployTarget, Future<S3BucketRepository>>();
+		for (final Map.Entry<DeployTarget, S3BucketRepository> entry : targets.entrySet()) {
+			futures.put(entry.getKey(), Futures.immediateFuture(entry.getValue()));
+		}
+		return futures;
+	}
+
+	private void assertSuccessful(final DeploymentResult result, final DeployTarget target) {
+		assertSame(target, result.getTarget());
+		assertFalse(result.getFailure().isPresent());
+		assertEquals(2, result.getFilesUploaded());
+		assertEquals("project/releases", result.getContent().getPrefix().get());
+		assertFalse(result.getContent().isEmpty());
+	}
+
+	private void stubUploads(final S3BucketRepository repository, final Map<String, String> content) {
+		when(repository.uploadFile(any(File.class), any(ByteBuffer.class), any(BucketPath.class)))
+				.thenAnswer(new Answer<String>() {
+					@Override
+					public String answer(final InvocationOnMock invocation) {
+						final ByteBuffer buffer = invocation.getArgument(1);
+						final byte[] bytes = new byte[buffer.remaining()];
+						buffer.get(bytes);
+						final String key = invocation.<BucketPath>getArgument(2).asString();
+						content.put(key, new String(bytes, StandardCharsets.UTF_8));
+						return key;
+					}
+				});
+		when(repository.getHostingUrl(anyString())).thenReturn("http://example.com");
+	}
+
+}
@@ -0,0 +1,24 @@
+package com.avojak.mojo.aws.p2.maven.plugin.deploy;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Test class for {@link PurgeResult}.
+ */
+public class PurgeResultTest {
+
+	/**
+	 * Tests the getters.
+	 */
+	@Test
+	public void testGetters() {
+		final PurgeResult result = new PurgeResult(3, 2, 1024);
+
+		assertEquals(3, result.getVersionsDeleted());
+		assertEquals(2, result.getDeleteMarkersDeleted());
+		assertEquals(1024, result.getBytesReclaimed());
+	}
+
+}
@@ -0,0 +1,120 @@
+package com.avojak.mojo.aws.p2.maven.plugin.deploy;
+
+import com.avojak.mojo.aws.p2.maven.plugin.s3.model.BucketPath;
+import com.google.common.base.Optional;
+import org.junit.Test;
+
+import java.io.File;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Test class for {@link ReactorSiteRegistry}.
+ */
+public class ReactorSiteRegistryTest {
+
+	private final SiteRegistration site1 = createSite("one");
+	private final SiteRegistration site2 = createSite("two");
+	private final ReactorSiteRegistry registry = ReactorSiteRegistry.forSession(new Object());
+
+	/**
+	 * Tests that {@link ReactorSiteRegistry#forSession(Object)} throws an exception when the given session is {@code
+	 * null}.
+	 */
+	@Test(expected = NullPointerException.class)
+	public void testForSessionNullSession() {
+		ReactorSiteRegistry.forSession(null);
+	}
+
+	/**
+	 * Tests that {@link ReactorSiteRegistry#forSession(Object)} returns one registry per session.
+	 */
+	@Test
+	public void testForSession() {
+		final Object session = new Object();
+
+		assertSame(ReactorSiteRegistry.forSession(session), ReactorSiteRegistry.forSession(session));
+		assertNotSame(ReactorSiteRegistry.forSession(session), ReactorSiteRegistry.forSession(new Object()));
+	}
+
+	/**
+	 * Tests that {@link ReactorSiteRegistry#register(String, Optional, int)} throws an exception when the given project
+	 * ID is empty.
+	 */
+	@Test(expected = IllegalArgumentException.class)
+	public void testRegisterEmptyProjectId() {
+		registry.register(" ", Optional.of(site1), 1);
+	}
+
+	/**
+	 * Tests that {@link ReactorSiteRegistry#register(String, Optional, int)} throws an exception when the given site is
+	 * {@code null}.
+	 */
+	@Test(expected = NullPointerException.class)
+	public void testRegisterNullSite() {
+		registry.register("one", null, 1);
+	}
+
+	/**
+	 * Tests that {@link ReactorSiteRegistry#register(String, Optional, int)} throws an exception when the expected
+	 * number of projects is not positive.
+	 */
+	@Test(expected = IllegalArgumentException.class)
+	public void testRegisterInvalidExpectedProjects() {
+		registry.register("one", Optional.of(site1), 0);
+	}
+
+	/**
+	 * Tests that every site is returned to the registration which completes the registry, including the sites of
+	 * projects registered earlier, and that skipped projects count towards completion.
+	 */
+	@Test
+	public void testRegister() {
+		assertFalse(registry.register("one", Optional.of(site1), 3).isPresent());
+		assertFalse(registry.register("skipped", Optional.<SiteRegistration>absent(), 3).isPresent());
+		// Registering the same project twice must not complete the registry early
+		assertFalse(registry.register("one", Optional.<SiteRegistration>absent(), 3).isPresent());
+
+		final Optional<List<SiteRegistration>> sites = registry.register("two", Optional.of(site2), 3);
+
+		assertTrue(sites.isPresent());
+		assertEquals(Arrays.asList(site1, site2), sites.get());
+	}
+
+	/**
+	 * Tests that sites registered after the registry has completed are returned straight back to their caller.
+	 */
+	@Test
+	public void testRegisterAfterComplete() {
+		assertEquals(Collections.singletonList(site1), registry.register("one", Optional.of(site1), 1).get());
+
+		assertEquals(Collections.singletonList(site2), registry.register("two", Optional.of(site2), 1).get());
+		assertTrue(registry.register("three", Optional.<SiteRegistration>absent(), 1).get().isEmpty());
+	}
+
+	/**
+	 * Tests that {@link ReactorSiteRegistry#getRegisteredProjectCount()} counts each registered project once.
+	 */
+	@Test
+	public void testGetRegisteredProjectCount() {
+		assertEquals(0, registry.getRegisteredProjectCount());
+		registry.register("one", Optional.of(site1), 3);
+		registry.register("one", Optional.<SiteRegistration>absent(), 3);
+		registry.register("skipped", Optional.<SiteRegistration>absent(), 3);
+
+		assertEquals(2, registry.getRegisteredProjectCount());
+	}
+
+	private static SiteRegistration createSite(final String name) {
+		return new SiteRegistration(Collections.singletonList(new DeployTarget("mock", null, null)),
+				new File("target", name), new BucketPath().append(name));
+	}
+
+}
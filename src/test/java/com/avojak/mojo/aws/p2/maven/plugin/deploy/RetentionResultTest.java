@@ -0,0 +1,43 @@
+package com.avojak.mojo.aws.p2.maven.plugin.deploy;
+
+import org.junit.Test;
+
+import java.util.Collections;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Test class for {@link RetentionResult}.
+ */
+public class RetentionResultTest {
+
+	/**
+	 * Tests that the constructor throws an exception when the given versions are {@code null}.
+	 */
+	@Test(expected = NullPointerException.class)
+	public void testConstructorNullVersionsRemoved() {
+		new RetentionResult(null, 0, 0);
+	}
+
+	/**
+	 * Tests the getters.
+	 */
+	@Test
+	public void testGetters() {
+		final RetentionResult result = new RetentionResult(Collections.singletonList("project/1.0.0-SNAPSHOT/"), 3,
+				1024);
+
+		assertEquals(Collections.singletonList("project/1.0.0-SNAPSHOT/"), result.getVersionsRemoved());
+		assertEquals(3, result.getObjectsDeleted());
+		assertEquals(1024, result.getBytesReclaimed());
+	}
+
+	/**
+	 * Tests that the versions removed cannot be modified.
+	 */
+	@Test(expected = UnsupportedOperationException.class)
+	public void testGetVersionsRemovedUnmodifiable() {
+		new RetentionResult(Collections.<String>emptyList(), 0, 0).getVersionsRemoved().add("mock");
+	}
+
+}
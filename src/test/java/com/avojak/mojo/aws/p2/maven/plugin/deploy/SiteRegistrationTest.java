@@ -0,0 +1,99 @@
+package com.avojak.mojo.aws.p2.maven.plugin.deploy;
+
+import com.avojak.mojo.aws.p2.maven.plugin.s3.model.BucketPath;
+import org.junit.Test;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import static java.util.Collections.singletonList;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Test class for {@link SiteRegistration}.
+ */
+public class SiteRegistrationTest {
+
+	private final DeployTarget target = new DeployTarget("mock", null, null);
+	private final File directory = new File("target", "repository");
+	private final BucketPath destination = new BucketPath().append("Mock").append("releases").append("1.0.0");
+
+	/**
+	 * Tests that the constructor throws an exception when the given targets are {@code null}.
+	 */
+	@Test(expected = NullPointerException.class)
+	public void testConstructorNullTargets() {
+		new SiteRegistration(null, directory, destination);
+	}
+
+	/**
+	 * Tests that the constructor throws an exception when the given targets are empty.
+	 */
+	@Test(expected = IllegalArgumentException.class)
+	public void testConstructorEmptyTargets() {
+		new SiteRegistration(Collections.<DeployTarget>emptyList(), directory, destination);
+	}
+
+	/**
+	 * Tests that the constructor throws an exception when the given directory is {@code null}.
+	 */
+	@Test(expected = NullPointerException.class)
+	public void testConstructorNullDirectory() {
+		new SiteRegistration(singletonList(target), null, destination);
+	}
+
+	/**
+	 * Tests that the constructor throws an exception when the given destination is {@code null}.
+	 */
+	@Test(expected = NullPointerException.class)
+	public void testConstructorNullDestination() {
+		new SiteRegistration(singletonList(target), directory, null);
+	}
+
+	/**
+	 * Tests the getters.
+	 */
+	@Test
+	public void testGetters() {
+		final SiteRegistration site = new SiteRegistration(singletonList(target), directory, destination, "mock-project",
+				true);
+
+		assertEquals(singletonList(target), site.getTargets());
+		assertSame(directory, site.getDirectory());
+		assertEquals(destination, site.getDestination());
+		assertEquals("mock-project", site.getArtifactId());
+		assertTrue(site.isGenerateLandingPage());
+	}
+
+	/**
+	 * Tests that the site is not affected by later changes to the arguments.
+	 */
+	@Test
+	public void testDefensiveCopies() {
+		final List<DeployTarget> targets = new ArrayList<DeployTarget>(singletonList(target));
+		final BucketPath path = new BucketPath().append("Mock");
+		final SiteRegistration site = new SiteRegistration(targets, directory, path);
+		targets.clear();
+		path.append("releases");
+
+		assertEquals(singletonList(target), site.getTargets());
+		assertEquals("Mock", site.getDestination().asString());
+		assertNull(site.getArtifactId());
+		assertFalse(site.isGenerateLandingPage());
+	}
+
+	/**
+	 * Tests that the targets cannot be modified.
+	 */
+	@Test(expected = UnsupportedOperationException.class)
+	public void testTargetsUnmodifiable() {
+		new SiteRegistration(singletonList(target), directory, destination).getTargets().clear();
+	}
+
+}
@@ -0,0 +1,255 @@
+package com.avojak.mojo.aws.p2.maven.plugin.deploy;
+
+import com.amazonaws.services.s3.model.S3ObjectSummary;
+import com.avojak.mojo.aws.p2.maven.plugin.s3.model.BucketPath;
+import com.avojak.mojo.aws.p2.maven.plugin.s3.model.trie.Trie;
+import com.avojak.mojo.aws.p2.maven.plugin.s3.model.trie.impl.BucketTrieFactory;
+import com.avojak.mojo.aws.p2.maven.plugin.s3.repository.S3BucketRepository;
+import com.avojak.mojo.aws.p2.maven.plugin.util.FileSystemTestUtil;
+import com.avojak.mojo.aws.p2.maven.plugin.util.checksum.ETagCalculator;
+import com.google.common.util.concurrent.UncheckedExecutionException;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.junit.MockitoJUnitRunner;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import static java.util.Arrays.asList;
+import static java.util.Collections.singletonList;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyZeroInteractions;
+import static org.mockito.Mockito.when;
+
+/**
+ * Test class for {@link SiteVerifier}.
+ */
+@RunWith(MockitoJUnitRunner.class)
+public class SiteVerifierTest {
+
+	private static final BucketPath DESTINATION = new BucketPath().append("project").append("releases")
+			.append("1.0.0");
+	private static final String PREFIX = DESTINATION.asString() + BucketPath.PATH_DELIM;
+
+	@Mock
+	private S3BucketRepository repository;
+
+	private final ETagCalculator eTagCalculator = new ETagCalculator();
+	private final List<S3ObjectSummary> summaries = new ArrayList<S3ObjectSummary>();
+
+	private File directory;
+	private Trie<String, String> content;
+
+	/**
+	 * Setup the site directory.
+	 *
+	 * @throws IOException Unexpected.
+	 */
+	@Before
+	public void setup() throws IOException {
+		directory = FileSystemTestUtil.createAccessibleDirectory();
+		content = new BucketTrieFactory().create(DESTINATION.getParent().get());
+	}
+
+	/**
+	 * Tests that the constructor throws an exception when the given calculator is {@code null}.
+	 */
+	@Test(expected = NullPointerException.class)
+	public void testConstructorNullETagCalculator() {
+		new SiteVerifier(null, 1);
+	}
+
+	/**
+	 * Tests that the constructor throws an exception when the given concurrency is not positive.
+	 */
+	@Test(expected = IllegalArgumentException.class)
+	public void testConstructorZeroConcurrency() {
+		new SiteVerifier(eTagCalculator, 0);
+	}
+
+	/**
+	 * Tests that {@link SiteVerifier#verify(S3BucketRepository, Trie, File, BucketPath)} throws an exception when the
+	 * given repository is {@code null}.
+	 */
+	@Test(expected = NullPointerException.class)
+	public void testVerifyNullRepository() {
+		new SiteVerifier(eTagCalculator, 1).verify(null, content, directory, DESTINATION);
+	}
+
+	/**
+	 * Tests that {@link SiteVerifier#verify(S3BucketRepository, Trie, File, BucketPath)} throws an exception when the
+	 * given content is {@code null}.
+	 */
+	@Test(expected = NullPointerException.class)
+	public void testVerifyNullContent() {
+		new SiteVerifier(eTagCalculator, 1).verify(repository, null, directory, DESTINATION);
+	}
+
+	/**
+	 * Tests that {@link SiteVerifier#verify(S3BucketRepository, Trie, File, BucketPath)} throws an exception when the
+	 * given directory is {@code null}.
+	 */
+	@Test(expected = NullPointerException.class)
+	public void testVerifyNullDirectory() {
+		new SiteVerifier(eTagCalculator, 1).verify(repository, content, null, DESTINATION);
+	}
+
+	/**
+	 * Tests that {@link SiteVerifier#verify(S3BucketRepository, Trie, File, BucketPath)} throws an exception when the
+	 * given destination is {@code null}.
+	 */
+	@Test(expected = NullPointerException.class)
+	public void testVerifyNullDestination() {
+		new SiteVerifier(eTagCalculator, 1).verify(repository, content, directory, null);
+	}
+
+	/**
+	 * Tests that {@link SiteVerifier#verify(S3BucketRepository, Trie, File, BucketPath)} succeeds when every object
+	 * matches its local file.
+	 *
+	 * @throws IOException Unexpected.
+	 */
+	@Test
+	public void testVerify() throws IOException {
+		addFile("content.xml", "content", "content");
+		addFile("plugins/a.jar", "a", "a");
+		when(repository.iterate(PREFIX)).thenReturn(summaries);
+
+		final VerificationResult result = new SiteVerifier(eTagCalculator, 2).verify(repository, content, directory,
+				DESTINATION);
+
+		assertTrue(result.isVerified());
+		assertEquals(2, result.getObjectsVerified());
+	}
+
+	/**
+	 * Tests that {@link SiteVerifier#verify(S3BucketRepository, Trie, File, BucketPath)} reports the objects which do
+	 * not exist, and those whose size or entity tag does not match their local file.
+	 *
+	 * @throws IOException Unexpected.
+	 */
+	@Test
+	public void testVerifyMissingAndMismatched() throws IOException {
+		addFile("content.xml", "content", "CONTENT");
+		addFile("plugins/a.jar", "a", null);
+		addFile("plugins/b.jar", "b", "bb");
+		addFile("plugins/c.jar", "c", "c");
+		when(repository.iterate(PREFIX)).thenReturn(summaries);
+
+		final VerificationResult result = new SiteVerifier(eTagCalculator, 2).verify(repository, content, directory,
+				DESTINATION);
+
+		assertFalse(result.isVerified());
+		assertEquals(4, result.getObjectsVerified());
+		assertEquals(singletonList(PREFIX + "plugins/a.jar"), result.getMissing());
+		assertEquals(asList(PREFIX + "content.xml", PREFIX + "plugins/b.jar"), result.getMismatched());
+	}
+
+	/**
+	 * Tests that {@link SiteVerifier#verify(S3BucketRepository, Trie, File, BucketPath)} ignores objects which are not
+	 * behind the destination, and makes no requests when nothing is left to verify.
+	 */
+	@Test
+	public void testVerifyNothingToVerify() {
+		content.insert("project/releases/index.html", "http://index");
+
+		final VerificationResult result = new SiteVerifier(eTagCalculator, 2).verify(repository, content, directory,
+				DESTINATION);
+
+		assertTrue(result.isVerified());
+		assertEquals(0, result.getObjectsVerified());
+		verifyZeroInteractions(repository);
+	}
+
+	/**
+	 * Tests that {@link SiteVerifier#verify(S3BucketRepository, Trie, File, BucketPath)} throws an exception when a
+	 * local file could not be read.
+	 *
+	 * @throws IOException Unexpected.
+	 */
+	@Test(expected = UncheckedExecutionException.class)
+	public void testVerifyUnreadableFile() throws IOException {
+		addFile("content.xml", "content", "content");
+		// The size matches, so the entity tag of the missing local file is calculated
+		Files.delete(new File(directory, "content.xml").toPath());
+		summaries.get(0).setSize(0);
+		when(repository.iterate(PREFIX)).thenReturn(summaries);
+
+		new SiteVerifier(eTagCalculator, 1).verify(repository, content, directory, DESTINATION);
+	}
+
+	/**
+	 * Tests that {@link SiteVerifier#verify(S3BucketRepository, Trie, File, BucketPath)} discovers the remote state
+	 * with a single listing of the destination.
+	 *
+	 * @throws IOException Unexpected.
+	 */
+	@Test
+	public void testVerifyListsDestination() throws IOException {
+		addFile("content.xml", "content", "content");
+		when(repository.iterate(PREFIX)).thenReturn(summaries);
+
+		new SiteVerifier(eTagCalculator, 1).verify(repository, content, directory, DESTINATION);
+
+		verify(repository).iterate(PREFIX);
+	}
+
+	/**
+	 * Tests {@link SiteVerifier#getKeys(Trie)}.
+	 */
+	@Test
+	public void testGetKeys() {
+		content.insert(PREFIX + "plugins/b.jar", "http://b");
+		content.insert(PREFIX + "content.xml", "http://content");
+		content.insert(PREFIX + "plugins/a.jar", "http://a");
+
+		assertEquals(asList(PREFIX + "content.xml", PREFIX + "plugins/a.jar", PREFIX + "plugins/b.jar"),
+				SiteVerifier.getKeys(content));
+	}
+
+	/**
+	 * Tests {@link SiteVerifier#getKeys(Trie)} for a trie without a prefix.
+	 */
+	@Test
+	public void testGetKeysNoPrefix() {
+		final Trie<String, String> trie = new BucketTrieFactory().create();
+		trie.insert("project/content.xml", "http://content");
+
+		assertEquals(singletonList("project/content.xml"), SiteVerifier.getKeys(trie));
+		assertEquals(Collections.<String>emptyList(), SiteVerifier.getKeys(new BucketTrieFactory().create()));
+	}
+
+	/**
+	 * Writes a local file, inserts its key into the content trie and, unless the remote content is {@code null}, adds
+	 * a remote object with the given content.
+	 */
+	private void addFile(final String path, final String localContent, final String remoteContent)
+			throws IOException {
+		final File file = new File(directory, path);
+		Files.createDirectories(file.getParentFile().toPath());
+		Files.write(file.toPath(), localContent.getBytes(StandardCharsets.UTF_8));
+		final String key = PREFIX + path;
+		content.insert(key, "http://" + path);
+		if (remoteContent == null) {
+			return;
+		}
+		final File remote = FileSystemTestUtil.createAccessibleFile();
+		Files.write(remote.toPath(), remoteContent.getBytes(StandardCharsets.UTF_8));
+		final S3ObjectSummary summary = new S3ObjectSummary();
+		summary.setKey(key);
+		summary.setSize(remote.length());
+		summary.setETag(eTagCalculator.calculate(remote));
+		summaries.add(summary);
+	}
+
+}
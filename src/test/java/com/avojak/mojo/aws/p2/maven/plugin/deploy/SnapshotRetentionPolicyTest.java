@@ -0,0 +1,276 @@
+package com.avojak.mojo.aws.p2.maven.plugin.deploy;
+
+import com.amazonaws.AmazonClientException;
+import com.amazonaws.services.s3.model.S3ObjectSummary;
+import com.avojak.mojo.aws.p2.maven.plugin.s3.model.BucketPath;
+import com.avojak.mojo.aws.p2.maven.plugin.s3.repository.S3BucketRepository;
+import com.avojak.mojo.aws.p2.maven.plugin.s3.request.factory.delete.DeleteObjectRequestFactory;
+import com.google.common.util.concurrent.UncheckedExecutionException;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.MockitoJUnitRunner;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Date;
+import java.util.HashSet;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static java.util.Arrays.asList;
+import static java.util.Collections.singletonList;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyZeroInteractions;
+import static org.mockito.Mockito.when;
+
+/**
+ * Test class for {@link SnapshotRetentionPolicy}.
+ */
+@RunWith(MockitoJUnitRunner.class)
+public class SnapshotRetentionPolicyTest {
+
+	private static final long DAY = TimeUnit.DAYS.toMillis(1);
+	private static final long NOW = 100 * DAY;
+	private static final String VERSIONS = "project/snapshots/";
+	private static final BucketPath DESTINATION = new BucketPath().append("project").append("snapshots")
+			.append("1.3.0-SNAPSHOT");
+	private static final String CURRENT = VERSIONS + "1.3.0-SNAPSHOT/";
+	private static final String NEWER = VERSIONS + "1.2.0-SNAPSHOT/";
+	private static final String OLDER = VERSIONS + "1.1.0-SNAPSHOT/";
+	private static final String OLDEST = VERSIONS + "1.0.0-SNAPSHOT/";
+
+	@Mock
+	private S3BucketRepository repository;
+
+	/**
+	 * Tests that the constructor throws an exception when the given number of versions is negative.
+	 */
+	@Test(expected = IllegalArgumentException.class)
+	public void testConstructorNegativeKeepCount() {
+		new SnapshotRetentionPolicy(-1, 0, 1, 0);
+	}
+
+	/**
+	 * Tests that the constructor throws an exception when the given number of days is negative.
+	 */
+	@Test(expected = IllegalArgumentException.class)
+	public void testConstructorNegativeMaxAgeDays() {
+		new SnapshotRetentionPolicy(0, -1, 1, 0);
+	}
+
+	/**
+	 * Tests that the constructor throws an exception when the given concurrency is not positive.
+	 */
+	@Test(expected = IllegalArgumentException.class)
+	public void testConstructorZeroConcurrency() {
+		new SnapshotRetentionPolicy(1, 0, 0, 0);
+	}
+
+	/**
+	 * Tests that the constructor throws an exception when the given listing shard depth is negative.
+	 */
+	@Test(expected = IllegalArgumentException.class)
+	public void testConstructorNegativeListingShardDepth() {
+		new SnapshotRetentionPolicy(1, 0, 1, -1);
+	}
+
+	/**
+	 * Tests {@link SnapshotRetentionPolicy#isEnabled()}.
+	 */
+	@Test
+	public void testIsEnabled() {
+		assertFalse(new SnapshotRetentionPolicy(0, 0, 1, 0).isEnabled());
+		assertTrue(new SnapshotRetentionPolicy(1, 0, 1, 0).isEnabled());
+		assertTrue(new SnapshotRetentionPolicy(0, 1, 1, 0).isEnabled());
+	}
+
+	/**
+	 * Tests that {@link SnapshotRetentionPolicy#apply(S3BucketRepository, BucketPath, long)} throws an exception when
+	 * the given repository is {@code null}.
+	 */
+	@Test(expected = NullPointerException.class)
+	public void testApplyNullRepository() {
+		new SnapshotRetentionPolicy(1, 0, 1, 0).apply(null, DESTINATION, NOW);
+	}
+
+	/**
+	 * Tests that {@link SnapshotRetentionPolicy#apply(S3BucketRepository, BucketPath, long)} throws an exception when
+	 * the given destination is {@code null}.
+	 */
+	@Test(expected = NullPointerException.class)
+	public void testApplyNullDestination() {
+		new SnapshotRetentionPolicy(1, 0, 1, 0).apply(repository, null, NOW);
+	}
+
+	/**
+	 * Tests that {@link SnapshotRetentionPolicy#apply(S3BucketRepository, BucketPath, long)} does nothing when the
+	 * policy is not enabled.
+	 */
+	@Test
+	public void testApplyDisabled() {
+		final RetentionResult result = new SnapshotRetentionPolicy(0, 0, 1, 0).apply(repository, DESTINATION, NOW);
+
+		assertTrue(result.getVersionsRemoved().isEmpty());
+		verifyZeroInteractions(repository);
+	}
+
+	/**
+	 * Tests that {@link SnapshotRetentionPolicy#apply(S3BucketRepository, BucketPath, long)} keeps the given number
+	 * of most recent versions, counting the deployed version, and lists only the versions which it deletes.
+	 */
+	@Test
+	public void testApplyKeepCount() {
+		when(repository.listDirectories(VERSIONS)).thenReturn(asList(OLDEST, OLDER, CURRENT, NEWER));
+		when(repository.iterate(OLDEST)).thenReturn(asList(createSummary(OLDEST + "content.xml", 10 * DAY, 100),
+				createSummary(OLDEST + "plugins/plugin.jar", 10 * DAY, 1000)));
+		when(repository.iterate(OLDER)).thenReturn(singletonList(createSummary(OLDER + "content.xml", 20 * DAY, 50)));
+		when(repository.iterate(NEWER)).thenReturn(singletonList(createSummary(NEWER + "content.xml", 30 * DAY, 50)));
+
+		final RetentionResult result = new SnapshotRetentionPolicy(2, 0, 4, 0).apply(repository, DESTINATION, NOW);
+
+		assertEquals(asList(OLDER, OLDEST), result.getVersionsRemoved());
+		assertEquals(3, result.getObjectsDeleted());
+		assertEquals(1150, result.getBytesReclaimed());
+		verify(repository).deleteObjects(asList(OLDEST + "content.xml", OLDEST + "plugins/plugin.jar"));
+		verify(repository).deleteObjects(singletonList(OLDER + "content.xml"));
+		verify(repository, never()).iterate(CURRENT);
+	}
+
+	/**
+	 * Tests that {@link SnapshotRetentionPolicy#apply(S3BucketRepository, BucketPath, long)} removes the versions
+	 * last deployed longer ago than the given number of days, and versions which contain no objects.
+	 */
+	@Test
+	public void testApplyMaxAge() {
+		when(repository.listDirectories(VERSIONS)).thenReturn(asList(OLDEST, OLDER, CURRENT, NEWER));
+		when(repository.iterate(OLDEST)).thenReturn(Collections.<S3ObjectSummary>emptyList());
+		when(repository.iterate(OLDER)).thenReturn(singletonList(createSummary(OLDER + "content.xml", 80 * DAY, 50)));
+		when(repository.iterate(NEWER)).thenReturn(singletonList(createSummary(NEWER + "content.xml", 95 * DAY, 50)));
+
+		final RetentionResult result = new SnapshotRetentionPolicy(0, 10, 1, 0).apply(repository, DESTINATION, NOW);
+
+		assertEquals(asList(OLDER, OLDEST), result.getVersionsRemoved());
+		assertEquals(1, result.getObjectsDeleted());
+		assertEquals(50, result.getBytesReclaimed());
+		verify(repository).deleteObjects(singletonList(OLDER + "content.xml"));
+	}
+
+	/**
+	 * Tests that {@link SnapshotRetentionPolicy#apply(S3BucketRepository, BucketPath, long)} deletes the objects of a
+	 * version in batches of at most {@link DeleteObjectRequestFactory#MAX_KEYS_PER_REQUEST} keys.
+	 */
+	@Test
+	public void testApplyBatches() {
+		final List<S3ObjectSummary> summaries = new ArrayList<S3ObjectSummary>();
+		final List<String> keys = new ArrayList<String>();
+		for (int i = 0; i < DeleteObjectRequestFactory.MAX_KEYS_PER_REQUEST + 1; i++) {
+			summaries.add(createSummary(OLDEST + "plugins/" + i + ".jar", DAY, 1));
+			keys.add(OLDEST + "plugins/" + i + ".jar");
+		}
+		when(repository.listDirectories(VERSIONS)).thenReturn(asList(OLDEST, CURRENT));
+		when(repository.iterate(OLDEST)).thenReturn(summaries);
+
+		final RetentionResult result = new SnapshotRetentionPolicy(1, 0, 1, 0).apply(repository, DESTINATION, NOW);
+
+		assertEquals(DeleteObjectRequestFactory.MAX_KEYS_PER_REQUEST + 1, result.getObjectsDeleted());
+		assertEquals(DeleteObjectRequestFactory.MAX_KEYS_PER_REQUEST + 1, result.getBytesReclaimed());
+		verify(repository).deleteObjects(keys.subList(0, DeleteObjectRequestFactory.MAX_KEYS_PER_REQUEST));
+		verify(repository).deleteObjects(singletonList(keys.get(keys.size() - 1)));
+	}
+
+	/**
+	 * Tests that {@link SnapshotRetentionPolicy#apply(S3BucketRepository, BucketPath, long)} lists an expired version
+	 * in shards when a listing shard depth is given.
+	 */
+	@Test
+	public void testApplySharded() {
+		final S3ObjectSummary content = createSummary(OLDEST + "content.xml", DAY, 10);
+		final S3ObjectSummary plugin = createSummary(OLDEST + "plugins/plugin.jar", DAY, 100);
+		when(repository.listDirectories(VERSIONS)).thenReturn(asList(OLDEST, CURRENT));
+		when(repository.iterate(OLDEST)).thenReturn(asList(content, plugin));
+		when(repository.listDirectories(OLDEST)).thenReturn(singletonList(OLDEST + "plugins/"));
+		when(repository.iterateAfter(OLDEST, null)).thenReturn(asList(content, plugin));
+		when(repository.iterateAfter(OLDEST, OLDEST + "plugins/")).thenReturn(singletonList(plugin));
+		final ArgumentCaptor<Collection<String>> captor = ArgumentCaptor.forClass(Collection.class);
+
+		final RetentionResult result = new SnapshotRetentionPolicy(1, 0, 2, 1).apply(repository, DESTINATION, NOW);
+
+		assertEquals(singletonList(OLDEST), result.getVersionsRemoved());
+		assertEquals(2, result.getObjectsDeleted());
+		assertEquals(110, result.getBytesReclaimed());
+		verify(repository).deleteObjects(captor.capture());
+		assertEquals(new HashSet<String>(asList(OLDEST + "content.xml", OLDEST + "plugins/plugin.jar")),
+				new HashSet<String>(captor.getValue()));
+		// The version is only listed once to find its age
+		verify(repository, times(1)).iterate(OLDEST);
+	}
+
+	/**
+	 * Tests that {@link SnapshotRetentionPolicy#apply(S3BucketRepository, BucketPath, long)} deletes nothing when the
+	 * deployed version is the only version.
+	 */
+	@Test
+	public void testApplyOnlyDeployedVersion() {
+		when(repository.listDirectories(VERSIONS)).thenReturn(singletonList(CURRENT));
+
+		final RetentionResult result = new SnapshotRetentionPolicy(1, 1, 1, 0).apply(repository, DESTINATION, NOW);
+
+		assertTrue(result.getVersionsRemoved().isEmpty());
+		verify(repository, never()).iterate(anyString());
+		verify(repository, never()).deleteObjects(any(Collection.class));
+	}
+
+	/**
+	 * Tests that {@link SnapshotRetentionPolicy#apply(S3BucketRepository, BucketPath, long)} does nothing when the
+	 * destination has no parent directory.
+	 */
+	@Test
+	public void testApplyNoParent() {
+		final RetentionResult result = new SnapshotRetentionPolicy(1, 0, 1, 0).apply(repository,
+				new BucketPath().append("1.0.0-SNAPSHOT"), NOW);
+
+		assertTrue(result.getVersionsRemoved().isEmpty());
+		verifyZeroInteractions(repository);
+	}
+
+	/**
+	 * Tests that {@link SnapshotRetentionPolicy#apply(S3BucketRepository, BucketPath, long)} throws the failure of a
+	 * delete.
+	 */
+	@Test
+	public void testApplyDeleteFailure() {
+		final AmazonClientException exception = new AmazonClientException("mock");
+		when(repository.listDirectories(VERSIONS)).thenReturn(asList(OLDEST, CURRENT));
+		when(repository.iterate(OLDEST)).thenReturn(singletonList(createSummary(OLDEST + "content.xml", DAY, 1)));
+		doThrow(exception).when(repository).deleteObjects(singletonList(OLDEST + "content.xml"));
+
+		try {
+			new SnapshotRetentionPolicy(1, 0, 1, 0).apply(repository, DESTINATION, NOW);
+			fail("Expected exception not thrown");
+		} catch (final UncheckedExecutionException e) {
+			assertSame(exception, e.getCause());
+		}
+	}
+
+	private static S3ObjectSummary createSummary(final String key, final long lastModified, final long size) {
+		final S3ObjectSummary summary = new S3ObjectSummary();
+		summary.setKey(key);
+		summary.setLastModified(new Date(lastModified));
+		summary.setSize(size);
+		return summary;
+	}
+
+}
@@ -0,0 +1,233 @@
+package com.avojak.mojo.aws.p2.maven.plugin.deploy;
+
+import com.avojak.mojo.aws.p2.maven.plugin.s3.model.BucketPath;
+import com.avojak.mojo.aws.p2.maven.plugin.s3.repository.S3BucketRepository;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InOrder;
+import org.mockito.Mock;
+import org.mockito.junit.MockitoJUnitRunner;
+
+import java.io.File;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.inOrder;
+
+/**
+ * Test class for {@link StagedPublisher}.
+ */
+@RunWith(MockitoJUnitRunner.class)
+public class StagedPublisherTest {
+
+	private static final BucketPath DESTINATION = new BucketPath().append("project").append("releases").append("1.0.0");
+	private static final String STAGE_ID = "20200101-000000-abcdef12";
+
+	@Mock
+	private S3BucketRepository repository;
+
+	private final StagedPublisher publisher = new StagedPublisher(STAGE_ID, 1577836800000L);
+
+	/**
+	 * Tests that the constructor throws an exception when the given stage ID is {@code null}.
+	 */
+	@Test(expected = NullPointerException.class)
+	public void testConstructorNullStageId() {
+		new StagedPublisher(null, 0);
+	}
+
+	/**
+	 * Tests that the constructor throws an exception when the given stage ID is empty.
+	 */
+	@Test(expected = IllegalArgumentException.class)
+	public void testConstructorEmptyStageId() {
+		new StagedPublisher(" ", 0);
+	}
+
+	/**
+	 * Tests that {@link StagedPublisher#formatStageId(long, UUID)} formats the time in UTC followed by a random suffix.
+	 */
+	@Test
+	public void testFormatStageId() {
+		final UUID uuid = UUID.fromString("abcdef12-3456-7890-abcd-ef1234567890");
+
+		assertEquals(STAGE_ID, StagedPublisher.formatStageId(1577836800000L, uuid));
+	}
+
+	/**
+	 * Tests that {@link StagedPublisher#parseStageTimestamp(String)} parses the time formatted by {@link
+	 * StagedPublisher#formatStageId(long, UUID)}, and rejects identifiers which it did not format.
+	 */
+	@Test
+	public void testParseStageTimestamp() {
+		assertEquals(1577836800000L, StagedPublisher.parseStageTimestamp(STAGE_ID));
+		assertEquals(-1, StagedPublisher.parseStageTimestamp("old"));
+		assertEquals(-1, StagedPublisher.parseStageTimestamp("20201301-000000-abcdef12"));
+	}
+
+	/**
+	 * Tests that {@link StagedPublisher#getRetainedKeys(BucketPath, Collection, long, long)} throws an exception when
+	 * the given grace period is negative.
+	 */
+	@Test(expected = IllegalArgumentException.class)
+	public void testGetRetainedKeysNegativeGracePeriod() {
+		publisher.getRetainedKeys(DESTINATION, Collections.<String>emptyList(), 0, -1);
+	}
+
+	/**
+	 * Tests that {@link StagedPublisher#getRetainedKeys(BucketPath, Collection, long, long)} always retains the
+	 * previous stage, retains older stages which were superseded within the grace period, and never retains the new
+	 * stage or the flat site which was superseded by the first stage long ago.
+	 */
+	@Test
+	public void testGetRetainedKeys() {
+		final String prefix = DESTINATION.asString() + "/";
+		final String flat = prefix + "content.jar";
+		final String oldest = prefix + "staging/20191229-000000-aaaaaaaa/content.jar";
+		final String older = prefix + "staging/20191231-230000-bbbbbbbb/content.jar";
+		final String previous = prefix + "staging/20191231-233000-cccccccc/content.jar";
+		final String current = prefix + "staging/" + STAGE_ID + "/content.jar";
+		// The stage which superseded the older stage started 30 minutes before the end of the grace period
+		final long now = 1577836800000L;
+
+		assertEquals(new LinkedHashSet<String>(Arrays.asList(older, previous)),
+				publisher.getRetainedKeys(DESTINATION, Arrays.asList(flat, oldest, older, previous, current), now,
+						TimeUnit.HOURS.toMillis(1)));
+		assertEquals(Collections.singleton(previous), publisher.getRetainedKeys(DESTINATION,
+				Arrays.asList(flat, oldest, older, previous, current), now, 0));
+	}
+
+	/**
+	 * Tests that {@link StagedPublisher#getRetainedKeys(BucketPath, Collection, long, long)} retains the objects of a
+	 * flat deployment when no stage precedes the new stage, since they are the previous site.
+	 */
+	@Test
+	public void testGetRetainedKeysFlatPrevious() {
+		final String flat = DESTINATION.asString() + "/content.jar";
+
+		assertEquals(Collections.singleton(flat), publisher.getRetainedKeys(DESTINATION,
+				Collections.singletonList(flat), 1577836800000L, 0));
+	}
+
+	/**
+	 * Tests that {@link StagedPublisher#getRetainedKeys(BucketPath, Collection, long, long)} retains a site whose
+	 * successor cannot be dated.
+	 */
+	@Test
+	public void testGetRetainedKeysUndatedSuccessor() {
+		final String prefix = DESTINATION.asString() + "/staging/";
+		final String older = prefix + "20191201-000000-aaaaaaaa/content.jar";
+		final String undated = prefix + "custom/content.jar";
+		final String previous = prefix + "z-previous/content.jar";
+
+		assertEquals(new LinkedHashSet<String>(Arrays.asList(older, undated, previous)), publisher.getRetainedKeys(
+				DESTINATION, Arrays.asList(older, undated, previous), 1577836800000L, 0));
+	}
+
+	/**
+	 * Tests that {@link StagedPublisher#getStagingDestination(BucketPath)} throws an exception when the given
+	 * destination is {@code null}.
+	 */
+	@Test(expected = NullPointerException.class)
+	public void testGetStagingDestinationNullDestination() {
+		publisher.getStagingDestination(null);
+	}
+
+	/**
+	 * Tests {@link StagedPublisher#getStagingDestination(BucketPath)}.
+	 */
+	@Test
+	public void testGetStagingDestination() {
+		assertEquals("project/releases/1.0.0/staging/" + STAGE_ID,
+				publisher.getStagingDestination(DESTINATION).asString());
+		assertEquals("project/releases/1.0.0", DESTINATION.asString());
+	}
+
+	/**
+	 * Tests {@link StagedPublisher#getPointerKeys(BucketPath)}.
+	 */
+	@Test
+	public void testGetPointerKeys() {
+		assertEquals(new LinkedHashSet<String>(Arrays.asList("project/releases/1.0.0/compositeArtifacts.xml",
+				"project/releases/1.0.0/compositeContent.xml", "project/releases/1.0.0/p2.index")),
+				publisher.getPointerKeys(DESTINATION));
+	}
+
+	/**
+	 * Tests that {@link StagedPublisher#publish(S3BucketRepository, BucketPath, String)} throws an exception when the
+	 * given repository is {@code null}.
+	 */
+	@Test(expected = NullPointerException.class)
+	public void testPublishNullRepository() {
+		publisher.publish(null, DESTINATION, "mock");
+	}
+
+	/**
+	 * Tests that {@link StagedPublisher#publish(S3BucketRepository, BucketPath, String)} throws an exception when the
+	 * given destination is {@code null}.
+	 */
+	@Test(expected = NullPointerException.class)
+	public void testPublishNullDestination() {
+		publisher.publish(repository, null, "mock");
+	}
+
+	/**
+	 * Tests that {@link StagedPublisher#publish(S3BucketRepository, BucketPath, String)} throws an exception when the
+	 * given name is empty.
+	 */
+	@Test(expected = IllegalArgumentException.class)
+	public void testPublishEmptyName() {
+		publisher.publish(repository, DESTINATION, " ");
+	}
+
+	/**
+	 * Tests that {@link StagedPublisher#publish(S3BucketRepository, BucketPath, String)} points the composite
+	 * repositories at the stage, switching the artifacts before the metadata, and then writes the index.
+	 */
+	@Test
+	public void testPublish() {
+		final ArgumentCaptor<ByteBuffer> captor = ArgumentCaptor.forClass(ByteBuffer.class);
+
+		publisher.publish(repository, DESTINATION, "mock & co");
+
+		final InOrder inOrder = inOrder(repository);
+		inOrder.verify(repository).uploadFile(any(File.class), captor.capture(),
+				eq(new BucketPath(DESTINATION).append("compositeArtifacts.xml")));
+		inOrder.verify(repository).uploadFile(any(File.class), captor.capture(),
+				eq(new BucketPath(DESTINATION).append("compositeContent.xml")));
+		inOrder.verify(repository).uploadFile(any(File.class), captor.capture(),
+				eq(new BucketPath(DESTINATION).append("p2.index")));
+		final String artifacts = decode(captor.getAllValues().get(0));
+		final String content = decode(captor.getAllValues().get(1));
+		assertTrue(artifacts.contains("<?compositeArtifactRepository version='1.0.0'?>"));
+		assertTrue(artifacts.contains("type='org.eclipse.equinox.internal.p2.artifact.repository"
+				+ ".CompositeArtifactRepository'"));
+		assertTrue(content.contains("<?compositeMetadataRepository version='1.0.0'?>"));
+		assertTrue(content.contains("type='org.eclipse.equinox.internal.p2.metadata.repository"
+				+ ".CompositeMetadataRepository'"));
+		for (final String composite : Arrays.asList(artifacts, content)) {
+			assertTrue(composite.contains("name='mock &amp; co'"));
+			assertTrue(composite.contains("<property name='p2.timestamp' value='1577836800000'/>"));
+			assertTrue(composite.contains("<child location='staging/" + STAGE_ID + "'/>"));
+		}
+		assertEquals("version=1\n"
+				+ "metadata.repository.factory.order=compositeContent.xml,\\!\n"
+				+ "artifact.repository.factory.order=compositeArtifacts.xml,\\!\n", decode(captor.getAllValues().get(2)));
+	}
+
+	private static String decode(final ByteBuffer buffer) {
+		return StandardCharsets.UTF_8.decode(buffer.duplicate()).toString();
+	}
+
+}
@@ -0,0 +1,243 @@
+package com.avojak.mojo.aws.p2.maven.plugin.deploy;
+
+import com.amazonaws.AmazonClientException;
+import com.amazonaws.services.s3.model.S3ObjectSummary;
+import com.avojak.mojo.aws.p2.maven.plugin.s3.model.BucketPath;
+import com.avojak.mojo.aws.p2.maven.plugin.s3.repository.S3BucketRepository;
+import com.avojak.mojo.aws.p2.maven.plugin.util.FileSystemTestUtil;
+import com.google.common.util.concurrent.Futures;
+import com.google.common.util.concurrent.MoreExecutors;
+import com.google.common.util.concurrent.UncheckedExecutionException;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.junit.MockitoJUnitRunner;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Test class for {@link StaleObjectPruner}.
+ */
+@RunWith(MockitoJUnitRunner.class)
+public class StaleObjectPrunerTest {
+
+	private static final BucketPath DESTINATION = new BucketPath().append("project").append("releases").append("1.0.0");
+	private static final String PREFIX = "project/releases/1.0.0/";
+
+	@Mock
+	private S3BucketRepository repository;
+
+	private final ExecutorService executor = MoreExecutors.newDirectExecutorService();
+
+	private Future<S3BucketRepository> repositoryFuture;
+
+	/**
+	 * Setup mocks.
+	 */
+	@Before
+	public void setup() {
+		repositoryFuture = Futures.immediateFuture(repository);
+	}
+
+	/**
+	 * Tests that the constructor throws an exception when the given repository is {@code null}.
+	 */
+	@Test(expected = NullPointerException.class)
+	public void testConstructorNullRepository() {
+		new StaleObjectPruner(null, DESTINATION, executor);
+	}
+
+	/**
+	 * Tests that the constructor throws an exception when the given destination is {@code null}.
+	 */
+	@Test(expected = NullPointerException.class)
+	public void testConstructorNullDestination() {
+		new StaleObjectPruner(repositoryFuture, null, executor);
+	}
+
+	/**
+	 * Tests that the constructor throws an exception when the given executor is {@code null}.
+	 */
+	@Test(expected = NullPointerException.class)
+	public void testConstructorNullExecutor() {
+		new StaleObjectPruner(repositoryFuture, DESTINATION, (ExecutorService) null);
+	}
+
+	/**
+	 * Tests that the constructor throws an exception when the given existing keys are {@code null}.
+	 */
+	@Test(expected = NullPointerException.class)
+	public void testConstructorNullExistingKeys() {
+		new StaleObjectPruner(repositoryFuture, DESTINATION, (Collection<String>) null);
+	}
+
+	/**
+	 * Tests that {@link StaleObjectPruner#prune(Set)} throws an exception when the given keys are {@code null}.
+	 */
+	@Test(expected = NullPointerException.class)
+	public void testPruneNullKeep() {
+		when(repository.iterate(PREFIX)).thenReturn(Collections.<S3ObjectSummary>emptyList());
+
+		new StaleObjectPruner(repositoryFuture, DESTINATION, executor).prune(null);
+	}
+
+	/**
+	 * Tests that {@link StaleObjectPruner#prune(Set)} deletes only the existing objects which are not kept.
+	 */
+	@Test
+	public void testPrune() {
+		when(repository.iterate(PREFIX)).thenReturn(Arrays.asList(createSummary(PREFIX + "content.xml"),
+				createSummary(PREFIX + "plugins/old.jar"), createSummary(PREFIX + "plugins/plugin.jar")));
+		final StaleObjectPruner pruner = new StaleObjectPruner(repositoryFuture, DESTINATION, executor);
+
+		final List<String> deleted = pruner.prune(new HashSet<String>(Arrays.asList(PREFIX + "content.xml",
+				PREFIX + "plugins/plugin.jar", PREFIX + "index.html")));
+
+		assertEquals(Collections.singletonList(PREFIX + "plugins/old.jar"), deleted);
+		verify(repository).deleteObjects(Collections.singletonList(PREFIX + "plugins/old.jar"));
+	}
+
+	/**
+	 * Tests that {@link StaleObjectPruner#prune(Set)} issues no deletes when every existing object is kept.
+	 */
+	@Test
+	public void testPruneNothingStale() {
+		when(repository.iterate(PREFIX)).thenReturn(Collections.singletonList(createSummary(PREFIX + "content.xml")));
+		final StaleObjectPruner pruner = new StaleObjectPruner(repositoryFuture, DESTINATION, executor);
+
+		assertTrue(pruner.prune(Collections.singleton(PREFIX + "content.xml")).isEmpty());
+		verify(repository, never()).deleteObjects(any(Collection.class));
+	}
+
+	/**
+	 * Tests that {@link StaleObjectPruner#prune(Set)} deletes the known existing objects which are not kept, without
+	 * listing the destination.
+	 */
+	@Test
+	public void testPruneKnownKeys() {
+		final StaleObjectPruner pruner = new StaleObjectPruner(repositoryFuture, DESTINATION,
+				Arrays.asList(PREFIX + "content.xml", PREFIX + "plugins/old.jar"));
+
+		final List<String> deleted = pruner.prune(Collections.singleton(PREFIX + "content.xml"));
+
+		assertEquals(Collections.singletonList(PREFIX + "plugins/old.jar"), deleted);
+		verify(repository).deleteObjects(Collections.singletonList(PREFIX + "plugins/old.jar"));
+		verify(repository, never()).iterate(any(String.class));
+	}
+
+	/**
+	 * Tests that {@link StaleObjectPruner#prune(Set)} throws the failure of the listing without deleting anything.
+	 */
+	@Test
+	public void testPruneListingFailure() {
+		final AmazonClientException exception = new AmazonClientException("mock");
+		when(repository.iterate(PREFIX)).thenThrow(exception);
+		final StaleObjectPruner pruner = new StaleObjectPruner(repositoryFuture, DESTINATION, executor);
+
+		try {
+			pruner.prune(Collections.<String>emptySet());
+			fail("Expected exception not thrown");
+		} catch (final UncheckedExecutionException e) {
+			assertSame(exception, e.getCause());
+		}
+		verify(repository, never()).deleteObjects(any(Collection.class));
+	}
+
+	/**
+	 * Tests that {@link StaleObjectPruner#prune(Set)} throws the failure to create the repository.
+	 */
+	@Test
+	public void testPruneRepositoryFailure() {
+		final AmazonClientException exception = new AmazonClientException("mock");
+		final StaleObjectPruner pruner = new StaleObjectPruner(
+				Futures.<S3BucketRepository>immediateFailedFuture(exception), DESTINATION, executor);
+
+		try {
+			pruner.prune(Collections.<String>emptySet());
+			fail("Expected exception not thrown");
+		} catch (final UncheckedExecutionException e) {
+			assertSame(exception, e.getCause().getCause());
+		}
+	}
+
+	/**
+	 * Tests that {@link StaleObjectPruner#inventory(File, BucketPath)} throws an exception when the given source
+	 * directory is {@code null}.
+	 */
+	@Test(expected = NullPointerException.class)
+	public void testInventoryNullSourceDirectory() {
+		StaleObjectPruner.inventory(null, DESTINATION);
+	}
+
+	/**
+	 * Tests that {@link StaleObjectPruner#inventory(File, BucketPath)} throws an exception when the given destination
+	 * is {@code null}.
+	 *
+	 * @throws IOException Unexpected.
+	 */
+	@Test(expected = NullPointerException.class)
+	public void testInventoryNullDestination() throws IOException {
+		StaleObjectPruner.inventory(FileSystemTestUtil.createAccessibleDirectory(), null);
+	}
+
+	/**
+	 * Tests that {@link StaleObjectPruner#inventory(File, BucketPath)} returns the key of every file in the directory
+	 * and its subdirectories.
+	 *
+	 * @throws IOException Unexpected.
+	 */
+	@Test
+	public void testInventory() throws IOException {
+		final File directory = FileSystemTestUtil.createAccessibleDirectory();
+		final File subdirectory = new File(directory, "plugins");
+		assertTrue(subdirectory.mkdir());
+		assertTrue(new File(directory, "empty").mkdir());
+		Files.write(new File(directory, "content.xml").toPath(), "content".getBytes(StandardCharsets.UTF_8));
+		Files.write(new File(subdirectory, "plugin.jar").toPath(), "plugin".getBytes(StandardCharsets.UTF_8));
+
+		final Set<String> keys = StaleObjectPruner.inventory(directory, DESTINATION);
+
+		assertEquals(new HashSet<String>(Arrays.asList(PREFIX + "content.xml", PREFIX + "plugins/plugin.jar")), keys);
+	}
+
+	/**
+	 * Tests that {@link StaleObjectPruner#inventory(File, BucketPath)} returns no keys for a directory which does not
+	 * exist.
+	 *
+	 * @throws IOException Unexpected.
+	 */
+	@Test
+	public void testInventoryInaccessibleDirectory() throws IOException {
+		final File directory = FileSystemTestUtil.createInaccessibleDirectory();
+
+		assertTrue(StaleObjectPruner.inventory(directory, DESTINATION).isEmpty());
+	}
+
+	private static S3ObjectSummary createSummary(final String key) {
+		final S3ObjectSummary summary = new S3ObjectSummary();
+		summary.setKey(key);
+		return summary;
+	}
+
+}
@@ -0,0 +1,65 @@
+package com.avojak.mojo.aws.p2.maven.plugin.deploy;
+
+import org.junit.Test;
+
+import java.util.Collections;
+
+import static java.util.Collections.singletonList;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Test class for {@link VerificationResult}.
+ */
+public class VerificationResultTest {
+
+	/**
+	 * Tests that the constructor throws an exception when the given missing keys are {@code null}.
+	 */
+	@Test(expected = NullPointerException.class)
+	public void testConstructorNullMissing() {
+		new VerificationResult(0, null, Collections.<String>emptyList());
+	}
+
+	/**
+	 * Tests that the constructor throws an exception when the given mismatched keys are {@code null}.
+	 */
+	@Test(expected = NullPointerException.class)
+	public void testConstructorNullMismatched() {
+		new VerificationResult(0, Collections.<String>emptyList(), null);
+	}
+
+	/**
+	 * Tests the getters.
+	 */
+	@Test
+	public void testGetters() {
+		final VerificationResult result = new VerificationResult(3, singletonList("a"), singletonList("b"));
+
+		assertEquals(3, result.getObjectsVerified());
+		assertEquals(singletonList("a"), result.getMissing());
+		assertEquals(singletonList("b"), result.getMismatched());
+	}
+
+	/**
+	 * Tests {@link VerificationResult#isVerified()}.
+	 */
+	@Test
+	public void testIsVerified() {
+		assertTrue(new VerificationResult(1, Collections.<String>emptyList(), Collections.<String>emptyList())
+				.isVerified());
+		assertFalse(new VerificationResult(1, singletonList("a"), Collections.<String>emptyList()).isVerified());
+		assertFalse(new VerificationResult(1, Collections.<String>emptyList(), singletonList("a")).isVerified());
+	}
+
+	/**
+	 * Tests that the missing keys cannot be modified.
+	 */
+	@Test(expected = UnsupportedOperationException.class)
+	public void testGetMissingUnmodifiable() {
+		new VerificationResult(0, Collections.<String>emptyList(), Collections.<String>emptyList()).getMissing()
+				.add("mock");
+	}
+
+}
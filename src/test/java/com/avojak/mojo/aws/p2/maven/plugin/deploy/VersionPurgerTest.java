@@ -0,0 +1,187 @@
+package com.avojak.mojo.aws.p2.maven.plugin.deploy;
+
+import com.amazonaws.AmazonClientException;
+import com.amazonaws.services.s3.model.DeleteObjectsRequest.KeyVersion;
+import com.amazonaws.services.s3.model.S3VersionSummary;
+import com.avojak.mojo.aws.p2.maven.plugin.s3.model.BucketPath;
+import com.avojak.mojo.aws.p2.maven.plugin.s3.repository.S3BucketRepository;
+import com.avojak.mojo.aws.p2.maven.plugin.s3.request.factory.delete.DeleteObjectRequestFactory;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InOrder;
+import org.mockito.Mock;
+import org.mockito.junit.MockitoJUnitRunner;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+
+import static java.util.Arrays.asList;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.fail;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Test class for {@link VersionPurger}.
+ */
+@RunWith(MockitoJUnitRunner.class)
+public class VersionPurgerTest {
+
+	private static final BucketPath DESTINATION = new BucketPath().append("project").append("releases").append("1.0.0");
+	private static final String PREFIX = "project/releases/1.0.0/";
+
+	@Mock
+	private S3BucketRepository repository;
+
+	/**
+	 * Tests that the constructor throws an exception when the given concurrency is not positive.
+	 */
+	@Test(expected = IllegalArgumentException.class)
+	public void testConstructorZeroConcurrency() {
+		new VersionPurger(0);
+	}
+
+	/**
+	 * Tests that {@link VersionPurger#purge(S3BucketRepository, BucketPath)} throws an exception when the given
+	 * repository is {@code null}.
+	 *
+	 * @throws InterruptedException Unexpected.
+	 */
+	@Test(expected = NullPointerException.class)
+	public void testPurgeNullRepository() throws InterruptedException {
+		new VersionPurger(1).purge(null, DESTINATION);
+	}
+
+	/**
+	 * Tests that {@link VersionPurger#purge(S3BucketRepository, BucketPath)} throws an exception when the given
+	 * destination is {@code null}.
+	 *
+	 * @throws InterruptedException Unexpected.
+	 */
+	@Test(expected = NullPointerException.class)
+	public void testPurgeNullDestination() throws InterruptedException {
+		new VersionPurger(1).purge(repository, null);
+	}
+
+	/**
+	 * Tests that {@link VersionPurger#purge(S3BucketRepository, BucketPath)} keeps the current versions, deletes the
+	 * noncurrent versions, and only then deletes the delete markers which are current.
+	 *
+	 * @throws InterruptedException Unexpected.
+	 */
+	@Test
+	public void testPurge() throws InterruptedException {
+		when(repository.iterateVersions(PREFIX)).thenReturn(asList(
+				createSummary(PREFIX + "content.xml", "3", true, false, 10),
+				createSummary(PREFIX + "content.xml", "2", false, true, 0),
+				createSummary(PREFIX + "content.xml", "1", false, false, 20),
+				createSummary(PREFIX + "old.jar", "5", true, true, 0),
+				createSummary(PREFIX + "old.jar", "4", false, false, 100)));
+		final ArgumentCaptor<Collection<KeyVersion>> captor = ArgumentCaptor.forClass(Collection.class);
+
+		final PurgeResult result = new VersionPurger(2).purge(repository, DESTINATION);
+
+		assertEquals(2, result.getVersionsDeleted());
+		assertEquals(2, result.getDeleteMarkersDeleted());
+		assertEquals(120, result.getBytesReclaimed());
+		final InOrder inOrder = inOrder(repository);
+		inOrder.verify(repository).deleteVersions(captor.capture());
+		inOrder.verify(repository).deleteVersions(captor.capture());
+		assertEquals(asList(PREFIX + "content.xml:2", PREFIX + "content.xml:1", PREFIX + "old.jar:4"),
+				describe(captor.getAllValues().get(0)));
+		assertEquals(Collections.singletonList(PREFIX + "old.jar:5"), describe(captor.getAllValues().get(1)));
+	}
+
+	/**
+	 * Tests that {@link VersionPurger#purge(S3BucketRepository, BucketPath)} deletes nothing when every version is
+	 * current.
+	 *
+	 * @throws InterruptedException Unexpected.
+	 */
+	@Test
+	public void testPurgeNothingNoncurrent() throws InterruptedException {
+		when(repository.iterateVersions(PREFIX)).thenReturn(Collections.singletonList(
+				createSummary(PREFIX + "content.xml", "1", true, false, 10)));
+
+		final PurgeResult result = new VersionPurger(1).purge(repository, DESTINATION);
+
+		assertEquals(0, result.getVersionsDeleted());
+		assertEquals(0, result.getDeleteMarkersDeleted());
+		verify(repository, never()).deleteVersions(any(Collection.class));
+	}
+
+	/**
+	 * Tests that {@link VersionPurger#purge(S3BucketRepository, BucketPath)} deletes the versions in batches of at
+	 * most {@link DeleteObjectRequestFactory#MAX_KEYS_PER_REQUEST}.
+	 *
+	 * @throws InterruptedException Unexpected.
+	 */
+	@Test
+	public void testPurgeBatches() throws InterruptedException {
+		final List<S3VersionSummary> summaries = new ArrayList<S3VersionSummary>();
+		for (int i = 0; i < DeleteObjectRequestFactory.MAX_KEYS_PER_REQUEST + 1; i++) {
+			summaries.add(createSummary(PREFIX + "content.xml", String.valueOf(i), false, false, 1));
+		}
+		when(repository.iterateVersions(PREFIX)).thenReturn(summaries);
+		final ArgumentCaptor<Collection<KeyVersion>> captor = ArgumentCaptor.forClass(Collection.class);
+
+		final PurgeResult result = new VersionPurger(1).purge(repository, DESTINATION);
+
+		assertEquals(DeleteObjectRequestFactory.MAX_KEYS_PER_REQUEST + 1, result.getVersionsDeleted());
+		verify(repository, times(2)).deleteVersions(captor.capture());
+		assertEquals(DeleteObjectRequestFactory.MAX_KEYS_PER_REQUEST, captor.getAllValues().get(0).size());
+		assertEquals(1, captor.getAllValues().get(1).size());
+	}
+
+	/**
+	 * Tests that {@link VersionPurger#purge(S3BucketRepository, BucketPath)} throws the failure of a delete, without
+	 * deleting the delete markers.
+	 *
+	 * @throws InterruptedException Unexpected.
+	 */
+	@Test
+	public void testPurgeDeleteFailure() throws InterruptedException {
+		final AmazonClientException exception = new AmazonClientException("mock");
+		when(repository.iterateVersions(PREFIX)).thenReturn(asList(
+				createSummary(PREFIX + "old.jar", "2", true, true, 0),
+				createSummary(PREFIX + "old.jar", "1", false, false, 100)));
+		doThrow(exception).when(repository).deleteVersions(any(Collection.class));
+
+		try {
+			new VersionPurger(1).purge(repository, DESTINATION);
+			fail("Expected exception not thrown");
+		} catch (final AmazonClientException e) {
+			assertSame(exception, e);
+		}
+		verify(repository).deleteVersions(any(Collection.class));
+	}
+
+	private static S3VersionSummary createSummary(final String key, final String versionId, final boolean latest,
+	                                              final boolean deleteMarker, final long size) {
+		final S3VersionSummary summary = new S3VersionSummary();
+		summary.setKey(key);
+		summary.setVersionId(versionId);
+		summary.setIsLatest(latest);
+		summary.setIsDeleteMarker(deleteMarker);
+		summary.setSize(size);
+		return summary;
+	}
+
+	private static List<String> describe(final Collection<KeyVersion> versions) {
+		final List<String> descriptions = new ArrayList<String>();
+		for (final KeyVersion version : versions) {
+			descriptions.add(version.getKey() + ":" + version.getVersion());
+		}
+		return descriptions;
+	}
+
+}
@@ -0,0 +1,206 @@
+package com.avojak.mojo.aws.p2.maven.plugin.gc;
+
+import com.avojak.mojo.aws.p2.maven.plugin.util.FileSystemTestUtil;
+import com.google.common.base.Optional;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.LinkedHashSet;
+import java.util.Set;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+import static java.util.Arrays.asList;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+
+/**
+ * Test class for {@link ArtifactMetadataParser}.
+ */
+public class ArtifactMetadataParserTest {
+
+	static final String METADATA = "<?xml version='1.0' encoding='UTF-8'?>\n"
+			+ "<?artifactRepository version='1.1.0'?>\n"
+			+ "<repository name='mock' type='org.eclipse.equinox.p2.artifact.repository.simpleRepository'"
+			+ " version='1'>\n"
+			+ "  <mappings size='5'>\n"
+			+ "    <rule filter='(&amp; (classifier=osgi.bundle) (format=packed))'"
+			+ " output='${repoUrl}/plugins/${id}_${version}.jar.pack.gz'/>\n"
+			+ "    <rule filter='(&amp; (classifier=osgi.bundle))' output='${repoUrl}/plugins/${id}_${version}.jar'/>\n"
+			+ "    <rule filter='(&amp; (classifier=binary))' output='${repoUrl}/binary/${id}_${version}'/>\n"
+			+ "    <rule filter='(&amp; (classifier=org.eclipse.update.feature))'"
+			+ " output='${repoUrl}/features/${id}_${version}.jar'/>\n"
+			+ "    <rule filter='(&amp; (classifier=external))' output='https://example.com/${id}.jar'/>\n"
+			+ "  </mappings>\n"
+			+ "  <artifacts size='5'>\n"
+			+ "    <artifact classifier='osgi.bundle' id='com.example.a' version='1.0.0'>\n"
+			+ "      <properties size='1'>\n"
+			+ "        <property name='artifact.size' value='10'/>\n"
+			+ "      </properties>\n"
+			+ "    </artifact>\n"
+			+ "    <artifact classifier='osgi.bundle' id='com.example.a' version='1.0.0'>\n"
+			+ "      <properties size='1'>\n"
+			+ "        <property name='format' value='packed'/>\n"
+			+ "      </properties>\n"
+			+ "    </artifact>\n"
+			+ "    <artifact classifier='org.eclipse.update.feature' id='com.example.feature' version='1.0.0'/>\n"
+			+ "    <artifact classifier='binary' id='com.example.launcher' version='1.0.0'/>\n"
+			+ "    <artifact classifier='external' id='com.example.external' version='1.0.0'/>\n"
+			+ "  </artifacts>\n"
+			+ "</repository>\n";
+
+	static final LinkedHashSet<String> PATHS = new LinkedHashSet<String>(asList("plugins/com.example.a_1.0.0.jar",
+			"plugins/com.example.a_1.0.0.jar.pack.gz", "features/com.example.feature_1.0.0.jar",
+			"binary/com.example.launcher_1.0.0"));
+
+	private final ArtifactMetadataParser parser = new ArtifactMetadataParser();
+
+	/**
+	 * Tests that {@link ArtifactMetadataParser#parse(InputStream)} throws an exception when the given input stream is
+	 * {@code null}.
+	 *
+	 * @throws IOException Unexpected.
+	 */
+	@Test(expected = NullPointerException.class)
+	public void testParseNullInputStream() throws IOException {
+		parser.parse(null);
+	}
+
+	/**
+	 * Tests that {@link ArtifactMetadataParser#parse(InputStream)} maps every artifact with the first matching rule,
+	 * and ignores artifacts stored outside of the repository.
+	 *
+	 * @throws IOException Unexpected.
+	 */
+	@Test
+	public void testParse() throws IOException {
+		assertEquals(Optional.<Set<String>>of(PATHS), parser.parse(toInputStream(METADATA)));
+	}
+
+	/**
+	 * Tests that {@link ArtifactMetadataParser#parse(InputStream)} returns no paths when an artifact matches no rule,
+	 * as its file is unknown.
+	 *
+	 * @throws IOException Unexpected.
+	 */
+	@Test
+	public void testParseNoMatchingRule() throws IOException {
+		final String metadata = "<repository><mappings>"
+				+ "<rule filter='(&amp; (classifier=binary))' output='${repoUrl}/binary/${id}_${version}'/>"
+				+ "</mappings><artifacts>"
+				+ "<artifact classifier='binary' id='com.example.launcher' version='1.0.0'/>"
+				+ "<artifact classifier='osgi.bundle' id='com.example.a' version='1.0.0'/>"
+				+ "</artifacts></repository>";
+
+		assertEquals(Optional.<Set<String>>absent(), parser.parse(toInputStream(metadata)));
+	}
+
+	/**
+	 * Tests that {@link ArtifactMetadataParser#parse(InputStream)} maps artifacts with a rule whose filter is a single
+	 * term, and with a rule without a filter.
+	 *
+	 * @throws IOException Unexpected.
+	 */
+	@Test
+	public void testParseSimpleFilters() throws IOException {
+		final String metadata = "<repository><mappings>"
+				+ "<rule filter=' ( classifier = binary ) ' output='${repoUrl}/binary/${id}_${version}'/>"
+				+ "<rule output='${repoUrl}/plugins/${id}_${version}.jar'/>"
+				+ "</mappings><artifacts>"
+				+ "<artifact classifier='binary' id='com.example.launcher' version='1.0.0'/>"
+				+ "<artifact classifier='osgi.bundle' id='com.example.a' version='1.0.0'/>"
+				+ "</artifacts></repository>";
+
+		assertEquals(Optional.<Set<String>>of(new LinkedHashSet<String>(asList("binary/com.example.launcher_1.0.0",
+				"plugins/com.example.a_1.0.0.jar"))), parser.parse(toInputStream(metadata)));
+	}
+
+	/**
+	 * Tests that {@link ArtifactMetadataParser#parse(InputStream)} returns no paths when a rule has a filter other
+	 * than a term or a conjunction of terms, as the artifacts it matches are unknown.
+	 *
+	 * @throws IOException Unexpected.
+	 */
+	@Test
+	public void testParseUnsupportedFilter() throws IOException {
+		for (final String filter : asList("(| (classifier=osgi.bundle) (classifier=binary))",
+				"(! (classifier=osgi.bundle))", "(&amp; (classifier=osgi.bundle) (! (format=packed)))",
+				"(&amp; (classifier=osgi.bundle) (| (format=packed) (format=signed)))", "(format=*)",
+				"(classifier&gt;=binary)", "(&amp;)")) {
+			final String metadata = "<repository><mappings>"
+					+ "<rule filter='" + filter + "' output='${repoUrl}/plugins/${id}_${version}.jar.pack.gz'/>"
+					+ "<rule filter='(classifier=osgi.bundle)' output='${repoUrl}/plugins/${id}_${version}.jar'/>"
+					+ "</mappings><artifacts>"
+					+ "<artifact classifier='osgi.bundle' id='com.example.a' version='1.0.0'/>"
+					+ "</artifacts></repository>";
+
+			assertEquals(filter, Optional.<Set<String>>absent(), parser.parse(toInputStream(metadata)));
+		}
+	}
+
+	/**
+	 * Tests that {@link ArtifactMetadataParser#parse(InputStream)} throws an exception when the metadata is malformed.
+	 */
+	@Test
+	public void testParseMalformed() {
+		try {
+			parser.parse(toInputStream("<repository><artifacts>"));
+			fail("Expected exception not thrown");
+		} catch (final IOException e) {
+			assertEquals("Unable to parse artifact repository metadata", e.getMessage());
+		}
+	}
+
+	/**
+	 * Tests that {@link ArtifactMetadataParser#parseJar(File)} throws an exception when the given file is {@code
+	 * null}.
+	 *
+	 * @throws IOException Unexpected.
+	 */
+	@Test(expected = NullPointerException.class)
+	public void testParseJarNullFile() throws IOException {
+		parser.parseJar(null);
+	}
+
+	/**
+	 * Tests that {@link ArtifactMetadataParser#parseJar(File)} parses the metadata within the jar.
+	 *
+	 * @throws IOException Unexpected.
+	 */
+	@Test
+	public void testParseJar() throws IOException {
+		assertEquals(Optional.<Set<String>>of(PATHS),
+				parser.parseJar(createJar(ArtifactMetadataParser.METADATA_ENTRY, METADATA)));
+	}
+
+	/**
+	 * Tests that {@link ArtifactMetadataParser#parseJar(File)} throws an exception when the jar does not contain the
+	 * metadata.
+	 *
+	 * @throws IOException Unexpected.
+	 */
+	@Test(expected = IOException.class)
+	public void testParseJarMissingEntry() throws IOException {
+		parser.parseJar(createJar("content.xml", METADATA));
+	}
+
+	static File createJar(final String entry, final String content) throws IOException {
+		final File jar = new File(FileSystemTestUtil.createAccessibleDirectory(), "artifacts.jar");
+		try (final ZipOutputStream outputStream = new ZipOutputStream(new FileOutputStream(jar))) {
+			outputStream.putNextEntry(new ZipEntry(entry));
+			outputStream.write(content.getBytes(StandardCharsets.UTF_8));
+			outputStream.closeEntry();
+		}
+		return jar;
+	}
+
+	private static InputStream toInputStream(final String content) {
+		return new ByteArrayInputStream(content.getBytes(StandardCharsets.UTF_8));
+	}
+
+}
@@ -0,0 +1,25 @@
+package com.avojak.mojo.aws.p2.maven.plugin.gc;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Test class for {@link CollectionResult}.
+ */
+public class CollectionResultTest {
+
+	/**
+	 * Tests the getters.
+	 */
+	@Test
+	public void testGetters() {
+		final CollectionResult result = new CollectionResult(2, 40, 3, 1024);
+
+		assertEquals(2, result.getMetadataFiles());
+		assertEquals(40, result.getReferencedArtifacts());
+		assertEquals(3, result.getOrphanedObjects());
+		assertEquals(1024, result.getOrphanedBytes());
+	}
+
+}
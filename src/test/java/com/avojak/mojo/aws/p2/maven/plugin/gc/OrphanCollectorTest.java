@@ -0,0 +1,438 @@
+package com.avojak.mojo.aws.p2.maven.plugin.gc;
+
+import com.amazonaws.services.s3.model.ObjectMetadata;
+import com.amazonaws.services.s3.model.S3ObjectSummary;
+import com.avojak.mojo.aws.p2.maven.plugin.s3.repository.S3BucketRepository;
+import com.avojak.mojo.aws.p2.maven.plugin.s3.request.factory.delete.DeleteObjectRequestFactory;
+import com.google.common.base.Optional;
+import com.google.common.util.concurrent.UncheckedExecutionException;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.junit.MockitoJUnitRunner;
+import org.mockito.stubbing.Answer;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import static java.util.Arrays.asList;
+import static java.util.Collections.singletonList;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Test class for {@link OrphanCollector}.
+ */
+@RunWith(MockitoJUnitRunner.class)
+public class OrphanCollectorTest {
+
+	private static final long NOW = TimeUnit.DAYS.toMillis(100);
+	private static final long OLD = NOW - TimeUnit.DAYS.toMillis(2);
+	private static final String PREFIX = "project/releases/";
+	private static final String ROOT = PREFIX + "1.0.0/";
+	private static final String METADATA_KEY = ROOT + "artifacts.xml";
+
+	@Mock
+	private S3BucketRepository repository;
+
+	private final List<S3ObjectSummary> summaries = new ArrayList<S3ObjectSummary>();
+	private final Map<String, byte[]> remoteContent = new HashMap<String, byte[]>();
+
+	/**
+	 * Tests that the constructor throws an exception when the given parser is {@code null}.
+	 */
+	@Test(expected = NullPointerException.class)
+	public void testConstructorNullParser() {
+		new OrphanCollector(null, 1, 0, 0, false);
+	}
+
+	/**
+	 * Tests that the constructor throws an exception when the given concurrency is not positive.
+	 */
+	@Test(expected = IllegalArgumentException.class)
+	public void testConstructorZeroConcurrency() {
+		new OrphanCollector(new ArtifactMetadataParser(), 0, 0, 0, false);
+	}
+
+	/**
+	 * Tests that the constructor throws an exception when the given minimum age is negative.
+	 */
+	@Test(expected = IllegalArgumentException.class)
+	public void testConstructorNegativeMinAgeHours() {
+		new OrphanCollector(new ArtifactMetadataParser(), 1, 0, -1, false);
+	}
+
+	/**
+	 * Tests that the constructor throws an exception when the given listing shard depth is negative.
+	 */
+	@Test(expected = IllegalArgumentException.class)
+	public void testConstructorNegativeListingShardDepth() {
+		new OrphanCollector(new ArtifactMetadataParser(), 1, -1, 0, false);
+	}
+
+	/**
+	 * Tests that {@link OrphanCollector#collect(S3BucketRepository, String, long)} throws an exception when the given
+	 * repository is {@code null}.
+	 */
+	@Test(expected = NullPointerException.class)
+	public void testCollectNullRepository() {
+		createCollector(false).collect(null, PREFIX, NOW);
+	}
+
+	/**
+	 * Tests that {@link OrphanCollector#collect(S3BucketRepository, String, long)} throws an exception when the given
+	 * prefix is {@code null}.
+	 */
+	@Test(expected = NullPointerException.class)
+	public void testCollectNullPrefix() {
+		createCollector(false).collect(repository, null, NOW);
+	}
+
+	/**
+	 * Tests that {@link OrphanCollector#collect(S3BucketRepository, String, long)} throws an exception when the given
+	 * prefix is empty.
+	 */
+	@Test(expected = IllegalArgumentException.class)
+	public void testCollectEmptyPrefix() {
+		createCollector(false).collect(repository, " ", NOW);
+	}
+
+	/**
+	 * Tests {@link OrphanCollector#getRepositoryRoot(String)}.
+	 */
+	@Test
+	public void testGetRepositoryRoot() {
+		assertEquals(ROOT, OrphanCollector.getRepositoryRoot(ROOT + "plugins/a.jar"));
+		assertEquals(ROOT, OrphanCollector.getRepositoryRoot(ROOT + "features/a.jar"));
+		assertEquals(ROOT, OrphanCollector.getRepositoryRoot(ROOT + "binary/a"));
+		assertEquals("", OrphanCollector.getRepositoryRoot("plugins/a.jar"));
+		assertNull(OrphanCollector.getRepositoryRoot(ROOT + "content.xml"));
+		assertNull(OrphanCollector.getRepositoryRoot(ROOT + "plugins/"));
+		assertNull(OrphanCollector.getRepositoryRoot(ROOT + "plugins/nested/a.jar"));
+		assertNull(OrphanCollector.getRepositoryRoot("a.jar"));
+	}
+
+	/**
+	 * Tests that {@link OrphanCollector#collect(S3BucketRepository, String, long)} deletes the old objects which are
+	 * not referenced by the metadata of their repository, and keeps everything else, including the objects of a
+	 * repository without metadata.
+	 *
+	 * @throws IOException Unexpected.
+	 */
+	@Test
+	public void testCollect() throws IOException {
+		addRemoteObject(METADATA_KEY, ArtifactMetadataParserTest.METADATA, OLD);
+		addRemoteObject(ROOT + "binary/com.example.launcher_1.0.0", "launcher", OLD);
+		addRemoteObject(ROOT + "content.xml", "content", OLD);
+		addRemoteObject(ROOT + "features/com.example.feature_1.0.0.jar", "feature", OLD);
+		addRemoteObject(ROOT + "plugins/com.example.a_1.0.0.jar", "a", OLD);
+		addRemoteObject(ROOT + "plugins/com.example.new_1.0.0.jar", "new", NOW);
+		addRemoteObject(ROOT + "plugins/com.example.old_0.9.0.jar", "old", OLD);
+		addRemoteObject(PREFIX + "2.0.0/plugins/com.example.b_2.0.0.jar", "orphan", OLD);
+		answerDownloads();
+		when(repository.getMetadata(anyString())).thenReturn(Optional.<ObjectMetadata>absent());
+		when(repository.getMetadata(METADATA_KEY)).thenReturn(Optional.of(createMetadata(METADATA_KEY)));
+
+		final CollectionResult result = createCollector(false).collect(repository, PREFIX, NOW);
+
+		assertEquals(1, result.getMetadataFiles());
+		assertEquals(4, result.getReferencedArtifacts());
+		assertEquals(1, result.getOrphanedObjects());
+		assertEquals(3, result.getOrphanedBytes());
+		verify(repository).deleteObjects(singletonList(ROOT + "plugins/com.example.old_0.9.0.jar"));
+	}
+
+	/**
+	 * Tests that {@link OrphanCollector#collect(S3BucketRepository, String, long)} lists the prefix in sorted shards
+	 * when a listing shard depth is given, and still looks up the metadata of each repository only once.
+	 *
+	 * @throws IOException Unexpected.
+	 */
+	@Test
+	public void testCollectSharded() throws IOException {
+		final String otherRoot = PREFIX + "2.0.0/";
+		final String otherMetadataKey = otherRoot + "artifacts.xml";
+		addRemoteContent(METADATA_KEY, ArtifactMetadataParserTest.METADATA, OLD);
+		addRemoteContent(ROOT + "plugins/com.example.a_1.0.0.jar", "a", OLD);
+		addRemoteContent(ROOT + "plugins/com.example.old_0.9.0.jar", "old", OLD);
+		final S3ObjectSummary otherMetadata = addRemoteContent(otherMetadataKey, ArtifactMetadataParserTest.METADATA,
+				OLD);
+		final S3ObjectSummary otherOrphan = addRemoteContent(otherRoot + "plugins/com.example.b_0.9.0.jar", "b", OLD);
+		answerDownloads();
+		when(repository.listDirectories(PREFIX)).thenReturn(asList(ROOT, otherRoot));
+		when(repository.iterateAfter(PREFIX, null)).thenReturn(new ArrayList<S3ObjectSummary>());
+		when(repository.iterateAfter(PREFIX, ROOT)).thenReturn(summaries);
+		when(repository.iterateAfter(PREFIX, otherRoot)).thenReturn(asList(otherMetadata, otherOrphan));
+		when(repository.getMetadata(anyString())).thenReturn(Optional.<ObjectMetadata>absent());
+		when(repository.getMetadata(METADATA_KEY)).thenReturn(Optional.of(createMetadata(METADATA_KEY)));
+		when(repository.getMetadata(otherMetadataKey)).thenReturn(Optional.of(createMetadata(otherMetadataKey)));
+
+		final CollectionResult result = new OrphanCollector(new ArtifactMetadataParser(), 2, 1, 24, false)
+				.collect(repository, PREFIX, NOW);
+
+		assertEquals(2, result.getMetadataFiles());
+		assertEquals(2, result.getOrphanedObjects());
+		verify(repository).deleteObjects(asList(ROOT + "plugins/com.example.old_0.9.0.jar",
+				otherRoot + "plugins/com.example.b_0.9.0.jar"));
+		verify(repository, never()).iterate(anyString());
+		verify(repository, times(1)).getMetadata(METADATA_KEY);
+		verify(repository, times(1)).getMetadata(otherMetadataKey);
+	}
+
+	/**
+	 * Tests that {@link OrphanCollector#collect(S3BucketRepository, String, long)} never collects the objects of a
+	 * repository whose only metadata is compressed with XZ, which cannot be read.
+	 *
+	 * @throws IOException Unexpected.
+	 */
+	@Test
+	public void testCollectXzMetadataOnly() throws IOException {
+		addRemoteObject(ROOT + "artifacts.xml.xz", "xz", OLD);
+		addRemoteObject(ROOT + "binary/com.example.launcher_1.0.0", "launcher", OLD);
+		addRemoteObject(ROOT + "features/com.example.feature_1.0.0.jar", "feature", OLD);
+		addRemoteObject(ROOT + "plugins/com.example.a_1.0.0.jar", "a", OLD);
+		when(repository.getMetadata(anyString())).thenReturn(Optional.<ObjectMetadata>absent());
+
+		final CollectionResult result = createCollector(false).collect(repository, PREFIX, NOW);
+
+		assertEquals(0, result.getOrphanedObjects());
+		verify(repository, never()).deleteObjects(any(Collection.class));
+		verify(repository, never()).downloadRange(anyString(), anyLong(), anyLong(), any(FileChannel.class));
+	}
+
+	/**
+	 * Tests that {@link OrphanCollector#collect(S3BucketRepository, String, long)} never collects the objects of a
+	 * repository with a mapping rule whose filter is not a conjunction, as the files it references are unknown.
+	 *
+	 * @throws IOException Unexpected.
+	 */
+	@Test
+	public void testCollectUnsupportedFilter() throws IOException {
+		final String metadata = "<repository><mappings>"
+				+ "<rule filter='(| (classifier=osgi.bundle) (classifier=binary))'"
+				+ " output='${repoUrl}/bundles/${id}_${version}.jar'/>"
+				+ "<rule filter='(&amp; (classifier=osgi.bundle))' output='${repoUrl}/plugins/${id}_${version}.jar'/>"
+				+ "</mappings><artifacts>"
+				+ "<artifact classifier='binary' id='com.example.launcher' version='1.0.0'/>"
+				+ "</artifacts></repository>";
+		addRemoteObject(METADATA_KEY, metadata, OLD);
+		addRemoteObject(ROOT + "binary/com.example.launcher_1.0.0", "launcher", OLD);
+		addRemoteObject(ROOT + "plugins/com.example.a_1.0.0.jar", "a", OLD);
+		answerDownloads();
+		when(repository.getMetadata(anyString())).thenReturn(Optional.<ObjectMetadata>absent());
+		when(repository.getMetadata(METADATA_KEY)).thenReturn(Optional.of(createMetadata(METADATA_KEY)));
+
+		final CollectionResult result = createCollector(false).collect(repository, PREFIX, NOW);
+
+		assertEquals(0, result.getOrphanedObjects());
+		verify(repository, never()).deleteObjects(any(Collection.class));
+	}
+
+	/**
+	 * Tests that {@link OrphanCollector#collect(S3BucketRepository, String, long)} never collects the objects of a
+	 * repository with an artifact which matches no mapping rule, as the file of that artifact is unknown.
+	 *
+	 * @throws IOException Unexpected.
+	 */
+	@Test
+	public void testCollectUnmappedArtifact() throws IOException {
+		final String metadata = "<repository><mappings>"
+				+ "<rule filter='(&amp; (classifier=osgi.bundle))' output='${repoUrl}/plugins/${id}_${version}.jar'/>"
+				+ "</mappings><artifacts>"
+				+ "<artifact classifier='osgi.bundle' id='com.example.a' version='1.0.0'/>"
+				+ "<artifact classifier='binary' id='com.example.launcher' version='1.0.0'/>"
+				+ "</artifacts></repository>";
+		addRemoteObject(METADATA_KEY, metadata, OLD);
+		addRemoteObject(ROOT + "binary/com.example.launcher_1.0.0", "launcher", OLD);
+		addRemoteObject(ROOT + "plugins/com.example.a_1.0.0.jar", "a", OLD);
+		addRemoteObject(ROOT + "plugins/com.example.old_0.9.0.jar", "old", OLD);
+		answerDownloads();
+		when(repository.getMetadata(anyString())).thenReturn(Optional.<ObjectMetadata>absent());
+		when(repository.getMetadata(METADATA_KEY)).thenReturn(Optional.of(createMetadata(METADATA_KEY)));
+
+		final CollectionResult result = createCollector(false).collect(repository, PREFIX, NOW);
+
+		assertEquals(0, result.getOrphanedObjects());
+		verify(repository, never()).deleteObjects(any(Collection.class));
+	}
+
+	/**
+	 * Tests that {@link OrphanCollector#collect(S3BucketRepository, String, long)} reads the metadata within a jar.
+	 *
+	 * @throws IOException Unexpected.
+	 */
+	@Test
+	public void testCollectJar() throws IOException {
+		final byte[] jar = Files.readAllBytes(ArtifactMetadataParserTest.createJar(
+				ArtifactMetadataParser.METADATA_ENTRY, ArtifactMetadataParserTest.METADATA).toPath());
+		addRemoteObject(ROOT + "artifacts.jar", jar, OLD);
+		addRemoteObject(ROOT + "plugins/com.example.a_1.0.0.jar", "a".getBytes(StandardCharsets.UTF_8), OLD);
+		answerDownloads();
+
+		final CollectionResult result = createCollector(false).collect(repository, PREFIX, NOW);
+
+		assertEquals(1, result.getMetadataFiles());
+		assertEquals(4, result.getReferencedArtifacts());
+		assertEquals(0, result.getOrphanedObjects());
+		verify(repository, never()).deleteObjects(any(Collection.class));
+	}
+
+	/**
+	 * Tests that {@link OrphanCollector#collect(S3BucketRepository, String, long)} does not delete anything during a
+	 * dry run.
+	 *
+	 * @throws IOException Unexpected.
+	 */
+	@Test
+	public void testCollectDryRun() throws IOException {
+		addRemoteObject(METADATA_KEY, ArtifactMetadataParserTest.METADATA, OLD);
+		addRemoteObject(ROOT + "plugins/com.example.old_0.9.0.jar", "old", OLD);
+		answerDownloads();
+		when(repository.getMetadata(anyString())).thenReturn(Optional.<ObjectMetadata>absent());
+		when(repository.getMetadata(METADATA_KEY)).thenReturn(Optional.of(createMetadata(METADATA_KEY)));
+
+		final CollectionResult result = createCollector(true).collect(repository, PREFIX, NOW);
+
+		assertEquals(1, result.getOrphanedObjects());
+		assertEquals(3, result.getOrphanedBytes());
+		verify(repository, never()).deleteObjects(any(Collection.class));
+	}
+
+	/**
+	 * Tests that {@link OrphanCollector#collect(S3BucketRepository, String, long)} does not read any metadata when
+	 * there are no candidate objects.
+	 *
+	 * @throws IOException Unexpected.
+	 */
+	@Test
+	public void testCollectNoCandidates() throws IOException {
+		addRemoteObject(METADATA_KEY, ArtifactMetadataParserTest.METADATA, OLD);
+		addRemoteObject(ROOT + "content.xml", "content", OLD);
+
+		final CollectionResult result = createCollector(false).collect(repository, PREFIX, NOW);
+
+		assertEquals(1, result.getMetadataFiles());
+		assertEquals(0, result.getOrphanedObjects());
+		verify(repository, times(1)).iterate(PREFIX);
+		verify(repository, never()).downloadRange(anyString(), anyLong(), anyLong(), any(FileChannel.class));
+	}
+
+	/**
+	 * Tests that {@link OrphanCollector#collect(S3BucketRepository, String, long)} deletes at most the maximum number
+	 * of keys per request.
+	 *
+	 * @throws IOException Unexpected.
+	 */
+	@Test
+	public void testCollectBatches() throws IOException {
+		final int count = DeleteObjectRequestFactory.MAX_KEYS_PER_REQUEST + 1;
+		addRemoteObject(METADATA_KEY, ArtifactMetadataParserTest.METADATA, OLD);
+		for (int i = 0; i < count; i++) {
+			addRemoteObject(String.format("%splugins/a_%05d.jar", ROOT, i), "a", OLD);
+		}
+		answerDownloads();
+		when(repository.getMetadata(anyString())).thenReturn(Optional.<ObjectMetadata>absent());
+		when(repository.getMetadata(METADATA_KEY)).thenReturn(Optional.of(createMetadata(METADATA_KEY)));
+
+		final CollectionResult result = createCollector(false).collect(repository, PREFIX, NOW);
+
+		assertEquals(count, result.getOrphanedObjects());
+		verify(repository, times(2)).deleteObjects(any(Collection.class));
+		// The metadata of the repository is only looked up once, as its objects are contiguous
+		verify(repository, times(1)).getMetadata(ROOT + "artifacts.xml");
+	}
+
+	/**
+	 * Tests that {@link OrphanCollector#collect(S3BucketRepository, String, long)} throws an exception, without
+	 * deleting anything, when a metadata file could not be read.
+	 *
+	 * @throws IOException Unexpected.
+	 */
+	@Test
+	public void testCollectMetadataFailure() throws IOException {
+		addRemoteObject(METADATA_KEY, ArtifactMetadataParserTest.METADATA, OLD);
+		addRemoteObject(ROOT + "plugins/com.example.old_0.9.0.jar", "old", OLD);
+		doThrow(new IOException("mock")).when(repository)
+				.downloadRange(eq(METADATA_KEY), anyLong(), anyLong(), any(FileChannel.class));
+
+		try {
+			createCollector(false).collect(repository, PREFIX, NOW);
+			fail("Expected exception not thrown");
+		} catch (final UncheckedExecutionException e) {
+			assertTrue(e.getCause() instanceof IOException);
+		}
+		verify(repository, never()).deleteObjects(any(Collection.class));
+	}
+
+	private OrphanCollector createCollector(final boolean dryRun) {
+		return new OrphanCollector(new ArtifactMetadataParser(), 2, 0, 24, dryRun);
+	}
+
+	private void addRemoteObject(final String key, final String content, final long lastModified) {
+		addRemoteObject(key, content.getBytes(StandardCharsets.UTF_8), lastModified);
+	}
+
+	private void addRemoteObject(final String key, final byte[] content, final long lastModified) {
+		addRemoteContent(key, content, lastModified);
+		when(repository.iterate(PREFIX)).thenReturn(summaries);
+	}
+
+	private S3ObjectSummary addRemoteContent(final String key, final String content, final long lastModified) {
+		return addRemoteContent(key, content.getBytes(StandardCharsets.UTF_8), lastModified);
+	}
+
+	private S3ObjectSummary addRemoteContent(final String key, final byte[] content, final long lastModified) {
+		final S3ObjectSummary summary = new S3ObjectSummary();
+		summary.setKey(key);
+		summary.setSize(content.length);
+		summary.setLastModified(new Date(lastModified));
+		summaries.add(summary);
+		remoteContent.put(key, content);
+		return summary;
+	}
+
+	private ObjectMetadata createMetadata(final String key) {
+		final ObjectMetadata metadata = new ObjectMetadata();
+		metadata.setContentLength(remoteContent.get(key).length);
+		return metadata;
+	}
+
+	private void answerDownloads() throws IOException {
+		doAnswer(new Answer<Long>() {
+			@Override
+			public Long answer(final InvocationOnMock invocation) throws IOException {
+				final byte[] content = remoteContent.get(invocation.<String>getArgument(0));
+				final long start = invocation.getArgument(1);
+				final long end = invocation.getArgument(2);
+				final FileChannel channel = invocation.getArgument(3);
+				final int length = (int) (end - start + 1);
+				channel.write(ByteBuffer.wrap(content, (int) start, length), start);
+				return (long) length;
+			}
+		}).when(repository).downloadRange(anyString(), anyLong(), anyLong(), any(FileChannel.class));
+	}
+
+}
@@ -0,0 +1,342 @@
+package com.avojak.mojo.aws.p2.maven.plugin.mirror;
+
+import com.amazonaws.services.s3.model.S3ObjectSummary;
+import com.avojak.mojo.aws.p2.maven.plugin.s3.repository.S3BucketRepository;
+import com.avojak.mojo.aws.p2.maven.plugin.util.FileSystemTestUtil;
+import com.avojak.mojo.aws.p2.maven.plugin.util.checksum.ETagCalculator;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.junit.MockitoJUnitRunner;
+import org.mockito.stubbing.Answer;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Test class for {@link BucketMirror}.
+ */
+@RunWith(MockitoJUnitRunner.class)
+public class BucketMirrorTest {
+
+	private static final String PREFIX = "project/releases";
+
+	@Mock
+	private S3BucketRepository repository;
+
+	private final ETagCalculator eTagCalculator = new ETagCalculator();
+	private final Map<String, byte[]> remoteContent = new HashMap<String, byte[]>();
+	private final List<S3ObjectSummary> summaries = new ArrayList<S3ObjectSummary>();
+
+	private File directory;
+
+	/**
+	 * Setup mocks.
+	 *
+	 * @throws IOException Unexpected.
+	 */
+	@Before
+	public void setup() throws IOException {
+		directory = FileSystemTestUtil.createAccessibleDirectory();
+		when(repository.iterate(PREFIX)).thenReturn(summaries);
+	}
+
+	/**
+	 * Tests that the constructor throws an exception when the given repository is {@code null}.
+	 */
+	@Test(expected = NullPointerException.class)
+	public void testConstructorNullRepository() {
+		new BucketMirror(null, eTagCalculator, 1, 1, 0);
+	}
+
+	/**
+	 * Tests that the constructor throws an exception when the given {@link ETagCalculator} is {@code null}.
+	 */
+	@Test(expected = NullPointerException.class)
+	public void testConstructorNullETagCalculator() {
+		new BucketMirror(repository, null, 1, 1, 0);
+	}
+
+	/**
+	 * Tests that the constructor throws an exception when the given concurrency is not positive.
+	 */
+	@Test(expected = IllegalArgumentException.class)
+	public void testConstructorInvalidConcurrency() {
+		new BucketMirror(repository, eTagCalculator, 0, 1, 0);
+	}
+
+	/**
+	 * Tests that the constructor throws an exception when the given part size is not positive.
+	 */
+	@Test(expected = IllegalArgumentException.class)
+	public void testConstructorInvalidPartSize() {
+		new BucketMirror(repository, eTagCalculator, 1, 0, 0);
+	}
+
+	/**
+	 * Tests that the constructor throws an exception when the given shard depth is negative.
+	 */
+	@Test(expected = IllegalArgumentException.class)
+	public void testConstructorNegativeShardDepth() {
+		new BucketMirror(repository, eTagCalculator, 1, 1, -1);
+	}
+
+	/**
+	 * Tests that {@link BucketMirror#mirror(String, File)} throws an exception when the given prefix is {@code null}.
+	 *
+	 * @throws InterruptedException Unexpected.
+	 */
+	@Test(expected = NullPointerException.class)
+	public void testMirrorNullPrefix() throws InterruptedException {
+		new BucketMirror(repository, eTagCalculator, 1, 1, 0).mirror(null, directory);
+	}
+
+	/**
+	 * Tests that {@link BucketMirror#mirror(String, File)} throws an exception when the given prefix is empty.
+	 *
+	 * @throws InterruptedException Unexpected.
+	 */
+	@Test(expected = IllegalArgumentException.class)
+	public void testMirrorEmptyPrefix() throws InterruptedException {
+		new BucketMirror(repository, eTagCalculator, 1, 1, 0).mirror(" ", directory);
+	}
+
+	/**
+	 * Tests that {@link BucketMirror#mirror(String, File)} throws an exception when the given directory is {@code
+	 * null}.
+	 *
+	 * @throws InterruptedException Unexpected.
+	 */
+	@Test(expected = NullPointerException.class)
+	public void testMirrorNullDirectory() throws InterruptedException {
+		new BucketMirror(repository, eTagCalculator, 1, 1, 0).mirror(PREFIX, null);
+	}
+
+	/**
+	 * Tests {@link BucketMirror#mirror(String, File)} for objects smaller than the part size.
+	 *
+	 * @throws Exception Unexpected.
+	 */
+	@Test
+	public void testMirrorSinglePart() throws Exception {
+		addRemoteObject(PREFIX + "/content.xml", "content");
+		addRemoteObject(PREFIX + "/plugins/a.jar", "a");
+		answerDownloads();
+
+		final MirrorStatistics statistics = new BucketMirror(repository, eTagCalculator, 4, 1024, 0)
+				.mirror(PREFIX, directory);
+
+		assertEquals("content", readLocal(PREFIX + "/content.xml"));
+		assertEquals("a", readLocal(PREFIX + "/plugins/a.jar"));
+		assertEquals(2, statistics.getObjectsDownloaded());
+		assertEquals(8, statistics.getBytesDownloaded());
+		assertEquals(0, statistics.getRangedRequests());
+		assertEquals(0, statistics.getObjectsFailed());
+		assertFalse(new File(directory, PREFIX + "/content.xml.part").exists());
+	}
+
+	/**
+	 * Tests {@link BucketMirror#mirror(String, File)} for an object which is split into ranged requests.
+	 *
+	 * @throws Exception Unexpected.
+	 */
+	@Test
+	public void testMirrorRanged() throws Exception {
+		final String key = PREFIX + "/plugins/large.jar";
+		addRemoteObject(key, "0123456789");
+		answerDownloads();
+
+		final MirrorStatistics statistics = new BucketMirror(repository, eTagCalculator, 4, 3, 0)
+				.mirror(PREFIX, directory);
+
+		assertEquals("0123456789", readLocal(key));
+		assertEquals(1, statistics.getObjectsDownloaded());
+		assertEquals(10, statistics.getBytesDownloaded());
+		assertEquals(4, statistics.getRangedRequests());
+		verify(repository).downloadRange(eq(key), eq(0L), eq(2L), any(FileChannel.class));
+		verify(repository).downloadRange(eq(key), eq(9L), eq(9L), any(FileChannel.class));
+	}
+
+	/**
+	 * Tests that {@link BucketMirror#mirror(String, File)} skips objects whose local copy is up to date.
+	 *
+	 * @throws Exception Unexpected.
+	 */
+	@Test
+	public void testMirrorSkipsUpToDate() throws Exception {
+		final String key = PREFIX + "/content.xml";
+		addRemoteObject(key, "content");
+		writeLocal(key, "content");
+
+		final MirrorStatistics statistics = new BucketMirror(repository, eTagCalculator, 1, 1024, 0)
+				.mirror(PREFIX, directory);
+
+		assertEquals(1, statistics.getObjectsSkipped());
+		assertEquals(0, statistics.getObjectsDownloaded());
+		verify(repository, never()).downloadRange(anyString(), anyLong(), anyLong(), any(FileChannel.class));
+	}
+
+	/**
+	 * Tests that {@link BucketMirror#mirror(String, File)} downloads objects whose local copy has the same size but
+	 * different content.
+	 *
+	 * @throws Exception Unexpected.
+	 */
+	@Test
+	public void testMirrorReplacesStale() throws Exception {
+		final String key = PREFIX + "/content.xml";
+		addRemoteObject(key, "content");
+		writeLocal(key, "CONTENT");
+		answerDownloads();
+
+		final MirrorStatistics statistics = new BucketMirror(repository, eTagCalculator, 1, 1024, 0)
+				.mirror(PREFIX, directory);
+
+		assertEquals("content", readLocal(key));
+		assertEquals(1, statistics.getObjectsDownloaded());
+	}
+
+	/**
+	 * Tests that {@link BucketMirror#mirror(String, File)} ignores folder placeholder objects, and creates empty files
+	 * for empty objects without any requests.
+	 *
+	 * @throws Exception Unexpected.
+	 */
+	@Test
+	public void testMirrorFolderAndEmptyObjects() throws Exception {
+		addRemoteObject(PREFIX + "/plugins/", "");
+		addRemoteObject(PREFIX + "/empty.txt", "");
+
+		final MirrorStatistics statistics = new BucketMirror(repository, eTagCalculator, 1, 1024, 0)
+				.mirror(PREFIX, directory);
+
+		assertTrue(new File(directory, PREFIX + "/empty.txt").isFile());
+		assertFalse(new File(directory, PREFIX + "/plugins").exists());
+		assertEquals(1, statistics.getObjectsDownloaded());
+		verify(repository, never()).downloadRange(anyString(), anyLong(), anyLong(), any(FileChannel.class));
+	}
+
+	/**
+	 * Tests that {@link BucketMirror#mirror(String, File)} records failed downloads and leaves no partial files behind.
+	 *
+	 * @throws Exception Unexpected.
+	 */
+	@Test
+	public void testMirrorFailedDownload() throws Exception {
+		final String key = PREFIX + "/content.xml";
+		addRemoteObject(key, "content");
+		doThrow(new IOException()).when(repository)
+				.downloadRange(eq(key), anyLong(), anyLong(), any(FileChannel.class));
+
+		final MirrorStatistics statistics = new BucketMirror(repository, eTagCalculator, 2, 2, 0)
+				.mirror(PREFIX, directory);
+
+		assertEquals(1, statistics.getObjectsFailed());
+		assertEquals(0, statistics.getObjectsDownloaded());
+		assertFalse(new File(directory, key).exists());
+		assertFalse(new File(directory, key + ".part").exists());
+		verify(repository, times(4)).downloadRange(eq(key), anyLong(), anyLong(), any(FileChannel.class));
+	}
+
+	/**
+	 * Tests that {@link BucketMirror#mirror(String, File)} refuses keys which resolve outside of the directory.
+	 *
+	 * @throws Exception Unexpected.
+	 */
+	@Test
+	public void testMirrorKeyOutsideDirectory() throws Exception {
+		addRemoteObject(PREFIX + "/../../../escape.txt", "content");
+
+		final MirrorStatistics statistics = new BucketMirror(repository, eTagCalculator, 1, 1024, 0)
+				.mirror(PREFIX, directory);
+
+		assertEquals(1, statistics.getObjectsFailed());
+		verify(repository, never()).downloadRange(anyString(), anyLong(), anyLong(), any(FileChannel.class));
+	}
+
+	/**
+	 * Tests that {@link BucketMirror#mirror(String, File)} downloads every object of a sharded listing.
+	 *
+	 * @throws Exception Unexpected.
+	 */
+	@Test
+	public void testMirrorSharded() throws Exception {
+		addRemoteObject(PREFIX + "/content.xml", "content");
+		addRemoteObject(PREFIX + "/plugins/a.jar", "a");
+		answerDownloads();
+		when(repository.listDirectories(PREFIX)).thenReturn(Collections.singletonList(PREFIX + "/plugins/"));
+		when(repository.iterateAfter(PREFIX, null)).thenReturn(summaries.subList(0, 1));
+		when(repository.iterateAfter(PREFIX, PREFIX + "/plugins/")).thenReturn(summaries.subList(1, 2));
+
+		final MirrorStatistics statistics = new BucketMirror(repository, eTagCalculator, 2, 1024, 1)
+				.mirror(PREFIX, directory);
+
+		assertEquals("content", readLocal(PREFIX + "/content.xml"));
+		assertEquals("a", readLocal(PREFIX + "/plugins/a.jar"));
+		assertEquals(2, statistics.getObjectsDownloaded());
+		verify(repository, never()).iterate(PREFIX);
+	}
+
+	private void addRemoteObject(final String key, final String content) throws IOException {
+		final byte[] bytes = content.getBytes(StandardCharsets.UTF_8);
+		final File file = FileSystemTestUtil.createAccessibleFile();
+		Files.write(file.toPath(), bytes);
+		final S3ObjectSummary summary = new S3ObjectSummary();
+		summary.setKey(key);
+		summary.setSize(bytes.length);
+		summary.setETag(eTagCalculator.calculate(file));
+		summaries.add(summary);
+		remoteContent.put(key, bytes);
+	}
+
+	private void answerDownloads() throws IOException {
+		doAnswer(new Answer<Long>() {
+			@Override
+			public Long answer(final InvocationOnMock invocation) throws IOException {
+				final byte[] content = remoteContent.get(invocation.<String>getArgument(0));
+				final long start = invocation.getArgument(1);
+				final long end = invocation.getArgument(2);
+				final FileChannel channel = invocation.getArgument(3);
+				final int length = (int) (end - start + 1);
+				channel.write(ByteBuffer.wrap(content, (int) start, length), start);
+				return (long) length;
+			}
+		}).when(repository).downloadRange(anyString(), anyLong(), anyLong(), any(FileChannel.class));
+	}
+
+	private void writeLocal(final String key, final String content) throws IOException {
+		final File file = new File(directory, key);
+		Files.createDirectories(file.getParentFile().toPath());
+		Files.write(file.toPath(), content.getBytes(StandardCharsets.UTF_8));
+	}
+
+	private String readLocal(final String key) throws IOException {
+		return new String(Files.readAllBytes(new File(directory, key).toPath()), StandardCharsets.UTF_8);
+	}
+
+}
@@ -0,0 +1,63 @@
+package com.avojak.mojo.aws.p2.maven.plugin.mirror;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Test class for {@link MirrorStatistics}.
+ */
+public class MirrorStatisticsTest {
+
+	/**
+	 * Tests that the recorded counters are reported.
+	 */
+	@Test
+	public void testCounters() {
+		final MirrorStatistics statistics = new MirrorStatistics();
+		statistics.recordDownloaded();
+		statistics.recordDownloaded();
+		statistics.recordSkipped();
+		statistics.recordFailed();
+		statistics.recordBytes(10);
+		statistics.recordBytes(5);
+		statistics.recordRangedRequest();
+
+		assertEquals(2, statistics.getObjectsDownloaded());
+		assertEquals(1, statistics.getObjectsSkipped());
+		assertEquals(1, statistics.getObjectsFailed());
+		assertEquals(15, statistics.getBytesDownloaded());
+		assertEquals(1, statistics.getRangedRequests());
+	}
+
+	/**
+	 * Tests that the elapsed time is frozen once stopped.
+	 *
+	 * @throws InterruptedException Unexpected.
+	 */
+	@Test
+	public void testStop() throws InterruptedException {
+		final MirrorStatistics statistics = new MirrorStatistics();
+		Thread.sleep(5);
+		statistics.stop();
+		final long elapsed = statistics.getElapsedMillis();
+		Thread.sleep(5);
+
+		assertTrue(elapsed >= 5);
+		assertEquals(elapsed, statistics.getElapsedMillis());
+	}
+
+	/**
+	 * Tests that the throughput is derived from the bytes downloaded and the elapsed time.
+	 */
+	@Test
+	public void testBytesPerSecond() {
+		final MirrorStatistics statistics = new MirrorStatistics();
+		statistics.recordBytes(1000);
+		statistics.stop();
+
+		assertEquals(1000 * 1000 / Math.max(1, statistics.getElapsedMillis()), statistics.getBytesPerSecond());
+	}
+
+}
@@ -0,0 +1,216 @@
+package com.avojak.mojo.aws.p2.maven.plugin.s3;
+
+import com.amazonaws.auth.AWSCredentialsProvider;
+import com.amazonaws.services.s3.AmazonS3;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.junit.MockitoJUnitRunner;
+
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertSame;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Test class for {@link AmazonS3ClientCache}.
+ */
+@RunWith(MockitoJUnitRunner.class)
+public class AmazonS3ClientCacheTest {
+
+	@Mock
+	private AmazonS3ClientFactory clientFactory;
+
+	@Mock
+	private AWSCredentialsProvider credentialsProvider;
+
+	@Mock
+	private AmazonS3 defaultClient;
+
+	@Mock
+	private AmazonS3 regionalClient;
+
+	private AmazonS3ClientCache clientCache;
+
+	/**
+	 * Setup mocks.
+	 */
+	@Before
+	public void setup() {
+		clientCache = new AmazonS3ClientCache(clientFactory, credentialsProvider);
+	}
+
+	/**
+	 * Tests that the constructor throws an exception when the given client factory is {@code null}.
+	 */
+	@Test(expected = NullPointerException.class)
+	public void testConstructorNullClientFactory() {
+		new AmazonS3ClientCache(null, credentialsProvider);
+	}
+
+	/**
+	 * Tests that the constructor throws an exception when the given credentials provider is {@code null}.
+	 */
+	@Test(expected = NullPointerException.class)
+	public void testConstructorNullCredentialsProvider() {
+		new AmazonS3ClientCache(clientFactory, null);
+	}
+
+	/**
+	 * Tests that no client is created until one is requested.
+	 */
+	@Test
+	public void testClientsCreatedLazily() {
+		verify(clientFactory, never()).create(anyString(), any(AWSCredentialsProvider.class), any(ClientSettings.class));
+		verify(credentialsProvider, never()).getCredentials();
+	}
+
+	/**
+	 * Tests that {@link AmazonS3ClientCache#getClient(String)} throws an exception when the given region is empty.
+	 */
+	@Test(expected = IllegalArgumentException.class)
+	public void testGetClientEmptyRegion() {
+		clientCache.getClient(" ");
+	}
+
+	/**
+	 * Tests that clients are created once per region and reused afterwards.
+	 */
+	@Test
+	public void testGetClient() {
+		when(clientFactory.create("us-east-1", credentialsProvider, new ClientSettings())).thenReturn(defaultClient);
+		when(clientFactory.create("eu-west-1", credentialsProvider, new ClientSettings())).thenReturn(regionalClient);
+
+		assertSame(defaultClient, clientCache.getClient());
+		assertSame(defaultClient, clientCache.getClient("us-east-1"));
+		assertSame(regionalClient, clientCache.getClient("eu-west-1"));
+		assertSame(regionalClient, clientCache.getClient("eu-west-1"));
+
+		verify(clientFactory).create("us-east-1", credentialsProvider, new ClientSettings());
+		verify(clientFactory).create("eu-west-1", credentialsProvider, new ClientSettings());
+	}
+
+	/**
+	 * Tests that clients with different settings are cached separately, and that later changes to the given settings
+	 * do not affect the cache.
+	 */
+	@Test
+	public void testGetClientSettings() {
+		final ClientSettings settings = new ClientSettings();
+		settings.setMaxConnections(100);
+		final ClientSettings expectedSettings = new ClientSettings(settings);
+		when(clientFactory.create("us-east-1", credentialsProvider, new ClientSettings())).thenReturn(defaultClient);
+		when(clientFactory.create("us-east-1", credentialsProvider, expectedSettings)).thenReturn(regionalClient);
+
+		assertSame(defaultClient, clientCache.getClient());
+		assertSame(regionalClient, clientCache.getClient("us-east-1", settings));
+		settings.setMaxConnections(10);
+		assertSame(regionalClient, clientCache.getClient("us-east-1", expectedSettings));
+	}
+
+	/**
+	 * Tests that the same client is used when the credentials resolved by its provider rotate, and that the
+	 * credentials are not resolved to look up the client.
+	 */
+	@Test
+	public void testGetClientCredentialsRotated() {
+		when(clientFactory.create("us-east-1", credentialsProvider, new ClientSettings())).thenReturn(defaultClient);
+
+		assertSame(defaultClient, clientCache.getClient());
+		assertSame(defaultClient, clientCache.getClient());
+
+		verify(clientFactory).create("us-east-1", credentialsProvider, new ClientSettings());
+		verify(credentialsProvider, never()).getCredentials();
+	}
+
+	/**
+	 * Tests that the least recently used client is evicted once the cache holds the maximum number of clients, and that
+	 * it is not shut down, as it may still be in use.
+	 */
+	@Test
+	public void testGetClientEvictsLeastRecentlyUsed() {
+		final AmazonS3 otherClient = mock(AmazonS3.class);
+		clientCache = new AmazonS3ClientCache(clientFactory, credentialsProvider, 2);
+		when(clientFactory.create("us-east-1", credentialsProvider, new ClientSettings())).thenReturn(defaultClient);
+		when(clientFactory.create("eu-west-1", credentialsProvider, new ClientSettings())).thenReturn(regionalClient);
+		when(clientFactory.create("ap-south-1", credentialsProvider, new ClientSettings())).thenReturn(otherClient);
+		clientCache.getClient("us-east-1");
+		clientCache.getClient("eu-west-1");
+		clientCache.getClient("us-east-1");
+
+		assertSame(otherClient, clientCache.getClient("ap-south-1"));
+
+		verify(regionalClient, never()).shutdown();
+		verify(defaultClient, never()).shutdown();
+		assertSame(defaultClient, clientCache.getClient("us-east-1"));
+		verify(clientFactory).create("us-east-1", credentialsProvider, new ClientSettings());
+		clientCache.getClient("eu-west-1");
+		verify(clientFactory, times(2)).create("eu-west-1", credentialsProvider, new ClientSettings());
+	}
+
+	/**
+	 * Tests that the constructor throws an exception when the given maximum number of clients is not positive.
+	 */
+	@Test(expected = IllegalArgumentException.class)
+	public void testConstructorInvalidMaxClients() {
+		new AmazonS3ClientCache(clientFactory, credentialsProvider, 0);
+	}
+
+	/**
+	 * Tests that clients for explicitly given credentials authenticate with those credentials, and are cached
+	 * separately from the clients of other identities.
+	 */
+	@Test
+	public void testGetClientCredentialsProvider() {
+		final AWSCredentialsProvider otherProvider = mock(AWSCredentialsProvider.class);
+		when(clientFactory.create("us-east-1", credentialsProvider, new ClientSettings())).thenReturn(defaultClient);
+		when(clientFactory.create("us-east-1", otherProvider, new ClientSettings())).thenReturn(regionalClient);
+
+		assertSame(defaultClient, clientCache.getClient());
+		assertSame(regionalClient, clientCache.getClient("us-east-1", new ClientSettings(), otherProvider));
+		assertSame(regionalClient, clientCache.getClient("us-east-1", new ClientSettings(), otherProvider));
+	}
+
+	/**
+	 * Tests that {@link AmazonS3ClientCache#getClient(String, ClientSettings, AWSCredentialsProvider)} throws an
+	 * exception when the given credentials provider is {@code null}.
+	 */
+	@Test(expected = NullPointerException.class)
+	public void testGetClientNullCredentialsProvider() {
+		clientCache.getClient("us-east-1", new ClientSettings(), null);
+	}
+
+	/**
+	 * Tests that {@link AmazonS3ClientCache#shutdown()} shuts down every cached client, and that clients are created
+	 * anew afterwards.
+	 */
+	@Test
+	public void testShutdown() {
+		when(clientFactory.create("us-east-1", credentialsProvider, new ClientSettings())).thenReturn(defaultClient);
+		when(clientFactory.create("eu-west-1", credentialsProvider, new ClientSettings())).thenReturn(regionalClient);
+		clientCache.getClient();
+		clientCache.getClient("eu-west-1");
+
+		clientCache.shutdown();
+
+		verify(defaultClient).shutdown();
+		verify(regionalClient).shutdown();
+		assertNotNull(clientCache.getClient());
+		verify(clientFactory, times(2)).create("us-east-1", credentialsProvider, new ClientSettings());
+	}
+
+	/**
+	 * Tests that the global cache is shared.
+	 */
+	@Test
+	public void testGetGlobal() {
+		assertSame(AmazonS3ClientCache.getGlobal(), AmazonS3ClientCache.getGlobal());
+	}
+
+}
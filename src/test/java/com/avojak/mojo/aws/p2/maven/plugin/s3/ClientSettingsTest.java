@@ -0,0 +1,128 @@
+package com.avojak.mojo.aws.p2.maven.plugin.s3;
+
+import com.amazonaws.ClientConfiguration;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Test class for {@link ClientSettings}.
+ */
+public class ClientSettingsTest {
+
+	/**
+	 * Tests that unspecified settings use the defaults of {@link ClientConfiguration}.
+	 */
+	@Test
+	public void testToClientConfigurationDefaults() {
+		final ClientConfiguration defaults = new ClientConfiguration();
+		final ClientConfiguration configuration = new ClientSettings().toClientConfiguration();
+
+		assertEquals(defaults.getMaxConnections(), configuration.getMaxConnections());
+		assertEquals(defaults.getConnectionTTL(), configuration.getConnectionTTL());
+		assertEquals(defaults.useTcpKeepAlive(), configuration.useTcpKeepAlive());
+		assertEquals(defaults.getSocketTimeout(), configuration.getSocketTimeout());
+		assertEquals(defaults.getSocketBufferSizeHints()[0], configuration.getSocketBufferSizeHints()[0]);
+	}
+
+	/**
+	 * Tests that every specified setting is applied to the {@link ClientConfiguration}.
+	 */
+	@Test
+	public void testToClientConfiguration() {
+		final ClientSettings settings = new ClientSettings();
+		settings.setMaxConnections(128);
+		settings.setConnectionTtl(60000L);
+		settings.setConnectionMaxIdle(30000L);
+		settings.setUseReaper(false);
+		settings.setSocketSendBufferSize(1048576);
+		settings.setSocketReceiveBufferSize(262144);
+		settings.setTcpKeepAlive(true);
+		settings.setConnectionTimeout(5000);
+		settings.setSocketTimeout(20000);
+		settings.setRequestTimeout(120000);
+		settings.setMaxErrorRetry(5);
+		settings.setThrottleRetries(false);
+		settings.setMaxConsecutiveRetriesBeforeThrottling(500);
+
+		final ClientConfiguration configuration = settings.toClientConfiguration();
+
+		assertEquals(128, configuration.getMaxConnections());
+		assertEquals(60000L, configuration.getConnectionTTL());
+		assertEquals(30000L, configuration.getConnectionMaxIdleMillis());
+		assertFalse(configuration.useReaper());
+		assertEquals(1048576, configuration.getSocketBufferSizeHints()[0]);
+		assertEquals(262144, configuration.getSocketBufferSizeHints()[1]);
+		assertTrue(configuration.useTcpKeepAlive());
+		assertEquals(5000, configuration.getConnectionTimeout());
+		assertEquals(20000, configuration.getSocketTimeout());
+		assertEquals(120000, configuration.getRequestTimeout());
+		assertEquals(5, configuration.getMaxErrorRetry());
+		assertFalse(configuration.useThrottledRetries());
+		assertEquals(500, configuration.getMaxConsecutiveRetriesBeforeThrottling());
+	}
+
+	/**
+	 * Tests that {@link ClientSettings#resolve(int)} throws an exception when the given concurrency is not positive.
+	 */
+	@Test(expected = IllegalArgumentException.class)
+	public void testResolveInvalidConcurrency() {
+		new ClientSettings().resolve(0);
+	}
+
+	/**
+	 * Tests that {@link ClientSettings#resolve(int)} scales the unspecified settings to the given concurrency.
+	 */
+	@Test
+	public void testResolve() {
+		final ClientSettings settings = new ClientSettings();
+
+		final ClientSettings low = settings.resolve(8);
+		final ClientSettings high = settings.resolve(160);
+
+		assertEquals(Integer.valueOf(ClientSettings.DEFAULT_MAX_CONNECTIONS), low.getMaxConnections());
+		assertEquals(Integer.valueOf(ClientConfiguration.DEFAULT_MAX_CONSECUTIVE_RETRIES_BEFORE_THROTTLING),
+				low.getMaxConsecutiveRetriesBeforeThrottling());
+		assertTrue(low.getTcpKeepAlive());
+		assertEquals(Integer.valueOf(160), high.getMaxConnections());
+		assertEquals(Integer.valueOf(160), high.getMaxConsecutiveRetriesBeforeThrottling());
+		assertNull(settings.getMaxConnections());
+	}
+
+	/**
+	 * Tests that {@link ClientSettings#resolve(int)} leaves specified settings unchanged.
+	 */
+	@Test
+	public void testResolveSpecified() {
+		final ClientSettings settings = new ClientSettings();
+		settings.setMaxConnections(16);
+		settings.setMaxConsecutiveRetriesBeforeThrottling(10);
+		settings.setTcpKeepAlive(false);
+
+		assertEquals(settings, settings.resolve(160));
+	}
+
+	/**
+	 * Tests {@link ClientSettings#equals(Object)}.
+	 */
+	@Test
+	public void testEquals() {
+		final ClientSettings settings1 = new ClientSettings();
+		final ClientSettings settings2 = new ClientSettings();
+		final ClientSettings settings3 = new ClientSettings();
+		settings3.setSocketTimeout(1000);
+
+		assertEquals(settings1, settings1);
+		assertEquals(settings1, settings2);
+		assertEquals(settings3, new ClientSettings(settings3));
+		assertEquals(settings3.hashCode(), new ClientSettings(settings3).hashCode());
+		assertNotEquals(settings1, null);
+		assertNotEquals(settings1, "String");
+		assertNotEquals(settings1, settings3);
+	}
+
+}
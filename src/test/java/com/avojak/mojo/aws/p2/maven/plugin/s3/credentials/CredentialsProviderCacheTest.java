@@ -0,0 +1,140 @@
+package com.avojak.mojo.aws.p2.maven.plugin.s3.credentials;
+
+import com.amazonaws.auth.AWSCredentials;
+import com.amazonaws.auth.AWSCredentialsProvider;
+import com.amazonaws.auth.AWSStaticCredentialsProvider;
+import com.amazonaws.auth.ContainerCredentialsProvider;
+import com.amazonaws.auth.EnvironmentVariableCredentialsProvider;
+import com.amazonaws.auth.WebIdentityTokenCredentialsProvider;
+import com.amazonaws.auth.profile.ProfileCredentialsProvider;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.junit.MockitoJUnitRunner;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.verifyZeroInteractions;
+
+/**
+ * Test class for {@link CredentialsProviderCache}.
+ */
+@RunWith(MockitoJUnitRunner.class)
+public class CredentialsProviderCacheTest {
+
+	@Mock
+	private AWSCredentialsProvider defaultProvider;
+
+	private CredentialsProviderCache providerCache;
+
+	/**
+	 * Setup mocks.
+	 */
+	@Before
+	public void setup() {
+		providerCache = new CredentialsProviderCache(defaultProvider);
+	}
+
+	/**
+	 * Tests that the constructor throws an exception when the given default provider is {@code null}.
+	 */
+	@Test(expected = NullPointerException.class)
+	public void testConstructorNullDefaultProvider() {
+		new CredentialsProviderCache(null);
+	}
+
+	/**
+	 * Tests that {@link CredentialsProviderCache#get(CredentialsSettings)} throws an exception when the given settings
+	 * are {@code null}.
+	 */
+	@Test(expected = NullPointerException.class)
+	public void testGetNullSettings() {
+		providerCache.get(null);
+	}
+
+	/**
+	 * Tests that the default provider is used when no source is specified, without resolving any credentials.
+	 */
+	@Test
+	public void testGetDefault() {
+		assertSame(defaultProvider, providerCache.get(new CredentialsSettings()));
+		verifyZeroInteractions(defaultProvider);
+	}
+
+	/**
+	 * Tests that each source is served by the matching provider.
+	 */
+	@Test
+	public void testGetSources() {
+		assertTrue(providerCache.get(createSettings(CredentialsSource.ENVIRONMENT))
+				instanceof EnvironmentVariableCredentialsProvider);
+		assertTrue(providerCache.get(createSettings(CredentialsSource.PROFILE)) instanceof ProfileCredentialsProvider);
+		assertTrue(providerCache.get(createSettings(CredentialsSource.WEB_IDENTITY))
+				instanceof WebIdentityTokenCredentialsProvider);
+		assertTrue(providerCache.get(createSettings(CredentialsSource.CONTAINER))
+				instanceof ContainerCredentialsProvider);
+	}
+
+	/**
+	 * Tests that static credentials are served from the configured keys.
+	 */
+	@Test
+	public void testGetStatic() {
+		final CredentialsSettings settings = createSettings(CredentialsSource.STATIC);
+		settings.setAccessKey("access");
+		settings.setSecretKey("secret");
+
+		final AWSCredentialsProvider provider = providerCache.get(settings);
+
+		assertTrue(provider instanceof AWSStaticCredentialsProvider);
+		final AWSCredentials credentials = provider.getCredentials();
+		assertEquals("access", credentials.getAWSAccessKeyId());
+		assertEquals("secret", credentials.getAWSSecretKey());
+	}
+
+	/**
+	 * Tests that static credentials require a secret key.
+	 */
+	@Test(expected = IllegalArgumentException.class)
+	public void testGetStaticMissingSecretKey() {
+		final CredentialsSettings settings = createSettings(CredentialsSource.STATIC);
+		settings.setAccessKey("access");
+
+		providerCache.get(settings);
+	}
+
+	/**
+	 * Tests that providers are created once per settings and reused afterwards, and that later changes to the given
+	 * settings do not affect the cache.
+	 */
+	@Test
+	public void testGetCached() {
+		final CredentialsSettings settings = createSettings(CredentialsSource.PROFILE);
+		settings.setProfile("ci");
+		final CredentialsSettings expectedSettings = new CredentialsSettings(settings);
+
+		final AWSCredentialsProvider provider = providerCache.get(settings);
+		settings.setProfile("other");
+
+		assertSame(provider, providerCache.get(expectedSettings));
+		assertNotSame(provider, providerCache.get(settings));
+	}
+
+	/**
+	 * Tests that the global cache is shared.
+	 */
+	@Test
+	public void testGetGlobal() {
+		assertSame(CredentialsProviderCache.getGlobal(), CredentialsProviderCache.getGlobal());
+	}
+
+	private CredentialsSettings createSettings(final CredentialsSource source) {
+		final CredentialsSettings settings = new CredentialsSettings();
+		settings.setSource(source);
+		return settings;
+	}
+
+}
@@ -0,0 +1,74 @@
+package com.avojak.mojo.aws.p2.maven.plugin.s3.credentials;
+
+import com.amazonaws.SdkClientException;
+import com.amazonaws.auth.AWSCredentialsProvider;
+import com.amazonaws.auth.DefaultAWSCredentialsProviderChain;
+import org.junit.Test;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmark of the time taken to first resolve credentials, as paid by every build, with the default credential
+ * provider chain and with an explicit {@link CredentialsSource}.
+ * <p>
+ * The cost of the chain depends on the host: where no earlier source provides credentials, the chain probes the
+ * container endpoint and the instance metadata service, each with its own timeouts. The benchmark is not run as part
+ * of the build, and is run with:
+ * <pre>
+ * mvn test -Dtest=CredentialsResolutionBenchmark
+ * </pre>
+ */
+public class CredentialsResolutionBenchmark {
+
+	private static final int RUNS = 3;
+
+	/**
+	 * Compares the default chain with static credentials, resolving from fresh providers on each run as a new build
+	 * would.
+	 */
+	@Test
+	public void benchmarkFirstResolution() {
+		final long chainNanos = time(new ProviderSupplier() {
+			@Override
+			public AWSCredentialsProvider get() {
+				return new DefaultAWSCredentialsProviderChain();
+			}
+		});
+		final long explicitNanos = time(new ProviderSupplier() {
+			@Override
+			public AWSCredentialsProvider get() {
+				final CredentialsSettings settings = new CredentialsSettings();
+				settings.setSource(CredentialsSource.STATIC);
+				settings.setAccessKey("access");
+				settings.setSecretKey("secret");
+				return new CredentialsProviderCache(new DefaultAWSCredentialsProviderChain()).get(settings);
+			}
+		});
+		System.out.printf("Default chain:    %d ms per build%n", TimeUnit.NANOSECONDS.toMillis(chainNanos));
+		System.out.printf("Explicit source:  %d ms per build%n", TimeUnit.NANOSECONDS.toMillis(explicitNanos));
+	}
+
+	private long time(final ProviderSupplier supplier) {
+		long total = 0;
+		for (int i = 0; i < RUNS; i++) {
+			final long start = System.nanoTime();
+			try {
+				supplier.get().getCredentials();
+			} catch (final SdkClientException e) {
+				// No source provided credentials, which is the worst case for the chain
+			}
+			total += System.nanoTime() - start;
+		}
+		return total / RUNS;
+	}
+
+	/**
+	 * Supplies a new provider for each run.
+	 */
+	private interface ProviderSupplier {
+
+		AWSCredentialsProvider get();
+
+	}
+
+}
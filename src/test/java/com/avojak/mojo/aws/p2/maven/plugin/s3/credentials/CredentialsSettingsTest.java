@@ -0,0 +1,63 @@
+package com.avojak.mojo.aws.p2.maven.plugin.s3.credentials;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+
+/**
+ * Test class for {@link CredentialsSettings}.
+ */
+public class CredentialsSettingsTest {
+
+	/**
+	 * Tests that the default credential provider chain is used when no source is specified.
+	 */
+	@Test
+	public void testGetSourceDefault() {
+		assertEquals(CredentialsSource.DEFAULT, new CredentialsSettings().getSource());
+	}
+
+	/**
+	 * Tests that the copy constructor copies every setting.
+	 */
+	@Test
+	public void testCopyConstructor() {
+		final CredentialsSettings settings = new CredentialsSettings();
+		settings.setSource(CredentialsSource.STATIC);
+		settings.setProfile("profile");
+		settings.setAccessKey("access");
+		settings.setSecretKey("secret");
+
+		final CredentialsSettings copy = new CredentialsSettings(settings);
+
+		assertEquals(CredentialsSource.STATIC, copy.getSource());
+		assertEquals("profile", copy.getProfile());
+		assertEquals("access", copy.getAccessKey());
+		assertEquals("secret", copy.getSecretKey());
+		assertEquals(settings, copy);
+		assertEquals(settings.hashCode(), copy.hashCode());
+	}
+
+	/**
+	 * Tests {@link CredentialsSettings#equals(Object)} and {@link CredentialsSettings#hashCode()}.
+	 */
+	@Test
+	public void testEquals() {
+		final CredentialsSettings settings = new CredentialsSettings();
+		final CredentialsSettings explicitDefault = new CredentialsSettings();
+		explicitDefault.setSource(CredentialsSource.DEFAULT);
+		final CredentialsSettings profile = new CredentialsSettings();
+		profile.setSource(CredentialsSource.PROFILE);
+		final CredentialsSettings namedProfile = new CredentialsSettings(profile);
+		namedProfile.setProfile("ci");
+
+		assertEquals(settings, explicitDefault);
+		assertEquals(settings.hashCode(), explicitDefault.hashCode());
+		assertNotEquals(settings, profile);
+		assertNotEquals(profile, namedProfile);
+		assertNotEquals(settings, null);
+		assertNotEquals(settings, "settings");
+	}
+
+}
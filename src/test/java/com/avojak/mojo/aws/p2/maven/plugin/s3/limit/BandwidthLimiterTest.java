@@ -0,0 +1,203 @@
+package com.avojak.mojo.aws.p2.maven.plugin.s3.limit;
+
+import com.google.common.base.Ticker;
+import org.junit.Test;
+
+import javax.management.Attribute;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Test class for {@link BandwidthLimiter}.
+ */
+public class BandwidthLimiterTest {
+
+	private final FakeTicker ticker = new FakeTicker();
+
+	/**
+	 * Tests that the constructor throws an exception when the given rate is negative.
+	 */
+	@Test(expected = IllegalArgumentException.class)
+	public void testConstructorNegativeBytesPerSecond() {
+		new BandwidthLimiter(-1);
+	}
+
+	/**
+	 * Tests that the constructor throws an exception when the given {@link Ticker} is {@code null}.
+	 */
+	@Test(expected = NullPointerException.class)
+	public void testConstructorNullTicker() {
+		new BandwidthLimiter(0, null);
+	}
+
+	/**
+	 * Tests that {@link BandwidthLimiter#setBytesPerSecond(long)} throws an exception when the given rate is negative.
+	 */
+	@Test(expected = IllegalArgumentException.class)
+	public void testSetBytesPerSecondNegative() {
+		new BandwidthLimiter(0).setBytesPerSecond(-1);
+	}
+
+	/**
+	 * Tests that {@link BandwidthLimiter#reserve(int)} throws an exception when the given number of bytes is negative.
+	 */
+	@Test(expected = IllegalArgumentException.class)
+	public void testReserveNegativeBytes() {
+		new BandwidthLimiter(0).reserve(-1);
+	}
+
+	/**
+	 * Tests that the same global limiter is always returned.
+	 */
+	@Test
+	public void testGetGlobal() {
+		assertSame(BandwidthLimiter.getGlobal(), BandwidthLimiter.getGlobal());
+	}
+
+	/**
+	 * Tests that an unlimited limiter never waits, but still counts the bytes transferred.
+	 */
+	@Test
+	public void testReserveUnlimited() {
+		final BandwidthLimiter limiter = new BandwidthLimiter(0, ticker);
+
+		assertEquals(0, limiter.reserve(Integer.MAX_VALUE));
+		assertEquals(0, limiter.reserve(Integer.MAX_VALUE));
+		assertEquals(2L * Integer.MAX_VALUE, limiter.getBytesTransferred());
+		assertEquals(Integer.MAX_VALUE, limiter.getMaxChunkSize());
+	}
+
+	/**
+	 * Tests that bytes within the burst allowance are sent without waiting after the limiter has been idle, and that
+	 * further bytes wait for the time they take at the configured rate.
+	 */
+	@Test
+	public void testReservePacesAtRate() {
+		final BandwidthLimiter limiter = new BandwidthLimiter(1000, ticker);
+		ticker.advance(TimeUnit.SECONDS.toNanos(1));
+
+		// 10 bytes take 10 ms at 1000 bytes per second, which the burst allowance covers
+		assertEquals(0, limiter.reserve(10));
+		assertEquals(TimeUnit.MILLISECONDS.toNanos(10), limiter.reserve(10));
+		assertEquals(TimeUnit.MILLISECONDS.toNanos(510), limiter.reserve(500));
+		ticker.advance(TimeUnit.MILLISECONDS.toNanos(510));
+		assertEquals(TimeUnit.MILLISECONDS.toNanos(1), limiter.reserve(1));
+	}
+
+	/**
+	 * Tests that the time which a limiter has been idle only accrues up to the burst allowance.
+	 */
+	@Test
+	public void testReserveIdleDoesNotAccrue() {
+		final BandwidthLimiter limiter = new BandwidthLimiter(1000, ticker);
+		ticker.advance(TimeUnit.HOURS.toNanos(1));
+
+		assertEquals(TimeUnit.MILLISECONDS.toNanos(990), limiter.reserve(1000));
+	}
+
+	/**
+	 * Tests that bytes which were sent while the limiter was unlimited are not owed once a limit is set.
+	 */
+	@Test
+	public void testSetBytesPerSecondFromUnlimited() {
+		final BandwidthLimiter limiter = new BandwidthLimiter(0, ticker);
+		limiter.reserve(1000000);
+
+		limiter.setBytesPerSecond(1000);
+
+		assertEquals(1000, limiter.getBytesPerSecond());
+		// Only the new bytes are paced, rather than the thousand seconds that the earlier bytes would take
+		assertEquals(TimeUnit.MILLISECONDS.toNanos(10), limiter.reserve(10));
+	}
+
+	/**
+	 * Tests that the chunk size is the number of bytes allowed in the burst allowance, and at least one byte.
+	 */
+	@Test
+	public void testGetMaxChunkSize() {
+		assertEquals(10240, new BandwidthLimiter(1024000, ticker).getMaxChunkSize());
+		assertEquals(1, new BandwidthLimiter(10, ticker).getMaxChunkSize());
+	}
+
+	/**
+	 * Tests that {@link BandwidthLimiter#configure(long)} only changes the limit when the configured value changes, so
+	 * that an adjustment made in the meantime is kept.
+	 */
+	@Test
+	public void testConfigure() {
+		final BandwidthLimiter limiter = new BandwidthLimiter(0, ticker);
+		limiter.configure(1000);
+		limiter.setBytesPerSecond(500);
+
+		limiter.configure(1000);
+		assertEquals(500, limiter.getBytesPerSecond());
+
+		limiter.configure(2000);
+		assertEquals(2000, limiter.getBytesPerSecond());
+	}
+
+	/**
+	 * Tests that {@link BandwidthLimiter#acquire(int)} waits for the reserved time.
+	 *
+	 * @throws InterruptedException Unexpected.
+	 */
+	@Test(timeout = 10000)
+	public void testAcquire() throws InterruptedException {
+		final BandwidthLimiter limiter = new BandwidthLimiter(1000);
+
+		final long start = System.nanoTime();
+		limiter.acquire(100);
+		final long elapsed = System.nanoTime() - start;
+
+		assertTrue("Waited " + elapsed + " ns", elapsed >= TimeUnit.MILLISECONDS.toNanos(80));
+	}
+
+	/**
+	 * Tests that {@link BandwidthLimiter#registerMBean()} exposes the limit through JMX, and that the limit may be
+	 * adjusted through it.
+	 *
+	 * @throws Exception Unexpected.
+	 */
+	@Test
+	public void testRegisterMBean() throws Exception {
+		final BandwidthLimiter limiter = new BandwidthLimiter(1000, ticker);
+		final MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+		final ObjectName name = new ObjectName(BandwidthLimiter.OBJECT_NAME);
+		try {
+			new BandwidthLimiter(0, ticker).registerMBean();
+			limiter.registerMBean();
+			limiter.registerMBean();
+
+			assertEquals(1000L, server.getAttribute(name, "BytesPerSecond"));
+			server.setAttribute(name, new Attribute("BytesPerSecond", 2000L));
+			assertEquals(2000, limiter.getBytesPerSecond());
+		} finally {
+			server.unregisterMBean(name);
+		}
+	}
+
+	/**
+	 * {@link Ticker} whose time only advances when told to.
+	 */
+	private static class FakeTicker extends Ticker {
+
+		private long nanos;
+
+		@Override
+		public long read() {
+			return nanos;
+		}
+
+		void advance(final long nanos) {
+			this.nanos += nanos;
+		}
+
+	}
+
+}
@@ -0,0 +1,132 @@
+package com.avojak.mojo.aws.p2.maven.plugin.s3.limit;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Test class for {@link InFlightRequestLimiter}.
+ */
+public class InFlightRequestLimiterTest {
+
+	/**
+	 * Tests that the constructor throws an exception when the given maximum is not positive.
+	 */
+	@Test(expected = IllegalArgumentException.class)
+	public void testConstructorInvalidMaxInFlightRequests() {
+		new InFlightRequestLimiter(0);
+	}
+
+	/**
+	 * Tests that {@link InFlightRequestLimiter#setMaxInFlightRequests(int)} throws an exception when the given maximum
+	 * is not positive.
+	 */
+	@Test(expected = IllegalArgumentException.class)
+	public void testSetMaxInFlightRequestsInvalid() {
+		new InFlightRequestLimiter(1).setMaxInFlightRequests(0);
+	}
+
+	/**
+	 * Tests that the same global limiter is always returned.
+	 */
+	@Test
+	public void testGetGlobal() {
+		assertSame(InFlightRequestLimiter.getGlobal(), InFlightRequestLimiter.getGlobal());
+	}
+
+	/**
+	 * Tests that no more than the maximum number of permits are held at once by concurrent callers.
+	 *
+	 * @throws Exception Unexpected.
+	 */
+	@Test(timeout = 10000)
+	public void testLimitsInFlightRequests() throws Exception {
+		final InFlightRequestLimiter limiter = new InFlightRequestLimiter(3);
+		final AtomicInteger inFlight = new AtomicInteger();
+		final AtomicInteger maxInFlight = new AtomicInteger();
+		final CountDownLatch start = new CountDownLatch(1);
+		final ExecutorService executor = Executors.newFixedThreadPool(16);
+		final List<Future<Void>> futures = new ArrayList<Future<Void>>();
+		for (int i = 0; i < 64; i++) {
+			futures.add(executor.submit(new Callable<Void>() {
+				@Override
+				public Void call() throws InterruptedException {
+					start.await();
+					limiter.acquire();
+					try {
+						final int current = inFlight.incrementAndGet();
+						int max;
+						while (current > (max = maxInFlight.get()) && !maxInFlight.compareAndSet(max, current)) {
+							// Retry until the maximum has been updated
+						}
+						Thread.sleep(1);
+						inFlight.decrementAndGet();
+					} finally {
+						limiter.release();
+					}
+					return null;
+				}
+			}));
+		}
+
+		start.countDown();
+		for (final Future<Void> future : futures) {
+			future.get();
+		}
+		executor.shutdown();
+
+		assertTrue(maxInFlight.get() <= 3);
+	}
+
+	/**
+	 * Tests that raising the maximum grants additional permits.
+	 */
+	@Test(timeout = 10000)
+	public void testSetMaxInFlightRequestsRaise() {
+		final InFlightRequestLimiter limiter = new InFlightRequestLimiter(1);
+		limiter.acquire();
+		limiter.setMaxInFlightRequests(2);
+		limiter.acquire();
+
+		assertEquals(2, limiter.getMaxInFlightRequests());
+	}
+
+	/**
+	 * Tests that lowering the maximum withholds permits until enough in-flight requests have completed.
+	 *
+	 * @throws InterruptedException Unexpected.
+	 */
+	@Test(timeout = 10000)
+	public void testSetMaxInFlightRequestsLower() throws InterruptedException {
+		final InFlightRequestLimiter limiter = new InFlightRequestLimiter(2);
+		limiter.setMaxInFlightRequests(1);
+		limiter.acquire();
+		final Thread waiter = new Thread(new Runnable() {
+			@Override
+			public void run() {
+				limiter.acquire();
+			}
+		});
+		waiter.start();
+		waiter.join(50);
+
+		assertTrue(waiter.isAlive());
+		limiter.release();
+		waiter.join();
+		assertFalse(waiter.isAlive());
+		assertEquals(1, limiter.getMaxInFlightRequests());
+	}
+
+}
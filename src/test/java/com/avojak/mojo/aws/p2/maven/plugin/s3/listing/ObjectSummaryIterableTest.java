@@ -0,0 +1,134 @@
+package com.avojak.mojo.aws.p2.maven.plugin.s3.listing;
+
+import com.amazonaws.services.s3.AmazonS3Client;
+import com.amazonaws.services.s3.model.ListObjectsRequest;
+import com.amazonaws.services.s3.model.ObjectListing;
+import com.amazonaws.services.s3.model.S3ObjectSummary;
+import com.avojak.mojo.aws.p2.maven.plugin.s3.limit.InFlightRequestLimiter;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.junit.MockitoJUnitRunner;
+
+import java.util.Collections;
+import java.util.Iterator;
+
+import static java.util.Arrays.asList;
+import static java.util.Collections.singletonList;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Test class for {@link ObjectSummaryIterable}.
+ */
+@RunWith(MockitoJUnitRunner.class)
+public class ObjectSummaryIterableTest {
+
+	@Mock
+	private AmazonS3Client client;
+
+	@Mock
+	private ListObjectsRequest request;
+
+	private final InFlightRequestLimiter requestLimiter = new InFlightRequestLimiter(1);
+
+	/**
+	 * Tests that the constructor throws an exception when the given client is {@code null}.
+	 */
+	@Test(expected = NullPointerException.class)
+	public void testConstructorNullClient() {
+		new ObjectSummaryIterable(null, request, requestLimiter);
+	}
+
+	/**
+	 * Tests that the constructor throws an exception when the given request is {@code null}.
+	 */
+	@Test(expected = NullPointerException.class)
+	public void testConstructorNullRequest() {
+		new ObjectSummaryIterable(client, null, requestLimiter);
+	}
+
+	/**
+	 * Tests that the constructor throws an exception when the given request limiter is {@code null}.
+	 */
+	@Test(expected = NullPointerException.class)
+	public void testConstructorNullRequestLimiter() {
+		new ObjectSummaryIterable(client, request, null);
+	}
+
+	/**
+	 * Tests that no request is made until the iterator is consumed.
+	 */
+	@Test
+	public void testIteratorIsLazy() {
+		new ObjectSummaryIterable(client, request, requestLimiter).iterator();
+
+		verify(client, never()).listObjects(any(ListObjectsRequest.class));
+	}
+
+	/**
+	 * Tests iterating over an empty listing.
+	 */
+	@Test
+	public void testIteratorEmptyListing() {
+		final ObjectListing listing = mock(ObjectListing.class);
+		when(client.listObjects(request)).thenReturn(listing);
+		when(listing.getObjectSummaries()).thenReturn(Collections.<S3ObjectSummary>emptyList());
+		when(listing.isTruncated()).thenReturn(false);
+
+		assertFalse(new ObjectSummaryIterable(client, request, requestLimiter).iterator().hasNext());
+	}
+
+	/**
+	 * Tests iterating over a truncated listing, including an empty intermediate page.
+	 */
+	@Test
+	public void testIteratorTruncatedListing() {
+		final ObjectListing listing1 = mock(ObjectListing.class);
+		final ObjectListing listing2 = mock(ObjectListing.class);
+		final ObjectListing listing3 = mock(ObjectListing.class);
+		final S3ObjectSummary summary1 = mock(S3ObjectSummary.class);
+		final S3ObjectSummary summary2 = mock(S3ObjectSummary.class);
+		final S3ObjectSummary summary3 = mock(S3ObjectSummary.class);
+		when(client.listObjects(request)).thenReturn(listing1);
+		when(client.listNextBatchOfObjects(listing1)).thenReturn(listing2);
+		when(client.listNextBatchOfObjects(listing2)).thenReturn(listing3);
+		when(listing1.getObjectSummaries()).thenReturn(asList(summary1, summary2));
+		when(listing2.getObjectSummaries()).thenReturn(Collections.<S3ObjectSummary>emptyList());
+		when(listing3.getObjectSummaries()).thenReturn(singletonList(summary3));
+		when(listing1.isTruncated()).thenReturn(true);
+		when(listing2.isTruncated()).thenReturn(true);
+		when(listing3.isTruncated()).thenReturn(false);
+
+		final Iterator<S3ObjectSummary> iterator = new ObjectSummaryIterable(client, request, requestLimiter).iterator();
+
+		assertSame(summary1, iterator.next());
+		assertSame(summary2, iterator.next());
+		verify(client, never()).listNextBatchOfObjects(listing1);
+		assertSame(summary3, iterator.next());
+		assertFalse(iterator.hasNext());
+	}
+
+	/**
+	 * Tests that each iterator starts a new listing.
+	 */
+	@Test
+	public void testIteratorRestartsListing() {
+		final ObjectListing listing = mock(ObjectListing.class);
+		final S3ObjectSummary summary = mock(S3ObjectSummary.class);
+		when(client.listObjects(request)).thenReturn(listing);
+		when(listing.getObjectSummaries()).thenReturn(singletonList(summary));
+
+		final ObjectSummaryIterable iterable = new ObjectSummaryIterable(client, request, requestLimiter);
+
+		assertTrue(iterable.iterator().hasNext());
+		assertSame(summary, iterable.iterator().next());
+	}
+
+}
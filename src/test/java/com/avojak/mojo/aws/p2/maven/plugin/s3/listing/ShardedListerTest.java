@@ -0,0 +1,227 @@
+package com.avojak.mojo.aws.p2.maven.plugin.s3.listing;
+
+import com.amazonaws.AmazonClientException;
+import com.amazonaws.services.s3.model.S3ObjectSummary;
+import com.avojak.mojo.aws.p2.maven.plugin.s3.repository.S3BucketRepository;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.junit.MockitoJUnitRunner;
+import org.mockito.stubbing.Answer;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.TreeSet;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.fail;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Test class for {@link ShardedLister}.
+ */
+@RunWith(MockitoJUnitRunner.class)
+public class ShardedListerTest {
+
+	private static final String PREFIX = "project/";
+
+	@Mock
+	private S3BucketRepository repository;
+
+	private final TreeSet<String> keys = new TreeSet<String>();
+
+	/**
+	 * Setup the bucket contents.
+	 */
+	@Before
+	public void setup() {
+		// Includes loose objects between the directories, and a key which sorts after every directory
+		keys.addAll(Arrays.asList("project/index.html", "project/releases/1.0.0/content.jar",
+				"project/releases/1.0.0/plugins/a.jar", "project/releases/1.1.0/content.jar",
+				"project/releases/notes.txt", "project/snapshots/1.2.0/content.jar", "project/snapshots/1.2.0/p2.index",
+				"project/snapshots/1.3.0/content.jar", "project/zzz.txt"));
+		for (int i = 0; i < 2500; i++) {
+			keys.add(String.format("project/releases/1.1.0/plugins/%04d.jar", i));
+		}
+	}
+
+	/**
+	 * Tests that the constructor throws an exception when the given repository is {@code null}.
+	 */
+	@Test(expected = NullPointerException.class)
+	public void testConstructorNullRepository() {
+		new ShardedLister(null, 1, 1);
+	}
+
+	/**
+	 * Tests that the constructor throws an exception when the given concurrency is not positive.
+	 */
+	@Test(expected = IllegalArgumentException.class)
+	public void testConstructorInvalidConcurrency() {
+		new ShardedLister(repository, 0, 1);
+	}
+
+	/**
+	 * Tests that the constructor throws an exception when the given depth is not positive.
+	 */
+	@Test(expected = IllegalArgumentException.class)
+	public void testConstructorInvalidDepth() {
+		new ShardedLister(repository, 1, 0);
+	}
+
+	/**
+	 * Tests that {@link ShardedLister#list(String, boolean)} throws an exception when the given prefix is {@code null}.
+	 */
+	@Test(expected = NullPointerException.class)
+	public void testListNullPrefix() {
+		new ShardedLister(repository, 1, 1).list(null, true);
+	}
+
+	/**
+	 * Tests that {@link ShardedLister#list(String, boolean)} throws an exception when the given prefix is empty.
+	 */
+	@Test(expected = IllegalArgumentException.class)
+	public void testListEmptyPrefix() {
+		new ShardedLister(repository, 1, 1).list(" ", true);
+	}
+
+	/**
+	 * Tests that {@link ShardedLister#list(String, boolean)} returns every object in ascending order of their keys when
+	 * sorted, with a shard for each version directory.
+	 */
+	@Test
+	public void testListSorted() {
+		answerListings();
+
+		final List<String> listed = consume(new ShardedLister(repository, 3, 3).list(PREFIX, true));
+
+		assertEquals(new ArrayList<String>(keys), listed);
+		verify(repository).iterateAfter(eq(PREFIX), isNull(String.class));
+		verify(repository).iterateAfter(PREFIX, "project/releases/1.0.0/plugins/");
+		verify(repository).iterateAfter(PREFIX, "project/releases/1.1.0/plugins/");
+		verify(repository).iterateAfter(PREFIX, "project/snapshots/1.2.0/");
+		verify(repository).iterateAfter(PREFIX, "project/snapshots/1.3.0/");
+	}
+
+	/**
+	 * Tests that {@link ShardedLister#list(String, boolean)} returns every object exactly once when not sorted.
+	 */
+	@Test
+	public void testListUnsorted() {
+		answerListings();
+
+		final List<String> listed = consume(new ShardedLister(repository, 4, 2).list(PREFIX, false));
+
+		assertEquals(keys.size(), listed.size());
+		assertEquals(keys, new HashSet<String>(listed));
+	}
+
+	/**
+	 * Tests that {@link ShardedLister#list(String, boolean)} lists a prefix without directories as a single shard.
+	 */
+	@Test
+	public void testListWithoutDirectories() {
+		answerListings();
+
+		final List<String> listed = consume(new ShardedLister(repository, 2, 2).list("project/zzz", true));
+
+		assertEquals(Collections.singletonList("project/zzz.txt"), listed);
+	}
+
+	/**
+	 * Tests that the failure to list a shard is thrown while consuming the listing.
+	 */
+	@Test
+	public void testListShardFailure() {
+		final AmazonClientException exception = new AmazonClientException("mock");
+		when(repository.listDirectories(PREFIX)).thenReturn(Collections.singletonList("project/releases/"));
+		when(repository.iterateAfter(PREFIX, null)).thenReturn(Collections.<S3ObjectSummary>emptyList());
+		when(repository.iterateAfter(PREFIX, "project/releases/")).thenThrow(exception);
+
+		final ShardedListing listing = new ShardedLister(repository, 2, 1).list(PREFIX, true);
+		try {
+			consume(listing);
+			fail("Expected exception not thrown");
+		} catch (final AmazonClientException e) {
+			assertSame(exception, e);
+		}
+	}
+
+	/**
+	 * Tests that the failure to discover the directories is thrown by {@link ShardedLister#list(String, boolean)}.
+	 */
+	@Test
+	public void testListDiscoveryFailure() {
+		final AmazonClientException exception = new AmazonClientException("mock");
+		when(repository.listDirectories(PREFIX)).thenThrow(exception);
+
+		try {
+			new ShardedLister(repository, 2, 1).list(PREFIX, true);
+			fail("Expected exception not thrown");
+		} catch (final RuntimeException e) {
+			assertSame(exception, e.getCause());
+		}
+	}
+
+	private void answerListings() {
+		doAnswer(new Answer<List<String>>() {
+			@Override
+			public List<String> answer(final InvocationOnMock invocation) {
+				final String prefix = invocation.getArgument(0);
+				final Set<String> directories = new TreeSet<String>();
+				for (final String key : keys.tailSet(prefix)) {
+					if (!key.startsWith(prefix)) {
+						break;
+					}
+					final int delimiter = key.indexOf('/', prefix.length());
+					if (delimiter >= 0) {
+						directories.add(key.substring(0, delimiter + 1));
+					}
+				}
+				return new ArrayList<String>(directories);
+			}
+		}).when(repository).listDirectories(anyString());
+		doAnswer(new Answer<Iterable<S3ObjectSummary>>() {
+			@Override
+			public Iterable<S3ObjectSummary> answer(final InvocationOnMock invocation) {
+				final String prefix = invocation.getArgument(0);
+				final String marker = invocation.getArgument(1);
+				final List<S3ObjectSummary> summaries = new ArrayList<S3ObjectSummary>();
+				for (final String key : marker == null ? keys.tailSet(prefix) : keys.tailSet(marker, false)) {
+					if (key.startsWith(prefix)) {
+						final S3ObjectSummary summary = new S3ObjectSummary();
+						summary.setKey(key);
+						summaries.add(summary);
+					}
+				}
+				return summaries;
+			}
+		}).when(repository).iterateAfter(anyString(), (String) any());
+	}
+
+	private static List<String> consume(final ShardedListing listing) {
+		final List<String> listed = new ArrayList<String>();
+		try {
+			while (listing.hasNext()) {
+				listed.add(listing.next().getKey());
+			}
+		} finally {
+			listing.close();
+		}
+		return listed;
+	}
+
+}
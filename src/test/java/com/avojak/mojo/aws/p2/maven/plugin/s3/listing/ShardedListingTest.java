@@ -0,0 +1,27 @@
+package com.avojak.mojo.aws.p2.maven.plugin.s3.listing;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Test class for {@link ShardedListing}.
+ */
+public class ShardedListingTest {
+
+	/**
+	 * Tests that {@link ShardedListing#compareKeys(String, String)} orders keys by code point, in the same order as S3.
+	 */
+	@Test
+	public void testCompareKeys() {
+		assertEquals(0, ShardedListing.compareKeys("a/b", "a/b"));
+		assertTrue(ShardedListing.compareKeys("a/b", "a/c") < 0);
+		assertTrue(ShardedListing.compareKeys("a/b", "a/b/") < 0);
+		assertTrue(ShardedListing.compareKeys("a/b/", "a/b") > 0);
+		// A supplementary character sorts after every character of the basic multilingual plane
+		assertTrue(ShardedListing.compareKeys("a/😀", "a/�") > 0);
+		assertTrue("a/😀".compareTo("a/�") < 0);
+	}
+
+}
@@ -0,0 +1,135 @@
+package com.avojak.mojo.aws.p2.maven.plugin.s3.listing;
+
+import com.amazonaws.services.s3.AmazonS3Client;
+import com.amazonaws.services.s3.model.ListVersionsRequest;
+import com.amazonaws.services.s3.model.S3VersionSummary;
+import com.amazonaws.services.s3.model.VersionListing;
+import com.avojak.mojo.aws.p2.maven.plugin.s3.limit.InFlightRequestLimiter;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.junit.MockitoJUnitRunner;
+
+import java.util.Collections;
+import java.util.Iterator;
+
+import static java.util.Arrays.asList;
+import static java.util.Collections.singletonList;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Test class for {@link VersionSummaryIterable}.
+ */
+@RunWith(MockitoJUnitRunner.class)
+public class VersionSummaryIterableTest {
+
+	@Mock
+	private AmazonS3Client client;
+
+	@Mock
+	private ListVersionsRequest request;
+
+	private final InFlightRequestLimiter requestLimiter = new InFlightRequestLimiter(1);
+
+	/**
+	 * Tests that the constructor throws an exception when the given client is {@code null}.
+	 */
+	@Test(expected = NullPointerException.class)
+	public void testConstructorNullClient() {
+		new VersionSummaryIterable(null, request, requestLimiter);
+	}
+
+	/**
+	 * Tests that the constructor throws an exception when the given request is {@code null}.
+	 */
+	@Test(expected = NullPointerException.class)
+	public void testConstructorNullRequest() {
+		new VersionSummaryIterable(client, null, requestLimiter);
+	}
+
+	/**
+	 * Tests that the constructor throws an exception when the given request limiter is {@code null}.
+	 */
+	@Test(expected = NullPointerException.class)
+	public void testConstructorNullRequestLimiter() {
+		new VersionSummaryIterable(client, request, null);
+	}
+
+	/**
+	 * Tests that no request is made until the iterator is consumed.
+	 */
+	@Test
+	public void testIteratorIsLazy() {
+		new VersionSummaryIterable(client, request, requestLimiter).iterator();
+
+		verify(client, never()).listVersions(any(ListVersionsRequest.class));
+	}
+
+	/**
+	 * Tests iterating over an empty listing.
+	 */
+	@Test
+	public void testIteratorEmptyListing() {
+		final VersionListing listing = mock(VersionListing.class);
+		when(client.listVersions(request)).thenReturn(listing);
+		when(listing.getVersionSummaries()).thenReturn(Collections.<S3VersionSummary>emptyList());
+		when(listing.isTruncated()).thenReturn(false);
+
+		assertFalse(new VersionSummaryIterable(client, request, requestLimiter).iterator().hasNext());
+	}
+
+	/**
+	 * Tests iterating over a truncated listing, including an empty intermediate page.
+	 */
+	@Test
+	public void testIteratorTruncatedListing() {
+		final VersionListing listing1 = mock(VersionListing.class);
+		final VersionListing listing2 = mock(VersionListing.class);
+		final VersionListing listing3 = mock(VersionListing.class);
+		final S3VersionSummary summary1 = mock(S3VersionSummary.class);
+		final S3VersionSummary summary2 = mock(S3VersionSummary.class);
+		final S3VersionSummary summary3 = mock(S3VersionSummary.class);
+		when(client.listVersions(request)).thenReturn(listing1);
+		when(client.listNextBatchOfVersions(listing1)).thenReturn(listing2);
+		when(client.listNextBatchOfVersions(listing2)).thenReturn(listing3);
+		when(listing1.getVersionSummaries()).thenReturn(asList(summary1, summary2));
+		when(listing2.getVersionSummaries()).thenReturn(Collections.<S3VersionSummary>emptyList());
+		when(listing3.getVersionSummaries()).thenReturn(singletonList(summary3));
+		when(listing1.isTruncated()).thenReturn(true);
+		when(listing2.isTruncated()).thenReturn(true);
+		when(listing3.isTruncated()).thenReturn(false);
+
+		final Iterator<S3VersionSummary> iterator =
+				new VersionSummaryIterable(client, request, requestLimiter).iterator();
+
+		assertSame(summary1, iterator.next());
+		assertSame(summary2, iterator.next());
+		verify(client, never()).listNextBatchOfVersions(listing1);
+		assertSame(summary3, iterator.next());
+		assertFalse(iterator.hasNext());
+	}
+
+	/**
+	 * Tests that each iterator starts a new listing.
+	 */
+	@Test
+	public void testIteratorRestartsListing() {
+		final VersionListing listing = mock(VersionListing.class);
+		final S3VersionSummary summary = mock(S3VersionSummary.class);
+		when(client.listVersions(request)).thenReturn(listing);
+		when(listing.getVersionSummaries()).thenReturn(singletonList(summary));
+
+		final VersionSummaryIterable iterable = new VersionSummaryIterable(client, request, requestLimiter);
+
+		assertTrue(iterable.iterator().hasNext());
+		assertSame(summary, iterable.iterator().next());
+	}
+
+}
@@ -0,0 +1,143 @@
+package com.avojak.mojo.aws.p2.maven.plugin.s3.metadata;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Test class for {@link Glob}.
+ */
+public class GlobTest {
+
+	/**
+	 * Tests that {@link Glob#compile(String)} throws an exception when the given pattern is {@code null}.
+	 */
+	@Test(expected = NullPointerException.class)
+	public void testCompileNull() {
+		Glob.compile(null);
+	}
+
+	/**
+	 * Tests that {@link Glob#compile(String)} throws an exception when the given pattern is empty.
+	 */
+	@Test(expected = IllegalArgumentException.class)
+	public void testCompileEmpty() {
+		Glob.compile(" ");
+	}
+
+	/**
+	 * Tests that {@link Glob#compile(String)} throws an exception when the alternatives are not closed.
+	 */
+	@Test(expected = IllegalArgumentException.class)
+	public void testCompileUnclosedAlternatives() {
+		Glob.compile("{content,artifacts.jar");
+	}
+
+	/**
+	 * Tests that {@link Glob#compile(String)} throws an exception when the alternatives are not opened.
+	 */
+	@Test(expected = IllegalArgumentException.class)
+	public void testCompileUnopenedAlternatives() {
+		Glob.compile("content}.jar");
+	}
+
+	/**
+	 * Tests that {@link Glob#compile(String)} throws an exception when the alternatives are nested.
+	 */
+	@Test(expected = IllegalArgumentException.class)
+	public void testCompileNestedAlternatives() {
+		Glob.compile("{a,{b,c}}");
+	}
+
+	/**
+	 * Tests that {@code *} does not match the path delimiter.
+	 */
+	@Test
+	public void testMatchesSingleStar() {
+		final Glob glob = Glob.compile("/project/*.jar");
+
+		assertTrue(glob.matches("project/content.jar"));
+		assertFalse(glob.matches("project/plugins/plugin.jar"));
+		assertFalse(glob.matches("project/content.xml"));
+	}
+
+	/**
+	 * Tests that {@code **} matches any number of directories, including none.
+	 */
+	@Test
+	public void testMatchesDoubleStar() {
+		final Glob glob = Glob.compile("releases/**/plugins/*.jar");
+
+		assertTrue(glob.matches("project/releases/1.0.0/plugins/plugin.jar"));
+		assertTrue(glob.matches("releases/plugins/plugin.jar"));
+		assertTrue(glob.matches("releases/a/b/plugins/plugin.jar"));
+		assertFalse(glob.matches("project/snapshots/1.0.0/plugins/plugin.jar"));
+		assertFalse(glob.matches("project/prereleases/1.0.0/plugins/plugin.jar"));
+		assertTrue(Glob.compile("/project/**").matches("project/releases/1.0.0/content.jar"));
+	}
+
+	/**
+	 * Tests that {@code ?} matches a single character other than the path delimiter.
+	 */
+	@Test
+	public void testMatchesQuestionMark() {
+		final Glob glob = Glob.compile("p?.index");
+
+		assertTrue(glob.matches("project/p2.index"));
+		assertFalse(glob.matches("project/p22.index"));
+		assertFalse(glob.matches("p/.index"));
+	}
+
+	/**
+	 * Tests that alternatives match any of their values.
+	 */
+	@Test
+	public void testMatchesAlternatives() {
+		final Glob glob = Glob.compile("{content,artifacts}.jar");
+
+		assertTrue(glob.matches("project/content.jar"));
+		assertTrue(glob.matches("project/artifacts.jar"));
+		assertFalse(glob.matches("project/compositeContent.jar"));
+	}
+
+	/**
+	 * Tests that characters which are special in regular expressions are matched literally.
+	 */
+	@Test
+	public void testMatchesLiteral() {
+		final Glob glob = Glob.compile("content.(jar)+,xml");
+
+		assertTrue(glob.matches("content.(jar)+,xml"));
+		assertFalse(glob.matches("contentXjarjar,xml"));
+	}
+
+	/**
+	 * Tests that an anchored pattern only matches the whole key.
+	 */
+	@Test
+	public void testMatchesAnchored() {
+		final Glob glob = Glob.compile("/content.jar");
+
+		assertTrue(glob.matches("content.jar"));
+		assertFalse(glob.matches("project/content.jar"));
+	}
+
+	/**
+	 * Tests that {@link Glob#matches(String)} throws an exception when the given key is {@code null}.
+	 */
+	@Test(expected = NullPointerException.class)
+	public void testMatchesNull() {
+		Glob.compile("*").matches(null);
+	}
+
+	/**
+	 * Tests {@link Glob#toString()}.
+	 */
+	@Test
+	public void testToString() {
+		assertEquals("**/*.jar", Glob.compile("**/*.jar").toString());
+	}
+
+}
@@ -0,0 +1,189 @@
+package com.avojak.mojo.aws.p2.maven.plugin.s3.metadata;
+
+import com.google.common.base.Optional;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import static java.util.Arrays.asList;
+import static java.util.Collections.singletonList;
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Test class for {@link MetadataPolicy}.
+ */
+public class MetadataPolicyTest {
+
+	private static final String IMMUTABLE = "public, max-age=31536000, immutable";
+	private static final String SHORT = "public, max-age=60";
+
+	private static final String RELEASE = "project/releases/1.0.0/";
+	private static final String SNAPSHOT = "project/snapshots/1.0.0-SNAPSHOT/";
+
+	private final MetadataPolicy roleDefaults = new MetadataPolicy(Collections.<MetadataRule>emptyList(),
+			Optional.of(IMMUTABLE), Optional.of(SHORT));
+
+	/**
+	 * Tests that the constructor throws an exception when the given rules are {@code null}.
+	 */
+	@Test(expected = NullPointerException.class)
+	public void testConstructorNullRules() {
+		new MetadataPolicy(null, Optional.<String>absent(), Optional.<String>absent());
+	}
+
+	/**
+	 * Tests that the constructor throws an exception when the given artifact cache control is {@code null}.
+	 */
+	@Test(expected = NullPointerException.class)
+	public void testConstructorNullArtifactCacheControl() {
+		new MetadataPolicy(Collections.<MetadataRule>emptyList(), null, Optional.<String>absent());
+	}
+
+	/**
+	 * Tests that the constructor throws an exception when the given metadata cache control is {@code null}.
+	 */
+	@Test(expected = NullPointerException.class)
+	public void testConstructorNullMetadataCacheControl() {
+		new MetadataPolicy(Collections.<MetadataRule>emptyList(), Optional.<String>absent(), null);
+	}
+
+	/**
+	 * Tests that the constructor throws an exception when a rule has no pattern.
+	 */
+	@Test(expected = IllegalArgumentException.class)
+	public void testConstructorRuleWithoutPattern() {
+		new MetadataPolicy(singletonList(new MetadataRule(" ", "no-cache", null)), Optional.<String>absent(),
+				Optional.<String>absent());
+	}
+
+	/**
+	 * Tests that the constructor throws an exception when a rule sets no header.
+	 */
+	@Test(expected = IllegalArgumentException.class)
+	public void testConstructorRuleWithoutHeader() {
+		new MetadataPolicy(singletonList(new MetadataRule("*.jar", null, " ")), Optional.<String>absent(),
+				Optional.<String>absent());
+	}
+
+	/**
+	 * Tests that the constructor copies the rules, so that later changes to them have no effect.
+	 */
+	@Test
+	public void testConstructorCopiesRules() {
+		final MetadataRule rule = new MetadataRule("*.jar", "no-cache", null);
+		final List<MetadataRule> rules = new ArrayList<MetadataRule>(singletonList(rule));
+		final MetadataPolicy policy = new MetadataPolicy(rules, Optional.<String>absent(), Optional.<String>absent());
+		rule.setCacheControl("no-store");
+		rules.clear();
+
+		assertEquals(Optional.of("no-cache"), policy.getCacheControl(RELEASE + "plugins/plugin.jar"));
+	}
+
+	/**
+	 * Tests that the {@link MetadataPolicy#DEFAULT default} policy only sets content types by file extension.
+	 */
+	@Test
+	public void testDefault() {
+		assertEquals(Optional.of("application/java-archive"),
+				MetadataPolicy.DEFAULT.getContentType(RELEASE + "plugins/plugin.jar", "plugin.jar"));
+		assertEquals(Optional.of("text/html"), MetadataPolicy.DEFAULT.getContentType(RELEASE + "index.html",
+				"index.html"));
+		assertEquals(Optional.<String>absent(), MetadataPolicy.DEFAULT.getCacheControl(RELEASE + "plugins/plugin.jar"));
+		assertEquals(Optional.<String>absent(), MetadataPolicy.DEFAULT.getCacheControl(RELEASE + "content.jar"));
+	}
+
+	/**
+	 * Tests that {@link MetadataPolicy#getContentType(String, String)} takes the content type from the first matching
+	 * rule which sets one, and otherwise from the file extension.
+	 */
+	@Test
+	public void testGetContentType() {
+		final MetadataPolicy policy = new MetadataPolicy(asList(
+				new MetadataRule("*.index", "no-cache", null),
+				new MetadataRule("*.index", null, " text/x-p2-index "),
+				new MetadataRule("**", null, "application/octet-stream")),
+				Optional.<String>absent(), Optional.<String>absent());
+
+		assertEquals(Optional.of("text/x-p2-index"), policy.getContentType(RELEASE + "p2.index", "p2.index"));
+		assertEquals(Optional.of("application/octet-stream"),
+				policy.getContentType(RELEASE + "content.jar", "content.jar"));
+		assertEquals(Optional.of("application/java-archive"), new MetadataPolicy(singletonList(
+				new MetadataRule("/other/**", null, "text/plain")), Optional.<String>absent(),
+				Optional.<String>absent()).getContentType(RELEASE + "content.jar", "content.jar"));
+	}
+
+	/**
+	 * Tests that {@link MetadataPolicy#getContentType(String, String)} looks up the content type by the name of the
+	 * uploaded file rather than by the key.
+	 */
+	@Test
+	public void testGetContentTypeFileName() {
+		assertEquals(Optional.of("text/html"), MetadataPolicy.DEFAULT.getContentType(RELEASE + "index", "index.html"));
+		assertEquals(Optional.<String>absent(), MetadataPolicy.DEFAULT.getContentType(RELEASE + "index.html", "tmp"));
+	}
+
+	/**
+	 * Tests that {@link MetadataPolicy#getCacheControl(String)} derives the cache control from the role of the object
+	 * when no rule matches.
+	 */
+	@Test
+	public void testGetCacheControlRoleDefaults() {
+		assertEquals(Optional.of(IMMUTABLE), roleDefaults.getCacheControl(RELEASE + "plugins/plugin.jar"));
+		assertEquals(Optional.of(IMMUTABLE), roleDefaults.getCacheControl(RELEASE + "features/feature.jar"));
+		assertEquals(Optional.of(SHORT), roleDefaults.getCacheControl(SNAPSHOT + "plugins/plugin.jar"));
+		assertEquals(Optional.of(SHORT), roleDefaults.getCacheControl("snapshots/plugins/plugin.jar"));
+		assertEquals(Optional.of(SHORT), roleDefaults.getCacheControl(RELEASE + "content.jar"));
+		assertEquals(Optional.of(SHORT), roleDefaults.getCacheControl(RELEASE + "p2.index"));
+		assertEquals(Optional.of(SHORT), roleDefaults.getCacheControl(SNAPSHOT + "artifacts.jar"));
+		assertEquals(Optional.<String>absent(), roleDefaults.getCacheControl(RELEASE + "notes.txt"));
+	}
+
+	/**
+	 * Tests that {@link MetadataPolicy#getCacheControl(String)} takes the cache control from the first matching rule
+	 * which sets one before falling back to the role defaults.
+	 */
+	@Test
+	public void testGetCacheControlRules() {
+		final MetadataPolicy policy = new MetadataPolicy(asList(
+				new MetadataRule("{content,artifacts}.jar", null, "application/zip"),
+				new MetadataRule("{content,artifacts}.jar", "no-cache", null),
+				new MetadataRule("releases/**/plugins/*.jar", "max-age=86400", null),
+				new MetadataRule("*.jar", "max-age=3600", null)),
+				Optional.of(IMMUTABLE), Optional.of(SHORT));
+
+		assertEquals(Optional.of("no-cache"), policy.getCacheControl(RELEASE + "content.jar"));
+		assertEquals(Optional.of("max-age=86400"), policy.getCacheControl(RELEASE + "plugins/plugin.jar"));
+		assertEquals(Optional.of("max-age=3600"), policy.getCacheControl(SNAPSHOT + "plugins/plugin.jar"));
+		assertEquals(Optional.of(SHORT), policy.getCacheControl(RELEASE + "p2.index"));
+	}
+
+	/**
+	 * Tests that {@link MetadataPolicy#getContentType(String, String)} throws an exception when the given key is
+	 * {@code null}.
+	 */
+	@Test(expected = NullPointerException.class)
+	public void testGetContentTypeNullKey() {
+		MetadataPolicy.DEFAULT.getContentType(null, "index.html");
+	}
+
+	/**
+	 * Tests that {@link MetadataPolicy#getContentType(String, String)} throws an exception when the given file name is
+	 * {@code null}.
+	 */
+	@Test(expected = NullPointerException.class)
+	public void testGetContentTypeNullFileName() {
+		MetadataPolicy.DEFAULT.getContentType("index.html", null);
+	}
+
+	/**
+	 * Tests that {@link MetadataPolicy#getCacheControl(String)} throws an exception when the given key is {@code
+	 * null}.
+	 */
+	@Test(expected = NullPointerException.class)
+	public void testGetCacheControlNullKey() {
+		MetadataPolicy.DEFAULT.getCacheControl(null);
+	}
+
+}
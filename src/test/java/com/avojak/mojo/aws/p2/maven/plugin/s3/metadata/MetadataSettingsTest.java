@@ -0,0 +1,136 @@
+package com.avojak.mojo.aws.p2.maven.plugin.s3.metadata;
+
+import com.google.common.base.Optional;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import static java.util.Collections.singletonList;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertSame;
+
+/**
+ * Test class for {@link MetadataSettings}.
+ */
+public class MetadataSettingsTest {
+
+	private static final String ARTIFACT = "project/releases/1.0.0/plugins/plugin.jar";
+	private static final String METADATA = "project/releases/1.0.0/content.jar";
+
+	/**
+	 * Tests the defaults when nothing is specified.
+	 */
+	@Test
+	public void testDefaults() {
+		final MetadataSettings settings = new MetadataSettings();
+
+		assertEquals(Collections.<MetadataRule>emptyList(), settings.getRules());
+		assertFalse(settings.isRoleDefaults());
+		assertEquals(MetadataSettings.DEFAULT_ARTIFACT_CACHE_CONTROL, settings.getArtifactCacheControl());
+		assertEquals(MetadataSettings.DEFAULT_METADATA_CACHE_CONTROL, settings.getMetadataCacheControl());
+	}
+
+	/**
+	 * Tests that {@link MetadataSettings#setRules(List)} copies the given rules.
+	 */
+	@Test
+	public void testSetRules() {
+		final List<MetadataRule> rules = new ArrayList<MetadataRule>();
+		rules.add(new MetadataRule("*.jar", "no-cache", null));
+		final MetadataSettings settings = new MetadataSettings();
+		settings.setRules(rules);
+		rules.clear();
+
+		assertEquals(singletonList(new MetadataRule("*.jar", "no-cache", null)), settings.getRules());
+	}
+
+	/**
+	 * Tests that {@link MetadataSettings#toPolicy()} returns the {@link MetadataPolicy#DEFAULT default} policy when
+	 * nothing is specified.
+	 */
+	@Test
+	public void testToPolicyDefault() {
+		assertSame(MetadataPolicy.DEFAULT, new MetadataSettings().toPolicy());
+	}
+
+	/**
+	 * Tests that {@link MetadataSettings#toPolicy()} applies the rules without role defaults unless enabled.
+	 */
+	@Test
+	public void testToPolicyRules() {
+		final MetadataSettings settings = new MetadataSettings();
+		settings.setRules(singletonList(new MetadataRule("content.jar", "no-cache", null)));
+
+		final MetadataPolicy policy = settings.toPolicy();
+
+		assertEquals(Optional.of("no-cache"), policy.getCacheControl(METADATA));
+		assertEquals(Optional.<String>absent(), policy.getCacheControl(ARTIFACT));
+	}
+
+	/**
+	 * Tests that {@link MetadataSettings#toPolicy()} applies the role defaults when enabled.
+	 */
+	@Test
+	public void testToPolicyRoleDefaults() {
+		final MetadataSettings settings = new MetadataSettings();
+		settings.setRoleDefaults(true);
+
+		final MetadataPolicy policy = settings.toPolicy();
+
+		assertEquals(Optional.of(MetadataSettings.DEFAULT_ARTIFACT_CACHE_CONTROL), policy.getCacheControl(ARTIFACT));
+		assertEquals(Optional.of(MetadataSettings.DEFAULT_METADATA_CACHE_CONTROL), policy.getCacheControl(METADATA));
+	}
+
+	/**
+	 * Tests that {@link MetadataSettings#toPolicy()} leaves the objects of a role without a cache control header when
+	 * it is configured as empty.
+	 */
+	@Test
+	public void testToPolicyEmptyCacheControl() {
+		final MetadataSettings settings = new MetadataSettings();
+		settings.setRoleDefaults(true);
+		settings.setArtifactCacheControl(" max-age=600 ");
+		settings.setMetadataCacheControl("");
+
+		final MetadataPolicy policy = settings.toPolicy();
+
+		assertEquals(Optional.of("max-age=600"), policy.getCacheControl(ARTIFACT));
+		assertEquals(Optional.<String>absent(), policy.getCacheControl(METADATA));
+	}
+
+	/**
+	 * Tests that {@link MetadataSettings#toPolicy()} throws an exception when a rule is not valid.
+	 */
+	@Test(expected = IllegalArgumentException.class)
+	public void testToPolicyInvalidRule() {
+		final MetadataSettings settings = new MetadataSettings();
+		settings.setRules(singletonList(new MetadataRule(null, "no-cache", null)));
+
+		settings.toPolicy();
+	}
+
+	/**
+	 * Tests {@link MetadataSettings#equals(Object)} and {@link MetadataSettings#hashCode()}.
+	 */
+	@Test
+	public void testEquals() {
+		final MetadataSettings settings = new MetadataSettings();
+		final MetadataSettings explicitDefaults = new MetadataSettings();
+		explicitDefaults.setRoleDefaults(false);
+		explicitDefaults.setRules(Collections.<MetadataRule>emptyList());
+		explicitDefaults.setArtifactCacheControl(MetadataSettings.DEFAULT_ARTIFACT_CACHE_CONTROL);
+		final MetadataSettings roleDefaults = new MetadataSettings();
+		roleDefaults.setRoleDefaults(true);
+
+		assertEquals(settings, explicitDefaults);
+		assertEquals(settings.hashCode(), explicitDefaults.hashCode());
+		assertNotEquals(settings, roleDefaults);
+		assertNotEquals(settings, null);
+		assertNotEquals(settings, "settings");
+	}
+
+}
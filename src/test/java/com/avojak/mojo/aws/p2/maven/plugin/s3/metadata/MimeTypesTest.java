@@ -0,0 +1,42 @@
+package com.avojak.mojo.aws.p2.maven.plugin.s3.metadata;
+
+import com.google.common.base.Optional;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Test class for {@link MimeTypes}.
+ */
+public class MimeTypesTest {
+
+	/**
+	 * Tests that {@link MimeTypes#get(String)} throws an exception when the given file name is {@code null}.
+	 */
+	@Test(expected = NullPointerException.class)
+	public void testGetNull() {
+		MimeTypes.get(null);
+	}
+
+	/**
+	 * Tests that {@link MimeTypes#get(String)} looks up the content type by the last file extension, ignoring case.
+	 */
+	@Test
+	public void testGet() {
+		assertEquals(Optional.of("text/html"), MimeTypes.get("index.HTML"));
+		assertEquals(Optional.of("application/java-archive"), MimeTypes.get("content.jar"));
+		assertEquals(Optional.of("application/x-xz"), MimeTypes.get("content.xml.xz"));
+		assertEquals(Optional.of("text/plain"), MimeTypes.get("p2.index"));
+	}
+
+	/**
+	 * Tests that {@link MimeTypes#get(String)} returns an absent content type for unknown extensions.
+	 */
+	@Test
+	public void testGetUnknown() {
+		assertEquals(Optional.<String>absent(), MimeTypes.get("file.tmp"));
+		assertEquals(Optional.<String>absent(), MimeTypes.get("LICENSE"));
+		assertEquals(Optional.<String>absent(), MimeTypes.get("file."));
+	}
+
+}
@@ -0,0 +1,55 @@
+package com.avojak.mojo.aws.p2.maven.plugin.s3.metadata;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Test class for {@link ObjectRole}.
+ */
+public class ObjectRoleTest {
+
+	/**
+	 * Tests that {@link ObjectRole#of(String)} throws an exception when the given key is {@code null}.
+	 */
+	@Test(expected = NullPointerException.class)
+	public void testOfNull() {
+		ObjectRole.of(null);
+	}
+
+	/**
+	 * Tests that {@link ObjectRole#of(String)} returns {@link ObjectRole#ARTIFACT} for the files of the artifact
+	 * directories.
+	 */
+	@Test
+	public void testOfArtifact() {
+		assertEquals(ObjectRole.ARTIFACT, ObjectRole.of("project/releases/1.0.0/plugins/plugin.jar"));
+		assertEquals(ObjectRole.ARTIFACT, ObjectRole.of("features/feature.jar"));
+		assertEquals(ObjectRole.ARTIFACT, ObjectRole.of("project/releases/1.0.0/binary/launcher_1.0.0"));
+	}
+
+	/**
+	 * Tests that {@link ObjectRole#of(String)} returns {@link ObjectRole#METADATA} for repository metadata and landing
+	 * pages.
+	 */
+	@Test
+	public void testOfMetadata() {
+		assertEquals(ObjectRole.METADATA, ObjectRole.of("project/releases/1.0.0/content.jar"));
+		assertEquals(ObjectRole.METADATA, ObjectRole.of("artifacts.xml.xz"));
+		assertEquals(ObjectRole.METADATA, ObjectRole.of("project/releases/compositeContent.xml"));
+		assertEquals(ObjectRole.METADATA, ObjectRole.of("project/releases/1.0.0/p2.index"));
+		assertEquals(ObjectRole.METADATA, ObjectRole.of("project/releases/1.0.0/index.html"));
+	}
+
+	/**
+	 * Tests that {@link ObjectRole#of(String)} returns {@link ObjectRole#OTHER} for any other object.
+	 */
+	@Test
+	public void testOfOther() {
+		assertEquals(ObjectRole.OTHER, ObjectRole.of("plugin.jar"));
+		assertEquals(ObjectRole.OTHER, ObjectRole.of("project/releases/1.0.0/plugins.jar"));
+		assertEquals(ObjectRole.OTHER, ObjectRole.of("project/releases/1.0.0/.aws-p2-manifest"));
+		assertEquals(ObjectRole.OTHER, ObjectRole.of("/plugin.jar"));
+	}
+
+}
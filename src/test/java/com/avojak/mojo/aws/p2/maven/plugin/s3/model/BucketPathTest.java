@@ -3,6 +3,7 @@ package com.avojak.mojo.aws.p2.maven.plugin.s3.model;
 import org.junit.Test;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNotEquals;
 
 /**
@@ -129,4 +130,20 @@ public class BucketPathTest {
 		assertEquals(expected, bucketPath.toString());
 	}
 
+	/**
+	 * Tests {@link BucketPath#getParent()}.
+	 */
+	@Test
+	public void testGetParent() {
+		assertEquals("some/folder", new BucketPath().append("some/folder/subfolder").getParent().get());
+	}
+
+	/**
+	 * Tests {@link BucketPath#getParent()} when the path has no separator.
+	 */
+	@Test
+	public void testGetParentNoSeparator() {
+		assertFalse(new BucketPath().append("folder").getParent().isPresent());
+	}
+
 }
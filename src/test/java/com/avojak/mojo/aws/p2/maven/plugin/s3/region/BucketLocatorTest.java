@@ -0,0 +1,206 @@
+package com.avojak.mojo.aws.p2.maven.plugin.s3.region;
+
+import com.amazonaws.services.s3.AmazonS3;
+import com.amazonaws.services.s3.model.AmazonS3Exception;
+import com.amazonaws.services.s3.model.HeadBucketRequest;
+import com.amazonaws.services.s3.model.HeadBucketResult;
+import com.avojak.mojo.aws.p2.maven.plugin.s3.exception.BucketDoesNotExistException;
+import com.avojak.mojo.aws.p2.maven.plugin.s3.limit.InFlightRequestLimiter;
+import com.avojak.mojo.aws.p2.maven.plugin.s3.request.factory.head.HeadBucketRequestFactory;
+import com.google.common.base.Optional;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.junit.MockitoJUnitRunner;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.fail;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Test class for {@link BucketLocator}.
+ */
+@RunWith(MockitoJUnitRunner.class)
+public class BucketLocatorTest {
+
+	private static final String BUCKET_NAME = "mock";
+
+	@Mock
+	private AmazonS3 client;
+
+	@Mock
+	private HeadBucketRequestFactory headBucketRequestFactory;
+
+	@Mock
+	private HeadBucketRequest headBucketRequest;
+
+	@Mock
+	private BucketRegionCache regionCache;
+
+	private final InFlightRequestLimiter requestLimiter = new InFlightRequestLimiter(1);
+
+	private BucketLocator locator;
+
+	/**
+	 * Setup mocks.
+	 */
+	@Before
+	public void setup() {
+		when(regionCache.get(BUCKET_NAME)).thenReturn(Optional.<String>absent());
+		locator = new BucketLocator(client, BUCKET_NAME, headBucketRequestFactory, requestLimiter, regionCache);
+	}
+
+	/**
+	 * Tests that the constructor throws an exception when the given client is {@code null}.
+	 */
+	@Test(expected = NullPointerException.class)
+	public void testConstructorNullClient() {
+		new BucketLocator(null, BUCKET_NAME, headBucketRequestFactory, requestLimiter, regionCache);
+	}
+
+	/**
+	 * Tests that the constructor throws an exception when the given bucket name is {@code null}.
+	 */
+	@Test(expected = NullPointerException.class)
+	public void testConstructorNullBucketName() {
+		new BucketLocator(client, null, headBucketRequestFactory, requestLimiter, regionCache);
+	}
+
+	/**
+	 * Tests that the constructor throws an exception when the given bucket name is empty.
+	 */
+	@Test(expected = IllegalArgumentException.class)
+	public void testConstructorEmptyBucketName() {
+		new BucketLocator(client, " ", headBucketRequestFactory, requestLimiter, regionCache);
+	}
+
+	/**
+	 * Tests that the constructor throws an exception when the given {@link HeadBucketRequestFactory} is {@code null}.
+	 */
+	@Test(expected = NullPointerException.class)
+	public void testConstructorNullHeadBucketRequestFactory() {
+		new BucketLocator(client, BUCKET_NAME, null, requestLimiter, regionCache);
+	}
+
+	/**
+	 * Tests that the constructor throws an exception when the given {@link InFlightRequestLimiter} is {@code null}.
+	 */
+	@Test(expected = NullPointerException.class)
+	public void testConstructorNullRequestLimiter() {
+		new BucketLocator(client, BUCKET_NAME, headBucketRequestFactory, null, regionCache);
+	}
+
+	/**
+	 * Tests that the constructor throws an exception when the given {@link BucketRegionCache} is {@code null}.
+	 */
+	@Test(expected = NullPointerException.class)
+	public void testConstructorNullRegionCache() {
+		new BucketLocator(client, BUCKET_NAME, headBucketRequestFactory, requestLimiter, null);
+	}
+
+	/**
+	 * Tests that {@link BucketLocator#locate()} returns the cached region without a request.
+	 *
+	 * @throws BucketDoesNotExistException Unexpected.
+	 */
+	@Test
+	public void testLocateCachedRegion() throws BucketDoesNotExistException {
+		when(regionCache.get(BUCKET_NAME)).thenReturn(Optional.of("eu-west-1"));
+
+		assertEquals(Optional.of("eu-west-1"), locator.locate());
+		verify(client, never()).headBucket(any(HeadBucketRequest.class));
+	}
+
+	/**
+	 * Tests that {@link BucketLocator#locate()} looks up and caches the region of the bucket.
+	 *
+	 * @throws BucketDoesNotExistException Unexpected.
+	 */
+	@Test
+	public void testLocate() throws BucketDoesNotExistException {
+		when(headBucketRequestFactory.create()).thenReturn(headBucketRequest);
+		when(client.headBucket(headBucketRequest)).thenReturn(new HeadBucketResult().withBucketRegion("eu-west-1"));
+
+		assertEquals(Optional.of("eu-west-1"), locator.locate());
+		verify(regionCache).put(BUCKET_NAME, "eu-west-1");
+	}
+
+	/**
+	 * Tests that {@link BucketLocator#locate()} does not cache a region which was not reported.
+	 *
+	 * @throws BucketDoesNotExistException Unexpected.
+	 */
+	@Test
+	public void testLocateNoRegion() throws BucketDoesNotExistException {
+		when(headBucketRequestFactory.create()).thenReturn(headBucketRequest);
+		when(client.headBucket(headBucketRequest)).thenReturn(new HeadBucketResult());
+
+		assertFalse(locator.locate().isPresent());
+		verify(regionCache, never()).put(anyString(), anyString());
+	}
+
+	/**
+	 * Tests that {@link BucketLocator#locate()} throws an exception when the bucket does not exist.
+	 */
+	@Test
+	public void testLocateBucketDoesNotExist() {
+		when(headBucketRequestFactory.create()).thenReturn(headBucketRequest);
+		when(client.headBucket(headBucketRequest)).thenThrow(createException(404));
+
+		try {
+			locator.locate();
+			fail("Expected exception not thrown");
+		} catch (final BucketDoesNotExistException e) {
+			assertEquals("Bucket [" + BUCKET_NAME + "] does not exist", e.getMessage());
+		}
+	}
+
+	/**
+	 * Tests that {@link BucketLocator#locate()} treats a bucket which may not be accessed as existing, with an unknown
+	 * region.
+	 *
+	 * @throws BucketDoesNotExistException Unexpected.
+	 */
+	@Test
+	public void testLocateForbidden() throws BucketDoesNotExistException {
+		when(headBucketRequestFactory.create()).thenReturn(headBucketRequest);
+		when(client.headBucket(headBucketRequest)).thenThrow(createException(403));
+
+		assertFalse(locator.locate().isPresent());
+		verify(regionCache, never()).put(anyString(), anyString());
+	}
+
+	/**
+	 * Tests that {@link BucketLocator#locate()} propagates other failures, releasing the request permit.
+	 *
+	 * @throws BucketDoesNotExistException Unexpected.
+	 */
+	@Test(timeout = 10000)
+	public void testLocateOtherFailure() throws BucketDoesNotExistException {
+		final AmazonS3Exception exception = createException(500);
+		when(headBucketRequestFactory.create()).thenReturn(headBucketRequest);
+		when(client.headBucket(headBucketRequest)).thenThrow(exception);
+
+		try {
+			locator.locate();
+			fail("Expected exception not thrown");
+		} catch (final AmazonS3Exception e) {
+			assertSame(exception, e);
+		}
+		requestLimiter.acquire();
+	}
+
+	private AmazonS3Exception createException(final int statusCode) {
+		final AmazonS3Exception exception = new AmazonS3Exception("mock");
+		exception.setStatusCode(statusCode);
+		return exception;
+	}
+
+}
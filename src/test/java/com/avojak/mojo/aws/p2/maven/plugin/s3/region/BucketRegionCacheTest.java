@@ -0,0 +1,147 @@
+package com.avojak.mojo.aws.p2.maven.plugin.s3.region;
+
+import com.avojak.mojo.aws.p2.maven.plugin.util.FileSystemTestUtil;
+import com.google.common.base.Optional;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Test class for {@link BucketRegionCache}.
+ */
+public class BucketRegionCacheTest {
+
+	private static final long TTL_SECONDS = 3600;
+
+	private File file;
+
+	/**
+	 * Setup the cache file.
+	 *
+	 * @throws IOException Unexpected.
+	 */
+	@Before
+	public void setup() throws IOException {
+		file = new File(FileSystemTestUtil.createAccessibleDirectory(), "regions.properties");
+	}
+
+	/**
+	 * Tests that the constructor throws an exception when the given file is {@code null}.
+	 */
+	@Test(expected = NullPointerException.class)
+	public void testConstructorNullFile() {
+		new BucketRegionCache(null, TTL_SECONDS);
+	}
+
+	/**
+	 * Tests that the constructor throws an exception when the given time to live is negative.
+	 */
+	@Test(expected = IllegalArgumentException.class)
+	public void testConstructorNegativeTtl() {
+		new BucketRegionCache(file, -1);
+	}
+
+	/**
+	 * Tests that {@link BucketRegionCache#setTtlSeconds(long)} throws an exception when the given time to live is
+	 * negative.
+	 */
+	@Test(expected = IllegalArgumentException.class)
+	public void testSetTtlSecondsNegative() {
+		new BucketRegionCache(file, TTL_SECONDS).setTtlSeconds(-1);
+	}
+
+	/**
+	 * Tests that a cached region is returned, both by the same cache and by another cache which shares the file.
+	 */
+	@Test
+	public void testPutAndGet() {
+		final BucketRegionCache cache = new BucketRegionCache(file, TTL_SECONDS);
+
+		assertFalse(cache.get("bucket").isPresent());
+		cache.put("bucket", "eu-west-1");
+
+		assertEquals(Optional.of("eu-west-1"), cache.get("bucket"));
+		assertEquals(Optional.of("eu-west-1"), new BucketRegionCache(file, TTL_SECONDS).get("bucket"));
+	}
+
+	/**
+	 * Tests that entries written by another cache since the file was read are preserved.
+	 */
+	@Test
+	public void testPutMergesEntries() {
+		final BucketRegionCache cache = new BucketRegionCache(file, TTL_SECONDS);
+		final BucketRegionCache other = new BucketRegionCache(file, TTL_SECONDS);
+		assertFalse(cache.get("other").isPresent());
+
+		other.put("other", "us-west-2");
+		cache.put("bucket", "eu-west-1");
+
+		final BucketRegionCache reloaded = new BucketRegionCache(file, TTL_SECONDS);
+		assertEquals(Optional.of("eu-west-1"), reloaded.get("bucket"));
+		assertEquals(Optional.of("us-west-2"), reloaded.get("other"));
+	}
+
+	/**
+	 * Tests that a time to live of zero disables the cache.
+	 */
+	@Test
+	public void testZeroTtl() {
+		final BucketRegionCache cache = new BucketRegionCache(file, 0);
+
+		cache.put("bucket", "eu-west-1");
+
+		assertFalse(cache.get("bucket").isPresent());
+		assertFalse(file.exists());
+	}
+
+	/**
+	 * Tests that expired entries are not returned.
+	 *
+	 * @throws IOException Unexpected.
+	 */
+	@Test
+	public void testExpiredEntry() throws IOException {
+		Files.write(file.toPath(), "bucket=eu-west-1,0".getBytes(StandardCharsets.ISO_8859_1));
+
+		assertFalse(new BucketRegionCache(file, TTL_SECONDS).get("bucket").isPresent());
+	}
+
+	/**
+	 * Tests that malformed entries are not returned.
+	 *
+	 * @throws IOException Unexpected.
+	 */
+	@Test
+	public void testMalformedEntries() throws IOException {
+		Files.write(file.toPath(), "first=eu-west-1\nsecond=eu-west-1,never\n"
+				.getBytes(StandardCharsets.ISO_8859_1));
+		final BucketRegionCache cache = new BucketRegionCache(file, TTL_SECONDS);
+
+		assertFalse(cache.get("first").isPresent());
+		assertFalse(cache.get("second").isPresent());
+	}
+
+	/**
+	 * Tests that a file which cannot be written does not prevent the region from being used.
+	 *
+	 * @throws IOException Unexpected.
+	 */
+	@Test
+	public void testUnwritableFile() throws IOException {
+		assertTrue(file.mkdir());
+		final BucketRegionCache cache = new BucketRegionCache(file, TTL_SECONDS);
+
+		cache.put("bucket", "eu-west-1");
+
+		assertEquals(Optional.of("eu-west-1"), cache.get("bucket"));
+	}
+
+}
@@ -0,0 +1,116 @@
+package com.avojak.mojo.aws.p2.maven.plugin.s3.repository;
+
+import com.avojak.mojo.aws.p2.maven.plugin.s3.ClientSettings;
+import com.avojak.mojo.aws.p2.maven.plugin.s3.credentials.CredentialsSettings;
+import com.avojak.mojo.aws.p2.maven.plugin.s3.credentials.CredentialsSource;
+import com.avojak.mojo.aws.p2.maven.plugin.s3.metadata.MetadataPolicy;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertSame;
+
+/**
+ * Test class for {@link RepositoryOptions}.
+ */
+public class RepositoryOptionsTest {
+
+	/**
+	 * Tests the default options.
+	 */
+	@Test
+	public void testDefaults() {
+		final RepositoryOptions options = RepositoryOptions.builder().build();
+
+		assertEquals(new ClientSettings(), options.getClientSettings());
+		assertEquals(new CredentialsSettings(), options.getCredentials());
+		assertSame(TransferBackend.BLOCKING, options.getBackend());
+		assertSame(MetadataPolicy.DEFAULT, options.getMetadataPolicy());
+	}
+
+	/**
+	 * Tests that the options which are set are built.
+	 */
+	@Test
+	public void testBuild() {
+		final ClientSettings clientSettings = new ClientSettings().resolve(16);
+		final CredentialsSettings credentials = createCredentials();
+
+		final RepositoryOptions options = RepositoryOptions.builder().clientSettings(clientSettings)
+				.credentials(credentials).backend(TransferBackend.ASYNC).metadataPolicy(MetadataPolicy.DEFAULT).build();
+
+		assertSame(clientSettings, options.getClientSettings());
+		assertSame(credentials, options.getCredentials());
+		assertSame(TransferBackend.ASYNC, options.getBackend());
+		assertSame(MetadataPolicy.DEFAULT, options.getMetadataPolicy());
+	}
+
+	/**
+	 * Tests that {@link RepositoryOptions.Builder#clientSettings(ClientSettings)} throws an exception when the given
+	 * settings are {@code null}.
+	 */
+	@Test(expected = NullPointerException.class)
+	public void testClientSettingsNull() {
+		RepositoryOptions.builder().clientSettings(null);
+	}
+
+	/**
+	 * Tests that {@link RepositoryOptions.Builder#credentials(CredentialsSettings)} throws an exception when the given
+	 * credentials are {@code null}.
+	 */
+	@Test(expected = NullPointerException.class)
+	public void testCredentialsNull() {
+		RepositoryOptions.builder().credentials(null);
+	}
+
+	/**
+	 * Tests that {@link RepositoryOptions.Builder#backend(TransferBackend)} throws an exception when the given backend
+	 * is {@code null}.
+	 */
+	@Test(expected = NullPointerException.class)
+	public void testBackendNull() {
+		RepositoryOptions.builder().backend(null);
+	}
+
+	/**
+	 * Tests that {@link RepositoryOptions.Builder#metadataPolicy(MetadataPolicy)} throws an exception when the given
+	 * policy is {@code null}.
+	 */
+	@Test(expected = NullPointerException.class)
+	public void testMetadataPolicyNull() {
+		RepositoryOptions.builder().metadataPolicy(null);
+	}
+
+	/**
+	 * Tests {@link RepositoryOptions#equals(Object)}.
+	 */
+	@Test
+	public void testEquals() {
+		final RepositoryOptions options1 = RepositoryOptions.builder().credentials(createCredentials()).build();
+		final RepositoryOptions options2 = RepositoryOptions.builder().credentials(createCredentials()).build();
+		final RepositoryOptions options3 = RepositoryOptions.builder().build();
+
+		assertEquals(options1, options1);
+		assertEquals(options1, options2);
+		assertNotEquals(options1, null);
+		assertNotEquals(options1, "String");
+		assertNotEquals(options1, options3);
+		assertNotEquals(options3, RepositoryOptions.builder().backend(TransferBackend.ASYNC).build());
+	}
+
+	/**
+	 * Tests {@link RepositoryOptions#hashCode()}.
+	 */
+	@Test
+	public void testHashCode() {
+		assertEquals(RepositoryOptions.builder().build().hashCode(), RepositoryOptions.builder().build().hashCode());
+	}
+
+	private static CredentialsSettings createCredentials() {
+		final CredentialsSettings credentials = new CredentialsSettings();
+		credentials.setSource(CredentialsSource.PROFILE);
+		credentials.setProfile("ci");
+		return credentials;
+	}
+
+}
@@ -0,0 +1,602 @@
+package com.avojak.mojo.aws.p2.maven.plugin.s3.repository.impl;
+
+import com.amazonaws.AmazonClientException;
+import com.amazonaws.services.s3.AmazonS3;
+import com.amazonaws.services.s3.AmazonS3Client;
+import com.amazonaws.services.s3.model.DeleteObjectsRequest;
+import com.amazonaws.services.s3.model.DeleteObjectsRequest.KeyVersion;
+import com.amazonaws.services.s3.model.DeleteObjectsResult;
+import com.amazonaws.services.s3.model.ObjectMetadata;
+import com.amazonaws.services.s3.model.PutObjectRequest;
+import com.amazonaws.services.s3.model.PutObjectResult;
+import com.amazonaws.services.s3.model.S3ObjectSummary;
+import com.amazonaws.services.s3.model.S3VersionSummary;
+import com.avojak.mojo.aws.p2.maven.plugin.s3.exception.ObjectRequestCreationException;
+import com.avojak.mojo.aws.p2.maven.plugin.s3.limit.InFlightRequestLimiter;
+import com.avojak.mojo.aws.p2.maven.plugin.s3.model.BucketPath;
+import com.avojak.mojo.aws.p2.maven.plugin.s3.model.trie.Trie;
+import com.avojak.mojo.aws.p2.maven.plugin.s3.model.trie.impl.BucketTrieFactory;
+import com.avojak.mojo.aws.p2.maven.plugin.s3.repository.S3BucketRepository;
+import com.avojak.mojo.aws.p2.maven.plugin.s3.request.factory.delete.DeleteObjectRequestFactory;
+import com.avojak.mojo.aws.p2.maven.plugin.s3.request.factory.put.PutObjectRequestFactory;
+import com.avojak.mojo.aws.p2.maven.plugin.util.FileSystemTestUtil;
+import com.google.common.base.Optional;
+import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.ListeningExecutorService;
+import com.google.common.util.concurrent.MoreExecutors;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.junit.MockitoJUnitRunner;
+import org.mockito.stubbing.Answer;
+import uk.org.lidalia.slf4jtest.TestLogger;
+import uk.org.lidalia.slf4jtest.TestLoggerFactory;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+
+import static java.util.Collections.singletonList;
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.fail;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyZeroInteractions;
+import static org.mockito.Mockito.when;
+import static uk.org.lidalia.slf4jtest.LoggingEvent.error;
+import static uk.org.lidalia.slf4jtest.LoggingEvent.warn;
+
+/**
+ * Test class for {@link AsyncS3BucketRepositoryImpl}.
+ */
+@RunWith(MockitoJUnitRunner.class)
+public class AsyncS3BucketRepositoryImplTest {
+
+	@Mock
+	private AmazonS3Client client;
+
+	@Mock
+	private S3BucketRepository delegate;
+
+	@Mock
+	private PutObjectRequestFactory putObjectRequestFactory;
+
+	@Mock
+	private PutObjectRequest putObjectRequest;
+
+	private final TestLogger logger = TestLoggerFactory.getTestLogger(AsyncS3BucketRepositoryImpl.class);
+
+	private final String bucketName = "mock";
+	private final DeleteObjectRequestFactory deleteObjectRequestFactory = new DeleteObjectRequestFactory(bucketName);
+	private final BucketTrieFactory bucketTrieFactory = new BucketTrieFactory();
+	private final InFlightRequestLimiter requestLimiter = new InFlightRequestLimiter(1);
+	private final ListeningExecutorService executor = MoreExecutors.newDirectExecutorService();
+
+	private AsyncS3BucketRepositoryImpl repository;
+
+	/**
+	 * Setup mocks.
+	 */
+	@Before
+	public void setup() {
+		repository = new AsyncS3BucketRepositoryImpl(client, delegate, putObjectRequestFactory,
+				deleteObjectRequestFactory, bucketTrieFactory, requestLimiter, executor);
+	}
+
+	/**
+	 * Clear loggers.
+	 */
+	@After
+	public void clearLoggers() {
+		TestLoggerFactory.clear();
+	}
+
+	/**
+	 * Tests that the constructor throws an exception when the given {@link AmazonS3} client is {@code null}.
+	 */
+	@Test(expected = NullPointerException.class)
+	public void testConstructorNullClient() {
+		new AsyncS3BucketRepositoryImpl(null, delegate, putObjectRequestFactory, deleteObjectRequestFactory,
+				bucketTrieFactory, requestLimiter, executor);
+	}
+
+	/**
+	 * Tests that the constructor throws an exception when the given delegate is {@code null}.
+	 */
+	@Test(expected = NullPointerException.class)
+	public void testConstructorNullDelegate() {
+		new AsyncS3BucketRepositoryImpl(client, null, putObjectRequestFactory, deleteObjectRequestFactory,
+				bucketTrieFactory, requestLimiter, executor);
+	}
+
+	/**
+	 * Tests that the constructor throws an exception when the given {@link PutObjectRequestFactory} is {@code null}.
+	 */
+	@Test(expected = NullPointerException.class)
+	public void testConstructorNullPutObjectRequestFactory() {
+		new AsyncS3BucketRepositoryImpl(client, delegate, null, deleteObjectRequestFactory, bucketTrieFactory,
+				requestLimiter, executor);
+	}
+
+	/**
+	 * Tests that the constructor throws an exception when the given {@link DeleteObjectRequestFactory} is {@code
+	 * null}.
+	 */
+	@Test(expected = NullPointerException.class)
+	public void testConstructorNullDeleteObjectRequestFactory() {
+		new AsyncS3BucketRepositoryImpl(client, delegate, putObjectRequestFactory, null, bucketTrieFactory,
+				requestLimiter, executor);
+	}
+
+	/**
+	 * Tests that the constructor throws an exception when the given {@link BucketTrieFactory} is {@code null}.
+	 */
+	@Test(expected = NullPointerException.class)
+	public void testConstructorNullBucketTrieFactory() {
+		new AsyncS3BucketRepositoryImpl(client, delegate, putObjectRequestFactory, deleteObjectRequestFactory, null,
+				requestLimiter, executor);
+	}
+
+	/**
+	 * Tests that the constructor throws an exception when the given {@link InFlightRequestLimiter} is {@code null}.
+	 */
+	@Test(expected = NullPointerException.class)
+	public void testConstructorNullRequestLimiter() {
+		new AsyncS3BucketRepositoryImpl(client, delegate, putObjectRequestFactory, deleteObjectRequestFactory,
+				bucketTrieFactory, null, executor);
+	}
+
+	/**
+	 * Tests that the constructor throws an exception when the given executor is {@code null}.
+	 */
+	@Test(expected = NullPointerException.class)
+	public void testConstructorNullExecutor() {
+		new AsyncS3BucketRepositoryImpl(client, delegate, putObjectRequestFactory, deleteObjectRequestFactory,
+				bucketTrieFactory, requestLimiter, null);
+	}
+
+	/**
+	 * Tests that {@link AsyncS3BucketRepositoryImpl#uploadFile(File, BucketPath)} throws an exception when the given
+	 * file is {@code null}.
+	 */
+	@Test(expected = NullPointerException.class)
+	public void testUploadFileNullFile() {
+		repository.uploadFile(null, new BucketPath());
+	}
+
+	/**
+	 * Tests that {@link AsyncS3BucketRepositoryImpl#uploadFile(File, BucketPath)} does not upload a file which is not
+	 * accessible.
+	 *
+	 * @throws IOException Unexpected.
+	 */
+	@Test
+	public void testUploadFileFileNotAccessible() throws IOException {
+		final File file = FileSystemTestUtil.createInaccessibleFile();
+
+		assertNull(repository.uploadFile(file, new BucketPath()));
+
+		verifyZeroInteractions(client);
+		assertThat(logger.getLoggingEvents(), is(singletonList(warn("File is not accessible: {}", file.getName()))));
+	}
+
+	/**
+	 * Tests that {@link AsyncS3BucketRepositoryImpl#uploadFile(File, BucketPath)} does not upload a file whose request
+	 * cannot be created.
+	 *
+	 * @throws IOException                    Unexpected.
+	 * @throws ObjectRequestCreationException Unexpected.
+	 */
+	@Test
+	public void testUploadFileUploadRequestCreationFailed() throws IOException, ObjectRequestCreationException {
+		final File file = FileSystemTestUtil.createAccessibleFile();
+		final BucketPath destination = new BucketPath().append("repository");
+		final ObjectRequestCreationException exception = new ObjectRequestCreationException();
+		when(putObjectRequestFactory.create(file, destination.asString())).thenThrow(exception);
+
+		assertNull(repository.uploadFile(file, destination));
+
+		verifyZeroInteractions(client);
+		assertThat(logger.getLoggingEvents(), is(singletonList(error(exception, "Failed to create upload request"))));
+	}
+
+	/**
+	 * Tests {@link AsyncS3BucketRepositoryImpl#uploadFile(File, BucketPath)}.
+	 *
+	 * @throws IOException                    Unexpected.
+	 * @throws ObjectRequestCreationException Unexpected.
+	 */
+	@Test
+	public void testUploadFile() throws IOException, ObjectRequestCreationException {
+		final File file = FileSystemTestUtil.createAccessibleFile();
+		final BucketPath destination = new BucketPath().append("repository");
+		when(putObjectRequestFactory.create(file, destination.asString())).thenReturn(putObjectRequest);
+
+		assertEquals(destination.asString(), repository.uploadFile(file, destination));
+
+		verify(client).putObject(putObjectRequest);
+	}
+
+	/**
+	 * Tests that {@link AsyncS3BucketRepositoryImpl#uploadFileAsync(File, BucketPath)} returns before the upload has
+	 * completed.
+	 *
+	 * @throws Exception Unexpected.
+	 */
+	@Test(timeout = 10000)
+	public void testUploadFileAsync() throws Exception {
+		final File file = FileSystemTestUtil.createAccessibleFile();
+		final BucketPath destination = new BucketPath().append("repository");
+		when(putObjectRequestFactory.create(file, destination.asString())).thenReturn(putObjectRequest);
+		final CountDownLatch latch = new CountDownLatch(1);
+		when(client.putObject(putObjectRequest)).thenAnswer(new Answer<PutObjectResult>() {
+			@Override
+			public PutObjectResult answer(final InvocationOnMock invocation) throws InterruptedException {
+				latch.await();
+				return new PutObjectResult();
+			}
+		});
+		final ListeningExecutorService pool = MoreExecutors.listeningDecorator(Executors.newSingleThreadExecutor());
+		try {
+			final ListenableFuture<String> upload = new AsyncS3BucketRepositoryImpl(client, delegate,
+					putObjectRequestFactory, deleteObjectRequestFactory, bucketTrieFactory, requestLimiter, pool)
+					.uploadFileAsync(file, destination);
+
+			assertFalse(upload.isDone());
+			latch.countDown();
+			assertEquals(destination.asString(), upload.get());
+		} finally {
+			pool.shutdownNow();
+		}
+	}
+
+	/**
+	 * Tests that the request permit is released when an upload fails, and that the failure is thrown as the blocking
+	 * repository would throw it.
+	 *
+	 * @throws IOException                    Unexpected.
+	 * @throws ObjectRequestCreationException Unexpected.
+	 */
+	@Test(timeout = 10000)
+	public void testUploadFileReleasesPermitOnFailure() throws IOException, ObjectRequestCreationException {
+		final File file = FileSystemTestUtil.createAccessibleFile();
+		final BucketPath destination = new BucketPath().append("repository");
+		when(putObjectRequestFactory.create(file, destination.asString())).thenReturn(putObjectRequest);
+		when(client.putObject(putObjectRequest)).thenThrow(new AmazonClientException("mock"))
+				.thenReturn(new PutObjectResult());
+
+		try {
+			repository.uploadFile(file, destination);
+			fail("Expected exception not thrown");
+		} catch (final AmazonClientException e) {
+			// Expected
+		}
+
+		assertEquals(destination.asString(), repository.uploadFile(file, destination));
+	}
+
+	/**
+	 * Tests that {@link AsyncS3BucketRepositoryImpl#uploadFile(File, ByteBuffer, BucketPath)} is served by the
+	 * delegate.
+	 *
+	 * @throws IOException Unexpected.
+	 */
+	@Test
+	public void testUploadFileContent() throws IOException {
+		final File file = FileSystemTestUtil.createAccessibleFile();
+		final ByteBuffer content = ByteBuffer.allocate(4);
+		final BucketPath destination = new BucketPath().append("repository");
+		when(delegate.uploadFile(file, content, destination)).thenReturn(destination.asString());
+
+		assertEquals(destination.asString(), repository.uploadFile(file, content, destination));
+	}
+
+	/**
+	 * Tests that {@link AsyncS3BucketRepositoryImpl#uploadDirectory(File, BucketPath)} throws an exception when the
+	 * given directory is {@code null}.
+	 */
+	@Test(expected = NullPointerException.class)
+	public void testUploadDirectoryNullDirectory() {
+		repository.uploadDirectory(null, new BucketPath());
+	}
+
+	/**
+	 * Tests that {@link AsyncS3BucketRepositoryImpl#uploadDirectory(File, BucketPath)} does not upload a directory
+	 * which is not accessible.
+	 *
+	 * @throws IOException Unexpected.
+	 */
+	@Test
+	public void testUploadDirectoryDirectoryNotAccessible() throws IOException {
+		final File directory = FileSystemTestUtil.createInaccessibleDirectory();
+
+		final Trie<String, String> content = repository.uploadDirectory(directory, new BucketPath());
+
+		assertEquals(bucketTrieFactory.create(), content);
+		verifyZeroInteractions(client);
+	}
+
+	/**
+	 * Tests {@link AsyncS3BucketRepositoryImpl#uploadDirectory(File, BucketPath)} when the given directory has child
+	 * files in nested directories.
+	 *
+	 * @throws IOException                    Unexpected.
+	 * @throws ObjectRequestCreationException Unexpected.
+	 */
+	@Test
+	public void testUploadDirectory() throws IOException, ObjectRequestCreationException {
+		final File directory = FileSystemTestUtil.createAccessibleDirectory();
+		final File file = FileSystemTestUtil.createAccessibleFile(directory.toPath());
+		final File childDirectory = FileSystemTestUtil.createAccessibleDirectory(directory.toPath());
+		final File childFile = FileSystemTestUtil.createAccessibleFile(childDirectory.toPath());
+		final BucketPath directoryDestination = new BucketPath().append("repository");
+		final String fileKey = new BucketPath(directoryDestination).append(file.getName()).asString();
+		final String childFileKey = new BucketPath(directoryDestination).append(childDirectory.getName())
+				.append(childFile.getName()).asString();
+		when(putObjectRequestFactory.create(any(File.class), any(String.class))).thenReturn(putObjectRequest);
+		when(delegate.getHostingUrl(fileKey)).thenReturn("http://mock/" + fileKey);
+		when(delegate.getHostingUrl(childFileKey)).thenReturn("http://mock/" + childFileKey);
+		final Trie<String, String> expectedContent = bucketTrieFactory.create();
+		expectedContent.insert(fileKey, "http://mock/" + fileKey);
+		expectedContent.insert(childFileKey, "http://mock/" + childFileKey);
+
+		final Trie<String, String> content = repository.uploadDirectory(directory, directoryDestination);
+
+		assertEquals(expectedContent, content);
+		verify(client, times(2)).putObject(putObjectRequest);
+	}
+
+	/**
+	 * Tests that {@link AsyncS3BucketRepositoryImpl#uploadDirectory(File, BucketPath)} throws the failure of an
+	 * upload.
+	 *
+	 * @throws IOException                    Unexpected.
+	 * @throws ObjectRequestCreationException Unexpected.
+	 */
+	@Test
+	public void testUploadDirectoryUploadFailure() throws IOException, ObjectRequestCreationException {
+		final File directory = FileSystemTestUtil.createAccessibleDirectory();
+		final File file = FileSystemTestUtil.createAccessibleFile(directory.toPath());
+		final BucketPath directoryDestination = new BucketPath().append("repository");
+		when(putObjectRequestFactory.create(file, new BucketPath(directoryDestination).append(file.getName())
+				.asString())).thenReturn(putObjectRequest);
+		final AmazonClientException exception = new AmazonClientException("mock");
+		when(client.putObject(putObjectRequest)).thenThrow(exception);
+
+		try {
+			repository.uploadDirectory(directory, directoryDestination);
+			fail("Expected exception not thrown");
+		} catch (final AmazonClientException e) {
+			assertSame(exception, e);
+		}
+	}
+
+	/**
+	 * Tests that {@link AsyncS3BucketRepositoryImpl#deleteDirectory(String)} throws an exception when the given prefix
+	 * is {@code null}.
+	 */
+	@Test(expected = NullPointerException.class)
+	public void testDeleteDirectoryNullPrefix() {
+		repository.deleteDirectory(null);
+	}
+
+	/**
+	 * Tests that {@link AsyncS3BucketRepositoryImpl#deleteDirectory(String)} throws an exception when the given prefix
+	 * is empty.
+	 */
+	@Test(expected = IllegalArgumentException.class)
+	public void testDeleteDirectoryEmptyPrefix() {
+		repository.deleteDirectory(" ");
+	}
+
+	/**
+	 * Tests that {@link AsyncS3BucketRepositoryImpl#deleteDirectoryAsync(String)} issues no request when there is
+	 * nothing to delete.
+	 *
+	 * @throws Exception Unexpected.
+	 */
+	@Test
+	public void testDeleteDirectoryAsyncNoObjects() throws Exception {
+		final String prefix = "repository/";
+		when(delegate.iterate(prefix)).thenReturn(Collections.<S3ObjectSummary>emptyList());
+
+		assertEquals(Integer.valueOf(0), repository.deleteDirectoryAsync(prefix).get());
+
+		verifyZeroInteractions(client);
+	}
+
+	/**
+	 * Tests that {@link AsyncS3BucketRepositoryImpl#deleteDirectoryAsync(String)} deletes the listed objects in batches
+	 * of the maximum size.
+	 *
+	 * @throws Exception Unexpected.
+	 */
+	@Test
+	public void testDeleteDirectoryAsync() throws Exception {
+		final String prefix = "repository/";
+		final int count = DeleteObjectRequestFactory.MAX_KEYS_PER_REQUEST + 1;
+		final List<S3ObjectSummary> summaries = new ArrayList<S3ObjectSummary>();
+		for (int i = 0; i < count; i++) {
+			final S3ObjectSummary summary = mock(S3ObjectSummary.class);
+			when(summary.getKey()).thenReturn(prefix + i);
+			summaries.add(summary);
+		}
+		when(delegate.iterate(prefix)).thenReturn(summaries);
+		when(client.deleteObjects(any(DeleteObjectsRequest.class))).thenReturn(
+				new DeleteObjectsResult(Collections.<DeleteObjectsResult.DeletedObject>emptyList()));
+
+		assertEquals(Integer.valueOf(count), repository.deleteDirectoryAsync(prefix).get());
+
+		final ArgumentCaptor<DeleteObjectsRequest> captor = ArgumentCaptor.forClass(DeleteObjectsRequest.class);
+		verify(client, times(2)).deleteObjects(captor.capture());
+		assertEquals(DeleteObjectRequestFactory.MAX_KEYS_PER_REQUEST, captor.getAllValues().get(0).getKeys().size());
+		assertEquals(1, captor.getAllValues().get(1).getKeys().size());
+		assertEquals(prefix + (count - 1), captor.getAllValues().get(1).getKeys().get(0).getKey());
+	}
+
+	/**
+	 * Tests that {@link AsyncS3BucketRepositoryImpl#deleteDirectory(String)} throws the failure of a delete.
+	 */
+	@Test
+	public void testDeleteDirectoryFailure() {
+		final String prefix = "repository/";
+		final S3ObjectSummary summary = mock(S3ObjectSummary.class);
+		when(summary.getKey()).thenReturn(prefix + "a");
+		when(delegate.iterate(prefix)).thenReturn(singletonList(summary));
+		final AmazonClientException exception = new AmazonClientException("mock");
+		when(client.deleteObjects(any(DeleteObjectsRequest.class))).thenThrow(exception);
+
+		try {
+			repository.deleteDirectory(prefix);
+			fail("Expected exception not thrown");
+		} catch (final AmazonClientException e) {
+			assertSame(exception, e);
+		}
+	}
+
+	/**
+	 * Tests that {@link AsyncS3BucketRepositoryImpl#deleteObjects(Collection)} throws an exception when the given keys
+	 * are {@code null}.
+	 */
+	@Test(expected = NullPointerException.class)
+	public void testDeleteObjectsNullKeys() {
+		repository.deleteObjects(null);
+	}
+
+	/**
+	 * Tests that {@link AsyncS3BucketRepositoryImpl#deleteObjectsAsync(Collection)} deletes the given keys in batches
+	 * of the maximum size.
+	 *
+	 * @throws Exception Unexpected.
+	 */
+	@Test
+	public void testDeleteObjectsAsync() throws Exception {
+		final int count = DeleteObjectRequestFactory.MAX_KEYS_PER_REQUEST + 1;
+		final List<String> keys = new ArrayList<String>();
+		for (int i = 0; i < count; i++) {
+			keys.add("repository/" + i);
+		}
+		when(client.deleteObjects(any(DeleteObjectsRequest.class))).thenReturn(
+				new DeleteObjectsResult(Collections.<DeleteObjectsResult.DeletedObject>emptyList()));
+
+		assertEquals(Integer.valueOf(count), repository.deleteObjectsAsync(keys).get());
+
+		final ArgumentCaptor<DeleteObjectsRequest> captor = ArgumentCaptor.forClass(DeleteObjectsRequest.class);
+		verify(client, times(2)).deleteObjects(captor.capture());
+		assertEquals(DeleteObjectRequestFactory.MAX_KEYS_PER_REQUEST, captor.getAllValues().get(0).getKeys().size());
+		assertEquals(1, captor.getAllValues().get(1).getKeys().size());
+		verifyZeroInteractions(delegate);
+	}
+
+	/**
+	 * Tests that {@link AsyncS3BucketRepositoryImpl#deleteObjects(Collection)} throws the failure of a delete.
+	 */
+	@Test
+	public void testDeleteObjectsFailure() {
+		final AmazonClientException exception = new AmazonClientException("mock");
+		when(client.deleteObjects(any(DeleteObjectsRequest.class))).thenThrow(exception);
+
+		try {
+			repository.deleteObjects(singletonList("repository/a"));
+			fail("Expected exception not thrown");
+		} catch (final AmazonClientException e) {
+			assertSame(exception, e);
+		}
+	}
+
+	/**
+	 * Tests that {@link AsyncS3BucketRepositoryImpl#enumerate(String)}, {@link
+	 * AsyncS3BucketRepositoryImpl#iterate(String)}, {@link AsyncS3BucketRepositoryImpl#iterateAll()}, {@link
+	 * AsyncS3BucketRepositoryImpl#iterateAfter(String, String)}, {@link
+	 * AsyncS3BucketRepositoryImpl#iterateVersions(String)} and {@link
+	 * AsyncS3BucketRepositoryImpl#listDirectories(String)} are served by the delegate.
+	 */
+	@Test
+	public void testListing() {
+		final String prefix = "repository/";
+		final List<S3ObjectSummary> summaries = singletonList(mock(S3ObjectSummary.class));
+		final List<String> directories = singletonList(prefix + "plugins/");
+		when(delegate.enumerate(prefix)).thenReturn(summaries);
+		when(delegate.iterate(prefix)).thenReturn(summaries);
+		when(delegate.iterateAll()).thenReturn(summaries);
+		when(delegate.iterateAfter(prefix, prefix + "a")).thenReturn(summaries);
+		when(delegate.iterateChildren(prefix)).thenReturn(summaries);
+		when(delegate.listDirectories(prefix)).thenReturn(directories);
+		final List<S3VersionSummary> versions = singletonList(new S3VersionSummary());
+		when(delegate.iterateVersions(prefix)).thenReturn(versions);
+
+		assertSame(summaries, repository.enumerate(prefix));
+		assertSame(summaries, repository.iterate(prefix));
+		assertSame(summaries, repository.iterateAll());
+		assertSame(summaries, repository.iterateAfter(prefix, prefix + "a"));
+		assertSame(summaries, repository.iterateChildren(prefix));
+		assertSame(directories, repository.listDirectories(prefix));
+		assertSame(versions, repository.iterateVersions(prefix));
+	}
+
+	/**
+	 * Tests that {@link AsyncS3BucketRepositoryImpl#getMetadata(String)} is served by the delegate.
+	 */
+	@Test
+	public void testGetMetadata() {
+		final Optional<ObjectMetadata> metadata = Optional.of(new ObjectMetadata());
+		when(delegate.getMetadata("key")).thenReturn(metadata);
+
+		assertSame(metadata, repository.getMetadata("key"));
+	}
+
+	/**
+	 * Tests that {@link AsyncS3BucketRepositoryImpl#deleteVersions(Collection)} is served by the delegate.
+	 */
+	@Test
+	public void testDeleteVersions() {
+		final List<KeyVersion> versions = singletonList(new KeyVersion("repository/a", "1"));
+
+		repository.deleteVersions(versions);
+
+		verify(delegate).deleteVersions(versions);
+	}
+
+	/**
+	 * Tests that {@link AsyncS3BucketRepositoryImpl#downloadRange(String, long, long, FileChannel)} is served by the
+	 * delegate.
+	 *
+	 * @throws IOException Unexpected.
+	 */
+	@Test
+	public void testDownloadRange() throws IOException {
+		final FileChannel channel = mock(FileChannel.class);
+		when(delegate.downloadRange("key", 0, 9, channel)).thenReturn(10L);
+
+		assertEquals(10L, repository.downloadRange("key", 0, 9, channel));
+	}
+
+	/**
+	 * Tests that {@link AsyncS3BucketRepositoryImpl#getHostingUrl(String)} is served by the delegate.
+	 */
+	@Test
+	public void testGetHostingUrl() {
+		when(delegate.getHostingUrl("key")).thenReturn("http://mock/key");
+
+		assertEquals("http://mock/key", repository.getHostingUrl("key"));
+	}
+
+}
@@ -1,20 +1,34 @@
 package com.avojak.mojo.aws.p2.maven.plugin.s3.repository.impl;
 
+import com.amazonaws.AmazonClientException;
 import com.amazonaws.services.s3.AmazonS3;
 import com.amazonaws.services.s3.AmazonS3Client;
+import com.amazonaws.services.s3.model.AmazonS3Exception;
 import com.amazonaws.services.s3.model.DeleteObjectRequest;
+import com.amazonaws.services.s3.model.DeleteObjectsRequest;
+import com.amazonaws.services.s3.model.DeleteObjectsRequest.KeyVersion;
+import com.amazonaws.services.s3.model.GetObjectMetadataRequest;
+import com.amazonaws.services.s3.model.GetObjectRequest;
 import com.amazonaws.services.s3.model.HeadBucketRequest;
 import com.amazonaws.services.s3.model.HeadBucketResult;
 import com.amazonaws.services.s3.model.ListObjectsRequest;
+import com.amazonaws.services.s3.model.ListVersionsRequest;
 import com.amazonaws.services.s3.model.ObjectListing;
+import com.amazonaws.services.s3.model.ObjectMetadata;
 import com.amazonaws.services.s3.model.PutObjectRequest;
+import com.amazonaws.services.s3.model.PutObjectResult;
+import com.amazonaws.services.s3.model.S3Object;
+import com.amazonaws.services.s3.model.S3ObjectInputStream;
 import com.amazonaws.services.s3.model.S3ObjectSummary;
-import com.avojak.mojo.aws.p2.maven.plugin.s3.exception.BucketDoesNotExistException;
+import com.amazonaws.services.s3.model.S3VersionSummary;
+import com.amazonaws.services.s3.model.VersionListing;
 import com.avojak.mojo.aws.p2.maven.plugin.s3.exception.ObjectRequestCreationException;
+import com.avojak.mojo.aws.p2.maven.plugin.s3.limit.InFlightRequestLimiter;
 import com.avojak.mojo.aws.p2.maven.plugin.s3.model.BucketPath;
 import com.avojak.mojo.aws.p2.maven.plugin.s3.model.trie.Trie;
 import com.avojak.mojo.aws.p2.maven.plugin.s3.model.trie.impl.BucketTrieFactory;
 import com.avojak.mojo.aws.p2.maven.plugin.s3.request.factory.delete.DeleteObjectRequestFactory;
+import com.avojak.mojo.aws.p2.maven.plugin.s3.request.factory.get.GetObjectRequestFactory;
 import com.avojak.mojo.aws.p2.maven.plugin.s3.request.factory.head.HeadBucketRequestFactory;
 import com.avojak.mojo.aws.p2.maven.plugin.s3.request.factory.list.ListObjectsRequestFactory;
 import com.avojak.mojo.aws.p2.maven.plugin.s3.request.factory.put.PutObjectRequestFactory;
@@ -29,17 +43,36 @@ import uk.org.lidalia.slf4jtest.LoggingEvent;
 import uk.org.lidalia.slf4jtest.TestLogger;
 import uk.org.lidalia.slf4jtest.TestLoggerFactory;
 
+import java.io.ByteArrayInputStream;
 import java.io.File;
 import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 import static java.util.Arrays.asList;
 import static java.util.Collections.singletonList;
 import static org.hamcrest.CoreMatchers.is;
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
 import static org.junit.Assert.assertThat;
 import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.verifyNoMoreInteractions;
 import static org.mockito.Mockito.when;
@@ -89,24 +122,31 @@ public class S3BucketRepositoryImplTest {
 	@Mock
 	private HeadBucketResult headBucketResult;
 
+	@Mock
+	private GetObjectRequestFactory getObjectRequestFactory;
+
+	@Mock
+	private GetObjectRequest getObjectRequest;
+
+	@Mock
+	private S3Object s3Object;
+
 	private final TestLogger logger = TestLoggerFactory.getTestLogger(S3BucketRepositoryImpl.class);
 
 	private final String bucketName = "mock";
 	private final String bucketLocation = "us-east-1";
 	private BucketTrieFactory bucketTrieFactory = new BucketTrieFactory();
+	private final InFlightRequestLimiter requestLimiter = new InFlightRequestLimiter(1);
 
 	private S3BucketRepositoryImpl repository;
 
 	/**
 	 * Setup mocks.
-	 *
-	 * @throws BucketDoesNotExistException Unexpected.
 	 */
 	@Before
-	public void setup() throws BucketDoesNotExistException {
-		when(client.doesBucketExist(bucketName)).thenReturn(true);
+	public void setup() {
 		repository = new S3BucketRepositoryImpl(client, bucketName, putObjectRequestFactory, deleteObjectRequestFactory,
-				listObjectsRequestFactory, headBucketRequestFactory, bucketTrieFactory);
+				listObjectsRequestFactory, headBucketRequestFactory, getObjectRequestFactory, bucketTrieFactory, requestLimiter, null, null);
 	}
 
 	/**
@@ -119,102 +159,93 @@ public class S3BucketRepositoryImplTest {
 
 	/**
 	 * Tests that the constructor throws an exception when the given {@link AmazonS3} client is {@code null}.
-	 *
-	 * @throws BucketDoesNotExistException Unexpected.
 	 */
 	@Test(expected = NullPointerException.class)
-	public void testConstructorNullClient() throws BucketDoesNotExistException {
+	public void testConstructorNullClient() {
 		new S3BucketRepositoryImpl(null, bucketName, putObjectRequestFactory, deleteObjectRequestFactory,
-				listObjectsRequestFactory, headBucketRequestFactory, bucketTrieFactory);
+				listObjectsRequestFactory, headBucketRequestFactory, getObjectRequestFactory, bucketTrieFactory, requestLimiter, null, null);
 	}
 
 	/**
 	 * Tests that the constructor throws an exception when the given bucket name is {@code null}.
-	 *
-	 * @throws BucketDoesNotExistException Unexpected.
 	 */
 	@Test(expected = NullPointerException.class)
-	public void testConstructorNullBucketName() throws BucketDoesNotExistException {
+	public void testConstructorNullBucketName() {
 		new S3BucketRepositoryImpl(client, null, putObjectRequestFactory, deleteObjectRequestFactory,
-				listObjectsRequestFactory, headBucketRequestFactory, bucketTrieFactory);
+				listObjectsRequestFactory, headBucketRequestFactory, getObjectRequestFactory, bucketTrieFactory, requestLimiter, null, null);
 	}
 
 	/**
 	 * Tests that the constructor throws an exception when the given bucket name is empty.
-	 *
-	 * @throws BucketDoesNotExistException Unexpected.
 	 */
 	@Test(expected = IllegalArgumentException.class)
-	public void testConstructorEmptyBucketName() throws BucketDoesNotExistException {
+	public void testConstructorEmptyBucketName() {
 		new S3BucketRepositoryImpl(client, " ", putObjectRequestFactory, deleteObjectRequestFactory,
-				listObjectsRequestFactory, headBucketRequestFactory, bucketTrieFactory);
+				listObjectsRequestFactory, headBucketRequestFactory, getObjectRequestFactory, bucketTrieFactory, requestLimiter, null, null);
 	}
 
 	/**
 	 * Tests that the constructor throws an exception when the given {@link PutObjectRequestFactory} is {@code null}.
-	 *
-	 * @throws BucketDoesNotExistException Unexpected.
 	 */
 	@Test(expected = NullPointerException.class)
-	public void testConstructorNullPutObjectRequestFactory() throws BucketDoesNotExistException {
+	public void testConstructorNullPutObjectRequestFactory() {
 		new S3BucketRepositoryImpl(client, bucketName, null, deleteObjectRequestFactory,
-				listObjectsRequestFactory, headBucketRequestFactory, bucketTrieFactory);
+				listObjectsRequestFactory, headBucketRequestFactory, getObjectRequestFactory, bucketTrieFactory, requestLimiter, null, null);
 	}
 
 	/**
 	 * Tests that the constructor throws an exception when the given {@link DeleteObjectRequestFactory} is {@code null}.
-	 *
-	 * @throws BucketDoesNotExistException Unexpected.
 	 */
 	@Test(expected = NullPointerException.class)
-	public void testConstructorNullDeleteObjectRequestFactory() throws BucketDoesNotExistException {
+	public void testConstructorNullDeleteObjectRequestFactory() {
 		new S3BucketRepositoryImpl(client, bucketName, putObjectRequestFactory, null,
-				listObjectsRequestFactory, headBucketRequestFactory, bucketTrieFactory);
+				listObjectsRequestFactory, headBucketRequestFactory, getObjectRequestFactory, bucketTrieFactory, requestLimiter, null, null);
 	}
 
 	/**
 	 * Tests that the constructor throws an exception when the given {@link ListObjectsRequestFactory} is {@code null}.
-	 *
-	 * @throws BucketDoesNotExistException Unexpected.
 	 */
 	@Test(expected = NullPointerException.class)
-	public void testConstructorNullListObjectsRequestFactory() throws BucketDoesNotExistException {
+	public void testConstructorNullListObjectsRequestFactory() {
 		new S3BucketRepositoryImpl(client, bucketName, putObjectRequestFactory, deleteObjectRequestFactory, null,
-				headBucketRequestFactory, bucketTrieFactory);
+				headBucketRequestFactory, getObjectRequestFactory, bucketTrieFactory, requestLimiter, null, null);
 	}
 
 	/**
 	 * Tests that the constructor throws an exception when the given {@link HeadBucketRequestFactory} is {@code null}.
-	 *
-	 * @throws BucketDoesNotExistException Unexpected.
 	 */
 	@Test(expected = NullPointerException.class)
-	public void testConstructorNullHeadBucketRequestFactory() throws BucketDoesNotExistException {
+	public void testConstructorNullHeadBucketRequestFactory() {
 		new S3BucketRepositoryImpl(client, bucketName, putObjectRequestFactory, deleteObjectRequestFactory,
-				listObjectsRequestFactory, null, bucketTrieFactory);
+				listObjectsRequestFactory, null, getObjectRequestFactory, bucketTrieFactory, requestLimiter, null, null);
+	}
+
+	/**
+	 * Tests that the constructor throws an exception when the given {@link GetObjectRequestFactory} is {@code null}.
+	 */
+	@Test(expected = NullPointerException.class)
+	public void testConstructorNullGetObjectRequestFactory() {
+		new S3BucketRepositoryImpl(client, bucketName, putObjectRequestFactory, deleteObjectRequestFactory,
+				listObjectsRequestFactory, headBucketRequestFactory, null, bucketTrieFactory, requestLimiter, null, null);
 	}
 
 	/**
 	 * Tests that the constructor throws an exception when the given {@link BucketTrieFactory} is {@cod null}.
-	 *
-	 * @throws BucketDoesNotExistException Unexpected.
 	 */
 	@Test(expected = NullPointerException.class)
-	public void testConstructorNullBucketTrieFactory() throws BucketDoesNotExistException {
+	public void testConstructorNullBucketTrieFactory() {
 		new S3BucketRepositoryImpl(client, bucketName, putObjectRequestFactory, deleteObjectRequestFactory,
-				listObjectsRequestFactory, headBucketRequestFactory, null);
+				listObjectsRequestFactory, headBucketRequestFactory, getObjectRequestFactory, null, requestLimiter, null, null);
 	}
 
 	/**
-	 * Tests that the constructor throws an exception when the given bucket does not exist.
-	 *
-	 * @throws BucketDoesNotExistException Expected.
+	 * Tests that the constructor throws an exception when the given {@link InFlightRequestLimiter} is {@code null}.
 	 */
-	@Test(expected = BucketDoesNotExistException.class)
-	public void testConstructorBucketDoesNotExist() throws BucketDoesNotExistException {
-		when(client.doesBucketExist(bucketName)).thenReturn(false);
+	@Test(expected = NullPointerException.class)
+	public void testConstructorNullRequestLimiter() {
 		new S3BucketRepositoryImpl(client, bucketName, putObjectRequestFactory, deleteObjectRequestFactory,
-				listObjectsRequestFactory, headBucketRequestFactory, bucketTrieFactory);
+				listObjectsRequestFactory, headBucketRequestFactory, getObjectRequestFactory, bucketTrieFactory, null,
+				null, null);
 	}
 
 	/**
@@ -249,7 +280,6 @@ public class S3BucketRepositoryImplTest {
 
 		assertNull(key);
 		assertThat(logger.getLoggingEvents(), is(singletonList(warn("File is not accessible: {}", file.getName()))));
-		verify(client).doesBucketExist(bucketName);
 		verifyNoMoreInteractions(client);
 	}
 
@@ -265,7 +295,6 @@ public class S3BucketRepositoryImplTest {
 
 		assertNull(key);
 		assertThat(logger.getLoggingEvents(), is(singletonList(warn("File is not accessible: {}", file.getName()))));
-		verify(client).doesBucketExist(bucketName);
 		verifyNoMoreInteractions(client);
 	}
 
@@ -285,7 +314,6 @@ public class S3BucketRepositoryImplTest {
 		final String key = repository.uploadFile(file, destination);
 
 		assertNull(key);
-		verify(client).doesBucketExist(bucketName);
 		verifyNoMoreInteractions(client);
 
 		final LoggingEvent uploadLoggingEvent = debug("Uploading file: {}", destination.asString());
@@ -368,7 +396,6 @@ public class S3BucketRepositoryImplTest {
 		final LoggingEvent event1 = debug("Determined trie prefix: {}", content.getPrefix());
 		final LoggingEvent event2 = warn("Directory is not accessible: {}", directory.getName());
 		assertThat(logger.getLoggingEvents(), is(asList(event1, event2)));
-		verify(client).doesBucketExist(bucketName);
 		verifyNoMoreInteractions(client);
 	}
 
@@ -386,7 +413,6 @@ public class S3BucketRepositoryImplTest {
 		final LoggingEvent event1 = debug("Determined trie prefix: {}", content.getPrefix());
 		final LoggingEvent event2 = warn("Directory is not accessible: {}", directory.getName());
 		assertThat(logger.getLoggingEvents(), is(asList(event1, event2)));
-		verify(client).doesBucketExist(bucketName);
 		verifyNoMoreInteractions(client);
 	}
 
@@ -403,7 +429,6 @@ public class S3BucketRepositoryImplTest {
 		final Trie<String, String> content = repository.uploadDirectory(directory, destination);
 
 		assertTrue(content.isEmpty());
-		verify(client).doesBucketExist(bucketName);
 		verifyNoMoreInteractions(client);
 
 		final LoggingEvent event1 = debug("Determined trie prefix: {}", content.getPrefix());
@@ -424,7 +449,6 @@ public class S3BucketRepositoryImplTest {
 		final Trie<String, String> content = repository.uploadDirectory(directory, destination);
 
 		assertTrue(content.isEmpty());
-		verify(client).doesBucketExist(bucketName);
 		verifyNoMoreInteractions(client);
 
 		final LoggingEvent event1 = debug("Determined trie prefix: {}", content.getPrefix());
@@ -448,7 +472,6 @@ public class S3BucketRepositoryImplTest {
 		final Trie<String, String> content = repository.uploadDirectory(parentDirectory, parentDirectoryDestination);
 
 		assertEquals(expectedContent, content);
-		verify(client).doesBucketExist(bucketName);
 		verifyNoMoreInteractions(client);
 	}
 
@@ -477,7 +500,6 @@ public class S3BucketRepositoryImplTest {
 		final Trie<String, String> content = repository.uploadDirectory(directory, directoryDestination);
 
 		assertEquals(expectedContent, content);
-		verify(client).doesBucketExist(bucketName);
 		verify(client).putObject(putObjectRequest);
 		verify(client).headBucket(headBucketRequest);
 		verifyNoMoreInteractions(client);
@@ -520,6 +542,66 @@ public class S3BucketRepositoryImplTest {
 		assertThat(logger.getLoggingEvents(), is(singletonList(debug("Deleting existing object: {}", prefix))));
 	}
 
+	/**
+	 * Tests that {@link S3BucketRepositoryImpl#deleteObjects(Collection)} throws an exception when the given keys are
+	 * {@code null}.
+	 */
+	@Test(expected = NullPointerException.class)
+	public void testDeleteObjectsNullKeys() {
+		repository.deleteObjects(null);
+	}
+
+	/**
+	 * Tests that {@link S3BucketRepositoryImpl#deleteObjects(Collection)} deletes the given keys in batches of at most
+	 * {@link DeleteObjectRequestFactory#MAX_KEYS_PER_REQUEST}.
+	 */
+	@Test
+	public void testDeleteObjects() {
+		final List<String> keys = new ArrayList<String>();
+		for (int i = 0; i < DeleteObjectRequestFactory.MAX_KEYS_PER_REQUEST + 1; i++) {
+			keys.add("key" + i);
+		}
+		final DeleteObjectsRequest request1 = new DeleteObjectsRequest("mock");
+		final DeleteObjectsRequest request2 = new DeleteObjectsRequest("mock");
+		when(deleteObjectRequestFactory.createBatch(keys.subList(0, DeleteObjectRequestFactory.MAX_KEYS_PER_REQUEST)))
+				.thenReturn(request1);
+		when(deleteObjectRequestFactory.createBatch(singletonList(keys.get(keys.size() - 1)))).thenReturn(request2);
+
+		repository.deleteObjects(keys);
+
+		verify(client).deleteObjects(request1);
+		verify(client).deleteObjects(request2);
+		verify(client, never()).deleteObject(any(DeleteObjectRequest.class));
+		assertThat(logger.getLoggingEvents(), is(asList(
+				debug("Deleting {} objects, starting with: {}", DeleteObjectRequestFactory.MAX_KEYS_PER_REQUEST, "key0"),
+				debug("Deleting {} objects, starting with: {}", 1, keys.get(keys.size() - 1)))));
+	}
+
+	/**
+	 * Tests that {@link S3BucketRepositoryImpl#deleteVersions(Collection)} throws an exception when the given versions
+	 * are {@code null}.
+	 */
+	@Test(expected = NullPointerException.class)
+	public void testDeleteVersionsNullVersions() {
+		repository.deleteVersions(null);
+	}
+
+	/**
+	 * Tests {@link S3BucketRepositoryImpl#deleteVersions(Collection)}.
+	 */
+	@Test
+	public void testDeleteVersions() {
+		final List<KeyVersion> versions = asList(new KeyVersion("key", "2"), new KeyVersion("key", "1"));
+		final DeleteObjectsRequest request = new DeleteObjectsRequest("mock");
+		when(deleteObjectRequestFactory.createVersionBatch(versions)).thenReturn(request);
+
+		repository.deleteVersions(versions);
+
+		verify(client).deleteObjects(request);
+		assertThat(logger.getLoggingEvents(), is(singletonList(
+				debug("Deleting {} versions, starting with: {}", 2, "key"))));
+	}
+
 	/**
 	 * Tests {@link S3BucketRepositoryImpl#deleteDirectory(String)} when the returned collections of objects is
 	 * truncated.
@@ -563,6 +645,335 @@ public class S3BucketRepositoryImplTest {
 		assertThat(logger.getLoggingEvents(), is(asList(event1, event2)));
 	}
 
+	/**
+	 * Tests that {@link S3BucketRepositoryImpl#iterate(String)} throws an exception when the given prefix is {@code
+	 * null}.
+	 */
+	@Test(expected = NullPointerException.class)
+	public void testIterateNullPrefix() {
+		repository.iterate(null);
+	}
+
+	/**
+	 * Tests that {@link S3BucketRepositoryImpl#iterate(String)} throws an exception when the given prefix is empty.
+	 */
+	@Test(expected = IllegalArgumentException.class)
+	public void testIterateEmptyPrefix() {
+		repository.iterate(" ");
+	}
+
+	/**
+	 * Tests that {@link S3BucketRepositoryImpl#iterate(String)} does not list any objects until iterated.
+	 */
+	@Test
+	public void testIterate() {
+		final String prefix = "prefix";
+		when(listObjectsRequestFactory.create(prefix)).thenReturn(listObjectsRequest);
+		when(client.listObjects(listObjectsRequest)).thenReturn(objectListing);
+		when(objectListing.getObjectSummaries()).thenReturn(singletonList(objectSummary));
+		when(objectListing.isTruncated()).thenReturn(false);
+
+		final Iterable<S3ObjectSummary> summaries = repository.iterate(prefix);
+		verify(client, never()).listObjects(any(ListObjectsRequest.class));
+
+		final Iterator<S3ObjectSummary> iterator = summaries.iterator();
+		assertSame(objectSummary, iterator.next());
+		assertFalse(iterator.hasNext());
+	}
+
+	/**
+	 * Tests that {@link S3BucketRepositoryImpl#iterateAll()} lists the whole bucket, without a prefix, once iterated.
+	 */
+	@Test
+	public void testIterateAll() {
+		when(listObjectsRequestFactory.create(null)).thenReturn(listObjectsRequest);
+		when(client.listObjects(listObjectsRequest)).thenReturn(objectListing);
+		when(objectListing.getObjectSummaries()).thenReturn(singletonList(objectSummary));
+		when(objectListing.isTruncated()).thenReturn(false);
+
+		final Iterable<S3ObjectSummary> summaries = repository.iterateAll();
+		verify(client, never()).listObjects(any(ListObjectsRequest.class));
+
+		final Iterator<S3ObjectSummary> iterator = summaries.iterator();
+		assertSame(objectSummary, iterator.next());
+		assertFalse(iterator.hasNext());
+	}
+
+	/**
+	 * Tests that {@link S3BucketRepositoryImpl#iterateAfter(String, String)} throws an exception when the given prefix
+	 * is {@code null}.
+	 */
+	@Test(expected = NullPointerException.class)
+	public void testIterateAfterNullPrefix() {
+		repository.iterateAfter(null, "marker");
+	}
+
+	/**
+	 * Tests that {@link S3BucketRepositoryImpl#iterateAfter(String, String)} lists from the given marker once iterated.
+	 */
+	@Test
+	public void testIterateAfter() {
+		final String prefix = "prefix/";
+		when(listObjectsRequestFactory.createAfter(prefix, prefix + "a/")).thenReturn(listObjectsRequest);
+		when(client.listObjects(listObjectsRequest)).thenReturn(objectListing);
+		when(objectListing.getObjectSummaries()).thenReturn(singletonList(objectSummary));
+		when(objectListing.isTruncated()).thenReturn(false);
+
+		final Iterable<S3ObjectSummary> summaries = repository.iterateAfter(prefix, prefix + "a/");
+		verify(client, never()).listObjects(any(ListObjectsRequest.class));
+
+		final Iterator<S3ObjectSummary> iterator = summaries.iterator();
+		assertSame(objectSummary, iterator.next());
+		assertFalse(iterator.hasNext());
+	}
+
+	/**
+	 * Tests that {@link S3BucketRepositoryImpl#iterateChildren(String)} throws an exception when the given prefix is
+	 * empty.
+	 */
+	@Test(expected = IllegalArgumentException.class)
+	public void testIterateChildrenEmptyPrefix() {
+		repository.iterateChildren(" ");
+	}
+
+	/**
+	 * Tests that {@link S3BucketRepositoryImpl#iterateChildren(String)} iterates a delimited listing once iterated.
+	 */
+	@Test
+	public void testIterateChildren() {
+		final String prefix = "prefix/";
+		when(listObjectsRequestFactory.create(prefix, "/")).thenReturn(listObjectsRequest);
+		when(client.listObjects(listObjectsRequest)).thenReturn(objectListing);
+		when(objectListing.getObjectSummaries()).thenReturn(singletonList(objectSummary));
+		when(objectListing.isTruncated()).thenReturn(false);
+
+		final Iterable<S3ObjectSummary> summaries = repository.iterateChildren(prefix);
+		verify(client, never()).listObjects(any(ListObjectsRequest.class));
+
+		final Iterator<S3ObjectSummary> iterator = summaries.iterator();
+		assertSame(objectSummary, iterator.next());
+		assertFalse(iterator.hasNext());
+	}
+
+	/**
+	 * Tests that {@link S3BucketRepositoryImpl#iterateVersions(String)} throws an exception when the given prefix is
+	 * empty.
+	 */
+	@Test(expected = IllegalArgumentException.class)
+	public void testIterateVersionsEmptyPrefix() {
+		repository.iterateVersions(" ");
+	}
+
+	/**
+	 * Tests that {@link S3BucketRepositoryImpl#iterateVersions(String)} does not list any versions until iterated.
+	 */
+	@Test
+	public void testIterateVersions() {
+		final String prefix = "prefix/";
+		final ListVersionsRequest request = new ListVersionsRequest();
+		final VersionListing listing = mock(VersionListing.class);
+		final S3VersionSummary summary = new S3VersionSummary();
+		when(listObjectsRequestFactory.createVersions(prefix)).thenReturn(request);
+		when(client.listVersions(request)).thenReturn(listing);
+		when(listing.getVersionSummaries()).thenReturn(singletonList(summary));
+		when(listing.isTruncated()).thenReturn(false);
+
+		final Iterable<S3VersionSummary> summaries = repository.iterateVersions(prefix);
+		verify(client, never()).listVersions(any(ListVersionsRequest.class));
+
+		final Iterator<S3VersionSummary> iterator = summaries.iterator();
+		assertSame(summary, iterator.next());
+		assertFalse(iterator.hasNext());
+	}
+
+	/**
+	 * Tests that {@link S3BucketRepositoryImpl#listDirectories(String)} throws an exception when the given prefix is
+	 * {@code null}.
+	 */
+	@Test(expected = NullPointerException.class)
+	public void testListDirectoriesNullPrefix() {
+		repository.listDirectories(null);
+	}
+
+	/**
+	 * Tests that {@link S3BucketRepositoryImpl#listDirectories(String)} throws an exception when the given prefix is
+	 * empty.
+	 */
+	@Test(expected = IllegalArgumentException.class)
+	public void testListDirectoriesEmptyPrefix() {
+		repository.listDirectories(" ");
+	}
+
+	/**
+	 * Tests that {@link S3BucketRepositoryImpl#listDirectories(String)} returns the common prefixes of every page of a
+	 * delimited listing.
+	 */
+	@Test
+	public void testListDirectories() {
+		final String prefix = "project/snapshots/";
+		final ObjectListing objectListing2 = mock(ObjectListing.class);
+		when(listObjectsRequestFactory.create(prefix, "/")).thenReturn(listObjectsRequest);
+		when(client.listObjects(listObjectsRequest)).thenReturn(objectListing);
+		when(client.listNextBatchOfObjects(objectListing)).thenReturn(objectListing2);
+		when(objectListing.getCommonPrefixes()).thenReturn(singletonList(prefix + "1.0.0-SNAPSHOT/"));
+		when(objectListing.isTruncated()).thenReturn(true);
+		when(objectListing2.getCommonPrefixes()).thenReturn(singletonList(prefix + "1.1.0-SNAPSHOT/"));
+		when(objectListing2.isTruncated()).thenReturn(false);
+
+		assertEquals(asList(prefix + "1.0.0-SNAPSHOT/", prefix + "1.1.0-SNAPSHOT/"),
+				repository.listDirectories(prefix));
+		verify(client, never()).listObjects(any(String.class), any(String.class));
+	}
+
+	/**
+	 * Tests {@link S3BucketRepositoryImpl#getMetadata(String)} for an existing object.
+	 */
+	@Test
+	public void testGetMetadata() {
+		final GetObjectMetadataRequest request = new GetObjectMetadataRequest("mock", "key");
+		final ObjectMetadata metadata = new ObjectMetadata();
+		when(getObjectRequestFactory.createMetadata("key")).thenReturn(request);
+		when(client.getObjectMetadata(request)).thenReturn(metadata);
+
+		assertSame(metadata, repository.getMetadata("key").get());
+	}
+
+	/**
+	 * Tests that {@link S3BucketRepositoryImpl#getMetadata(String)} returns an absent value when there is no object
+	 * with the given key.
+	 */
+	@Test
+	public void testGetMetadataNotFound() {
+		final GetObjectMetadataRequest request = new GetObjectMetadataRequest("mock", "key");
+		final AmazonS3Exception exception = new AmazonS3Exception("Not Found");
+		exception.setStatusCode(404);
+		when(getObjectRequestFactory.createMetadata("key")).thenReturn(request);
+		when(client.getObjectMetadata(request)).thenThrow(exception);
+
+		assertFalse(repository.getMetadata("key").isPresent());
+	}
+
+	/**
+	 * Tests that {@link S3BucketRepositoryImpl#getMetadata(String)} throws any other failure.
+	 */
+	@Test
+	public void testGetMetadataFailure() {
+		final GetObjectMetadataRequest request = new GetObjectMetadataRequest("mock", "key");
+		final AmazonS3Exception exception = new AmazonS3Exception("Forbidden");
+		exception.setStatusCode(403);
+		when(getObjectRequestFactory.createMetadata("key")).thenReturn(request);
+		when(client.getObjectMetadata(request)).thenThrow(exception);
+
+		try {
+			repository.getMetadata("key");
+			fail("Expected exception not thrown");
+		} catch (final AmazonS3Exception e) {
+			assertSame(exception, e);
+		}
+	}
+
+	/**
+	 * Tests that {@link S3BucketRepositoryImpl#downloadRange(String, long, long, FileChannel)} throws an exception when
+	 * the given channel is {@code null}.
+	 *
+	 * @throws IOException Unexpected.
+	 */
+	@Test(expected = NullPointerException.class)
+	public void testDownloadRangeNullChannel() throws IOException {
+		repository.downloadRange("key", 0, 1, null);
+	}
+
+	/**
+	 * Tests {@link S3BucketRepositoryImpl#downloadRange(String, long, long, FileChannel)}. The content should be written
+	 * at the offset of the range within the object.
+	 *
+	 * @throws IOException Unexpected.
+	 */
+	@Test
+	public void testDownloadRange() throws IOException {
+		final String key = "key";
+		final byte[] content = "content".getBytes(StandardCharsets.UTF_8);
+		when(getObjectRequestFactory.create(key, 4, 4 + content.length - 1)).thenReturn(getObjectRequest);
+		when(client.getObject(getObjectRequest)).thenReturn(s3Object);
+		when(s3Object.getObjectContent())
+				.thenReturn(new S3ObjectInputStream(new ByteArrayInputStream(content), null));
+		final File file = FileSystemTestUtil.createAccessibleFile();
+
+		final long bytesWritten;
+		final ByteBuffer written = ByteBuffer.allocate(4 + content.length);
+		try (final FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ,
+				StandardOpenOption.WRITE)) {
+			bytesWritten = repository.downloadRange(key, 4, 4 + content.length - 1, channel);
+			channel.read(written, 0);
+		}
+
+		assertEquals(content.length, bytesWritten);
+		assertEquals("content", new String(written.array(), 4, content.length, StandardCharsets.UTF_8));
+		verify(s3Object).close();
+		assertThat(logger.getLoggingEvents(),
+				is(singletonList(debug("Downloading object range: {} [{}-{}]", key, 4L, 4L + content.length - 1))));
+	}
+
+	/**
+	 * Tests that {@link S3BucketRepositoryImpl#uploadFile(File, ByteBuffer, BucketPath)} throws an exception when the
+	 * given content is {@code null}.
+	 *
+	 * @throws IOException Unexpected.
+	 */
+	@Test(expected = NullPointerException.class)
+	public void testUploadFileContentNullContent() throws IOException {
+		repository.uploadFile(FileSystemTestUtil.createAccessibleFile(), null, new BucketPath());
+	}
+
+	/**
+	 * Tests {@link S3BucketRepositoryImpl#uploadFile(File, ByteBuffer, BucketPath)}.
+	 *
+	 * @throws IOException Unexpected.
+	 */
+	@Test
+	public void testUploadFileContent() throws IOException {
+		final File file = FileSystemTestUtil.createAccessibleFile();
+		final ByteBuffer content = ByteBuffer.allocate(4);
+		final BucketPath destination = new BucketPath().append("repository");
+		when(putObjectRequestFactory.create(file, content, destination.asString())).thenReturn(putObjectRequest);
+
+		final String key = repository.uploadFile(file, content, destination);
+
+		assertEquals(destination.asString(), key);
+		verify(client).putObject(putObjectRequest);
+		assertThat(logger.getLoggingEvents(), is(singletonList(debug("Uploading file: {}", destination.asString()))));
+	}
+
+	/**
+	 * Tests {@link S3BucketRepositoryImpl#getHostingUrl(String)} when a hosting base URL has been provided. The bucket
+	 * region should not be looked up.
+	 */
+	@Test
+	public void testGetHostingUrlBaseUrl() {
+		repository = new S3BucketRepositoryImpl(client, bucketName, putObjectRequestFactory, deleteObjectRequestFactory,
+				listObjectsRequestFactory, headBucketRequestFactory, getObjectRequestFactory, bucketTrieFactory,
+				requestLimiter, null, "https://cdn.example.com/");
+
+		assertEquals("https://cdn.example.com/key", repository.getHostingUrl("key"));
+		assertEquals("https://cdn.example.com/", repository.getHostingUrl(null));
+		verify(client, never()).headBucket(any(HeadBucketRequest.class));
+	}
+
+	/**
+	 * Tests {@link S3BucketRepositoryImpl#getHostingUrl(String)} when the bucket region has already been resolved. The
+	 * bucket region should not be looked up.
+	 */
+	@Test
+	public void testGetHostingUrlKnownRegion() {
+		repository = new S3BucketRepositoryImpl(client, bucketName, putObjectRequestFactory, deleteObjectRequestFactory,
+				listObjectsRequestFactory, headBucketRequestFactory, getObjectRequestFactory, bucketTrieFactory,
+				requestLimiter, bucketLocation, null);
+		final String expectedUrl = "http://" + bucketName + ".s3-website-" + bucketLocation + ".amazonaws.com/key";
+
+		assertEquals(expectedUrl, repository.getHostingUrl("key"));
+		verify(client, never()).headBucket(any(HeadBucketRequest.class));
+	}
+
 	/**
 	 * Tests {@link S3BucketRepositoryImpl#getHostingUrl(String)} when the given key is null.
 	 */
@@ -595,4 +1006,63 @@ public class S3BucketRepositoryImplTest {
 		assertEquals(expectedUrl, url);
 	}
 
+	/**
+	 * Tests that {@link S3BucketRepositoryImpl#getHostingUrl(String)} looks up the bucket region only once when called
+	 * concurrently.
+	 *
+	 * @throws Exception Unexpected.
+	 */
+	@Test(timeout = 10000)
+	public void testGetHostingUrlConcurrent() throws Exception {
+		when(headBucketRequestFactory.create()).thenReturn(headBucketRequest);
+		when(client.headBucket(headBucketRequest)).thenReturn(headBucketResult);
+		when(headBucketResult.getBucketRegion()).thenReturn(bucketLocation);
+		final String expectedUrl = "http://" + bucketName + ".s3-website-" + bucketLocation + ".amazonaws.com/key";
+		final int threads = 16;
+		final CountDownLatch start = new CountDownLatch(1);
+		final ExecutorService executor = Executors.newFixedThreadPool(threads);
+		final List<Future<String>> urls = new ArrayList<Future<String>>();
+		for (int i = 0; i < threads; i++) {
+			urls.add(executor.submit(new Callable<String>() {
+				@Override
+				public String call() throws InterruptedException {
+					start.await();
+					return repository.getHostingUrl("key");
+				}
+			}));
+		}
+
+		start.countDown();
+		for (final Future<String> url : urls) {
+			assertEquals(expectedUrl, url.get());
+		}
+		executor.shutdown();
+
+		verify(client).headBucket(headBucketRequest);
+	}
+
+	/**
+	 * Tests that the request permit is released when a request fails, so that later requests are not blocked.
+	 *
+	 * @throws IOException Unexpected.
+	 */
+	@Test(timeout = 10000)
+	public void testUploadFileReleasesPermitOnFailure() throws IOException {
+		final File file = FileSystemTestUtil.createAccessibleFile();
+		final ByteBuffer content = ByteBuffer.allocate(4);
+		final BucketPath destination = new BucketPath().append("repository");
+		when(putObjectRequestFactory.create(file, content, destination.asString())).thenReturn(putObjectRequest);
+		when(client.putObject(putObjectRequest)).thenThrow(new AmazonClientException("mock"))
+				.thenReturn(new PutObjectResult());
+
+		try {
+			repository.uploadFile(file, content, destination);
+			fail("Expected exception not thrown");
+		} catch (final AmazonClientException e) {
+			// Expected
+		}
+
+		assertEquals(destination.asString(), repository.uploadFile(file, content, destination));
+	}
+
 }
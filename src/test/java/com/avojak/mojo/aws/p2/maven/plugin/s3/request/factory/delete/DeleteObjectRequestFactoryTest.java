@@ -1,11 +1,19 @@
 package com.avojak.mojo.aws.p2.maven.plugin.s3.request.factory.delete;
 
 import com.amazonaws.services.s3.model.DeleteObjectRequest;
+import com.amazonaws.services.s3.model.DeleteObjectsRequest;
+import com.amazonaws.services.s3.model.DeleteObjectsRequest.KeyVersion;
 import org.junit.Before;
 import org.junit.Test;
 
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
 
 /**
  * Test class for {@link DeleteObjectRequestFactory}.
@@ -70,4 +78,96 @@ public class DeleteObjectRequestFactoryTest {
 		assertEquals(key, request.getKey());
 	}
 
+	/**
+	 * Tests that {@link DeleteObjectRequestFactory#createBatch(List)} throws an exception when the given keys are {@code
+	 * null}.
+	 */
+	@Test(expected = NullPointerException.class)
+	public void testCreateBatchNullKeys() {
+		factory.createBatch(null);
+	}
+
+	/**
+	 * Tests that {@link DeleteObjectRequestFactory#createBatch(List)} throws an exception when the given keys are empty.
+	 */
+	@Test(expected = IllegalArgumentException.class)
+	public void testCreateBatchEmptyKeys() {
+		factory.createBatch(Collections.<String>emptyList());
+	}
+
+	/**
+	 * Tests that {@link DeleteObjectRequestFactory#createBatch(List)} throws an exception when given more keys than a
+	 * single request accepts.
+	 */
+	@Test(expected = IllegalArgumentException.class)
+	public void testCreateBatchTooManyKeys() {
+		final List<String> keys = new ArrayList<String>();
+		for (int i = 0; i <= DeleteObjectRequestFactory.MAX_KEYS_PER_REQUEST; i++) {
+			keys.add("key" + i);
+		}
+		factory.createBatch(keys);
+	}
+
+	/**
+	 * Tests {@link DeleteObjectRequestFactory#createBatch(List)}.
+	 */
+	@Test
+	public void testCreateBatch() {
+		final DeleteObjectsRequest request = factory.createBatch(Arrays.asList("a", "b"));
+
+		assertNotNull(request);
+		assertEquals(bucketName, request.getBucketName());
+		assertEquals(2, request.getKeys().size());
+		assertEquals("a", request.getKeys().get(0).getKey());
+		assertEquals("b", request.getKeys().get(1).getKey());
+		assertTrue(request.getQuiet());
+	}
+
+	/**
+	 * Tests that {@link DeleteObjectRequestFactory#createVersionBatch(List)} throws an exception when the given
+	 * versions are {@code null}.
+	 */
+	@Test(expected = NullPointerException.class)
+	public void testCreateVersionBatchNullVersions() {
+		factory.createVersionBatch(null);
+	}
+
+	/**
+	 * Tests that {@link DeleteObjectRequestFactory#createVersionBatch(List)} throws an exception when the given
+	 * versions are empty.
+	 */
+	@Test(expected = IllegalArgumentException.class)
+	public void testCreateVersionBatchEmptyVersions() {
+		factory.createVersionBatch(Collections.<KeyVersion>emptyList());
+	}
+
+	/**
+	 * Tests that {@link DeleteObjectRequestFactory#createVersionBatch(List)} throws an exception when given more
+	 * versions than a single request accepts.
+	 */
+	@Test(expected = IllegalArgumentException.class)
+	public void testCreateVersionBatchTooManyVersions() {
+		final List<KeyVersion> versions = new ArrayList<KeyVersion>();
+		for (int i = 0; i <= DeleteObjectRequestFactory.MAX_KEYS_PER_REQUEST; i++) {
+			versions.add(new KeyVersion("key", "version" + i));
+		}
+		factory.createVersionBatch(versions);
+	}
+
+	/**
+	 * Tests {@link DeleteObjectRequestFactory#createVersionBatch(List)}.
+	 */
+	@Test
+	public void testCreateVersionBatch() {
+		final DeleteObjectsRequest request = factory.createVersionBatch(Arrays.asList(new KeyVersion("a", "1"),
+				new KeyVersion("a", "2")));
+
+		assertEquals(bucketName, request.getBucketName());
+		assertEquals(2, request.getKeys().size());
+		assertEquals("a", request.getKeys().get(0).getKey());
+		assertEquals("1", request.getKeys().get(0).getVersion());
+		assertEquals("2", request.getKeys().get(1).getVersion());
+		assertTrue(request.getQuiet());
+	}
+
 }
@@ -0,0 +1,99 @@
+package com.avojak.mojo.aws.p2.maven.plugin.s3.request.factory.get;
+
+import com.amazonaws.services.s3.model.GetObjectMetadataRequest;
+import com.amazonaws.services.s3.model.GetObjectRequest;
+import org.junit.Test;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Test class for {@link GetObjectRequestFactory}.
+ */
+public class GetObjectRequestFactoryTest {
+
+	private final String bucketName = "mock";
+
+	/**
+	 * Tests that the constructor throws an exception when the given bucket name is {@code null}.
+	 */
+	@Test(expected = NullPointerException.class)
+	public void testConstructorNullBucketName() {
+		new GetObjectRequestFactory(null);
+	}
+
+	/**
+	 * Tests that the constructor throws an exception when the given bucket name is empty.
+	 */
+	@Test(expected = IllegalArgumentException.class)
+	public void testConstructorEmptyBucketName() {
+		new GetObjectRequestFactory(" ");
+	}
+
+	/**
+	 * Tests that {@link GetObjectRequestFactory#create(String, long, long)} throws an exception when the given key is
+	 * {@code null}.
+	 */
+	@Test(expected = NullPointerException.class)
+	public void testCreateNullKey() {
+		new GetObjectRequestFactory(bucketName).create(null, 0, 1);
+	}
+
+	/**
+	 * Tests that {@link GetObjectRequestFactory#create(String, long, long)} throws an exception when the given key is
+	 * empty.
+	 */
+	@Test(expected = IllegalArgumentException.class)
+	public void testCreateEmptyKey() {
+		new GetObjectRequestFactory(bucketName).create(" ", 0, 1);
+	}
+
+	/**
+	 * Tests that {@link GetObjectRequestFactory#create(String, long, long)} throws an exception when the given start is
+	 * negative.
+	 */
+	@Test(expected = IllegalArgumentException.class)
+	public void testCreateNegativeStart() {
+		new GetObjectRequestFactory(bucketName).create("key", -1, 1);
+	}
+
+	/**
+	 * Tests that {@link GetObjectRequestFactory#create(String, long, long)} throws an exception when the given end is
+	 * before the start.
+	 */
+	@Test(expected = IllegalArgumentException.class)
+	public void testCreateEndBeforeStart() {
+		new GetObjectRequestFactory(bucketName).create("key", 2, 1);
+	}
+
+	/**
+	 * Tests {@link GetObjectRequestFactory#create(String, long, long)}.
+	 */
+	@Test
+	public void testCreate() {
+		final String key = "key";
+		final GetObjectRequest request = new GetObjectRequestFactory(bucketName).create(key, 0, 99);
+		assertEquals(bucketName, request.getBucketName());
+		assertEquals(key, request.getKey());
+		assertArrayEquals(new long[]{0, 99}, request.getRange());
+	}
+
+	/**
+	 * Tests that {@link GetObjectRequestFactory#createMetadata(String)} throws an exception when the given key is empty.
+	 */
+	@Test(expected = IllegalArgumentException.class)
+	public void testCreateMetadataEmptyKey() {
+		new GetObjectRequestFactory(bucketName).createMetadata(" ");
+	}
+
+	/**
+	 * Tests {@link GetObjectRequestFactory#createMetadata(String)}.
+	 */
+	@Test
+	public void testCreateMetadata() {
+		final GetObjectMetadataRequest request = new GetObjectRequestFactory(bucketName).createMetadata("key");
+		assertEquals(bucketName, request.getBucketName());
+		assertEquals("key", request.getKey());
+	}
+
+}
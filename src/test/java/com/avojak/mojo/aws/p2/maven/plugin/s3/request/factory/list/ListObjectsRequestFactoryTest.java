@@ -1,6 +1,7 @@
 package com.avojak.mojo.aws.p2.maven.plugin.s3.request.factory.list;
 
 import com.amazonaws.services.s3.model.ListObjectsRequest;
+import com.amazonaws.services.s3.model.ListVersionsRequest;
 import org.junit.Test;
 
 import static org.junit.Assert.assertEquals;
@@ -38,4 +39,46 @@ public class ListObjectsRequestFactoryTest {
 		assertEquals(prefix, request.getPrefix());
 	}
 
+	/**
+	 * Tests that {@link ListObjectsRequestFactory#create(String, String)} throws an exception when the given delimiter
+	 * is {@code null}.
+	 */
+	@Test(expected = NullPointerException.class)
+	public void testCreateDelimitedNullDelimiter() {
+		new ListObjectsRequestFactory("mockBucket").create("prefix", null);
+	}
+
+	/**
+	 * Tests {@link ListObjectsRequestFactory#create(String, String)}.
+	 */
+	@Test
+	public void testCreateDelimited() {
+		final ListObjectsRequest request = new ListObjectsRequestFactory("mockBucket").create("prefix/", "/");
+		assertEquals("mockBucket", request.getBucketName());
+		assertEquals("prefix/", request.getPrefix());
+		assertEquals("/", request.getDelimiter());
+	}
+
+	/**
+	 * Tests {@link ListObjectsRequestFactory#createAfter(String, String)}.
+	 */
+	@Test
+	public void testCreateAfter() {
+		final ListObjectsRequest request = new ListObjectsRequestFactory("mockBucket").createAfter("prefix/",
+				"prefix/a/");
+		assertEquals("mockBucket", request.getBucketName());
+		assertEquals("prefix/", request.getPrefix());
+		assertEquals("prefix/a/", request.getMarker());
+	}
+
+	/**
+	 * Tests {@link ListObjectsRequestFactory#createVersions(String)}.
+	 */
+	@Test
+	public void testCreateVersions() {
+		final ListVersionsRequest request = new ListObjectsRequestFactory("mockBucket").createVersions("prefix/");
+		assertEquals("mockBucket", request.getBucketName());
+		assertEquals("prefix/", request.getPrefix());
+	}
+
 }
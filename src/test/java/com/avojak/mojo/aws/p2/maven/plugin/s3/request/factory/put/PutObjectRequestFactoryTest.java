@@ -3,6 +3,10 @@ package com.avojak.mojo.aws.p2.maven.plugin.s3.request.factory.put;
 import com.amazonaws.services.s3.model.CannedAccessControlList;
 import com.amazonaws.services.s3.model.PutObjectRequest;
 import com.avojak.mojo.aws.p2.maven.plugin.s3.exception.ObjectRequestCreationException;
+import com.avojak.mojo.aws.p2.maven.plugin.s3.limit.BandwidthLimiter;
+import com.avojak.mojo.aws.p2.maven.plugin.s3.metadata.MetadataPolicy;
+import com.avojak.mojo.aws.p2.maven.plugin.s3.metadata.MetadataRule;
+import com.google.common.base.Optional;
 import org.junit.After;
 import org.junit.Before;
 import org.junit.Test;
@@ -11,12 +15,15 @@ import uk.org.lidalia.slf4jtest.TestLoggerFactory;
 
 import java.io.File;
 import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 
 import static java.util.Collections.EMPTY_LIST;
 import static java.util.Collections.singletonList;
 import static org.hamcrest.CoreMatchers.is;
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertThat;
 import static uk.org.lidalia.slf4jtest.LoggingEvent.debug;
 
@@ -56,6 +63,22 @@ public class PutObjectRequestFactoryTest {
 		new PutObjectRequestFactory(null);
 	}
 
+	/**
+	 * Tests that the constructor throws an exception when the given {@link BandwidthLimiter} is {@code null}.
+	 */
+	@Test(expected = NullPointerException.class)
+	public void testConstructorNullBandwidthLimiter() {
+		new PutObjectRequestFactory(bucketName, null);
+	}
+
+	/**
+	 * Tests that the constructor throws an exception when the given {@link MetadataPolicy} is {@code null}.
+	 */
+	@Test(expected = NullPointerException.class)
+	public void testConstructorNullMetadataPolicy() {
+		new PutObjectRequestFactory(bucketName, new BandwidthLimiter(0), null);
+	}
+
 	/**
 	 * Tests that the constructor throws an exception when the given bucket name is empty.
 	 */
@@ -150,6 +173,118 @@ public class PutObjectRequestFactoryTest {
 		assertEquals(CannedAccessControlList.PublicRead, request.getCannedAcl());
 	}
 
+	/**
+	 * Tests that {@link PutObjectRequestFactory#create(File, ByteBuffer, String)} throws an exception when the given
+	 * file is {@code null}.
+	 */
+	@Test(expected = NullPointerException.class)
+	public void testCreateContentNullFile() {
+		factory.create(null, ByteBuffer.allocate(0), destination);
+	}
+
+	/**
+	 * Tests that {@link PutObjectRequestFactory#create(File, ByteBuffer, String)} throws an exception when the given
+	 * content is {@code null}.
+	 *
+	 * @throws IOException Unexpected.
+	 */
+	@Test(expected = NullPointerException.class)
+	public void testCreateContentNullContent() throws IOException {
+		factory.create(createTemporaryFile(), null, destination);
+	}
+
+	/**
+	 * Tests that {@link PutObjectRequestFactory#create(File, ByteBuffer, String)} throws an exception when the given
+	 * destination is empty.
+	 *
+	 * @throws IOException Unexpected.
+	 */
+	@Test(expected = IllegalArgumentException.class)
+	public void testCreateContentEmptyDestination() throws IOException {
+		factory.create(createTemporaryFile(), ByteBuffer.allocate(0), " ");
+	}
+
+	/**
+	 * Tests {@link PutObjectRequestFactory#create(File, ByteBuffer, String)}. The content length should be taken from
+	 * the buffer, and the position of the buffer should not be modified by reading the request content.
+	 *
+	 * @throws IOException Unexpected.
+	 */
+	@Test
+	public void testCreateContent() throws IOException {
+		final File file = createTemporaryFile(".html");
+		final ByteBuffer content = ByteBuffer.wrap("content".getBytes(StandardCharsets.UTF_8));
+		final PutObjectRequest request = factory.create(file, content, destination);
+		final byte[] bytes = new byte[7];
+
+		assertEquals(7, request.getInputStream().read(bytes));
+		assertEquals("content", new String(bytes, StandardCharsets.UTF_8));
+		assertEquals(0, content.position());
+
+		assertEquals(bucketName, request.getBucketName());
+		assertEquals(destination, request.getKey());
+		assertEquals(7, request.getMetadata().getContentLength());
+		assertEquals("text/html", request.getMetadata().getContentType());
+		assertEquals(CannedAccessControlList.PublicRead, request.getCannedAcl());
+	}
+
+	/**
+	 * Tests that the content of requests is read through the {@link BandwidthLimiter}.
+	 *
+	 * @throws IOException Unexpected.
+	 */
+	@Test
+	public void testCreateContentThrottled() throws IOException {
+		final BandwidthLimiter limiter = new BandwidthLimiter(0);
+		final File file = createTemporaryFile();
+		final ByteBuffer content = ByteBuffer.wrap("content".getBytes(StandardCharsets.UTF_8));
+		final PutObjectRequest request =
+				new PutObjectRequestFactory(bucketName, limiter).create(file, content, destination);
+
+		assertEquals(7, request.getInputStream().read(new byte[7]));
+		assertEquals(7, limiter.getBytesTransferred());
+	}
+
+	/**
+	 * Tests that the metadata of requests is determined by the {@link MetadataPolicy}, with the cache control and any
+	 * rules matched against the destination.
+	 *
+	 * @throws IOException Unexpected.
+	 */
+	@Test
+	public void testCreateMetadataPolicy() throws IOException {
+		final MetadataPolicy policy = new MetadataPolicy(
+				singletonList(new MetadataRule("content.jar", "no-cache", "application/zip")),
+				Optional.of("max-age=31536000"), Optional.of("max-age=300"));
+		final PutObjectRequestFactory policyFactory =
+				new PutObjectRequestFactory(bucketName, new BandwidthLimiter(0), policy);
+		final ByteBuffer content = ByteBuffer.allocate(0);
+
+		final PutObjectRequest metadataRequest =
+				policyFactory.create(createTemporaryFile(".jar"), content, "project/content.jar");
+		final PutObjectRequest artifactRequest =
+				policyFactory.create(createTemporaryFile(".jar"), content, "project/plugins/plugin.jar");
+
+		assertEquals("application/zip", metadataRequest.getMetadata().getContentType());
+		assertEquals("no-cache", metadataRequest.getMetadata().getCacheControl());
+		assertEquals("application/java-archive", artifactRequest.getMetadata().getContentType());
+		assertEquals("max-age=31536000", artifactRequest.getMetadata().getCacheControl());
+	}
+
+	/**
+	 * Tests that requests are given no cache control by the {@link MetadataPolicy#DEFAULT default} policy.
+	 *
+	 * @throws IOException Unexpected.
+	 */
+	@Test
+	public void testCreateDefaultMetadataPolicy() throws IOException {
+		final PutObjectRequest request =
+				factory.create(createTemporaryFile(".jar"), ByteBuffer.allocate(0), "project/plugins/plugin.jar");
+
+		assertEquals("application/java-archive", request.getMetadata().getContentType());
+		assertNull(request.getMetadata().getCacheControl());
+	}
+
 	/**
 	 * Creates a temporary file with no file suffix.
 	 */
@@ -0,0 +1,191 @@
+package com.avojak.mojo.aws.p2.maven.plugin.s3.state;
+
+import com.amazonaws.AmazonClientException;
+import com.amazonaws.services.s3.model.AmazonS3Exception;
+import com.avojak.mojo.aws.p2.maven.plugin.s3.model.BucketPath;
+import com.avojak.mojo.aws.p2.maven.plugin.s3.repository.S3BucketRepository;
+import com.google.common.base.Optional;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.junit.MockitoJUnitRunner;
+import org.mockito.stubbing.Answer;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+
+import static java.util.Arrays.asList;
+import static java.util.Collections.singletonList;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Test class for {@link DeployManifestStore}.
+ */
+@RunWith(MockitoJUnitRunner.class)
+public class DeployManifestStoreTest {
+
+	private static final String BUCKET_NAME = "mock";
+	private static final String PREFIX = "project/releases/1.0.0/";
+	private static final String MANIFEST_KEY = PREFIX + DeployManifestStore.MANIFEST_NAME;
+
+	@Mock
+	private S3BucketRepository repository;
+
+	private final DeployManifest manifest = new DeployManifest(asList(
+			new RemoteObject("content.xml", 7, "9a0364b9e99bb480dd25e1f0284c8555", 0),
+			new RemoteObject("plugins/plugin.jar", 6, "a24bcf2198b1b13ad985304483f7f324", 0)));
+
+	/**
+	 * Tests {@link DeployManifestStore#getManifestKey(String)}.
+	 */
+	@Test
+	public void testGetManifestKey() {
+		assertEquals(MANIFEST_KEY, DeployManifestStore.getManifestKey(PREFIX));
+	}
+
+	/**
+	 * Tests that {@link DeployManifestStore#get(S3BucketRepository, String, String)} throws an exception when the
+	 * given repository is {@code null}.
+	 */
+	@Test(expected = NullPointerException.class)
+	public void testGetNullRepository() {
+		new DeployManifestStore().get(null, BUCKET_NAME, PREFIX);
+	}
+
+	/**
+	 * Tests that {@link DeployManifestStore#get(S3BucketRepository, String, String)} reads the manifest with a single
+	 * request.
+	 *
+	 * @throws IOException Unexpected.
+	 */
+	@Test
+	public void testGet() throws IOException {
+		stubDownload(serialize(manifest));
+
+		final Optional<DeployManifest> result = new DeployManifestStore().get(repository, BUCKET_NAME, PREFIX);
+
+		assertEquals(manifest.getRootHash(), result.get().getRootHash());
+	}
+
+	/**
+	 * Tests that {@link DeployManifestStore#get(S3BucketRepository, String, String)} returns an absent manifest when
+	 * there is no manifest object.
+	 *
+	 * @throws IOException Unexpected.
+	 */
+	@Test
+	public void testGetNotFound() throws IOException {
+		final AmazonS3Exception exception = new AmazonS3Exception("Not Found");
+		exception.setStatusCode(404);
+		when(repository.downloadRange(eq(MANIFEST_KEY), eq(0L), eq(Long.MAX_VALUE - 1), any(FileChannel.class)))
+				.thenThrow(exception);
+
+		assertFalse(new DeployManifestStore().get(repository, BUCKET_NAME, PREFIX).isPresent());
+	}
+
+	/**
+	 * Tests that {@link DeployManifestStore#get(S3BucketRepository, String, String)} returns an absent manifest when
+	 * the request fails.
+	 *
+	 * @throws IOException Unexpected.
+	 */
+	@Test
+	public void testGetFailure() throws IOException {
+		when(repository.downloadRange(eq(MANIFEST_KEY), eq(0L), eq(Long.MAX_VALUE - 1), any(FileChannel.class)))
+				.thenThrow(new AmazonClientException("mock"));
+
+		assertFalse(new DeployManifestStore().get(repository, BUCKET_NAME, PREFIX).isPresent());
+	}
+
+	/**
+	 * Tests that {@link DeployManifestStore#get(S3BucketRepository, String, String)} returns an absent manifest when
+	 * the manifest object cannot be read.
+	 *
+	 * @throws IOException Unexpected.
+	 */
+	@Test
+	public void testGetCorrupt() throws IOException {
+		stubDownload("mock".getBytes(StandardCharsets.UTF_8));
+
+		assertFalse(new DeployManifestStore().get(repository, BUCKET_NAME, PREFIX).isPresent());
+	}
+
+	/**
+	 * Tests that {@link DeployManifestStore#put(S3BucketRepository, String, String, DeployManifest)} uploads the
+	 * serialized manifest.
+	 *
+	 * @throws IOException Unexpected.
+	 */
+	@Test
+	public void testPut() throws IOException {
+		final ArgumentCaptor<ByteBuffer> content = ArgumentCaptor.forClass(ByteBuffer.class);
+
+		new DeployManifestStore().put(repository, BUCKET_NAME, PREFIX, manifest);
+
+		verify(repository).uploadFile(any(File.class), content.capture(), eq(new BucketPath().append(MANIFEST_KEY)));
+		final byte[] bytes = new byte[content.getValue().remaining()];
+		content.getValue().get(bytes);
+		assertEquals(manifest.getRootHash(), DeployManifest.read(new ByteArrayInputStream(bytes)).getRootHash());
+	}
+
+	/**
+	 * Tests that {@link DeployManifestStore#put(S3BucketRepository, String, String, DeployManifest)} does not throw an
+	 * exception when the upload fails.
+	 */
+	@Test
+	public void testPutFailure() {
+		when(repository.uploadFile(any(File.class), any(ByteBuffer.class), any(BucketPath.class)))
+				.thenThrow(new AmazonClientException("mock"));
+
+		new DeployManifestStore().put(repository, BUCKET_NAME, PREFIX, manifest);
+	}
+
+	/**
+	 * Tests that {@link DeployManifestStore#put(S3BucketRepository, String, String, DeployManifest)} throws an
+	 * exception when the given manifest is {@code null}.
+	 */
+	@Test(expected = NullPointerException.class)
+	public void testPutNullManifest() {
+		new DeployManifestStore().put(repository, BUCKET_NAME, PREFIX, null);
+	}
+
+	/**
+	 * Tests {@link DeployManifestStore#delete(S3BucketRepository, String)}.
+	 */
+	@Test
+	public void testDelete() {
+		new DeployManifestStore().delete(repository, PREFIX);
+
+		verify(repository).deleteObjects(singletonList(MANIFEST_KEY));
+	}
+
+	private void stubDownload(final byte[] bytes) throws IOException {
+		when(repository.downloadRange(eq(MANIFEST_KEY), eq(0L), eq(Long.MAX_VALUE - 1), any(FileChannel.class)))
+				.thenAnswer(new Answer<Long>() {
+					@Override
+					public Long answer(final InvocationOnMock invocation) throws IOException {
+						final FileChannel channel = invocation.getArgument(3);
+						return (long) channel.write(ByteBuffer.wrap(bytes), 0);
+					}
+				});
+	}
+
+	private static byte[] serialize(final DeployManifest manifest) throws IOException {
+		final ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+		manifest.write(outputStream);
+		return outputStream.toByteArray();
+	}
+
+}
@@ -0,0 +1,248 @@
+package com.avojak.mojo.aws.p2.maven.plugin.s3.state;
+
+import com.avojak.mojo.aws.p2.maven.plugin.util.FileSystemTestUtil;
+import com.avojak.mojo.aws.p2.maven.plugin.util.checksum.ETagCalculator;
+import com.google.common.collect.Sets;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+import static java.util.Arrays.asList;
+import static java.util.Collections.singletonList;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Test class for {@link DeployManifest}.
+ */
+public class DeployManifestTest {
+
+	private static final String PREFIX = "project/releases/1.0.0/";
+	private static final String DIGEST = "9a0364b9e99bb480dd25e1f0284c8555";
+
+	private final List<RemoteObject> files = asList(
+			new RemoteObject("content.xml", 7, DIGEST, 0),
+			new RemoteObject("features/a.jar", 3, DIGEST + "-2", 0),
+			new RemoteObject("plugins/a.jar", 1L << 35, null, 0),
+			new RemoteObject("plugins/nested/b.jar", 1, "opaque", 0),
+			new RemoteObject("plugins-index.txt", 1, DIGEST, 0));
+
+	/**
+	 * Tests that the constructor throws an exception when the given files are {@code null}.
+	 */
+	@Test(expected = NullPointerException.class)
+	public void testConstructorNullFiles() {
+		new DeployManifest(null);
+	}
+
+	/**
+	 * Tests that the constructor throws an exception when a path is not relative.
+	 */
+	@Test(expected = IllegalArgumentException.class)
+	public void testConstructorAbsolutePath() {
+		new DeployManifest(singletonList(new RemoteObject("/content.xml", 7, DIGEST, 0)));
+	}
+
+	/**
+	 * Tests that the constructor throws an exception when a path is a directory.
+	 */
+	@Test(expected = IllegalArgumentException.class)
+	public void testConstructorDirectoryPath() {
+		new DeployManifest(singletonList(new RemoteObject("plugins/", 0, null, 0)));
+	}
+
+	/**
+	 * Tests that the root hash depends on the files but not on their order.
+	 */
+	@Test
+	public void testGetRootHash() {
+		final List<RemoteObject> reversed = new ArrayList<RemoteObject>(files);
+		Collections.reverse(reversed);
+
+		assertEquals(new DeployManifest(files).getRootHash(), new DeployManifest(reversed).getRootHash());
+		assertNotEquals(new DeployManifest(files).getRootHash(), new DeployManifest(files.subList(1, 5)).getRootHash());
+		assertNotEquals(new DeployManifest(Collections.<RemoteObject>emptyList()).getRootHash(),
+				new DeployManifest(files).getRootHash());
+	}
+
+	/**
+	 * Tests that the root hash distinguishes a file from a directory of the same name.
+	 */
+	@Test
+	public void testGetRootHashFileAndDirectory() {
+		assertNotEquals(new DeployManifest(singletonList(new RemoteObject("a/b", 1, DIGEST, 0))).getRootHash(),
+				new DeployManifest(singletonList(new RemoteObject("ab", 1, DIGEST, 0))).getRootHash());
+	}
+
+	/**
+	 * Tests that {@link DeployManifest#write(java.io.OutputStream)} and {@link
+	 * DeployManifest#read(java.io.InputStream)} round trip every file.
+	 *
+	 * @throws IOException Unexpected.
+	 */
+	@Test
+	public void testWriteRead() throws IOException {
+		final DeployManifest manifest = new DeployManifest(files);
+		final ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+		manifest.write(outputStream);
+
+		final DeployManifest read = DeployManifest.read(new ByteArrayInputStream(outputStream.toByteArray()));
+
+		assertEquals(new ArrayList<RemoteObject>(manifest.getFiles()), new ArrayList<RemoteObject>(read.getFiles()));
+		assertEquals(manifest.getRootHash(), read.getRootHash());
+	}
+
+	/**
+	 * Tests that the serialized manifest is much smaller than the paths it records.
+	 *
+	 * @throws IOException Unexpected.
+	 */
+	@Test
+	public void testWriteCompact() throws IOException {
+		final List<RemoteObject> many = new ArrayList<RemoteObject>();
+		int pathLength = 0;
+		for (int i = 0; i < 1000; i++) {
+			final String path = "plugins/org.example.bundle" + i + "_1.0.0.v20201020.jar";
+			many.add(new RemoteObject(path, 1024 + i, DIGEST, 0));
+			pathLength += path.length();
+		}
+		final ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+
+		new DeployManifest(many).write(outputStream);
+
+		assertTrue(outputStream.size() < pathLength / 4);
+	}
+
+	/**
+	 * Tests that {@link DeployManifest#read(java.io.InputStream)} throws an exception when the root hash does not
+	 * match the content.
+	 *
+	 * @throws IOException Expected.
+	 */
+	@Test(expected = IOException.class)
+	public void testReadRootHashMismatch() throws IOException {
+		final ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+		new DeployManifest(files).write(outputStream);
+		final byte[] bytes = outputStream.toByteArray();
+		// Uncompress, corrupt the last byte of the root hash, and compress again
+		final ByteArrayOutputStream raw = new ByteArrayOutputStream();
+		try (final GZIPInputStream inputStream = new GZIPInputStream(new ByteArrayInputStream(bytes))) {
+			final byte[] buffer = new byte[1024];
+			int read;
+			while ((read = inputStream.read(buffer)) != -1) {
+				raw.write(buffer, 0, read);
+			}
+		}
+		final byte[] corrupt = raw.toByteArray();
+		corrupt[corrupt.length - 1] ^= 1;
+		final ByteArrayOutputStream recompressed = new ByteArrayOutputStream();
+		try (final GZIPOutputStream gzipOutputStream = new GZIPOutputStream(recompressed)) {
+			gzipOutputStream.write(corrupt);
+		}
+
+		DeployManifest.read(new ByteArrayInputStream(recompressed.toByteArray()));
+	}
+
+	/**
+	 * Tests that {@link DeployManifest#read(java.io.InputStream)} throws an exception when the content is not a
+	 * manifest.
+	 *
+	 * @throws IOException Expected.
+	 */
+	@Test(expected = IOException.class)
+	public void testReadNotManifest() throws IOException {
+		DeployManifest.read(new ByteArrayInputStream("mock".getBytes(StandardCharsets.UTF_8)));
+	}
+
+	/**
+	 * Tests {@link DeployManifest#getUnchanged(DeployManifest)}.
+	 */
+	@Test
+	public void testGetUnchanged() {
+		final List<RemoteObject> changed = new ArrayList<RemoteObject>(files);
+		changed.set(2, new RemoteObject("plugins/a.jar", 1L << 35, DIGEST, 0));
+		changed.add(new RemoteObject("plugins/c.jar", 1, DIGEST, 0));
+
+		final DeployManifest local = new DeployManifest(changed);
+
+		assertEquals(Sets.newHashSet("content.xml", "features/a.jar", "plugins/nested/b.jar", "plugins-index.txt"),
+				local.getUnchanged(new DeployManifest(files)));
+		assertEquals(Sets.newHashSet("content.xml", "features/a.jar", "plugins/a.jar", "plugins/nested/b.jar",
+				"plugins-index.txt"), new DeployManifest(files).getUnchanged(new DeployManifest(files)));
+		assertEquals(Collections.<String>emptySet(),
+				local.getUnchanged(new DeployManifest(Collections.<RemoteObject>emptyList())));
+	}
+
+	/**
+	 * Tests {@link DeployManifest#of(String, RemoteState)} and {@link DeployManifest#toRemoteState(String)}.
+	 */
+	@Test
+	public void testOfRemoteState() {
+		final RemoteState state = new RemoteState(asList(
+				new RemoteObject(PREFIX + "content.xml", 7, DIGEST, 1L),
+				new RemoteObject("project/releases/index.html", 1, DIGEST, 1L)));
+
+		final DeployManifest manifest = DeployManifest.of(PREFIX, state);
+
+		assertEquals(singletonList(new RemoteObject("content.xml", 7, DIGEST, 0)),
+				new ArrayList<RemoteObject>(manifest.getFiles()));
+		assertEquals(new RemoteState(singletonList(new RemoteObject(PREFIX + "content.xml", 7, DIGEST, 0)), true),
+				manifest.toRemoteState(PREFIX));
+	}
+
+	/**
+	 * Tests {@link DeployManifest#of(File, ETagCalculator)}.
+	 *
+	 * @throws IOException Unexpected.
+	 */
+	@Test
+	public void testOfDirectory() throws IOException {
+		final File directory = FileSystemTestUtil.createAccessibleDirectory();
+		final File plugins = new File(directory, "plugins");
+		assertTrue(plugins.mkdir());
+		Files.write(new File(directory, "content.xml").toPath(), "content".getBytes(StandardCharsets.UTF_8));
+		Files.write(new File(plugins, "plugin.jar").toPath(), "plugin".getBytes(StandardCharsets.UTF_8));
+
+		final DeployManifest manifest = DeployManifest.of(directory, new ETagCalculator());
+
+		assertEquals(asList(new RemoteObject("content.xml", 7, "9a0364b9e99bb480dd25e1f0284c8555", 0),
+				new RemoteObject("plugins/plugin.jar", 6, "a24bcf2198b1b13ad985304483f7f324", 0)),
+				new ArrayList<RemoteObject>(manifest.getFiles()));
+		assertEquals(2, manifest.size());
+	}
+
+	/**
+	 * Tests that {@link DeployManifest#of(File, ETagCalculator)} throws an exception when the directory cannot be
+	 * listed.
+	 *
+	 * @throws IOException Expected.
+	 */
+	@Test(expected = IOException.class)
+	public void testOfDirectoryNotAccessible() throws IOException {
+		DeployManifest.of(new File(FileSystemTestUtil.createAccessibleDirectory(), "missing"), new ETagCalculator());
+	}
+
+	/**
+	 * Tests that an empty manifest has no unchanged files.
+	 */
+	@Test
+	public void testEmpty() {
+		final DeployManifest manifest = new DeployManifest(Collections.<RemoteObject>emptyList());
+
+		assertEquals(0, manifest.size());
+		assertFalse(manifest.getUnchanged(new DeployManifest(files)).iterator().hasNext());
+	}
+
+}
@@ -0,0 +1,82 @@
+package com.avojak.mojo.aws.p2.maven.plugin.s3.state;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+
+/**
+ * Test class for {@link RemoteObject}.
+ */
+public class RemoteObjectTest {
+
+	/**
+	 * Tests that the constructor throws an exception when the given key is {@code null}.
+	 */
+	@Test(expected = NullPointerException.class)
+	public void testConstructorNullKey() {
+		new RemoteObject(null, 0, "etag", 0);
+	}
+
+	/**
+	 * Tests that the constructor throws an exception when the given key is empty.
+	 */
+	@Test(expected = IllegalArgumentException.class)
+	public void testConstructorEmptyKey() {
+		new RemoteObject(" ", 0, "etag", 0);
+	}
+
+	/**
+	 * Tests that the constructor throws an exception when the given size is negative.
+	 */
+	@Test(expected = IllegalArgumentException.class)
+	public void testConstructorNegativeSize() {
+		new RemoteObject("mock", -1, "etag", 0);
+	}
+
+	/**
+	 * Tests the getters.
+	 */
+	@Test
+	public void testGetters() {
+		final RemoteObject object = new RemoteObject("project/content.xml", 7, "etag", 1024);
+
+		assertEquals("project/content.xml", object.getKey());
+		assertEquals(7, object.getSize());
+		assertEquals("etag", object.getETag());
+		assertEquals(1024, object.getLastModified());
+	}
+
+	/**
+	 * Tests {@link RemoteObject#equals(Object)}.
+	 */
+	@Test
+	public void testEquals() {
+		final RemoteObject object1 = new RemoteObject("project/content.xml", 7, "etag", 1024);
+		final RemoteObject object2 = new RemoteObject("project/content.xml", 7, "etag", 1024);
+		final RemoteObject object3 = new RemoteObject("project/content.xml", 7, "other", 1024);
+
+		assertEquals(object1, object1);
+		assertEquals(object1, object2);
+		assertNotEquals(object1, null);
+		assertNotEquals(object1, "String");
+		assertNotEquals(object1, object3);
+	}
+
+	/**
+	 * Tests {@link RemoteObject#hashCode()}.
+	 */
+	@Test
+	public void testHashCode() {
+		assertEquals(new RemoteObject("mock", 7, "etag", 0).hashCode(), new RemoteObject("mock", 7, "etag", 0).hashCode());
+	}
+
+	/**
+	 * Tests {@link RemoteObject#toString()}.
+	 */
+	@Test
+	public void testToString() {
+		assertEquals("RemoteObject{mock}", new RemoteObject("mock", 7, "etag", 0).toString());
+	}
+
+}
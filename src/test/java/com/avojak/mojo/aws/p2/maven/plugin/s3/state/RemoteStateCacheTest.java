@@ -0,0 +1,325 @@
+package com.avojak.mojo.aws.p2.maven.plugin.s3.state;
+
+import com.amazonaws.AmazonClientException;
+import com.amazonaws.services.s3.Headers;
+import com.amazonaws.services.s3.model.ObjectMetadata;
+import com.avojak.mojo.aws.p2.maven.plugin.s3.model.BucketPath;
+import com.avojak.mojo.aws.p2.maven.plugin.s3.repository.S3BucketRepository;
+import com.avojak.mojo.aws.p2.maven.plugin.util.FileSystemTestUtil;
+import com.google.common.base.Optional;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.junit.MockitoJUnitRunner;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static java.util.Arrays.asList;
+import static java.util.Collections.singletonList;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyZeroInteractions;
+import static org.mockito.Mockito.when;
+
+/**
+ * Test class for {@link RemoteStateCache}.
+ */
+@RunWith(MockitoJUnitRunner.class)
+public class RemoteStateCacheTest {
+
+	private static final long TTL_SECONDS = 3600;
+	private static final String BUCKET_NAME = "mock";
+	private static final String PREFIX = "project/releases/1.0.0/";
+	private static final String MARKER_KEY = PREFIX + RemoteStateCache.MARKER_NAME;
+
+	@Mock
+	private S3BucketRepository repository;
+
+	private File directory;
+	private RemoteState state;
+
+	/**
+	 * Setup the cache directory and the state.
+	 *
+	 * @throws IOException Unexpected.
+	 */
+	@Before
+	public void setup() throws IOException {
+		directory = new File(FileSystemTestUtil.createAccessibleDirectory(), "state");
+		state = new RemoteState(asList(
+				new RemoteObject(PREFIX + "content.xml", 7, "9a0364b9e99bb480dd25e1f0284c8555", 1600000000000L),
+				new RemoteObject(PREFIX + "plugins/a.jar", 1L << 35, "9a0364b9e99bb480dd25e1f0284c8555-12", 1L),
+				new RemoteObject(PREFIX + "plugins/b.jar", 0, null, 0),
+				new RemoteObject(PREFIX + "plugins/é.jar", 1, "9A0364B9E99BB480DD25E1F0284C8555", 2L),
+				new RemoteObject(PREFIX + "plugins/c.jar", 1, "9a0364b9e99bb480dd25e1f0284c8555-01", 3L)));
+	}
+
+	/**
+	 * Tests that the constructor throws an exception when the given directory is {@code null}.
+	 */
+	@Test(expected = NullPointerException.class)
+	public void testConstructorNullDirectory() {
+		new RemoteStateCache(null, TTL_SECONDS);
+	}
+
+	/**
+	 * Tests that the constructor throws an exception when the given time to live is negative.
+	 */
+	@Test(expected = IllegalArgumentException.class)
+	public void testConstructorNegativeTtl() {
+		new RemoteStateCache(directory, -1);
+	}
+
+	/**
+	 * Tests that {@link RemoteStateCache#setTtlSeconds(long)} throws an exception when the given time to live is
+	 * negative.
+	 */
+	@Test(expected = IllegalArgumentException.class)
+	public void testSetTtlSecondsNegative() {
+		new RemoteStateCache(directory, TTL_SECONDS).setTtlSeconds(-1);
+	}
+
+	/**
+	 * Tests {@link RemoteStateCache#getMarkerKey(String)}.
+	 */
+	@Test
+	public void testGetMarkerKey() {
+		assertEquals("project/releases/1.0.0/.aws-p2-state", RemoteStateCache.getMarkerKey(PREFIX));
+	}
+
+	/**
+	 * Tests that {@link RemoteStateCache#get(S3BucketRepository, String, String)} throws an exception when the given
+	 * repository is {@code null}.
+	 */
+	@Test(expected = NullPointerException.class)
+	public void testGetNullRepository() {
+		new RemoteStateCache(directory, TTL_SECONDS).get(null, BUCKET_NAME, PREFIX);
+	}
+
+	/**
+	 * Tests that {@link RemoteStateCache#put(S3BucketRepository, String, String, RemoteState)} throws an exception when
+	 * the given state is {@code null}.
+	 */
+	@Test(expected = NullPointerException.class)
+	public void testPutNullState() {
+		new RemoteStateCache(directory, TTL_SECONDS).put(repository, BUCKET_NAME, PREFIX, null);
+	}
+
+	/**
+	 * Tests that a state which has been put is returned while the marker object is unchanged, including every form of
+	 * entity tag.
+	 */
+	@Test
+	public void testPutAndGet() {
+		when(repository.getMetadata(MARKER_KEY)).thenReturn(Optional.of(createMetadata("marker")));
+		final RemoteStateCache cache = new RemoteStateCache(directory, TTL_SECONDS);
+
+		cache.put(repository, BUCKET_NAME, PREFIX, state);
+
+		verify(repository).uploadFile(any(File.class), any(ByteBuffer.class),
+				eq(new BucketPath().append(MARKER_KEY)));
+		assertEquals(state, cache.get(repository, BUCKET_NAME, PREFIX).get());
+		// A new instance reads the state back from disk
+		assertEquals(state, new RemoteStateCache(directory, TTL_SECONDS).get(repository, BUCKET_NAME, PREFIX).get());
+	}
+
+	/**
+	 * Tests that a complete state is read back from disk as complete.
+	 */
+	@Test
+	public void testPutAndGetComplete() {
+		when(repository.getMetadata(MARKER_KEY)).thenReturn(Optional.of(createMetadata("marker")));
+		final RemoteState complete = new RemoteState(state.getObjects(), true);
+
+		new RemoteStateCache(directory, TTL_SECONDS).put(repository, BUCKET_NAME, PREFIX, complete);
+
+		assertEquals(complete, new RemoteStateCache(directory, TTL_SECONDS).get(repository, BUCKET_NAME, PREFIX)
+				.get());
+	}
+
+	/**
+	 * Tests that states are cached separately for each bucket and prefix.
+	 */
+	@Test
+	public void testGetOtherPrefix() {
+		when(repository.getMetadata(MARKER_KEY)).thenReturn(Optional.of(createMetadata("marker")));
+		final RemoteStateCache cache = new RemoteStateCache(directory, TTL_SECONDS);
+		cache.put(repository, BUCKET_NAME, PREFIX, state);
+
+		assertFalse(cache.get(repository, "other", PREFIX).isPresent());
+		assertFalse(cache.get(repository, BUCKET_NAME, "project/releases/2.0.0/").isPresent());
+	}
+
+	/**
+	 * Tests that a cached state is discarded once the marker object has changed.
+	 */
+	@Test
+	public void testGetMarkerChanged() {
+		when(repository.getMetadata(MARKER_KEY)).thenReturn(Optional.of(createMetadata("marker")),
+				Optional.of(createMetadata("other")));
+		final RemoteStateCache cache = new RemoteStateCache(directory, TTL_SECONDS);
+		cache.put(repository, BUCKET_NAME, PREFIX, state);
+
+		assertFalse(cache.get(repository, BUCKET_NAME, PREFIX).isPresent());
+		assertFalse(cache.get(repository, BUCKET_NAME, PREFIX).isPresent());
+		// The discarded state is not validated again
+		verify(repository, times(2)).getMetadata(MARKER_KEY);
+		assertEquals(0, directory.list().length);
+	}
+
+	/**
+	 * Tests that a cached state is discarded once the marker object has been deleted.
+	 */
+	@Test
+	public void testGetMarkerMissing() {
+		when(repository.getMetadata(MARKER_KEY)).thenReturn(Optional.of(createMetadata("marker")),
+				Optional.<ObjectMetadata>absent());
+		final RemoteStateCache cache = new RemoteStateCache(directory, TTL_SECONDS);
+		cache.put(repository, BUCKET_NAME, PREFIX, state);
+
+		assertFalse(cache.get(repository, BUCKET_NAME, PREFIX).isPresent());
+		assertEquals(0, directory.list().length);
+	}
+
+	/**
+	 * Tests that nothing is returned, and no request is made, when no state is cached.
+	 */
+	@Test
+	public void testGetNotCached() {
+		assertFalse(new RemoteStateCache(directory, TTL_SECONDS).get(repository, BUCKET_NAME, PREFIX).isPresent());
+		verifyZeroInteractions(repository);
+	}
+
+	/**
+	 * Tests that an unreadable file is discarded without validating it.
+	 *
+	 * @throws IOException Unexpected.
+	 */
+	@Test
+	public void testGetCorruptFile() throws IOException {
+		when(repository.getMetadata(MARKER_KEY)).thenReturn(Optional.of(createMetadata("marker")));
+		final RemoteStateCache cache = new RemoteStateCache(directory, TTL_SECONDS);
+		cache.put(repository, BUCKET_NAME, PREFIX, state);
+		final File file = directory.listFiles()[0];
+		Files.write(file.toPath(), "corrupt".getBytes(StandardCharsets.UTF_8));
+
+		assertFalse(cache.get(repository, BUCKET_NAME, PREFIX).isPresent());
+		assertFalse(file.exists());
+		verify(repository, times(1)).getMetadata(MARKER_KEY);
+	}
+
+	/**
+	 * Tests that a truncated file is discarded.
+	 *
+	 * @throws IOException Unexpected.
+	 */
+	@Test
+	public void testGetTruncatedFile() throws IOException {
+		when(repository.getMetadata(MARKER_KEY)).thenReturn(Optional.of(createMetadata("marker")));
+		final RemoteStateCache cache = new RemoteStateCache(directory, TTL_SECONDS);
+		cache.put(repository, BUCKET_NAME, PREFIX, state);
+		final File file = directory.listFiles()[0];
+		final byte[] bytes = Files.readAllBytes(file.toPath());
+		Files.write(file.toPath(), Arrays.copyOf(bytes, bytes.length - 4));
+
+		assertFalse(cache.get(repository, BUCKET_NAME, PREFIX).isPresent());
+		assertFalse(file.exists());
+	}
+
+	/**
+	 * Tests that the cache makes no requests and writes no files when disabled.
+	 */
+	@Test
+	public void testDisabled() {
+		final RemoteStateCache cache = new RemoteStateCache(directory, 0);
+
+		cache.put(repository, BUCKET_NAME, PREFIX, state);
+
+		assertFalse(cache.get(repository, BUCKET_NAME, PREFIX).isPresent());
+		verifyZeroInteractions(repository);
+		assertFalse(directory.exists());
+	}
+
+	/**
+	 * Tests that {@link RemoteStateCache#invalidate(S3BucketRepository, String, String)} deletes both the marker object
+	 * and the local state.
+	 */
+	@Test
+	public void testInvalidate() {
+		when(repository.getMetadata(MARKER_KEY)).thenReturn(Optional.of(createMetadata("marker")));
+		final RemoteStateCache cache = new RemoteStateCache(directory, TTL_SECONDS);
+		cache.put(repository, BUCKET_NAME, PREFIX, state);
+
+		cache.invalidate(repository, BUCKET_NAME, PREFIX);
+
+		verify(repository).deleteObjects(singletonList(MARKER_KEY));
+		assertEquals(0, directory.list().length);
+	}
+
+	/**
+	 * Tests that {@link RemoteStateCache#invalidate(S3BucketRepository, String, String)} throws an exception when the
+	 * marker object could not be deleted, as other caches could otherwise not be invalidated.
+	 */
+	@Test(expected = AmazonClientException.class)
+	public void testInvalidateFailure() {
+		doThrow(new AmazonClientException("mock")).when(repository).deleteObjects(singletonList(MARKER_KEY));
+
+		new RemoteStateCache(directory, TTL_SECONDS).invalidate(repository, BUCKET_NAME, PREFIX);
+	}
+
+	/**
+	 * Tests that the state is not cached when the marker object could not be written.
+	 */
+	@Test
+	public void testPutMarkerFailure() {
+		when(repository.uploadFile(any(File.class), any(ByteBuffer.class), any(BucketPath.class)))
+				.thenThrow(new AmazonClientException("mock"));
+
+		new RemoteStateCache(directory, TTL_SECONDS).put(repository, BUCKET_NAME, PREFIX, state);
+
+		assertFalse(directory.exists());
+	}
+
+	/**
+	 * Tests that a large state is stored compactly, with keys front coded and entity tags stored as raw digests.
+	 */
+	@Test
+	public void testPutCompact() {
+		when(repository.getMetadata(MARKER_KEY)).thenReturn(Optional.of(createMetadata("marker")));
+		final List<RemoteObject> objects = new ArrayList<RemoteObject>();
+		long keyLength = 0;
+		for (int i = 0; i < 1000; i++) {
+			final String key = PREFIX + "plugins/com.example.plugin_1.0." + i + ".jar";
+			objects.add(new RemoteObject(key, i, "9a0364b9e99bb480dd25e1f0284c8555", 1600000000000L));
+			keyLength += key.length();
+		}
+		final RemoteStateCache cache = new RemoteStateCache(directory, TTL_SECONDS);
+
+		cache.put(repository, BUCKET_NAME, PREFIX, new RemoteState(objects));
+
+		// Smaller than the keys alone would be
+		assertTrue(directory.listFiles()[0].length() < keyLength);
+		assertEquals(new RemoteState(objects), cache.get(repository, BUCKET_NAME, PREFIX).get());
+	}
+
+	private static ObjectMetadata createMetadata(final String eTag) {
+		final ObjectMetadata metadata = new ObjectMetadata();
+		metadata.setHeader(Headers.ETAG, eTag);
+		return metadata;
+	}
+
+}
@@ -0,0 +1,253 @@
+package com.avojak.mojo.aws.p2.maven.plugin.s3.state;
+
+import com.amazonaws.AmazonClientException;
+import com.amazonaws.services.s3.Headers;
+import com.amazonaws.services.s3.model.ObjectMetadata;
+import com.amazonaws.services.s3.model.S3ObjectSummary;
+import com.avojak.mojo.aws.p2.maven.plugin.s3.repository.S3BucketRepository;
+import com.google.common.base.Optional;
+import com.google.common.util.concurrent.UncheckedExecutionException;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.junit.MockitoJUnitRunner;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.fail;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Test class for {@link RemoteStateDiscovery}.
+ */
+@RunWith(MockitoJUnitRunner.class)
+public class RemoteStateDiscoveryTest {
+
+	private static final String PREFIX = "project/releases/1.0.0/";
+
+	@Mock
+	private S3BucketRepository repository;
+
+	/**
+	 * Tests that the constructor throws an exception when the given repository is {@code null}.
+	 */
+	@Test(expected = NullPointerException.class)
+	public void testConstructorNullRepository() {
+		new RemoteStateDiscovery(null, 1);
+	}
+
+	/**
+	 * Tests that the constructor throws an exception when the given concurrency is not positive.
+	 */
+	@Test(expected = IllegalArgumentException.class)
+	public void testConstructorZeroConcurrency() {
+		new RemoteStateDiscovery(repository, 0);
+	}
+
+	/**
+	 * Tests that {@link RemoteStateDiscovery#discover(String, Set)} throws an exception when the given prefix is
+	 * {@code null}.
+	 */
+	@Test(expected = NullPointerException.class)
+	public void testDiscoverNullPrefix() {
+		new RemoteStateDiscovery(repository, 1).discover(null, Collections.<String>emptySet());
+	}
+
+	/**
+	 * Tests that {@link RemoteStateDiscovery#discover(String, Set)} throws an exception when the given prefix is
+	 * empty.
+	 */
+	@Test(expected = IllegalArgumentException.class)
+	public void testDiscoverEmptyPrefix() {
+		new RemoteStateDiscovery(repository, 1).discover(" ", Collections.<String>emptySet());
+	}
+
+	/**
+	 * Tests that {@link RemoteStateDiscovery#discover(String, Set)} throws an exception when the given keys are
+	 * {@code null}.
+	 */
+	@Test(expected = NullPointerException.class)
+	public void testDiscoverNullKeys() {
+		new RemoteStateDiscovery(repository, 1).discover(PREFIX, null);
+	}
+
+	/**
+	 * Tests that {@link RemoteStateDiscovery#discover(String, Set)} makes no requests when there are no local files.
+	 */
+	@Test
+	public void testDiscoverNoKeys() {
+		assertEquals(0, new RemoteStateDiscovery(repository, 1).discover(PREFIX, Collections.<String>emptySet())
+				.size());
+		verify(repository, never()).iterate(anyString());
+	}
+
+	/**
+	 * Tests that {@link RemoteStateDiscovery#discover(String, Set)} uses the first page of the listing alone when the
+	 * listing ends within it, and discovers a complete state which includes the remote objects which have no local
+	 * file.
+	 */
+	@Test
+	public void testDiscoverSinglePage() {
+		when(repository.iterate(PREFIX)).thenReturn(Arrays.asList(createSummary(PREFIX + "content.xml"),
+				createSummary(PREFIX + "plugins/old.jar")));
+
+		final RemoteState state = new RemoteStateDiscovery(repository, 8).discover(PREFIX,
+				keys(PREFIX + "content.xml", PREFIX + "plugins/plugin.jar"));
+
+		assertEquals(new RemoteState(Arrays.asList(createObject(PREFIX + "content.xml"),
+				createObject(PREFIX + "plugins/old.jar")), true), state);
+		verify(repository, never()).iterateChildren(anyString());
+		verify(repository, never()).getMetadata(anyString());
+	}
+
+	/**
+	 * Tests that {@link RemoteStateDiscovery#discover(String, Set)} continues the full listing when the prefix holds
+	 * few more objects than the first page, and discovers a complete state.
+	 */
+	@Test
+	public void testDiscoverFullListing() {
+		when(repository.iterate(PREFIX)).thenReturn(createSummaries(PREFIX + "plugins/", 0, 1500));
+
+		final RemoteState state = new RemoteStateDiscovery(repository, 8).discover(PREFIX,
+				keys(PREFIX + "plugins/0100", PREFIX + "plugins/1200"));
+
+		assertTrue(state.isComplete());
+		assertEquals(1500, state.size());
+		assertEquals(createObject(PREFIX + "plugins/0100"), state.get(PREFIX + "plugins/0100").get());
+		assertEquals(createObject(PREFIX + "plugins/1499"), state.get(PREFIX + "plugins/1499").get());
+		verify(repository, never()).iterateChildren(anyString());
+		verify(repository, never()).getMetadata(anyString());
+	}
+
+	/**
+	 * Tests that {@link RemoteStateDiscovery#discover(String, Set)} lists only the directories which contain local
+	 * files when the prefix holds many more objects.
+	 */
+	@Test
+	public void testDiscoverDirectoryListings() {
+		final List<S3ObjectSummary> features = createSummaries(PREFIX + "features/", 0, 20);
+		final Set<String> keys = keys(PREFIX + "binary/0500");
+		for (final S3ObjectSummary summary : features) {
+			keys.add(summary.getKey());
+		}
+		when(repository.iterate(PREFIX)).thenReturn(createSummaries(PREFIX + "binary/", 0, 1000));
+		when(repository.iterateChildren(PREFIX + "binary/")).thenReturn(createSummaries(PREFIX + "binary/", 0, 1000));
+		when(repository.iterateChildren(PREFIX + "features/")).thenReturn(features.subList(0, 19));
+
+		final RemoteState state = new RemoteStateDiscovery(repository, 8).discover(PREFIX, keys);
+
+		assertFalse(state.isComplete());
+		assertEquals(20, state.size());
+		assertEquals(createObject(PREFIX + "binary/0500"), state.get(PREFIX + "binary/0500").get());
+		assertEquals(createObject(PREFIX + "features/0018"), state.get(PREFIX + "features/0018").get());
+		assertFalse(state.get(PREFIX + "features/0019").isPresent());
+		verify(repository, never()).getMetadata(anyString());
+	}
+
+	/**
+	 * Tests that {@link RemoteStateDiscovery#discover(String, Set)} requests the metadata of each local file which
+	 * was not in the first page when the prefix holds many more objects than there are local files.
+	 */
+	@Test
+	public void testDiscoverHeadRequests() {
+		when(repository.iterate(PREFIX)).thenReturn(createSummaries(PREFIX + "binary/", 0, 1000));
+		when(repository.getMetadata(PREFIX + "content.xml")).thenReturn(Optional.of(createMetadata()));
+		when(repository.getMetadata(PREFIX + "plugins/plugin.jar")).thenReturn(Optional.<ObjectMetadata>absent());
+
+		final RemoteState state = new RemoteStateDiscovery(repository, 8).discover(PREFIX,
+				keys(PREFIX + "content.xml", PREFIX + "plugins/plugin.jar"));
+
+		assertEquals(new RemoteState(Collections.singletonList(createObject(PREFIX + "content.xml"))), state);
+		verify(repository, never()).iterateChildren(anyString());
+	}
+
+	/**
+	 * Tests that {@link RemoteStateDiscovery#discover(String, Set)} throws the failure of a concurrent request.
+	 */
+	@Test
+	public void testDiscoverHeadRequestFailure() {
+		final AmazonClientException exception = new AmazonClientException("mock");
+		when(repository.iterate(PREFIX)).thenReturn(createSummaries(PREFIX + "binary/", 0, 1000));
+		when(repository.getMetadata(PREFIX + "content.xml")).thenThrow(exception);
+
+		try {
+			new RemoteStateDiscovery(repository, 8).discover(PREFIX, keys(PREFIX + "content.xml"));
+			fail("Expected exception not thrown");
+		} catch (final UncheckedExecutionException e) {
+			assertSame(exception, e.getCause());
+		}
+	}
+
+	/**
+	 * Tests {@link RemoteStateDiscovery#estimateRemoteObjects(Set, String)}.
+	 */
+	@Test
+	public void testEstimateRemoteObjects() {
+		final Set<String> keys = keys("a", "b", "c", "d");
+
+		assertEquals(Long.MAX_VALUE, RemoteStateDiscovery.estimateRemoteObjects(keys, "0"));
+		assertEquals(4000, RemoteStateDiscovery.estimateRemoteObjects(keys, "a"));
+		assertEquals(2000, RemoteStateDiscovery.estimateRemoteObjects(keys, "b"));
+		assertEquals(1001, RemoteStateDiscovery.estimateRemoteObjects(keys, "z"));
+	}
+
+	/**
+	 * Tests {@link RemoteStateDiscovery#choose(int, long, long, int)}.
+	 */
+	@Test
+	public void testChoose() {
+		// One more page of listing against a round of directory listings
+		assertEquals(DiscoveryStrategy.FULL_LISTING, RemoteStateDiscovery.choose(2, 2, 2000, 8));
+		// Many pages of listing against few directories
+		assertEquals(DiscoveryStrategy.DIRECTORY_LISTINGS, RemoteStateDiscovery.choose(100, 8, 100000, 8));
+		// Large directories against few files
+		assertEquals(DiscoveryStrategy.HEAD_REQUESTS, RemoteStateDiscovery.choose(8, 100, 100000, 8));
+		// An unbounded prefix is never listed in full
+		assertEquals(DiscoveryStrategy.HEAD_REQUESTS,
+				RemoteStateDiscovery.choose(8, Long.MAX_VALUE, Long.MAX_VALUE, 8));
+	}
+
+	private static Set<String> keys(final String... keys) {
+		return new LinkedHashSet<String>(Arrays.asList(keys));
+	}
+
+	private static List<S3ObjectSummary> createSummaries(final String directory, final int from, final int to) {
+		final List<S3ObjectSummary> summaries = new ArrayList<S3ObjectSummary>();
+		for (int i = from; i < to; i++) {
+			summaries.add(createSummary(directory + String.format("%04d", i)));
+		}
+		return summaries;
+	}
+
+	private static S3ObjectSummary createSummary(final String key) {
+		final S3ObjectSummary summary = new S3ObjectSummary();
+		summary.setKey(key);
+		summary.setSize(7);
+		summary.setETag("etag");
+		return summary;
+	}
+
+	private static ObjectMetadata createMetadata() {
+		final ObjectMetadata metadata = new ObjectMetadata();
+		metadata.setContentLength(7);
+		metadata.setHeader(Headers.ETAG, "etag");
+		return metadata;
+	}
+
+	private static RemoteObject createObject(final String key) {
+		return new RemoteObject(key, 7, "etag", 0);
+	}
+
+}
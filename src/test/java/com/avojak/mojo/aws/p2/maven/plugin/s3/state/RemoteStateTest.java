@@ -0,0 +1,98 @@
+package com.avojak.mojo.aws.p2.maven.plugin.s3.state;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Test class for {@link RemoteState}.
+ */
+public class RemoteStateTest {
+
+	private final RemoteObject content = new RemoteObject("project/content.xml", 7, "etag", 0);
+	private final RemoteObject plugin = new RemoteObject("project/plugins/plugin.jar", 6, "etag", 0);
+
+	/**
+	 * Tests that the constructor throws an exception when the given objects are {@code null}.
+	 */
+	@Test(expected = NullPointerException.class)
+	public void testConstructorNullObjects() {
+		new RemoteState(null);
+	}
+
+	/**
+	 * Tests that {@link RemoteState#get(String)} throws an exception when the given key is {@code null}.
+	 */
+	@Test(expected = NullPointerException.class)
+	public void testGetNullKey() {
+		new RemoteState(Collections.<RemoteObject>emptyList()).get(null);
+	}
+
+	/**
+	 * Tests {@link RemoteState#get(String)}.
+	 */
+	@Test
+	public void testGet() {
+		final RemoteState state = new RemoteState(Arrays.asList(content, plugin));
+
+		assertEquals(content, state.get("project/content.xml").get());
+		assertEquals(plugin, state.get("project/plugins/plugin.jar").get());
+		assertFalse(state.get("project/artifacts.xml").isPresent());
+		assertEquals(2, state.size());
+	}
+
+	/**
+	 * Tests {@link RemoteState#getKeys()} and {@link RemoteState#isComplete()}.
+	 */
+	@Test
+	public void testGetKeys() {
+		final RemoteState state = new RemoteState(Arrays.asList(content, plugin), true);
+
+		assertEquals(new HashSet<String>(Arrays.asList("project/content.xml", "project/plugins/plugin.jar")),
+				state.getKeys());
+		assertTrue(state.isComplete());
+		assertFalse(new RemoteState(Arrays.asList(content, plugin)).isComplete());
+	}
+
+	/**
+	 * Tests that the objects cannot be modified.
+	 */
+	@Test(expected = UnsupportedOperationException.class)
+	public void testGetObjectsUnmodifiable() {
+		new RemoteState(Collections.singletonList(content)).getObjects().clear();
+	}
+
+	/**
+	 * Tests that {@link RemoteState#equals(Object)} ignores the order in which the objects were discovered.
+	 */
+	@Test
+	public void testEquals() {
+		final RemoteState state1 = new RemoteState(Arrays.asList(content, plugin));
+		final RemoteState state2 = new RemoteState(Arrays.asList(plugin, content));
+		final RemoteState state3 = new RemoteState(Collections.singletonList(content));
+
+		assertEquals(state1, state1);
+		assertEquals(state1, state2);
+		assertNotEquals(state1, null);
+		assertNotEquals(state1, "String");
+		assertNotEquals(state1, state3);
+		assertNotEquals(state1, new RemoteState(Arrays.asList(content, plugin), true));
+	}
+
+	/**
+	 * Tests {@link RemoteState#hashCode()}.
+	 */
+	@Test
+	public void testHashCode() {
+		assertEquals(new RemoteState(Arrays.asList(content, plugin)).hashCode(),
+				new RemoteState(Arrays.asList(plugin, content)).hashCode());
+	}
+
+}
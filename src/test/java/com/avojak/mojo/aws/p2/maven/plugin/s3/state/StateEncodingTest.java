@@ -0,0 +1,98 @@
+package com.avojak.mojo.aws.p2.maven.plugin.s3.state;
+
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Test class for {@link StateEncoding}.
+ */
+public class StateEncodingTest {
+
+	/**
+	 * Tests that keys round trip when front coded against the preceding key.
+	 *
+	 * @throws IOException Unexpected.
+	 */
+	@Test
+	public void testKey() throws IOException {
+		final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		final DataOutputStream output = new DataOutputStream(bytes);
+		StateEncoding.writeKey(output, "", "plugins/a.jar");
+		StateEncoding.writeKey(output, "plugins/a.jar", "plugins/b.jar");
+		StateEncoding.writeKey(output, "plugins/b.jar", "content.xml");
+
+		final DataInputStream input = new DataInputStream(new ByteArrayInputStream(bytes.toByteArray()));
+
+		assertEquals("plugins/a.jar", StateEncoding.readKey(input, ""));
+		assertEquals("plugins/b.jar", StateEncoding.readKey(input, "plugins/a.jar"));
+		assertEquals("content.xml", StateEncoding.readKey(input, "plugins/b.jar"));
+	}
+
+	/**
+	 * Tests that reading a key throws an exception when it shares more than the length of the preceding key.
+	 *
+	 * @throws IOException Expected.
+	 */
+	@Test(expected = IOException.class)
+	public void testReadKeyMalformed() throws IOException {
+		final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		StateEncoding.writeKey(new DataOutputStream(bytes), "plugins/a.jar", "plugins/b.jar");
+
+		StateEncoding.readKey(new DataInputStream(new ByteArrayInputStream(bytes.toByteArray())), "");
+	}
+
+	/**
+	 * Tests that entity tags of every form round trip, and that digests are stored as raw bytes.
+	 *
+	 * @throws IOException Unexpected.
+	 */
+	@Test
+	public void testETag() throws IOException {
+		final String[] eTags = {null, "9a0364b9e99bb480dd25e1f0284c8555", "9a0364b9e99bb480dd25e1f0284c8555-12",
+				"9A0364B9E99BB480DD25E1F0284C8555", "9a0364b9e99bb480dd25e1f0284c8555-01", "opaque"};
+		final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		final DataOutputStream output = new DataOutputStream(bytes);
+		for (final String eTag : eTags) {
+			StateEncoding.writeETag(output, eTag);
+		}
+
+		final DataInputStream input = new DataInputStream(new ByteArrayInputStream(bytes.toByteArray()));
+
+		for (final String eTag : eTags) {
+			assertEquals(eTag, StateEncoding.readETag(input));
+		}
+		final ByteArrayOutputStream digest = new ByteArrayOutputStream();
+		StateEncoding.writeETag(new DataOutputStream(digest), eTags[1]);
+		assertEquals(17, digest.size());
+	}
+
+	/**
+	 * Tests that values round trip in as few bytes as they need.
+	 *
+	 * @throws IOException Unexpected.
+	 */
+	@Test
+	public void testVarLong() throws IOException {
+		final long[] values = {0, 127, 128, 1L << 35, Long.MAX_VALUE};
+		final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		final DataOutputStream output = new DataOutputStream(bytes);
+		for (final long value : values) {
+			StateEncoding.writeVarLong(output, value);
+		}
+
+		final DataInputStream input = new DataInputStream(new ByteArrayInputStream(bytes.toByteArray()));
+
+		for (final long value : values) {
+			assertEquals(value, StateEncoding.readVarLong(input));
+		}
+		assertEquals(1 + 1 + 2 + 6 + 9, bytes.size());
+	}
+
+}
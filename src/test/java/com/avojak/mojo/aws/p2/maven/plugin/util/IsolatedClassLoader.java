@@ -0,0 +1,87 @@
+package com.avojak.mojo.aws.p2.maven.plugin.util;
+
+import java.io.File;
+import java.lang.reflect.Method;
+import java.net.MalformedURLException;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Class loader which loads the test class path afresh, as Maven does for each plugin realm, and records the classes
+ * that it loads. Used to test and measure what executions of the plugin load.
+ */
+public class IsolatedClassLoader extends URLClassLoader {
+
+	private final List<String> loadedClasses = Collections.synchronizedList(new ArrayList<String>());
+
+	/**
+	 * Constructor.
+	 */
+	public IsolatedClassLoader() {
+		super(getClassPath(), null);
+	}
+
+	@Override
+	protected Class<?> findClass(final String name) throws ClassNotFoundException {
+		final Class<?> loadedClass = super.findClass(name);
+		loadedClasses.add(name);
+		return loadedClass;
+	}
+
+	/**
+	 * Counts the classes loaded so far whose names start with the given prefix.
+	 */
+	public int countLoadedClasses(final String prefix) {
+		int count = 0;
+		synchronized (loadedClasses) {
+			for (final String name : loadedClasses) {
+				if (name.startsWith(prefix)) {
+					count++;
+				}
+			}
+		}
+		return count;
+	}
+
+	/**
+	 * Creates an instance of the given class with its default constructor.
+	 */
+	public Object newInstance(final String className) throws ReflectiveOperationException {
+		return loadClass(className).newInstance();
+	}
+
+	/**
+	 * Invokes the named method, which may be protected, on the given instance.
+	 */
+	public static Object invoke(final Object instance, final String methodName, final Class<?>[] parameterTypes,
+	                            final Object... arguments) throws ReflectiveOperationException {
+		Class<?> type = instance.getClass();
+		while (type != null) {
+			try {
+				final Method method = type.getDeclaredMethod(methodName, parameterTypes);
+				method.setAccessible(true);
+				return method.invoke(instance, arguments);
+			} catch (final NoSuchMethodException e) {
+				type = type.getSuperclass();
+			}
+		}
+		throw new NoSuchMethodException(methodName);
+	}
+
+	private static URL[] getClassPath() {
+		final String[] entries = System.getProperty("java.class.path").split(File.pathSeparator);
+		final URL[] urls = new URL[entries.length];
+		try {
+			for (int i = 0; i < entries.length; i++) {
+				urls[i] = new File(entries[i]).toURI().toURL();
+			}
+		} catch (final MalformedURLException e) {
+			throw new IllegalStateException(e);
+		}
+		return urls;
+	}
+
+}
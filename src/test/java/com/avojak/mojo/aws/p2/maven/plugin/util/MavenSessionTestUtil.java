@@ -0,0 +1,19 @@
+package com.avojak.mojo.aws.p2.maven.plugin.util;
+
+import org.apache.maven.execution.DefaultMavenExecutionRequest;
+import org.apache.maven.execution.MavenSession;
+import org.eclipse.aether.RepositorySystemSession;
+
+/**
+ * Provides utility methods for testing with Maven sessions.
+ */
+public class MavenSessionTestUtil {
+
+	/**
+	 * Creates a session with an empty execution request.
+	 */
+	public static MavenSession createSession() {
+		return new MavenSession(null, (RepositorySystemSession) null, new DefaultMavenExecutionRequest(), null);
+	}
+
+}
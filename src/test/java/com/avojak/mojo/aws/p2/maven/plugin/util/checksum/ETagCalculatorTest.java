@@ -0,0 +1,240 @@
+package com.avojak.mojo.aws.p2.maven.plugin.util.checksum;
+
+import com.google.common.io.BaseEncoding;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Test class for {@link ETagCalculator}.
+ */
+public class ETagCalculatorTest {
+
+	private static final String CONTENT = "hello";
+	private static final String CONTENT_MD5 = "5d41402abc4b2a76b9719d911017c592";
+
+	private ETagCalculator calculator;
+	private File file;
+
+	/**
+	 * Setup.
+	 *
+	 * @throws IOException Unexpected.
+	 */
+	@Before
+	public void setup() throws IOException {
+		calculator = new ETagCalculator();
+		file = Files.createTempFile("mock", null).toFile();
+		Files.write(file.toPath(), CONTENT.getBytes(StandardCharsets.UTF_8));
+	}
+
+	/**
+	 * Tests that {@link ETagCalculator#calculate(File)} throws an exception when the given file is {@code null}.
+	 *
+	 * @throws IOException Unexpected.
+	 */
+	@Test(expected = NullPointerException.class)
+	public void testCalculateNullFile() throws IOException {
+		calculator.calculate((File) null);
+	}
+
+	/**
+	 * Tests {@link ETagCalculator#calculate(File)}.
+	 *
+	 * @throws IOException Unexpected.
+	 */
+	@Test
+	public void testCalculate() throws IOException {
+		assertEquals(CONTENT_MD5, calculator.calculate(file));
+	}
+
+	/**
+	 * Tests that {@link ETagCalculator#calculate(ByteBuffer)} throws an exception when the given content is {@code
+	 * null}.
+	 */
+	@Test(expected = NullPointerException.class)
+	public void testCalculateNullContent() {
+		calculator.calculate((ByteBuffer) null);
+	}
+
+	/**
+	 * Tests that {@link ETagCalculator#calculate(ByteBuffer)} digests the remaining content without modifying the
+	 * position of the buffer.
+	 */
+	@Test
+	public void testCalculateContent() {
+		final ByteBuffer content = ByteBuffer.wrap(("xx" + CONTENT).getBytes(StandardCharsets.UTF_8));
+		content.position(2);
+
+		assertEquals(CONTENT_MD5, calculator.calculate(content));
+		assertEquals(2, content.position());
+	}
+
+	/**
+	 * Tests that {@link ETagCalculator#calculate(File, long)} throws an exception when the given part size is not
+	 * positive.
+	 *
+	 * @throws IOException Unexpected.
+	 */
+	@Test(expected = IllegalArgumentException.class)
+	public void testCalculateMultipartInvalidPartSize() throws IOException {
+		calculator.calculate(file, 0);
+	}
+
+	/**
+	 * Tests {@link ETagCalculator#calculate(File, long)}.
+	 *
+	 * @throws IOException              Unexpected.
+	 * @throws NoSuchAlgorithmException Unexpected.
+	 */
+	@Test
+	public void testCalculateMultipart() throws IOException, NoSuchAlgorithmException {
+		final MessageDigest digest = MessageDigest.getInstance("MD5");
+		digest.update(md5("hel"));
+		digest.update(md5("lo"));
+		final String expected = BaseEncoding.base16().lowerCase().encode(digest.digest()) + "-2";
+
+		assertEquals(expected, calculator.calculate(file, 3));
+	}
+
+	/**
+	 * Tests {@link ETagCalculator#matches(File, String)} with a {@code null} entity tag.
+	 *
+	 * @throws IOException Unexpected.
+	 */
+	@Test
+	public void testMatchesNullETag() throws IOException {
+		assertFalse(calculator.matches(file, null));
+	}
+
+	/**
+	 * Tests {@link ETagCalculator#matches(File, String)} with a quoted single-part entity tag.
+	 *
+	 * @throws IOException Unexpected.
+	 */
+	@Test
+	public void testMatchesQuotedETag() throws IOException {
+		assertTrue(calculator.matches(file, "\"" + CONTENT_MD5.toUpperCase() + "\""));
+	}
+
+	/**
+	 * Tests {@link ETagCalculator#matches(File, String)} with a different entity tag.
+	 *
+	 * @throws IOException Unexpected.
+	 */
+	@Test
+	public void testMatchesDifferentETag() throws IOException {
+		assertFalse(calculator.matches(file, "00000000000000000000000000000000"));
+	}
+
+	/**
+	 * Tests {@link ETagCalculator#matches(File, String)} with a multipart entity tag.
+	 *
+	 * @throws IOException Unexpected.
+	 */
+	@Test
+	public void testMatchesMultipartETag() throws IOException {
+		assertTrue(calculator.matches(file, calculator.calculate(file, 1024 * 1024)));
+	}
+
+	/**
+	 * Tests {@link ETagCalculator#matches(File, String)} with the entity tag of a file uploaded in 8 MiB parts, the
+	 * default of the AWS CLI, whose part count also fits a smaller whole number of megabytes.
+	 *
+	 * @throws IOException Unexpected.
+	 */
+	@Test
+	public void testMatchesEightMegabytePartETag() throws IOException {
+		final File large = Files.createTempFile("mock", null).toFile();
+		final byte[] content = new byte[20 * 1024 * 1024];
+		for (int i = 0; i < content.length; i++) {
+			content[i] = (byte) i;
+		}
+		Files.write(large.toPath(), content);
+
+		final String eTag = calculator.calculate(large, 8 * 1024 * 1024);
+
+		assertTrue(eTag.endsWith("-3"));
+		assertTrue(calculator.matches(large, eTag));
+		assertFalse(calculator.matches(large, calculator.calculate(large, 9 * 1024 * 1024 + 1)));
+		assertTrue(large.delete());
+	}
+
+	/**
+	 * Tests {@link ETagCalculator#matches(File, String)} with a malformed multipart entity tag.
+	 *
+	 * @throws IOException Unexpected.
+	 */
+	@Test
+	public void testMatchesMalformedMultipartETag() throws IOException {
+		assertFalse(calculator.matches(file, CONTENT_MD5 + "-x"));
+		assertFalse(calculator.matches(file, CONTENT_MD5 + "-0"));
+	}
+
+	/**
+	 * Tests that {@link ETagCalculator#calculate(ByteBuffer, long)} calculates the same entity tag as {@link
+	 * ETagCalculator#calculate(File, long)} from the remaining content, without modifying the position of the buffer.
+	 *
+	 * @throws IOException Unexpected.
+	 */
+	@Test
+	public void testCalculateMultipartContent() throws IOException {
+		final ByteBuffer content = ByteBuffer.wrap(("xx" + CONTENT).getBytes(StandardCharsets.UTF_8));
+		content.position(2);
+
+		assertEquals(calculator.calculate(file, 3), calculator.calculate(content, 3));
+		assertEquals(2, content.position());
+	}
+
+	/**
+	 * Tests that {@link ETagCalculator#calculate(ByteBuffer, long)} throws an exception when the given part size is
+	 * not positive.
+	 */
+	@Test(expected = IllegalArgumentException.class)
+	public void testCalculateMultipartContentInvalidPartSize() {
+		calculator.calculate(ByteBuffer.wrap(new byte[0]), 0);
+	}
+
+	/**
+	 * Tests {@link ETagCalculator#matches(ByteBuffer, String)} with single-part, multipart, malformed and {@code null}
+	 * entity tags.
+	 *
+	 * @throws IOException Unexpected.
+	 */
+	@Test
+	public void testMatchesContent() throws IOException {
+		final ByteBuffer content = ByteBuffer.wrap(CONTENT.getBytes(StandardCharsets.UTF_8));
+
+		assertTrue(calculator.matches(content, "\"" + CONTENT_MD5.toUpperCase() + "\""));
+		assertTrue(calculator.matches(content, calculator.calculate(file, 1024 * 1024)));
+		assertFalse(calculator.matches(content, "00000000000000000000000000000000"));
+		assertFalse(calculator.matches(content, CONTENT_MD5 + "-0"));
+		assertFalse(calculator.matches(content, null));
+	}
+
+	/**
+	 * Tests {@link ETagCalculator#isMultipart(String)} and {@link ETagCalculator#normalize(String)}.
+	 */
+	@Test
+	public void testIsMultipartAndNormalize() {
+		assertFalse(ETagCalculator.isMultipart(CONTENT_MD5));
+		assertTrue(ETagCalculator.isMultipart(CONTENT_MD5 + "-2"));
+		assertEquals(CONTENT_MD5, ETagCalculator.normalize(" \"" + CONTENT_MD5.toUpperCase() + "\" "));
+	}
+
+	private byte[] md5(final String content) throws NoSuchAlgorithmException {
+		return MessageDigest.getInstance("MD5").digest(content.getBytes(StandardCharsets.UTF_8));
+	}
+
+}
@@ -0,0 +1,87 @@
+package com.avojak.mojo.aws.p2.maven.plugin.util.io;
+
+import org.junit.Test;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Test class for {@link ByteBufferInputStream}.
+ */
+public class ByteBufferInputStreamTest {
+
+	/**
+	 * Tests that the constructor throws an exception when the given buffer is {@code null}.
+	 */
+	@Test(expected = NullPointerException.class)
+	public void testConstructorNullBuffer() {
+		new ByteBufferInputStream(null);
+	}
+
+	/**
+	 * Tests reading single bytes, including bytes which would be negative when signed.
+	 */
+	@Test
+	public void testReadSingleByte() {
+		final ByteBufferInputStream inputStream = new ByteBufferInputStream(ByteBuffer.wrap(new byte[]{1, (byte) 0xFF}));
+
+		assertEquals(1, inputStream.read());
+		assertEquals(0xFF, inputStream.read());
+		assertEquals(-1, inputStream.read());
+	}
+
+	/**
+	 * Tests reading into an array.
+	 */
+	@Test
+	public void testReadArray() {
+		final ByteBufferInputStream inputStream = new ByteBufferInputStream(wrap("content"));
+		final byte[] bytes = new byte[10];
+
+		assertEquals(0, inputStream.read(bytes, 0, 0));
+		assertEquals(7, inputStream.read(bytes, 1, 9));
+		assertEquals(-1, inputStream.read(bytes, 0, 10));
+		assertEquals("content", new String(bytes, 1, 7, StandardCharsets.UTF_8));
+	}
+
+	/**
+	 * Tests skipping and the reported number of available bytes.
+	 */
+	@Test
+	public void testSkipAndAvailable() {
+		final ByteBufferInputStream inputStream = new ByteBufferInputStream(wrap("content"));
+
+		assertEquals(7, inputStream.available());
+		assertEquals(3, inputStream.skip(3));
+		assertEquals(4, inputStream.available());
+		assertEquals(4, inputStream.skip(10));
+		assertEquals(0, inputStream.skip(-1));
+	}
+
+	/**
+	 * Tests that the content can be replayed with mark and reset.
+	 */
+	@Test
+	public void testMarkAndReset() {
+		final ByteBufferInputStream inputStream = new ByteBufferInputStream(wrap("content"));
+		final byte[] first = new byte[7];
+		final byte[] second = new byte[7];
+
+		assertTrue(inputStream.markSupported());
+		inputStream.mark(7);
+		inputStream.read(first, 0, 7);
+		inputStream.reset();
+		inputStream.read(second, 0, 7);
+
+		assertArrayEquals(first, second);
+	}
+
+	private ByteBuffer wrap(final String content) {
+		return ByteBuffer.wrap(content.getBytes(StandardCharsets.UTF_8));
+	}
+
+}
@@ -0,0 +1,142 @@
+package com.avojak.mojo.aws.p2.maven.plugin.util.io;
+
+import com.avojak.mojo.aws.p2.maven.plugin.s3.limit.BandwidthLimiter;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.junit.MockitoJUnitRunner;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Test class for {@link ThrottledInputStream}.
+ */
+@RunWith(MockitoJUnitRunner.class)
+public class ThrottledInputStreamTest {
+
+	@Mock
+	private BandwidthLimiter limiter;
+
+	/**
+	 * Tests that the constructor throws an exception when the given stream is {@code null}.
+	 */
+	@Test(expected = NullPointerException.class)
+	public void testConstructorNullInputStream() {
+		new ThrottledInputStream(null, limiter);
+	}
+
+	/**
+	 * Tests that the constructor throws an exception when the given limiter is {@code null}.
+	 */
+	@Test(expected = NullPointerException.class)
+	public void testConstructorNullLimiter() {
+		new ThrottledInputStream(stream("content"), null);
+	}
+
+	/**
+	 * Tests that each byte read singly is acquired, and that the end of the stream is not.
+	 *
+	 * @throws Exception Unexpected.
+	 */
+	@Test
+	public void testReadSingleByte() throws Exception {
+		final ThrottledInputStream inputStream = new ThrottledInputStream(stream("a"), limiter);
+
+		assertEquals('a', inputStream.read());
+		assertEquals(-1, inputStream.read());
+
+		verify(limiter).acquire(1);
+	}
+
+	/**
+	 * Tests that reads into an array are capped at the chunk size of the limiter, and acquire the bytes read.
+	 *
+	 * @throws Exception Unexpected.
+	 */
+	@Test
+	public void testReadArray() throws Exception {
+		when(limiter.getMaxChunkSize()).thenReturn(4);
+		final ThrottledInputStream inputStream = new ThrottledInputStream(stream("content"), limiter);
+		final byte[] bytes = new byte[10];
+
+		assertEquals(4, inputStream.read(bytes, 0, 10));
+		assertEquals(3, inputStream.read(bytes, 4, 6));
+		assertEquals(-1, inputStream.read(bytes, 0, 10));
+		assertEquals("content", new String(bytes, 0, 7, StandardCharsets.UTF_8));
+
+		verify(limiter).acquire(4);
+		verify(limiter).acquire(3);
+	}
+
+	/**
+	 * Tests that mark and reset are passed through, so that replayed bytes are acquired again.
+	 *
+	 * @throws Exception Unexpected.
+	 */
+	@Test
+	public void testMarkAndReset() throws Exception {
+		when(limiter.getMaxChunkSize()).thenReturn(Integer.MAX_VALUE);
+		final ThrottledInputStream inputStream = new ThrottledInputStream(stream("content"), limiter);
+		final byte[] bytes = new byte[7];
+
+		assertTrue(inputStream.markSupported());
+		inputStream.mark(7);
+		assertEquals(7, inputStream.read(bytes, 0, 7));
+		inputStream.reset();
+		assertEquals(7, inputStream.read(bytes, 0, 7));
+
+		verify(limiter, times(2)).acquire(7);
+	}
+
+	/**
+	 * Tests that skipped bytes are not acquired.
+	 *
+	 * @throws Exception Unexpected.
+	 */
+	@Test
+	public void testSkip() throws Exception {
+		final ThrottledInputStream inputStream = new ThrottledInputStream(stream("content"), limiter);
+
+		assertEquals(3, inputStream.skip(3));
+
+		verify(limiter, never()).acquire(anyInt());
+	}
+
+	/**
+	 * Tests that an interruption while waiting for the limiter is thrown as an {@link InterruptedIOException}, and
+	 * that the interrupt status is restored.
+	 *
+	 * @throws Exception Unexpected.
+	 */
+	@Test
+	public void testReadInterrupted() throws Exception {
+		doThrow(new InterruptedException()).when(limiter).acquire(1);
+		final ThrottledInputStream inputStream = new ThrottledInputStream(stream("a"), limiter);
+
+		try {
+			inputStream.read();
+			fail("Expected exception not thrown");
+		} catch (final InterruptedIOException e) {
+			assertTrue(Thread.interrupted());
+		}
+	}
+
+	private static InputStream stream(final String content) {
+		return new ByteArrayInputStream(content.getBytes(StandardCharsets.UTF_8));
+	}
+
+}
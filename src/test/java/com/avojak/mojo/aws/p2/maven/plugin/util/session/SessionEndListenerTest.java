@@ -0,0 +1,188 @@
+package com.avojak.mojo.aws.p2.maven.plugin.util.session;
+
+import com.avojak.mojo.aws.p2.maven.plugin.util.MavenSessionTestUtil;
+import org.apache.maven.execution.ExecutionEvent;
+import org.apache.maven.execution.ExecutionListener;
+import org.apache.maven.execution.MavenSession;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.junit.MockitoJUnitRunner;
+import uk.org.lidalia.slf4jtest.TestLogger;
+import uk.org.lidalia.slf4jtest.TestLoggerFactory;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static java.util.Arrays.asList;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.verify;
+
+/**
+ * Test class for {@link SessionEndListener}.
+ */
+@RunWith(MockitoJUnitRunner.class)
+public class SessionEndListenerTest {
+
+	@Mock
+	private ExecutionListener delegate;
+
+	@Mock
+	private ExecutionEvent event;
+
+	private final TestLogger logger = TestLoggerFactory.getTestLogger(SessionEndListener.class);
+	private final List<String> runs = new ArrayList<String>();
+
+	private MavenSession session;
+
+	/**
+	 * Setup the session.
+	 */
+	@Before
+	public void setup() {
+		session = MavenSessionTestUtil.createSession();
+	}
+
+	/**
+	 * Clear loggers.
+	 */
+	@After
+	public void clearLoggers() {
+		TestLoggerFactory.clear();
+	}
+
+	/**
+	 * Tests that {@link SessionEndListener#register(MavenSession, String, Runnable)} throws an exception when the given
+	 * session is {@code null}.
+	 */
+	@Test(expected = NullPointerException.class)
+	public void testRegisterNullSession() {
+		SessionEndListener.register(null, "task", new RecordingTask("task"));
+	}
+
+	/**
+	 * Tests that {@link SessionEndListener#register(MavenSession, String, Runnable)} throws an exception when the given
+	 * name is empty.
+	 */
+	@Test(expected = IllegalArgumentException.class)
+	public void testRegisterEmptyName() {
+		SessionEndListener.register(session, " ", new RecordingTask("task"));
+	}
+
+	/**
+	 * Tests that {@link SessionEndListener#register(MavenSession, String, Runnable)} throws an exception when the given
+	 * task is {@code null}.
+	 */
+	@Test(expected = NullPointerException.class)
+	public void testRegisterNullTask() {
+		SessionEndListener.register(session, "task", null);
+	}
+
+	/**
+	 * Tests that tasks only run once the session ends, in the order in which they were registered, and only once per
+	 * name.
+	 */
+	@Test
+	public void testSessionEnded() {
+		SessionEndListener.register(session, "first", new RecordingTask("first"));
+		SessionEndListener.register(session, "second", new RecordingTask("second"));
+		SessionEndListener.register(session, "first", new RecordingTask("duplicate"));
+		final ExecutionListener listener = session.getRequest().getExecutionListener();
+		assertTrue(listener instanceof SessionEndListener);
+
+		listener.projectSucceeded(event);
+		assertTrue(runs.isEmpty());
+
+		listener.sessionEnded(event);
+		listener.sessionEnded(event);
+		assertEquals(asList("first", "second"), runs);
+	}
+
+	/**
+	 * Tests that every session clone shares the listener of the request.
+	 */
+	@Test
+	public void testRegisterSessionClone() {
+		SessionEndListener.register(session, "task", new RecordingTask("task"));
+		final ExecutionListener listener = session.getRequest().getExecutionListener();
+
+		SessionEndListener.register(session.clone(), "task", new RecordingTask("clone"));
+
+		assertSame(listener, session.getRequest().getExecutionListener());
+		listener.sessionEnded(event);
+		assertEquals(asList("task"), runs);
+	}
+
+	/**
+	 * Tests that the listener forwards every event to the listener it replaced, before running the tasks.
+	 */
+	@Test
+	public void testDelegate() {
+		session.getRequest().setExecutionListener(delegate);
+		SessionEndListener.register(session, "task", new Runnable() {
+			@Override
+			public void run() {
+				verify(delegate).sessionEnded(event);
+				runs.add("task");
+			}
+		});
+		final ExecutionListener listener = session.getRequest().getExecutionListener();
+
+		listener.sessionStarted(event);
+		listener.projectStarted(event);
+		listener.mojoFailed(event);
+		listener.forkedProjectSucceeded(event);
+		listener.sessionEnded(event);
+
+		verify(delegate).sessionStarted(event);
+		verify(delegate).projectStarted(event);
+		verify(delegate).mojoFailed(event);
+		verify(delegate).forkedProjectSucceeded(event);
+		assertEquals(asList("task"), runs);
+	}
+
+	/**
+	 * Tests that a task which fails is logged, and does not prevent the other tasks from running.
+	 */
+	@Test
+	public void testSessionEndedTaskFailed() {
+		final IllegalStateException exception = new IllegalStateException();
+		SessionEndListener.register(session, "failing", new Runnable() {
+			@Override
+			public void run() {
+				throw exception;
+			}
+		});
+		SessionEndListener.register(session, "task", new RecordingTask("task"));
+
+		session.getRequest().getExecutionListener().sessionEnded(event);
+
+		assertEquals(asList("task"), runs);
+		assertEquals(1, logger.getLoggingEvents().size());
+		assertEquals("Unable to run the session end task {}", logger.getLoggingEvents().get(0).getMessage());
+		assertSame(exception, logger.getLoggingEvents().get(0).getThrowable().get());
+	}
+
+	/**
+	 * Task which records its runs.
+	 */
+	private class RecordingTask implements Runnable {
+
+		private final String name;
+
+		private RecordingTask(final String name) {
+			this.name = name;
+		}
+
+		@Override
+		public void run() {
+			runs.add(name);
+		}
+
+	}
+
+}